@@ -11,4 +11,18 @@ CREATE INDEX idx_order_item_order_sn ON li_order_item (order_sn);
 CREATE INDEX idx_li_member_disabled_create_time ON li_member (disabled, create_time DESC);
 
 -- 针对过滤条件、排序字段的组合索引
-CREATE INDEX idx_li_goods_delete_flag_create_time ON li_goods (delete_flag, create_time DESC);
\ No newline at end of file
+CREATE INDEX idx_li_goods_delete_flag_create_time ON li_goods (delete_flag, create_time DESC);
+-- 针对超时未支付订单自动取消的游标分页
+CREATE INDEX idx_order_status_create_time_id ON li_order (order_status, create_time, id);
+
+-- 针对已发货订单自动完成的游标分页
+CREATE INDEX idx_order_status_logistics_time_id ON li_order (order_status, logistics_time, id);
+
+-- 针对每日分账的游标分页
+CREATE INDEX idx_store_flow_profit_sharing_status_id ON li_store_flow (profit_sharing_status, id);
+
+-- 针对分账按子订单修改状态
+CREATE INDEX idx_store_flow_order_item_sn ON li_store_flow (order_item_sn);
+
+-- 针对订单每日统计按子订单创建时间汇总
+CREATE INDEX idx_order_item_create_time ON li_order_item (create_time);
@@ -140,6 +140,12 @@ WHERE user_enums = 'MEMBER';
 ALTER TABLE `li_order`
     ADD COLUMN `seller_remark` varchar(255) NULL COMMENT '商家订单备注' AFTER `remark`;
 
+/**
+  订单索引以更新时间作为文档版本，只改条件的批量更新同样需要刷新更新时间
+ */
+ALTER TABLE `li_order`
+    MODIFY COLUMN `update_time` datetime(6) NULL DEFAULT NULL ON UPDATE CURRENT_TIMESTAMP(6) COMMENT '更新时间';
+
 
 ALTER TABLE `li_distribution_cash`
     ADD COLUMN `name` varchar(255) NULL COMMENT '会员姓名';
@@ -171,3 +177,99 @@ UPDATE `lilishop`.`li_setting` SET `create_by` = 'admin', `create_time` = '2021-
 ALTER TABLE li_store_logistics ADD `partner_name` varchar(255) DEFAULT NULL COMMENT '电子面单客户账户名称';
 
 
+
+-- ----------------------------
+-- 订单每日统计
+-- ----------------------------
+CREATE TABLE `li_order_statistics_daily`  (
+    `id` bigint NOT NULL COMMENT 'ID',
+    `stat_date` date NOT NULL COMMENT '统计日',
+    `store_id` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL DEFAULT '' COMMENT '店铺ID，空字符串为已汇总标记行',
+    `payment_method` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL DEFAULT '' COMMENT '支付方式',
+    `order_type` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL DEFAULT '' COMMENT '订单类型',
+    `delivery_method` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL DEFAULT '' COMMENT '配送方式',
+    `order_num` bigint NOT NULL DEFAULT 0 COMMENT '下单数量',
+    `paid_order_price` decimal(12,2) NOT NULL DEFAULT 0 COMMENT '已付款订单金额',
+    `item_order_num` bigint NOT NULL DEFAULT 0 COMMENT '有子订单的订单数量',
+    `pay_order_num` bigint NOT NULL DEFAULT 0 COMMENT '未全部退款的订单数量',
+    `pay_order_price` decimal(12,2) NOT NULL DEFAULT 0 COMMENT '未全部退款的订单金额',
+    `goods_price` decimal(12,2) NOT NULL DEFAULT 0 COMMENT '未全部退款的商品金额',
+    `discount_price` decimal(12,2) NOT NULL DEFAULT 0 COMMENT '未全部退款的优惠金额',
+    `freight_price` decimal(12,2) NOT NULL DEFAULT 0 COMMENT '未全部退款的运费',
+    `distribution_price` decimal(12,2) NOT NULL DEFAULT 0 COMMENT '未全部退款的分销佣金',
+    `refund_order_num` bigint NOT NULL DEFAULT 0 COMMENT '全部退款的订单数量',
+    `refund_price` decimal(12,2) NOT NULL DEFAULT 0 COMMENT '全部退款的退款金额',
+    PRIMARY KEY (`id`) USING BTREE,
+    UNIQUE INDEX `uk_order_statistics_daily_dimension`(`stat_date`, `store_id`, `payment_method`, `order_type`, `delivery_method`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_bin ROW_FORMAT = Dynamic COMMENT = '订单每日统计';
+
+-- ----------------------------
+-- 优惠券活动发券批次
+-- ----------------------------
+CREATE TABLE `li_coupon_distribution_chunk`  (
+    `id` bigint NOT NULL COMMENT 'ID',
+    `coupon_activity_id` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '优惠券活动ID',
+    `first_member_id` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '批次第一个会员ID',
+    `last_member_id` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '批次最后一个会员ID',
+    `member_num` int NOT NULL DEFAULT 0 COMMENT '发放会员数量',
+    `coupon_num` int NOT NULL DEFAULT 0 COMMENT '发放优惠券数量',
+    `create_time` datetime(6) NULL DEFAULT NULL COMMENT '创建时间',
+    PRIMARY KEY (`id`) USING BTREE,
+    UNIQUE INDEX `uk_coupon_distribution_chunk_activity_first_member`(`coupon_activity_id`, `first_member_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_bin ROW_FORMAT = Dynamic COMMENT = '优惠券活动发券批次';
+
+-- ----------------------------
+-- 会员全员消息状态
+-- ----------------------------
+CREATE TABLE `li_member_message_state`  (
+    `id` bigint NOT NULL COMMENT 'ID',
+    `member_id` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '会员ID',
+    `message_id` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '全员消息ID',
+    `status` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '状态',
+    `create_time` datetime(6) NULL DEFAULT NULL COMMENT '创建时间',
+    PRIMARY KEY (`id`) USING BTREE,
+    UNIQUE INDEX `uk_member_message_state_member_message`(`member_id`, `message_id`) USING BTREE,
+    INDEX `idx_member_message_state_message_id`(`message_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_bin ROW_FORMAT = Dynamic COMMENT = '会员全员消息状态';
+
+ALTER TABLE `li_member_message` ADD INDEX `idx_member_message_member_id_create_time`(`member_id`, `create_time`);
+ALTER TABLE `li_message` ADD INDEX `idx_message_client_range_create_time`(`message_client`, `message_range`, `create_time`);
+
+-- ----------------------------
+-- 短信任务分组
+-- ----------------------------
+CREATE TABLE `li_sms_reach_chunk`  (
+    `id` bigint NOT NULL COMMENT 'ID',
+    `reach_id` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '短信任务ID',
+    `chunk_index` int NOT NULL COMMENT '分组序号',
+    `mobile` mediumtext CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '接收手机号',
+    `last_mobile` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '分组最后一个手机号',
+    `mobile_num` int NOT NULL DEFAULT 0 COMMENT '手机号数量',
+    `status` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '发送状态',
+    `send_times` int NOT NULL DEFAULT 0 COMMENT '已发送次数',
+    `error_message` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NULL DEFAULT NULL COMMENT '最后一次失败原因',
+    `create_time` datetime(6) NULL DEFAULT NULL COMMENT '创建时间',
+    PRIMARY KEY (`id`) USING BTREE,
+    UNIQUE INDEX `uk_sms_reach_chunk_reach_index`(`reach_id`, `chunk_index`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_bin ROW_FORMAT = Dynamic COMMENT = '短信任务分组';
+
+-- ----------------------------
+-- 订单事件执行记录
+-- ----------------------------
+CREATE TABLE `li_order_event_record`  (
+    `id` bigint NOT NULL COMMENT 'ID',
+    `event_key` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '事件标识',
+    `tag` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '消息标签',
+    `handler` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '事件处理',
+    `status` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '执行状态',
+    `attempts` int NOT NULL DEFAULT 0 COMMENT '已执行次数',
+    `error_message` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NULL DEFAULT NULL COMMENT '最后一次失败原因',
+    `payload` mediumtext CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NULL COMMENT '事件内容',
+    `create_time` datetime(6) NULL DEFAULT NULL COMMENT '创建时间',
+    `update_time` datetime(6) NULL DEFAULT NULL COMMENT '更新时间',
+    PRIMARY KEY (`id`) USING BTREE,
+    UNIQUE INDEX `uk_order_event_record_event_tag_handler`(`event_key`, `tag`, `handler`) USING BTREE,
+    INDEX `idx_order_event_record_status`(`status`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_bin ROW_FORMAT = Dynamic COMMENT = '订单事件执行记录';
+
+ALTER TABLE `li_member_message` ADD INDEX `idx_member_message_member_id_message_id`(`member_id`, `message_id`);
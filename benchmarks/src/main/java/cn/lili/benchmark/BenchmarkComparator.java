@@ -0,0 +1,131 @@
+package cn.lili.benchmark;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 基准结果比较
+ * <p>
+ * 读取 JMH JSON 结果并与基线比较，吞吐量下降（平均耗时等模式为上升）超过阈值的基准视为退化，
+ * 存在退化时以非零状态退出，使构建失败。基线中没有的基准只输出不比较。
+ * 基线文件不存在时输出警告并跳过比较，指定必须存在基线时以非零状态退出。
+ * <p>
+ * 参数：结果文件 基线文件 [阈值，默认 0.1] [是否以结果更新基线，默认 false] [是否必须存在基线，默认 false]
+ */
+public class BenchmarkComparator {
+
+    private static final String THROUGHPUT = "thrpt";
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparator <result.json> <baseline.json> [threshold] [updateBaseline] [requireBaseline]");
+            System.exit(2);
+        }
+        File result = new File(args[0]);
+        File baseline = new File(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.1D;
+        boolean updateBaseline = args.length > 3 && Boolean.parseBoolean(args[3]);
+        boolean requireBaseline = args.length > 4 && Boolean.parseBoolean(args[4]);
+
+        if (!result.exists()) {
+            System.err.println("Benchmark result not found: " + result);
+            System.exit(2);
+        }
+        if (updateBaseline) {
+            FileUtil.copy(result, baseline, true);
+            System.out.println("Baseline updated: " + baseline);
+            return;
+        }
+        if (!baseline.exists()) {
+            //基线需在固定的基准机器上生成后提交，此前只输出结果不比较
+            System.err.println("WARNING: baseline not found: " + baseline
+                    + ", comparison skipped. Run with -Dbenchmark.updateBaseline=true on the benchmark machine to create it");
+            compare(Collections.emptyMap(), read(result), threshold);
+            if (requireBaseline) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        List<String> regressions = compare(read(baseline), read(result), threshold);
+        if (!regressions.isEmpty()) {
+            System.err.println(regressions.size() + " benchmark(s) regressed more than " + Math.round(threshold * 100) + "%:");
+            regressions.forEach(System.err::println);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 比较结果
+     *
+     * @param baseline  基线，key 为基准名称+参数
+     * @param result    本次结果
+     * @param threshold 允许的退化比例
+     * @return 退化的基准
+     */
+    public static List<String> compare(Map<String, Score> baseline, Map<String, Score> result, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Score> entry : result.entrySet()) {
+            Score current = entry.getValue();
+            Score base = baseline.get(entry.getKey());
+            if (base == null || base.score <= 0 || !base.unit.equals(current.unit) || !base.mode.equals(current.mode)) {
+                System.out.printf("%-90s %14s %14.3f %s%n", entry.getKey(), "-", current.score, current.unit);
+                continue;
+            }
+            //正数为改善，负数为退化
+            double change = THROUGHPUT.equals(current.mode)
+                    ? (current.score - base.score) / base.score
+                    : (base.score - current.score) / base.score;
+            String line = String.format("%-90s %14.3f %14.3f %s %+.1f%%", entry.getKey(), base.score, current.score, current.unit, change * 100);
+            System.out.println(line);
+            if (change < -threshold) {
+                regressions.add(line);
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * 读取 JMH JSON 结果
+     *
+     * @param file 文件
+     * @return key 为基准名称+参数
+     */
+    public static Map<String, Score> read(File file) {
+        JSONArray array = JSONUtil.parseArray(FileUtil.readString(file, StandardCharsets.UTF_8));
+        Map<String, Score> scores = new LinkedHashMap<>(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            JSONObject item = array.getJSONObject(i);
+            StringBuilder key = new StringBuilder(item.getStr("benchmark"));
+            JSONObject params = item.getJSONObject("params");
+            if (params != null) {
+                //参数按名称排序，保证同一组参数的 key 一致
+                new TreeMap<>(params).forEach((name, value) -> key.append(':').append(name).append('=').append(value));
+            }
+            JSONObject metric = item.getJSONObject("primaryMetric");
+            scores.put(key.toString(), new Score(item.getStr("mode"), metric.getDouble("score"), metric.getStr("scoreUnit")));
+        }
+        return scores;
+    }
+
+    public static class Score {
+
+        private final String mode;
+
+        private final double score;
+
+        private final String unit;
+
+        public Score(String mode, double score, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+        }
+    }
+}
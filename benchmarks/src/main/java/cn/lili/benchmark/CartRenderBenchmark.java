@@ -0,0 +1,127 @@
+package cn.lili.benchmark;
+
+import cn.lili.benchmark.support.BenchmarkData;
+import cn.lili.benchmark.support.Fakes;
+import cn.lili.cache.Cache;
+import cn.lili.modules.goods.entity.dos.GoodsSku;
+import cn.lili.modules.goods.service.GoodsSkuService;
+import cn.lili.modules.goods.service.WholesaleService;
+import cn.lili.modules.member.service.MemberService;
+import cn.lili.modules.order.cart.entity.dto.TradeDTO;
+import cn.lili.modules.order.cart.entity.enums.CartTypeEnum;
+import cn.lili.modules.order.cart.render.CartRenderStep;
+import cn.lili.modules.order.cart.render.TradeBuilder;
+import cn.lili.modules.order.cart.render.impl.*;
+import cn.lili.modules.order.cart.service.CartService;
+import cn.lili.modules.order.order.service.OrderService;
+import cn.lili.modules.order.order.service.TradeService;
+import cn.lili.modules.promotion.service.*;
+import cn.lili.modules.store.entity.dto.FreightRuleIndex;
+import cn.lili.modules.store.entity.vos.FreightTemplateVO;
+import cn.lili.modules.store.service.FreightTemplateService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 购物车渲染基准
+ * <p>
+ * 使用真实的渲染步骤，商品、促销、优惠券、运费等服务替换为内存实现，
+ * 测量 TradeBuilder 按购物车页、结算页步骤渲染的吞吐量。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartRenderBenchmark {
+
+    /**
+     * 购物车商品数量
+     */
+    @Param({"5", "50"})
+    public int skuNum;
+
+    private TradeBuilder tradeBuilder;
+
+    @Setup
+    public void setup() {
+        List<GoodsSku> skus = new ArrayList<>();
+        Map<String, GoodsSku> skuCache = new HashMap<>(skuNum * 2);
+        for (int i = 0; i < skuNum; i++) {
+            GoodsSku sku = BenchmarkData.sku(i);
+            skus.add(sku);
+            skuCache.put(sku.getId(), sku);
+        }
+        FreightTemplateVO freightTemplate = BenchmarkData.freightTemplate();
+        FreightRuleIndex freightRuleIndex = FreightRuleIndex.compile("S", Collections.singletonList(freightTemplate));
+        Cache<Object> cache = Fakes.cache();
+
+        GoodsSkuService goodsSkuService = Fakes.fake(GoodsSkuService.class)
+                .answer("getGoodsSkuByIdFromCache", args -> skuCache.get(args[0]))
+                .build();
+        PromotionGoodsService promotionGoodsService = Fakes.fake(PromotionGoodsService.class)
+                .answer("getCurrentGoodsPromotion", args -> BenchmarkData.promotionMap(((GoodsSku) args[0]).getStoreId()))
+                .build();
+        MemberService memberService = Fakes.fake(MemberService.class).build();
+
+        CheckDataRender checkDataRender = new CheckDataRender();
+        Fakes.inject(checkDataRender, "goodsSkuService", goodsSkuService);
+        Fakes.inject(checkDataRender, "orderService", Fakes.fake(OrderService.class).build());
+        Fakes.inject(checkDataRender, "memberService", memberService);
+        Fakes.inject(checkDataRender, "wholesaleService", Fakes.fake(WholesaleService.class).build());
+        Fakes.inject(checkDataRender, "promotionGoodsService", promotionGoodsService);
+
+        SkuPromotionRender skuPromotionRender = new SkuPromotionRender();
+        Fakes.inject(skuPromotionRender, "kanjiaActivityService", Fakes.fake(KanjiaActivityService.class).build());
+        Fakes.inject(skuPromotionRender, "kanjiaActivityGoodsService", Fakes.fake(KanjiaActivityGoodsService.class).build());
+        Fakes.inject(skuPromotionRender, "pointsGoodsService", Fakes.fake(PointsGoodsService.class).build());
+        Fakes.inject(skuPromotionRender, "promotionGoodsService", promotionGoodsService);
+        Fakes.inject(skuPromotionRender, "memberService", memberService);
+        Fakes.inject(skuPromotionRender, "cache", cache);
+
+        FullDiscountRender fullDiscountRender = new FullDiscountRender();
+        Fakes.inject(fullDiscountRender, "goodsSkuService", goodsSkuService);
+
+        CouponRender couponRender = new CouponRender();
+        Fakes.inject(couponRender, "memberCouponService", Fakes.fake(MemberCouponService.class).build());
+
+        SkuFreightRender skuFreightRender = new SkuFreightRender();
+        Fakes.inject(skuFreightRender, "freightTemplateService", Fakes.fake(FreightTemplateService.class)
+                .answer("getFreightRuleIndex", args -> freightRuleIndex)
+                .answer("getFreightTemplate", args -> freightTemplate)
+                .build());
+
+        List<CartRenderStep> cartRenderSteps = new ArrayList<>();
+        cartRenderSteps.add(new CheckedFilterRender());
+        cartRenderSteps.add(checkDataRender);
+        cartRenderSteps.add(skuPromotionRender);
+        cartRenderSteps.add(fullDiscountRender);
+        cartRenderSteps.add(couponRender);
+        cartRenderSteps.add(skuFreightRender);
+        cartRenderSteps.add(new CartPriceRender());
+
+        tradeBuilder = new TradeBuilder();
+        Fakes.inject(tradeBuilder, "cartRenderSteps", cartRenderSteps);
+        Fakes.inject(tradeBuilder, "tradeService", Fakes.fake(TradeService.class).build());
+        Fakes.inject(tradeBuilder, "cartService", Fakes.fake(CartService.class)
+                .answer("readDTO", args -> BenchmarkData.trade(skus))
+                .build());
+    }
+
+    @Benchmark
+    public TradeDTO buildCart() {
+        return tradeBuilder.buildCart(CartTypeEnum.CART);
+    }
+
+    @Benchmark
+    public TradeDTO buildChecked() {
+        return tradeBuilder.buildChecked(CartTypeEnum.CART);
+    }
+}
@@ -0,0 +1,121 @@
+package cn.lili.benchmark;
+
+import cn.lili.benchmark.legacy.LegacyCouponScopeFilter;
+import cn.lili.benchmark.support.BenchmarkData;
+import cn.lili.benchmark.support.Fakes;
+import cn.lili.modules.goods.entity.dos.GoodsSku;
+import cn.lili.modules.order.cart.entity.dto.TradeDTO;
+import cn.lili.modules.order.cart.entity.vo.CartSkuVO;
+import cn.lili.modules.order.cart.render.impl.CouponRender;
+import cn.lili.modules.order.cart.render.util.CouponEligibilityIndex;
+import cn.lili.modules.promotion.entity.dos.MemberCoupon;
+import cn.lili.modules.promotion.entity.enums.CouponTypeEnum;
+import cn.lili.modules.promotion.entity.enums.PromotionsScopeTypeEnum;
+import cn.lili.modules.promotion.service.MemberCouponService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 优惠券渲染基准
+ * 会员持有 500 张优惠券，购物车 50 个商品，对比适用范围索引与原逐个商品过滤
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CouponRenderBenchmark {
+
+    private static final long ID = 1700000000000000000L;
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @Param({"500"})
+    public int couponNum;
+
+    @Param({"50"})
+    public int skuNum;
+
+    private List<GoodsSku> skus;
+
+    private List<CartSkuVO> cartSkus;
+
+    private List<MemberCoupon> memberCoupons;
+
+    private CouponRender couponRender;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        skus = new ArrayList<>(skuNum);
+        for (int i = 0; i < skuNum; i++) {
+            GoodsSku sku = BenchmarkData.sku(i);
+            sku.setId(String.valueOf(ID + i));
+            sku.setCategoryPath((ID + 1) + "," + (ID + 10 + i % 5) + "," + (ID + 100 + i % 20));
+            sku.setStoreCategoryPath((ID + 1000 + i % 10) + "," + (ID + 1100 + i % 7));
+            skus.add(sku);
+        }
+        cartSkus = BenchmarkData.trade(skus).getSkuList();
+
+        PromotionsScopeTypeEnum[] scopes = PromotionsScopeTypeEnum.values();
+        memberCoupons = new ArrayList<>(couponNum);
+        for (int i = 0; i < couponNum; i++) {
+            MemberCoupon memberCoupon = new MemberCoupon();
+            memberCoupon.setId("MC" + i);
+            memberCoupon.setCouponId("C" + i);
+            memberCoupon.setMemberId("M1");
+            memberCoupon.setCouponType(CouponTypeEnum.PRICE.name());
+            memberCoupon.setPrice(5D);
+            memberCoupon.setConsumeThreshold((double) random.nextInt(500));
+            memberCoupon.setPlatformFlag(i % 4 == 0);
+            memberCoupon.setStoreId(i % 4 == 0 ? "0" : BenchmarkData.storeId(i));
+            memberCoupon.setStartTime(new Date(System.currentTimeMillis() - DAY));
+            memberCoupon.setEndTime(new Date(System.currentTimeMillis() + 30 * DAY));
+            PromotionsScopeTypeEnum scope = scopes[i % scopes.length];
+            memberCoupon.setScopeType(scope.name());
+            //部分范围优惠券各包含 20 个范围ID
+            StringJoiner scopeId = new StringJoiner(",");
+            for (int j = 0; j < 20 && scope != PromotionsScopeTypeEnum.ALL; j++) {
+                long offset = scope == PromotionsScopeTypeEnum.PORTION_GOODS ? random.nextInt(skuNum * 4)
+                        : scope == PromotionsScopeTypeEnum.PORTION_GOODS_CATEGORY ? 100 + random.nextInt(40) : 1000 + random.nextInt(200);
+                scopeId.add(String.valueOf(ID + offset));
+            }
+            memberCoupon.setScopeId(scopeId.toString());
+            memberCoupons.add(memberCoupon);
+        }
+
+        couponRender = new CouponRender();
+        Fakes.inject(couponRender, "memberCouponService", Fakes.fake(MemberCouponService.class)
+                .answer("getMemberCoupons", args -> memberCoupons)
+                .build());
+    }
+
+    @Benchmark
+    public int index() {
+        CouponEligibilityIndex index = new CouponEligibilityIndex(cartSkus);
+        int eligible = 0;
+        for (MemberCoupon memberCoupon : memberCoupons) {
+            eligible += index.filter(memberCoupon).size();
+        }
+        return eligible;
+    }
+
+    @Benchmark
+    public int legacy() {
+        int eligible = 0;
+        for (MemberCoupon memberCoupon : memberCoupons) {
+            eligible += LegacyCouponScopeFilter.filter(cartSkus, memberCoupon).size();
+        }
+        return eligible;
+    }
+
+    @Benchmark
+    public TradeDTO render() {
+        TradeDTO tradeDTO = BenchmarkData.trade(skus);
+        couponRender.render(tradeDTO);
+        return tradeDTO;
+    }
+}
@@ -0,0 +1,50 @@
+package cn.lili.benchmark;
+
+import cn.lili.modules.statistics.collector.PageViewCollector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 浏览量采集基准
+ * 多线程记录浏览，只测量本地累加，不启动定时写入 Redis
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class PageViewCollectorBenchmark {
+
+    private static final int STORE_NUM = 100;
+
+    private static final int IP_NUM = 10000;
+
+    private PageViewCollector collector;
+
+    private String[] storeIds;
+
+    private String[] ips;
+
+    @Setup
+    public void setup() {
+        collector = new PageViewCollector();
+        storeIds = new String[STORE_NUM];
+        for (int i = 0; i < STORE_NUM; i++) {
+            storeIds[i] = String.valueOf(1376369067769724928L + i);
+        }
+        ips = new String[IP_NUM];
+        for (int i = 0; i < IP_NUM; i++) {
+            ips[i] = "10.0." + (i >> 8) + "." + (i & 0xFF);
+        }
+    }
+
+    @Benchmark
+    public void collect() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        collector.collect(storeIds[random.nextInt(STORE_NUM)], ips[random.nextInt(IP_NUM)]);
+    }
+}
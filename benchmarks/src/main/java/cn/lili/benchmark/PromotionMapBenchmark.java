@@ -0,0 +1,39 @@
+package cn.lili.benchmark;
+
+import cn.lili.benchmark.support.BenchmarkData;
+import cn.lili.modules.search.entity.dos.EsGoodsIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品索引促销信息基准
+ * 商品列表、详情与购物车校验都会从索引的促销JSON中解析并过滤有效促销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromotionMapBenchmark {
+
+    private EsGoodsIndex goodsIndex;
+
+    @Setup
+    public void setup() {
+        goodsIndex = new EsGoodsIndex(BenchmarkData.sku(1));
+        goodsIndex.setPromotionMapJson(BenchmarkData.promotionMapJson(BenchmarkData.storeId(1)));
+    }
+
+    @Benchmark
+    public Map<String, Object> promotionMap() {
+        return goodsIndex.getPromotionMap();
+    }
+
+    @Benchmark
+    public Map<String, Object> originPromotionMap() {
+        return goodsIndex.getOriginPromotionMap();
+    }
+}
@@ -0,0 +1,67 @@
+package cn.lili.benchmark;
+
+import cn.lili.benchmark.support.BenchmarkData;
+import cn.lili.cache.config.redis.KryoRedisValueCodec;
+import cn.lili.cache.config.redis.VersionedRedisSerializer;
+import cn.lili.modules.goods.entity.dos.GoodsSku;
+import cn.lili.modules.order.cart.entity.dto.TradeDTO;
+import com.alibaba.fastjson.parser.ParserConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存序列化基准
+ * 对比 JSON 与 Kryo（超过阈值时 LZ4 压缩）编码购物车的耗时，编码后的大小在初始化时输出
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisSerializerBenchmark {
+
+    @Param({"JSON", "KRYO"})
+    public String type;
+
+    /**
+     * 购物车商品数量
+     */
+    @Param({"5", "50"})
+    public int skuNum;
+
+    private VersionedRedisSerializer serializer;
+
+    private TradeDTO tradeDTO;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        ParserConfig.getGlobalInstance().addAccept("cn.lili.");
+        ParserConfig.getGlobalInstance().addAccept("cn.hutool.json.");
+        KryoRedisValueCodec kryo = new KryoRedisValueCodec();
+        serializer = "KRYO".equals(type) ? new VersionedRedisSerializer(kryo, 1024) : new VersionedRedisSerializer(null, 1024, kryo);
+
+        List<GoodsSku> skus = new ArrayList<>();
+        for (int i = 0; i < skuNum; i++) {
+            skus.add(BenchmarkData.sku(i));
+        }
+        tradeDTO = BenchmarkData.trade(skus);
+        bytes = serializer.serialize(tradeDTO);
+        System.out.println("TradeDTO " + type + " skuNum=" + skuNum + " size=" + bytes.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(tradeDTO);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+}
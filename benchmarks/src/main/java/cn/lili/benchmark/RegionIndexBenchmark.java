@@ -0,0 +1,95 @@
+package cn.lili.benchmark;
+
+import cn.lili.benchmark.legacy.LegacyRegionTree;
+import cn.lili.modules.system.entity.dos.Region;
+import cn.lili.modules.system.entity.dto.RegionIndex;
+import cn.lili.modules.system.entity.vo.RegionVO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 行政地区索引基准
+ * 34 个省份，每省 11 个城市，每市 9 个区县，每区县 12 个街道，约 4 万条地区，
+ * 对比索引编译耗时与原省市树构建，以及编译后的地址查询
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegionIndexBenchmark {
+
+    private static final long ID = 1700000000000000000L;
+
+    @Param({"34"})
+    public int provinceNum;
+
+    private List<Region> regions;
+
+    private List<Region> cities;
+
+    private List<Region> streets;
+
+    private RegionIndex index;
+
+    private Random random;
+
+    @Setup
+    public void setup() {
+        regions = new ArrayList<>();
+        long id = ID;
+        for (int p = 0; p < provinceNum; p++) {
+            Region province = region(id++, "0", ",0", "province", null, "省" + p, p);
+            for (int c = 0; c < 11; c++) {
+                String cityCode = String.format("%02d%02d", p, c);
+                Region city = region(id++, province.getId(), ",0," + province.getId(), "city", cityCode, "市" + p + "-" + c, c);
+                for (int d = 0; d < 9; d++) {
+                    Region district = region(id++, city.getId(), city.getPath() + "," + city.getId(), "district", cityCode, "区" + d, d);
+                    for (int s = 0; s < 12; s++) {
+                        region(id++, district.getId(), district.getPath() + "," + district.getId(), "street", cityCode, "街道" + d + "-" + s, s);
+                    }
+                }
+            }
+        }
+        cities = regions.stream().filter(region -> "province".equals(region.getLevel()) || "city".equals(region.getLevel())).collect(Collectors.toList());
+        streets = regions.stream().filter(region -> "street".equals(region.getLevel())).collect(Collectors.toList());
+        index = RegionIndex.compile(regions, "v1");
+        random = new Random(42);
+    }
+
+    private Region region(long id, String parentId, String path, String level, String cityCode, String name, int orderNum) {
+        Region region = new Region();
+        region.setId(String.valueOf(id));
+        region.setParentId(parentId);
+        region.setPath(path);
+        region.setLevel(level);
+        region.setCityCode(cityCode);
+        region.setName(name);
+        region.setOrderNum(orderNum);
+        regions.add(region);
+        return region;
+    }
+
+    @Benchmark
+    public RegionIndex compile() {
+        return RegionIndex.compile(regions, "v1");
+    }
+
+    @Benchmark
+    public List<RegionVO> legacyAllCity() {
+        return LegacyRegionTree.regionTree(cities);
+    }
+
+    @Benchmark
+    public String getRegion() {
+        Region street = streets.get(random.nextInt(streets.size()));
+        Region region = index.getByCityCodeAndName(street.getCityCode(), street.getName());
+        return index.namePath(region.getId());
+    }
+}
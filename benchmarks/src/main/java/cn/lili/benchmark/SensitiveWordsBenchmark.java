@@ -0,0 +1,87 @@
+package cn.lili.benchmark;
+
+import cn.lili.benchmark.legacy.LegacySensitiveWordsFilter;
+import cn.lili.common.sensitive.SensitiveWordsFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 敏感词过滤基准
+ * 对比 Aho-Corasick 自动机与原哈希桶实现，文本为约 200 字的评价内容，其中夹杂少量敏感词
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SensitiveWordsBenchmark {
+
+    private static final int TEXT_NUM = 64;
+
+    /**
+     * 敏感词数量
+     */
+    @Param({"1000", "10000"})
+    public int wordNum;
+
+    private String[] texts;
+
+    private int index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<String> words = new ArrayList<>(wordNum);
+        for (int i = 0; i < wordNum; i++) {
+            words.add(randomText(random, 2 + random.nextInt(4)));
+        }
+        SensitiveWordsFilter.init(words);
+        LegacySensitiveWordsFilter.init(words);
+
+        texts = new String[TEXT_NUM];
+        for (int i = 0; i < TEXT_NUM; i++) {
+            StringBuilder text = new StringBuilder(randomText(random, 200));
+            //每段文本插入 2 个敏感词
+            for (int j = 0; j < 2; j++) {
+                text.insert(random.nextInt(text.length()), words.get(random.nextInt(words.size())));
+            }
+            texts[i] = text.toString();
+        }
+    }
+
+    @Benchmark
+    public String automaton() {
+        return SensitiveWordsFilter.filter(next());
+    }
+
+    @Benchmark
+    public String legacy() {
+        return LegacySensitiveWordsFilter.filter(next());
+    }
+
+    @Benchmark
+    public boolean automatonContains() {
+        return SensitiveWordsFilter.contains(next());
+    }
+
+    private String next() {
+        index = (index + 1) & (TEXT_NUM - 1);
+        return texts[index];
+    }
+
+    /**
+     * 常用汉字范围内的随机文本
+     */
+    private static String randomText(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (0x4E00 + random.nextInt(3000));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,75 @@
+package cn.lili.benchmark;
+
+import cn.lili.benchmark.support.Fakes;
+import cn.lili.cache.Cache;
+import cn.lili.common.properties.JWTTokenProperties;
+import cn.lili.common.security.AuthUser;
+import cn.lili.common.security.context.UserContext;
+import cn.lili.common.security.enums.UserEnums;
+import cn.lili.common.security.token.Token;
+import cn.lili.common.security.token.TokenUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌基准
+ * 签发令牌，以及每个请求都会执行的 JWT 解析与缓存校验
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenBenchmark {
+
+    private TokenUtil tokenUtil;
+
+    /**
+     * 签发令牌使用，缓存不保留写入，避免测量期间缓存持续增长
+     */
+    private TokenUtil createTokenUtil;
+
+    private Cache<Object> cache;
+
+    private AuthUser authUser;
+
+    private String accessToken;
+
+    @Setup
+    public void setup() {
+        cache = Fakes.cache();
+        tokenUtil = new TokenUtil();
+        Fakes.inject(tokenUtil, "tokenProperties", new JWTTokenProperties());
+        Fakes.inject(tokenUtil, "cache", cache);
+        createTokenUtil = new TokenUtil();
+        Fakes.inject(createTokenUtil, "tokenProperties", new JWTTokenProperties());
+        Fakes.inject(createTokenUtil, "cache", Fakes.fake(Cache.class).build());
+
+        authUser = AuthUser.builder()
+                .id("1376417684140326912")
+                .username("benchmark")
+                .nickName("基准测试")
+                .face("https://lili.cn/face.png")
+                .role(UserEnums.MEMBER)
+                .longTerm(false)
+                .build();
+        accessToken = tokenUtil.createToken(authUser).getAccessToken();
+    }
+
+    @Benchmark
+    public Token createToken() {
+        return createTokenUtil.createToken(authUser);
+    }
+
+    @Benchmark
+    public AuthUser parse() {
+        return UserContext.getAuthUser(accessToken);
+    }
+
+    @Benchmark
+    public AuthUser authenticate() {
+        return UserContext.getAuthUser(cache, accessToken);
+    }
+}
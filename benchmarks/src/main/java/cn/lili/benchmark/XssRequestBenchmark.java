@@ -0,0 +1,84 @@
+package cn.lili.benchmark;
+
+import cn.hutool.json.JSONObject;
+import cn.lili.common.security.filter.XssHttpServletRequestWrapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XSS 过滤基准
+ * 覆盖查询参数、参数集合、请求头以及 JSON 请求体的过滤
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XssRequestBenchmark {
+
+    private static final String RICH_TEXT = "<p style=\"color:red\">商品详情<img src=\"https://lili.cn/1.png\" onerror=\"alert(1)\"/></p>"
+            + "<script>alert('xss')</script><table><tr><td>规格</td><td>XL</td></tr></table>";
+
+    private MockHttpServletRequest request;
+
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        request = new MockHttpServletRequest("GET", "/buyer/goods/goods/es");
+        request.addHeader("accessToken", "eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJiZW5jaG1hcmsifQ.signature");
+        request.addParameter("keyword", "手机");
+        request.addParameter("categoryId", "1348576427264204941");
+        request.addParameter("pageNumber", "1");
+        request.addParameter("pageSize", "20");
+        request.addParameter("sort", "price");
+        request.addParameter("order", "desc");
+        request.addParameter("prop", "品牌@华为@@颜色@黑色");
+        request.addParameter("price", "100_1000");
+        request.addParameter("intro", RICH_TEXT);
+
+        JSONObject json = new JSONObject();
+        for (int i = 0; i < 10; i++) {
+            json.set("field" + i, "值" + i);
+        }
+        json.set("intro", RICH_TEXT);
+        json.set("price", 99.9D);
+        json.set("quantity", 100);
+        body = json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String parameter() {
+        return new XssHttpServletRequestWrapper(request).getParameter("keyword");
+    }
+
+    @Benchmark
+    public String richTextParameter() {
+        return new XssHttpServletRequestWrapper(request).getParameter("intro");
+    }
+
+    @Benchmark
+    public Map<String, String[]> parameterMap() {
+        return new XssHttpServletRequestWrapper(request).getParameterMap();
+    }
+
+    @Benchmark
+    public String header() {
+        return new XssHttpServletRequestWrapper(request).getHeader("accessToken");
+    }
+
+    @Benchmark
+    public byte[] jsonBody() throws IOException {
+        MockHttpServletRequest post = new MockHttpServletRequest("POST", "/store/goods/goods/create");
+        post.setContentType("application/json");
+        post.setContent(body);
+        return StreamUtils.copyToByteArray(new XssHttpServletRequestWrapper(post).getInputStream());
+    }
+}
@@ -0,0 +1,64 @@
+package cn.lili.benchmark.legacy;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.lili.modules.order.cart.entity.vo.CartSkuVO;
+import cn.lili.modules.promotion.entity.dos.MemberCoupon;
+import cn.lili.modules.promotion.entity.enums.PromotionsScopeTypeEnum;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 优惠券适用范围过滤，适用范围索引之前的实现，每张优惠券遍历购物车商品，仅用于基准对比
+ */
+public final class LegacyCouponScopeFilter {
+
+    private LegacyCouponScopeFilter() {
+    }
+
+    /**
+     * 过滤购物车商品信息，按照优惠券的适用范围过滤
+     *
+     * @param cartSkuVOS   购物车中的产品列表
+     * @param memberCoupon 会员优惠券
+     * @return 按照优惠券的适用范围过滤的购物车商品信息
+     */
+    public static List<CartSkuVO> filter(List<CartSkuVO> cartSkuVOS, MemberCoupon memberCoupon) {
+        List<CartSkuVO> filterSku;
+        //平台店铺过滤
+        if (Boolean.TRUE.equals(memberCoupon.getPlatformFlag())) {
+            filterSku = cartSkuVOS;
+        } else {
+            filterSku = cartSkuVOS.stream().filter(cartSkuVO -> cartSkuVO.getStoreId().equals(memberCoupon.getStoreId())).collect(Collectors.toList());
+        }
+        if (filterSku == null || filterSku.isEmpty()) {
+            return Collections.emptyList();
+        }
+        //优惠券类型判定
+        switch (PromotionsScopeTypeEnum.valueOf(memberCoupon.getScopeType())) {
+            case ALL:
+                return filterSku;
+            case PORTION_GOODS:
+                return filterSku.stream().filter(cartSkuVO -> memberCoupon.getScopeId().contains(cartSkuVO.getGoodsSku().getId())).collect(Collectors.toList());
+            case PORTION_SHOP_CATEGORY:
+                return filterSku.stream().filter(cartSkuVO -> {
+                    if (CharSequenceUtil.isNotEmpty(cartSkuVO.getGoodsSku().getStoreCategoryPath())) {
+                        for (String category : cartSkuVO.getGoodsSku().getStoreCategoryPath().split(",")) {
+                            if (memberCoupon.getScopeId().contains(category)) {
+                                return true;
+                            }
+                        }
+                    }
+                    return false;
+                }).collect(Collectors.toList());
+            case PORTION_GOODS_CATEGORY:
+                return filterSku.stream().filter(cartSkuVO -> {
+                    String[] categoryPath = cartSkuVO.getGoodsSku().getCategoryPath().split(",");
+                    return memberCoupon.getScopeId().contains(categoryPath[categoryPath.length - 1]);
+                }).collect(Collectors.toList());
+            default:
+                return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package cn.lili.benchmark.legacy;
+
+import cn.lili.modules.system.entity.dos.Region;
+import cn.lili.modules.system.entity.vo.RegionVO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 省市树，地区索引之前的实现，每个城市遍历全部省份，仅用于基准对比
+ */
+public final class LegacyRegionTree {
+
+    private LegacyRegionTree() {
+    }
+
+    /**
+     * 构建省市树
+     *
+     * @param regions 省份与城市
+     * @return 省市树
+     */
+    public static List<RegionVO> regionTree(List<Region> regions) {
+        List<RegionVO> regionVOS = new ArrayList<>();
+        regions.stream().filter(region -> ("province").equals(region.getLevel())).forEach(item -> regionVOS.add(new RegionVO(item)));
+        regions.stream().filter(region -> ("city").equals(region.getLevel())).forEach(item -> {
+            for (RegionVO region : regionVOS) {
+                if (region.getId().equals(item.getParentId())) {
+                    region.getChildren().add(new RegionVO(item));
+                }
+            }
+        });
+        return regionVOS;
+    }
+}
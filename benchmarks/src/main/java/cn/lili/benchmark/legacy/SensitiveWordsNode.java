@@ -1,4 +1,4 @@
-package cn.lili.common.sensitive;
+package cn.lili.benchmark.legacy;
 
 import java.io.Serializable;
 import java.util.TreeSet;
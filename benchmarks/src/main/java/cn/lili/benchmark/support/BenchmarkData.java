@@ -0,0 +1,186 @@
+package cn.lili.benchmark.support;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.json.JSONUtil;
+import cn.lili.common.enums.PromotionTypeEnum;
+import cn.lili.modules.goods.entity.dos.GoodsSku;
+import cn.lili.modules.goods.entity.enums.GoodsAuthEnum;
+import cn.lili.modules.goods.entity.enums.GoodsSalesModeEnum;
+import cn.lili.modules.goods.entity.enums.GoodsStatusEnum;
+import cn.lili.modules.goods.entity.enums.GoodsTypeEnum;
+import cn.lili.modules.member.entity.dos.MemberAddress;
+import cn.lili.modules.order.cart.entity.dto.TradeDTO;
+import cn.lili.modules.order.cart.entity.enums.CartTypeEnum;
+import cn.lili.modules.order.cart.entity.enums.DeliveryMethodEnum;
+import cn.lili.modules.order.cart.entity.vo.CartSkuVO;
+import cn.lili.modules.promotion.entity.dos.Coupon;
+import cn.lili.modules.promotion.entity.dos.FullDiscount;
+import cn.lili.modules.promotion.entity.enums.CouponTypeEnum;
+import cn.lili.modules.promotion.entity.enums.PromotionsScopeTypeEnum;
+import cn.lili.modules.store.entity.dos.FreightTemplateChild;
+import cn.lili.modules.store.entity.enums.FreightTemplateEnum;
+import cn.lili.modules.store.entity.vos.FreightTemplateVO;
+
+import java.util.*;
+
+/**
+ * 基准测试数据
+ */
+public final class BenchmarkData {
+
+    public static final String FREIGHT_TEMPLATE_ID = "F1";
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 商品SKU，按序号分布在 3 个店铺
+     *
+     * @param index 序号
+     * @return SKU
+     */
+    public static GoodsSku sku(int index) {
+        GoodsSku sku = new GoodsSku();
+        sku.setId("SKU" + index);
+        sku.setGoodsId("G" + index / 2);
+        sku.setGoodsName("基准测试商品" + index);
+        sku.setSimpleSpecs("颜色:红色 尺码:XL");
+        sku.setPrice(99.9D + index);
+        sku.setCost(50D);
+        sku.setWeight(0.5D);
+        sku.setQuantity(10000);
+        sku.setStoreId(storeId(index));
+        sku.setStoreName("店铺" + storeId(index));
+        sku.setCategoryPath("1,2,3");
+        sku.setThumbnail("https://lili.cn/goods/" + index + ".png");
+        sku.setAuthFlag(GoodsAuthEnum.PASS.name());
+        sku.setMarketEnable(GoodsStatusEnum.UPPER.name());
+        sku.setSalesModel(GoodsSalesModeEnum.RETAIL.name());
+        sku.setGoodsType(GoodsTypeEnum.PHYSICAL_GOODS.name());
+        sku.setFreightTemplateId(FREIGHT_TEMPLATE_ID);
+        sku.setPromotionFlag(false);
+        sku.setCreateTime(new Date(System.currentTimeMillis() - DAY));
+        sku.setUpdateTime(sku.getCreateTime());
+        return sku;
+    }
+
+    public static String storeId(int index) {
+        return "S" + index % 3;
+    }
+
+    /**
+     * 购物车，每次调用返回新对象，渲染会修改购物车内容
+     *
+     * @param skus SKU
+     * @return 购物车
+     */
+    public static TradeDTO trade(List<GoodsSku> skus) {
+        TradeDTO tradeDTO = new TradeDTO(CartTypeEnum.CART);
+        tradeDTO.setMemberId("M1");
+        tradeDTO.setMemberName("benchmark");
+        tradeDTO.setMemberAddress(memberAddress());
+        for (int i = 0; i < skus.size(); i++) {
+            GoodsSku sku = skus.get(i);
+            GoodsSku copy = new GoodsSku();
+            BeanUtil.copyProperties(sku, copy);
+            CartSkuVO cartSkuVO = new CartSkuVO(copy, promotionMap(sku.getStoreId()));
+            cartSkuVO.setNum(i % 3 + 1);
+            cartSkuVO.setCartType(CartTypeEnum.CART);
+            cartSkuVO.setDeliveryMethod(DeliveryMethodEnum.LOGISTICS.name());
+            cartSkuVO.setSubTotal(copy.getPrice() * cartSkuVO.getNum());
+            tradeDTO.getSkuList().add(cartSkuVO);
+        }
+        return tradeDTO;
+    }
+
+    /**
+     * 店铺的满减与优惠券活动，与 ES 商品索引中的促销信息格式一致
+     *
+     * @param storeId 店铺ID
+     * @return 促销信息
+     */
+    public static Map<String, Object> promotionMap(String storeId) {
+        Date start = new Date(System.currentTimeMillis() - DAY);
+        Date end = new Date(System.currentTimeMillis() + 30 * DAY);
+
+        FullDiscount fullDiscount = new FullDiscount();
+        fullDiscount.setId("FD" + storeId);
+        fullDiscount.setStoreId(storeId);
+        fullDiscount.setPromotionName("满100减10");
+        fullDiscount.setTitle("满100减10");
+        fullDiscount.setStartTime(start);
+        fullDiscount.setEndTime(end);
+        fullDiscount.setScopeType(PromotionsScopeTypeEnum.ALL.name());
+        fullDiscount.setFullMoney(100D);
+        fullDiscount.setFullMinusFlag(true);
+        fullDiscount.setFullMinus(10D);
+        fullDiscount.setFullRateFlag(false);
+        fullDiscount.setGiftFlag(false);
+
+        Coupon coupon = new Coupon();
+        coupon.setId("C" + storeId);
+        coupon.setStoreId(storeId);
+        coupon.setPromotionName("店铺券");
+        coupon.setCouponName("满200减20");
+        coupon.setCouponType(CouponTypeEnum.PRICE.name());
+        coupon.setPrice(20D);
+        coupon.setConsumeThreshold(200D);
+        coupon.setStartTime(start);
+        coupon.setEndTime(end);
+        coupon.setScopeType(PromotionsScopeTypeEnum.ALL.name());
+
+        Map<String, Object> promotionMap = new HashMap<>(4);
+        promotionMap.put(PromotionTypeEnum.FULL_DISCOUNT.name() + "-" + fullDiscount.getId(), fullDiscount);
+        promotionMap.put(PromotionTypeEnum.COUPON.name() + "-" + coupon.getId(), coupon);
+        return promotionMap;
+    }
+
+    /**
+     * ES 商品索引中保存的促销信息
+     *
+     * @param storeId 店铺ID
+     * @return 促销信息JSON
+     */
+    public static String promotionMapJson(String storeId) {
+        return JSONUtil.toJsonStr(promotionMap(storeId));
+    }
+
+    public static MemberAddress memberAddress() {
+        MemberAddress memberAddress = new MemberAddress();
+        memberAddress.setId("A1");
+        memberAddress.setMemberId("M1");
+        memberAddress.setName("收货人");
+        memberAddress.setMobile("13800000000");
+        memberAddress.setConsigneeAddressPath("江苏省,南京市,鼓楼区");
+        memberAddress.setConsigneeAddressIdPath("320000,320100,320106");
+        memberAddress.setDetail("测试地址");
+        return memberAddress;
+    }
+
+    /**
+     * 按件计费的运费模板，覆盖全部地区
+     *
+     * @return 运费模板
+     */
+    public static FreightTemplateVO freightTemplate() {
+        FreightTemplateVO template = new FreightTemplateVO();
+        template.setId(FREIGHT_TEMPLATE_ID);
+        template.setName("默认运费");
+        template.setPricingMethod(FreightTemplateEnum.NUM.name());
+        List<FreightTemplateChild> children = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            FreightTemplateChild child = new FreightTemplateChild();
+            child.setFreightTemplateId(FREIGHT_TEMPLATE_ID);
+            child.setFirstCompany(1D);
+            child.setFirstPrice(10D);
+            child.setContinuedCompany(1D);
+            child.setContinuedPrice(2D);
+            child.setAreaId((310000 + i * 10000) + "," + (310100 + i * 10000));
+            children.add(child);
+        }
+        template.setFreightTemplateChildList(children);
+        return template;
+    }
+}
@@ -0,0 +1,159 @@
+package cn.lili.benchmark.support;
+
+import cn.lili.cache.Cache;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 基准测试使用的内存替身
+ * <p>
+ * 服务、Mapper 等接口通过动态代理实现：指定的方法按名称应答，其余方法返回类型默认值，
+ * 集合返回空集合，对象返回空。被测对象的依赖通过反射写入 {@code @Autowired} 字段。
+ */
+public final class Fakes {
+
+    private Fakes() {
+    }
+
+    public static <T> Builder<T> fake(Class<T> type) {
+        return new Builder<>(type);
+    }
+
+    /**
+     * 基于 Map 的缓存
+     *
+     * @return 缓存
+     */
+    @SuppressWarnings("unchecked")
+    public static Cache<Object> cache() {
+        Map<Object, Object> store = new ConcurrentHashMap<>();
+        return fake(Cache.class)
+                .answer("get", args -> store.get(args[0]))
+                .answer("getString", args -> {
+                    Object value = store.get(args[0]);
+                    return value == null ? null : value.toString();
+                })
+                .answer("put", args -> {
+                    if (args[1] == null) {
+                        store.remove(args[0]);
+                    } else {
+                        store.put(args[0], args[1]);
+                    }
+                    return null;
+                })
+                .answer("remove", args -> store.remove(args[0]) != null)
+                .answer("hasKey", args -> store.containsKey(args[0]))
+                .answer("incr", args -> store.merge(args[0], 1L, (old, one) -> ((Number) old).longValue() + 1))
+                .build();
+    }
+
+    /**
+     * 写入字段，包括父类中的字段
+     *
+     * @param target 对象
+     * @param name   字段名
+     * @param value  值
+     */
+    public static void inject(Object target, String name, Object value) {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                //继续查找父类
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException(target.getClass().getName() + " has no field " + name);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class || type == Boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0D;
+        }
+        if (type == float.class) {
+            return 0F;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == char.class) {
+            return (char) 0;
+        }
+        if (type == List.class || type == Collection.class) {
+            return new ArrayList<>();
+        }
+        if (type == Map.class) {
+            return new HashMap<>();
+        }
+        if (type == Set.class) {
+            return new HashSet<>();
+        }
+        return null;
+    }
+
+    public static class Builder<T> {
+
+        private final Class<T> type;
+
+        private final Map<String, Function<Object[], Object>> answers = new HashMap<>();
+
+        private Builder(Class<T> type) {
+            this.type = type;
+        }
+
+        /**
+         * 指定方法的应答，同名重载方法共用
+         *
+         * @param method 方法名
+         * @param answer 根据参数返回结果
+         * @return this
+         */
+        public Builder<T> answer(String method, Function<Object[], Object> answer) {
+            answers.put(method, answer);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T build() {
+            Map<String, Function<Object[], Object>> methods = new HashMap<>(answers);
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                Object[] arguments = args == null ? new Object[0] : args;
+                if (method.getDeclaringClass() == Object.class) {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == arguments[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return type.getSimpleName() + "Fake";
+                    }
+                }
+                Function<Object[], Object> answer = methods.get(method.getName());
+                if (answer != null) {
+                    return answer.apply(arguments);
+                }
+                return defaultValue(method.getReturnType());
+            });
+        }
+    }
+}
@@ -6,11 +6,13 @@ import cn.lili.common.vo.PageVO;
 import cn.lili.common.vo.ResultMessage;
 import cn.lili.modules.message.entity.dos.MemberMessage;
 import cn.lili.modules.message.entity.enums.MessageStatusEnum;
+import cn.lili.modules.message.entity.vos.MemberMessageInboxVO;
 import cn.lili.modules.message.entity.vos.MemberMessageQueryVO;
 import cn.lili.modules.message.service.MemberMessageService;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -36,21 +38,38 @@ public class MemberMessageBuyerController {
     @GetMapping
     public ResultMessage<IPage<MemberMessage>> page(MemberMessageQueryVO memberMessageQueryVO, PageVO page) {
         memberMessageQueryVO.setMemberId(UserContext.getCurrentUser().getId());
-        return ResultUtil.data(memberMessageService.getPage(memberMessageQueryVO, page));
+        return ResultUtil.data(memberMessageService.getInboxPage(memberMessageQueryVO, page));
+    }
+
+    @ApiOperation(value = "按游标分页获取会员站内消息")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "cursor", value = "上一页返回的游标，第一页为空", paramType = "query"),
+            @ApiImplicitParam(name = "pageSize", value = "每页数量", paramType = "query")
+    })
+    @GetMapping("/inbox")
+    public ResultMessage<MemberMessageInboxVO> inbox(MemberMessageQueryVO memberMessageQueryVO, String cursor, Integer pageSize) {
+        memberMessageQueryVO.setMemberId(UserContext.getCurrentUser().getId());
+        return ResultUtil.data(memberMessageService.getInbox(memberMessageQueryVO, cursor, pageSize));
+    }
+
+    @ApiOperation(value = "获取会员未读消息数量")
+    @GetMapping("/unread")
+    public ResultMessage<Long> unread() {
+        return ResultUtil.data(memberMessageService.unreadNum(UserContext.getCurrentUser().getId()));
     }
 
     @ApiOperation(value = "消息已读")
     @ApiImplicitParam(name = "messageId", value = "会员消息id", required = true, paramType = "path")
     @PutMapping("/{message_id}")
     public ResultMessage<Boolean> read(@PathVariable("message_id") String messageId) {
-        return ResultUtil.data(memberMessageService.editStatus(MessageStatusEnum.ALREADY_READY.name(), messageId));
+        return ResultUtil.data(memberMessageService.editStatus(UserContext.getCurrentUser().getId(), MessageStatusEnum.ALREADY_READY.name(), messageId));
     }
 
     @ApiOperation(value = "消息放入回收站")
     @ApiImplicitParam(name = "messageId", value = "会员消息id", required = true, paramType = "path")
     @DeleteMapping("/{message_id}")
     public ResultMessage<Boolean> deleteMessage(@PathVariable("message_id") String messageId) {
-        return ResultUtil.data(memberMessageService.editStatus(MessageStatusEnum.ALREADY_REMOVE.name(), messageId));
+        return ResultUtil.data(memberMessageService.editStatus(UserContext.getCurrentUser().getId(), MessageStatusEnum.ALREADY_REMOVE.name(), messageId));
 
     }
 
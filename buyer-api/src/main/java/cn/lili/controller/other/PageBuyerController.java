@@ -5,6 +5,7 @@ import cn.lili.common.vo.ResultMessage;
 import cn.lili.modules.page.entity.dos.PageData;
 import cn.lili.modules.page.entity.dto.PageDataDTO;
 import cn.lili.modules.page.entity.enums.PageEnum;
+import cn.lili.modules.page.entity.vos.PageDataSnapshotVO;
 import cn.lili.modules.page.entity.vos.PageDataVO;
 import cn.lili.modules.page.service.PageDataService;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
@@ -12,8 +13,14 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+
 /**
  * 买家端,页面接口
  *
@@ -31,30 +38,54 @@ public class PageBuyerController {
     @Autowired
     private PageDataService pageService;
 
-    @ApiOperation(value = "获取首页数据")
+    @ApiOperation(value = "获取首页数据", response = PageDataVO.class)
     @GetMapping("/getIndex")
-    public ResultMessage<PageDataVO> getIndex(@RequestParam String clientType) {
+    public ResponseEntity<byte[]> getIndex(@RequestParam String clientType, HttpServletRequest request) {
         PageDataDTO pageDataDTO = new PageDataDTO(PageEnum.INDEX.name());
         pageDataDTO.setPageClientType(clientType);
-        PageDataVO pageDataVO=pageService.getPageData(pageDataDTO);
-        return ResultUtil.data(pageDataVO);
+        return this.pageData(pageDataDTO, request);
     }
 
-    @ApiOperation(value = "获取页面数据")
+    @ApiOperation(value = "获取页面数据", response = PageDataVO.class)
     @GetMapping
-    public ResultMessage<PageDataVO> get(PageDataDTO pageDataDTO) {
-        PageDataVO pageDataVO=pageService.getPageData(pageDataDTO);
-        return ResultUtil.data(pageDataVO);
+    public ResponseEntity<byte[]> get(PageDataDTO pageDataDTO, HttpServletRequest request) {
+        return this.pageData(pageDataDTO, request);
     }
 
-    @ApiOperation(value = "获取店铺首页")
+    @ApiOperation(value = "获取店铺首页", response = PageDataVO.class)
     @GetMapping("/getStore")
-    public ResultMessage<PageDataVO> getShopPage(@RequestParam String clientType,String storeId) {
+    public ResponseEntity<byte[]> getShopPage(@RequestParam String clientType, String storeId, HttpServletRequest request) {
         PageDataDTO pageDataDTO = new PageDataDTO(PageEnum.STORE.name());
         pageDataDTO.setPageClientType(clientType);
         pageDataDTO.setNum(storeId);
-        PageDataVO pageDataVO=pageService.getPageData(pageDataDTO);
-        return ResultUtil.data(pageDataVO);
+        return this.pageData(pageDataDTO, request);
+    }
+
+    /**
+     * 输出页面快照
+     * 客户端携带的 ETag 未变化时返回 304，支持 gzip 的客户端直接输出压缩后的内容
+     *
+     * @param pageDataDTO 页面数据DTO
+     * @param request     请求
+     * @return 页面响应
+     */
+    private ResponseEntity<byte[]> pageData(PageDataDTO pageDataDTO, HttpServletRequest request) {
+        PageDataSnapshotVO snapshot = pageService.getPageDataSnapshot(pageDataDTO);
+        String etag = "\"" + snapshot.getEtag() + "\"";
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzipBody());
+        }
+        return builder.body(snapshot.getBody());
     }
 
     @ApiOperation(value = "获取页面数据")
@@ -8,6 +8,7 @@ import cn.lili.common.security.enums.SecurityEnum;
 import cn.lili.common.security.enums.UserEnums;
 import cn.lili.common.security.token.SecretKeyUtil;
 import cn.lili.common.utils.ResponseUtil;
+import cn.lili.modules.statistics.collector.OnlineMemberCollector;
 import com.google.gson.Gson;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
@@ -48,16 +49,24 @@ public class BuyerAuthenticationFilter extends BasicAuthenticationFilter {
     @Autowired
     private Cache cache;
 
+    /**
+     * 在线会员收集
+     */
+    private OnlineMemberCollector onlineMemberCollector;
+
     /**
      * 自定义构造器
      *
      * @param authenticationManager
      * @param cache
+     * @param onlineMemberCollector
      */
     public BuyerAuthenticationFilter(AuthenticationManager authenticationManager,
-                                     Cache cache) {
+                                     Cache cache,
+                                     OnlineMemberCollector onlineMemberCollector) {
         super(authenticationManager);
         this.cache = cache;
+        this.onlineMemberCollector = onlineMemberCollector;
     }
 
     @Override
@@ -106,6 +115,8 @@ public class BuyerAuthenticationFilter extends BasicAuthenticationFilter {
                 auths.add(new SimpleGrantedAuthority("ROLE_" + authUser.getRole().name()));
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(authUser.getUsername(), null, auths);
                 authentication.setDetails(authUser);
+                //记录在线会员
+                onlineMemberCollector.touch(authUser.getId());
                 return authentication;
             }
             ResponseUtil.output(response, 403, ResponseUtil.resultMap(false, 403, "登录已失效，请重新登录"));
@@ -4,6 +4,7 @@ import cn.lili.cache.Cache;
 import cn.lili.common.security.CustomAccessDeniedHandler;
 import cn.lili.common.utils.SpringContextUtil;
 import cn.lili.common.properties.IgnoredUrlsProperties;
+import cn.lili.modules.statistics.collector.OnlineMemberCollector;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -42,6 +43,9 @@ public class BuyerSecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private Cache<String> cache;
 
+    @Autowired
+    private OnlineMemberCollector onlineMemberCollector;
+
     @Override
     protected void configure(HttpSecurity http) throws Exception {
 
@@ -76,7 +80,7 @@ public class BuyerSecurityConfig extends WebSecurityConfigurerAdapter {
                 .exceptionHandling().accessDeniedHandler(accessDeniedHandler)
                 .and()
                 //添加JWT认证过滤器
-                .addFilter(new BuyerAuthenticationFilter(authenticationManager(), cache));
+                .addFilter(new BuyerAuthenticationFilter(authenticationManager(), cache, onlineMemberCollector));
     }
 
 
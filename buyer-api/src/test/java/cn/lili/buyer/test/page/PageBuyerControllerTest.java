@@ -0,0 +1,93 @@
+package cn.lili.buyer.test.page;
+
+import cn.hutool.core.util.ZipUtil;
+import cn.lili.controller.other.PageBuyerController;
+import cn.lili.modules.page.entity.dto.PageDataDTO;
+import cn.lili.modules.page.entity.enums.PageEnum;
+import cn.lili.modules.page.entity.vos.PageDataSnapshotVO;
+import cn.lili.modules.page.service.PageDataService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 买家端页面接口测试
+ * ETag 未变化时返回 304，支持 gzip 的客户端输出压缩内容，其余输出原响应体
+ */
+class PageBuyerControllerTest {
+
+    private static final byte[] BODY = "{\"success\":true,\"result\":{\"pageData\":\"{}\"}}".getBytes(StandardCharsets.UTF_8);
+
+    private PageBuyerController controller;
+
+    private PageDataService pageDataService;
+
+    @BeforeEach
+    void setUp() {
+        pageDataService = Mockito.mock(PageDataService.class);
+        Mockito.when(pageDataService.getPageDataSnapshot(Mockito.any()))
+                .thenReturn(new PageDataSnapshotVO("abc", BODY, ZipUtil.gzip(BODY)));
+        controller = new PageBuyerController();
+        ReflectionTestUtils.setField(controller, "pageService", pageDataService);
+    }
+
+    @Test
+    void testPlainBody() {
+        ResponseEntity<byte[]> response = controller.getIndex("PC", new MockHttpServletRequest());
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertArrayEquals(BODY, response.getBody());
+        Assertions.assertEquals("\"abc\"", response.getHeaders().getETag());
+        Assertions.assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        Assertions.assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaders().getFirst(HttpHeaders.VARY));
+        Assertions.assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+        ArgumentCaptor<PageDataDTO> captor = ArgumentCaptor.forClass(PageDataDTO.class);
+        Mockito.verify(pageDataService).getPageDataSnapshot(captor.capture());
+        Assertions.assertEquals(PageEnum.INDEX.name(), captor.getValue().getPageType());
+        Assertions.assertEquals("PC", captor.getValue().getPageClientType());
+    }
+
+    @Test
+    void testGzipBody() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+        ResponseEntity<byte[]> response = controller.getShopPage("H5", "100", request);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertArrayEquals(BODY, ZipUtil.unGzip(response.getBody()));
+        Assertions.assertEquals("\"abc\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void testNotModified() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"abc\"");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        ResponseEntity<byte[]> response = controller.get(new PageDataDTO(PageEnum.SPECIAL.name()), request);
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        Assertions.assertNull(response.getBody());
+        Assertions.assertEquals("\"abc\"", response.getHeaders().getETag());
+
+        //客户端携带多个 ETag 时任一匹配即可
+        request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"old\", \"abc\"");
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, controller.get(new PageDataDTO(PageEnum.SPECIAL.name()), request).getStatusCode());
+
+        //页面变更后 ETag 不同，返回新的响应体
+        request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"old\"");
+        ResponseEntity<byte[]> changed = controller.get(new PageDataDTO(PageEnum.SPECIAL.name()), request);
+        Assertions.assertEquals(HttpStatus.OK, changed.getStatusCode());
+        Assertions.assertArrayEquals(BODY, changed.getBody());
+    }
+}
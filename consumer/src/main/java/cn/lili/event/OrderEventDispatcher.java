@@ -0,0 +1,144 @@
+package cn.lili.event;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.lili.common.properties.OrderEventProperties;
+import cn.lili.modules.order.order.entity.dos.OrderEventRecord;
+import cn.lili.modules.order.order.entity.enums.OrderEventStatusEnum;
+import cn.lili.modules.order.order.service.OrderEventRecordService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+
+/**
+ * 订单事件分发
+ * <p>
+ * 同一条订单消息的各事件处理互不依赖，分别在各自的有界线程池中并行执行，线程繁忙时由消费线程执行，
+ * 执行结果按 消息、事件处理 记录。消息重复投递时跳过已成功和已进入死信的处理，只重试失败的处理，
+ * 重试间隔由消息重新投递的延迟级别决定。多次重试仍失败的处理连同事件内容进入死信，可在管理端重新执行。
+ * 事件处理成功后记录保存失败时，重新投递会再次执行该处理。
+ */
+@Slf4j
+@Component
+public class OrderEventDispatcher implements DisposableBean {
+
+    /**
+     * 失败原因最大长度
+     */
+    private static final int ERROR_MESSAGE_LENGTH = 255;
+
+    @Autowired
+    private OrderEventProperties orderEventProperties;
+
+    @Autowired
+    private OrderEventRecordService orderEventRecordService;
+
+    /**
+     * 事件处理 -> 线程池
+     */
+    private final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+
+    @Override
+    public void destroy() {
+        executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    /**
+     * 分发订单事件
+     *
+     * @param eventKey 事件标识，同一条消息重复投递时相同
+     * @param tag      消息标签
+     * @param payload  事件内容，每个事件处理各自解析，互不影响
+     * @param handlers 事件处理
+     * @param invoker  执行事件处理
+     * @param <T>      事件处理类型
+     * @return 是否全部处理完成，有处理失败待重试时返回 false
+     */
+    public <T> boolean dispatch(String eventKey, String tag, String payload, List<T> handlers, BiConsumer<T, String> invoker) {
+        Map<String, OrderEventRecord> records = new HashMap<>();
+        for (OrderEventRecord orderEventRecord : orderEventRecordService.listByEventKey(eventKey, tag)) {
+            records.put(orderEventRecord.getHandler(), orderEventRecord);
+        }
+
+        Map<String, Future<?>> futures = new LinkedHashMap<>();
+        for (T handler : handlers) {
+            String name = handlerName(handler);
+            OrderEventRecord orderEventRecord = records.get(name);
+            //已成功或已进入死信的处理不再执行
+            if (orderEventRecord != null && !OrderEventStatusEnum.FAIL.name().equals(orderEventRecord.getStatus())) {
+                continue;
+            }
+            futures.put(name, this.executor(name).submit(() -> invoker.accept(handler, payload)));
+        }
+
+        boolean finished = true;
+        for (Map.Entry<String, Future<?>> entry : futures.entrySet()) {
+            String name = entry.getKey();
+            Throwable failure = null;
+            try {
+                entry.getValue().get();
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                //执行结果未知，不记录，等待重新投递
+                log.error("订单事件{}分发中断", eventKey);
+                return false;
+            }
+            OrderEventRecord orderEventRecord = records.computeIfAbsent(name, k -> new OrderEventRecord(eventKey, tag, k));
+            if (!this.saveResult(orderEventRecord, payload, failure)) {
+                finished = false;
+            }
+        }
+        return finished;
+    }
+
+    /**
+     * 保存事件处理执行结果
+     *
+     * @return 是否不再需要重试
+     */
+    private boolean saveResult(OrderEventRecord orderEventRecord, String payload, Throwable failure) {
+        orderEventRecord.setAttempts(orderEventRecord.getAttempts() == null ? 1 : orderEventRecord.getAttempts() + 1);
+        if (failure == null) {
+            orderEventRecord.setStatus(OrderEventStatusEnum.SUCCESS.name());
+            orderEventRecord.setErrorMessage(null);
+            orderEventRecord.setPayload(null);
+        } else {
+            boolean dead = orderEventRecord.getAttempts() >= orderEventProperties.getMaxAttempts();
+            orderEventRecord.setStatus(dead ? OrderEventStatusEnum.DEAD.name() : OrderEventStatusEnum.FAIL.name());
+            orderEventRecord.setErrorMessage(CharSequenceUtil.maxLength(String.valueOf(failure.getMessage()), ERROR_MESSAGE_LENGTH - 3));
+            orderEventRecord.setPayload(payload);
+            log.error("订单事件{}在{}业务中第{}次执行异常{}", orderEventRecord.getEventKey(), orderEventRecord.getHandler(),
+                    orderEventRecord.getAttempts(), dead ? "，已进入死信" : "", failure);
+        }
+        orderEventRecordService.saveResult(orderEventRecord);
+        return !OrderEventStatusEnum.FAIL.name().equals(orderEventRecord.getStatus());
+    }
+
+    private ThreadPoolExecutor executor(String name) {
+        return executors.computeIfAbsent(name, k -> {
+            int threads = orderEventProperties.getThreads();
+            return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(),
+                    new CustomizableThreadFactory("order-event-" + k + "-"),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+        });
+    }
+
+    /**
+     * 事件处理名称，使用实际类名，不受代理影响
+     *
+     * @param handler 事件处理
+     * @return 名称
+     */
+    public static String handlerName(Object handler) {
+        return AopUtils.getTargetClass(handler).getSimpleName();
+    }
+}
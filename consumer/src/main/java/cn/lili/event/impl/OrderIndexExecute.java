@@ -0,0 +1,51 @@
+package cn.lili.event.impl;
+
+import cn.lili.event.AfterSaleStatusChangeEvent;
+import cn.lili.event.GoodsCommentCompleteEvent;
+import cn.lili.event.OrderStatusChangeEvent;
+import cn.lili.event.TradeEvent;
+import cn.lili.modules.member.entity.dos.MemberEvaluation;
+import cn.lili.modules.order.aftersale.entity.dos.AfterSale;
+import cn.lili.modules.order.cart.entity.dto.TradeDTO;
+import cn.lili.modules.order.order.entity.dos.Order;
+import cn.lili.modules.order.order.entity.dto.OrderMessage;
+import cn.lili.modules.order.order.service.OrderIndexService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+/**
+ * 订单查询索引刷新
+ * 订单创建、状态变更、售后、评价后按数据库最新数据刷新订单索引
+ */
+@Service
+public class OrderIndexExecute implements TradeEvent, OrderStatusChangeEvent, AfterSaleStatusChangeEvent, GoodsCommentCompleteEvent {
+
+    @Autowired
+    private OrderIndexService orderIndexService;
+
+    @Override
+    public void orderCreate(TradeDTO tradeDTO) {
+        if (tradeDTO.getOrderVO() == null) {
+            return;
+        }
+        orderIndexService.refresh(tradeDTO.getOrderVO().stream().map(Order::getSn).collect(Collectors.toList()));
+    }
+
+    @Override
+    public void orderChange(OrderMessage orderMessage) {
+        orderIndexService.refresh(Collections.singletonList(orderMessage.getOrderSn()));
+    }
+
+    @Override
+    public void afterSaleStatusChange(AfterSale afterSale) {
+        orderIndexService.refresh(Collections.singletonList(afterSale.getOrderSn()));
+    }
+
+    @Override
+    public void goodsComment(MemberEvaluation memberEvaluation) {
+        orderIndexService.refresh(Collections.singletonList(memberEvaluation.getOrderNo()));
+    }
+}
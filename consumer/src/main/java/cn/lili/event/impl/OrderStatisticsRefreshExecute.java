@@ -0,0 +1,42 @@
+package cn.lili.event.impl;
+
+import cn.lili.event.AfterSaleStatusChangeEvent;
+import cn.lili.event.OrderStatusChangeEvent;
+import cn.lili.modules.order.aftersale.entity.dos.AfterSale;
+import cn.lili.modules.order.order.entity.dos.Order;
+import cn.lili.modules.order.order.entity.dto.OrderMessage;
+import cn.lili.modules.order.order.service.OrderService;
+import cn.lili.modules.statistics.service.OrderStatisticsDailyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * 订单每日统计刷新
+ * 订单付款、取消、售后退款后重新汇总订单创建日的店铺统计，当天的统计实时查询无需刷新
+ */
+@Service
+public class OrderStatisticsRefreshExecute implements OrderStatusChangeEvent, AfterSaleStatusChangeEvent {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderStatisticsDailyService orderStatisticsDailyService;
+
+    @Override
+    public void orderChange(OrderMessage orderMessage) {
+        this.refresh(orderMessage.getOrderSn());
+    }
+
+    @Override
+    public void afterSaleStatusChange(AfterSale afterSale) {
+        this.refresh(afterSale.getOrderSn());
+    }
+
+    private void refresh(String orderSn) {
+        Order order = orderService.getBySn(orderSn);
+        if (order != null) {
+            orderStatisticsDailyService.refresh(order.getCreateTime(), order.getStoreId());
+        }
+    }
+}
@@ -1,26 +1,20 @@
 package cn.lili.listener;
 
 import cn.hutool.json.JSONUtil;
-import cn.lili.common.enums.SwitchEnum;
-import cn.lili.common.vo.PageVO;
-import cn.lili.modules.member.entity.vo.MemberSearchVO;
-import cn.lili.modules.member.entity.vo.MemberVO;
-import cn.lili.modules.member.service.MemberService;
 import cn.lili.modules.message.entity.dos.MemberMessage;
 import cn.lili.modules.message.entity.dos.Message;
 import cn.lili.modules.message.entity.dos.StoreMessage;
 import cn.lili.modules.message.entity.enums.MessageSendClient;
 import cn.lili.modules.message.entity.enums.MessageStatusEnum;
-import cn.lili.modules.message.entity.enums.RangeEnum;
 import cn.lili.modules.message.service.MemberMessageService;
 import cn.lili.modules.message.service.StoreMessageService;
-import cn.lili.modules.sms.SmsUtil;
 import cn.lili.modules.sms.entity.dto.SmsReachDTO;
+import cn.lili.modules.sms.tools.SmsBulkDispatcher;
 import cn.lili.modules.store.entity.dos.Store;
 import cn.lili.modules.store.service.StoreService;
 import cn.lili.rocketmq.tags.OtherTagsEnum;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.baomidou.mybatisplus.core.metadata.IPage;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
@@ -36,15 +30,16 @@ import java.util.List;
  * @author paulG
  * @since 2020/12/9
  */
+@Slf4j
 @Component
 @RocketMQMessageListener(topic = "${lili.data.rocketmq.notice-send-topic}", consumerGroup = "${lili.data.rocketmq.notice-send-group}")
 public class NoticeSendMessageListener implements RocketMQListener<MessageExt> {
 
     /**
-     * 短信
+     * 短信批量发送
      */
     @Autowired
-    private SmsUtil smsUtil;
+    private SmsBulkDispatcher smsBulkDispatcher;
     /**
      * 店铺消息
      */
@@ -60,11 +55,6 @@ public class NoticeSendMessageListener implements RocketMQListener<MessageExt> {
      */
     @Autowired
     private StoreService storeService;
-    /**
-     * 会员
-     */
-    @Autowired
-    private MemberService memberService;
 
     @Override
     public void onMessage(MessageExt messageExt) {
@@ -72,15 +62,8 @@ public class NoticeSendMessageListener implements RocketMQListener<MessageExt> {
             case SMS:
                 String smsJsonStr = new String(messageExt.getBody());
                 SmsReachDTO smsReachDTO = JSONUtil.toBean(smsJsonStr, SmsReachDTO.class);
-                //发送全部会员
-                if (smsReachDTO.getSmsRange().equals(RangeEnum.ALL.name())) {
-                    //获取所有会员的手机号
-                    List<String> list = memberService.getAllMemberMobile();
-                    smsUtil.sendBatchSms(smsReachDTO.getSignName(), list, smsReachDTO.getMessageCode());
-                    //判断为发送部分用户
-                } else {
-                    smsUtil.sendBatchSms(smsReachDTO.getSignName(), smsReachDTO.getMobile(), smsReachDTO.getMessageCode());
-                }
+                //分组发送，未发送完成时抛出异常，消息重新投递后继续发送
+                smsBulkDispatcher.dispatch(smsReachDTO);
                 break;
             //管理员发送站内信
             case MESSAGE:
@@ -146,36 +129,9 @@ public class NoticeSendMessageListener implements RocketMQListener<MessageExt> {
      */
     private void saveMemberMessage(Message message) {
         List<MemberMessage> list = new ArrayList<>();
-        //如果是给所有会员发送消息
+        //如果是给所有会员发送消息，全员消息只保存一份，会员收件箱查询时合并，已读、删除状态按会员单独记录
         if ("ALL".equals(message.getMessageRange())) {
-            //查询所有会员总数，因为会员总数比较大 如果一次性查出来会占用数据库资源，所以要分页查询
-            MemberSearchVO memberSearchVO = new MemberSearchVO();
-            memberSearchVO.setDisabled(SwitchEnum.OPEN.name());
-            long memberNum = memberService.getMemberNum(memberSearchVO);
-            //构建分页查询参数
-            //100条查一次
-            int pageSize = 100;
-            int pageCount;
-            pageCount = (int) (memberNum / pageSize);
-            pageCount = memberNum % pageSize > 0 ? pageCount + 1 : pageCount;
-            for (int i = 1; i <= pageCount; i++) {
-                PageVO pageVO = new PageVO();
-                pageVO.setPageSize(pageSize);
-                pageVO.setPageNumber(i);
-                IPage<MemberVO> page = memberService.getMemberPage(memberSearchVO, pageVO);
-                //循环要保存的信息
-                page.getRecords().forEach(item -> {
-                    MemberMessage memberMessage = new MemberMessage();
-                    memberMessage.setContent(message.getContent());
-                    memberMessage.setTitle(message.getTitle());
-                    memberMessage.setMessageId(message.getId());
-                    memberMessage.setMemberId(item.getId());
-                    memberMessage.setMemberName(item.getUsername());
-                    memberMessage.setStatus(MessageStatusEnum.UN_READY.name());
-                    list.add(memberMessage);
-                });
-            }
-
+            log.info("全员消息[{}]无需逐个会员保存", message.getId());
         } else {
             //如果是给指定会员发送消息
             int i = 0;
@@ -1,11 +1,17 @@
 package cn.lili.listener;
 
+import cn.hutool.core.util.EnumUtil;
 import cn.hutool.json.JSONUtil;
 import cn.lili.cache.Cache;
+import cn.lili.common.exception.RetryException;
+import cn.lili.event.OrderEventDispatcher;
 import cn.lili.event.OrderStatusChangeEvent;
 import cn.lili.event.TradeEvent;
 import cn.lili.modules.order.cart.entity.dto.TradeDTO;
+import cn.lili.modules.order.order.entity.dos.OrderEventRecord;
 import cn.lili.modules.order.order.entity.dto.OrderMessage;
+import cn.lili.modules.order.order.entity.enums.OrderEventStatusEnum;
+import cn.lili.modules.order.order.service.OrderEventRecordService;
 import cn.lili.rocketmq.tags.OrderTagsEnum;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.rocketmq.common.message.MessageExt;
@@ -15,6 +21,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * 订单消息
@@ -42,61 +49,117 @@ public class OrderMessageListener implements RocketMQListener<MessageExt> {
      */
     @Autowired
     private Cache<Object> cache;
+    /**
+     * 订单事件分发
+     */
+    @Autowired
+    private OrderEventDispatcher orderEventDispatcher;
+    /**
+     * 订单事件执行记录
+     */
+    @Autowired
+    private OrderEventRecordService orderEventRecordService;
 
     @Override
     public void onMessage(MessageExt messageExt) {
         try {
             this.orderStatusEvent(messageExt);
+        } catch (RetryException re) {
+            //有事件处理失败，抛出后消息延迟重新投递
+            throw re;
         } catch (Exception e) {
-            log.error("订单状态变更事件调用异常", e);
+            //读取交易缓存、执行记录失败时事件处理未执行或结果未保存，同样重新投递，不能确认消息
+            log.error("订单状态变更事件调用异常，等待重新投递", e);
+            throw new RetryException("订单事件" + messageExt.getMsgId() + "分发异常：" + e.getMessage());
         }
     }
 
     /**
      * 订单状态变更
+     * 各事件处理并行执行，消息重新投递时只执行未成功的处理
+     *
      * @param messageExt
      */
     public void orderStatusEvent(MessageExt messageExt) {
 
-        switch (OrderTagsEnum.valueOf(messageExt.getTags())) {
+        OrderTagsEnum tag = EnumUtil.fromStringQuietly(OrderTagsEnum.class, messageExt.getTags());
+        if (tag == null) {
+            //无法处理的消息重新投递也无法处理，直接确认
+            log.error("未知的订单消息标签{}，消息{}", messageExt.getTags(), messageExt.getMsgId());
+            return;
+        }
+        switch (tag) {
             //订单创建
             case ORDER_CREATE:
                 String key = new String(messageExt.getBody());
-                TradeDTO tradeDTO = JSONUtil.toBean(cache.getString(key), TradeDTO.class);
-                boolean result = true;
-                for (TradeEvent event : tradeEvent) {
-                    try {
-                        event.orderCreate(tradeDTO);
-                    } catch (Exception e) {
-                        log.error("交易{}入库,在{}业务中，状态修改事件执行异常",
-                                tradeDTO.getSn(),
-                                event.getClass().getName(),
-                                e);
-                        result = false;
-                    }
+                String trade = cache.getString(key);
+                if (trade == null) {
+                    log.info("交易缓存{}不存在，订单创建事件已处理完成", key);
+                    break;
                 }
-                //如所有步骤顺利完成
-                if (Boolean.TRUE.equals(result)) {
+                //如所有步骤处理完成，失败的处理已连同交易信息进入死信
+                if (this.dispatchTrade(messageExt.getMsgId(), trade, tradeEvent)) {
                     //清除记录信息的trade cache key
                     cache.remove(key);
+                } else {
+                    throw new RetryException("交易" + key + "入库事件执行失败，等待重试");
                 }
                 break;
             //订单状态变更
             case STATUS_CHANGE:
-                for (OrderStatusChangeEvent orderStatusChangeEvent : orderStatusChangeEvents) {
-                    try {
-                        OrderMessage orderMessage = JSONUtil.toBean(new String(messageExt.getBody()), OrderMessage.class);
-                        orderStatusChangeEvent.orderChange(orderMessage);
-                    } catch (Exception e) {
-                        log.error("订单{},在{}业务中，状态修改事件执行异常",
-                                new String(messageExt.getBody()),
-                                orderStatusChangeEvent.getClass().getName(),
-                                e);
-                    }
+                String orderMessage = new String(messageExt.getBody());
+                if (!this.dispatchOrderChange(messageExt.getMsgId(), orderMessage, orderStatusChangeEvents)) {
+                    throw new RetryException("订单" + orderMessage + "状态修改事件执行失败，等待重试");
                 }
                 break;
+            //重新执行死信
+            case EVENT_REPLAY:
+                this.replay(new String(messageExt.getBody()));
+                break;
             default:
                 break;
         }
     }
+
+    /**
+     * 重新执行进入死信的事件处理
+     *
+     * @param id 执行记录ID
+     */
+    private void replay(String id) {
+        OrderEventRecord orderEventRecord = orderEventRecordService.getById(id);
+        if (orderEventRecord == null || !OrderEventStatusEnum.FAIL.name().equals(orderEventRecord.getStatus())) {
+            return;
+        }
+        boolean result;
+        switch (OrderTagsEnum.valueOf(orderEventRecord.getTag())) {
+            case ORDER_CREATE:
+                result = this.dispatchTrade(orderEventRecord.getEventKey(), orderEventRecord.getPayload(),
+                        handlers(tradeEvent, orderEventRecord.getHandler()));
+                break;
+            case STATUS_CHANGE:
+                result = this.dispatchOrderChange(orderEventRecord.getEventKey(), orderEventRecord.getPayload(),
+                        handlers(orderStatusChangeEvents, orderEventRecord.getHandler()));
+                break;
+            default:
+                return;
+        }
+        if (!result) {
+            throw new RetryException("订单事件" + id + "重新执行失败，等待重试");
+        }
+    }
+
+    private boolean dispatchTrade(String eventKey, String trade, List<TradeEvent> handlers) {
+        return orderEventDispatcher.dispatch(eventKey, OrderTagsEnum.ORDER_CREATE.name(), trade, handlers,
+                (event, payload) -> event.orderCreate(JSONUtil.toBean(payload, TradeDTO.class)));
+    }
+
+    private boolean dispatchOrderChange(String eventKey, String orderMessage, List<OrderStatusChangeEvent> handlers) {
+        return orderEventDispatcher.dispatch(eventKey, OrderTagsEnum.STATUS_CHANGE.name(), orderMessage, handlers,
+                (event, payload) -> event.orderChange(JSONUtil.toBean(payload, OrderMessage.class)));
+    }
+
+    private static <T> List<T> handlers(List<T> handlers, String name) {
+        return handlers.stream().filter(handler -> OrderEventDispatcher.handlerName(handler).equals(name)).collect(Collectors.toList());
+    }
 }
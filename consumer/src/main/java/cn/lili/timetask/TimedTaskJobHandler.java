@@ -3,7 +3,10 @@ package cn.lili.timetask;
 import cn.lili.timetask.handler.EveryDayExecute;
 import cn.lili.timetask.handler.EveryHourExecute;
 import cn.lili.timetask.handler.EveryMinuteExecute;
+import cn.lili.timetask.support.TimedTaskContext;
+import cn.lili.timetask.support.TimedTaskRunner;
 import com.xxl.job.core.biz.model.ReturnT;
+import com.xxl.job.core.context.XxlJobHelper;
 import com.xxl.job.core.handler.annotation.XxlJob;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +16,9 @@ import java.util.List;
 
 /**
  * 定时器任务
+ * <p>
+ * 任务在独立线程池中并行执行，支持 xxl-job 分片广播，
+ * 多个 consumer 节点按分片拆分数据。
  *
  * @author Chopper
  * @version v1.0
@@ -33,6 +39,9 @@ public class TimedTaskJobHandler {
     @Autowired(required = false)
     private List<EveryDayExecute> everyDayExecutes;
 
+    @Autowired
+    private TimedTaskRunner timedTaskRunner;
+
     /**
      * 每分钟任务
      *
@@ -40,18 +49,12 @@ public class TimedTaskJobHandler {
      */
     @XxlJob("everyMinuteExecute")
     public ReturnT<String> everyMinuteExecute(String param)  {
-        log.info("每分钟任务执行");
+        TimedTaskContext context = shardContext();
+        log.info("每分钟任务执行，分片:{}/{}", context.getShardIndex(), context.getShardTotal());
         if (everyMinuteExecutes == null || everyMinuteExecutes.size() == 0) {
             return ReturnT.SUCCESS;
         }
-
-        for (int i = 0; i < everyMinuteExecutes.size(); i++) {
-            try {
-                everyMinuteExecutes.get(i).execute();
-            } catch (Exception e) {
-                log.error("每分钟任务异常", e);
-            }
-        }
+        timedTaskRunner.runMinute(everyMinuteExecutes, context);
         return ReturnT.SUCCESS;
     }
 
@@ -62,18 +65,12 @@ public class TimedTaskJobHandler {
      */
     @XxlJob("everyHourExecuteJobHandler")
     public ReturnT<String> everyHourExecuteJobHandler(String param) {
-        log.info("每小时任务执行");
+        TimedTaskContext context = shardContext();
+        log.info("每小时任务执行，分片:{}/{}", context.getShardIndex(), context.getShardTotal());
         if (everyHourExecutes == null || everyHourExecutes.size() == 0) {
             return ReturnT.SUCCESS;
         }
-
-        for (int i = 0; i < everyHourExecutes.size(); i++) {
-            try {
-                everyHourExecutes.get(i).execute();
-            } catch (Exception e) {
-                log.error("每小时任务异常", e);
-            }
-        }
+        timedTaskRunner.runHour(everyHourExecutes, context);
         return ReturnT.SUCCESS;
     }
 
@@ -84,21 +81,23 @@ public class TimedTaskJobHandler {
      */
     @XxlJob("everyDayExecuteJobHandler")
     public ReturnT<String> everyDayExecuteJobHandler(String param) {
-
-        log.info("每日任务执行");
+        TimedTaskContext context = shardContext();
+        log.info("每日任务执行，分片:{}/{}", context.getShardIndex(), context.getShardTotal());
         if (everyDayExecutes == null || everyDayExecutes.size() == 0) {
             return ReturnT.SUCCESS;
         }
-
-        for (int i = 0; i < everyDayExecutes.size(); i++) {
-            try {
-                everyDayExecutes.get(i).execute();
-            } catch (Exception e) {
-                log.error("每日任务异常", e);
-            }
-        }
+        timedTaskRunner.runDay(everyDayExecutes, context);
         return ReturnT.SUCCESS;
     }
 
+    /**
+     * 获取 xxl-job 分片参数，非分片广播路由时为 0/1
+     *
+     * @return 执行上下文
+     */
+    private TimedTaskContext shardContext() {
+        return new TimedTaskContext(XxlJobHelper.getShardIndex(), XxlJobHelper.getShardTotal());
+    }
+
 
 }
@@ -0,0 +1,85 @@
+package cn.lili.timetask.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 定时任务执行配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "lili.timed-task")
+public class TimedTaskProperties {
+
+    /**
+     * 每分钟任务并行线程数
+     */
+    private Integer minutePoolSize = 4;
+
+    /**
+     * 每小时任务并行线程数
+     */
+    private Integer hourPoolSize = 4;
+
+    /**
+     * 每日任务并行线程数
+     */
+    private Integer dayPoolSize = 4;
+
+    /**
+     * 每分钟任务默认超时时间，单位秒
+     */
+    private Long minuteTimeout = 55L;
+
+    /**
+     * 每小时任务默认超时时间，单位秒
+     */
+    private Long hourTimeout = 3300L;
+
+    /**
+     * 每日任务默认超时时间，单位秒
+     */
+    private Long dayTimeout = 4 * 3600L;
+
+    /**
+     * 批处理任务线程数，所有批处理任务共享
+     */
+    private Integer batchPoolSize = 8;
+
+    /**
+     * 单个批处理任务同时执行的批次数
+     */
+    private Integer batchParallelism = 4;
+
+    /**
+     * 批处理每批数量
+     */
+    private Integer batchSize = 200;
+
+    /**
+     * 每分钟批处理任务单次最长执行时间，单位秒，未处理完的数据留给下次执行
+     */
+    private Long minuteBatchBudget = 45L;
+
+    /**
+     * 单个任务超时时间，单位秒
+     * key 为任务类名，例如 OrderEveryDayTaskExecute
+     */
+    private Map<String, Long> timeouts = new HashMap<>();
+
+    /**
+     * 获取任务超时时间
+     *
+     * @param taskName       任务类名
+     * @param defaultTimeout 默认超时时间
+     * @return 超时时间，单位秒
+     */
+    public long getTimeout(String taskName, Long defaultTimeout) {
+        Long timeout = timeouts.get(taskName);
+        return timeout != null ? timeout : defaultTimeout;
+    }
+}
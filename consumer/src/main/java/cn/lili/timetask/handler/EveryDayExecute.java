@@ -1,5 +1,7 @@
 package cn.lili.timetask.handler;
 
+import cn.lili.timetask.support.TimedTaskContext;
+
 /**
  * 每日任务
  * 每日凌晨1点执行
@@ -14,5 +16,19 @@ public interface EveryDayExecute {
      */
     void execute();
 
+    /**
+     * 分片执行
+     * 未覆写的任务不感知分片，只在首个分片执行，避免多节点重复处理，其余分片记为跳过
+     *
+     * @param context 执行上下文
+     */
+    default void execute(TimedTaskContext context) {
+        if (context.isFirstShard()) {
+            execute();
+        } else {
+            context.skip();
+        }
+    }
+
 
 }
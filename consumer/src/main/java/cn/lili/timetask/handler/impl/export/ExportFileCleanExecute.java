@@ -0,0 +1,27 @@
+package cn.lili.timetask.handler.impl.export;
+
+import cn.lili.common.excel.ExcelExportJobManager;
+import cn.lili.timetask.handler.EveryHourExecute;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 导出文件清理
+ * 删除任务已过期的异步导出文件
+ */
+@Slf4j
+@Component
+public class ExportFileCleanExecute implements EveryHourExecute {
+
+    @Autowired
+    private ExcelExportJobManager excelExportJobManager;
+
+    @Override
+    public void execute() {
+        int deleted = excelExportJobManager.cleanExpiredFiles();
+        if (deleted > 0) {
+            log.info("删除过期导出文件:{}个", deleted);
+        }
+    }
+}
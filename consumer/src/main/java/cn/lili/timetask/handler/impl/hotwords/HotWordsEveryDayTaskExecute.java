@@ -4,6 +4,7 @@ import cn.hutool.json.JSONUtil;
 import cn.lili.cache.Cache;
 import cn.lili.cache.CachePrefix;
 import cn.lili.common.utils.StringUtils;
+import cn.lili.modules.search.collector.HotWordsCollector;
 import cn.lili.modules.search.entity.dos.HotWordsHistory;
 import cn.lili.modules.search.service.HotWordsHistoryService;
 import cn.lili.modules.system.entity.dos.Setting;
@@ -35,6 +36,8 @@ public class HotWordsEveryDayTaskExecute implements EveryDayExecute {
     private HotWordsHistoryService hotWordsHistoryService;
     @Autowired
     private SettingService settingService;
+    @Autowired
+    private HotWordsCollector hotWordsCollector;
 
     /**
      * 执行每日任务
@@ -54,18 +57,20 @@ public class HotWordsEveryDayTaskExecute implements EveryDayExecute {
             calendar.set(Calendar.MINUTE, 0);
             calendar.set(Calendar.DAY_OF_YEAR, calendar.get(Calendar.DAY_OF_YEAR) - 1);
 
-            //批量保存热词
+            //批量保存热词，分数为衰减加权值，折算为当前时间的热度
+            double weight = hotWordsCollector.currentWeight();
             List<HotWordsHistory> hotWordsHistories = new ArrayList<>();
             for (DefaultTypedTuple tuple : tuples) {
                 String keywords = (String) tuple.getValue();
                 Double score = tuple.getScore();
-                hotWordsHistories.add(new HotWordsHistory(keywords, score.intValue(), calendar.getTime()));
+                hotWordsHistories.add(new HotWordsHistory(keywords, (int) Math.round(score / weight), calendar.getTime()));
             }
 
             hotWordsHistoryService.saveBatch(hotWordsHistories);
         }
         //移除昨日的热搜词
         cache.remove(CachePrefix.HOT_WORD.getPrefix());
+        hotWordsCollector.resetLandmark();
 
         //设置今日默认热词
         Setting setting = settingService.get(SettingEnum.HOT_WORDS.name());
@@ -10,17 +10,26 @@ import cn.lili.modules.system.entity.dos.Setting;
 import cn.lili.modules.system.entity.dto.OrderSetting;
 import cn.lili.modules.system.entity.enums.SettingEnum;
 import cn.lili.modules.system.service.SettingService;
+import cn.lili.timetask.config.TimedTaskProperties;
 import cn.lili.timetask.handler.EveryMinuteExecute;
+import cn.lili.timetask.support.BatchTaskExecutor;
+import cn.lili.timetask.support.TimedTaskContext;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * 订单自动取消（每分钟执行）
+ * <p>
+ * 按 (create_time, id) 游标分页读取超时未支付订单，分批并行取消，
+ * 单次执行超过时间预算时停止读取，剩余订单留给下一次执行。
  *
  * @author paulG
  * @since 2021/3/11
@@ -28,6 +37,9 @@ import java.util.stream.Collectors;
 @Slf4j
 @Component
 public class CancelOrderTaskExecute implements EveryMinuteExecute {
+
+    private static final String CANCEL_REASON = "超时未支付自动取消";
+
     /**
      * 订单
      */
@@ -39,23 +51,91 @@ public class CancelOrderTaskExecute implements EveryMinuteExecute {
     @Autowired
     private SettingService settingService;
 
+    @Autowired
+    private BatchTaskExecutor batchTaskExecutor;
+
+    @Autowired
+    private TimedTaskProperties timedTaskProperties;
+
 
     @Override
     public void execute() {
+        this.execute(TimedTaskContext.single());
+    }
+
+    @Override
+    public void execute(TimedTaskContext context) {
         Setting setting = settingService.get(SettingEnum.ORDER_SETTING.name());
         OrderSetting orderSetting = JSONUtil.toBean(setting.getSettingValue(), OrderSetting.class);
-        if (orderSetting != null && orderSetting.getAutoCancel() != null) {
-            //订单自动取消时间 = 当前时间 - 自动取消时间分钟数
-            DateTime cancelTime = DateUtil.offsetMinute(DateUtil.date(), -orderSetting.getAutoCancel());
-            LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(Order::getOrderStatus, OrderStatusEnum.UNPAID.name());
-            //订单创建时间 <= 订单自动取消时间
-            queryWrapper.le(Order::getCreateTime, cancelTime);
-            List<Order> list = orderService.list(queryWrapper);
-            List<String> cancelSnList = list.stream().map(Order::getSn).collect(Collectors.toList());
-            for (String sn : cancelSnList) {
-                orderService.systemCancel(sn, "超时未支付自动取消",false);
+        if (orderSetting == null || orderSetting.getAutoCancel() == null) {
+            return;
+        }
+        //订单自动取消时间 = 当前时间 - 自动取消时间分钟数
+        DateTime cancelTime = DateUtil.offsetMinute(DateUtil.date(), -orderSetting.getAutoCancel());
+
+        long start = System.currentTimeMillis();
+        long deadline = start + TimeUnit.SECONDS.toMillis(timedTaskProperties.getMinuteBatchBudget());
+        int batchSize = timedTaskProperties.getBatchSize();
+        AtomicLong cancelled = new AtomicLong();
+        long scanned = 0;
+
+        BatchTaskExecutor.Session session = batchTaskExecutor.open("订单自动取消");
+        Date lastTime = null;
+        String lastId = null;
+        while (System.currentTimeMillis() < deadline) {
+            List<Order> orders = orderService.list(this.pageQuery(context, cancelTime, lastTime, lastId, batchSize));
+            if (orders.isEmpty()) {
+                break;
+            }
+            scanned += orders.size();
+            Order last = orders.get(orders.size() - 1);
+            lastTime = last.getCreateTime();
+            lastId = last.getId();
+
+            List<String> sns = orders.stream().map(Order::getSn).collect(Collectors.toList());
+            session.submit(() -> cancelled.addAndGet(orderService.batchSystemCancel(sns, CANCEL_REASON).size()));
+            if (orders.size() < batchSize) {
+                break;
             }
         }
+        long failedBatches = session.await();
+        context.addProcessed(cancelled.get());
+
+        //剩余积压
+        LambdaQueryWrapper<Order> backlogWrapper = new LambdaQueryWrapper<>();
+        backlogWrapper.eq(Order::getOrderStatus, OrderStatusEnum.UNPAID.name());
+        backlogWrapper.le(Order::getCreateTime, cancelTime);
+        context.shard(backlogWrapper);
+        long backlog = orderService.count(backlogWrapper);
+
+        long duration = Math.max(System.currentTimeMillis() - start, 1);
+        log.info("订单自动取消完成，扫描:{}，取消:{}，失败批次:{}，耗时:{}ms，吞吐:{}/s，剩余积压:{}",
+                scanned, cancelled.get(), failedBatches, duration, cancelled.get() * 1000 / duration, backlog);
+    }
+
+    /**
+     * 游标分页查询待取消订单
+     *
+     * @param context    执行上下文
+     * @param cancelTime 自动取消时间
+     * @param lastTime   上一页最后一条的创建时间
+     * @param lastId     上一页最后一条的id
+     * @param batchSize  每页数量
+     * @return 查询条件
+     */
+    private LambdaQueryWrapper<Order> pageQuery(TimedTaskContext context, Date cancelTime, Date lastTime, String lastId, int batchSize) {
+        LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(Order::getId, Order::getSn, Order::getCreateTime);
+        queryWrapper.eq(Order::getOrderStatus, OrderStatusEnum.UNPAID.name());
+        //订单创建时间 <= 订单自动取消时间
+        queryWrapper.le(Order::getCreateTime, cancelTime);
+        if (lastTime != null) {
+            queryWrapper.and(wrapper -> wrapper.gt(Order::getCreateTime, lastTime)
+                    .or(w -> w.eq(Order::getCreateTime, lastTime).gt(Order::getId, lastId)));
+        }
+        context.shard(queryWrapper);
+        queryWrapper.orderByAsc(Order::getCreateTime, Order::getId);
+        queryWrapper.last("LIMIT " + batchSize);
+        return queryWrapper;
     }
 }
@@ -6,11 +6,10 @@ import cn.hutool.json.JSONUtil;
 import cn.lili.common.enums.ResultCode;
 import cn.lili.common.exception.ServiceException;
 import cn.lili.modules.distribution.service.DistributionOrderService;
-import cn.lili.modules.member.entity.dto.MemberEvaluationDTO;
-import cn.lili.modules.member.entity.enums.EvaluationGradeEnum;
 import cn.lili.modules.member.service.MemberEvaluationService;
 import cn.lili.modules.order.order.entity.dos.Order;
 import cn.lili.modules.order.order.entity.dos.OrderItem;
+import cn.lili.modules.order.order.entity.dos.StoreFlow;
 import cn.lili.modules.order.order.entity.dto.OrderItemOperationDTO;
 import cn.lili.modules.order.order.entity.enums.CommentStatusEnum;
 import cn.lili.modules.order.order.entity.enums.OrderComplaintStatusEnum;
@@ -26,7 +25,11 @@ import cn.lili.modules.system.entity.dos.Setting;
 import cn.lili.modules.system.entity.dto.OrderSetting;
 import cn.lili.modules.system.entity.enums.SettingEnum;
 import cn.lili.modules.system.service.SettingService;
+import cn.lili.timetask.config.TimedTaskProperties;
 import cn.lili.timetask.handler.EveryDayExecute;
+import cn.lili.timetask.support.BatchTaskExecutor;
+import cn.lili.timetask.support.TimedTaskCheckpoint;
+import cn.lili.timetask.support.TimedTaskContext;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import lombok.extern.slf4j.Slf4j;
@@ -34,7 +37,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -46,6 +51,16 @@ import java.util.stream.Collectors;
 
 public class OrderEveryDayTaskExecute implements EveryDayExecute {
 
+    /**
+     * 自动收货阶段
+     */
+    private static final String COMPLETE_PHASE = "ORDER_COMPLETE";
+
+    /**
+     * 自动好评阶段
+     */
+    private static final String EVALUATION_PHASE = "ORDER_EVALUATION";
+
     /**
      * 订单
      */
@@ -84,11 +99,29 @@ public class OrderEveryDayTaskExecute implements EveryDayExecute {
     @Autowired
     private StoreDetailService storeDetailService;
 
+    @Autowired
+    private BatchTaskExecutor batchTaskExecutor;
+
+    @Autowired
+    private TimedTaskCheckpoint timedTaskCheckpoint;
+
+    @Autowired
+    private TimedTaskProperties timedTaskProperties;
+
     /**
      * 执行每日任务
      */
     @Override
     public void execute() {
+        this.execute(TimedTaskContext.single());
+    }
+
+    /**
+     * 执行每日任务
+     * 自动收货、自动好评、分账按分片流式批处理，其余阶段只在首个分片执行
+     */
+    @Override
+    public void execute(TimedTaskContext context) {
 
         Setting setting = settingService.get(SettingEnum.ORDER_SETTING.name());
         //订单设置
@@ -99,35 +132,40 @@ public class OrderEveryDayTaskExecute implements EveryDayExecute {
 
         try {
             //自动确认收货
-            completedOrder(orderSetting);
+            completedOrder(orderSetting, context);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
         }
         try {
             //自动好评
-            memberEvaluation(orderSetting);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-        }
-        try {
-            //关闭允许售后申请
-            this.closeAfterSale(orderSetting);
+            memberEvaluation(orderSetting, context);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
         }
-        try {
-            //关闭允许投诉
-            closeComplaint(orderSetting);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
+        if (context.isFirstShard()) {
+            try {
+                //关闭允许售后申请
+                this.closeAfterSale(orderSetting);
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+            }
+            try {
+                //关闭允许投诉
+                closeComplaint(orderSetting);
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+            }
         }
 
         //修改分账状态
         try {
-            storeFlowService.updateProfitSharingStatus();
+            profitSharing(context);
         } catch (Exception e) {
             log.error("修改分账状态失败", e);
         }
+        if (!context.isFirstShard()) {
+            return;
+        }
 
         //生成店铺结算单
         try {
@@ -141,70 +179,159 @@ public class OrderEveryDayTaskExecute implements EveryDayExecute {
 
     /**
      * 自动确认收获，订单完成
+     * 按 (logistics_time, id) 游标分页，分批并行完成订单，每轮批次全部成功后记录断点
      *
      * @param orderSetting 订单设置
+     * @param context      执行上下文
      */
-    private void completedOrder(OrderSetting orderSetting) {
-
+    private void completedOrder(OrderSetting orderSetting, TimedTaskContext context) {
+        String cursor = timedTaskCheckpoint.get(COMPLETE_PHASE, context);
+        if (TimedTaskCheckpoint.isFinished(cursor)) {
+            return;
+        }
         //订单自动收货时间 = 当前时间 - 自动收货时间天数
-        DateTime receiveTime = DateUtil.offsetDay(DateUtil.date(), -orderSetting.getAutoReceive());
-        LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(Order::getOrderStatus, OrderStatusEnum.DELIVERED.name());
-
-        //订单发货时间 >= 订单自动收货时间
-        queryWrapper.le(Order::getLogisticsTime, receiveTime);
-        List<Order> list = orderService.list(queryWrapper);
+        DateTime receiveTime = DateUtil.offsetDay(DateUtil.beginOfDay(DateUtil.date()), -orderSetting.getAutoReceive());
+        Date lastTime = null;
+        String lastId = null;
+        if (cursor != null) {
+            String[] split = cursor.split(",");
+            lastTime = new Date(Long.parseLong(split[0]));
+            lastId = split[1];
+        }
 
-        try {
-            //判断是否有符合条件的订单，进行订单完成处理
-            if (!list.isEmpty()) {
-                List<String> receiveSnList = list.stream().map(Order::getSn).collect(Collectors.toList());
-                for (String orderSn : receiveSnList) {
-                    orderService.systemComplete(orderSn);
-                }
+        int batchSize = timedTaskProperties.getBatchSize();
+        int parallelism = timedTaskProperties.getBatchParallelism();
+        AtomicLong completed = new AtomicLong();
+        long start = System.currentTimeMillis();
+        BatchTaskExecutor.Session session = batchTaskExecutor.open("订单自动完成");
+        int submitted = 0;
+        while (true) {
+            LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.select(Order::getId, Order::getSn, Order::getLogisticsTime);
+            queryWrapper.eq(Order::getOrderStatus, OrderStatusEnum.DELIVERED.name());
+            //订单发货时间 <= 订单自动收货时间
+            queryWrapper.le(Order::getLogisticsTime, receiveTime);
+            if (lastTime != null) {
+                Date time = lastTime;
+                String id = lastId;
+                queryWrapper.and(wrapper -> wrapper.gt(Order::getLogisticsTime, time)
+                        .or(w -> w.eq(Order::getLogisticsTime, time).gt(Order::getId, id)));
             }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
+            context.shard(queryWrapper);
+            queryWrapper.orderByAsc(Order::getLogisticsTime, Order::getId);
+            queryWrapper.last("LIMIT " + batchSize);
+            List<Order> list = orderService.list(queryWrapper);
+            if (list.isEmpty()) {
+                break;
+            }
+            Order last = list.get(list.size() - 1);
+            lastTime = last.getLogisticsTime();
+            lastId = last.getId();
+
+            List<String> receiveSnList = list.stream().map(Order::getSn).collect(Collectors.toList());
+            session.submit(() -> completed.addAndGet(orderService.batchSystemComplete(receiveSnList).size()));
+            //每轮并行批次全部成功后记录断点，有批次失败后断点停留在最后一次全部成功的位置
+            if (++submitted % parallelism == 0 && session.await() == 0) {
+                timedTaskCheckpoint.save(COMPLETE_PHASE, context, lastTime.getTime() + "," + lastId);
+            }
+            if (list.size() < batchSize) {
+                break;
+            }
+        }
+        long failedBatches = session.await();
+        if (failedBatches == 0) {
+            timedTaskCheckpoint.finish(COMPLETE_PHASE, context);
+        } else {
+            log.warn("订单自动完成有{}批失败，下次执行从断点继续", failedBatches);
         }
+        context.addProcessed(completed.get());
+        log.info("订单自动完成，完成订单:{}，耗时:{}ms", completed.get(), System.currentTimeMillis() - start);
     }
 
     /**
      * 自动好评
+     * 按子订单ID游标分页，评价批量写入，每轮批次全部成功后记录断点
      *
      * @param orderSetting 订单设置
+     * @param context      执行上下文
      */
-    private void memberEvaluation(OrderSetting orderSetting) {
-        //订单自动收货时间 = 当前时间 - 自动收货时间天数
-        DateTime receiveTime = DateUtil.offsetDay(DateUtil.date(), -orderSetting.getAutoEvaluation());
+    private void memberEvaluation(OrderSetting orderSetting, TimedTaskContext context) {
+        String cursor = timedTaskCheckpoint.get(EVALUATION_PHASE, context);
+        if (TimedTaskCheckpoint.isFinished(cursor)) {
+            return;
+        }
+        //订单自动好评时间 = 当前时间 - 自动好评时间天数
+        DateTime receiveTime = DateUtil.offsetDay(DateUtil.beginOfDay(DateUtil.date()), -orderSetting.getAutoEvaluation());
+
+        int batchSize = timedTaskProperties.getBatchSize();
+        int parallelism = timedTaskProperties.getBatchParallelism();
+        AtomicLong evaluated = new AtomicLong();
+        long start = System.currentTimeMillis();
+        BatchTaskExecutor.Session session = batchTaskExecutor.open("订单自动好评");
+        String lastId = cursor;
+        int submitted = 0;
+        while (true) {
+            //订单完成时间 <= 订单自动好评时间
+            OrderItemOperationDTO orderItemOperationDTO =
+                OrderItemOperationDTO.builder().receiveTime(receiveTime).commentStatus(CommentStatusEnum.UNFINISHED.name())
+                    .lastId(lastId).limit(batchSize).shardIndex(context.getShardIndex()).shardTotal(context.getShardTotal())
+                    .build();
+            List<OrderItem> orderItems = orderItemService.waitOperationOrderItem(orderItemOperationDTO);
+            if (orderItems.isEmpty()) {
+                break;
+            }
+            lastId = orderItems.get(orderItems.size() - 1).getId();
 
-        //订单完成时间 <= 订单自动好评时间
-        OrderItemOperationDTO orderItemOperationDTO =
-            OrderItemOperationDTO.builder().receiveTime(receiveTime).commentStatus(CommentStatusEnum.UNFINISHED.name())
-                .build();
-        List<OrderItem> orderItems = orderItemService.waitOperationOrderItem(orderItemOperationDTO);
+            List<String> orderItemSns = orderItems.stream().map(OrderItem::getSn).collect(Collectors.toList());
+            session.submit(() -> evaluated.addAndGet(memberEvaluationService.batchSystemEvaluation(orderItemSns)));
+            //每轮并行批次全部成功后记录断点，有批次失败后断点停留在最后一次全部成功的位置
+            if (++submitted % parallelism == 0 && session.await() == 0) {
+                timedTaskCheckpoint.save(EVALUATION_PHASE, context, lastId);
+            }
+            if (orderItems.size() < batchSize) {
+                break;
+            }
+        }
+        long failedBatches = session.await();
+        if (failedBatches == 0) {
+            timedTaskCheckpoint.finish(EVALUATION_PHASE, context);
+        } else {
+            log.warn("订单自动好评有{}批失败，下次执行从断点继续", failedBatches);
+        }
+        context.addProcessed(evaluated.get());
+        log.info("订单自动好评，评价子订单:{}，耗时:{}ms", evaluated.get(), System.currentTimeMillis() - start);
+    }
 
-        //判断是否有符合条件的订单，进行自动评价处理
-        if (!orderItems.isEmpty()) {
-            for (OrderItem orderItem : orderItems) {
-                MemberEvaluationDTO memberEvaluationDTO = new MemberEvaluationDTO();
-                memberEvaluationDTO.setOrderItemSn(orderItem.getSn());
-                memberEvaluationDTO.setContent("系统默认好评");
-                memberEvaluationDTO.setGoodsId(orderItem.getGoodsId());
-                memberEvaluationDTO.setSkuId(orderItem.getSkuId());
-                memberEvaluationDTO.setGrade(EvaluationGradeEnum.GOOD.name());
-                memberEvaluationDTO.setDeliveryScore(5);
-                memberEvaluationDTO.setDescriptionScore(5);
-                memberEvaluationDTO.setServiceScore(5);
-
-                try {
-                    memberEvaluationService.addMemberEvaluation(memberEvaluationDTO, false);
-                } catch (Exception e) {
-                    // 修改订单货物评价状态为已评价避免无限调用评价异常
-                    orderItemService.updateCommentStatus(orderItem.getSn(), CommentStatusEnum.FINISHED);
-                    log.error(e.getMessage(), e);
-                }
+    /**
+     * 修改分账状态
+     * 按流水ID游标分批，每批独立事务并行执行
+     *
+     * @param context 执行上下文
+     */
+    private void profitSharing(TimedTaskContext context) {
+        int batchSize = timedTaskProperties.getBatchSize();
+        AtomicLong flows = new AtomicLong();
+        long start = System.currentTimeMillis();
+        BatchTaskExecutor.Session session = batchTaskExecutor.open("店铺流水分账");
+        String lastId = null;
+        while (true) {
+            List<StoreFlow> storeFlows = storeFlowService.waitProfitSharingList(lastId, batchSize, context.getShardIndex(), context.getShardTotal());
+            if (storeFlows.isEmpty()) {
+                break;
+            }
+            lastId = storeFlows.get(storeFlows.size() - 1).getId();
+            session.submit(() -> {
+                storeFlowService.completeProfitSharing(storeFlows);
+                flows.addAndGet(storeFlows.size());
+            });
+            if (storeFlows.size() < batchSize) {
+                break;
             }
         }
+        long failedBatches = session.await();
+        context.addProcessed(flows.get());
+        long duration = Math.max(System.currentTimeMillis() - start, 1);
+        log.info("店铺流水分账，处理流水:{}，失败批次:{}，耗时:{}ms，吞吐:{}/s", flows.get(), failedBatches, duration, flows.get() * 1000 / duration);
     }
 
     /**
@@ -0,0 +1,117 @@
+package cn.lili.timetask.handler.impl.order;
+
+import cn.hutool.core.date.DateUtil;
+import cn.lili.common.properties.OrderIndexProperties;
+import cn.lili.modules.order.order.entity.dos.Order;
+import cn.lili.modules.order.order.service.OrderIndexService;
+import cn.lili.modules.order.order.service.OrderService;
+import cn.lili.timetask.handler.EveryHourExecute;
+import cn.lili.timetask.support.TimedTaskCheckpoint;
+import cn.lili.timetask.support.TimedTaskContext;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 订单查询索引校验
+ * <p>
+ * 索引未构建完成时按订单ID游标全量构建，记录断点，全部分片完成后标记索引可用；
+ * 构建完成后每小时校验最近创建的订单，修复消息丢失等原因造成的索引差异。
+ */
+@Slf4j
+@Component
+public class OrderIndexReconcileExecute implements EveryHourExecute {
+
+    /**
+     * 全量构建阶段
+     */
+    private static final String REBUILD_PHASE = "ORDER_INDEX_REBUILD";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderIndexService orderIndexService;
+
+    @Autowired
+    private OrderIndexProperties orderIndexProperties;
+
+    @Autowired
+    private TimedTaskCheckpoint timedTaskCheckpoint;
+
+    @Override
+    public void execute() {
+        this.execute(TimedTaskContext.single());
+    }
+
+    @Override
+    public void execute(TimedTaskContext context) {
+        if ("NONE".equals(orderIndexProperties.getStore())) {
+            return;
+        }
+        boolean rebuild = !orderIndexService.isReady();
+        String lastId = null;
+        if (rebuild) {
+            String cursor = timedTaskCheckpoint.get(REBUILD_PHASE, context);
+            if (TimedTaskCheckpoint.isFinished(cursor)) {
+                this.markReady(context);
+                return;
+            }
+            lastId = cursor;
+        }
+        //校验范围：全量构建时为全部订单，否则为最近创建的订单
+        Date since = rebuild ? null : DateUtil.offsetDay(new Date(), -orderIndexProperties.getReconcileDays());
+        int batchSize = orderIndexProperties.getBatchSize();
+        long start = System.currentTimeMillis();
+        long checked = 0;
+        long drifted = 0;
+        while (true) {
+            LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.gt(lastId != null, Order::getId, lastId);
+            queryWrapper.ge(since != null, Order::getCreateTime, since);
+            context.shard(queryWrapper);
+            queryWrapper.orderByAsc(Order::getId);
+            queryWrapper.last("LIMIT " + batchSize);
+            List<Order> orders = orderService.list(queryWrapper);
+            if (orders.isEmpty()) {
+                break;
+            }
+            drifted += orderIndexService.reconcile(orders);
+            checked += orders.size();
+            lastId = orders.get(orders.size() - 1).getId();
+            if (rebuild) {
+                timedTaskCheckpoint.save(REBUILD_PHASE, context, lastId);
+            }
+            if (orders.size() < batchSize) {
+                break;
+            }
+        }
+        context.addProcessed(checked);
+        if (rebuild) {
+            timedTaskCheckpoint.finish(REBUILD_PHASE, context);
+            this.markReady(context);
+            log.info("订单索引构建完成，订单数:{}，耗时:{}ms", checked, System.currentTimeMillis() - start);
+        } else if (drifted > 0) {
+            log.warn("订单索引校验完成，校验订单:{}，修复差异:{}，耗时:{}ms", checked, drifted, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 全部分片构建完成后标记索引可用
+     *
+     * @param context 执行上下文
+     */
+    private void markReady(TimedTaskContext context) {
+        for (int i = 0; i < context.getShardTotal(); i++) {
+            String cursor = timedTaskCheckpoint.get(REBUILD_PHASE, new TimedTaskContext(i, context.getShardTotal()));
+            if (!TimedTaskCheckpoint.isFinished(cursor)) {
+                return;
+            }
+        }
+        orderIndexService.markReady();
+    }
+}
@@ -2,8 +2,8 @@ package cn.lili.timetask.handler.impl.statistics;
 
 import cn.lili.cache.Cache;
 import cn.lili.cache.CachePrefix;
-import cn.lili.common.security.enums.UserEnums;
 import cn.lili.common.properties.StatisticsProperties;
+import cn.lili.modules.statistics.collector.OnlineMemberCollector;
 import cn.lili.modules.statistics.entity.vo.OnlineMemberVO;
 import cn.lili.timetask.handler.EveryHourExecute;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +35,11 @@ public class OnlineMemberStatistics implements EveryHourExecute {
      */
     @Autowired
     private StatisticsProperties statisticsProperties;
+    /**
+     * 在线会员
+     */
+    @Autowired
+    private OnlineMemberCollector onlineMemberCollector;
 
 
     @Override
@@ -72,8 +77,7 @@ public class OnlineMemberStatistics implements EveryHourExecute {
         calendar.set(Calendar.MINUTE, 0);
         calendar.set(Calendar.SECOND, 0);
         calendar.set(Calendar.MILLISECOND, 0);
-        onlineMemberVOS.add(new OnlineMemberVO(calendar.getTime(), cache.keys(CachePrefix.ACCESS_TOKEN.getPrefix(UserEnums.MEMBER) + "*").size(),
-                lastNum.get()));
+        onlineMemberVOS.add(new OnlineMemberVO(calendar.getTime(), (int) onlineMemberCollector.online(), lastNum.get()));
 
         //写入缓存
         cache.put(CachePrefix.ONLINE_MEMBER.getPrefix(), onlineMemberVOS);
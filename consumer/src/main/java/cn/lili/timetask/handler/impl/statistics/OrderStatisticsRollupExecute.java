@@ -0,0 +1,71 @@
+package cn.lili.timetask.handler.impl.statistics;
+
+import cn.hutool.core.date.DateUtil;
+import cn.lili.common.properties.StatisticsProperties;
+import cn.lili.modules.order.order.entity.dos.Order;
+import cn.lili.modules.order.order.service.OrderService;
+import cn.lili.modules.statistics.service.OrderStatisticsDailyService;
+import cn.lili.timetask.handler.EveryDayExecute;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * 订单每日统计汇总
+ * <p>
+ * 汇总上次汇总日至昨天的订单统计，首次执行只汇总昨天；
+ * 之后每次向前回填一段历史统计，直到最早的订单，回填完成前更早的部分实时查询。
+ */
+@Slf4j
+@Component
+public class OrderStatisticsRollupExecute implements EveryDayExecute {
+
+    @Autowired
+    private OrderStatisticsDailyService orderStatisticsDailyService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StatisticsProperties statisticsProperties;
+
+    @Override
+    public void execute() {
+        try {
+            long start = System.currentTimeMillis();
+            Date yesterday = DateUtil.beginOfDay(DateUtil.yesterday());
+            //向后汇总至昨天
+            Date[] range = orderStatisticsDailyService.rolledUpRange();
+            Date day = range == null ? yesterday : DateUtil.offsetDay(range[1], 1);
+            int days = 0;
+            while (!day.after(yesterday)) {
+                orderStatisticsDailyService.rebuild(day, null);
+                day = DateUtil.offsetDay(day, 1);
+                days++;
+            }
+            //向前回填
+            Order earliest = orderService.getOne(new LambdaQueryWrapper<Order>()
+                    .select(Order::getCreateTime)
+                    .orderByAsc(Order::getCreateTime)
+                    .last("LIMIT 1"), false);
+            if (earliest != null && earliest.getCreateTime() != null) {
+                Date earliestDay = DateUtil.beginOfDay(earliest.getCreateTime());
+                for (int i = 0; i < statisticsProperties.getRollupBackfillDays(); i++) {
+                    range = orderStatisticsDailyService.rolledUpRange();
+                    day = DateUtil.offsetDay(range[0], -1);
+                    if (day.before(earliestDay)) {
+                        break;
+                    }
+                    orderStatisticsDailyService.rebuild(day, null);
+                    days++;
+                }
+            }
+            log.info("订单每日统计汇总完成，汇总天数:{}，耗时:{}ms", days, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("订单每日统计汇总异常：", e);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import cn.lili.modules.store.entity.dos.Store;
 import cn.lili.modules.store.entity.enums.StoreStatusEnum;
 import cn.lili.modules.store.service.StoreService;
 import cn.lili.timetask.handler.EveryDayExecute;
+import cn.lili.timetask.support.TimedTaskContext;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
@@ -37,8 +38,15 @@ public class StoreRatingExecute implements EveryDayExecute {
 
     @Override
     public void execute() {
-        //获取所有开启的店铺
-        List<Store> storeList = storeService.list(new LambdaQueryWrapper<Store>().eq(Store::getStoreDisable, StoreStatusEnum.OPEN.name()));
+        this.execute(TimedTaskContext.single());
+    }
+
+    @Override
+    public void execute(TimedTaskContext context) {
+        //获取当前分片所有开启的店铺
+        LambdaQueryWrapper<Store> queryWrapper = new LambdaQueryWrapper<Store>().eq(Store::getStoreDisable, StoreStatusEnum.OPEN.name());
+        context.shard(queryWrapper);
+        List<Store> storeList = storeService.list(queryWrapper);
         for (Store store : storeList) {
             //店铺所有开启的评价
             StoreRatingVO storeRatingVO = memberEvaluationService.getStoreRatingVO(store.getId(), SwitchEnum.OPEN.name());
@@ -51,6 +59,7 @@ public class StoreRatingExecute implements EveryDayExecute {
                 lambdaUpdateWrapper.set(Store::getDeliveryScore, storeRatingVO.getDeliveryScore());
                 lambdaUpdateWrapper.set(Store::getServiceScore, storeRatingVO.getServiceScore());
                 storeService.update(lambdaUpdateWrapper);
+                context.addProcessed(1);
             }
 
         }
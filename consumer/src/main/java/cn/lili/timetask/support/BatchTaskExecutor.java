@@ -0,0 +1,119 @@
+package cn.lili.timetask.support;
+
+import cn.lili.timetask.config.TimedTaskProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批处理执行器
+ * <p>
+ * 定时任务将数据按批次提交，每个批次在共享的有界线程池中执行，
+ * 单个任务同时执行的批次数由信号量限制，线程池满时由提交线程自行执行。
+ */
+@Slf4j
+@Component
+public class BatchTaskExecutor implements DisposableBean {
+
+    private final TimedTaskProperties timedTaskProperties;
+
+    private final ExecutorService executor;
+
+    public BatchTaskExecutor(TimedTaskProperties timedTaskProperties) {
+        this.timedTaskProperties = timedTaskProperties;
+        int poolSize = Math.max(timedTaskProperties.getBatchPoolSize(), 1);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                new CustomizableThreadFactory("timed-task-batch-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 开启一次批处理
+     *
+     * @param name 任务名称，用于日志
+     * @return 批处理会话
+     */
+    public Session open(String name) {
+        return new Session(name, Math.max(timedTaskProperties.getBatchParallelism(), 1));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 批处理会话
+     */
+    public class Session {
+
+        private final String name;
+
+        private final int parallelism;
+
+        private final Semaphore permits;
+
+        private final AtomicLong failedBatches = new AtomicLong();
+
+        Session(String name, int parallelism) {
+            this.name = name;
+            this.parallelism = parallelism;
+            this.permits = new Semaphore(parallelism);
+        }
+
+        /**
+         * 提交一个批次，执行中的批次达到上限时阻塞等待
+         *
+         * @param batch 批次任务
+         */
+        public void submit(Runnable batch) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(name + " 批处理被中断", e);
+            }
+            Runnable wrapped = () -> {
+                try {
+                    batch.run();
+                } catch (Exception e) {
+                    failedBatches.incrementAndGet();
+                    log.error("{} 批次执行异常", name, e);
+                } finally {
+                    permits.release();
+                }
+            };
+            try {
+                executor.execute(wrapped);
+            } catch (RejectedExecutionException e) {
+                wrapped.run();
+            }
+        }
+
+        /**
+         * 等待已提交的批次全部完成
+         *
+         * @return 失败批次数
+         */
+        public long await() {
+            try {
+                permits.acquire(parallelism);
+                permits.release(parallelism);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(name + " 批处理被中断", e);
+            }
+            return failedBatches.get();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package cn.lili.timetask.support;
+
+import cn.hutool.core.date.DateUtil;
+import cn.lili.cache.Cache;
+import cn.lili.cache.CachePrefix;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时任务断点
+ * <p>
+ * 批处理任务按游标推进时记录当日进度，consumer 中途重启后从断点继续，
+ * 断点按任务阶段、分片、日期区分，两天后自动过期。
+ */
+@Component
+public class TimedTaskCheckpoint {
+
+    /**
+     * 阶段已完成标记
+     */
+    private static final String FINISHED = "FINISHED";
+
+    @Autowired
+    private Cache<Object> cache;
+
+    /**
+     * 获取断点
+     *
+     * @param phase   任务阶段
+     * @param context 执行上下文
+     * @return 游标，不存在时返回null
+     */
+    public String get(String phase, TimedTaskContext context) {
+        Object value = cache.get(key(phase, context));
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * 记录断点
+     *
+     * @param phase   任务阶段
+     * @param context 执行上下文
+     * @param cursor  游标
+     */
+    public void save(String phase, TimedTaskContext context, String cursor) {
+        cache.put(key(phase, context), cursor, 2L, TimeUnit.DAYS);
+    }
+
+    /**
+     * 阶段执行完成，标记完成
+     *
+     * @param phase   任务阶段
+     * @param context 执行上下文
+     */
+    public void finish(String phase, TimedTaskContext context) {
+        save(phase, context, FINISHED);
+    }
+
+    /**
+     * 阶段是否已完成
+     *
+     * @param cursor 游标
+     * @return 是否完成
+     */
+    public static boolean isFinished(String cursor) {
+        return FINISHED.equals(cursor);
+    }
+
+    private String key(String phase, TimedTaskContext context) {
+        return CachePrefix.TIMED_TASK_CHECKPOINT.getPrefix() + phase + "_" + context.getShardIndex() + "_"
+                + context.getShardTotal() + "_" + DateUtil.today();
+    }
+}
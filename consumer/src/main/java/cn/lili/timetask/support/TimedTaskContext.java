@@ -0,0 +1,122 @@
+package cn.lili.timetask.support;
+
+import com.baomidou.mybatisplus.core.conditions.AbstractWrapper;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 定时任务执行上下文
+ * <p>
+ * 承载 xxl-job 分片参数以及本次执行的处理行数。
+ * 分片广播时，各节点按 id 取模拆分数据，互不重叠。
+ */
+@Getter
+public class TimedTaskContext {
+
+    /**
+     * 当前分片序号
+     */
+    private final int shardIndex;
+
+    /**
+     * 分片总数
+     */
+    private final int shardTotal;
+
+    /**
+     * 处理行数
+     */
+    private final AtomicLong processed = new AtomicLong();
+
+    /**
+     * 本次是否跳过执行
+     */
+    private volatile boolean skipped;
+
+    public TimedTaskContext(int shardIndex, int shardTotal) {
+        this.shardIndex = Math.max(shardIndex, 0);
+        this.shardTotal = Math.max(shardTotal, 1);
+    }
+
+    /**
+     * 单节点执行上下文
+     *
+     * @return 上下文
+     */
+    public static TimedTaskContext single() {
+        return new TimedTaskContext(0, 1);
+    }
+
+    /**
+     * 是否分片执行
+     *
+     * @return 是否分片
+     */
+    public boolean isSharding() {
+        return shardTotal > 1;
+    }
+
+    /**
+     * 是否为首个分片，非分片任务只在首个分片执行
+     *
+     * @return 是否首个分片
+     */
+    public boolean isFirstShard() {
+        return shardIndex == 0;
+    }
+
+    /**
+     * 判断主键是否属于当前分片
+     *
+     * @param id 主键
+     * @return 是否属于当前分片
+     */
+    public boolean owns(String id) {
+        if (!isSharding()) {
+            return true;
+        }
+        return Math.floorMod(Long.parseLong(id), (long) shardTotal) == shardIndex;
+    }
+
+    /**
+     * 为查询追加分片条件
+     *
+     * @param wrapper 查询条件
+     * @param column  主键列名
+     */
+    public void shard(AbstractWrapper<?, ?, ?> wrapper, String column) {
+        if (isSharding()) {
+            wrapper.apply("MOD(" + column + ", {0}) = {1}", shardTotal, shardIndex);
+        }
+    }
+
+    /**
+     * 为查询追加分片条件，按 id 列拆分
+     *
+     * @param wrapper 查询条件
+     */
+    public void shard(AbstractWrapper<?, ?, ?> wrapper) {
+        shard(wrapper, "id");
+    }
+
+    /**
+     * 累加处理行数
+     *
+     * @param rows 行数
+     */
+    public void addProcessed(long rows) {
+        processed.addAndGet(rows);
+    }
+
+    /**
+     * 标记本次跳过执行，如不感知分片的任务在非首个分片上
+     */
+    public void skip() {
+        skipped = true;
+    }
+
+    public long getProcessedRows() {
+        return processed.get();
+    }
+}
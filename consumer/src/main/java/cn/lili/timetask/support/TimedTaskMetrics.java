@@ -0,0 +1,116 @@
+package cn.lili.timetask.support;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 定时任务执行指标
+ * 记录每个任务最近一次的耗时、处理行数与执行结果
+ */
+@Slf4j
+@Component
+public class TimedTaskMetrics {
+
+    private final Map<String, TaskMetric> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次执行
+     *
+     * @param taskName 任务名称
+     * @param status   执行结果
+     * @param duration 耗时，毫秒
+     * @param rows     处理行数
+     */
+    public void record(String taskName, TaskStatus status, long duration, long rows) {
+        TaskMetric metric = metrics.computeIfAbsent(taskName, TaskMetric::new);
+        synchronized (metric) {
+            metric.setLastStatus(status);
+            //跳过的任务没有执行，不计入执行次数、耗时与处理行数
+            if (status == TaskStatus.SKIPPED) {
+                metric.setSkips(metric.getSkips() + 1);
+            } else {
+                metric.setLastDuration(duration);
+                metric.setLastRows(rows);
+                metric.setLastExecuteTime(System.currentTimeMillis());
+                metric.setExecutions(metric.getExecutions() + 1);
+                metric.setTotalRows(metric.getTotalRows() + rows);
+                if (status != TaskStatus.SUCCESS) {
+                    metric.setFailures(metric.getFailures() + 1);
+                }
+            }
+        }
+        log.info("定时任务[{}]执行结果:{}, 耗时:{}ms, 处理行数:{}", taskName, status, duration, rows);
+    }
+
+    /**
+     * 获取全部任务指标
+     *
+     * @return 指标列表
+     */
+    public List<TaskMetric> list() {
+        return new ArrayList<>(metrics.values());
+    }
+
+    /**
+     * 获取单个任务指标
+     *
+     * @param taskName 任务名称
+     * @return 指标
+     */
+    public TaskMetric get(String taskName) {
+        return metrics.get(taskName);
+    }
+
+    /**
+     * 执行结果
+     */
+    public enum TaskStatus {
+        /**
+         * 成功
+         */
+        SUCCESS,
+        /**
+         * 异常
+         */
+        FAILED,
+        /**
+         * 超时
+         */
+        TIMEOUT,
+        /**
+         * 上次执行尚未结束，或不感知分片的任务不在首个分片，本次跳过
+         */
+        SKIPPED
+    }
+
+    /**
+     * 单个任务指标
+     */
+    @Data
+    public static class TaskMetric {
+
+        private final String taskName;
+
+        private TaskStatus lastStatus;
+
+        private long lastDuration;
+
+        private long lastRows;
+
+        private long lastExecuteTime;
+
+        private long executions;
+
+        private long failures;
+
+        private long skips;
+
+        private long totalRows;
+    }
+}
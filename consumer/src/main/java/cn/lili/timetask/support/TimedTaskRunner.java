@@ -0,0 +1,213 @@
+package cn.lili.timetask.support;
+
+import cn.lili.timetask.config.TimedTaskProperties;
+import cn.lili.timetask.handler.EveryDayExecute;
+import cn.lili.timetask.handler.EveryHourExecute;
+import cn.lili.timetask.handler.EveryMinuteExecute;
+import cn.lili.timetask.support.TimedTaskMetrics.TaskStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * 定时任务并行执行器
+ * <p>
+ * 每种频率的任务使用独立的有界线程池并行执行，单个任务拥有独立超时时间，
+ * 慢任务不再阻塞同批次的其他任务。同一任务上一次执行未结束时，本次跳过。
+ */
+@Slf4j
+@Component
+public class TimedTaskRunner implements DisposableBean {
+
+    @Autowired
+    private TimedTaskMetrics timedTaskMetrics;
+
+    private final TimedTaskProperties timedTaskProperties;
+
+    private final ExecutorService minuteExecutor;
+
+    private final ExecutorService hourExecutor;
+
+    private final ExecutorService dayExecutor;
+
+    /**
+     * 正在执行的任务
+     */
+    private final Map<String, AtomicBoolean> running = new ConcurrentHashMap<>();
+
+    public TimedTaskRunner(TimedTaskProperties timedTaskProperties) {
+        this.timedTaskProperties = timedTaskProperties;
+        this.minuteExecutor = newExecutor("timed-task-minute-", timedTaskProperties.getMinutePoolSize());
+        this.hourExecutor = newExecutor("timed-task-hour-", timedTaskProperties.getHourPoolSize());
+        this.dayExecutor = newExecutor("timed-task-day-", timedTaskProperties.getDayPoolSize());
+    }
+
+    /**
+     * 执行每分钟任务
+     *
+     * @param tasks   任务列表
+     * @param context 分片上下文模板
+     */
+    public void runMinute(List<EveryMinuteExecute> tasks, TimedTaskContext context) {
+        run(tasks, EveryMinuteExecute::execute, minuteExecutor, timedTaskProperties.getMinuteTimeout(), context);
+    }
+
+    /**
+     * 执行每小时任务
+     *
+     * @param tasks   任务列表
+     * @param context 分片上下文模板
+     */
+    public void runHour(List<EveryHourExecute> tasks, TimedTaskContext context) {
+        run(tasks, EveryHourExecute::execute, hourExecutor, timedTaskProperties.getHourTimeout(), context);
+    }
+
+    /**
+     * 执行每日任务
+     *
+     * @param tasks   任务列表
+     * @param context 分片上下文模板
+     */
+    public void runDay(List<EveryDayExecute> tasks, TimedTaskContext context) {
+        run(tasks, EveryDayExecute::execute, dayExecutor, timedTaskProperties.getDayTimeout(), context);
+    }
+
+    /**
+     * 并行执行任务，并等待全部完成或超时
+     */
+    private <T> void run(List<T> tasks, BiConsumer<T, TimedTaskContext> invoker, ExecutorService executor,
+                         Long defaultTimeout, TimedTaskContext context) {
+        if (tasks == null || tasks.isEmpty()) {
+            return;
+        }
+        List<TaskExecution> executions = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            String taskName = AopUtils.getTargetClass(task).getSimpleName();
+            AtomicBoolean flag = running.computeIfAbsent(taskName, k -> new AtomicBoolean(false));
+            if (!flag.compareAndSet(false, true)) {
+                log.warn("定时任务[{}]上次执行尚未结束，本次跳过", taskName);
+                timedTaskMetrics.record(taskName, TaskStatus.SKIPPED, 0, 0);
+                continue;
+            }
+            TimedTaskContext taskContext = new TimedTaskContext(context.getShardIndex(), context.getShardTotal());
+            long timeout = timedTaskProperties.getTimeout(taskName, defaultTimeout);
+            long start = System.currentTimeMillis();
+            AtomicBoolean started = new AtomicBoolean(false);
+            Future<?> future;
+            try {
+                future = executor.submit(() -> {
+                    started.set(true);
+                    try {
+                        invoker.accept(task, taskContext);
+                    } finally {
+                        flag.set(false);
+                    }
+                });
+            } catch (RuntimeException e) {
+                flag.set(false);
+                log.error("定时任务[{}]提交失败", taskName, e);
+                timedTaskMetrics.record(taskName, TaskStatus.FAILED, 0, 0);
+                continue;
+            }
+            executions.add(new TaskExecution(taskName, future, taskContext, flag, started,
+                    start, start + TimeUnit.SECONDS.toMillis(timeout)));
+        }
+
+        for (TaskExecution execution : executions) {
+            TaskStatus status = TaskStatus.SUCCESS;
+            try {
+                long wait = Math.max(execution.deadline - System.currentTimeMillis(), 0);
+                execution.future.get(wait, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                status = TaskStatus.TIMEOUT;
+                execution.cancel();
+                log.error("定时任务[{}]执行超时，已中断", execution.taskName);
+            } catch (ExecutionException e) {
+                status = TaskStatus.FAILED;
+                log.error("定时任务[{}]执行异常", execution.taskName, e.getCause());
+            } catch (InterruptedException e) {
+                status = TaskStatus.FAILED;
+                execution.cancel();
+                Thread.currentThread().interrupt();
+                log.error("定时任务[{}]等待被中断", execution.taskName);
+            }
+            if (status == TaskStatus.SUCCESS && execution.context.isSkipped()) {
+                status = TaskStatus.SKIPPED;
+            }
+            timedTaskMetrics.record(execution.taskName, status,
+                    System.currentTimeMillis() - execution.start, execution.context.getProcessedRows());
+        }
+    }
+
+    private static ExecutorService newExecutor(String prefix, Integer poolSize) {
+        int size = poolSize == null || poolSize < 1 ? 1 : poolSize;
+        return new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(size * 16),
+                new CustomizableThreadFactory(prefix),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public void destroy() {
+        minuteExecutor.shutdownNow();
+        hourExecutor.shutdownNow();
+        dayExecutor.shutdownNow();
+    }
+
+    /**
+     * 提交的任务
+     */
+    private static class TaskExecution {
+
+        private final String taskName;
+
+        private final Future<?> future;
+
+        private final TimedTaskContext context;
+
+        private final AtomicBoolean running;
+
+        private final AtomicBoolean started;
+
+        private final long start;
+
+        private final long deadline;
+
+        TaskExecution(String taskName, Future<?> future, TimedTaskContext context,
+                      AtomicBoolean running, AtomicBoolean started, long start, long deadline) {
+            this.taskName = taskName;
+            this.future = future;
+            this.context = context;
+            this.running = running;
+            this.started = started;
+            this.start = start;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 中断任务，尚未开始的任务需要手动释放执行标记
+         */
+        void cancel() {
+            if (future.cancel(true) && !started.get()) {
+                running.set(false);
+            }
+        }
+    }
+}
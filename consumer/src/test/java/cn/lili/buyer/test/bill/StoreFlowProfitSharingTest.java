@@ -0,0 +1,114 @@
+package cn.lili.buyer.test.bill;
+
+import cn.hutool.json.JSONUtil;
+import cn.lili.common.utils.SnowFlake;
+import cn.lili.modules.order.order.entity.dos.OrderItem;
+import cn.lili.modules.order.order.entity.dos.StoreFlow;
+import cn.lili.modules.order.order.entity.dto.StoreFlowProfitSharingDTO;
+import cn.lili.modules.order.order.entity.enums.FlowTypeEnum;
+import cn.lili.modules.order.order.entity.enums.OrderItemAfterSaleStatusEnum;
+import cn.lili.modules.order.order.entity.enums.ProfitSharingStatusEnum;
+import cn.lili.modules.order.order.service.OrderItemService;
+import cn.lili.modules.order.order.service.StoreFlowService;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分账结算耗时测试
+ * 生成不同规模的待分账流水，记录每日分账的处理耗时
+ **/
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class StoreFlowProfitSharingTest {
+
+    /**
+     * 测试数据订单编号前缀，便于清理
+     */
+    private static final String TEST_ORDER_PREFIX = "PSTEST";
+
+    @Autowired
+    private StoreFlowService storeFlowService;
+
+    @Autowired
+    private OrderItemService orderItemService;
+
+    @Test
+    void profitSharingTest() {
+        for (int orders : new int[]{1000, 10000, 50000}) {
+            try {
+                generate(orders, 3);
+                long start = System.currentTimeMillis();
+                storeFlowService.updateProfitSharingStatus();
+                long duration = System.currentTimeMillis() - start;
+                log.info("分账数据量：{} 订单 / {} 流水，耗时：{}ms", orders, orders * 3, duration);
+
+                long remain = storeFlowService.count(new LambdaQueryWrapper<StoreFlow>()
+                        .likeRight(StoreFlow::getOrderSn, TEST_ORDER_PREFIX)
+                        .eq(StoreFlow::getProfitSharingStatus, ProfitSharingStatusEnum.WAIT_COMPLETE.name()));
+                Assertions.assertEquals(0, remain);
+            } finally {
+                clean();
+            }
+        }
+    }
+
+    /**
+     * 生成测试数据：每个订单若干子订单，售后均已过期，流水为待分账状态
+     *
+     * @param orders       订单数量
+     * @param itemsPerOrder 每个订单的子订单数量
+     */
+    private void generate(int orders, int itemsPerOrder) {
+        List<OrderItem> orderItems = new ArrayList<>();
+        List<StoreFlow> storeFlows = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            String orderSn = TEST_ORDER_PREFIX + SnowFlake.getIdStr();
+            for (int j = 0; j < itemsPerOrder; j++) {
+                String orderItemSn = SnowFlake.createStr("OI");
+                OrderItem orderItem = new OrderItem();
+                orderItem.setOrderSn(orderSn);
+                orderItem.setSn(orderItemSn);
+                orderItem.setNum(1);
+                orderItem.setAfterSaleStatus(OrderItemAfterSaleStatusEnum.EXPIRED.name());
+                orderItems.add(orderItem);
+
+                StoreFlow storeFlow = new StoreFlow();
+                storeFlow.setSn(SnowFlake.createStr("SF"));
+                storeFlow.setOrderSn(orderSn);
+                storeFlow.setOrderItemSn(orderItemSn);
+                storeFlow.setFlowType(FlowTypeEnum.PAY.name());
+                storeFlow.setNum(1);
+                storeFlow.setFinalPrice(100D);
+                storeFlow.setBillPrice(95D);
+                storeFlow.setCommissionPrice(5D);
+                StoreFlowProfitSharingDTO profitSharingDTO = new StoreFlowProfitSharingDTO();
+                profitSharingDTO.setPrice(100D);
+                profitSharingDTO.setStorePrice(95D);
+                profitSharingDTO.setPlatformPrice(5D);
+                storeFlow.setProfitSharing(JSONUtil.toJsonStr(profitSharingDTO));
+                storeFlow.setProfitSharingStatus(ProfitSharingStatusEnum.WAIT_COMPLETE.name());
+                storeFlows.add(storeFlow);
+            }
+        }
+        orderItemService.saveBatch(orderItems, 1000);
+        storeFlowService.saveBatch(storeFlows, 1000);
+    }
+
+    /**
+     * 清理测试数据
+     */
+    private void clean() {
+        storeFlowService.remove(new LambdaQueryWrapper<StoreFlow>().likeRight(StoreFlow::getOrderSn, TEST_ORDER_PREFIX));
+        orderItemService.remove(new LambdaQueryWrapper<OrderItem>().likeRight(OrderItem::getOrderSn, TEST_ORDER_PREFIX));
+    }
+}
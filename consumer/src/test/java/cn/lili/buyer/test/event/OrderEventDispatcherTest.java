@@ -0,0 +1,353 @@
+package cn.lili.buyer.test.event;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.json.JSONUtil;
+import cn.lili.cache.Cache;
+import cn.lili.common.properties.OrderEventProperties;
+import cn.lili.event.OrderEventDispatcher;
+import cn.lili.event.OrderStatusChangeEvent;
+import cn.lili.event.TradeEvent;
+import cn.lili.listener.OrderMessageListener;
+import cn.lili.modules.order.cart.entity.dto.TradeDTO;
+import cn.lili.modules.order.order.entity.dos.OrderEventRecord;
+import cn.lili.modules.order.order.entity.dto.OrderMessage;
+import cn.lili.modules.order.order.entity.enums.OrderEventStatusEnum;
+import cn.lili.modules.order.order.service.OrderEventRecordService;
+import cn.lili.rocketmq.tags.OrderTagsEnum;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 订单事件分发测试
+ * 使用内存中的消息队列模拟消息失败后重新投递与重复投递，向事件处理注入失败，
+ * 校验各事件处理并行执行、成功的处理只执行一次、失败的处理重试后进入死信、死信重新执行后只成功一次
+ */
+class OrderEventDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final Map<String, OrderEventRecord> table = new ConcurrentHashMap<>();
+
+    private final Map<String, String> cacheStore = new ConcurrentHashMap<>();
+
+    private final AtomicLong ids = new AtomicLong();
+
+    /**
+     * 下次查询执行记录时抛出异常，模拟数据库不可用
+     */
+    private final AtomicBoolean recordDown = new AtomicBoolean();
+
+    private OrderEventDispatcher orderEventDispatcher;
+
+    private OrderMessageListener orderMessageListener;
+
+    private final StockHandler stockHandler = new StockHandler();
+
+    private final CouponHandler couponHandler = new CouponHandler();
+
+    private final PointHandler pointHandler = new PointHandler();
+
+    private final NoticeHandler noticeHandler = new NoticeHandler();
+
+    private final IndexHandler indexHandler = new IndexHandler();
+
+    private final ReceiptHandler receiptHandler = new ReceiptHandler();
+
+    @BeforeEach
+    void setup() {
+        OrderEventRecordService orderEventRecordService = mock(OrderEventRecordService.class);
+        when(orderEventRecordService.listByEventKey(anyString(), anyString())).thenAnswer(invocation -> {
+            if (recordDown.getAndSet(false)) {
+                throw new IllegalStateException("数据库不可用");
+            }
+            return table.values().stream()
+                    .filter(record -> record.getEventKey().equals(invocation.getArgument(0)) && record.getTag().equals(invocation.getArgument(1)))
+                    .map(OrderEventDispatcherTest::copy)
+                    .collect(Collectors.toList());
+        });
+        when(orderEventRecordService.getById(anyString())).thenAnswer(invocation -> {
+            OrderEventRecord record = table.get(invocation.<String>getArgument(0));
+            return record == null ? null : copy(record);
+        });
+        doAnswer(invocation -> {
+            OrderEventRecord record = copy(invocation.getArgument(0));
+            if (record.getId() == null) {
+                record.setId(String.valueOf(ids.incrementAndGet()));
+                invocation.<OrderEventRecord>getArgument(0).setId(record.getId());
+            }
+            table.put(record.getId(), record);
+            return null;
+        }).when(orderEventRecordService).saveResult(any(OrderEventRecord.class));
+
+        OrderEventProperties orderEventProperties = new OrderEventProperties();
+        orderEventProperties.setMaxAttempts(MAX_ATTEMPTS);
+        orderEventDispatcher = new OrderEventDispatcher();
+        ReflectionTestUtils.setField(orderEventDispatcher, "orderEventProperties", orderEventProperties);
+        ReflectionTestUtils.setField(orderEventDispatcher, "orderEventRecordService", orderEventRecordService);
+
+        Cache<Object> cache = mock(Cache.class);
+        when(cache.getString(any())).thenAnswer(invocation -> cacheStore.get(invocation.<String>getArgument(0)));
+        when(cache.remove(any())).thenAnswer(invocation -> cacheStore.remove(invocation.<String>getArgument(0)) != null);
+
+        orderMessageListener = new OrderMessageListener();
+        ReflectionTestUtils.setField(orderMessageListener, "tradeEvent", Arrays.asList(indexHandler, receiptHandler));
+        ReflectionTestUtils.setField(orderMessageListener, "orderStatusChangeEvents", Arrays.asList(stockHandler, couponHandler, pointHandler, noticeHandler));
+        ReflectionTestUtils.setField(orderMessageListener, "cache", cache);
+        ReflectionTestUtils.setField(orderMessageListener, "orderEventDispatcher", orderEventDispatcher);
+        ReflectionTestUtils.setField(orderMessageListener, "orderEventRecordService", orderEventRecordService);
+    }
+
+    @AfterEach
+    void destroy() {
+        orderEventDispatcher.destroy();
+    }
+
+    @Test
+    void testRetryAndDeadLetter() {
+        OrderMessage orderMessage = new OrderMessage();
+        orderMessage.setOrderSn("O1");
+        Broker broker = new Broker();
+        broker.send(message("M1", OrderTagsEnum.STATUS_CHANGE, JSONUtil.toJsonStr(orderMessage)));
+        broker.drain();
+
+        //第一次投递后优惠券、积分失败，第三次投递时优惠券成功，积分达到最多执行次数进入死信
+        Assertions.assertEquals(MAX_ATTEMPTS, broker.deliveries);
+        Assertions.assertEquals(1, stockHandler.succeeded.get());
+        Assertions.assertEquals(1, noticeHandler.succeeded.get());
+        Assertions.assertEquals(1, couponHandler.succeeded.get());
+        Assertions.assertEquals(MAX_ATTEMPTS, couponHandler.invoked.get());
+        Assertions.assertEquals(0, pointHandler.succeeded.get());
+        Assertions.assertEquals(MAX_ATTEMPTS, pointHandler.invoked.get());
+        OrderEventRecord dead = record("M1", "PointHandler");
+        Assertions.assertEquals(OrderEventStatusEnum.DEAD.name(), dead.getStatus());
+        Assertions.assertEquals(MAX_ATTEMPTS, dead.getAttempts());
+        Assertions.assertEquals("O1", JSONUtil.toBean(dead.getPayload(), OrderMessage.class).getOrderSn());
+        Assertions.assertEquals(OrderEventStatusEnum.SUCCESS.name(), record("M1", "StockHandler").getStatus());
+        Assertions.assertEquals(OrderEventStatusEnum.SUCCESS.name(), record("M1", "CouponHandler").getStatus());
+        Assertions.assertNull(record("M1", "CouponHandler").getPayload());
+
+        //消息重复投递，不再执行任何处理
+        broker.send(message("M1", OrderTagsEnum.STATUS_CHANGE, JSONUtil.toJsonStr(orderMessage)));
+        broker.drain();
+        Assertions.assertEquals(1, stockHandler.invoked.get());
+        Assertions.assertEquals(MAX_ATTEMPTS, couponHandler.invoked.get());
+        Assertions.assertEquals(MAX_ATTEMPTS, pointHandler.invoked.get());
+
+        //修复后重新执行死信，与管理端重放相同，先改为执行失败再发送重放消息，重放消息重复投递
+        pointHandler.fixed = true;
+        dead.setStatus(OrderEventStatusEnum.FAIL.name());
+        dead.setAttempts(0);
+        table.put(dead.getId(), dead);
+        broker.send(message("R1", OrderTagsEnum.EVENT_REPLAY, dead.getId()));
+        broker.send(message("R1", OrderTagsEnum.EVENT_REPLAY, dead.getId()));
+        broker.drain();
+        Assertions.assertEquals(1, pointHandler.succeeded.get());
+        Assertions.assertEquals(OrderEventStatusEnum.SUCCESS.name(), record("M1", "PointHandler").getStatus());
+        Assertions.assertEquals(1, stockHandler.invoked.get());
+        Assertions.assertEquals(1, noticeHandler.invoked.get());
+    }
+
+    @Test
+    void testRecordFailureRedelivers() {
+        OrderMessage orderMessage = new OrderMessage();
+        orderMessage.setOrderSn("O2");
+        recordDown.set(true);
+        Broker broker = new Broker();
+        broker.send(message("M3", OrderTagsEnum.STATUS_CHANGE, JSONUtil.toJsonStr(orderMessage)));
+        pointHandler.fixed = true;
+        couponHandler.invoked.set(2);
+        broker.drain();
+
+        //查询执行记录失败时不确认消息，重新投递后各处理执行一次
+        Assertions.assertEquals(2, broker.deliveries);
+        Assertions.assertEquals(1, stockHandler.invoked.get());
+        Assertions.assertEquals(1, pointHandler.succeeded.get());
+        Assertions.assertEquals(1, noticeHandler.succeeded.get());
+        Assertions.assertEquals(1, couponHandler.succeeded.get());
+    }
+
+    @Test
+    void testUnknownTagAcked() {
+        MessageExt messageExt = message("M4", OrderTagsEnum.STATUS_CHANGE, "{}");
+        messageExt.setTags("UNKNOWN");
+        Broker broker = new Broker();
+        broker.send(messageExt);
+        broker.drain();
+        Assertions.assertEquals(1, broker.deliveries);
+    }
+
+    @Test
+    void testParallelHandlers() {
+        cacheStore.put("{TRADE}_T1", "{\"sn\":\"T1\"}");
+        Broker broker = new Broker();
+        broker.send(message("M2", OrderTagsEnum.ORDER_CREATE, "{TRADE}_T1"));
+        long start = System.currentTimeMillis();
+        broker.drain();
+        long elapsed = System.currentTimeMillis() - start;
+
+        //两个处理各耗时 300 毫秒，并行执行
+        Assertions.assertTrue(elapsed < 550, "elapsed " + elapsed);
+        Assertions.assertEquals(1, indexHandler.succeeded.get());
+        Assertions.assertEquals(1, receiptHandler.succeeded.get());
+        Assertions.assertNotEquals(indexHandler.threads.get(0), receiptHandler.threads.get(0));
+        //每个处理各自解析交易，互不影响
+        Assertions.assertEquals("T1", indexHandler.trades.get(0).getSn());
+        Assertions.assertNotSame(indexHandler.trades.get(0), receiptHandler.trades.get(0));
+        //全部处理完成后清除交易缓存，再次投递直接跳过
+        Assertions.assertFalse(cacheStore.containsKey("{TRADE}_T1"));
+        broker.send(message("M2", OrderTagsEnum.ORDER_CREATE, "{TRADE}_T1"));
+        broker.drain();
+        Assertions.assertEquals(1, indexHandler.invoked.get());
+    }
+
+    private OrderEventRecord record(String eventKey, String handler) {
+        return table.values().stream().filter(record -> record.getEventKey().equals(eventKey) && record.getHandler().equals(handler))
+                .findFirst().map(OrderEventDispatcherTest::copy).orElse(null);
+    }
+
+    private static OrderEventRecord copy(OrderEventRecord record) {
+        OrderEventRecord result = new OrderEventRecord();
+        BeanUtil.copyProperties(record, result);
+        return result;
+    }
+
+    private static MessageExt message(String msgId, OrderTagsEnum tag, String body) {
+        MessageExt messageExt = new MessageExt();
+        messageExt.setMsgId(msgId);
+        messageExt.setTags(tag.name());
+        messageExt.setBody(body.getBytes(StandardCharsets.UTF_8));
+        return messageExt;
+    }
+
+    /**
+     * 内存消息队列，消费抛出异常时重新投递同一条消息
+     */
+    private class Broker {
+
+        private final Deque<MessageExt> queue = new ArrayDeque<>();
+
+        private int deliveries;
+
+        void send(MessageExt messageExt) {
+            queue.add(messageExt);
+        }
+
+        void drain() {
+            deliveries = 0;
+            while (!queue.isEmpty()) {
+                MessageExt messageExt = queue.poll();
+                deliveries++;
+                try {
+                    orderMessageListener.onMessage(messageExt);
+                } catch (RuntimeException e) {
+                    messageExt.setReconsumeTimes(messageExt.getReconsumeTimes() + 1);
+                    queue.add(messageExt);
+                }
+                if (deliveries > 20) {
+                    Assertions.fail("消息重复投递次数过多");
+                }
+            }
+        }
+    }
+
+    private abstract static class CountingHandler {
+
+        final AtomicInteger invoked = new AtomicInteger();
+
+        final AtomicInteger succeeded = new AtomicInteger();
+
+        final List<String> threads = new CopyOnWriteArrayList<>();
+
+        void handle(long sleep, boolean fail) {
+            invoked.incrementAndGet();
+            threads.add(Thread.currentThread().getName());
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (fail) {
+                throw new IllegalStateException(getClass().getSimpleName() + " 执行失败");
+            }
+            succeeded.incrementAndGet();
+        }
+    }
+
+    private static class StockHandler extends CountingHandler implements OrderStatusChangeEvent {
+        @Override
+        public void orderChange(OrderMessage orderMessage) {
+            handle(50, false);
+        }
+    }
+
+    /**
+     * 前两次执行失败
+     */
+    private static class CouponHandler extends CountingHandler implements OrderStatusChangeEvent {
+        @Override
+        public void orderChange(OrderMessage orderMessage) {
+            handle(0, invoked.get() < 2);
+        }
+    }
+
+    /**
+     * 修复前一直失败
+     */
+    private static class PointHandler extends CountingHandler implements OrderStatusChangeEvent {
+
+        volatile boolean fixed;
+
+        @Override
+        public void orderChange(OrderMessage orderMessage) {
+            handle(0, !fixed);
+        }
+    }
+
+    private static class NoticeHandler extends CountingHandler implements OrderStatusChangeEvent {
+        @Override
+        public void orderChange(OrderMessage orderMessage) {
+            handle(50, false);
+        }
+    }
+
+    private static class IndexHandler extends CountingHandler implements TradeEvent {
+
+        final List<TradeDTO> trades = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void orderCreate(TradeDTO tradeDTO) {
+            trades.add(tradeDTO);
+            handle(300, false);
+        }
+    }
+
+    private static class ReceiptHandler extends CountingHandler implements TradeEvent {
+
+        final List<TradeDTO> trades = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void orderCreate(TradeDTO tradeDTO) {
+            trades.add(tradeDTO);
+            handle(300, false);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package cn.lili.buyer.test.timetask;
+
+import cn.lili.modules.order.order.entity.dos.Order;
+import cn.lili.modules.order.order.service.OrderService;
+import cn.lili.modules.system.entity.dto.OrderSetting;
+import cn.lili.timetask.config.TimedTaskProperties;
+import cn.lili.timetask.handler.impl.order.OrderEveryDayTaskExecute;
+import cn.lili.timetask.support.BatchTaskExecutor;
+import cn.lili.timetask.support.TimedTaskCheckpoint;
+import cn.lili.timetask.support.TimedTaskContext;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 订单每日任务断点测试
+ * 每轮并行批次全部成功才记录断点，有批次失败时断点停留在最后一次全部成功的位置，且不标记完成
+ */
+class OrderEveryDayCheckpointTest {
+
+    private static final long BASE_TIME = 1710000000000L;
+
+    private OrderEveryDayTaskExecute task;
+
+    private OrderService orderService;
+
+    private TimedTaskCheckpoint timedTaskCheckpoint;
+
+    private BatchTaskExecutor batchTaskExecutor;
+
+    private final TimedTaskContext context = TimedTaskContext.single();
+
+    @BeforeEach
+    void setUp() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Order.class);
+        TimedTaskProperties timedTaskProperties = new TimedTaskProperties();
+        timedTaskProperties.setBatchSize(2);
+        timedTaskProperties.setBatchParallelism(2);
+        batchTaskExecutor = new BatchTaskExecutor(timedTaskProperties);
+        orderService = Mockito.mock(OrderService.class);
+        timedTaskCheckpoint = Mockito.mock(TimedTaskCheckpoint.class);
+
+        task = new OrderEveryDayTaskExecute();
+        ReflectionTestUtils.setField(task, "orderService", orderService);
+        ReflectionTestUtils.setField(task, "timedTaskCheckpoint", timedTaskCheckpoint);
+        ReflectionTestUtils.setField(task, "timedTaskProperties", timedTaskProperties);
+        ReflectionTestUtils.setField(task, "batchTaskExecutor", batchTaskExecutor);
+        //共 9 个订单，每批 2 个，每轮 2 批
+        Mockito.when(orderService.list(Mockito.any())).thenReturn(page(1, 2), page(3, 4), page(5, 6), page(7, 8), page(9), Collections.emptyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchTaskExecutor.destroy();
+    }
+
+    @Test
+    void testAllBatchesSucceed() {
+        Mockito.when(orderService.batchSystemComplete(Mockito.anyList())).thenAnswer(i -> i.getArgument(0));
+        this.completedOrder();
+        Mockito.verify(timedTaskCheckpoint).save("ORDER_COMPLETE", context, cursor(4));
+        Mockito.verify(timedTaskCheckpoint).save("ORDER_COMPLETE", context, cursor(8));
+        Mockito.verify(timedTaskCheckpoint).finish("ORDER_COMPLETE", context);
+        Mockito.verify(orderService, Mockito.times(5)).batchSystemComplete(Mockito.anyList());
+    }
+
+    @Test
+    void testFailedBatchKeepsLastGoodCursor() {
+        //第二轮的第一批失败
+        Mockito.when(orderService.batchSystemComplete(Mockito.anyList())).thenAnswer(i -> {
+            List<String> sns = i.getArgument(0);
+            if (sns.contains("S5")) {
+                throw new IllegalStateException("complete failed");
+            }
+            return sns;
+        });
+        this.completedOrder();
+        //失败后其余批次仍然执行，断点停留在第一轮之后
+        Mockito.verify(orderService, Mockito.times(5)).batchSystemComplete(Mockito.anyList());
+        Mockito.verify(timedTaskCheckpoint).save("ORDER_COMPLETE", context, cursor(4));
+        Mockito.verify(timedTaskCheckpoint, Mockito.never()).save("ORDER_COMPLETE", context, cursor(8));
+        Mockito.verify(timedTaskCheckpoint, Mockito.never()).finish(Mockito.anyString(), Mockito.any());
+    }
+
+    @Test
+    void testFailedFirstRoundSavesNothing() {
+        Mockito.when(orderService.batchSystemComplete(Mockito.anyList())).thenThrow(new IllegalStateException("complete failed"));
+        this.completedOrder();
+        Mockito.verify(timedTaskCheckpoint, Mockito.never()).save(Mockito.anyString(), Mockito.any(), Mockito.anyString());
+        Mockito.verify(timedTaskCheckpoint, Mockito.never()).finish(Mockito.anyString(), Mockito.any());
+    }
+
+    private void completedOrder() {
+        OrderSetting orderSetting = new OrderSetting();
+        orderSetting.setAutoReceive(7);
+        ReflectionTestUtils.invokeMethod(task, "completedOrder", orderSetting, context);
+    }
+
+    private static List<Order> page(int... numbers) {
+        List<Order> orders = new ArrayList<>();
+        for (int number : numbers) {
+            Order order = new Order();
+            order.setId(String.valueOf(number));
+            order.setSn("S" + number);
+            order.setLogisticsTime(new Date(BASE_TIME + number));
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private static String cursor(int number) {
+        return (BASE_TIME + number) + "," + number;
+    }
+}
@@ -0,0 +1,232 @@
+package cn.lili.buyer.test.timetask;
+
+import cn.lili.timetask.config.TimedTaskProperties;
+import cn.lili.timetask.handler.EveryMinuteExecute;
+import cn.lili.timetask.support.TimedTaskContext;
+import cn.lili.timetask.support.TimedTaskMetrics;
+import cn.lili.timetask.support.TimedTaskMetrics.TaskStatus;
+import cn.lili.timetask.support.TimedTaskRunner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 定时任务并行执行器测试
+ * 同批任务并行执行，慢任务超时后被中断且不影响其他任务；上次未结束的任务本次跳过；分片参数传递给任务，
+ * 不感知分片的任务只在首个分片执行
+ */
+class TimedTaskRunnerTest {
+
+    private TimedTaskRunner runner;
+
+    private TimedTaskMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        TimedTaskProperties timedTaskProperties = new TimedTaskProperties();
+        timedTaskProperties.setMinutePoolSize(4);
+        timedTaskProperties.setMinuteTimeout(5L);
+        timedTaskProperties.getTimeouts().put(SlowTask.class.getSimpleName(), 1L);
+        metrics = new TimedTaskMetrics();
+        runner = new TimedTaskRunner(timedTaskProperties);
+        ReflectionTestUtils.setField(runner, "timedTaskMetrics", metrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        runner.destroy();
+    }
+
+    @Test
+    void testRunInParallel() {
+        //两个任务互相等待，串行执行时都会超时
+        CountDownLatch latch = new CountDownLatch(2);
+        LatchTask first = new LatchTask(latch);
+        OtherLatchTask second = new OtherLatchTask(latch);
+        runner.runMinute(Arrays.asList(first, second), TimedTaskContext.single());
+        Assertions.assertEquals(TaskStatus.SUCCESS, metrics.get(LatchTask.class.getSimpleName()).getLastStatus());
+        Assertions.assertEquals(TaskStatus.SUCCESS, metrics.get(OtherLatchTask.class.getSimpleName()).getLastStatus());
+    }
+
+    @Test
+    void testTimeoutDoesNotBlockOthers() throws Exception {
+        SlowTask slow = new SlowTask(true);
+        FastTask fast = new FastTask();
+        FailingTask failing = new FailingTask();
+        long start = System.currentTimeMillis();
+        runner.runMinute(Arrays.asList(slow, fast, failing), TimedTaskContext.single());
+        long elapsed = System.currentTimeMillis() - start;
+
+        //只等待慢任务自己的超时时间，而不是默认超时
+        Assertions.assertTrue(elapsed >= 900 && elapsed < 4000, "elapsed " + elapsed);
+        Assertions.assertEquals(TaskStatus.TIMEOUT, metrics.get(SlowTask.class.getSimpleName()).getLastStatus());
+        Assertions.assertEquals(TaskStatus.SUCCESS, metrics.get(FastTask.class.getSimpleName()).getLastStatus());
+        Assertions.assertEquals(5L, metrics.get(FastTask.class.getSimpleName()).getLastRows());
+        Assertions.assertEquals(TaskStatus.FAILED, metrics.get(FailingTask.class.getSimpleName()).getLastStatus());
+        Assertions.assertEquals(1L, metrics.get(FailingTask.class.getSimpleName()).getFailures());
+        //超时的任务被中断
+        Assertions.assertTrue(slow.interrupted.await(2, TimeUnit.SECONDS));
+
+        //中断后执行标记释放，下次可以再执行
+        runner.runMinute(Collections.singletonList(fast), TimedTaskContext.single());
+        Assertions.assertEquals(2L, metrics.get(FastTask.class.getSimpleName()).getExecutions());
+    }
+
+    @Test
+    void testSkipWhenPreviousRunning() throws Exception {
+        //不响应中断的任务超时后仍在执行
+        SlowTask slow = new SlowTask(false);
+        runner.runMinute(Collections.singletonList(slow), TimedTaskContext.single());
+        Assertions.assertEquals(TaskStatus.TIMEOUT, metrics.get(SlowTask.class.getSimpleName()).getLastStatus());
+
+        runner.runMinute(Collections.singletonList(slow), TimedTaskContext.single());
+        Assertions.assertEquals(TaskStatus.SKIPPED, metrics.get(SlowTask.class.getSimpleName()).getLastStatus());
+        Assertions.assertEquals(1, slow.executions.get());
+
+        //上次执行结束后恢复执行
+        slow.release.set(true);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (slow.executions.get() < 2 && System.currentTimeMillis() < deadline) {
+            runner.runMinute(Collections.singletonList(slow), TimedTaskContext.single());
+            Thread.sleep(50);
+        }
+        Assertions.assertEquals(2, slow.executions.get());
+    }
+
+    @Test
+    void testShardContext() {
+        ShardTask shardTask = new ShardTask();
+        FastTask fast = new FastTask();
+        runner.runMinute(Arrays.asList(shardTask, fast), new TimedTaskContext(1, 3));
+        Assertions.assertEquals("1/3", shardTask.shard);
+        //不感知分片的任务只在首个分片执行，其余分片记为跳过，不计入执行次数
+        Assertions.assertEquals(TaskStatus.SKIPPED, metrics.get(FastTask.class.getSimpleName()).getLastStatus());
+        Assertions.assertEquals(0L, metrics.get(FastTask.class.getSimpleName()).getExecutions());
+        Assertions.assertEquals(1L, metrics.get(FastTask.class.getSimpleName()).getSkips());
+        Assertions.assertEquals(0, fast.executions.get());
+
+        runner.runMinute(Arrays.asList(shardTask, fast), new TimedTaskContext(0, 3));
+        Assertions.assertEquals("0/3", shardTask.shard);
+        Assertions.assertEquals(1, fast.executions.get());
+        Assertions.assertEquals(TaskStatus.SUCCESS, metrics.get(FastTask.class.getSimpleName()).getLastStatus());
+        Assertions.assertEquals(1L, metrics.get(FastTask.class.getSimpleName()).getExecutions());
+
+        //分片按 id 取模，互不重叠
+        TimedTaskContext[] shards = {new TimedTaskContext(0, 3), new TimedTaskContext(1, 3), new TimedTaskContext(2, 3)};
+        for (long id = 1000; id < 1100; id++) {
+            int owners = 0;
+            for (TimedTaskContext shard : shards) {
+                owners += shard.owns(String.valueOf(id)) ? 1 : 0;
+            }
+            Assertions.assertEquals(1, owners, "id " + id);
+        }
+    }
+
+    static class LatchTask implements EveryMinuteExecute {
+
+        private final CountDownLatch latch;
+
+        LatchTask(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void execute() {
+            latch.countDown();
+            try {
+                if (!latch.await(3, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("not parallel");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static class OtherLatchTask extends LatchTask {
+
+        OtherLatchTask(CountDownLatch latch) {
+            super(latch);
+        }
+    }
+
+    static class SlowTask implements EveryMinuteExecute {
+
+        private final boolean interruptible;
+
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        private final AtomicBoolean release = new AtomicBoolean(false);
+
+        private final AtomicInteger executions = new AtomicInteger();
+
+        SlowTask(boolean interruptible) {
+            this.interruptible = interruptible;
+        }
+
+        @Override
+        public void execute() {
+            executions.incrementAndGet();
+            while (!release.get()) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    if (interruptible) {
+                        interrupted.countDown();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    static class FastTask implements EveryMinuteExecute {
+
+        private final AtomicInteger executions = new AtomicInteger();
+
+        @Override
+        public void execute() {
+            executions.incrementAndGet();
+        }
+
+        @Override
+        public void execute(TimedTaskContext context) {
+            EveryMinuteExecute.super.execute(context);
+            if (context.isFirstShard()) {
+                context.addProcessed(5);
+            }
+        }
+    }
+
+    static class FailingTask implements EveryMinuteExecute {
+
+        @Override
+        public void execute() {
+            throw new IllegalStateException("failed");
+        }
+    }
+
+    static class ShardTask implements EveryMinuteExecute {
+
+        private volatile String shard;
+
+        @Override
+        public void execute() {
+            throw new IllegalStateException("sharded task runs execute(context)");
+        }
+
+        @Override
+        public void execute(TimedTaskContext context) {
+            shard = context.getShardIndex() + "/" + context.getShardTotal();
+        }
+    }
+}
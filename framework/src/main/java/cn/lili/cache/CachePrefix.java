@@ -354,6 +354,11 @@ public enum CachePrefix {
      */
     HOT_WORD,
 
+    /**
+     * 热门搜索衰减基准时间
+     */
+    HOT_WORD_LANDMARK,
+
     /**
      * 会员积分
      */
@@ -513,6 +518,106 @@ public enum CachePrefix {
      */
     SENSITIVE,
 
+    /**
+     * 定时任务执行进度
+     */
+    TIMED_TASK_CHECKPOINT,
+
+    /**
+     * 在线会员分钟桶
+     */
+    ONLINE_MEMBER_BUCKET,
+
+    /**
+     * 已发布页面数据快照
+     */
+    PAGE_DATA,
+
+    /**
+     * 页面数据版本，页面变更时递增
+     */
+    PAGE_DATA_VERSION,
+
+    /**
+     * 商品索引版本
+     */
+    GOODS_INDEX_VERSION,
+
+    /**
+     * 商品搜索结果
+     */
+    GOODS_SEARCH,
+
+    /**
+     * 订单索引构建完成标记
+     */
+    ORDER_INDEX_READY,
+
+    /**
+     * 异步导出任务
+     */
+    EXPORT_JOB,
+
+    /**
+     * 异步导出文件，按删除时间排序
+     */
+    EXPORT_FILE,
+
+    /**
+     * 订单每日统计汇总锁，按统计日加锁
+     */
+    ORDER_STATISTICS_LOCK,
+
+    /**
+     * 订单统计未汇总部分的短时缓存
+     */
+    ORDER_STATISTICS_TODAY,
+
+    /**
+     * 首页会员、商品、店铺等当前数量的短时缓存
+     */
+    INDEX_STATISTICS,
+
+    /**
+     * 雪花机器ID租约
+     */
+    SNOWFLAKE_WORKER_LEASE,
+
+    /**
+     * 优惠券活动发券锁
+     */
+    COUPON_DISTRIBUTION_LOCK,
+
+    /**
+     * 拼团团队成员
+     */
+    PINTUAN_GROUP,
+
+    /**
+     * 砍价活动实时状态
+     */
+    KANJIA_ACTIVITY,
+
+    /**
+     * 砍价记录待入库队列
+     */
+    KANJIA_HELP_LOG,
+
+    /**
+     * 砍价记录入库锁
+     */
+    KANJIA_HELP_LOG_LOCK,
+
+    /**
+     * 短信任务发送锁
+     */
+    SMS_REACH_LOCK,
+
+    /**
+     * 行政地区索引版本
+     */
+    REGION_INDEX_VERSION,
+
     /**
      * 扫码登录
      *
@@ -0,0 +1,147 @@
+package cn.lili.cache.config.redis;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.SerializerFactory;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CollectionSerializer;
+import com.esotericsoftware.kryo.serializers.CompatibleFieldSerializer;
+import com.esotericsoftware.kryo.serializers.MapSerializer;
+import com.esotericsoftware.kryo.util.DefaultClassResolver;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Kryo 编码
+ * <p>
+ * 对象按字段名写入并分块，类新增或删除字段后仍可读取旧数据（新增字段为默认值，删除的字段被跳过），
+ * 字段类型变化不兼容。类不需要注册，没有无参构造方法的类直接创建实例。
+ * 只允许 {@link #ALLOWED_PACKAGES} 下的类，读取到其他类名时直接拒绝，避免篡改后的缓存数据实例化任意类；
+ * 写入其他类时编码失败，由 {@link VersionedRedisSerializer} 改为 JSON 写入。
+ * JDK 内部的集合实现（Arrays.asList、Collections.unmodifiableList 等）读取为 ArrayList、LinkedHashSet、LinkedHashMap。
+ * Kryo 实例非线程安全，使用对象池复用。
+ */
+public class KryoRedisValueCodec implements RedisValueCodec {
+
+    public static final int ID = 1;
+
+    private static final int BUFFER_SIZE = 512;
+
+    /**
+     * 允许编码的类所在的包
+     */
+    private static final String[] ALLOWED_PACKAGES = {"cn.lili.", "java.util.", "java.lang.", "java.math.", "java.time."};
+
+    private final Pool<Kryo> pool = new Pool<Kryo>(true, false, 64) {
+        @Override
+        protected Kryo create() {
+            Kryo kryo = new Kryo(new AllowListClassResolver(), null);
+            kryo.setRegistrationRequired(false);
+            kryo.setReferences(true);
+            kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+            CompatibleFieldSerializer.CompatibleFieldSerializerConfig config = new CompatibleFieldSerializer.CompatibleFieldSerializerConfig();
+            config.setChunkedEncoding(true);
+            kryo.setDefaultSerializer(new SerializerFactory.CompatibleFieldSerializerFactory(config));
+            kryo.addDefaultSerializer(Collection.class, JdkCollectionSerializer.class);
+            kryo.addDefaultSerializer(Map.class, JdkMapSerializer.class);
+            return kryo;
+        }
+    };
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        Kryo kryo = pool.obtain();
+        try (Output output = new Output(BUFFER_SIZE, -1)) {
+            kryo.writeClassAndObject(output, value);
+            return output.toBytes();
+        } finally {
+            pool.free(kryo);
+        }
+    }
+
+    @Override
+    public Object decode(byte[] bytes, int offset, int length) {
+        Kryo kryo = pool.obtain();
+        try (Input input = new Input(bytes, offset, length)) {
+            return kryo.readClassAndObject(input);
+        } finally {
+            pool.free(kryo);
+        }
+    }
+
+    /**
+     * 是否为允许编码的类，数组按元素类型判断
+     */
+    static boolean isAllowed(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        String name = type.getName();
+        for (String allowed : ALLOWED_PACKAGES) {
+            if (name.startsWith(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否为 JDK 内部的集合实现，这类集合不能通过无参构造方法创建或不支持写入
+     */
+    private static boolean isJdkInternal(Class<?> type) {
+        return type.getName().startsWith("java.") && !Modifier.isPublic(type.getModifiers());
+    }
+
+    /**
+     * 未注册的类在首次读写时隐式注册，此时校验类名
+     */
+    @SuppressWarnings("rawtypes")
+    public static class AllowListClassResolver extends DefaultClassResolver {
+
+        @Override
+        public Registration registerImplicit(Class type) {
+            if (!isAllowed(type)) {
+                throw new KryoException("Class is not allowed in cache: " + type.getName());
+            }
+            return super.registerImplicit(type);
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static class JdkCollectionSerializer extends CollectionSerializer<Collection> {
+
+        @Override
+        protected Collection create(Kryo kryo, Input input, Class<? extends Collection> type, int size) {
+            if (isJdkInternal(type)) {
+                return Set.class.isAssignableFrom(type) ? new LinkedHashSet<>(Math.max(16, size * 2)) : new ArrayList<>(size);
+            }
+            return super.create(kryo, input, type, size);
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static class JdkMapSerializer extends MapSerializer<Map> {
+
+        @Override
+        protected Map create(Kryo kryo, Input input, Class<? extends Map> type, int size) {
+            if (isJdkInternal(type)) {
+                return new LinkedHashMap<>(Math.max(16, size * 2));
+            }
+            return super.create(kryo, input, type, size);
+        }
+    }
+}
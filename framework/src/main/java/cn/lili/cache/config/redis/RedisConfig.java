@@ -1,6 +1,7 @@
 package cn.lili.cache.config.redis;
 
 import cn.hutool.core.text.CharSequenceUtil;
+import cn.lili.common.properties.CacheSerializerProperties;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.parser.ParserConfig;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +12,7 @@ import org.redisson.config.ClusterServersConfig;
 import org.redisson.config.Config;
 import org.redisson.config.SentinelServersConfig;
 import org.redisson.config.SingleServerConfig;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -32,6 +34,7 @@ import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactor
 import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -60,6 +63,9 @@ public class RedisConfig extends CachingConfigurerSupport {
     @Value("${lili.cache.timeout:7200}")
     private Integer timeout;
 
+    @Autowired
+    private CacheSerializerProperties cacheSerializerProperties;
+
     /**
      * 当有多个管理器的时候，必须使用该注解在一个管理器上注释：表示该管理器为默认的管理器
      *
@@ -72,8 +78,7 @@ public class RedisConfig extends CachingConfigurerSupport {
         //初始化一个RedisCacheWriter
         RedisCacheWriter redisCacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory);
         //序列化方式2
-        FastJsonRedisSerializer<Object> fastJsonRedisSerializer = new FastJsonRedisSerializer<>(Object.class);
-        RedisSerializationContext.SerializationPair<Object> pair = RedisSerializationContext.SerializationPair.fromSerializer(fastJsonRedisSerializer);
+        RedisSerializationContext.SerializationPair<Object> pair = RedisSerializationContext.SerializationPair.fromSerializer(this.valueSerializer());
         RedisCacheConfiguration defaultCacheConfig = RedisCacheConfiguration.defaultCacheConfig().serializeValuesWith(pair);
         //设置过期时间
         defaultCacheConfig = defaultCacheConfig.entryTtl(Duration.ofSeconds(timeout));
@@ -97,11 +102,10 @@ public class RedisConfig extends CachingConfigurerSupport {
     @ConditionalOnMissingBean(name = "redisTemplate")
     public RedisTemplate<Object, Object> redisTemplate(LettuceConnectionFactory lettuceConnectionFactory) {
         RedisTemplate<Object, Object> template = new RedisTemplate<>();
-        //使用fastjson序列化
-        FastJsonRedisSerializer<Object> fastJsonRedisSerializer = new FastJsonRedisSerializer<>(Object.class);
-        //value值的序列化采用fastJsonRedisSerializer
-        template.setValueSerializer(fastJsonRedisSerializer);
-        template.setHashValueSerializer(fastJsonRedisSerializer);
+        //value值的序列化按配置选择编码，JSON 与二进制数据均可读取
+        RedisSerializer<Object> valueSerializer = this.valueSerializer();
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
         //key的序列化采用StringRedisSerializer
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
@@ -109,6 +113,24 @@ public class RedisConfig extends CachingConfigurerSupport {
         return template;
     }
 
+    /**
+     * 缓存值序列化
+     * 写入按配置使用 JSON 或 Kryo，读取时两种编码均支持，便于滚动发布时切换
+     *
+     * @return 序列化
+     */
+    private RedisSerializer<Object> valueSerializer() {
+        int compressThreshold = cacheSerializerProperties.getCompressThreshold();
+        KryoRedisValueCodec kryo = new KryoRedisValueCodec();
+        switch (cacheSerializerProperties.getType()) {
+            case "KRYO":
+                return new VersionedRedisSerializer(kryo, compressThreshold);
+            case "JSON":
+            default:
+                return new VersionedRedisSerializer(null, compressThreshold, kryo);
+        }
+    }
+
     @Bean(destroyMethod = "shutdown")
     public RedissonClient redisson(RedisProperties redisProperties) {
         Config config = new Config();
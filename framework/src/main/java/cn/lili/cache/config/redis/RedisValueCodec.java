@@ -0,0 +1,35 @@
+package cn.lili.cache.config.redis;
+
+/**
+ * 缓存值二进制编码
+ * <p>
+ * 每种编码对应一个编号，写入时作为头字节保存在数据前，读取时按编号选择编码。
+ * 编码格式不兼容的调整应使用新的编号，旧编号保留用于读取存量数据。
+ */
+public interface RedisValueCodec {
+
+    /**
+     * 编码编号，1 到 {@link VersionedRedisSerializer#MAX_CODEC_ID}
+     *
+     * @return 编号
+     */
+    int id();
+
+    /**
+     * 编码
+     *
+     * @param value 值，不为空
+     * @return 数据
+     */
+    byte[] encode(Object value);
+
+    /**
+     * 解码
+     *
+     * @param bytes  数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @return 值
+     */
+    Object decode(byte[] bytes, int offset, int length);
+}
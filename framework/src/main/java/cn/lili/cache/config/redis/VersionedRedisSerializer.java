@@ -0,0 +1,152 @@
+package cn.lili.cache.config.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+
+/**
+ * 带版本头的缓存序列化
+ * <p>
+ * 二进制数据格式：1 字节头 + 数据。头的低 2 位为编码编号，第 3 位表示数据经过 LZ4 压缩，
+ * 压缩时头之后为 4 字节的原始长度。头字节取值为 1 到 7，JSON 文本的首字符均为可见字符，
+ * 因此读取时头字节超出该范围的数据按 JSON 解析，历史 JSON 数据在切换编码后仍可读取。
+ * <p>
+ * 字符串、数字、布尔值始终按 JSON 写入，与原有格式一致，
+ * 保证 INCR、Lua 脚本中的 tonumber 以及按值比较的脚本不受编码影响。
+ */
+@Slf4j
+public class VersionedRedisSerializer implements RedisSerializer<Object> {
+
+    public static final int MAX_CODEC_ID = 3;
+
+    private static final int COMPRESSED = 0x04;
+
+    private static final int LENGTH_BYTES = 4;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final FastJsonRedisSerializer<Object> json = new FastJsonRedisSerializer<>(Object.class);
+
+    /**
+     * 可读取的编码，下标为编号
+     */
+    private final RedisValueCodec[] codecs = new RedisValueCodec[MAX_CODEC_ID + 1];
+
+    /**
+     * 写入使用的编码，为空时写入 JSON
+     */
+    private final RedisValueCodec writeCodec;
+
+    private final int compressThreshold;
+
+    /**
+     * @param writeCodec        写入使用的编码，为空时写入 JSON
+     * @param compressThreshold 编码后超过该大小时压缩，单位字节
+     * @param readCodecs        可读取的编码
+     */
+    public VersionedRedisSerializer(RedisValueCodec writeCodec, int compressThreshold, RedisValueCodec... readCodecs) {
+        for (RedisValueCodec codec : readCodecs) {
+            this.register(codec);
+        }
+        if (writeCodec != null) {
+            this.register(writeCodec);
+        }
+        this.writeCodec = writeCodec;
+        this.compressThreshold = compressThreshold;
+    }
+
+    private void register(RedisValueCodec codec) {
+        if (codec.id() < 1 || codec.id() > MAX_CODEC_ID) {
+            throw new IllegalArgumentException("codec id must be between 1 and " + MAX_CODEC_ID);
+        }
+        codecs[codec.id()] = codec;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null || writeCodec == null || isPlain(value)) {
+            return json.serialize(value);
+        }
+        byte[] body;
+        try {
+            body = writeCodec.encode(value);
+        } catch (RuntimeException e) {
+            log.warn("缓存二进制编码失败，使用 JSON 写入：{}", value.getClass().getName(), e);
+            return json.serialize(value);
+        }
+        if (body.length > compressThreshold) {
+            byte[] compressed = compress(body);
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        byte[] bytes = new byte[body.length + 1];
+        bytes[0] = (byte) writeCodec.id();
+        System.arraycopy(body, 0, bytes, 1, body.length);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        int header = bytes[0];
+        if (header < 1 || header > (MAX_CODEC_ID | COMPRESSED)) {
+            return json.deserialize(bytes);
+        }
+        RedisValueCodec codec = codecs[header & MAX_CODEC_ID];
+        if (codec == null) {
+            throw new SerializationException("Unknown cache codec header: " + header);
+        }
+        try {
+            if ((header & COMPRESSED) == 0) {
+                return codec.decode(bytes, 1, bytes.length - 1);
+            }
+            int length = readInt(bytes, 1);
+            byte[] body = new byte[length];
+            LZ4.fastDecompressor().decompress(bytes, 1 + LENGTH_BYTES, body, 0, length);
+            return codec.decode(body, 0, length);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not decode cache value", e);
+        }
+    }
+
+    /**
+     * 压缩，压缩后没有变小时返回空
+     */
+    private byte[] compress(byte[] body) {
+        LZ4Compressor compressor = LZ4.fastCompressor();
+        int offset = 1 + LENGTH_BYTES;
+        byte[] bytes = new byte[offset + compressor.maxCompressedLength(body.length)];
+        int length = compressor.compress(body, 0, body.length, bytes, offset, bytes.length - offset);
+        if (offset + length >= body.length + 1) {
+            return null;
+        }
+        bytes[0] = (byte) (writeCodec.id() | COMPRESSED);
+        writeInt(bytes, 1, body.length);
+        return Arrays.copyOf(bytes, offset + length);
+    }
+
+    private static boolean isPlain(Object value) {
+        return value instanceof CharSequence || value instanceof Number || value instanceof Boolean || value instanceof Character;
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+}
@@ -43,6 +43,8 @@ public enum ResultCode {
     STORE_NOT_SUPPORTED_IM(1007, "店铺未开启IM"),
     UNINITIALIZED_PASSWORD(1008, "非初始化密码，无法进行初始化设置"),
     FILE_DIRECTORY_NOT_EMPTY(1012, "文件夹下有文件，请删除所有文件后删除文件夹！"),
+    EXPORT_JOB_NOT_EXIST(1013, "导出任务不存在或已过期"),
+    EXPORT_JOB_BUSY(1014, "导出任务较多，请稍后再试"),
     /**
      * 分类
      */
@@ -210,6 +212,7 @@ public enum ResultCode {
     ORDER_LABEL_ORDER_ERROR(31016, "订单不能打印电子面单"),
     ORDER_PRICE_ERROR(31017,"订单金额不能小于等于0"),
     ORDER_PACKAGE_NOT_EXIST(31017, "当前订单包裹不存在！"),
+    ORDER_EVENT_REPLAY_ERROR(31042, "订单事件不存在或未进入死信，无法重新执行"),
 
 
     /**
@@ -387,6 +390,7 @@ public enum ResultCode {
     COUPON_ACTIVITY_ITEM_MUST_NUM_ERROR(46004, "优惠券活动最多指定10个优惠券"),
     COUPON_ACTIVITY_ITEM_NUM_ERROR(46005, "赠券数量必须大于0"),
     COUPON_ACTIVITY_ITEM_NUM_MAX_VALUE_2(46006, "赠券数量最大为2"),
+    COUPON_ACTIVITY_DISTRIBUTE_ERROR(46007, "优惠券活动发券未完成，稍后将继续发放"),
 
     /**
      * 其他促销
@@ -464,6 +468,8 @@ public enum ResultCode {
     ORDER_SETTING_ERROR(70006, "系统订单配置异常"),
     ALI_SMS_SETTING_ERROR(70007, "您还未配置阿里云短信"),
     SMS_SIGN_EXIST_ERROR(70008, "短信签名已存在"),
+    SMS_REACH_SEND_ERROR(70009, "短信任务发送未完成，稍后将继续发送"),
+    SMS_REACH_NOT_EXIST(70010, "短信任务不存在"),
 
     /**
      * 站内信
@@ -0,0 +1,43 @@
+package cn.lili.common.excel;
+
+import lombok.Getter;
+
+import java.util.function.Function;
+
+/**
+ * 导出列
+ *
+ * @param <T> 行数据类型
+ */
+@Getter
+public class ExcelColumn<T> {
+
+    /**
+     * 表头
+     */
+    private final String header;
+
+    /**
+     * 列宽，单位字符，为空时不设置
+     */
+    private final Integer width;
+
+    /**
+     * 取值
+     */
+    private final Function<T, Object> value;
+
+    private ExcelColumn(String header, Integer width, Function<T, Object> value) {
+        this.header = header;
+        this.width = width;
+        this.value = value;
+    }
+
+    public static <T> ExcelColumn<T> of(String header, Function<T, Object> value) {
+        return new ExcelColumn<>(header, null, value);
+    }
+
+    public static <T> ExcelColumn<T> of(String header, Integer width, Function<T, Object> value) {
+        return new ExcelColumn<>(header, width, value);
+    }
+}
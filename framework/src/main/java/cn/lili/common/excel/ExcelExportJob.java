@@ -0,0 +1,67 @@
+package cn.lili.common.excel;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 异步导出任务
+ */
+@Data
+public class ExcelExportJob implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String RUNNING = "RUNNING";
+
+    public static final String SUCCESS = "SUCCESS";
+
+    public static final String FAILED = "FAILED";
+
+    /**
+     * 任务ID
+     */
+    private String id;
+
+    /**
+     * 导出文件名
+     */
+    private String name;
+
+    /**
+     * 状态：RUNNING、SUCCESS、FAILED
+     */
+    private String status;
+
+    /**
+     * 已写入行数
+     */
+    private Long rows;
+
+    /**
+     * 文件下载地址，查询时按文件路径生成的临时签名地址
+     */
+    private String url;
+
+    /**
+     * 文件存储路径，包含随机令牌，不返回给前端
+     */
+    @JsonIgnore
+    private String fileKey;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    /**
+     * 提交人ID，只有提交人可以查看任务
+     */
+    private String ownerId;
+
+    private Date createTime;
+
+    private Date finishTime;
+}
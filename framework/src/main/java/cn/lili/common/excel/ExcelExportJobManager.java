@@ -0,0 +1,179 @@
+package cn.lili.common.excel;
+
+import cn.hutool.core.util.IdUtil;
+import cn.lili.cache.Cache;
+import cn.lili.cache.CachePrefix;
+import cn.lili.common.enums.ResultCode;
+import cn.lili.common.exception.ServiceException;
+import cn.lili.common.properties.ExportProperties;
+import cn.lili.common.utils.SnowFlake;
+import cn.lili.modules.file.plugin.FilePluginFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * 异步导出任务管理
+ * <p>
+ * 导出在独立的有界线程池中执行，写入本地临时文件后以私有权限上传到文件存储，
+ * 任务进度保存在缓存中，各节点均可查询。
+ * <p>
+ * 导出文件包含买家信息，存储路径带随机令牌，查询任务时才生成短时有效的签名下载地址，
+ * 任务过期后由定时任务删除文件。
+ */
+@Slf4j
+@Component
+public class ExcelExportJobManager implements InitializingBean, DisposableBean {
+
+    /**
+     * 任务信息保存时间，单位秒
+     */
+    private static final long JOB_EXPIRE = 24 * 60 * 60L;
+
+    /**
+     * 下载地址有效时间，单位秒
+     */
+    private static final long URL_EXPIRE = 10 * 60L;
+
+    @Autowired
+    private ExportProperties exportProperties;
+
+    @Autowired
+    private FilePluginFactory filePluginFactory;
+
+    @Autowired
+    private Cache<ExcelExportJob> cache;
+
+    private ThreadPoolExecutor executor;
+
+    @Override
+    public void afterPropertiesSet() {
+        int threads = exportProperties.getAsyncThreads();
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, exportProperties.getAsyncQueueCapacity())),
+                new CustomizableThreadFactory("excel-export-"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交导出任务
+     *
+     * @param name    导出文件名，不含扩展名
+     * @param ownerId 提交人ID
+     * @param task    导出内容写入
+     * @return 导出任务
+     */
+    public ExcelExportJob submit(String name, String ownerId, ExcelExportTask task) {
+        ExcelExportJob job = new ExcelExportJob();
+        job.setId(SnowFlake.getIdStr());
+        job.setName(name);
+        job.setStatus(ExcelExportJob.RUNNING);
+        job.setRows(0L);
+        job.setOwnerId(ownerId);
+        job.setCreateTime(new Date());
+        this.save(job);
+        try {
+            executor.execute(() -> this.run(job, task));
+        } catch (RejectedExecutionException e) {
+            cache.remove(key(job.getId()));
+            throw new ServiceException(ResultCode.EXPORT_JOB_BUSY);
+        }
+        return job;
+    }
+
+    /**
+     * 查询导出任务
+     *
+     * @param id      任务ID
+     * @param ownerId 查询人ID
+     * @return 导出任务
+     */
+    public ExcelExportJob get(String id, String ownerId) {
+        ExcelExportJob job = cache.get(key(id));
+        if (job == null || (job.getOwnerId() != null && !job.getOwnerId().equals(ownerId))) {
+            throw new ServiceException(ResultCode.EXPORT_JOB_NOT_EXIST);
+        }
+        if (job.getFileKey() != null) {
+            job.setUrl(filePluginFactory.filePlugin().signedUrl(job.getFileKey(), URL_EXPIRE));
+        }
+        return job;
+    }
+
+    /**
+     * 删除已过期任务的导出文件
+     *
+     * @return 删除的文件数
+     */
+    public int cleanExpiredFiles() {
+        Set<ZSetOperations.TypedTuple<Object>> expired = cache.zRangeByScore(CachePrefix.EXPORT_FILE.getPrefix(), 0, System.currentTimeMillis());
+        if (expired == null || expired.isEmpty()) {
+            return 0;
+        }
+        List<String> keys = expired.stream().map(tuple -> String.valueOf(tuple.getValue())).collect(Collectors.toList());
+        filePluginFactory.filePlugin().deleteFile(keys);
+        cache.zRemove(CachePrefix.EXPORT_FILE.getPrefix(), keys.toArray(new String[0]));
+        return keys.size();
+    }
+
+    private void run(ExcelExportJob job, ExcelExportTask task) {
+        File file = null;
+        long start = System.currentTimeMillis();
+        try {
+            file = File.createTempFile("export-" + job.getId(), ".xlsx");
+            try (StreamingExcelWriter writer = new StreamingExcelWriter();
+                 OutputStream outputStream = new FileOutputStream(file)) {
+                task.export(writer, rows -> {
+                    job.setRows(rows);
+                    this.save(job);
+                });
+                writer.write(outputStream);
+            }
+            String fileKey = "export/" + IdUtil.simpleUUID() + "/" + job.getId() + ".xlsx";
+            //先登记删除时间，上传中断留下的文件同样会被清理
+            cache.zAdd(CachePrefix.EXPORT_FILE.getPrefix(), System.currentTimeMillis() + JOB_EXPIRE * 1000, fileKey);
+            try (InputStream inputStream = new FileInputStream(file)) {
+                filePluginFactory.filePlugin().privateUpload(inputStream, fileKey);
+            }
+            job.setFileKey(fileKey);
+            job.setStatus(ExcelExportJob.SUCCESS);
+            log.info("导出任务完成，任务:{}，行数:{}，耗时:{}ms", job.getName(), job.getRows(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("导出任务失败，任务:{}", job.getName(), e);
+            job.setStatus(ExcelExportJob.FAILED);
+            job.setMessage(e.getMessage());
+        } finally {
+            job.setFinishTime(new Date());
+            this.save(job);
+            if (file != null && !file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    private void save(ExcelExportJob job) {
+        cache.put(key(job.getId()), job, JOB_EXPIRE);
+    }
+
+    private static String key(String id) {
+        return CachePrefix.EXPORT_JOB.getPrefix() + id;
+    }
+}
@@ -0,0 +1,19 @@
+package cn.lili.common.excel;
+
+import java.util.function.LongConsumer;
+
+/**
+ * 导出内容写入
+ */
+@FunctionalInterface
+public interface ExcelExportTask {
+
+    /**
+     * 写入导出内容
+     *
+     * @param writer   写入
+     * @param progress 进度回调，参数为已写入行数
+     * @throws Exception 导出异常
+     */
+    void export(StreamingExcelWriter writer, LongConsumer progress) throws Exception;
+}
@@ -0,0 +1,44 @@
+package cn.lili.common.excel;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * 游标分页读取
+ * <p>
+ * 每次按上一批最后一行作为游标查询下一批，查询条件为 主键 &gt; 游标，
+ * 不使用 OFFSET，翻页开销不随页数增长，内存中只保留一批数据。
+ */
+public final class KeysetReader {
+
+    private KeysetReader() {
+    }
+
+    /**
+     * 按批读取全部数据
+     *
+     * @param chunkSize 每批数量
+     * @param fetch     查询下一批，参数为上一批最后一行（首批为null）和每批数量
+     * @param consumer  处理一批数据
+     * @param <T>       行数据类型
+     * @return 读取行数
+     */
+    public static <T> long read(int chunkSize, BiFunction<T, Integer, List<T>> fetch, Consumer<List<T>> consumer) {
+        T last = null;
+        long total = 0;
+        while (true) {
+            List<T> chunk = fetch.apply(last, chunkSize);
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+            consumer.accept(chunk);
+            total += chunk.size();
+            last = chunk.get(chunk.size() - 1);
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,196 @@
+package cn.lili.common.excel;
+
+import cn.hutool.core.date.DateUtil;
+import lombok.Getter;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 流式 Excel 写入
+ * <p>
+ * 基于 SXSSFWorkbook，内存中只保留固定窗口的行，超出窗口的行刷写到压缩临时文件，
+ * 导出行数不再受堆内存限制。单个工作表写满后自动续写到新工作表。
+ * 使用完毕必须关闭以删除临时文件。
+ */
+public class StreamingExcelWriter implements Closeable {
+
+    /**
+     * 内存中保留的行数
+     */
+    public static final int DEFAULT_WINDOW = 500;
+
+    /**
+     * xlsx 单个工作表最大行数
+     */
+    private static final int MAX_SHEET_ROWS = 1048576;
+
+    @Getter
+    private final SXSSFWorkbook workbook;
+
+    private final CellStyle headerStyle;
+
+    public StreamingExcelWriter() {
+        this(DEFAULT_WINDOW);
+    }
+
+    public StreamingExcelWriter(int window) {
+        this.workbook = new SXSSFWorkbook(window);
+        this.workbook.setCompressTempFiles(true);
+        this.headerStyle = workbook.createCellStyle();
+        Font font = workbook.createFont();
+        font.setBold(true);
+        this.headerStyle.setFont(font);
+    }
+
+    /**
+     * 创建工作表并写入表头
+     *
+     * @param name    工作表名称
+     * @param columns 列
+     * @param <T>     行数据类型
+     * @return 工作表写入
+     */
+    public <T> SheetWriter<T> createSheet(String name, List<ExcelColumn<T>> columns) {
+        return new SheetWriter<>(name, columns);
+    }
+
+    /**
+     * 写出到输出流
+     *
+     * @param outputStream 输出流
+     * @throws IOException 写出异常
+     */
+    public void write(OutputStream outputStream) throws IOException {
+        workbook.write(outputStream);
+        outputStream.flush();
+    }
+
+    /**
+     * 以附件形式写出到响应
+     *
+     * @param response 响应
+     * @param fileName 文件名，不含扩展名
+     * @throws IOException 写出异常
+     */
+    public void write(HttpServletResponse response, String fileName) throws IOException {
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment;filename=" + URLEncoder.encode(fileName, "UTF8") + ".xlsx");
+        ServletOutputStream outputStream = response.getOutputStream();
+        this.write(outputStream);
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    /**
+     * 按单元格类型写值，空值保留空单元格
+     *
+     * @param cell  单元格
+     * @param value 值
+     */
+    public static void setCellValue(Cell cell, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else if (value instanceof Date) {
+            cell.setCellValue(DateUtil.formatDateTime((Date) value));
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+
+    /**
+     * 工作表写入
+     *
+     * @param <T> 行数据类型
+     */
+    public class SheetWriter<T> {
+
+        private final String name;
+
+        private final List<ExcelColumn<T>> columns;
+
+        private Sheet sheet;
+
+        private int sheetRow;
+
+        private int sheetIndex;
+
+        /**
+         * 已写入数据行数，不含表头
+         */
+        @Getter
+        private long rowCount;
+
+        private SheetWriter(String name, List<ExcelColumn<T>> columns) {
+            this.name = name;
+            this.columns = columns;
+            this.nextSheet();
+        }
+
+        /**
+         * 写入一行
+         *
+         * @param data 行数据
+         */
+        public void write(T data) {
+            if (sheetRow >= MAX_SHEET_ROWS) {
+                this.nextSheet();
+            }
+            Row row = sheet.createRow(sheetRow++);
+            for (int i = 0; i < columns.size(); i++) {
+                setCellValue(row.createCell(i), columns.get(i).getValue().apply(data));
+            }
+            rowCount++;
+        }
+
+        /**
+         * 写入多行
+         *
+         * @param list 行数据
+         */
+        public void writeAll(List<T> list) {
+            for (T data : list) {
+                this.write(data);
+            }
+        }
+
+        private void nextSheet() {
+            sheetIndex++;
+            sheet = workbook.createSheet(sheetIndex == 1 ? name : name + sheetIndex);
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < columns.size(); i++) {
+                ExcelColumn<T> column = columns.get(i);
+                Cell cell = header.createCell(i);
+                cell.setCellValue(column.getHeader());
+                cell.setCellStyle(headerStyle);
+                if (column.getWidth() != null) {
+                    sheet.setColumnWidth(i, column.getWidth() * 256);
+                }
+            }
+            sheet.createFreezePane(0, 1);
+            sheetRow = 1;
+        }
+    }
+}
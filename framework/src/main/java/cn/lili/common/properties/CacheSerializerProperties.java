@@ -0,0 +1,39 @@
+package cn.lili.common.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 缓存序列化配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "lili.cache.serializer")
+public class CacheSerializerProperties {
+
+    /**
+     * 写入编码：JSON（默认，与历史数据一致）、KRYO（二进制）
+     * 读取时按头字节自动识别，两种编码的数据均可读取，切换不需要清理缓存
+     */
+    private String type = "JSON";
+
+    /**
+     * 二进制编码后超过该大小时使用 LZ4 压缩，单位字节
+     */
+    private Integer compressThreshold = 1024;
+
+    public String getType() {
+        if (type == null) {
+            return "JSON";
+        }
+        return type.toUpperCase();
+    }
+
+    public Integer getCompressThreshold() {
+        if (compressThreshold == null || compressThreshold <= 0) {
+            return 1024;
+        }
+        return compressThreshold;
+    }
+}
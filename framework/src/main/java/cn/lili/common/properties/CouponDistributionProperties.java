@@ -0,0 +1,38 @@
+package cn.lili.common.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 优惠券活动发券配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "lili.coupon-distribution")
+public class CouponDistributionProperties {
+
+    /**
+     * 每批发放的会员数量，每批一个事务
+     */
+    private Integer chunkSize = 500;
+
+    /**
+     * 发券线程数，同时也是单次发券同时执行的批次上限
+     */
+    private Integer threads = 4;
+
+    public Integer getChunkSize() {
+        if (chunkSize == null || chunkSize <= 0) {
+            return 500;
+        }
+        return chunkSize;
+    }
+
+    public Integer getThreads() {
+        if (threads == null || threads <= 0) {
+            return 4;
+        }
+        return threads;
+    }
+}
@@ -0,0 +1,50 @@
+package cn.lili.common.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Excel 导出配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "lili.export")
+public class ExportProperties {
+
+    /**
+     * 每批查询行数
+     */
+    private Integer chunkSize = 1000;
+
+    /**
+     * 异步导出线程数
+     */
+    private Integer asyncThreads = 2;
+
+    /**
+     * 异步导出排队任务上限，超出时拒绝提交
+     */
+    private Integer asyncQueueCapacity = 20;
+
+    public Integer getChunkSize() {
+        if (chunkSize == null || chunkSize <= 0) {
+            return 1000;
+        }
+        return chunkSize;
+    }
+
+    public Integer getAsyncThreads() {
+        if (asyncThreads == null || asyncThreads <= 0) {
+            return 2;
+        }
+        return asyncThreads;
+    }
+
+    public Integer getAsyncQueueCapacity() {
+        if (asyncQueueCapacity == null || asyncQueueCapacity < 0) {
+            return 20;
+        }
+        return asyncQueueCapacity;
+    }
+}
@@ -0,0 +1,62 @@
+package cn.lili.common.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 砍价配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "lili.kanjia")
+public class KanjiaProperties {
+
+    /**
+     * 砍价实时状态与砍价记录缓冲存储：REDIS、MEMORY（单机测试使用）
+     */
+    private String bargainStore = "REDIS";
+
+    /**
+     * 砍价商品活动结束后实时状态的保留时间，单位小时
+     */
+    private Long retainHours = 24L;
+
+    /**
+     * 砍价记录入库间隔，单位毫秒
+     */
+    private Long logFlushInterval = 1000L;
+
+    /**
+     * 砍价记录每批入库条数
+     */
+    private Integer logFlushBatchSize = 500;
+
+    public String getBargainStore() {
+        if (bargainStore == null) {
+            return "REDIS";
+        }
+        return bargainStore.toUpperCase();
+    }
+
+    public Long getRetainHours() {
+        if (retainHours == null || retainHours <= 0) {
+            return 24L;
+        }
+        return retainHours;
+    }
+
+    public Long getLogFlushInterval() {
+        if (logFlushInterval == null || logFlushInterval <= 0) {
+            return 1000L;
+        }
+        return logFlushInterval;
+    }
+
+    public Integer getLogFlushBatchSize() {
+        if (logFlushBatchSize == null || logFlushBatchSize <= 0) {
+            return 500;
+        }
+        return logFlushBatchSize;
+    }
+}
@@ -0,0 +1,38 @@
+package cn.lili.common.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 订单事件配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "lili.order-event")
+public class OrderEventProperties {
+
+    /**
+     * 每个事件处理的线程数，线程繁忙时由消费线程执行
+     */
+    private Integer threads = 2;
+
+    /**
+     * 每个事件处理最多执行次数，超过后进入死信，间隔由消息重新投递的延迟级别决定
+     */
+    private Integer maxAttempts = 5;
+
+    public Integer getThreads() {
+        if (threads == null || threads <= 0) {
+            return 2;
+        }
+        return threads;
+    }
+
+    public Integer getMaxAttempts() {
+        if (maxAttempts == null || maxAttempts <= 0) {
+            return 5;
+        }
+        return maxAttempts;
+    }
+}
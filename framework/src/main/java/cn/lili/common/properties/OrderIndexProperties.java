@@ -0,0 +1,50 @@
+package cn.lili.common.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 订单查询索引配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "lili.order-index")
+public class OrderIndexProperties {
+
+    /**
+     * 索引存储：ELASTICSEARCH、MEMORY（单机测试使用）、NONE（不使用索引，直接查询数据库）
+     */
+    private String store = "ELASTICSEARCH";
+
+    /**
+     * 一致性校验覆盖最近多少天创建的订单
+     */
+    private Integer reconcileDays = 7;
+
+    /**
+     * 构建/校验索引时每批订单数量
+     */
+    private Integer batchSize = 500;
+
+    public String getStore() {
+        if (store == null) {
+            return "ELASTICSEARCH";
+        }
+        return store.toUpperCase();
+    }
+
+    public Integer getReconcileDays() {
+        if (reconcileDays == null || reconcileDays <= 0) {
+            return 7;
+        }
+        return reconcileDays;
+    }
+
+    public Integer getBatchSize() {
+        if (batchSize == null || batchSize <= 0) {
+            return 500;
+        }
+        return batchSize;
+    }
+}
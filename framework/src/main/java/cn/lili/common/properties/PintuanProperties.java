@@ -0,0 +1,38 @@
+package cn.lili.common.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 拼团配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "lili.pintuan")
+public class PintuanProperties {
+
+    /**
+     * 拼团团队成员存储：REDIS、MEMORY（单机测试使用）
+     */
+    private String groupStore = "REDIS";
+
+    /**
+     * 拼团活动结束后团队成员的保留时间，单位小时
+     */
+    private Long groupRetainHours = 24L;
+
+    public String getGroupStore() {
+        if (groupStore == null) {
+            return "REDIS";
+        }
+        return groupStore.toUpperCase();
+    }
+
+    public Long getGroupRetainHours() {
+        if (groupRetainHours == null || groupRetainHours <= 0) {
+            return 24L;
+        }
+        return groupRetainHours;
+    }
+}
@@ -0,0 +1,92 @@
+package cn.lili.common.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 短信批量发送配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "lili.sms-bulk")
+public class SmsBulkProperties {
+
+    /**
+     * 每组手机号数量，不超过通道单次请求上限：阿里云 100、腾讯云 200
+     */
+    private Integer chunkSize = 100;
+
+    /**
+     * 发送线程数，同时也是单个短信任务同时发送的分组上限
+     */
+    private Integer threads = 4;
+
+    /**
+     * 各通道每秒请求数，key 为通道：ALI、TENCENT、HUAWEI
+     */
+    private Map<String, Integer> qps = new HashMap<>();
+
+    /**
+     * 未单独配置的通道每秒请求数
+     */
+    private Integer defaultQps = 20;
+
+    /**
+     * 每组最多发送次数
+     */
+    private Integer maxSendTimes = 3;
+
+    /**
+     * 重发间隔，单位毫秒，按发送次数递增
+     */
+    private Long retryInterval = 1000L;
+
+    public Integer getChunkSize() {
+        if (chunkSize == null || chunkSize <= 0) {
+            return 100;
+        }
+        return chunkSize;
+    }
+
+    public Integer getThreads() {
+        if (threads == null || threads <= 0) {
+            return 4;
+        }
+        return threads;
+    }
+
+    /**
+     * 获取通道每秒请求数
+     *
+     * @param provider 通道
+     * @return 每秒请求数
+     */
+    public Integer getQps(String provider) {
+        Integer providerQps = qps == null ? null : qps.get(provider);
+        if (providerQps != null && providerQps > 0) {
+            return providerQps;
+        }
+        if (defaultQps == null || defaultQps <= 0) {
+            return 20;
+        }
+        return defaultQps;
+    }
+
+    public Integer getMaxSendTimes() {
+        if (maxSendTimes == null || maxSendTimes <= 0) {
+            return 3;
+        }
+        return maxSendTimes;
+    }
+
+    public Long getRetryInterval() {
+        if (retryInterval == null || retryInterval < 0) {
+            return 1000L;
+        }
+        return retryInterval;
+    }
+}
@@ -0,0 +1,62 @@
+package cn.lili.common.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 雪花ID配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "lili.snowflake")
+public class SnowflakeProperties {
+
+    /**
+     * 机器ID租约存储：REDIS、MEMORY（单机测试使用）
+     */
+    private String leaseStore = "REDIS";
+
+    /**
+     * 机器ID租约有效期，单位秒
+     */
+    private Long leaseTtl = 60L;
+
+    /**
+     * 租约续期间隔，单位秒，应小于租约有效期的一半
+     */
+    private Long renewInterval = 20L;
+
+    /**
+     * 时钟回拨等待上限，单位毫秒，回拨不超过该值时等待时钟追上，超过时借用后续毫秒的序列号
+     */
+    private Long maxBackwardWait = 5L;
+
+    public String getLeaseStore() {
+        if (leaseStore == null) {
+            return "REDIS";
+        }
+        return leaseStore.toUpperCase();
+    }
+
+    public Long getLeaseTtl() {
+        if (leaseTtl == null || leaseTtl <= 0) {
+            return 60L;
+        }
+        return leaseTtl;
+    }
+
+    public Long getRenewInterval() {
+        if (renewInterval == null || renewInterval <= 0 || renewInterval * 2 > this.getLeaseTtl()) {
+            return Math.max(1L, this.getLeaseTtl() / 3);
+        }
+        return renewInterval;
+    }
+
+    public Long getMaxBackwardWait() {
+        if (maxBackwardWait == null || maxBackwardWait < 0) {
+            return 5L;
+        }
+        return maxBackwardWait;
+    }
+}
@@ -26,6 +26,26 @@ public class StatisticsProperties {
      */
     private Integer currentOnlineUpdate = 600;
 
+    /**
+     * 页面浏览数据写入缓存的间隔，单位毫秒
+     */
+    private Long pageViewFlushInterval = 1000L;
+
+    /**
+     * 在线判定窗口，单位分钟，窗口内有请求的会员视为在线
+     */
+    private Integer onlineWindow = 30;
+
+    /**
+     * 订单每日统计每次向前回填的天数
+     */
+    private Integer rollupBackfillDays = 30;
+
+    /**
+     * 订单统计未汇总部分（通常为当天）与首页会员、商品、店铺数量的缓存时间，单位秒
+     */
+    private Long todayCacheSeconds = 60L;
+
     public Integer getOnlineMember() {
         if (onlineMember == null) {
             return 48;
@@ -39,4 +59,32 @@ public class StatisticsProperties {
         }
         return currentOnlineUpdate;
     }
+
+    public Long getPageViewFlushInterval() {
+        if (pageViewFlushInterval == null || pageViewFlushInterval <= 0) {
+            return 1000L;
+        }
+        return pageViewFlushInterval;
+    }
+
+    public Integer getOnlineWindow() {
+        if (onlineWindow == null || onlineWindow <= 0) {
+            return 30;
+        }
+        return onlineWindow;
+    }
+
+    public Integer getRollupBackfillDays() {
+        if (rollupBackfillDays == null || rollupBackfillDays < 0) {
+            return 30;
+        }
+        return rollupBackfillDays;
+    }
+
+    public Long getTodayCacheSeconds() {
+        if (todayCacheSeconds == null || todayCacheSeconds <= 0) {
+            return 60L;
+        }
+        return todayCacheSeconds;
+    }
 }
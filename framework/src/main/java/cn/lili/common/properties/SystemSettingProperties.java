@@ -36,6 +36,11 @@ public class SystemSettingProperties {
      */
     private Integer sensitiveLevel = 0;
 
+    /**
+     * 敏感词干扰字符，敏感词中间夹杂这些字符时仍然命中，为空则使用敏感词过滤器的默认字符
+     */
+    private String sensitiveNoiseChars;
+
 
     public Boolean getDemoSite() {
         if (isDemoSite == null) {
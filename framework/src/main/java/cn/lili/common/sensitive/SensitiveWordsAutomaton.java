@@ -0,0 +1,440 @@
+package cn.lili.common.sensitive;
+
+import java.util.*;
+
+/**
+ * 敏感词自动机
+ * <p>
+ * Aho-Corasick 自动机，goto 表压缩为双数组（base/check），文本只需扫描一遍，耗时与词库大小无关。
+ * 匹配前字符统一做全角转半角、大写转小写，干扰字符（空格、符号等）直接跳过，
+ * 例如词库中的"色情"可以匹配"色 情"、"色*情"。
+ * <p>
+ * 构建完成后不可变，可被多个线程同时读取。
+ * <p>
+ * 内存：字符编码表与干扰字符表按字符直接寻址，各 65536 项（共约 192KB），与词库大小无关；
+ * 干扰字符不变时重新构建的自动机共用同一张干扰字符表。构建期间新旧两个自动机同时存在。
+ * 增删词需要按整个词库重新构建，见 {@link #rebuild(Collection)}。
+ */
+public final class SensitiveWordsAutomaton {
+
+    private static final int ROOT = 1;
+
+    /**
+     * 空自动机
+     */
+    public static final SensitiveWordsAutomaton EMPTY = build(Collections.emptyList(), "");
+
+    /**
+     * 字符编码，未出现在词库中的字符为0
+     */
+    private final char[] codes;
+
+    /**
+     * 干扰字符
+     */
+    private final boolean[] noise;
+
+    private final int[] base;
+
+    private final int[] check;
+
+    private final int[] fail;
+
+    /**
+     * 以该状态结尾的最长敏感词长度，包含 fail 链上的词
+     */
+    private final int[] output;
+
+    /**
+     * 最长敏感词长度
+     */
+    private final int maxLength;
+
+    /**
+     * 词库，用于增删词后重新构建
+     */
+    private final List<String> words;
+
+    private final String noiseChars;
+
+    private SensitiveWordsAutomaton(char[] codes, boolean[] noise, int[] base, int[] check, int[] fail, int[] output,
+                                    int maxLength, List<String> words, String noiseChars) {
+        this.codes = codes;
+        this.noise = noise;
+        this.base = base;
+        this.check = check;
+        this.fail = fail;
+        this.output = output;
+        this.maxLength = maxLength;
+        this.words = words;
+        this.noiseChars = noiseChars;
+    }
+
+    /**
+     * 构建自动机
+     *
+     * @param words      敏感词
+     * @param noiseChars 干扰字符
+     * @return 自动机
+     */
+    public static SensitiveWordsAutomaton build(Collection<String> words, String noiseChars) {
+        return new Builder(noiseChars, null).build(words);
+    }
+
+    /**
+     * 以新的词库重新构建，沿用干扰字符及干扰字符表
+     * 耗时与词库大小成正比
+     *
+     * @param words 敏感词
+     * @return 自动机
+     */
+    public SensitiveWordsAutomaton rebuild(Collection<String> words) {
+        return new Builder(noiseChars, noise).build(words);
+    }
+
+    /**
+     * 字符归一：全角转半角，大写转小写
+     *
+     * @param c 字符
+     * @return 归一后的字符
+     */
+    static char normalize(char c) {
+        if (c == '　') {
+            c = ' ';
+        } else if (c >= '！' && c <= '～') {
+            c = (char) (c - 0xFEE0);
+        }
+        return Character.toLowerCase(c);
+    }
+
+    /**
+     * 过滤敏感词
+     * 如果无敏感词返回输入的 text 对象
+     *
+     * @param text    文本
+     * @param replace 敏感词的替换字符
+     * @return 过滤后的文本
+     */
+    public String filter(String text, char replace) {
+        if (text == null || text.isEmpty() || maxLength == 0) {
+            return text;
+        }
+        char[] result = null;
+        //最近 maxLength 个有效字符在原文中的位置
+        int[] positions = new int[maxLength];
+        int count = 0;
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = normalize(text.charAt(i));
+            if (noise[c]) {
+                continue;
+            }
+            positions[count % maxLength] = i;
+            count++;
+            int code = codes[c];
+            if (code == 0) {
+                state = ROOT;
+                continue;
+            }
+            state = this.next(state, code);
+            int length = output[state];
+            if (length > 0) {
+                if (result == null) {
+                    result = text.toCharArray();
+                }
+                Arrays.fill(result, positions[(count - length) % maxLength], i + 1, replace);
+            }
+        }
+        return result == null ? text : new String(result);
+    }
+
+    /**
+     * 是否包含敏感词
+     *
+     * @param text 文本
+     * @return 是否包含
+     */
+    public boolean contains(String text) {
+        if (text == null || text.isEmpty() || maxLength == 0) {
+            return false;
+        }
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = normalize(text.charAt(i));
+            if (noise[c]) {
+                continue;
+            }
+            int code = codes[c];
+            if (code == 0) {
+                state = ROOT;
+                continue;
+            }
+            state = this.next(state, code);
+            if (output[state] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int next(int state, int code) {
+        while (true) {
+            int target = base[state] + code;
+            if (target < check.length && check[target] == state) {
+                return target;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+
+    public List<String> getWords() {
+        return words;
+    }
+
+    public String getNoiseChars() {
+        return noiseChars;
+    }
+
+    /**
+     * 自动机构建
+     */
+    private static class Builder {
+
+        private final boolean[] noise;
+
+        private final char[] codes = new char[Character.MAX_VALUE + 1];
+
+        private final String noiseChars;
+
+        private int codeCount;
+
+        private int[] base = new int[1024];
+
+        private int[] check = new int[1024];
+
+        private boolean[] used = new boolean[1024];
+
+        /**
+         * 已占用位置指向之后的位置，用于跳过连续占用的区间
+         */
+        private int[] freeLink = new int[1024];
+
+        private int size = ROOT + 1;
+
+        /**
+         * @param noiseChars 干扰字符
+         * @param noise      已有的干扰字符表，为空则按干扰字符生成，构建过程只读不写
+         */
+        Builder(String noiseChars, boolean[] noise) {
+            this.noiseChars = noiseChars == null ? "" : noiseChars;
+            if (noise != null) {
+                this.noise = noise;
+                return;
+            }
+            this.noise = new boolean[Character.MAX_VALUE + 1];
+            for (char c : this.noiseChars.toCharArray()) {
+                this.noise[normalize(c)] = true;
+            }
+        }
+
+        SensitiveWordsAutomaton build(Collection<String> words) {
+            List<String> accepted = new ArrayList<>();
+            List<String> keys = new ArrayList<>();
+            int[] frequency = new int[Character.MAX_VALUE + 1];
+            for (String word : new LinkedHashSet<>(words)) {
+                String key = this.key(word);
+                if (key == null) {
+                    continue;
+                }
+                accepted.add(word);
+                keys.add(key);
+                for (int i = 0; i < key.length(); i++) {
+                    frequency[key.charAt(i)]++;
+                }
+            }
+            //高频字符编码较小，子节点编码更集中，双数组更紧凑
+            List<Character> chars = new ArrayList<>();
+            for (int c = 0; c < frequency.length; c++) {
+                if (frequency[c] > 0) {
+                    chars.add((char) c);
+                }
+            }
+            chars.sort((x, y) -> frequency[y] - frequency[x]);
+            for (Character c : chars) {
+                codes[c] = (char) ++codeCount;
+            }
+
+            //构建普通字典树
+            Node root = new Node();
+            int maxLength = 0;
+            for (String key : keys) {
+                Node node = root;
+                for (int i = 0; i < key.length(); i++) {
+                    node = node.children.computeIfAbsent((int) codes[key.charAt(i)], k -> new Node());
+                }
+                node.length = key.length();
+                maxLength = Math.max(maxLength, key.length());
+            }
+
+            //按层次压缩为双数组
+            root.state = ROOT;
+            this.use(0);
+            this.use(ROOT);
+            List<Node> order = new ArrayList<>();
+            Deque<Node> queue = new ArrayDeque<>();
+            queue.add(root);
+            while (!queue.isEmpty()) {
+                Node node = queue.poll();
+                order.add(node);
+                if (node.children.isEmpty()) {
+                    continue;
+                }
+                int[] childCodes = node.children.keySet().stream().mapToInt(Integer::intValue).toArray();
+                int b = this.findBase(childCodes);
+                base[node.state] = b;
+                for (Map.Entry<Integer, Node> entry : node.children.entrySet()) {
+                    int state = b + entry.getKey();
+                    this.use(state);
+                    check[state] = node.state;
+                    entry.getValue().state = state;
+                    queue.add(entry.getValue());
+                }
+            }
+
+            //按层次计算 fail 指针及输出
+            int[] fail = new int[size];
+            int[] output = new int[size];
+            fail[ROOT] = ROOT;
+            for (Node node : order) {
+                for (Map.Entry<Integer, Node> entry : node.children.entrySet()) {
+                    Node child = entry.getValue();
+                    int target = ROOT;
+                    if (node.state != ROOT) {
+                        int f = fail[node.state];
+                        while (true) {
+                            int t = base[f] + entry.getKey();
+                            if (t < size && check[t] == f) {
+                                target = t;
+                                break;
+                            }
+                            if (f == ROOT) {
+                                break;
+                            }
+                            f = fail[f];
+                        }
+                    }
+                    fail[child.state] = target;
+                    output[child.state] = Math.max(child.length, output[target]);
+                }
+            }
+            return new SensitiveWordsAutomaton(codes, noise, Arrays.copyOf(base, size), Arrays.copyOf(check, size),
+                    fail, output, maxLength, Collections.unmodifiableList(accepted), noiseChars);
+        }
+
+        /**
+         * 词归一化，去除干扰字符
+         * 长度小于2的词、两个字母或数字组成的词不加入，避免误伤
+         *
+         * @param word 敏感词
+         * @return 归一后的词
+         */
+        private String key(String word) {
+            if (word == null) {
+                return null;
+            }
+            word = word.trim();
+            StringBuilder builder = new StringBuilder(word.length());
+            for (int i = 0; i < word.length(); i++) {
+                char c = normalize(word.charAt(i));
+                if (!noise[c]) {
+                    builder.append(c);
+                }
+            }
+            String key = builder.toString();
+            if (key.length() < 2 || (key.length() == 2 && key.matches("\\w\\w"))) {
+                return null;
+            }
+            return key;
+        }
+
+        /**
+         * 查找可以放下全部子节点的 base
+         *
+         * @param childCodes 子节点字符编码，升序
+         * @return base
+         */
+        private int findBase(int[] childCodes) {
+            int first = childCodes[0];
+            int last = childCodes[childCodes.length - 1];
+            int pos = this.nextFree(first + 1);
+            outer:
+            for (; ; pos = this.nextFree(pos + 1)) {
+                int b = pos - first;
+                this.ensure(b + last + 1);
+                for (int code : childCodes) {
+                    if (used[b + code]) {
+                        continue outer;
+                    }
+                }
+                size = Math.max(size, b + last + 1);
+                return b;
+            }
+        }
+
+        /**
+         * 不小于 pos 的第一个空闲位置，已占用的位置指向下一个位置，查找时压缩路径
+         *
+         * @param pos 起始位置
+         * @return 空闲位置
+         */
+        private int nextFree(int pos) {
+            this.ensure(pos + 1);
+            int free = pos;
+            while (used[free]) {
+                free = freeLink[free];
+                this.ensure(free + 1);
+            }
+            //路径压缩
+            while (pos != free && used[pos]) {
+                int next = freeLink[pos];
+                freeLink[pos] = free;
+                pos = next;
+            }
+            return free;
+        }
+
+        private void use(int pos) {
+            used[pos] = true;
+            freeLink[pos] = pos + 1;
+        }
+
+        private void ensure(int capacity) {
+            if (capacity <= used.length) {
+                return;
+            }
+            int length = Math.max(capacity, used.length * 2);
+            base = Arrays.copyOf(base, length);
+            check = Arrays.copyOf(check, length);
+            used = Arrays.copyOf(used, length);
+            freeLink = Arrays.copyOf(freeLink, length);
+        }
+    }
+
+    /**
+     * 字典树节点
+     */
+    private static class Node {
+
+        private final NavigableMap<Integer, Node> children = new TreeMap<>();
+
+        /**
+         * 以该节点结尾的词长度，非词尾为0
+         */
+        private int length;
+
+        private int state;
+    }
+}
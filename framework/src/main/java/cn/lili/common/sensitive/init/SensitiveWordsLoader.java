@@ -2,6 +2,7 @@ package cn.lili.common.sensitive.init;
 
 import cn.lili.cache.Cache;
 import cn.lili.cache.CachePrefix;
+import cn.lili.common.properties.SystemSettingProperties;
 import cn.lili.common.sensitive.SensitiveWordsFilter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +26,9 @@ public class SensitiveWordsLoader implements ApplicationRunner {
     @Autowired
     private Cache<List<String>> cache;
 
+    @Autowired
+    private SystemSettingProperties systemSettingProperties;
+
     /**
      * 程序启动时，获取最新的需要过滤的敏感词
      * <p>
@@ -39,7 +43,7 @@ public class SensitiveWordsLoader implements ApplicationRunner {
         if (sensitives == null || sensitives.isEmpty()) {
             return;
         }
-        SensitiveWordsFilter.init(sensitives);
+        SensitiveWordsFilter.init(sensitives, systemSettingProperties.getSensitiveNoiseChars());
     }
 
 }
@@ -2,6 +2,7 @@ package cn.lili.common.sensitive.quartz;
 
 import cn.lili.cache.Cache;
 import cn.lili.cache.CachePrefix;
+import cn.lili.common.properties.SystemSettingProperties;
 import cn.lili.common.sensitive.SensitiveWordsFilter;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.JobExecutionContext;
@@ -23,6 +24,9 @@ public class SensitiveQuartz extends QuartzJobBean {
     @Autowired
     private Cache<List<String>> cache;
 
+    @Autowired
+    private SystemSettingProperties systemSettingProperties;
+
     /**
      * 定时更新敏感词信息
      *
@@ -35,6 +39,6 @@ public class SensitiveQuartz extends QuartzJobBean {
         if (sensitives == null || sensitives.isEmpty()) {
             return;
         }
-        SensitiveWordsFilter.init(sensitives);
+        SensitiveWordsFilter.init(sensitives, systemSettingProperties.getSensitiveNoiseChars());
     }
 }
\ No newline at end of file
@@ -0,0 +1,205 @@
+package cn.lili.common.snowflake;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * 雪花ID生成器
+ * <p>
+ * 位布局与 hutool Snowflake 一致：41位时间戳（起始于 1288834974657）、5位数据中心、5位机器、12位序列号，
+ * 已生成的ID不受影响。最近一次分配的 时间戳+序列号 保存在一个 AtomicLong 中，通过 CAS 分配，无锁。
+ * <p>
+ * 时钟回拨不超过等待上限时等待时钟追上；超过时沿用上次的时间戳继续分配序列号，
+ * 序列号用完后借用下一毫秒，直到系统时钟追上，期间ID仍然递增且不重复。
+ * <p>
+ * 机器ID通过租约占用时，只分配不晚于租约截止时间的时间戳，租约未续期则停止生成；
+ * 接替其他节点的机器ID时，从上一持有者的截止时间之后开始分配，不受节点间时钟偏差影响。
+ */
+public class SnowflakeIdGenerator {
+
+    /**
+     * 时间戳起点，与 hutool Snowflake 默认值一致
+     */
+    public static final long EPOCH = 1288834974657L;
+
+    private static final long WORKER_ID_BITS = 5L;
+
+    private static final long DATA_CENTER_ID_BITS = 5L;
+
+    private static final long SEQUENCE_BITS = 12L;
+
+    public static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
+
+    public static final long MAX_DATA_CENTER_ID = ~(-1L << DATA_CENTER_ID_BITS);
+
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+
+    private static final long WORKER_ID_SHIFT = SEQUENCE_BITS;
+
+    private static final long DATA_CENTER_ID_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
+
+    private static final long TIMESTAMP_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS + DATA_CENTER_ID_BITS;
+
+    private final long workerId;
+
+    private final long dataCenterId;
+
+    /**
+     * 机器与数据中心部分，生成时直接合并
+     */
+    private final long node;
+
+    private final long maxBackwardWait;
+
+    private final LongSupplier clock;
+
+    /**
+     * 最近一次分配：(时间戳 - EPOCH) << 12 | 序列号
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * 借用后续毫秒分配的次数
+     */
+    private final AtomicLong borrowed = new AtomicLong();
+
+    /**
+     * 允许分配的最大时间戳，单位毫秒
+     */
+    private volatile long deadline = Long.MAX_VALUE;
+
+    public SnowflakeIdGenerator(long workerId, long dataCenterId, long maxBackwardWait) {
+        this(workerId, dataCenterId, maxBackwardWait, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(long workerId, long dataCenterId, long maxBackwardWait, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId must be between 0 and " + MAX_WORKER_ID);
+        }
+        if (dataCenterId < 0 || dataCenterId > MAX_DATA_CENTER_ID) {
+            throw new IllegalArgumentException("dataCenterId must be between 0 and " + MAX_DATA_CENTER_ID);
+        }
+        this.workerId = workerId;
+        this.dataCenterId = dataCenterId;
+        this.node = (dataCenterId << DATA_CENTER_ID_SHIFT) | (workerId << WORKER_ID_SHIFT);
+        this.maxBackwardWait = maxBackwardWait;
+        this.clock = clock;
+    }
+
+    /**
+     * 生成一个ID
+     *
+     * @return ID
+     */
+    public long nextId() {
+        return this.toId(this.reserve(1));
+    }
+
+    /**
+     * 一次 CAS 分配同一毫秒内连续的一批ID，数量受当前毫秒剩余序列号限制
+     *
+     * @param count 期望数量
+     * @return ID，数量在 1 到 count 之间
+     */
+    public long[] nextIds(int count) {
+        count = Math.max(1, count);
+        long start = this.reserve(count);
+        long[] ids = new long[(int) Math.min(count, SEQUENCE_MASK + 1 - (start & SEQUENCE_MASK))];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = this.toId(start + i);
+        }
+        return ids;
+    }
+
+    /**
+     * 分配序列号
+     *
+     * @param count 期望数量
+     * @return 分配的第一个 时间戳+序列号，数量为 min(count, 本毫秒剩余序列号)
+     */
+    private long reserve(int count) {
+        while (true) {
+            long current = last.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH;
+            long timestamp;
+            long sequence;
+            if (now > lastTimestamp) {
+                timestamp = now;
+                sequence = 0;
+            } else {
+                long backward = lastTimestamp - now;
+                if (backward > 0 && backward <= maxBackwardWait) {
+                    //小幅回拨，等待时钟追上
+                    LockSupport.parkNanos(backward * 1_000_000L);
+                    continue;
+                }
+                timestamp = lastTimestamp;
+                sequence = (current & SEQUENCE_MASK) + 1;
+                if (sequence > SEQUENCE_MASK) {
+                    if (backward == 0) {
+                        //本毫秒序列号用完，等待下一毫秒
+                        Thread.yield();
+                        continue;
+                    }
+                    //时钟已回拨，借用下一毫秒
+                    timestamp = lastTimestamp + 1;
+                    sequence = 0;
+                }
+            }
+            if (timestamp + EPOCH > deadline) {
+                throw new IllegalStateException("Snowflake worker lease expired at " + deadline + ", id generation stopped");
+            }
+            long end = Math.min(sequence + count - 1, SEQUENCE_MASK);
+            if (last.compareAndSet(current, (timestamp << SEQUENCE_BITS) | end)) {
+                if (timestamp > now) {
+                    borrowed.incrementAndGet();
+                }
+                return (timestamp << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * 从指定时间戳之后开始分配
+     *
+     * @param timestamp 时间戳，单位毫秒
+     */
+    public void startAfter(long timestamp) {
+        long after = ((timestamp - EPOCH) << SEQUENCE_BITS) | SEQUENCE_MASK;
+        last.accumulateAndGet(after, Math::max);
+    }
+
+    /**
+     * 设置允许分配的最大时间戳，租约续期后延长
+     *
+     * @param deadline 时间戳，单位毫秒
+     */
+    public void leaseUntil(long deadline) {
+        this.deadline = deadline;
+    }
+
+    private long toId(long timestampAndSequence) {
+        long timestamp = timestampAndSequence >>> SEQUENCE_BITS;
+        long sequence = timestampAndSequence & SEQUENCE_MASK;
+        return (timestamp << TIMESTAMP_SHIFT) | node | sequence;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    public long getDataCenterId() {
+        return dataCenterId;
+    }
+
+    /**
+     * 时钟回拨后借用后续毫秒分配的次数
+     *
+     * @return 次数
+     */
+    public long getBorrowed() {
+        return borrowed.get();
+    }
+}
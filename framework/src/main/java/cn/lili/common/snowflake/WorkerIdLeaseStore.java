@@ -0,0 +1,39 @@
+package cn.lili.common.snowflake;
+
+/**
+ * 机器ID租约存储
+ * 每个机器ID一个租约，持有者需在有效期内续期，过期后其他节点可以占用。
+ * 租约同时记录持有者允许分配的最大时间戳（截止时间），只增不减，新持有者从该时间戳之后开始生成ID
+ */
+public interface WorkerIdLeaseStore {
+
+    /**
+     * 占用机器ID，已被占用且未过期时失败
+     *
+     * @param workerId 机器ID
+     * @param owner    持有者
+     * @param ttl      有效期，单位毫秒
+     * @param deadline 本次租约的截止时间
+     * @return 占用前记录的截止时间，从未占用过为 0，占用失败为 -1
+     */
+    long claim(int workerId, String owner, long ttl, long deadline);
+
+    /**
+     * 续期，租约已过期或被其他节点占用时失败
+     *
+     * @param workerId 机器ID
+     * @param owner    持有者
+     * @param ttl      有效期，单位毫秒
+     * @param deadline 续期后的截止时间
+     * @return 是否续期成功
+     */
+    boolean renew(int workerId, String owner, long ttl, long deadline);
+
+    /**
+     * 释放，只释放自己持有的租约，截止时间保留
+     *
+     * @param workerId 机器ID
+     * @param owner    持有者
+     */
+    void release(int workerId, String owner);
+}
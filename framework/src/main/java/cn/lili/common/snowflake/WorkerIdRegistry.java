@@ -0,0 +1,162 @@
+package cn.lili.common.snowflake;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * 机器ID注册
+ * <p>
+ * 数据中心与机器ID共 1024 个，每个对应一个租约。从随机位置开始依次尝试占用，
+ * 节点在运行期间定时续期，停止时释放；节点异常退出时租约过期后可被其他节点占用。
+ * <p>
+ * 每次占用、续期都以 本地时间 + 有效期 作为截止时间，持有者只能分配截止时间之前的时间戳，
+ * 截止时间记录在租约存储中，新持有者从之前记录的截止时间之后开始分配，
+ * 因此释放后可立即被占用，续期失败时原持有者也会在截止时间停止分配。
+ */
+public class WorkerIdRegistry {
+
+    /**
+     * 可用的机器ID数量：数据中心 * 机器
+     */
+    public static final int MAX_SLOTS = (int) ((SnowflakeIdGenerator.MAX_DATA_CENTER_ID + 1) * (SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+
+    private final WorkerIdLeaseStore leaseStore;
+
+    /**
+     * 租约有效期，单位毫秒
+     */
+    private final long ttl;
+
+    private final LongSupplier clock;
+
+    /**
+     * 持有者标识，每个节点唯一
+     */
+    private final String owner = UUID.randomUUID().toString();
+
+    /**
+     * 当前持有的机器ID，未持有时为 -1
+     */
+    private volatile int slot = -1;
+
+    /**
+     * 当前租约的截止时间
+     */
+    private volatile long deadline;
+
+    /**
+     * 之前持有者的截止时间，需从其之后开始分配
+     */
+    private volatile long startAfter;
+
+    public WorkerIdRegistry(WorkerIdLeaseStore leaseStore, long ttl) {
+        this(leaseStore, ttl, System::currentTimeMillis);
+    }
+
+    public WorkerIdRegistry(WorkerIdLeaseStore leaseStore, long ttl, LongSupplier clock) {
+        this.leaseStore = leaseStore;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * 占用一个空闲的机器ID
+     *
+     * @return 机器ID，0 到 {@link #MAX_SLOTS} - 1
+     * @throws IllegalStateException 全部机器ID已被占用
+     */
+    public int claim() {
+        int start = ThreadLocalRandom.current().nextInt(MAX_SLOTS);
+        for (int i = 0; i < MAX_SLOTS; i++) {
+            int candidate = (start + i) % MAX_SLOTS;
+            //截止时间以请求前的本地时间计算，不晚于租约在存储中的实际过期时间
+            long claimDeadline = clock.getAsLong() + ttl;
+            long previous = leaseStore.claim(candidate, owner, ttl, claimDeadline);
+            if (previous >= 0) {
+                this.startAfter = previous;
+                this.deadline = claimDeadline;
+                this.slot = candidate;
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No free snowflake worker id, all " + MAX_SLOTS + " leases are held");
+    }
+
+    /**
+     * 续期当前持有的机器ID
+     *
+     * @return 是否续期成功，失败说明租约已过期并可能被其他节点占用，需重新占用
+     */
+    public boolean renew() {
+        int current = slot;
+        long renewDeadline = clock.getAsLong() + ttl;
+        if (current >= 0 && leaseStore.renew(current, owner, ttl, renewDeadline)) {
+            this.deadline = renewDeadline;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 释放当前持有的机器ID
+     */
+    public void release() {
+        int current = slot;
+        if (current >= 0) {
+            leaseStore.release(current, owner);
+            slot = -1;
+        }
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * 当前租约的截止时间，ID生成器不能分配晚于该时间的时间戳
+     *
+     * @return 时间戳，单位毫秒
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * 之前持有者的截止时间，ID生成器需从其之后开始分配
+     *
+     * @return 时间戳，单位毫秒，从未被占用过为 0
+     */
+    public long getStartAfter() {
+        return startAfter;
+    }
+
+    /**
+     * 租约是否已超过截止时间未续期
+     *
+     * @return 是否过期
+     */
+    public boolean isExpired() {
+        return clock.getAsLong() > deadline;
+    }
+
+    /**
+     * 机器ID对应的机器
+     *
+     * @param slot 机器ID
+     * @return 机器
+     */
+    public static long workerId(int slot) {
+        return slot % (SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+    }
+
+    /**
+     * 机器ID对应的数据中心
+     *
+     * @param slot 机器ID
+     * @return 数据中心
+     */
+    public static long dataCenterId(int slot) {
+        return slot / (SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+    }
+}
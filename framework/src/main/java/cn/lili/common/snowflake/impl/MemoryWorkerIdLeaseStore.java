@@ -0,0 +1,73 @@
+package cn.lili.common.snowflake.impl;
+
+import cn.lili.common.snowflake.WorkerIdLeaseStore;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 内存机器ID租约
+ * 语义与 Redis 租约脚本一致，数据只保存在当前进程，用于单机调试与测试
+ */
+public class MemoryWorkerIdLeaseStore implements WorkerIdLeaseStore {
+
+    private final Map<Integer, Lease> leases = new HashMap<>();
+
+    private final Map<Integer, Long> deadlines = new HashMap<>();
+
+    private final LongSupplier clock;
+
+    public MemoryWorkerIdLeaseStore() {
+        this(System::currentTimeMillis);
+    }
+
+    public MemoryWorkerIdLeaseStore(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized long claim(int workerId, String owner, long ttl, long deadline) {
+        long now = clock.getAsLong();
+        Lease existed = leases.get(workerId);
+        if (existed != null && existed.expireAt > now) {
+            return -1;
+        }
+        leases.put(workerId, new Lease(owner, now + ttl));
+        Long previous = deadlines.getOrDefault(workerId, 0L);
+        deadlines.put(workerId, Math.max(previous, deadline));
+        return previous;
+    }
+
+    @Override
+    public synchronized boolean renew(int workerId, String owner, long ttl, long deadline) {
+        long now = clock.getAsLong();
+        Lease existed = leases.get(workerId);
+        if (existed == null || !existed.owner.equals(owner) || existed.expireAt <= now) {
+            return false;
+        }
+        leases.put(workerId, new Lease(owner, now + ttl));
+        deadlines.merge(workerId, deadline, Math::max);
+        return true;
+    }
+
+    @Override
+    public synchronized void release(int workerId, String owner) {
+        Lease existed = leases.get(workerId);
+        if (existed != null && existed.owner.equals(owner)) {
+            leases.remove(workerId);
+        }
+    }
+
+    private static class Lease {
+
+        private final String owner;
+
+        private final long expireAt;
+
+        private Lease(String owner, long expireAt) {
+            this.owner = owner;
+            this.expireAt = expireAt;
+        }
+    }
+}
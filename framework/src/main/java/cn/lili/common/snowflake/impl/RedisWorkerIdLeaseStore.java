@@ -0,0 +1,69 @@
+package cn.lili.common.snowflake.impl;
+
+import cn.lili.cache.CachePrefix;
+import cn.lili.common.snowflake.WorkerIdLeaseStore;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Redis 机器ID租约
+ * 占用、续期与释放均通过脚本执行，续期与释放校验持有者，避免误操作其他节点的租约；
+ * 截止时间保存在单独的 key 中，不过期，与租约在同一脚本内更新。
+ * 脚本参数需为纯文本，使用 StringRedisTemplate 读写
+ */
+public class RedisWorkerIdLeaseStore implements WorkerIdLeaseStore {
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final DefaultRedisScript<Long> claimScript = script("script/snowflake_claim.lua");
+
+    private final DefaultRedisScript<Long> renewScript = script("script/snowflake_renew.lua");
+
+    private final DefaultRedisScript<Long> releaseScript = script("script/snowflake_release.lua");
+
+    public RedisWorkerIdLeaseStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public long claim(int workerId, String owner, long ttl, long deadline) {
+        Long result = redisTemplate.execute(claimScript, Arrays.asList(key(workerId), deadlineKey(workerId)),
+                owner, String.valueOf(ttl), String.valueOf(deadline));
+        return result == null ? -1 : result;
+    }
+
+    @Override
+    public boolean renew(int workerId, String owner, long ttl, long deadline) {
+        Long result = redisTemplate.execute(renewScript, Arrays.asList(key(workerId), deadlineKey(workerId)),
+                owner, String.valueOf(ttl), String.valueOf(deadline));
+        return result != null && result > 0;
+    }
+
+    @Override
+    public void release(int workerId, String owner) {
+        redisTemplate.execute(releaseScript, Collections.singletonList(key(workerId)), owner);
+    }
+
+    private static String key(int workerId) {
+        return CachePrefix.SNOWFLAKE_WORKER_LEASE.getPrefix() + workerId;
+    }
+
+    /**
+     * 截止时间与租约使用相同的 hash tag，集群模式下位于同一节点
+     */
+    private static String deadlineKey(int workerId) {
+        return CachePrefix.SNOWFLAKE_WORKER_LEASE.getPrefix() + "DEADLINE_" + workerId;
+    }
+
+    private static DefaultRedisScript<Long> script(String path) {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+}
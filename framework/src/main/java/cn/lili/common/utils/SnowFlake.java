@@ -1,7 +1,6 @@
 package cn.lili.common.utils;
 
-import cn.hutool.core.lang.Snowflake;
-import cn.hutool.core.util.IdUtil;
+import cn.lili.common.snowflake.SnowflakeIdGenerator;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Date;
@@ -14,16 +13,19 @@ import java.util.Date;
 @Slf4j
 public class SnowFlake {
 
-//    /**
-//     * 机器id
-//     */
-//    private static long workerId = 0L;
-//    /**
-//     * 机房id
-//     */
-//    public static long datacenterId = 0L;
+    /**
+     * 线程缓冲每次分配的ID数量
+     */
+    private static final int BUFFER_SIZE = 32;
+
+    /**
+     * 线程缓冲中ID的最长保留时间，单位毫秒，避免线程空闲后取到时间过早的ID
+     */
+    private static final long BUFFER_MAX_AGE = 10L;
+
+    private static final ThreadLocal<IdBuffer> BUFFER = ThreadLocal.withInitial(IdBuffer::new);
 
-    private static Snowflake snowflake;
+    private static volatile SnowflakeIdGenerator snowflake;
 
     /**
      * 初始化配置
@@ -32,13 +34,53 @@ public class SnowFlake {
      * @param datacenterId
      */
     public static void initialize(long workerId, long datacenterId) {
-        snowflake = IdUtil.getSnowflake(workerId, datacenterId);
+        initialize(workerId, datacenterId, 5L);
+    }
+
+    /**
+     * 初始化配置
+     *
+     * @param workerId        机器ID
+     * @param datacenterId    数据中心ID
+     * @param maxBackwardWait 时钟回拨等待上限，单位毫秒
+     */
+    public static void initialize(long workerId, long datacenterId, long maxBackwardWait) {
+        initialize(new SnowflakeIdGenerator(workerId, datacenterId, maxBackwardWait));
+    }
+
+    /**
+     * 切换ID生成器
+     *
+     * @param generator ID生成器
+     */
+    public static void initialize(SnowflakeIdGenerator generator) {
+        snowflake = generator;
     }
 
     public static long getId() {
         return snowflake.nextId();
     }
 
+    /**
+     * 从线程缓冲获取ID
+     * 缓冲一次 CAS 分配同一毫秒内连续的一批ID，适用于批量写入等高并发场景，
+     * 缓冲中的ID在短时间内未用完则丢弃，ID仍与生成时间大致有序
+     *
+     * @return ID
+     */
+    public static long getBufferedId() {
+        SnowflakeIdGenerator generator = snowflake;
+        IdBuffer buffer = BUFFER.get();
+        long now = System.currentTimeMillis();
+        if (buffer.generator != generator || buffer.index >= buffer.ids.length || now - buffer.time > BUFFER_MAX_AGE) {
+            buffer.generator = generator;
+            buffer.ids = generator.nextIds(BUFFER_SIZE);
+            buffer.index = 0;
+            buffer.time = now;
+        }
+        return buffer.ids[buffer.index++];
+    }
+
     /**
      * 生成字符，带有前缀
      *
@@ -52,4 +94,18 @@ public class SnowFlake {
     public static String getIdStr() {
         return snowflake.nextId() + "";
     }
+
+    /**
+     * 线程ID缓冲，只在所属线程内访问
+     */
+    private static class IdBuffer {
+
+        private SnowflakeIdGenerator generator;
+
+        private long[] ids = new long[0];
+
+        private int index;
+
+        private long time;
+    }
 }
@@ -1,14 +1,29 @@
 package cn.lili.common.utils;
 
-import cn.lili.cache.Cache;
+import cn.lili.common.properties.SnowflakeProperties;
+import cn.lili.common.snowflake.SnowflakeIdGenerator;
+import cn.lili.common.snowflake.WorkerIdLeaseStore;
+import cn.lili.common.snowflake.WorkerIdRegistry;
+import cn.lili.common.snowflake.impl.MemoryWorkerIdLeaseStore;
+import cn.lili.common.snowflake.impl.RedisWorkerIdLeaseStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * SnowflakeInitiator
+ * <p>
+ * 启动时通过租约占用一个空闲的机器ID，运行期间定时续期，停止时释放。
+ * 续期失败说明租约已过期并可能被其他节点占用，此时重新占用机器ID并切换ID生成器；
+ * 续期异常（如 Redis 不可用）时租约截止时间不再延长，超过截止时间后停止生成ID，直到续期或重新占用成功。
  *
  * @author Chopper
  * @version v1.0
@@ -18,37 +33,87 @@ import javax.annotation.PostConstruct;
 @Slf4j
 public class SnowflakeInitiator {
 
-    /**
-     * 缓存前缀
-     */
-    private static final String KEY = "{Snowflake}";
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
 
     @Autowired
-    private Cache cache;
+    private SnowflakeProperties snowflakeProperties;
+
+    private WorkerIdRegistry workerIdRegistry;
+
+    private volatile SnowflakeIdGenerator generator;
+
+    private ScheduledExecutorService scheduler;
 
     /**
      * 尝试初始化
-     *
-     * @return
      */
     @PostConstruct
     public void init() {
-        Long num = cache.incr(KEY);
-        long dataCenter = num / 32;
-        long workedId = num % 32;
-        //如果数据中心大于32，则抹除缓存，从头开始
-        if (dataCenter >= 32) {
-            cache.remove(KEY);
-            num = cache.incr(KEY);
-            dataCenter = num / 32;
-            workedId = num % 32;
+        WorkerIdLeaseStore leaseStore;
+        switch (snowflakeProperties.getLeaseStore()) {
+            case "MEMORY":
+                leaseStore = new MemoryWorkerIdLeaseStore();
+                break;
+            case "REDIS":
+            default:
+                leaseStore = new RedisWorkerIdLeaseStore(stringRedisTemplate);
+                break;
         }
-        SnowFlake.initialize(workedId, dataCenter);
+        workerIdRegistry = new WorkerIdRegistry(leaseStore, TimeUnit.SECONDS.toMillis(snowflakeProperties.getLeaseTtl()));
+        this.initialize(workerIdRegistry.claim());
+
+        long renewInterval = snowflakeProperties.getRenewInterval();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("snowflake-lease-"));
+        scheduler.scheduleWithFixedDelay(this::renew, renewInterval, renewInterval, TimeUnit.SECONDS);
     }
 
-    public static void main(String[] args) {
-        SnowFlake.initialize(0, 8);
+    /**
+     * 续期，失败时重新占用
+     */
+    private void renew() {
+        try {
+            if (workerIdRegistry.renew()) {
+                generator.leaseUntil(workerIdRegistry.getDeadline());
+            } else {
+                int previous = workerIdRegistry.getSlot();
+                this.initialize(workerIdRegistry.claim());
+                log.warn("雪花机器ID租约已失效，机器ID由 {} 切换为 {}", previous, workerIdRegistry.getSlot());
+            }
+        } catch (Exception e) {
+            if (workerIdRegistry.isExpired()) {
+                log.error("雪花机器ID租约续期异常，租约已过期，暂停生成ID", e);
+            } else {
+                log.error("雪花机器ID租约续期异常", e);
+            }
+        }
+    }
+
+    private void initialize(int slot) {
+        SnowflakeIdGenerator claimed = new SnowflakeIdGenerator(WorkerIdRegistry.workerId(slot), WorkerIdRegistry.dataCenterId(slot),
+                snowflakeProperties.getMaxBackwardWait());
+        claimed.startAfter(workerIdRegistry.getStartAfter());
+        claimed.leaseUntil(workerIdRegistry.getDeadline());
+        generator = claimed;
+        SnowFlake.initialize(claimed);
+        log.info("雪花机器ID初始化，机器ID:{}，数据中心:{}，机器:{}", slot, WorkerIdRegistry.dataCenterId(slot), WorkerIdRegistry.workerId(slot));
+    }
 
-        System.out.println(SnowFlake.getId());
+    /**
+     * 停止续期并释放机器ID，之后生成器仍可在截止时间前生成ID，
+     * 截止时间已记录在租约中，立即占用该机器ID的节点从截止时间之后开始分配
+     */
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (workerIdRegistry != null) {
+            try {
+                workerIdRegistry.release();
+            } catch (Exception e) {
+                log.error("雪花机器ID租约释放异常", e);
+            }
+        }
     }
-}
\ No newline at end of file
+}
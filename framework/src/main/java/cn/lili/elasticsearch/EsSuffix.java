@@ -18,4 +18,9 @@ public class EsSuffix {
      */
     public static final String LOGS_INDEX_NAME = "logs";
 
+    /**
+     * 订单索引后缀
+     */
+    public static final String ORDER_INDEX_NAME = "order";
+
 }
@@ -69,6 +69,16 @@ public class ElasticsearchProperties {
      */
     private Integer maxConnectTotal = 30;
 
+    /**
+     * 是否缓存商品搜索结果
+     */
+    private Boolean searchCache = true;
+
+    /**
+     * 商品搜索结果缓存时间(秒)，索引重建或批量变更时版本号递增，旧缓存不再命中；单个商品变更最多延迟该时间
+     */
+    private Long searchCacheTime = 300L;
+
     /**
      * 索引配置信息
      */
@@ -54,4 +54,12 @@ public interface DistributionOrderService extends IService<DistributionOrder> {
      */
     void completeOrder(StoreFlow storeFlow);
 
+    /**
+     * 分销订单批量完成
+     * 按分销员汇总解冻金额，每个分销员只更新一次
+     *
+     * @param storeFlows 店铺流水
+     */
+    void completeOrders(List<StoreFlow> storeFlows);
+
 }
\ No newline at end of file
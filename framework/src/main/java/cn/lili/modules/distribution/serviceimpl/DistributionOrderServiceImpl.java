@@ -31,6 +31,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * 分销订单接口实现
@@ -200,5 +203,37 @@ public class DistributionOrderServiceImpl extends ServiceImpl<DistributionOrderM
         }
     }
 
+    @Override
+    public void completeOrders(List<StoreFlow> storeFlows) {
+        //仅处理包含分销佣金的付款流水
+        Map<String, StoreFlow> flowMap = storeFlows.stream()
+                .filter(storeFlow -> storeFlow.getFlowType().equals(FlowTypeEnum.PAY.name())
+                        && storeFlow.getDistributionRebate() != null
+                        && storeFlow.getDistributionRebate() != 0)
+                .collect(Collectors.toMap(StoreFlow::getOrderItemSn, storeFlow -> storeFlow, (a, b) -> a));
+        if (flowMap.isEmpty()) {
+            return;
+        }
+        //批量获取分销订单
+        List<DistributionOrder> distributionOrders = this.list(new LambdaQueryWrapper<DistributionOrder>()
+                .in(DistributionOrder::getOrderItemSn, flowMap.keySet()));
+        if (distributionOrders.isEmpty()) {
+            return;
+        }
+        //按分销员汇总解冻金额，按ID排序更新，避免并发批次之间死锁
+        Map<String, Double> rebateMap = new TreeMap<>();
+        for (DistributionOrder distributionOrder : distributionOrders) {
+            StoreFlow storeFlow = flowMap.get(distributionOrder.getOrderItemSn());
+            StoreFlowProfitSharingDTO storeFlowProfitSharingDTO = JSONUtil.toBean(storeFlow.getProfitSharing(), StoreFlowProfitSharingDTO.class);
+            if (storeFlowProfitSharingDTO.getDistributionPrice() != null) {
+                rebateMap.merge(distributionOrder.getDistributionId(), storeFlowProfitSharingDTO.getDistributionPrice(), (a, b) -> CurrencyUtil.add(a, b));
+            }
+        }
+        rebateMap.forEach((distributionId, rebate) -> distributionService.addCanRebate(rebate, distributionId));
+        // 订单完成
+        this.update(new LambdaUpdateWrapper<DistributionOrder>()
+                .in(DistributionOrder::getId, distributionOrders.stream().map(DistributionOrder::getId).collect(Collectors.toList()))
+                .set(DistributionOrder::getDistributionOrderStatus, DistributionOrderStatusEnum.COMPLETE.name()));
+    }
 
-}
\ No newline at end of file
+}
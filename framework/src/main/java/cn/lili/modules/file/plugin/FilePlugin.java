@@ -37,6 +37,23 @@ public interface FilePlugin {
     String inputStreamUpload(InputStream inputStream, String key);
 
 
+    /**
+     * 私有文件流上传，文件不可公开读取，只能通过签名地址下载
+     *
+     * @param inputStream 文件流
+     * @param key         文件路径
+     */
+    void privateUpload(InputStream inputStream, String key);
+
+    /**
+     * 生成文件的临时下载地址
+     *
+     * @param key    文件路径
+     * @param expire 有效期，单位秒
+     * @return 签名下载地址
+     */
+    String signedUrl(String key, long expire);
+
     /**
      * 删除文件
      *
@@ -9,12 +9,14 @@ import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSS;
 import com.aliyun.oss.OSSClientBuilder;
 import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.CannedAccessControlList;
 import com.aliyun.oss.model.DeleteObjectsRequest;
 import com.aliyun.oss.model.ObjectMetadata;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -119,6 +121,39 @@ public class AliFilePlugin implements FilePlugin {
         return getUrlPrefix() + key;
     }
 
+    @Override
+    public void privateUpload(InputStream inputStream, String key) {
+        OSS ossClient = getOssClient();
+        try {
+            ObjectMetadata meta = new ObjectMetadata();
+            meta.setContentType("application/octet-stream");
+            meta.setObjectAcl(CannedAccessControlList.Private);
+            ossClient.putObject(ossSetting.getAliyunOSSBucketName(), key, inputStream, meta);
+        } catch (OSSException oe) {
+            log.error("私有文件上传失败，Error Code:{}，Error Message:{}", oe.getErrorCode(), oe.getErrorMessage());
+            throw new ServiceException(ResultCode.OSS_EXCEPTION_ERROR);
+        } catch (ClientException ce) {
+            log.error("私有文件上传失败，Error Message:{}", ce.getMessage());
+            throw new ServiceException(ResultCode.OSS_EXCEPTION_ERROR);
+        } finally {
+            ossClient.shutdown();
+        }
+    }
+
+    @Override
+    public String signedUrl(String key, long expire) {
+        OSS ossClient = getOssClient();
+        try {
+            return ossClient.generatePresignedUrl(ossSetting.getAliyunOSSBucketName(), key,
+                    new Date(System.currentTimeMillis() + expire * 1000)).toString();
+        } catch (ClientException ce) {
+            log.error("签名地址生成失败，Error Message:{}", ce.getMessage());
+            throw new ServiceException(ResultCode.OSS_EXCEPTION_ERROR);
+        } finally {
+            ossClient.shutdown();
+        }
+    }
+
     @Override
     public void deleteFile(List<String> key) {
         OSS ossClient = getOssClient();
@@ -7,10 +7,13 @@ import cn.lili.modules.file.plugin.FilePlugin;
 import cn.lili.modules.system.entity.dto.OssSetting;
 import com.obs.services.ObsClient;
 import com.obs.services.exception.ObsException;
+import com.obs.services.model.AccessControlList;
 import com.obs.services.model.DeleteObjectsRequest;
 import com.obs.services.model.DeleteObjectsResult;
 import com.obs.services.model.ListVersionsResult;
+import com.obs.services.model.HttpMethodEnum;
 import com.obs.services.model.PutObjectRequest;
+import com.obs.services.model.TemporarySignatureRequest;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
@@ -91,6 +94,47 @@ public class HuaweiFilePlugin implements FilePlugin {
         return getUrlPrefix() + key;
     }
 
+    @Override
+    public void privateUpload(InputStream inputStream, String key) {
+        ObsClient obsClient = getObsClient();
+        try {
+            PutObjectRequest putObjectRequest = new PutObjectRequest(ossSetting.getHuaweicloudOBSBucketName(), key, inputStream);
+            putObjectRequest.setAcl(AccessControlList.REST_CANNED_PRIVATE);
+            obsClient.putObject(putObjectRequest);
+        } catch (ObsException obsException) {
+            log.error("私有文件上传失败，Error Code:{}，Error Message:{}", obsException.getErrorCode(), obsException.getErrorMessage());
+            throw new ServiceException(ResultCode.OSS_EXCEPTION_ERROR);
+        } finally {
+            try {
+                // 关闭OBS连接
+                obsClient.close();
+            } catch (IOException e) {
+                log.error("关闭OBS连接失败", e);
+            }
+        }
+    }
+
+    @Override
+    public String signedUrl(String key, long expire) {
+        ObsClient obsClient = getObsClient();
+        try {
+            TemporarySignatureRequest request = new TemporarySignatureRequest(HttpMethodEnum.GET, expire);
+            request.setBucketName(ossSetting.getHuaweicloudOBSBucketName());
+            request.setObjectKey(key);
+            return obsClient.createTemporarySignature(request).getSignedUrl();
+        } catch (ObsException obsException) {
+            log.error("签名地址生成失败，Error Code:{}，Error Message:{}", obsException.getErrorCode(), obsException.getErrorMessage());
+            throw new ServiceException(ResultCode.OSS_EXCEPTION_ERROR);
+        } finally {
+            try {
+                // 关闭OBS连接
+                obsClient.close();
+            } catch (IOException e) {
+                log.error("关闭OBS连接失败", e);
+            }
+        }
+    }
+
     @Override
     public void deleteFile(List<String> keys) {
         ObsClient obsClient = getObsClient();
@@ -7,6 +7,7 @@ import cn.lili.modules.file.plugin.FilePlugin;
 import cn.lili.modules.system.entity.dto.OssSetting;
 import io.minio.*;
 import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
 import io.minio.messages.DeleteError;
 import io.minio.messages.DeleteObject;
 import lombok.extern.slf4j.Slf4j;
@@ -91,6 +92,39 @@ public class MinioFilePlugin implements FilePlugin {
     }
 
 
+    /**
+     * minio 没有对象级权限，文件的读取权限由桶策略决定，调用方需使用不可猜测的路径
+     */
+    @Override
+    public void privateUpload(InputStream inputStream, String key) {
+        try {
+            PutObjectArgs putObjectArgs = PutObjectArgs.builder()
+                    .bucket(ossSetting.getM_bucketName()).stream(inputStream, inputStream.available(), 5 * 1024 * 1024)
+                    .object(key)
+                    .contentType("application/octet-stream")
+                    .build();
+            getOssClient().putObject(putObjectArgs);
+        } catch (Exception e) {
+            log.error("私有文件上传失败，", e);
+            throw new ServiceException(ResultCode.OSS_EXCEPTION_ERROR, e.getMessage());
+        }
+    }
+
+    @Override
+    public String signedUrl(String key, long expire) {
+        try {
+            return getOssClient().getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(Method.GET)
+                    .bucket(ossSetting.getM_bucketName())
+                    .object(key)
+                    .expiry((int) expire)
+                    .build());
+        } catch (Exception e) {
+            log.error("签名地址生成失败，", e);
+            throw new ServiceException(ResultCode.OSS_EXCEPTION_ERROR, e.getMessage());
+        }
+    }
+
     @Override
     public void deleteFile(List<String> key) {
         if (key == null || key.isEmpty()) {
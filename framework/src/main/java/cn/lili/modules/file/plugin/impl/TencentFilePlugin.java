@@ -12,14 +12,17 @@ import com.qcloud.cos.auth.COSCredentials;
 import com.qcloud.cos.exception.CosClientException;
 import com.qcloud.cos.exception.CosServiceException;
 import com.qcloud.cos.http.HttpProtocol;
+import com.qcloud.cos.model.CannedAccessControlList;
 import com.qcloud.cos.model.DeleteObjectsRequest;
 import com.qcloud.cos.model.ObjectMetadata;
+import com.qcloud.cos.model.PutObjectRequest;
 import com.qcloud.cos.region.Region;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -100,6 +103,37 @@ public class TencentFilePlugin implements FilePlugin {
         return getUrlPrefix() + key;
     }
 
+    @Override
+    public void privateUpload(InputStream inputStream, String key) {
+        COSClient cosClient = getCOSClient();
+        try {
+            ObjectMetadata meta = new ObjectMetadata();
+            meta.setContentType("application/octet-stream");
+            PutObjectRequest putObjectRequest = new PutObjectRequest(ossSetting.getTencentCOSBucket(), key, inputStream, meta);
+            putObjectRequest.setCannedAcl(CannedAccessControlList.Private);
+            cosClient.putObject(putObjectRequest);
+        } catch (CosClientException ce) {
+            log.error("私有文件上传失败，Error Message:{}", ce.getMessage());
+            throw new ServiceException(ResultCode.OSS_EXCEPTION_ERROR);
+        } finally {
+            cosClient.shutdown();
+        }
+    }
+
+    @Override
+    public String signedUrl(String key, long expire) {
+        COSClient cosClient = getCOSClient();
+        try {
+            return cosClient.generatePresignedUrl(ossSetting.getTencentCOSBucket(), key,
+                    new Date(System.currentTimeMillis() + expire * 1000)).toString();
+        } catch (CosClientException ce) {
+            log.error("签名地址生成失败，Error Message:{}", ce.getMessage());
+            throw new ServiceException(ResultCode.OSS_EXCEPTION_ERROR);
+        } finally {
+            cosClient.shutdown();
+        }
+    }
+
     @Override
     public void deleteFile(List<String> keys) {
         COSClient cosClient = getCOSClient();
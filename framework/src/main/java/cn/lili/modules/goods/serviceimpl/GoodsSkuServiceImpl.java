@@ -10,7 +10,11 @@ import cn.lili.cache.CachePrefix;
 import cn.lili.common.enums.PromotionTypeEnum;
 import cn.lili.common.enums.ResultCode;
 import cn.lili.common.event.TransactionCommitSendMQEvent;
+import cn.lili.common.excel.ExcelColumn;
+import cn.lili.common.excel.KeysetReader;
+import cn.lili.common.excel.StreamingExcelWriter;
 import cn.lili.common.exception.ServiceException;
+import cn.lili.common.properties.ExportProperties;
 import cn.lili.common.properties.RocketmqCustomProperties;
 import cn.lili.common.security.AuthUser;
 import cn.lili.common.security.context.UserContext;
@@ -53,6 +57,7 @@ import cn.lili.rocketmq.RocketmqSendCallbackBuilder;
 import cn.lili.rocketmq.tags.GoodsTagsEnum;
 import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
@@ -60,7 +65,6 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellRangeAddressList;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
@@ -68,11 +72,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URLEncoder;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -85,6 +87,27 @@ import java.util.stream.Collectors;
 @Service
 public class GoodsSkuServiceImpl extends ServiceImpl<GoodsSkuMapper, GoodsSku> implements GoodsSkuService {
 
+    /**
+     * 商品库存导出列
+     */
+    private static final List<ExcelColumn<GoodsSkuStockDTO>> STOCK_EXPORT_COLUMNS = Arrays.asList(
+            ExcelColumn.of("商品ID", 30, GoodsSkuStockDTO::getGoodsId),
+            ExcelColumn.of("商品名称", 30, GoodsSkuStockDTO::getGoodsName),
+            ExcelColumn.of("规格ID(SKUID)", 30, GoodsSkuStockDTO::getSkuId),
+            ExcelColumn.of("规格名称", 30, GoodsSkuStockDTO::getSimpleSpecs),
+            ExcelColumn.of("货号", 30, GoodsSkuStockDTO::getSn),
+            ExcelColumn.of("当前库存数量", 15, GoodsSkuStockDTO::getQuantity));
+
+    /**
+     * 商品规格导出列
+     */
+    private static final List<ExcelColumn<GoodsSkuStockDTO>> SKU_EXPORT_COLUMNS = Arrays.asList(
+            ExcelColumn.of("商品ID", 30, GoodsSkuStockDTO::getGoodsId),
+            ExcelColumn.of("商品名称", 30, GoodsSkuStockDTO::getGoodsName),
+            ExcelColumn.of("规格ID(SKUID)", 30, GoodsSkuStockDTO::getSkuId),
+            ExcelColumn.of("规格名称", 30, GoodsSkuStockDTO::getSimpleSpecs),
+            ExcelColumn.of("货号", 30, GoodsSkuStockDTO::getSn));
+
     /**
      * 缓存
      */
@@ -136,6 +159,9 @@ public class GoodsSkuServiceImpl extends ServiceImpl<GoodsSkuMapper, GoodsSku> i
     @Autowired
     private List<SalesModelRender> salesModelRenders;
 
+    @Autowired
+    private ExportProperties exportProperties;
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void add(Goods goods, GoodsOperationDTO goodsOperationDTO) {
@@ -508,24 +534,25 @@ public class GoodsSkuServiceImpl extends ServiceImpl<GoodsSkuMapper, GoodsSku> i
 
     @Override
     public void queryExportStock(HttpServletResponse response, GoodsSearchParams searchParams) {
-        List<GoodsSkuStockDTO> goodsSkuStockDTOList = this.baseMapper.queryStocks(searchParams.queryWrapper());
-        XSSFWorkbook workbook = initStockExportData(goodsSkuStockDTOList);
-        try {
-            // 设置响应头
-            String fileName = URLEncoder.encode("商品库存", "UTF-8");
-            response.setContentType("application/vnd.ms-excel;charset=UTF-8");
-            response.setHeader("Content-Disposition", "attachment;filename=" + fileName + ".xlsx");
-
-            ServletOutputStream out = response.getOutputStream();
-            workbook.write(out);
+        try (StreamingExcelWriter writer = new StreamingExcelWriter()) {
+            // 创建模板
+            this.createTemplate(writer.getWorkbook());
+            // 创建sku库存列表、sku列表，两个工作表同一批数据同时写入
+            StreamingExcelWriter.SheetWriter<GoodsSkuStockDTO> stockWriter = writer.createSheet("商品库存信息", STOCK_EXPORT_COLUMNS);
+            StreamingExcelWriter.SheetWriter<GoodsSkuStockDTO> skuWriter = writer.createSheet("商品规格", SKU_EXPORT_COLUMNS);
+            KeysetReader.read(exportProperties.getChunkSize(), (GoodsSkuStockDTO last, Integer size) -> {
+                QueryWrapper<GoodsSku> queryWrapper = searchParams.queryWrapper();
+                queryWrapper.gt(last != null, "id", last == null ? null : last.getSkuId());
+                queryWrapper.orderByAsc("id");
+                queryWrapper.last("LIMIT " + size);
+                return this.baseMapper.queryStocks(queryWrapper);
+            }, chunk -> {
+                stockWriter.writeAll(chunk);
+                skuWriter.writeAll(chunk);
+            });
+            writer.write(response, "商品库存");
         } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            try {
-                workbook.close();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            log.error("导出商品库存异常", e);
         }
     }
 
@@ -972,30 +999,12 @@ public class GoodsSkuServiceImpl extends ServiceImpl<GoodsSkuMapper, GoodsSku> i
         return skuSpecVOList;
     }
 
-    /**
-     * 初始化填充商品库存导出数据
-     *
-     * @param goodsSkuStockDTOList 导出的库存数据
-     * @return 商品库存导出列表
-     */
-    private XSSFWorkbook initStockExportData(List<GoodsSkuStockDTO> goodsSkuStockDTOList) {
-
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        // 创建模板
-        this.createTemplate(workbook);
-        // 创建sku库存列表
-        this.skuStockList(workbook, goodsSkuStockDTOList);
-        // 创建sku库存列表
-        this.skuList(workbook, goodsSkuStockDTOList);
-        return workbook;
-    }
-
     /**
      * 创建模板
      *
      * @param workbook
      */
-    private void createTemplate(XSSFWorkbook workbook) {
+    private void createTemplate(Workbook workbook) {
         Sheet templateSheet = workbook.createSheet("商品库存编辑模板");
 
         // 创建表头
@@ -1047,76 +1056,4 @@ public class GoodsSkuServiceImpl extends ServiceImpl<GoodsSkuMapper, GoodsSku> i
         templateSheet.addValidationData(validation);
     }
 
-    /**
-     * 创建sku库存列表
-     *
-     * @param workbook
-     */
-    private void skuStockList(XSSFWorkbook workbook, List<GoodsSkuStockDTO> goodsSkuStockDTOList) {
-        Sheet skuListSheet = workbook.createSheet("商品库存信息");
-
-        // 创建表头
-        Row header = skuListSheet.createRow(0);
-
-        String[] headers = {"商品ID", "商品名称", "规格ID(SKUID)", "规格名称", "货号", "当前库存数量"};
-
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = header.createCell(i);
-            cell.setCellValue(headers[i]);
-        }
-
-
-        // 填充数据
-        for (int i = 0; i < goodsSkuStockDTOList.size(); i++) {
-            GoodsSkuStockDTO dto = goodsSkuStockDTOList.get(i);
-            Row row = skuListSheet.createRow(i + 1);
-            row.createCell(0).setCellValue(dto.getGoodsId());
-            row.createCell(1).setCellValue(dto.getGoodsName());
-            row.createCell(2).setCellValue(dto.getSkuId());
-            row.createCell(3).setCellValue(dto.getSimpleSpecs());
-            row.createCell(4).setCellValue(dto.getSn());
-            row.createCell(5).setCellValue(dto.getQuantity());
-        }
-
-        //修改列宽
-        skuListSheet.setColumnWidth(0, 30 * 256);
-        skuListSheet.setColumnWidth(1, 30 * 256);
-        skuListSheet.setColumnWidth(2, 30 * 256);
-        skuListSheet.setColumnWidth(3, 30 * 256);
-        skuListSheet.setColumnWidth(4, 30 * 256);
-        skuListSheet.setColumnWidth(5, 15 * 256);
-    }
-
-    private void skuList(XSSFWorkbook workbook, List<GoodsSkuStockDTO> goodsSkuStockDTOList) {
-        Sheet skuListSheet = workbook.createSheet("商品规格");
-
-        // 创建表头
-        Row header = skuListSheet.createRow(0);
-
-        String[] headers = {"商品ID", "商品名称", "规格ID(SKUID)", "规格名称", "货号"};
-
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = header.createCell(i);
-            cell.setCellValue(headers[i]);
-        }
-
-        // 填充数据
-        for (int i = 0; i < goodsSkuStockDTOList.size(); i++) {
-            GoodsSkuStockDTO dto = goodsSkuStockDTOList.get(i);
-            Row row = skuListSheet.createRow(i + 1);
-            row.createCell(0).setCellValue(dto.getGoodsId());
-            row.createCell(1).setCellValue(dto.getGoodsName());
-            row.createCell(2).setCellValue(dto.getSkuId());
-            row.createCell(3).setCellValue(dto.getSimpleSpecs());
-            row.createCell(4).setCellValue(dto.getSn());
-        }
-
-        //修改列宽
-        skuListSheet.setColumnWidth(0, 30 * 256);
-        skuListSheet.setColumnWidth(1, 30 * 256);
-        skuListSheet.setColumnWidth(2, 30 * 256);
-        skuListSheet.setColumnWidth(3, 30 * 256);
-        skuListSheet.setColumnWidth(4, 30 * 256);
-    }
-
 }
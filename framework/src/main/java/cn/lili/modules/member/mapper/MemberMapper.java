@@ -7,10 +7,11 @@ import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.toolkit.Constants;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
-
-import java.util.List;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 /**
  * 会员数据处理层
@@ -21,11 +22,14 @@ import java.util.List;
 public interface MemberMapper extends BaseMapper<Member> {
 
     /**
-     * 获取所有的会员手机号
-     * @return 会员手机号
+     * 流式读取会员手机号，按手机号升序去重，逐条交给 handler 处理，不在内存中保存全部手机号
+     *
+     * @param after   从该手机号之后开始读取
+     * @param handler 手机号处理
      */
-    @Select("select m.mobile from li_member m")
-    List<String> getAllMemberMobile();
+    @Select("select distinct m.mobile from li_member m where m.mobile > #{after} order by m.mobile")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void streamMemberMobile(@Param("after") String after, ResultHandler<String> handler);
 
     @Select("select * from li_member ${ew.customSqlSegment}")
     IPage<MemberVO> pageByMemberVO(IPage<MemberVO> page, @Param(Constants.WRAPPER) Wrapper<Member> queryWrapper);
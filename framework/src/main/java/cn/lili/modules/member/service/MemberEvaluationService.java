@@ -51,6 +51,15 @@ public interface MemberEvaluationService extends IService<MemberEvaluation> {
      */
     MemberEvaluationDTO addMemberEvaluation(MemberEvaluationDTO memberEvaluationDTO, Boolean isSelf);
 
+    /**
+     * 批量系统默认好评
+     * 仅处理仍为待评价状态的子订单，评价批量写入，子订单批量修改为已评价
+     *
+     * @param orderItemSns 子订单编号
+     * @return 实际评价的子订单数量
+     */
+    int batchSystemEvaluation(List<String> orderItemSns);
+
     /**
      * 根据ID查询会员评价
      *
@@ -18,6 +18,7 @@ import com.baomidou.mybatisplus.extension.service.IService;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * 会员业务层
@@ -291,11 +292,13 @@ public interface MemberService extends IService<Member> {
     void resetPassword(List<String> ids);
 
     /**
-     * 获取所有会员的手机号
+     * 流式读取会员手机号
+     * 按手机号升序去重，逐条交给 consumer 处理，不在内存中保存全部手机号，不能在事务中调用
      *
-     * @return 所有会员的手机号
+     * @param after    从该手机号之后开始读取，为空时从头读取
+     * @param consumer 手机号处理
      */
-    List<String> getAllMemberMobile();
+    void streamMemberMobile(String after, Consumer<String> consumer);
 
     /**
      * 更新会员登录时间为最新时间
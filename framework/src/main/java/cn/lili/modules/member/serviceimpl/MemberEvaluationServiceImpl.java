@@ -40,13 +40,17 @@ import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * 会员商品评价业务层实现
@@ -54,6 +58,7 @@ import java.util.Map;
  * @author Bulbasaur
  * @since 2020-02-25 14:10:16
  */
+@Slf4j
 @Service
 public class MemberEvaluationServiceImpl extends ServiceImpl<MemberEvaluationMapper, MemberEvaluation> implements MemberEvaluationService {
 
@@ -152,6 +157,65 @@ public class MemberEvaluationServiceImpl extends ServiceImpl<MemberEvaluationMap
         return memberEvaluationDTO;
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int batchSystemEvaluation(List<String> orderItemSns) {
+        if (orderItemSns == null || orderItemSns.isEmpty()) {
+            return 0;
+        }
+        //锁定仍为待评价的子订单，避免重复评价
+        List<OrderItem> orderItems = orderItemService.list(new LambdaQueryWrapper<OrderItem>()
+                .in(OrderItem::getSn, orderItemSns)
+                .eq(OrderItem::getCommentStatus, CommentStatusEnum.UNFINISHED.name())
+                .last("FOR UPDATE"));
+        if (orderItems.isEmpty()) {
+            return 0;
+        }
+        //批量获取订单、会员
+        List<String> orderSns = orderItems.stream().map(OrderItem::getOrderSn).distinct().collect(Collectors.toList());
+        Map<String, Order> orderMap = orderService.list(new LambdaQueryWrapper<Order>().in(Order::getSn, orderSns)).stream()
+                .collect(Collectors.toMap(Order::getSn, order -> order, (a, b) -> a));
+        List<String> memberIds = orderMap.values().stream().map(Order::getMemberId).distinct().collect(Collectors.toList());
+        Map<String, Member> memberMap = memberIds.isEmpty() ? new HashMap<>() : memberService.listByIds(memberIds).stream()
+                .collect(Collectors.toMap(Member::getId, member -> member, (a, b) -> a));
+        Map<String, GoodsSku> skuMap = new HashMap<>();
+
+        List<MemberEvaluation> memberEvaluations = new ArrayList<>(orderItems.size());
+        for (OrderItem orderItem : orderItems) {
+            Order order = orderMap.get(orderItem.getOrderSn());
+            Member member = order == null ? null : memberMap.get(order.getMemberId());
+            GoodsSku goodsSku = skuMap.computeIfAbsent(orderItem.getSkuId(), goodsSkuService::getGoodsSkuByIdFromCache);
+            if (order == null || member == null || goodsSku == null) {
+                //数据缺失时只修改评价状态，避免无限调用评价异常
+                log.error("子订单[{}]自动评价失败，订单、会员或商品不存在", orderItem.getSn());
+                continue;
+            }
+            MemberEvaluationDTO memberEvaluationDTO = new MemberEvaluationDTO();
+            memberEvaluationDTO.setOrderItemSn(orderItem.getSn());
+            memberEvaluationDTO.setContent("系统默认好评");
+            memberEvaluationDTO.setGoodsId(orderItem.getGoodsId());
+            memberEvaluationDTO.setSkuId(orderItem.getSkuId());
+            memberEvaluationDTO.setGrade(EvaluationGradeEnum.GOOD.name());
+            memberEvaluationDTO.setDeliveryScore(5);
+            memberEvaluationDTO.setDescriptionScore(5);
+            memberEvaluationDTO.setServiceScore(5);
+            memberEvaluations.add(new MemberEvaluation(memberEvaluationDTO, goodsSku, member, order));
+        }
+        if (!memberEvaluations.isEmpty()) {
+            this.saveBatch(memberEvaluations);
+        }
+        //批量修改订单货物评价状态为已评价
+        orderItemService.update(new LambdaUpdateWrapper<OrderItem>()
+                .in(OrderItem::getSn, orderItems.stream().map(OrderItem::getSn).collect(Collectors.toList()))
+                .set(OrderItem::getCommentStatus, CommentStatusEnum.FINISHED.name()));
+        //发送商品评价消息
+        for (MemberEvaluation memberEvaluation : memberEvaluations) {
+            applicationEventPublisher.publishEvent(new TransactionCommitSendMQEvent("同步商品评价消息",
+                    rocketmqCustomProperties.getGoodsTopic(), GoodsTagsEnum.GOODS_COMMENT_COMPLETE.name(), JSONUtil.toJsonStr(memberEvaluation)));
+        }
+        return memberEvaluations.size();
+    }
+
     @Override
     public MemberEvaluationVO queryById(String id) {
         return new MemberEvaluationVO(this.getById(id));
@@ -59,6 +59,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * 会员接口业务层实现
@@ -732,14 +733,9 @@ public class MemberServiceImpl extends ServiceImpl<MemberMapper, Member> impleme
         }
     }
 
-    /**
-     * 获取所有会员的手机号
-     *
-     * @return 所有会员的手机号
-     */
     @Override
-    public List<String> getAllMemberMobile() {
-        return this.baseMapper.getAllMemberMobile();
+    public void streamMemberMobile(String after, Consumer<String> consumer) {
+        this.baseMapper.streamMemberMobile(after == null ? "" : after, context -> consumer.accept(context.getResultObject()));
     }
 
     /**
@@ -0,0 +1,47 @@
+package cn.lili.modules.message.entity.dos;
+
+import cn.lili.modules.message.entity.enums.MessageStatusEnum;
+import cn.lili.mybatis.BaseIdEntity;
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.util.Date;
+
+/**
+ * 会员全员消息状态
+ * 全员消息只保存一份，会员已读或放入回收站时才记录该会员的状态，没有记录即为未读
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+@TableName("li_member_message_state")
+@ApiModel(value = "会员全员消息状态")
+public class MemberMessageState extends BaseIdEntity {
+
+    private static final long serialVersionUID = 1L;
+
+    @ApiModelProperty(value = "会员id")
+    private String memberId;
+
+    @ApiModelProperty(value = "全员消息id")
+    private String messageId;
+
+    /**
+     * @see MessageStatusEnum
+     */
+    @ApiModelProperty(value = "状态")
+    private String status;
+
+    @JsonFormat(timezone = "GMT+8", pattern = "yyyy-MM-dd HH:mm:ss")
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @TableField(fill = FieldFill.INSERT)
+    @ApiModelProperty(value = "创建时间", hidden = true)
+    private Date createTime;
+
+}
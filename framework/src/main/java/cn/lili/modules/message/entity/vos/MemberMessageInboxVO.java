@@ -0,0 +1,26 @@
+package cn.lili.modules.message.entity.vos;
+
+import cn.lili.modules.message.entity.dos.MemberMessage;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 会员收件箱
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ApiModel(value = "会员收件箱")
+public class MemberMessageInboxVO {
+
+    @ApiModelProperty(value = "会员消息，指定会员消息与全员消息按发送时间倒序")
+    private List<MemberMessage> records;
+
+    @ApiModelProperty(value = "下一页游标，没有更多消息时为空")
+    private String cursor;
+}
@@ -0,0 +1,21 @@
+package cn.lili.modules.message.mapper;
+
+import cn.lili.modules.message.entity.dos.MemberMessageState;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+
+/**
+ * 会员全员消息状态数据处理层
+ */
+public interface MemberMessageStateMapper extends BaseMapper<MemberMessageState> {
+
+    /**
+     * 保存会员全员消息状态，已有记录时更新状态
+     *
+     * @param state 会员全员消息状态
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO li_member_message_state (id, member_id, message_id, status, create_time) " +
+            "VALUES (#{id}, #{memberId}, #{messageId}, #{status}, NOW()) ON DUPLICATE KEY UPDATE status = #{status}")
+    int upsert(MemberMessageState state);
+}
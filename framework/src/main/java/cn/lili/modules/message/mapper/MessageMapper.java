@@ -1,7 +1,14 @@
 package cn.lili.modules.message.mapper;
 
+import cn.lili.modules.message.entity.dos.MemberMessage;
 import cn.lili.modules.message.entity.dos.Message;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 /**
  * 管理端发送消息内容数据处理层
@@ -9,4 +16,26 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  * @since 2020/12/2 17:50
  */
 public interface MessageMapper extends BaseMapper<Message> {
-}
\ No newline at end of file
+
+    /**
+     * 查询会员的全员消息，状态取自会员全员消息状态，没有记录为未读
+     *
+     * @param memberId     会员id
+     * @param queryWrapper 查询条件
+     * @return 全员消息
+     */
+    @Select("SELECT m.id, m.title, m.content, m.create_time, IFNULL(s.status, 'UN_READY') AS status FROM li_message m " +
+            "LEFT JOIN li_member_message_state s ON s.message_id = m.id AND s.member_id = #{memberId} ${ew.customSqlSegment}")
+    List<MemberMessage> selectMemberBroadcasts(@Param("memberId") String memberId, @Param(Constants.WRAPPER) Wrapper<MemberMessage> queryWrapper);
+
+    /**
+     * 统计会员的全员消息
+     *
+     * @param memberId     会员id
+     * @param queryWrapper 查询条件
+     * @return 全员消息数量
+     */
+    @Select("SELECT COUNT(*) FROM li_message m " +
+            "LEFT JOIN li_member_message_state s ON s.message_id = m.id AND s.member_id = #{memberId} ${ew.customSqlSegment}")
+    long countMemberBroadcasts(@Param("memberId") String memberId, @Param(Constants.WRAPPER) Wrapper<MemberMessage> queryWrapper);
+}
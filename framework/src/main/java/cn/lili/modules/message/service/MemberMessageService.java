@@ -2,6 +2,7 @@ package cn.lili.modules.message.service;
 
 import cn.lili.common.vo.PageVO;
 import cn.lili.modules.message.entity.dos.MemberMessage;
+import cn.lili.modules.message.entity.vos.MemberMessageInboxVO;
 import cn.lili.modules.message.entity.vos.MemberMessageQueryVO;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
@@ -51,5 +52,43 @@ public interface MemberMessageService extends IService<MemberMessage> {
      */
     boolean save(List<MemberMessage> messages);
 
+    /**
+     * 会员收件箱，合并指定会员消息与全员消息，按游标分页
+     *
+     * @param memberMessageQueryVO 查询条件，会员id必填
+     * @param cursor               上一页返回的游标，第一页为空
+     * @param pageSize             每页数量
+     * @return 收件箱一页
+     */
+    MemberMessageInboxVO getInbox(MemberMessageQueryVO memberMessageQueryVO, String cursor, Integer pageSize);
+
+    /**
+     * 会员收件箱，合并指定会员消息与全员消息，按页码分页
+     * 翻页开销随页数增长，新接入请使用游标分页
+     *
+     * @param memberMessageQueryVO 查询条件，会员id必填
+     * @param pageVO               分页条件
+     * @return 会员消息分页
+     */
+    IPage<MemberMessage> getInboxPage(MemberMessageQueryVO memberMessageQueryVO, PageVO pageVO);
+
+    /**
+     * 会员未读消息数量，包含未读的全员消息
+     *
+     * @param memberId 会员id
+     * @return 未读消息数量
+     */
+    long unreadNum(String memberId);
+
+    /**
+     * 修改会员收件箱中消息的状态
+     * 指定会员消息直接修改，全员消息记录该会员的状态
+     *
+     * @param memberId 会员id
+     * @param status   状态
+     * @param id       收件箱中的消息id
+     * @return 操作状态
+     */
+    Boolean editStatus(String memberId, String status, String id);
 
-}
\ No newline at end of file
+}
@@ -4,15 +4,28 @@ package cn.lili.modules.message.serviceimpl;
 import cn.lili.mybatis.util.PageUtil;
 import cn.lili.common.utils.StringUtils;
 import cn.lili.common.vo.PageVO;
+import cn.lili.common.utils.SnowFlake;
 import cn.lili.modules.message.entity.dos.MemberMessage;
+import cn.lili.modules.message.entity.dos.MemberMessageState;
+import cn.lili.modules.message.entity.dos.Message;
+import cn.lili.modules.message.entity.enums.MessageSendClient;
+import cn.lili.modules.message.entity.enums.MessageStatusEnum;
+import cn.lili.modules.message.entity.enums.RangeEnum;
+import cn.lili.modules.message.entity.vos.MemberMessageInboxVO;
 import cn.lili.modules.message.mapper.MemberMessageMapper;
+import cn.lili.modules.message.mapper.MemberMessageStateMapper;
+import cn.lili.modules.message.mapper.MessageMapper;
 import cn.lili.modules.message.service.MemberMessageService;
 import cn.lili.modules.message.entity.vos.MemberMessageQueryVO;
+import cn.lili.modules.message.util.MemberInboxMerger;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -24,6 +37,22 @@ import java.util.List;
 @Service
 public class MemberMessageServiceImpl extends ServiceImpl<MemberMessageMapper, MemberMessage> implements MemberMessageService {
 
+    /**
+     * 收件箱每页最大数量
+     */
+    private static final int MAX_INBOX_PAGE_SIZE = 100;
+
+    /**
+     * 管理端发送消息
+     */
+    @Autowired
+    private MessageMapper messageMapper;
+
+    /**
+     * 会员全员消息状态
+     */
+    @Autowired
+    private MemberMessageStateMapper memberMessageStateMapper;
 
     @Override
     public IPage<MemberMessage> getPage(MemberMessageQueryVO memberMessageQueryVO, PageVO pageVO) {
@@ -70,4 +99,158 @@ public class MemberMessageServiceImpl extends ServiceImpl<MemberMessageMapper, M
     public boolean save(List<MemberMessage> messages) {
         return saveBatch(messages);
     }
-}
\ No newline at end of file
+
+    @Override
+    public MemberMessageInboxVO getInbox(MemberMessageQueryVO memberMessageQueryVO, String cursor, Integer pageSize) {
+        int size = pageSize == null || pageSize <= 0 ? 10 : Math.min(pageSize, MAX_INBOX_PAGE_SIZE);
+        String memberId = memberMessageQueryVO.getMemberId();
+        MemberInboxMerger.Position position = MemberInboxMerger.parse(cursor);
+
+        QueryWrapper<MemberMessage> directWrapper = this.directWrapper(memberMessageQueryVO);
+        this.keyset(directWrapper, "", position, size);
+        List<MemberMessage> directs = this.list(directWrapper);
+
+        QueryWrapper<MemberMessage> broadcastWrapper = this.broadcastWrapper(memberMessageQueryVO);
+        this.keyset(broadcastWrapper, "m.", position, size);
+        List<MemberMessage> broadcasts = this.selectBroadcasts(memberId, broadcastWrapper);
+        return MemberInboxMerger.merge(directs, broadcasts, size);
+    }
+
+    @Override
+    public IPage<MemberMessage> getInboxPage(MemberMessageQueryVO memberMessageQueryVO, PageVO pageVO) {
+        Page<MemberMessage> page = PageUtil.initPage(pageVO);
+        String memberId = memberMessageQueryVO.getMemberId();
+        long offset = (page.getCurrent() - 1) * page.getSize();
+        //两类消息各取前 offset + size 条合并后截取当前页，仅用于兼容按页码分页
+        long limit = offset + page.getSize();
+
+        QueryWrapper<MemberMessage> directWrapper = this.directWrapper(memberMessageQueryVO);
+        page.setTotal(this.count(directWrapper));
+        directWrapper.orderByDesc("create_time", "id");
+        directWrapper.last("LIMIT " + limit);
+
+        QueryWrapper<MemberMessage> broadcastWrapper = this.broadcastWrapper(memberMessageQueryVO);
+        page.setTotal(page.getTotal() + messageMapper.countMemberBroadcasts(memberId, broadcastWrapper));
+        if (offset >= page.getTotal()) {
+            return page;
+        }
+        broadcastWrapper.orderByDesc("m.create_time", "m.id");
+        broadcastWrapper.last("LIMIT " + limit);
+
+        List<MemberMessage> records = MemberInboxMerger.merge(this.list(directWrapper),
+                this.selectBroadcasts(memberId, broadcastWrapper), (int) limit).getRecords();
+        page.setRecords(offset >= records.size() ? Collections.emptyList() : records.subList((int) offset, records.size()));
+        return page;
+    }
+
+    @Override
+    public long unreadNum(String memberId) {
+        QueryWrapper<MemberMessage> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("member_id", memberId);
+        queryWrapper.eq("status", MessageStatusEnum.UN_READY.name());
+        return this.count(queryWrapper)
+                + messageMapper.countMemberBroadcasts(memberId, this.broadcastWrapper(memberId, MessageStatusEnum.UN_READY.name()));
+    }
+
+    @Override
+    public Boolean editStatus(String memberId, String status, String id) {
+        MemberMessage memberMessage = this.getById(id);
+        if (memberMessage != null) {
+            if (!memberMessage.getMemberId().equals(memberId)) {
+                return false;
+            }
+            memberMessage.setStatus(status);
+            return this.updateById(memberMessage);
+        }
+        //全员消息只记录该会员的状态
+        Message message = messageMapper.selectById(id);
+        if (message == null || !RangeEnum.ALL.name().equals(message.getMessageRange())
+                || !MessageSendClient.MEMBER.name().equalsIgnoreCase(message.getMessageClient())) {
+            return false;
+        }
+        MemberMessageState state = new MemberMessageState();
+        state.setId(SnowFlake.getIdStr());
+        state.setMemberId(memberId);
+        state.setMessageId(id);
+        state.setStatus(status);
+        memberMessageStateMapper.upsert(state);
+        return true;
+    }
+
+    /**
+     * 会员收件箱中的指定会员消息
+     *
+     * @param memberMessageQueryVO 查询条件
+     * @return 查询条件
+     */
+    private QueryWrapper<MemberMessage> directWrapper(MemberMessageQueryVO memberMessageQueryVO) {
+        QueryWrapper<MemberMessage> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("member_id", memberMessageQueryVO.getMemberId());
+        queryWrapper.eq(StringUtils.isNotEmpty(memberMessageQueryVO.getMessageId()), "message_id", memberMessageQueryVO.getMessageId());
+        queryWrapper.like(StringUtils.isNotEmpty(memberMessageQueryVO.getTitle()), "title", memberMessageQueryVO.getTitle());
+        queryWrapper.eq(StringUtils.isNotEmpty(memberMessageQueryVO.getStatus()), "status", memberMessageQueryVO.getStatus());
+        return queryWrapper;
+    }
+
+    /**
+     * 会员收件箱中的全员消息
+     *
+     * @param memberMessageQueryVO 查询条件
+     * @return 查询条件
+     */
+    private QueryWrapper<MemberMessage> broadcastWrapper(MemberMessageQueryVO memberMessageQueryVO) {
+        QueryWrapper<MemberMessage> queryWrapper = this.broadcastWrapper(memberMessageQueryVO.getMemberId(), memberMessageQueryVO.getStatus());
+        queryWrapper.eq(StringUtils.isNotEmpty(memberMessageQueryVO.getMessageId()), "m.id", memberMessageQueryVO.getMessageId());
+        queryWrapper.like(StringUtils.isNotEmpty(memberMessageQueryVO.getTitle()), "m.title", memberMessageQueryVO.getTitle());
+        return queryWrapper;
+    }
+
+    /**
+     * 查询全员消息并填充会员与消息id
+     */
+    private List<MemberMessage> selectBroadcasts(String memberId, QueryWrapper<MemberMessage> queryWrapper) {
+        List<MemberMessage> broadcasts = messageMapper.selectMemberBroadcasts(memberId, queryWrapper);
+        for (MemberMessage broadcast : broadcasts) {
+            broadcast.setMemberId(memberId);
+            broadcast.setMessageId(broadcast.getId());
+        }
+        return broadcasts;
+    }
+
+    /**
+     * 会员可见的全员消息：发送给全部会员且在会员注册之后发送，
+     * 旧版本已逐个会员写入会员消息的全员消息按指定会员消息处理，此处排除，避免重复
+     *
+     * @param memberId 会员id
+     * @param status   会员的消息状态，为空时不限制
+     * @return 查询条件
+     */
+    private QueryWrapper<MemberMessage> broadcastWrapper(String memberId, String status) {
+        QueryWrapper<MemberMessage> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("m.message_range", RangeEnum.ALL.name());
+        queryWrapper.eq("m.message_client", MessageSendClient.MEMBER.name().toLowerCase());
+        queryWrapper.apply("m.create_time >= (SELECT create_time FROM li_member WHERE id = {0})", memberId);
+        queryWrapper.apply("NOT EXISTS (SELECT 1 FROM li_member_message mm WHERE mm.member_id = {0} AND mm.message_id = m.id)", memberId);
+        queryWrapper.apply(StringUtils.isNotEmpty(status), "IFNULL(s.status, 'UN_READY') = {0}", status);
+        return queryWrapper;
+    }
+
+    /**
+     * 按 发送时间、id 倒序查询游标之后的 pageSize + 1 条
+     *
+     * @param queryWrapper 查询条件
+     * @param alias        表别名前缀
+     * @param position     游标位置，第一页为空
+     * @param pageSize     每页数量
+     */
+    private void keyset(QueryWrapper<MemberMessage> queryWrapper, String alias, MemberInboxMerger.Position position, int pageSize) {
+        String createTime = alias + "create_time";
+        String id = alias + "id";
+        if (position != null) {
+            queryWrapper.and(i -> i.lt(createTime, position.getCreateTime())
+                    .or(j -> j.eq(createTime, position.getCreateTime()).lt(id, position.getId())));
+        }
+        queryWrapper.orderByDesc(createTime, id);
+        queryWrapper.last("LIMIT " + (pageSize + 1));
+    }
+}
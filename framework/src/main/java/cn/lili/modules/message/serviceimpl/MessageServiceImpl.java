@@ -2,13 +2,16 @@ package cn.lili.modules.message.serviceimpl;
 
 import cn.lili.common.properties.RocketmqCustomProperties;
 import cn.lili.common.vo.PageVO;
+import cn.lili.modules.message.entity.dos.MemberMessageState;
 import cn.lili.modules.message.entity.dos.Message;
 import cn.lili.modules.message.entity.vos.MessageVO;
+import cn.lili.modules.message.mapper.MemberMessageStateMapper;
 import cn.lili.modules.message.mapper.MessageMapper;
 import cn.lili.modules.message.service.MessageService;
 import cn.lili.mybatis.util.PageUtil;
 import cn.lili.rocketmq.RocketmqSendCallbackBuilder;
 import cn.lili.rocketmq.tags.OtherTagsEnum;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
@@ -29,6 +32,8 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
     private RocketMQTemplate rocketMQTemplate;
     @Autowired
     private RocketmqCustomProperties rocketmqCustomProperties;
+    @Autowired
+    private MemberMessageStateMapper memberMessageStateMapper;
 
 
     @Override
@@ -53,6 +58,8 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
         //只有查询到此记录才真实删除，未找到记录则直接返回true即可
         Message message = this.getById(id);
         if (message != null) {
+            //全员消息的会员状态一并删除
+            memberMessageStateMapper.delete(new LambdaQueryWrapper<MemberMessageState>().eq(MemberMessageState::getMessageId, id));
             return this.removeById(id);
         }
         return true;
@@ -0,0 +1,116 @@
+package cn.lili.modules.message.util;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.lili.modules.message.entity.dos.MemberMessage;
+import cn.lili.modules.message.entity.vos.MemberMessageInboxVO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 会员收件箱合并
+ * <p>
+ * 指定会员消息与全员消息分别按 发送时间、id 倒序查询游标之后的 pageSize + 1 条，
+ * 合并后取前 pageSize 条，最后一条作为下一页游标，不使用 OFFSET，翻页开销不随页数增长。
+ */
+public final class MemberInboxMerger {
+
+    /**
+     * 发送时间、id 倒序，id 为数字字符串，先比较长度
+     */
+    public static final Comparator<MemberMessage> NEWEST_FIRST = Comparator
+            .comparing(MemberMessage::getCreateTime, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(MemberMessage::getId, Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()).reversed());
+
+    private MemberInboxMerger() {
+    }
+
+    /**
+     * 合并一页收件箱
+     *
+     * @param directs    游标之后的指定会员消息，按发送时间、id 倒序，至少 pageSize + 1 条或全部
+     * @param broadcasts 游标之后的全员消息，按发送时间、id 倒序，至少 pageSize + 1 条或全部
+     * @param pageSize   每页数量
+     * @return 收件箱一页
+     */
+    public static MemberMessageInboxVO merge(List<MemberMessage> directs, List<MemberMessage> broadcasts, int pageSize) {
+        List<MemberMessage> records = new ArrayList<>(pageSize);
+        int i = 0;
+        int j = 0;
+        while (records.size() < pageSize && (i < directs.size() || j < broadcasts.size())) {
+            if (j >= broadcasts.size() || (i < directs.size() && NEWEST_FIRST.compare(directs.get(i), broadcasts.get(j)) <= 0)) {
+                records.add(directs.get(i++));
+            } else {
+                records.add(broadcasts.get(j++));
+            }
+        }
+        boolean more = i < directs.size() || j < broadcasts.size();
+        return new MemberMessageInboxVO(records, more && !records.isEmpty() ? cursor(records.get(records.size() - 1)) : null);
+    }
+
+    /**
+     * 游标：发送时间毫秒数_id
+     *
+     * @param memberMessage 本页最后一条消息
+     * @return 游标
+     */
+    public static String cursor(MemberMessage memberMessage) {
+        return memberMessage.getCreateTime().getTime() + "_" + memberMessage.getId();
+    }
+
+    /**
+     * 解析游标
+     *
+     * @param cursor 游标
+     * @return 游标位置，游标为空或格式错误时为空
+     */
+    public static Position parse(String cursor) {
+        if (CharSequenceUtil.isEmpty(cursor)) {
+            return null;
+        }
+        int index = cursor.indexOf('_');
+        if (index <= 0 || index == cursor.length() - 1) {
+            return null;
+        }
+        try {
+            return new Position(new Date(Long.parseLong(cursor.substring(0, index))), cursor.substring(index + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 游标位置
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Position {
+
+        /**
+         * 发送时间
+         */
+        private Date createTime;
+
+        /**
+         * 消息id
+         */
+        private String id;
+
+        /**
+         * 消息是否在游标之后
+         *
+         * @param memberMessage 消息
+         * @return 是否在游标之后
+         */
+        public boolean precedes(MemberMessage memberMessage) {
+            MemberMessage position = new MemberMessage();
+            position.setCreateTime(createTime);
+            position.setId(id);
+            return NEWEST_FIRST.compare(position, memberMessage) < 0;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package cn.lili.modules.order.cart.render.impl;
 
-import cn.hutool.core.text.CharSequenceUtil;
 import cn.lili.common.enums.PromotionTypeEnum;
 import cn.lili.common.utils.CurrencyUtil;
 import cn.lili.common.utils.StringUtils;
@@ -9,11 +8,11 @@ import cn.lili.modules.order.cart.entity.dto.TradeDTO;
 import cn.lili.modules.order.cart.entity.enums.RenderStepEnums;
 import cn.lili.modules.order.cart.entity.vo.CartSkuVO;
 import cn.lili.modules.order.cart.render.CartRenderStep;
+import cn.lili.modules.order.cart.render.util.CouponEligibilityIndex;
 import cn.lili.modules.order.cart.render.util.PromotionPriceUtil;
 import cn.lili.modules.order.order.entity.dto.PriceDetailDTO;
 import cn.lili.modules.promotion.entity.dos.MemberCoupon;
 import cn.lili.modules.promotion.entity.enums.CouponTypeEnum;
-import cn.lili.modules.promotion.entity.enums.PromotionsScopeTypeEnum;
 import cn.lili.modules.promotion.entity.vos.MemberCouponVO;
 import cn.lili.modules.promotion.service.MemberCouponService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -61,8 +60,9 @@ public class CouponRender implements CartRenderStep {
         List<MemberCoupon> memberCouponList = memberCouponService.getMemberCoupons(tradeDTO.getMemberId());
 
         //获取最新优惠券
+        Date now = new Date();
         memberCouponList = memberCouponList.stream()
-                .filter(item -> item.getStartTime().before(new Date()) && item.getEndTime().after(new Date()))
+                .filter(item -> item.getStartTime().before(now) && item.getEndTime().after(now))
                 .collect(Collectors.toList());
 
         if (!memberCouponList.isEmpty()) {
@@ -71,7 +71,9 @@ public class CouponRender implements CartRenderStep {
             tradeDTO.setPlatformCoupon(null);
             tradeDTO.setStoreCoupons(new HashMap<>());
         }
-        memberCouponList.forEach(memberCoupon -> available(tradeDTO, memberCoupon));
+        //已选中商品的适用范围索引，所有优惠券共用
+        CouponEligibilityIndex eligibilityIndex = new CouponEligibilityIndex(tradeDTO.getCheckedSkuList());
+        memberCouponList.forEach(memberCoupon -> available(tradeDTO, eligibilityIndex, memberCoupon));
     }
 
     /**
@@ -99,14 +101,15 @@ public class CouponRender implements CartRenderStep {
     /**
      * 判定优惠券是否可用
      *
-     * @param tradeDTO     交易dto
-     * @param memberCoupon 会员优惠券
+     * @param tradeDTO         交易dto
+     * @param eligibilityIndex 优惠券适用范围索引
+     * @param memberCoupon     会员优惠券
      */
-    private void available(TradeDTO tradeDTO, MemberCoupon memberCoupon) {
+    private void available(TradeDTO tradeDTO, CouponEligibilityIndex eligibilityIndex, MemberCoupon memberCoupon) {
         if (memberCoupon == null) {
             return;
         }
-        List<CartSkuVO> filterSku = filterSkuVo(tradeDTO.getCheckedSkuList(), memberCoupon);
+        List<CartSkuVO> filterSku = eligibilityIndex.filter(memberCoupon);
         if (filterSku == null || filterSku.isEmpty()) {
             tradeDTO.getCantUseCoupons().add(new MemberCouponVO(memberCoupon,
                     "购物车中没有满足优惠券使用范围的优惠券"));
@@ -130,79 +133,6 @@ public class CouponRender implements CartRenderStep {
 
     }
 
-    /**
-     * 过滤购物车商品信息，按照优惠券的适用范围过滤
-     *
-     * @param cartSkuVOS   购物车中的产品列表
-     * @param memberCoupon 会员优惠券
-     * @return 按照优惠券的适用范围过滤的购物车商品信息
-     */
-    private List<CartSkuVO> filterSkuVo(List<CartSkuVO> cartSkuVOS, MemberCoupon memberCoupon) {
-
-        List<CartSkuVO> filterSku;
-        //平台店铺过滤
-        if (Boolean.TRUE.equals(memberCoupon.getPlatformFlag())) {
-            filterSku = cartSkuVOS;
-        } else {
-            filterSku = cartSkuVOS.stream().filter(cartSkuVO -> cartSkuVO.getStoreId().equals(memberCoupon.getStoreId())).collect(Collectors.toList());
-        }
-        if (filterSku == null || filterSku.isEmpty()) {
-            return Collections.emptyList();
-        }
-        //优惠券类型判定
-        switch (PromotionsScopeTypeEnum.valueOf(memberCoupon.getScopeType())) {
-            case ALL:
-                return filterSku;
-            case PORTION_GOODS:
-                //按照商品过滤
-                filterSku = filterSku.stream().filter(cartSkuVO -> memberCoupon.getScopeId().contains(cartSkuVO.getGoodsSku().getId())).collect(Collectors.toList());
-                break;
-
-            case PORTION_SHOP_CATEGORY:
-                //按照店铺分类过滤
-                filterSku = this.filterPromotionShopCategory(filterSku, memberCoupon);
-                break;
-
-            case PORTION_GOODS_CATEGORY:
-
-                //按照店铺分类过滤
-                filterSku = filterSku.stream().filter(cartSkuVO -> {
-                    //平台分类获取
-                    String[] categoryPath = cartSkuVO.getGoodsSku().getCategoryPath().split(",");
-                    //平台三级分类
-                    String categoryId = categoryPath[categoryPath.length - 1];
-                    return memberCoupon.getScopeId().contains(categoryId);
-                }).collect(Collectors.toList());
-                break;
-            default:
-                return Collections.emptyList();
-        }
-        return filterSku;
-    }
-
-    /**
-     * 优惠券按照店铺分类过滤
-     *
-     * @param filterSku    过滤的购物车商品信息
-     * @param memberCoupon 会员优惠
-     * @return 优惠券按照店铺分类过滤的购物车商品信息
-     */
-    private List<CartSkuVO> filterPromotionShopCategory(List<CartSkuVO> filterSku, MemberCoupon memberCoupon) {
-        return filterSku.stream().filter(cartSkuVO -> {
-            if (CharSequenceUtil.isNotEmpty(cartSkuVO.getGoodsSku().getStoreCategoryPath())) {
-                //获取店铺分类
-                String[] storeCategoryPath = cartSkuVO.getGoodsSku().getStoreCategoryPath().split(",");
-                for (String category : storeCategoryPath) {
-                    //店铺分类只要有一项吻合，即可返回true
-                    if (memberCoupon.getScopeId().contains(category)) {
-                        return true;
-                    }
-                }
-            }
-            return false;
-        }).collect(Collectors.toList());
-    }
-
     /**
      * 渲染优惠券
      *
@@ -210,10 +140,12 @@ public class CouponRender implements CartRenderStep {
      */
     private void renderCoupon(TradeDTO tradeDTO) {
         MemberCouponDTO platformCoupon = tradeDTO.getPlatformCoupon();
+        //可用优惠券
+        Set<String> canUseCouponIds = tradeDTO.getCanUseCoupons().stream().map(MemberCoupon::getCouponId).collect(Collectors.toSet());
         //如果有勾选平台优惠券
         if (platformCoupon != null) {
             //判断该优惠券是否可以使用，如果可以进行价格渲染，如果不可以使用，去掉该优惠券的使用
-            boolean checkFlag = tradeDTO.getCanUseCoupons().stream().anyMatch(item -> item.getCouponId().equals(platformCoupon.getMemberCoupon().getCouponId()));
+            boolean checkFlag = canUseCouponIds.contains(platformCoupon.getMemberCoupon().getCouponId());
             if(checkFlag){
                 renderSku(tradeDTO, platformCoupon);
             }else{
@@ -225,7 +157,7 @@ public class CouponRender implements CartRenderStep {
         if (map != null && map.size() > 0) {
             for (MemberCouponDTO memberCouponDTO : map.values()) {
                 //判断该优惠券是否可以使用，如果可以进行价格渲染，如果不可以使用，去掉该优惠券的使用
-                boolean storeCouponCheck = tradeDTO.getCanUseCoupons().stream().anyMatch(item -> item.getCouponId().equals(memberCouponDTO.getMemberCoupon().getCouponId()));
+                boolean storeCouponCheck = canUseCouponIds.contains(memberCouponDTO.getMemberCoupon().getCouponId());
                 if(storeCouponCheck){
                     renderSku(tradeDTO, memberCouponDTO);
                 }else{
@@ -284,15 +216,11 @@ public class CouponRender implements CartRenderStep {
         //如果是平台券 则需要计算商家承担比例
         if (Boolean.TRUE.equals(coupon.getPlatformFlag()) && coupon.getStoreCommission() > 0) {
 
-            //循环所有优惠券
-            for (String skuId : couponMap.keySet()) {
-
-                for (CartSkuVO cartSkuVO : tradeDTO.getSkuList()) {
-                    //写入平台优惠券承担比例
-                    if (cartSkuVO.getGoodsSku().getId().equals(skuId)) {
-                        //写入店铺承担比例
-                        cartSkuVO.getPriceDetailDTO().setSiteCouponPoint(coupon.getStoreCommission());
-                    }
+            for (CartSkuVO cartSkuVO : tradeDTO.getSkuList()) {
+                //写入平台优惠券承担比例
+                if (couponMap.containsKey(cartSkuVO.getGoodsSku().getId())) {
+                    //写入店铺承担比例
+                    cartSkuVO.getPriceDetailDTO().setSiteCouponPoint(coupon.getStoreCommission());
                 }
             }
         }
@@ -307,28 +235,24 @@ public class CouponRender implements CartRenderStep {
      * @param coupon    优惠券信息
      */
     private void renderCouponDiscount(Map<String, Double> couponMap, TradeDTO tradeDTO, MemberCoupon coupon) {
-        //循环所有优惠券
-        for (String skuId : couponMap.keySet()) {
+        // 循环购物车商品
+        for (CartSkuVO item : tradeDTO.getSkuList()) {
+            //参与优惠券的商品，渲染商品价格信息
+            if (couponMap.containsKey(item.getGoodsSku().getId())) {
 
-            // 循环购物车商品
-            for (CartSkuVO item : tradeDTO.getSkuList()) {
-                //如果id相等，则渲染商品价格信息
-                if (item.getGoodsSku().getId().equals(skuId)) {
+                PriceDetailDTO priceDetailDTO = item.getPriceDetailDTO();
 
-                    PriceDetailDTO priceDetailDTO = item.getPriceDetailDTO();
-
-                    // 打折金额=商品金额*折扣/10
-                    Double discountCouponPrice = CurrencyUtil.mul(priceDetailDTO.getGoodsPrice(),
-                            CurrencyUtil.sub(1, CurrencyUtil.div(coupon.getDiscount(), 10, 3)));
-
-                    //平台券则写入店铺承担优惠券比例
-                    if (Boolean.TRUE.equals(coupon.getPlatformFlag())) {
-                        priceDetailDTO.setSiteCouponPrice(discountCouponPrice);
-                        priceDetailDTO.setSiteCouponPoint(coupon.getStoreCommission());
-                    }
-                    priceDetailDTO.setCouponPrice(CurrencyUtil.add(priceDetailDTO.getCouponPrice(), discountCouponPrice));
+                // 打折金额=商品金额*折扣/10
+                Double discountCouponPrice = CurrencyUtil.mul(priceDetailDTO.getGoodsPrice(),
+                        CurrencyUtil.sub(1, CurrencyUtil.div(coupon.getDiscount(), 10, 3)));
 
+                //平台券则写入店铺承担优惠券比例
+                if (Boolean.TRUE.equals(coupon.getPlatformFlag())) {
+                    priceDetailDTO.setSiteCouponPrice(discountCouponPrice);
+                    priceDetailDTO.setSiteCouponPoint(coupon.getStoreCommission());
                 }
+                priceDetailDTO.setCouponPrice(CurrencyUtil.add(priceDetailDTO.getCouponPrice(), discountCouponPrice));
+
             }
         }
     }
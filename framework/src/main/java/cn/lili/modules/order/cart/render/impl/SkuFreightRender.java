@@ -7,20 +7,17 @@ import cn.lili.modules.order.cart.entity.enums.DeliveryMethodEnum;
 import cn.lili.modules.order.cart.entity.enums.RenderStepEnums;
 import cn.lili.modules.order.cart.entity.vo.CartSkuVO;
 import cn.lili.modules.order.cart.render.CartRenderStep;
-import cn.lili.modules.store.entity.dos.FreightTemplateChild;
 import cn.lili.modules.store.entity.dos.StoreAddress;
+import cn.lili.modules.store.entity.dto.FreightRuleIndex;
 import cn.lili.modules.store.entity.dto.FreightTemplateChildDTO;
+import cn.lili.modules.store.entity.dto.FreightTemplateRule;
 import cn.lili.modules.store.entity.enums.FreightTemplateEnum;
 import cn.lili.modules.store.entity.vos.FreightTemplateVO;
 import cn.lili.modules.store.service.FreightTemplateService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.*;
 
 /**
  * sku 运费计算
@@ -52,68 +49,52 @@ public class SkuFreightRender implements CartRenderStep {
         //选择物流的时候计算价格
         if (DeliveryMethodEnum.LOGISTICS.name().equals(tradeDTO.getCartList().get(0).getDeliveryMethod())) {
             if (memberAddress != null) {
-                //运费分组信息
-                Map<String, List<String>> freightGroups = freightTemplateGrouping(cartSkuVOS);
+                //收货地址市级别id，用于匹配运费模版
+                String addressId = null;
+                //店铺运费规则索引，同一店铺只获取一次
+                Map<String, FreightRuleIndex> freightRuleIndexes = new HashMap<>();
 
-                //循环运费模版
-                for (Map.Entry<String, List<String>> freightTemplateGroup : freightGroups.entrySet()) {
-
-                    //商品id列表
-                    List<String> skuIds = freightTemplateGroup.getValue();
+                //循环运费模版分组
+                for (Map.Entry<String, List<CartSkuVO>> freightTemplateGroup : freightTemplateGrouping(cartSkuVOS).entrySet()) {
 
                     //当前购物车商品列表
-                    List<CartSkuVO> currentCartSkus = cartSkuVOS.stream().filter(item -> skuIds.contains(item.getGoodsSku().getId())).collect(Collectors.toList());
+                    List<CartSkuVO> currentCartSkus = freightTemplateGroup.getValue();
 
                     //寻找对应对商品运费计算模版
-                    FreightTemplateVO freightTemplate = freightTemplateService.getFreightTemplate(freightTemplateGroup.getKey());
-                    if (freightTemplate != null
-                            && freightTemplate.getFreightTemplateChildList() != null
-                            && !freightTemplate.getFreightTemplateChildList().isEmpty()) {
-                        //店铺模版免运费则跳过
-                        if (freightTemplate.getPricingMethod().equals(FreightTemplateEnum.FREE.name())) {
-                            continue;
-                        }
+                    FreightTemplateRule freightTemplate = this.getFreightTemplateRule(freightRuleIndexes,
+                            currentCartSkus.get(0).getGoodsSku().getStoreId(), freightTemplateGroup.getKey());
+                    //没有运费模版、没有子模版或店铺模版免运费则跳过
+                    if (freightTemplate == null || !Boolean.TRUE.equals(freightTemplate.getCharged())) {
+                        continue;
+                    }
 
-                        //运费模版
-                        FreightTemplateChild freightTemplateChild = null;
-
-                        //获取市级别id匹配运费模版
-                        String addressId = memberAddress.getConsigneeAddressIdPath().split(",")[1];
-                        for (FreightTemplateChild templateChild : freightTemplate.getFreightTemplateChildList()) {
-                            //模版匹配判定
-                            if (templateChild.getAreaId().contains(addressId)) {
-                                freightTemplateChild = templateChild;
-                                break;
-                            }
-                        }
-                        //如果没有匹配到物流规则，则说明不支持配送
-                        if (freightTemplateChild == null) {
-                            if (tradeDTO.getNotSupportFreight() == null) {
-                                tradeDTO.setNotSupportFreight(new ArrayList<>());
-                            }
-                            tradeDTO.getNotSupportFreight().addAll(currentCartSkus);
-                            continue;
+                    //获取市级别id匹配运费模版
+                    if (addressId == null) {
+                        addressId = memberAddress.getConsigneeAddressIdPath().split(",")[1];
+                    }
+                    FreightTemplateChildDTO freightTemplateChildDTO = freightTemplate.match(addressId);
+                    //如果没有匹配到物流规则，则说明不支持配送
+                    if (freightTemplateChildDTO == null) {
+                        if (tradeDTO.getNotSupportFreight() == null) {
+                            tradeDTO.setNotSupportFreight(new ArrayList<>());
                         }
+                        tradeDTO.getNotSupportFreight().addAll(currentCartSkus);
+                        continue;
+                    }
 
-                        //物流规则模型创立
-                        FreightTemplateChildDTO freightTemplateChildDTO = new FreightTemplateChildDTO(freightTemplateChild);
-                        //模型写入运费模版设置的计费方式
-                        freightTemplateChildDTO.setPricingMethod(freightTemplate.getPricingMethod());
-
-                        //计算运费总数
-                        Double count = currentCartSkus.stream().mapToDouble(item ->
-                                // 根据计费规则 累加计费基数
-                                freightTemplateChildDTO.getPricingMethod().equals(FreightTemplateEnum.NUM.name()) ?
-                                        item.getNum().doubleValue() :
-                                        CurrencyUtil.mul(item.getNum(), item.getGoodsSku().getWeight())
-                        ).sum();
+                    //计算运费总数
+                    Double count = currentCartSkus.stream().mapToDouble(item ->
+                            // 根据计费规则 累加计费基数
+                            freightTemplateChildDTO.getPricingMethod().equals(FreightTemplateEnum.NUM.name()) ?
+                                    item.getNum().doubleValue() :
+                                    CurrencyUtil.mul(item.getNum(), item.getGoodsSku().getWeight())
+                    ).sum();
 
-                        //计算运费
-                        Double countFreight = countFreight(count, freightTemplateChildDTO);
+                    //计算运费
+                    Double countFreight = countFreight(count, freightTemplateChildDTO);
 
-                        //写入SKU运费
-                        resetFreightPrice(FreightTemplateEnum.valueOf(freightTemplateChildDTO.getPricingMethod()), count, countFreight, currentCartSkus);
-                    }
+                    //写入SKU运费
+                    resetFreightPrice(FreightTemplateEnum.valueOf(freightTemplateChildDTO.getPricingMethod()), count, countFreight, currentCartSkus);
                 }
             }
         } else {
@@ -160,13 +141,13 @@ public class SkuFreightRender implements CartRenderStep {
     }
 
     /**
-     * 运费模版分组
+     * 运费模版分组，一次遍历完成，组内商品保持购物车中的顺序
      *
      * @param cartSkuVOS 购物车商品
-     * @return map<运费模版id ， List < skuid>>
+     * @return map<运费模版id ， List < 购物车商品>>
      */
-    private Map<String, List<String>> freightTemplateGrouping(List<CartSkuVO> cartSkuVOS) {
-        Map<String, List<String>> map = new HashMap<>();
+    private Map<String, List<CartSkuVO>> freightTemplateGrouping(List<CartSkuVO> cartSkuVOS) {
+        Map<String, List<CartSkuVO>> map = new LinkedHashMap<>();
         //循环渲染购物车商品运费价格
         for (CartSkuVO cartSkuVO : cartSkuVOS) {
             ////免运费判定
@@ -174,18 +155,31 @@ public class SkuFreightRender implements CartRenderStep {
             if (Boolean.TRUE.equals(cartSkuVO.getIsFreeFreight()) || freightTemplateId == null) {
                 continue;
             }
-            //包含 则value值中写入sku标识，否则直接写入新的对象，key为模版id，value为new arraylist
-            if (map.containsKey(freightTemplateId)) {
-                map.get(freightTemplateId).add(cartSkuVO.getGoodsSku().getId());
-            } else {
-                List<String> skuIdsList = new ArrayList<>();
-                skuIdsList.add(cartSkuVO.getGoodsSku().getId());
-                map.put(freightTemplateId, skuIdsList);
-            }
+            map.computeIfAbsent(freightTemplateId, k -> new ArrayList<>()).add(cartSkuVO);
         }
         return map;
     }
 
+    /**
+     * 获取编译后的运费模版
+     * 优先从商品所在店铺的运费规则索引中获取，模版不属于该店铺时按ID查询
+     *
+     * @param freightRuleIndexes 本次渲染已获取的店铺运费规则索引
+     * @param storeId            店铺ID
+     * @param freightTemplateId  运费模版ID
+     * @return 编译后的运费模版
+     */
+    private FreightTemplateRule getFreightTemplateRule(Map<String, FreightRuleIndex> freightRuleIndexes, String storeId, String freightTemplateId) {
+        if (storeId != null) {
+            FreightRuleIndex freightRuleIndex = freightRuleIndexes.computeIfAbsent(storeId, freightTemplateService::getFreightRuleIndex);
+            FreightTemplateRule freightTemplateRule = freightRuleIndex == null ? null : freightRuleIndex.template(freightTemplateId);
+            if (freightTemplateRule != null) {
+                return freightTemplateRule;
+            }
+        }
+        FreightTemplateVO freightTemplate = freightTemplateService.getFreightTemplate(freightTemplateId);
+        return freightTemplate == null ? null : FreightTemplateRule.compile(freightTemplate);
+    }
 
     /**
      * 计算运费
@@ -0,0 +1,132 @@
+package cn.lili.modules.order.cart.render.util;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.lili.modules.order.cart.entity.vo.CartSkuVO;
+import cn.lili.modules.promotion.entity.dos.MemberCoupon;
+import cn.lili.modules.promotion.entity.enums.PromotionsScopeTypeEnum;
+
+import java.util.*;
+
+/**
+ * 优惠券适用范围索引
+ * <p>
+ * 每次渲染对已选中的购物车商品建立一次 店铺、SKU、平台分类、店铺分类 到商品下标的索引，
+ * 判断优惠券适用的商品时按优惠券的范围ID逐个查找，不再对每张优惠券遍历购物车商品。
+ * 返回的商品保持购物车中的顺序。
+ */
+public class CouponEligibilityIndex {
+
+    /**
+     * 已选中的购物车商品
+     */
+    private final List<CartSkuVO> skus;
+
+    /**
+     * 店铺ID -> 商品下标
+     */
+    private final Map<String, List<Integer>> storeSkus = new HashMap<>();
+
+    /**
+     * SKU ID -> 商品下标
+     */
+    private final Map<String, List<Integer>> goodsSkus = new HashMap<>();
+
+    /**
+     * 平台三级分类ID -> 商品下标
+     */
+    private final Map<String, List<Integer>> categorySkus = new HashMap<>();
+
+    /**
+     * 店铺分类ID -> 商品下标
+     */
+    private final Map<String, List<Integer>> storeCategorySkus = new HashMap<>();
+
+    public CouponEligibilityIndex(List<CartSkuVO> cartSkuVOS) {
+        this.skus = cartSkuVOS == null ? Collections.emptyList() : cartSkuVOS;
+        for (int i = 0; i < skus.size(); i++) {
+            CartSkuVO cartSkuVO = skus.get(i);
+            add(storeSkus, cartSkuVO.getStoreId(), i);
+            add(goodsSkus, cartSkuVO.getGoodsSku().getId(), i);
+            String categoryPath = cartSkuVO.getGoodsSku().getCategoryPath();
+            if (categoryPath != null) {
+                //平台三级分类
+                String[] categories = categoryPath.split(",");
+                add(categorySkus, categories[categories.length - 1], i);
+            }
+            String storeCategoryPath = cartSkuVO.getGoodsSku().getStoreCategoryPath();
+            if (CharSequenceUtil.isNotEmpty(storeCategoryPath)) {
+                //店铺分类只要有一项吻合即可
+                for (String category : new LinkedHashSet<>(Arrays.asList(storeCategoryPath.split(",")))) {
+                    add(storeCategorySkus, category, i);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按照优惠券的适用范围过滤购物车商品
+     *
+     * @param memberCoupon 会员优惠券
+     * @return 优惠券适用的购物车商品
+     */
+    public List<CartSkuVO> filter(MemberCoupon memberCoupon) {
+        //平台优惠券适用所有店铺
+        boolean platform = Boolean.TRUE.equals(memberCoupon.getPlatformFlag());
+        List<Integer> storeIndexes = platform ? null : storeSkus.get(memberCoupon.getStoreId());
+        if (skus.isEmpty() || (!platform && storeIndexes == null)) {
+            return Collections.emptyList();
+        }
+        String storeId = platform ? null : memberCoupon.getStoreId();
+        switch (PromotionsScopeTypeEnum.valueOf(memberCoupon.getScopeType())) {
+            case ALL:
+                return platform ? skus : this.toSkus(storeIndexes);
+            case PORTION_GOODS:
+                return this.match(goodsSkus, memberCoupon.getScopeId(), storeId);
+            case PORTION_SHOP_CATEGORY:
+                return this.match(storeCategorySkus, memberCoupon.getScopeId(), storeId);
+            case PORTION_GOODS_CATEGORY:
+                return this.match(categorySkus, memberCoupon.getScopeId(), storeId);
+            default:
+                return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 按优惠券范围ID查找商品
+     *
+     * @param index   范围索引
+     * @param scopeId 优惠券范围ID，多个以逗号分隔
+     * @param storeId 店铺ID，平台优惠券为空
+     * @return 适用的购物车商品
+     */
+    private List<CartSkuVO> match(Map<String, List<Integer>> index, String scopeId, String storeId) {
+        if (CharSequenceUtil.isEmpty(scopeId)) {
+            return Collections.emptyList();
+        }
+        TreeSet<Integer> matched = new TreeSet<>();
+        for (String id : scopeId.split(",")) {
+            List<Integer> indexes = index.get(id.trim());
+            if (indexes == null) {
+                continue;
+            }
+            for (Integer i : indexes) {
+                if (storeId == null || storeId.equals(skus.get(i).getStoreId())) {
+                    matched.add(i);
+                }
+            }
+        }
+        return this.toSkus(matched);
+    }
+
+    private List<CartSkuVO> toSkus(Collection<Integer> indexes) {
+        List<CartSkuVO> result = new ArrayList<>(indexes.size());
+        for (Integer i : indexes) {
+            result.add(skus.get(i));
+        }
+        return result;
+    }
+
+    private static void add(Map<String, List<Integer>> index, String key, int i) {
+        index.computeIfAbsent(key, k -> new ArrayList<>(2)).add(i);
+    }
+}
@@ -0,0 +1,77 @@
+package cn.lili.modules.order.order.entity.dos;
+
+import cn.lili.modules.order.order.entity.enums.OrderEventStatusEnum;
+import cn.lili.mybatis.BaseIdEntity;
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.util.Date;
+
+/**
+ * 订单事件执行记录
+ * 每条订单消息的每个事件处理各一条，记录执行结果，用于消息重复投递时跳过已成功的处理、失败重试与死信重放
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+@TableName("li_order_event_record")
+@ApiModel(value = "订单事件执行记录")
+public class OrderEventRecord extends BaseIdEntity {
+
+    private static final long serialVersionUID = 1L;
+
+    @ApiModelProperty(value = "事件标识，订单消息ID")
+    private String eventKey;
+
+    /**
+     * @see cn.lili.rocketmq.tags.OrderTagsEnum
+     */
+    @ApiModelProperty(value = "消息标签")
+    private String tag;
+
+    @ApiModelProperty(value = "事件处理")
+    private String handler;
+
+    /**
+     * @see OrderEventStatusEnum
+     */
+    @ApiModelProperty(value = "执行状态")
+    private String status;
+
+    @ApiModelProperty(value = "已执行次数")
+    private Integer attempts;
+
+    @ApiModelProperty(value = "最后一次失败原因")
+    private String errorMessage;
+
+    @ApiModelProperty(value = "事件内容，执行失败时保存，用于重新执行")
+    private String payload;
+
+    @JsonFormat(timezone = "GMT+8", pattern = "yyyy-MM-dd HH:mm:ss")
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @TableField(fill = FieldFill.INSERT)
+    @ApiModelProperty(value = "创建时间", hidden = true)
+    private Date createTime;
+
+    @JsonFormat(timezone = "GMT+8", pattern = "yyyy-MM-dd HH:mm:ss")
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @TableField(fill = FieldFill.UPDATE)
+    @ApiModelProperty(value = "更新时间", hidden = true)
+    private Date updateTime;
+
+    public OrderEventRecord() {
+    }
+
+    public OrderEventRecord(String eventKey, String tag, String handler) {
+        this.eventKey = eventKey;
+        this.tag = tag;
+        this.handler = handler;
+        this.attempts = 0;
+    }
+}
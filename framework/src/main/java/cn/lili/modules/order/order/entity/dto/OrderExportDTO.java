@@ -20,6 +20,10 @@ import java.util.Date;
 @Data
 public class OrderExportDTO {
 
+    @ApiModelProperty(value = "主订单ID，分批导出游标")
+    private String orderId;
+    @ApiModelProperty(value = "子订单ID，分批导出游标")
+    private String itemId;
     @ApiModelProperty(value = "主订单编号")
     private String orderSn;
     @ApiModelProperty(value = "子订单编号")
@@ -28,4 +28,16 @@ public class OrderItemOperationDTO {
     @ApiModelProperty(value = "订单投诉状态")
     String complainStatus;
 
+    @ApiModelProperty(value = "游标，上一批最后一条子订单ID，按子订单ID升序分页")
+    String lastId;
+
+    @ApiModelProperty(value = "每批数量")
+    Integer limit;
+
+    @ApiModelProperty(value = "分片序号")
+    Integer shardIndex;
+
+    @ApiModelProperty(value = "分片总数")
+    Integer shardTotal;
+
 }
@@ -113,7 +113,16 @@ public class OrderSearchParams extends PageVO {
     private String orderPromotionType;
 
     public <T> QueryWrapper<T> queryWrapper() {
-        AuthUser currentUser = UserContext.getCurrentUser();
+        return this.queryWrapper(UserContext.getCurrentUser());
+    }
+
+    /**
+     * 按指定用户构建查询条件，用于请求上下文之外（如异步导出）的查询
+     *
+     * @param currentUser 当前用户
+     * @return 查询条件
+     */
+    public <T> QueryWrapper<T> queryWrapper(AuthUser currentUser) {
         QueryWrapper<T> wrapper = new QueryWrapper<>();
 
         //关键字查询
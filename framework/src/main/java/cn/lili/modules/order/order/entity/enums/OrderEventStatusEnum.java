@@ -0,0 +1,20 @@
+package cn.lili.modules.order.order.entity.enums;
+
+/**
+ * 订单事件执行状态
+ */
+public enum OrderEventStatusEnum {
+
+    /**
+     * 执行成功，消息重复投递时不再执行
+     */
+    SUCCESS,
+    /**
+     * 执行失败，等待消息重新投递后重试
+     */
+    FAIL,
+    /**
+     * 多次重试后仍执行失败，不再自动重试，可在管理端重新执行
+     */
+    DEAD
+}
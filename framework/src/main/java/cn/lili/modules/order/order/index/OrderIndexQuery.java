@@ -0,0 +1,236 @@
+package cn.lili.modules.order.order.index;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.NumberUtil;
+import cn.lili.common.security.AuthUser;
+import cn.lili.common.security.enums.UserEnums;
+import cn.lili.common.utils.DateUtil;
+import cn.lili.modules.order.order.entity.dto.OrderSearchParams;
+import cn.lili.modules.order.order.entity.enums.OrderStatusEnum;
+import cn.lili.modules.order.order.entity.enums.OrderTagEnum;
+import cn.lili.modules.search.entity.dos.EsOrderIndex;
+import cn.lili.modules.search.entity.dos.EsOrderItemIndex;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * 订单索引查询条件
+ * <p>
+ * 由 {@link OrderSearchParams} 与当前用户解析得到，条件与 {@link OrderSearchParams#queryWrapper(AuthUser)} 一致：
+ * SQL 中的 eq 为相等匹配，like 为包含匹配（订单表为 utf8mb4_bin 排序规则，like 区分大小写），
+ * 子订单条件为任一子订单满足即可。
+ */
+@Data
+public class OrderIndexQuery {
+
+    /**
+     * 关键字：订单编号/商品名称/收件人/收件人手机/店铺名称
+     */
+    private String keywords;
+
+    private String storeId;
+
+    /**
+     * 会员查询自己的订单，相等匹配
+     */
+    private String memberId;
+
+    /**
+     * 查询参数中的会员ID，与 SQL 一致为包含匹配
+     */
+    private String memberIdKeyword;
+
+    private String orderSn;
+
+    private Long startTime;
+
+    private Long endTime;
+
+    private String buyerName;
+
+    private String orderType;
+
+    private String shipName;
+
+    private String goodsName;
+
+    private String paymentMethod;
+
+    private String orderStatus;
+
+    /**
+     * 页面标签对应的订单状态
+     */
+    private String tagStatus;
+
+    private String payStatus;
+
+    private String clientType;
+
+    private String commentStatus;
+
+    private String parentOrderSn;
+
+    private String promotionId;
+
+    private String orderPromotionType;
+
+    private Double minFlowPrice;
+
+    private Double maxFlowPrice;
+
+    /**
+     * 解析查询条件
+     *
+     * @param params      订单查询参数
+     * @param currentUser 当前用户，可为空
+     * @return 查询条件
+     */
+    public static OrderIndexQuery of(OrderSearchParams params, AuthUser currentUser) {
+        OrderIndexQuery query = new OrderIndexQuery();
+        query.keywords = emptyToNull(params.getKeywords());
+        if (currentUser != null) {
+            //按卖家查询
+            if (currentUser.getRole() == UserEnums.STORE) {
+                query.storeId = currentUser.getStoreId();
+            }
+            //店铺查询
+            if (currentUser.getRole() == UserEnums.MANAGER) {
+                query.storeId = emptyToNull(params.getStoreId());
+            }
+            //按买家查询
+            if (currentUser.getRole() == UserEnums.MEMBER && params.getMemberId() == null) {
+                query.memberId = currentUser.getId();
+            }
+        }
+        if (CharSequenceUtil.isNotEmpty(params.getMemberId())) {
+            query.memberIdKeyword = params.getMemberId();
+        }
+        query.orderSn = emptyToNull(params.getOrderSn());
+        query.startTime = params.getStartDate() == null ? null : params.getStartDate().getTime();
+        query.endTime = params.getEndDate() == null ? null : DateUtil.endOfDate(params.getEndDate()).getTime();
+        query.buyerName = emptyToNull(params.getBuyerName());
+        query.orderType = emptyToNull(params.getOrderType());
+        query.shipName = emptyToNull(params.getShipName());
+        query.goodsName = emptyToNull(params.getGoodsName());
+        query.paymentMethod = emptyToNull(params.getPaymentMethod());
+        query.orderStatus = emptyToNull(params.getOrderStatus());
+        query.payStatus = emptyToNull(params.getPayStatus());
+        query.clientType = emptyToNull(params.getClientType());
+        query.commentStatus = emptyToNull(params.getCommentStatus());
+        query.parentOrderSn = params.getParentOrderSn();
+        query.promotionId = emptyToNull(params.getPromotionId());
+        query.orderPromotionType = emptyToNull(params.getOrderPromotionType());
+
+        //按标签查询
+        if (CharSequenceUtil.isNotEmpty(params.getTag())) {
+            switch (OrderTagEnum.valueOf(params.getTag())) {
+                case WAIT_PAY:
+                    query.tagStatus = OrderStatusEnum.UNPAID.name();
+                    break;
+                case WAIT_SHIP:
+                    query.tagStatus = OrderStatusEnum.UNDELIVERED.name();
+                    break;
+                case WAIT_ROG:
+                    query.tagStatus = OrderStatusEnum.DELIVERED.name();
+                    break;
+                case CANCELLED:
+                    query.tagStatus = OrderStatusEnum.CANCELLED.name();
+                    break;
+                case COMPLETE:
+                    query.tagStatus = OrderStatusEnum.COMPLETED.name();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        //价格区间，如10_1000
+        if (CharSequenceUtil.isNotEmpty(params.getFlowPrice())) {
+            String[] s = params.getFlowPrice().split("_");
+            if (NumberUtil.isNumber(s[0])) {
+                query.minFlowPrice = Double.valueOf(s[0]);
+            }
+            if (s.length > 1 && NumberUtil.isNumber(s[1])) {
+                query.maxFlowPrice = Double.valueOf(s[1]);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * 判断订单是否满足条件
+     *
+     * @param index 订单索引
+     * @return 是否满足
+     */
+    public boolean test(EsOrderIndex index) {
+        if (Boolean.TRUE.equals(index.getDeleteFlag())) {
+            return false;
+        }
+        if (keywords != null && !(contains(index.getSn(), keywords)
+                || anyItem(index, item -> contains(item.getGoodsName(), keywords))
+                || contains(index.getConsigneeName(), keywords)
+                || contains(index.getConsigneeMobile(), keywords)
+                || contains(index.getStoreName(), keywords))) {
+            return false;
+        }
+        if (startTime != null && (index.getCreateTime() == null || index.getCreateTime() < startTime)) {
+            return false;
+        }
+        if (endTime != null && (index.getCreateTime() == null || index.getCreateTime() > endTime)) {
+            return false;
+        }
+        if (minFlowPrice != null && (index.getFlowPrice() == null || index.getFlowPrice() < minFlowPrice)) {
+            return false;
+        }
+        if (maxFlowPrice != null && (index.getFlowPrice() == null || index.getFlowPrice() > maxFlowPrice)) {
+            return false;
+        }
+        if (goodsName != null && !anyItem(index, item -> contains(item.getGoodsName(), goodsName))) {
+            return false;
+        }
+        if (commentStatus != null && !anyItem(index, item -> commentStatus.equals(item.getCommentStatus()))) {
+            return false;
+        }
+        return equalsIfPresent(storeId, index.getStoreId())
+                && equalsIfPresent(memberId, index.getMemberId())
+                && equalsIfPresent(orderType, index.getOrderType())
+                && equalsIfPresent(paymentMethod, index.getPaymentMethod())
+                && equalsIfPresent(orderStatus, index.getOrderStatus())
+                && equalsIfPresent(tagStatus, index.getOrderStatus())
+                && equalsIfPresent(payStatus, index.getPayStatus())
+                && equalsIfPresent(parentOrderSn, index.getParentOrderSn())
+                && equalsIfPresent(promotionId, index.getPromotionId())
+                && equalsIfPresent(orderPromotionType, index.getOrderPromotionType())
+                && containsIfPresent(memberIdKeyword, index.getMemberId())
+                && containsIfPresent(orderSn, index.getSn())
+                && containsIfPresent(buyerName, index.getMemberName())
+                && containsIfPresent(shipName, index.getConsigneeName())
+                && containsIfPresent(clientType, index.getClientType());
+    }
+
+    private static boolean anyItem(EsOrderIndex index, Predicate<EsOrderItemIndex> predicate) {
+        List<EsOrderItemIndex> items = index.getItems();
+        return items != null && items.stream().anyMatch(predicate);
+    }
+
+    private static boolean equalsIfPresent(String expected, String value) {
+        return expected == null || Objects.equals(expected, value);
+    }
+
+    private static boolean containsIfPresent(String keyword, String value) {
+        return keyword == null || contains(value, keyword);
+    }
+
+    private static boolean contains(String value, String keyword) {
+        return value != null && value.contains(keyword);
+    }
+
+    private static String emptyToNull(String value) {
+        return CharSequenceUtil.isEmpty(value) ? null : value;
+    }
+}
@@ -0,0 +1,73 @@
+package cn.lili.modules.order.order.index;
+
+import cn.lili.modules.search.entity.dos.EsOrderIndex;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单索引存储
+ */
+public interface OrderIndexStore {
+
+    /**
+     * 写入或覆盖订单索引，版本低于已有文档的索引不会写入
+     *
+     * @param indexes 订单索引
+     */
+    void save(List<EsOrderIndex> indexes);
+
+    /**
+     * 删除订单索引
+     *
+     * @param sns 订单编号
+     */
+    void delete(Collection<String> sns);
+
+    /**
+     * 根据订单编号获取索引
+     *
+     * @param sns 订单编号
+     * @return 订单索引，按订单编号
+     */
+    Map<String, EsOrderIndex> get(Collection<String> sns);
+
+    /**
+     * 分页查询，按下单时间倒序
+     *
+     * @param query   查询条件
+     * @param current 页码，从1开始
+     * @param size    每页数量
+     * @return 订单索引分页
+     */
+    IPage<EsOrderIndex> search(OrderIndexQuery query, long current, long size);
+
+    /**
+     * 按订单状态统计数量
+     *
+     * @param query 查询条件
+     * @return 订单状态-数量
+     */
+    Map<String, Long> countByStatus(OrderIndexQuery query);
+
+    /**
+     * 最大可分页条数，超出后由数据库查询
+     *
+     * @return 条数
+     */
+    long maxResultWindow();
+
+    /**
+     * 索引是否已完整构建，未构建完成时查询走数据库
+     *
+     * @return 是否可用
+     */
+    boolean isReady();
+
+    /**
+     * 标记索引构建完成
+     */
+    void markReady();
+}
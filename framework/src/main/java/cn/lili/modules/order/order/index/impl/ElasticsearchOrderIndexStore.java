@@ -0,0 +1,285 @@
+package cn.lili.modules.order.order.index.impl;
+
+import cn.lili.cache.Cache;
+import cn.lili.cache.CachePrefix;
+import cn.lili.modules.order.order.index.OrderIndexQuery;
+import cn.lili.modules.order.order.index.OrderIndexStore;
+import cn.lili.modules.search.entity.dos.EsOrderIndex;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Elasticsearch 订单索引
+ * <p>
+ * 模糊条件与原 LIKE 查询语义一致。订单编号、会员、收件人、商品名称等几乎每单不同的字段，
+ * 在 keyword 字段上做 *kw* 查询需要遍历整个词典，开销随订单数增长，
+ * 因此这些字段增加 wildcard 类型子字段（要求 elasticsearch 7.9 及以上），模糊查询走子字段的 ngram 预筛选；
+ * 店铺名称、订单来源取值有限，仍查询 keyword 字段。
+ * <p>
+ * 文档以订单更新时间作为外部版本写入，较晚提交的旧数据不会覆盖已写入的新文档。
+ */
+@Slf4j
+public class ElasticsearchOrderIndexStore implements OrderIndexStore {
+
+    /**
+     * elasticsearch 默认 max_result_window
+     */
+    private static final long MAX_RESULT_WINDOW = 10000L;
+
+    private static final String STATUS_AGG = "orderStatusAgg";
+
+    /**
+     * wildcard 类型子字段名称
+     */
+    private static final String WILDCARD_FIELD = "wildcard";
+
+    private static final String VERSION_CONFLICT = "version conflict";
+
+    /**
+     * 需要 wildcard 子字段的高基数字段
+     */
+    private static final List<String> WILDCARD_FIELDS = Arrays.asList("sn", "memberId", "memberName",
+            "consigneeName", "consigneeMobile", "items.goodsName");
+
+    private final ElasticsearchOperations restTemplate;
+
+    private final Cache<Object> cache;
+
+    private volatile boolean indexCreated;
+
+    public ElasticsearchOrderIndexStore(ElasticsearchOperations restTemplate, Cache<Object> cache) {
+        this.restTemplate = restTemplate;
+        this.cache = cache;
+    }
+
+    @Override
+    public void save(List<EsOrderIndex> indexes) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        this.createIndex();
+        try {
+            restTemplate.save(indexes);
+        } catch (BulkFailureException e) {
+            //版本冲突说明索引中已有更新的文档，忽略即可
+            Map<String, String> failed = e.getFailedDocuments().entrySet().stream()
+                    .filter(entry -> entry.getValue() == null || !entry.getValue().contains(VERSION_CONFLICT))
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a));
+            if (!failed.isEmpty()) {
+                throw new BulkFailureException(e.getMessage(), failed);
+            }
+            log.debug("订单索引跳过旧版本文档：{}", e.getFailedDocuments().keySet());
+        }
+    }
+
+    @Override
+    public void delete(Collection<String> sns) {
+        for (String sn : sns) {
+            restTemplate.delete(sn, EsOrderIndex.class);
+        }
+    }
+
+    @Override
+    public Map<String, EsOrderIndex> get(Collection<String> sns) {
+        if (sns.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        NativeSearchQuery query = new NativeSearchQueryBuilder()
+                .withQuery(QueryBuilders.idsQuery().addIds(sns.toArray(new String[0])))
+                .withPageable(PageRequest.of(0, sns.size()))
+                .build();
+        return restTemplate.search(query, EsOrderIndex.class).getSearchHits().stream()
+                .map(SearchHit::getContent)
+                .collect(Collectors.toMap(EsOrderIndex::getSn, index -> index, (a, b) -> a));
+    }
+
+    @Override
+    public IPage<EsOrderIndex> search(OrderIndexQuery query, long current, long size) {
+        NativeSearchQuery searchQuery = new NativeSearchQueryBuilder()
+                .withQuery(this.buildQuery(query))
+                .withPageable(PageRequest.of((int) current - 1, (int) size))
+                .withSort(SortBuilders.fieldSort("createTime").order(SortOrder.DESC))
+                .withSort(SortBuilders.fieldSort("sn").order(SortOrder.DESC))
+                .build();
+        searchQuery.setTrackTotalHits(true);
+        SearchHits<EsOrderIndex> searchHits = restTemplate.search(searchQuery, EsOrderIndex.class);
+        Page<EsOrderIndex> page = new Page<>(current, size, searchHits.getTotalHits());
+        page.setRecords(searchHits.getSearchHits().stream().map(SearchHit::getContent).collect(Collectors.toList()));
+        return page;
+    }
+
+    @Override
+    public Map<String, Long> countByStatus(OrderIndexQuery query) {
+        NativeSearchQuery searchQuery = new NativeSearchQueryBuilder()
+                .withQuery(this.buildQuery(query))
+                .withPageable(PageRequest.of(0, 1))
+                .addAggregation(AggregationBuilders.terms(STATUS_AGG).field("orderStatus").size(32))
+                .build();
+        SearchHits<EsOrderIndex> searchHits = restTemplate.search(searchQuery, EsOrderIndex.class);
+        Map<String, Long> result = new HashMap<>(16);
+        if (searchHits.getAggregations() == null) {
+            return result;
+        }
+        Terms terms = searchHits.getAggregations().get(STATUS_AGG);
+        for (Terms.Bucket bucket : terms.getBuckets()) {
+            result.put(bucket.getKeyAsString(), bucket.getDocCount());
+        }
+        return result;
+    }
+
+    @Override
+    public long maxResultWindow() {
+        return MAX_RESULT_WINDOW;
+    }
+
+    @Override
+    public boolean isReady() {
+        return Boolean.TRUE.equals(cache.get(CachePrefix.ORDER_INDEX_READY.getPrefix()));
+    }
+
+    @Override
+    public void markReady() {
+        cache.put(CachePrefix.ORDER_INDEX_READY.getPrefix(), true);
+    }
+
+    /**
+     * 构建查询条件，条件与 {@link OrderIndexQuery#test(EsOrderIndex)} 一致
+     */
+    private BoolQueryBuilder buildQuery(OrderIndexQuery query) {
+        BoolQueryBuilder filter = QueryBuilders.boolQuery();
+        filter.filter(QueryBuilders.termQuery("deleteFlag", false));
+        if (query.getKeywords() != null) {
+            String pattern = like(query.getKeywords());
+            filter.filter(QueryBuilders.boolQuery()
+                    .should(QueryBuilders.wildcardQuery(wildcardField("sn"), pattern))
+                    .should(QueryBuilders.wildcardQuery(wildcardField("items.goodsName"), pattern))
+                    .should(QueryBuilders.wildcardQuery(wildcardField("consigneeName"), pattern))
+                    .should(QueryBuilders.wildcardQuery(wildcardField("consigneeMobile"), pattern))
+                    .should(QueryBuilders.wildcardQuery("storeName", pattern))
+                    .minimumShouldMatch(1));
+        }
+        if (query.getStartTime() != null || query.getEndTime() != null) {
+            RangeQueryBuilder range = QueryBuilders.rangeQuery("createTime");
+            if (query.getStartTime() != null) {
+                range.gte(query.getStartTime());
+            }
+            if (query.getEndTime() != null) {
+                range.lte(query.getEndTime());
+            }
+            filter.filter(range);
+        }
+        if (query.getMinFlowPrice() != null || query.getMaxFlowPrice() != null) {
+            RangeQueryBuilder range = QueryBuilders.rangeQuery("flowPrice");
+            if (query.getMinFlowPrice() != null) {
+                range.gte(query.getMinFlowPrice());
+            }
+            if (query.getMaxFlowPrice() != null) {
+                range.lte(query.getMaxFlowPrice());
+            }
+            filter.filter(range);
+        }
+        term(filter, "storeId", query.getStoreId());
+        term(filter, "memberId", query.getMemberId());
+        term(filter, "orderType", query.getOrderType());
+        term(filter, "paymentMethod", query.getPaymentMethod());
+        term(filter, "orderStatus", query.getOrderStatus());
+        term(filter, "orderStatus", query.getTagStatus());
+        term(filter, "payStatus", query.getPayStatus());
+        term(filter, "parentOrderSn", query.getParentOrderSn());
+        term(filter, "promotionId", query.getPromotionId());
+        term(filter, "orderPromotionType", query.getOrderPromotionType());
+        term(filter, "items.commentStatus", query.getCommentStatus());
+        wildcard(filter, wildcardField("memberId"), query.getMemberIdKeyword());
+        wildcard(filter, wildcardField("sn"), query.getOrderSn());
+        wildcard(filter, wildcardField("memberName"), query.getBuyerName());
+        wildcard(filter, wildcardField("consigneeName"), query.getShipName());
+        wildcard(filter, wildcardField("items.goodsName"), query.getGoodsName());
+        wildcard(filter, "clientType", query.getClientType());
+        return filter;
+    }
+
+    private static void term(BoolQueryBuilder filter, String field, String value) {
+        if (value != null) {
+            filter.filter(QueryBuilders.termQuery(field, value));
+        }
+    }
+
+    private static void wildcard(BoolQueryBuilder filter, String field, String value) {
+        if (value != null) {
+            filter.filter(QueryBuilders.wildcardQuery(field, like(value)));
+        }
+    }
+
+    private static String wildcardField(String field) {
+        return field + "." + WILDCARD_FIELD;
+    }
+
+    /**
+     * 包含匹配，转义 wildcard 通配符
+     */
+    private static String like(String value) {
+        return "*" + value.replace("\\", "\\\\").replace("*", "\\*").replace("?", "\\?") + "*";
+    }
+
+    /**
+     * 首次写入前按实体映射创建索引，避免动态映射把 keyword 字段建成 text
+     */
+    private void createIndex() {
+        if (indexCreated) {
+            return;
+        }
+        synchronized (this) {
+            if (indexCreated) {
+                return;
+            }
+            IndexOperations indexOperations = restTemplate.indexOps(EsOrderIndex.class);
+            if (!indexOperations.exists()) {
+                indexOperations.create();
+                Document mapping = indexOperations.createMapping(EsOrderIndex.class);
+                WILDCARD_FIELDS.forEach(field -> addWildcardField(mapping, field));
+                indexOperations.putMapping(mapping);
+                log.info("订单索引创建完成");
+            }
+            indexCreated = true;
+        }
+    }
+
+    /**
+     * 为映射中的 keyword 字段增加 wildcard 类型子字段
+     *
+     * @param mapping 实体映射
+     * @param field   字段路径，对象字段以 . 分隔
+     */
+    @SuppressWarnings("unchecked")
+    private static void addWildcardField(Map<String, Object> mapping, String field) {
+        Map<String, Object> property = mapping;
+        for (String name : field.split("\\.")) {
+            property = (Map<String, Object>) ((Map<String, Object>) property.get("properties")).get(name);
+        }
+        Map<String, Object> wildcard = new HashMap<>(2);
+        wildcard.put("type", WILDCARD_FIELD);
+        Map<String, Object> fields = new HashMap<>(2);
+        fields.put(WILDCARD_FIELD, wildcard);
+        property.put("fields", fields);
+    }
+}
@@ -0,0 +1,88 @@
+package cn.lili.modules.order.order.index.impl;
+
+import cn.lili.modules.order.order.index.OrderIndexQuery;
+import cn.lili.modules.order.order.index.OrderIndexStore;
+import cn.lili.modules.search.entity.dos.EsOrderIndex;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 内存订单索引
+ * 数据只保存在当前进程，用于单机调试与测试
+ */
+public class MemoryOrderIndexStore implements OrderIndexStore {
+
+    /**
+     * 下单时间倒序，时间相同按订单编号倒序
+     */
+    private static final Comparator<EsOrderIndex> ORDER = Comparator
+            .comparing(EsOrderIndex::getCreateTime, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(EsOrderIndex::getSn)
+            .reversed();
+
+    private final Map<String, EsOrderIndex> indexes = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    @Override
+    public void save(List<EsOrderIndex> indexes) {
+        for (EsOrderIndex index : indexes) {
+            //与 elasticsearch 外部版本一致，版本较旧的文档不覆盖已有文档
+            this.indexes.merge(index.getSn(), index, (existing, latest) ->
+                    existing.getVersion() != null && latest.getVersion() != null
+                            && latest.getVersion() < existing.getVersion() ? existing : latest);
+        }
+    }
+
+    @Override
+    public void delete(Collection<String> sns) {
+        sns.forEach(indexes::remove);
+    }
+
+    @Override
+    public Map<String, EsOrderIndex> get(Collection<String> sns) {
+        Map<String, EsOrderIndex> result = new HashMap<>(sns.size() * 2);
+        for (String sn : sns) {
+            EsOrderIndex index = indexes.get(sn);
+            if (index != null) {
+                result.put(sn, index);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public IPage<EsOrderIndex> search(OrderIndexQuery query, long current, long size) {
+        List<EsOrderIndex> matched = indexes.values().stream().filter(query::test).sorted(ORDER).collect(Collectors.toList());
+        Page<EsOrderIndex> page = new Page<>(current, size, matched.size());
+        int from = (int) Math.min((current - 1) * size, matched.size());
+        int to = (int) Math.min(from + size, matched.size());
+        page.setRecords(new ArrayList<>(matched.subList(from, to)));
+        return page;
+    }
+
+    @Override
+    public Map<String, Long> countByStatus(OrderIndexQuery query) {
+        return indexes.values().stream().filter(query::test).filter(index -> index.getOrderStatus() != null)
+                .collect(Collectors.groupingBy(EsOrderIndex::getOrderStatus, Collectors.counting()));
+    }
+
+    @Override
+    public long maxResultWindow() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void markReady() {
+        this.ready = true;
+    }
+}
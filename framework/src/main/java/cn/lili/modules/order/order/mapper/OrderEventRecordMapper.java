@@ -0,0 +1,11 @@
+package cn.lili.modules.order.order.mapper;
+
+import cn.lili.modules.order.order.entity.dos.OrderEventRecord;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+/**
+ * 订单事件执行记录数据处理层
+ */
+public interface OrderEventRecordMapper extends BaseMapper<OrderEventRecord> {
+
+}
@@ -38,7 +38,9 @@ public interface OrderMapper extends BaseMapper<Order> {
      * @param queryWrapper 查询条件
      * @return 导出订单DTO列表
      */
-    @Select("SELECT o.sn AS order_sn," +
+    @Select("SELECT o.id AS order_id," +
+            "oi.id AS item_id," +
+            "o.sn AS order_sn," +
             "oi.sn AS order_item_sn," +
             "oi.goods_name AS goods_name," +
             "oi.num AS num," +
@@ -38,43 +38,27 @@ public interface StoreFlowMapper extends BaseMapper<StoreFlow> {
     @Select("SELECT * FROM li_store_flow ${ew.customSqlSegment}")
     List<StoreFlowRefundDownloadVO> getStoreFlowRefundDownloadVO(@Param(Constants.WRAPPER) Wrapper<StoreFlow> queryWrapper);
 
-    @Update("UPDATE li_store_flow "+
-            "SET profit_sharing_status = 'PROCESSING', "+
-            "bill_time=NOW()  "+
-            "WHERE order_item_sn IN ( "+
-            "SELECT o.order_item_sn "+
-            "FROM ( "+
-            "SELECT lof.order_item_sn "+
-            "FROM li_store_flow lof "+
-            "LEFT JOIN ( "+
-            "SELECT order_sn "+
-            "FROM li_order_item "+
-            "WHERE after_sale_status <> 'EXPIRED' "+
-            "GROUP BY order_sn "+
-            ") oi ON lof.order_sn = oi.order_sn "+
-            "WHERE lof.profit_sharing_status = 'WAIT_COMPLETE' "+
-            "AND oi.order_sn IS NULL "+
-            ") o "+
-            ")")
-    void updateProfitSharingStatus();
+    /**
+     * 分账状态修改为处理中
+     *
+     * @param orderItemSns 子订单编号
+     */
+    @Update({"<script>",
+            "UPDATE li_store_flow SET profit_sharing_status = 'PROCESSING', bill_time = NOW() ",
+            "WHERE order_item_sn IN ",
+            "<foreach collection='orderItemSns' item='sn' open='(' separator=',' close=')'>#{sn}</foreach>",
+            "</script>"})
+    void updateProfitSharingStatus(@Param("orderItemSns") List<String> orderItemSns);
 
-    @Select("SELECT * FROM li_store_flow "+
-            "WHERE order_item_sn IN ( "+
-            "SELECT o.order_item_sn "+
-            "FROM ( "+
-            "SELECT lof.order_item_sn "+
-            "FROM li_store_flow lof "+
-            "LEFT JOIN ( "+
-            "SELECT order_sn "+
-            "FROM li_order_item "+
-            "WHERE after_sale_status <> 'EXPIRED' "+
-            "GROUP BY order_sn "+
-            ") oi ON lof.order_sn = oi.order_sn "+
-            "WHERE lof.profit_sharing_status = 'WAIT_COMPLETE' "+
-            "AND oi.order_sn IS NULL "+
-            ") o "+
-            ")")
-    List<StoreFlow> completeList();
+    /**
+     * 获取待分账流水
+     * 订单的全部子订单售后均已过期，且流水为待分账状态
+     *
+     * @param queryWrapper 查询条件
+     * @return 待分账流水
+     */
+    @Select("SELECT lof.* FROM li_store_flow lof ${ew.customSqlSegment}")
+    List<StoreFlow> completeList(@Param(Constants.WRAPPER) Wrapper<StoreFlow> queryWrapper);
 
 
     /**
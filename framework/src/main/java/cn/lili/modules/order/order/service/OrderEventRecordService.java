@@ -0,0 +1,36 @@
+package cn.lili.modules.order.order.service;
+
+import cn.lili.modules.order.order.entity.dos.OrderEventRecord;
+import com.baomidou.mybatisplus.extension.service.IService;
+
+import java.util.List;
+
+/**
+ * 订单事件执行记录业务层
+ */
+public interface OrderEventRecordService extends IService<OrderEventRecord> {
+
+    /**
+     * 查询订单消息的事件执行记录
+     *
+     * @param eventKey 事件标识
+     * @param tag      消息标签
+     * @return 各事件处理的执行记录
+     */
+    List<OrderEventRecord> listByEventKey(String eventKey, String tag);
+
+    /**
+     * 保存事件执行结果，没有ID时新增，否则更新执行状态、执行次数、失败原因与事件内容
+     *
+     * @param orderEventRecord 执行记录
+     */
+    void saveResult(OrderEventRecord orderEventRecord);
+
+    /**
+     * 重新执行多次重试后仍失败的事件处理
+     * 记录改为执行失败并清零执行次数，事务提交后发送重放消息，由消费者重新执行
+     *
+     * @param id 执行记录ID
+     */
+    void replay(String id);
+}
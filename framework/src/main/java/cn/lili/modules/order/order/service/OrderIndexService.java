@@ -0,0 +1,78 @@
+package cn.lili.modules.order.order.service;
+
+import cn.lili.modules.order.order.entity.dos.Order;
+import cn.lili.modules.order.order.entity.dto.OrderSearchParams;
+import cn.lili.modules.order.order.entity.vo.OrderNumVO;
+import cn.lili.modules.order.order.entity.vo.OrderSimpleVO;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 订单查询索引业务层
+ * <p>
+ * 订单列表、订单数量查询的读模型，订单变更后由消息事件刷新，定时任务校验修复与数据库的差异。
+ */
+public interface OrderIndexService {
+
+    /**
+     * 当前查询是否可以使用索引
+     * 未配置索引、索引未构建完成或分页超出索引可分页范围时，应查询数据库
+     *
+     * @param orderSearchParams 查询参数
+     * @return 是否可用
+     */
+    boolean isAvailable(OrderSearchParams orderSearchParams);
+
+    /**
+     * 索引是否已完整构建
+     *
+     * @return 是否构建完成
+     */
+    boolean isReady();
+
+    /**
+     * 标记索引构建完成
+     */
+    void markReady();
+
+    /**
+     * 查询订单简短信息分页
+     *
+     * @param orderSearchParams 查询参数
+     * @return 简短订单分页
+     */
+    IPage<OrderSimpleVO> queryByParams(OrderSearchParams orderSearchParams);
+
+    /**
+     * 查询订单各状态数量
+     *
+     * @param orderSearchParams 查询参数
+     * @return 订单数量
+     */
+    OrderNumVO getOrderNumVO(OrderSearchParams orderSearchParams);
+
+    /**
+     * 按数据库最新数据刷新订单索引，订单不存在时删除索引
+     *
+     * @param orderSns 订单编号
+     */
+    void refresh(Collection<String> orderSns);
+
+    /**
+     * 事务提交后刷新订单索引，不在事务中时立即刷新
+     * 用于不发送订单消息的订单修改，如修改收货信息、修改价格、卖家备注、删除订单
+     *
+     * @param orderSns 订单编号
+     */
+    void refreshAfterCommit(Collection<String> orderSns);
+
+    /**
+     * 校验订单索引，与数据库不一致的重新写入
+     *
+     * @param orders 订单
+     * @return 不一致的订单数量
+     */
+    int reconcile(List<Order> orders);
+}
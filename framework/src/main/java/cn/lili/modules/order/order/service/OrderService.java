@@ -1,5 +1,6 @@
 package cn.lili.modules.order.order.service;
 
+import cn.lili.common.excel.ExcelExportJob;
 import cn.lili.modules.member.entity.dto.MemberAddressDTO;
 import cn.lili.modules.order.cart.entity.dto.TradeDTO;
 import cn.lili.modules.order.order.entity.dos.Order;
@@ -37,6 +38,25 @@ public interface OrderService extends IService<Order> {
      */
     void systemCancel(String orderSn, String reason,Boolean refundMoney);
 
+    /**
+     * 批量系统取消待付款订单
+     * 仅取消仍处于待付款状态的订单，重复执行不会重复取消，事务提交后为每个取消的订单发送订单取消消息
+     *
+     * @param orderSns 订单编号
+     * @param reason   取消原因
+     * @return 本次实际取消的订单编号
+     */
+    List<String> batchSystemCancel(List<String> orderSns, String reason);
+
+    /**
+     * 批量系统完成已发货订单
+     * 仅完成仍处于已发货状态的订单，重复执行不会重复完成
+     *
+     * @param orderSns 订单编号
+     * @return 本次实际完成的订单编号
+     */
+    List<String> batchSystemComplete(List<String> orderSns);
+
     /**
      * 根据sn查询
      *
@@ -109,6 +129,15 @@ public interface OrderService extends IService<Order> {
      */
     void queryExportOrder(HttpServletResponse response,OrderSearchParams orderSearchParams) ;
 
+    /**
+     * 提交异步导出订单任务
+     * 导出文件写入文件存储，通过任务ID查询进度与下载地址
+     *
+     * @param orderSearchParams 查询参数
+     * @return 导出任务
+     */
+    ExcelExportJob submitExportOrder(OrderSearchParams orderSearchParams);
+
 
     /**
      * 订单详细
@@ -73,6 +73,26 @@ public interface StoreFlowService extends IService<StoreFlow> {
      */
     List<StoreFlowRefundDownloadVO> getStoreFlowRefundDownloadVO(StoreFlowQueryDTO storeFlowQueryDTO);
 
+    /**
+     * 按流水ID游标分批获取结算单的入账流水
+     *
+     * @param storeFlowQueryDTO 查询条件
+     * @param lastId            上一批最后一条流水ID，首批为空
+     * @param size              每批数量
+     * @return 入账流水
+     */
+    List<StoreFlowPayDownloadVO> getStoreFlowPayDownloadVO(StoreFlowQueryDTO storeFlowQueryDTO, String lastId, Integer size);
+
+    /**
+     * 按流水ID游标分批获取结算单的退款流水
+     *
+     * @param storeFlowQueryDTO 查询条件
+     * @param lastId            上一批最后一条流水ID，首批为空
+     * @param size              每批数量
+     * @return 退款流水
+     */
+    List<StoreFlowRefundDownloadVO> getStoreFlowRefundDownloadVO(StoreFlowQueryDTO storeFlowQueryDTO, String lastId, Integer size);
+
 
     /**
      * 根据结算单ID获取商家流水
@@ -104,9 +124,29 @@ public interface StoreFlowService extends IService<StoreFlow> {
 
     /**
      * 修改分账状态
+     * 按流水ID游标分批处理，每批独立事务
      */
     void updateProfitSharingStatus();
 
+    /**
+     * 游标分页获取待分账流水
+     *
+     * @param lastId     上一批最后一条流水ID，为空则从头开始
+     * @param limit      每批数量
+     * @param shardIndex 分片序号
+     * @param shardTotal 分片总数
+     * @return 待分账流水，按ID升序
+     */
+    List<StoreFlow> waitProfitSharingList(String lastId, Integer limit, Integer shardIndex, Integer shardTotal);
+
+    /**
+     * 完成一批流水的分账
+     * 解冻分销佣金并将流水修改为分账处理中
+     *
+     * @param storeFlows 待分账流水
+     */
+    void completeProfitSharing(List<StoreFlow> storeFlows);
+
     /**
      * 获取退款的流水
      *
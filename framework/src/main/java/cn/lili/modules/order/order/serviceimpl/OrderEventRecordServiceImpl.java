@@ -0,0 +1,75 @@
+package cn.lili.modules.order.order.serviceimpl;
+
+import cn.lili.common.enums.ResultCode;
+import cn.lili.common.event.TransactionCommitSendMQEvent;
+import cn.lili.common.exception.ServiceException;
+import cn.lili.common.properties.RocketmqCustomProperties;
+import cn.lili.modules.order.order.entity.dos.OrderEventRecord;
+import cn.lili.modules.order.order.entity.enums.OrderEventStatusEnum;
+import cn.lili.modules.order.order.mapper.OrderEventRecordMapper;
+import cn.lili.modules.order.order.service.OrderEventRecordService;
+import cn.lili.rocketmq.tags.OrderTagsEnum;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 订单事件执行记录业务层实现
+ */
+@Service
+public class OrderEventRecordServiceImpl extends ServiceImpl<OrderEventRecordMapper, OrderEventRecord> implements OrderEventRecordService {
+
+    @Autowired
+    private RocketmqCustomProperties rocketmqCustomProperties;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public List<OrderEventRecord> listByEventKey(String eventKey, String tag) {
+        return this.list(new LambdaQueryWrapper<OrderEventRecord>()
+                .select(OrderEventRecord::getId, OrderEventRecord::getEventKey, OrderEventRecord::getTag,
+                        OrderEventRecord::getHandler, OrderEventRecord::getStatus, OrderEventRecord::getAttempts)
+                .eq(OrderEventRecord::getEventKey, eventKey)
+                .eq(OrderEventRecord::getTag, tag));
+    }
+
+    @Override
+    public void saveResult(OrderEventRecord orderEventRecord) {
+        if (orderEventRecord.getId() == null) {
+            this.save(orderEventRecord);
+            return;
+        }
+        this.update(new LambdaUpdateWrapper<OrderEventRecord>()
+                .set(OrderEventRecord::getStatus, orderEventRecord.getStatus())
+                .set(OrderEventRecord::getAttempts, orderEventRecord.getAttempts())
+                .set(OrderEventRecord::getErrorMessage, orderEventRecord.getErrorMessage())
+                .set(OrderEventRecord::getPayload, orderEventRecord.getPayload())
+                .set(OrderEventRecord::getUpdateTime, new Date())
+                .eq(OrderEventRecord::getId, orderEventRecord.getId()));
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void replay(String id) {
+        //只有死信可以重放，重复提交时第二次更新不到记录
+        boolean result = this.update(new LambdaUpdateWrapper<OrderEventRecord>()
+                .set(OrderEventRecord::getStatus, OrderEventStatusEnum.FAIL.name())
+                .set(OrderEventRecord::getAttempts, 0)
+                .set(OrderEventRecord::getUpdateTime, new Date())
+                .eq(OrderEventRecord::getId, id)
+                .eq(OrderEventRecord::getStatus, OrderEventStatusEnum.DEAD.name()));
+        if (!result) {
+            throw new ServiceException(ResultCode.ORDER_EVENT_REPLAY_ERROR);
+        }
+        applicationEventPublisher.publishEvent(new TransactionCommitSendMQEvent("订单事件重放", rocketmqCustomProperties.getOrderTopic(),
+                OrderTagsEnum.EVENT_REPLAY.name(), id));
+    }
+}
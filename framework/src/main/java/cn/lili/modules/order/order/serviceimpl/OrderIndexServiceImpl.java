@@ -0,0 +1,204 @@
+package cn.lili.modules.order.order.serviceimpl;
+
+import cn.lili.cache.Cache;
+import cn.lili.common.properties.OrderIndexProperties;
+import cn.lili.common.security.context.UserContext;
+import cn.lili.modules.order.order.entity.dos.Order;
+import cn.lili.modules.order.order.entity.dos.OrderItem;
+import cn.lili.modules.order.order.entity.dto.OrderSearchParams;
+import cn.lili.modules.order.order.entity.enums.OrderStatusEnum;
+import cn.lili.modules.order.order.entity.vo.OrderNumVO;
+import cn.lili.modules.order.order.entity.vo.OrderSimpleVO;
+import cn.lili.modules.order.order.index.OrderIndexQuery;
+import cn.lili.modules.order.order.index.OrderIndexStore;
+import cn.lili.modules.order.order.index.impl.ElasticsearchOrderIndexStore;
+import cn.lili.modules.order.order.index.impl.MemoryOrderIndexStore;
+import cn.lili.modules.order.order.mapper.OrderItemMapper;
+import cn.lili.modules.order.order.mapper.OrderMapper;
+import cn.lili.modules.order.order.service.OrderIndexService;
+import cn.lili.modules.search.entity.dos.EsOrderIndex;
+import cn.lili.mybatis.util.PageUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 订单查询索引业务层实现
+ */
+@Slf4j
+@Service
+public class OrderIndexServiceImpl implements OrderIndexService, InitializingBean {
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private OrderItemMapper orderItemMapper;
+
+    @Autowired
+    private OrderIndexProperties orderIndexProperties;
+
+    @Autowired
+    private ElasticsearchOperations restTemplate;
+
+    @Autowired
+    private Cache<Object> cache;
+
+    /**
+     * 索引存储，未配置时为空
+     */
+    private OrderIndexStore orderIndexStore;
+
+    @Override
+    public void afterPropertiesSet() {
+        switch (orderIndexProperties.getStore()) {
+            case "ELASTICSEARCH":
+                orderIndexStore = new ElasticsearchOrderIndexStore(restTemplate, cache);
+                break;
+            case "MEMORY":
+                orderIndexStore = new MemoryOrderIndexStore();
+                break;
+            default:
+                orderIndexStore = null;
+                break;
+        }
+    }
+
+    @Override
+    public boolean isAvailable(OrderSearchParams orderSearchParams) {
+        if (orderIndexStore == null || !this.isReady()) {
+            return false;
+        }
+        Page<OrderSimpleVO> page = PageUtil.initPage(orderSearchParams);
+        return page.getCurrent() * page.getSize() <= orderIndexStore.maxResultWindow();
+    }
+
+    @Override
+    public boolean isReady() {
+        return orderIndexStore != null && orderIndexStore.isReady();
+    }
+
+    @Override
+    public void markReady() {
+        if (orderIndexStore != null) {
+            orderIndexStore.markReady();
+        }
+    }
+
+    @Override
+    public IPage<OrderSimpleVO> queryByParams(OrderSearchParams orderSearchParams) {
+        Page<OrderSimpleVO> page = PageUtil.initPage(orderSearchParams);
+        OrderIndexQuery query = OrderIndexQuery.of(orderSearchParams, UserContext.getCurrentUser());
+        IPage<EsOrderIndex> result = orderIndexStore.search(query, page.getCurrent(), page.getSize());
+        page.setTotal(result.getTotal());
+        page.setRecords(result.getRecords().stream().map(EsOrderIndex::toOrderSimpleVO).collect(Collectors.toList()));
+        return page;
+    }
+
+    @Override
+    public OrderNumVO getOrderNumVO(OrderSearchParams orderSearchParams) {
+        OrderIndexQuery query = OrderIndexQuery.of(orderSearchParams, UserContext.getCurrentUser());
+        Map<String, Long> count = orderIndexStore.countByStatus(query);
+        OrderNumVO orderNumVO = new OrderNumVO();
+        orderNumVO.setWaitPayNum(count(count, OrderStatusEnum.UNPAID));
+        orderNumVO.setWaitDeliveryNum(count(count, OrderStatusEnum.PAID));
+        orderNumVO.setWaitShipNum(count(count, OrderStatusEnum.UNDELIVERED));
+        orderNumVO.setPartsDeliveredNumNum(count(count, OrderStatusEnum.PARTS_DELIVERED));
+        orderNumVO.setDeliveredNum(count(count, OrderStatusEnum.DELIVERED));
+        orderNumVO.setWaitCheckNum(count(count, OrderStatusEnum.TAKE));
+        orderNumVO.setWaitSelfPickNum(count(count, OrderStatusEnum.STAY_PICKED_UP));
+        orderNumVO.setFinishNum(count(count, OrderStatusEnum.COMPLETED));
+        orderNumVO.setCloseNum(count(count, OrderStatusEnum.CANCELLED));
+        return orderNumVO;
+    }
+
+    @Override
+    public void refresh(Collection<String> orderSns) {
+        if (orderIndexStore == null || orderSns == null || orderSns.isEmpty()) {
+            return;
+        }
+        List<Order> orders = orderMapper.selectList(new LambdaQueryWrapper<Order>().in(Order::getSn, orderSns));
+        List<EsOrderIndex> indexes = this.build(orders);
+        Set<String> removed = new HashSet<>(orderSns);
+        indexes.forEach(index -> removed.remove(index.getSn()));
+        orderIndexStore.save(indexes);
+        if (!removed.isEmpty()) {
+            orderIndexStore.delete(removed);
+        }
+    }
+
+    @Override
+    public void refreshAfterCommit(Collection<String> orderSns) {
+        if (orderIndexStore == null) {
+            return;
+        }
+        List<String> sns = new ArrayList<>(orderSns);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refreshQuietly(sns);
+                }
+            });
+        } else {
+            this.refreshQuietly(sns);
+        }
+    }
+
+    /**
+     * 刷新失败不影响已提交的订单修改，差异由定时校验修复
+     */
+    private void refreshQuietly(List<String> orderSns) {
+        try {
+            this.refresh(orderSns);
+        } catch (Exception e) {
+            log.error("订单索引刷新失败，订单：{}", orderSns, e);
+        }
+    }
+
+    @Override
+    public int reconcile(List<Order> orders) {
+        if (orderIndexStore == null || orders.isEmpty()) {
+            return 0;
+        }
+        List<EsOrderIndex> indexes = this.build(orders);
+        Map<String, EsOrderIndex> existed = orderIndexStore.get(indexes.stream().map(EsOrderIndex::getSn).collect(Collectors.toList()));
+        List<EsOrderIndex> drifted = indexes.stream()
+                .filter(index -> !index.sameContent(existed.get(index.getSn())))
+                .collect(Collectors.toList());
+        orderIndexStore.save(drifted);
+        return drifted.size();
+    }
+
+    /**
+     * 批量构建订单索引，子订单一次查询
+     */
+    private List<EsOrderIndex> build(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> orderSns = orders.stream().map(Order::getSn).collect(Collectors.toList());
+        Map<String, List<OrderItem>> orderItems = orderItemMapper.selectList(new LambdaQueryWrapper<OrderItem>()
+                        .in(OrderItem::getOrderSn, orderSns)
+                        .orderByAsc(OrderItem::getId))
+                .stream()
+                .collect(Collectors.groupingBy(OrderItem::getOrderSn));
+        return orders.stream()
+                .map(order -> new EsOrderIndex(order, orderItems.getOrDefault(order.getSn(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
+
+    private static Integer count(Map<String, Long> count, OrderStatusEnum status) {
+        return count.getOrDefault(status.name(), 0L).intValue();
+    }
+}
@@ -103,6 +103,15 @@ public class OrderItemServiceImpl extends ServiceImpl<OrderItemMapper, OrderItem
         queryWrapper.eq(CharSequenceUtil.isNotEmpty(dto.getCommentStatus()), "oi.comment_status", dto.getCommentStatus());
         queryWrapper.eq(CharSequenceUtil.isNotEmpty(dto.getAfterSaleStatus()), "oi.after_sale_status", dto.getAfterSaleStatus());
         queryWrapper.eq(CharSequenceUtil.isNotEmpty(dto.getComplainStatus()), "oi.complain_status", dto.getComplainStatus());
+        //游标分页
+        if (dto.getLimit() != null) {
+            queryWrapper.gt(CharSequenceUtil.isNotEmpty(dto.getLastId()), "oi.id", dto.getLastId());
+            if (dto.getShardTotal() != null && dto.getShardTotal() > 1) {
+                queryWrapper.apply("MOD(oi.id, {0}) = {1}", dto.getShardTotal(), dto.getShardIndex());
+            }
+            queryWrapper.orderByAsc("oi.id");
+            queryWrapper.last("LIMIT " + dto.getLimit());
+        }
         return this.baseMapper.waitOperationOrderItem(queryWrapper);
     }
 
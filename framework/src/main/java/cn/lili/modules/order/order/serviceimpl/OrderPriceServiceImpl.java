@@ -10,6 +10,7 @@ import cn.lili.modules.order.order.entity.dos.Order;
 import cn.lili.modules.order.order.entity.dos.OrderItem;
 import cn.lili.modules.order.order.entity.dto.PriceDetailDTO;
 import cn.lili.modules.order.order.entity.enums.PayStatusEnum;
+import cn.lili.modules.order.order.service.OrderIndexService;
 import cn.lili.modules.order.order.service.OrderItemService;
 import cn.lili.modules.order.order.service.OrderPriceService;
 import cn.lili.modules.order.order.service.OrderService;
@@ -20,6 +21,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -52,6 +54,11 @@ public class OrderPriceServiceImpl implements OrderPriceService {
      */
     @Autowired
     private OrderService orderService;
+    /**
+     * 订单查询索引
+     */
+    @Autowired
+    private OrderIndexService orderIndexService;
 
     @Override
     @SystemLogPoint(description = "修改订单价格", customerLog = "'订单编号:'+#orderSn +'，价格修改为：'+#orderPrice")
@@ -63,6 +70,9 @@ public class OrderPriceServiceImpl implements OrderPriceService {
 
         //修改交易金额
         tradeService.updateTradePrice(order.getTradeSn());
+
+        //修改价格不发送订单消息，直接刷新订单索引
+        orderIndexService.refreshAfterCommit(Collections.singletonList(orderSn));
         return order;
     }
 
@@ -13,8 +13,15 @@ import cn.lili.common.enums.ClientTypeEnum;
 import cn.lili.common.enums.PromotionTypeEnum;
 import cn.lili.common.enums.ResultCode;
 import cn.lili.common.event.TransactionCommitSendMQEvent;
+import cn.lili.common.excel.ExcelColumn;
+import cn.lili.common.excel.ExcelExportJob;
+import cn.lili.common.excel.ExcelExportJobManager;
+import cn.lili.common.excel.KeysetReader;
+import cn.lili.common.excel.StreamingExcelWriter;
 import cn.lili.common.exception.ServiceException;
+import cn.lili.common.properties.ExportProperties;
 import cn.lili.common.properties.RocketmqCustomProperties;
+import cn.lili.common.security.AuthUser;
 import cn.lili.common.security.OperationalJudgment;
 import cn.lili.common.security.context.UserContext;
 import cn.lili.common.security.enums.UserEnums;
@@ -35,6 +42,10 @@ import cn.lili.modules.order.trade.entity.dos.OrderLog;
 import cn.lili.modules.order.trade.service.OrderLogService;
 import cn.lili.modules.payment.entity.enums.PaymentMethodEnum;
 import cn.lili.modules.promotion.entity.dos.Pintuan;
+import cn.lili.modules.promotion.entity.enums.PintuanJoinResultEnum;
+import cn.lili.modules.promotion.pintuan.PintuanGroupCompletedEvent;
+import cn.lili.modules.promotion.pintuan.PintuanGroupEngine;
+import cn.lili.modules.promotion.pintuan.PintuanOrderJoinEvent;
 import cn.lili.modules.promotion.service.PintuanService;
 import cn.lili.modules.store.entity.dto.StoreDeliverGoodsAddressDTO;
 import cn.lili.modules.store.service.StoreDetailService;
@@ -50,12 +61,6 @@ import cn.lili.mybatis.util.PageUtil;
 import cn.lili.rocketmq.RocketmqSendCallbackBuilder;
 import cn.lili.rocketmq.tags.GoodsTagsEnum;
 import cn.lili.rocketmq.tags.OrderTagsEnum;
-import cn.lili.trigger.enums.DelayTypeEnums;
-import cn.lili.trigger.interfaces.TimeTrigger;
-import cn.lili.trigger.message.PintuanOrderMessage;
-import cn.lili.trigger.model.TimeExecuteConstant;
-import cn.lili.trigger.model.TimeTriggerMsg;
-import cn.lili.trigger.util.DelayQueueTools;
 import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
@@ -64,16 +69,16 @@ import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellRangeAddressList;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.ServletOutputStream;
@@ -81,6 +86,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.InputStream;
 import java.net.URLEncoder;
 import java.util.*;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -96,10 +102,41 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     private static final String ORDER_SN_COLUMN = "order_sn";
 
     /**
-     * 延时任务
+     * 订单导出列
      */
-    @Autowired
-    private TimeTrigger timeTrigger;
+    private static final List<ExcelColumn<OrderExportDetailDTO>> ORDER_EXPORT_COLUMNS = Arrays.asList(
+            ExcelColumn.of("主订单编号", OrderExportDetailDTO::getOrderSn),
+            ExcelColumn.of("子订单编号", OrderExportDetailDTO::getOrderItemSn),
+            ExcelColumn.of("选购商品", OrderExportDetailDTO::getGoodsName),
+            ExcelColumn.of("商品数量", OrderExportDetailDTO::getNum),
+            ExcelColumn.of("商品ID", OrderExportDetailDTO::getGoodsId),
+            ExcelColumn.of("商品单价", dto -> price(dto.getUnitPrice())),
+            ExcelColumn.of("订单应付金额", dto -> price(dto.getFlowPrice())),
+            ExcelColumn.of("运费", dto -> price(dto.getFreightPrice())),
+            ExcelColumn.of("优惠总金额", dto -> price(dto.getDiscountPrice())),
+            ExcelColumn.of("平台优惠", dto -> price(dto.getSiteMarketingCost())),
+            ExcelColumn.of("商家优惠", dto -> price(dto.getStoreMarketingCost())),
+            ExcelColumn.of("商家改价", dto -> price(dto.getUpdatePrice())),
+            ExcelColumn.of("支付方式", OrderExportDetailDTO::getPaymentMethod),
+            ExcelColumn.of("收件人", OrderExportDetailDTO::getConsigneeName),
+            ExcelColumn.of("收件人手机号", OrderExportDetailDTO::getConsigneeMobile),
+            ExcelColumn.of("省", OrderExportDetailDTO::getProvince),
+            ExcelColumn.of("市", OrderExportDetailDTO::getCity),
+            ExcelColumn.of("区", OrderExportDetailDTO::getDistrict),
+            ExcelColumn.of("街道", OrderExportDetailDTO::getStreet),
+            ExcelColumn.of("详细地址", OrderExportDetailDTO::getConsigneeDetail),
+            ExcelColumn.of("买家留言", OrderExportDetailDTO::getRemark),
+            ExcelColumn.of("订单提交时间", OrderExportDetailDTO::getCreateTime),
+            ExcelColumn.of("支付完成时间", OrderExportDetailDTO::getPaymentTime),
+            ExcelColumn.of("来源", OrderExportDetailDTO::getClientType),
+            ExcelColumn.of("订单状态", OrderExportDetailDTO::getOrderStatus),
+            ExcelColumn.of("订单类型", OrderExportDetailDTO::getOrderType),
+            ExcelColumn.of("售后状态", OrderExportDetailDTO::getAfterSaleStatus),
+            ExcelColumn.of("取消原因", OrderExportDetailDTO::getCancelReason),
+            ExcelColumn.of("发货时间", OrderExportDetailDTO::getLogisticsTime),
+            ExcelColumn.of("完成时间", OrderExportDetailDTO::getCompleteTime),
+            ExcelColumn.of("店铺", OrderExportDetailDTO::getStoreName));
+
     /**
      * 发票
      */
@@ -140,6 +177,11 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
      */
     @Autowired
     private PintuanService pintuanService;
+    /**
+     * 拼团成团引擎
+     */
+    @Autowired
+    private PintuanGroupEngine pintuanGroupEngine;
 
     @Autowired
     private TradeService tradeService;
@@ -165,6 +207,18 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     @Autowired
     private SettingService settingService;
 
+    /**
+     * 订单查询索引
+     */
+    @Autowired
+    private OrderIndexService orderIndexService;
+
+    @Autowired
+    private ExcelExportJobManager excelExportJobManager;
+
+    @Autowired
+    private ExportProperties exportProperties;
+
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -215,6 +269,13 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
 
     @Override
     public IPage<OrderSimpleVO> queryByParams(OrderSearchParams orderSearchParams) {
+        if (orderIndexService.isAvailable(orderSearchParams)) {
+            try {
+                return orderIndexService.queryByParams(orderSearchParams);
+            } catch (Exception e) {
+                log.error("订单索引查询异常，改为查询数据库", e);
+            }
+        }
         QueryWrapper queryWrapper = orderSearchParams.queryWrapper();
         queryWrapper.groupBy("o.id");
         queryWrapper.orderByDesc("o.id");
@@ -223,6 +284,13 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
 
     @Override
     public OrderNumVO getOrderNumVO(OrderSearchParams orderSearchParams) {
+        if (orderIndexService.isAvailable(orderSearchParams)) {
+            try {
+                return orderIndexService.getOrderNumVO(orderSearchParams);
+            } catch (Exception e) {
+                log.error("订单索引统计异常，改为查询数据库", e);
+            }
+        }
         return this.baseMapper.getOrderNumVO(orderSearchParams.queryWrapper());
     }
 
@@ -294,25 +362,48 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
 
     @Override
     public void queryExportOrder(HttpServletResponse response, OrderSearchParams orderSearchParams) {
+        AuthUser currentUser = UserContext.getCurrentUser();
+        try (StreamingExcelWriter writer = new StreamingExcelWriter()) {
+            this.exportOrder(writer, orderSearchParams, currentUser, rows -> {
+            });
+            writer.write(response, "订单列表");
+        } catch (Exception e) {
+            log.error("导出订单异常", e);
+        }
+    }
 
-        XSSFWorkbook workbook = initOrderExportData(this.baseMapper.queryExportOrder(orderSearchParams.queryWrapper()));
-        try {
-            // 设置响应头
-            String fileName = URLEncoder.encode("订单列表", "UTF-8");
-            response.setContentType("application/vnd.ms-excel;charset=UTF-8");
-            response.setHeader("Content-Disposition", "attachment;filename=" + fileName + ".xlsx");
+    @Override
+    public ExcelExportJob submitExportOrder(OrderSearchParams orderSearchParams) {
+        AuthUser currentUser = Objects.requireNonNull(UserContext.getCurrentUser());
+        return excelExportJobManager.submit("订单列表", currentUser.getId(),
+                (writer, progress) -> this.exportOrder(writer, orderSearchParams, currentUser, progress));
+    }
 
-            ServletOutputStream out = response.getOutputStream();
-            workbook.write(out);
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            try {
-                workbook.close();
-            } catch (Exception e) {
-                e.printStackTrace();
+    /**
+     * 按批次写入导出订单，每批按 主订单ID、子订单ID 游标查询，内存中只保留一批数据
+     *
+     * @param writer            写入
+     * @param orderSearchParams 查询条件
+     * @param currentUser       导出人，异步导出时请求上下文已结束，需提前获取
+     * @param progress          进度回调
+     */
+    private void exportOrder(StreamingExcelWriter writer, OrderSearchParams orderSearchParams, AuthUser currentUser, LongConsumer progress) {
+        StreamingExcelWriter.SheetWriter<OrderExportDetailDTO> sheetWriter = writer.createSheet("订单列表", ORDER_EXPORT_COLUMNS);
+        KeysetReader.read(exportProperties.getChunkSize(), (OrderExportDTO last, Integer size) -> {
+            QueryWrapper<OrderSimpleVO> queryWrapper = orderSearchParams.queryWrapper(currentUser);
+            if (last != null) {
+                queryWrapper.and(i -> i.gt("o.id", last.getOrderId())
+                        .or(j -> j.eq("o.id", last.getOrderId()).gt("oi.id", last.getItemId())));
             }
-        }
+            queryWrapper.orderByAsc("o.id", "oi.id");
+            queryWrapper.last("LIMIT " + size);
+            return this.baseMapper.queryExportOrder(queryWrapper);
+        }, chunk -> {
+            for (OrderExportDTO orderExportDTO : chunk) {
+                sheetWriter.write(this.initOrderExportDetail(orderExportDTO));
+            }
+            progress.accept(sheetWriter.getRowCount());
+        });
     }
 
     @Override
@@ -383,6 +474,49 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         }
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<String> batchSystemCancel(List<String> orderSns, String reason) {
+        if (orderSns == null || orderSns.isEmpty()) {
+            return Collections.emptyList();
+        }
+        //锁定仍为待付款的订单，并发执行时后到者只能看到已取消的订单，保证每个订单只取消一次
+        LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(Order::getSn);
+        queryWrapper.in(Order::getSn, orderSns);
+        queryWrapper.eq(Order::getOrderStatus, OrderStatusEnum.UNPAID.name());
+        queryWrapper.last("FOR UPDATE");
+        List<Order> orders = this.list(queryWrapper);
+        if (orders.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> cancelSns = orders.stream().map(Order::getSn).collect(Collectors.toList());
+
+        //批量修改订单状态
+        this.update(new LambdaUpdateWrapper<Order>()
+                .in(Order::getSn, cancelSns)
+                .eq(Order::getOrderStatus, OrderStatusEnum.UNPAID.name())
+                .set(Order::getOrderStatus, OrderStatusEnum.CANCELLED.name())
+                .set(Order::getCancelReason, reason));
+        //订单货物设置全部退款
+        orderItemService.update(new LambdaUpdateWrapper<OrderItem>().in(OrderItem::getOrderSn, cancelSns).set(OrderItem::getIsRefund, RefundStatusEnum.ALL_REFUND.name()));
+
+        List<OrderLog> orderLogs = new ArrayList<>(orders.size());
+        for (String orderSn : cancelSns) {
+            orderLogs.add(new OrderLog(orderSn, "-1", UserEnums.SYSTEM.getRole(), "系统操作",
+                    "订单[" + orderSn + "]系统取消，原因为：" + reason));
+        }
+        orderLogService.saveBatch(orderLogs);
+        //事务提交后逐个发送订单取消消息，由订单取消的各业务返还优惠券等
+        for (String orderSn : cancelSns) {
+            OrderMessage orderMessage = new OrderMessage();
+            orderMessage.setOrderSn(orderSn);
+            orderMessage.setNewStatus(OrderStatusEnum.CANCELLED);
+            this.sendUpdateStatusMessage(orderMessage);
+        }
+        return cancelSns;
+    }
+
     /**
      * 获取订单
      *
@@ -439,8 +573,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         //判断是否为拼团订单，进行特殊处理
         //判断订单类型进行不同的订单确认操作
         if (OrderPromotionTypeEnum.PINTUAN.name().equals(order.getOrderPromotionType())) {
-            String parentOrderSn = CharSequenceUtil.isEmpty(order.getParentOrderSn()) ? orderSn : order.getParentOrderSn();
-            this.checkPintuanOrder(order.getPromotionId(), parentOrderSn);
+            this.checkPintuanOrder(order);
         } else {
             //判断订单类型
             if (order.getOrderType().equals(OrderTypeEnum.NORMAL.name())) {
@@ -466,6 +599,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         OrderLog orderLog = new OrderLog(orderSn, UserContext.getCurrentUser().getId(), UserContext.getCurrentUser().getRole().getRole(),
                 UserContext.getCurrentUser().getUsername(), message);
         orderLogService.save(orderLog);
+        orderIndexService.refreshAfterCommit(Collections.singletonList(orderSn));
 
         return order;
     }
@@ -637,6 +771,73 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         }
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<String> batchSystemComplete(List<String> orderSns) {
+        if (orderSns == null || orderSns.isEmpty()) {
+            return Collections.emptyList();
+        }
+        //锁定仍为已发货的订单，保证每个订单只完成一次
+        LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(Order::getSn, Order::getMemberId);
+        queryWrapper.in(Order::getSn, orderSns);
+        queryWrapper.eq(Order::getOrderStatus, OrderStatusEnum.DELIVERED.name());
+        queryWrapper.last("FOR UPDATE");
+        List<Order> orders = this.list(queryWrapper);
+        if (orders.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> completeSns = orders.stream().map(Order::getSn).collect(Collectors.toList());
+
+        //修改订单状态为完成
+        this.update(new LambdaUpdateWrapper<Order>()
+                .in(Order::getSn, completeSns)
+                .set(Order::getOrderStatus, OrderStatusEnum.COMPLETED.name())
+                .set(Order::getCompleteTime, new Date()));
+        //修改订单货物可以进行评价
+        LambdaUpdateWrapper<OrderItem> itemUpdateWrapper = new LambdaUpdateWrapper<OrderItem>()
+                .in(OrderItem::getOrderSn, completeSns)
+                .set(OrderItem::getCommentStatus, CommentStatusEnum.UNFINISHED.name());
+        //设置投诉天数为0时，即刻关闭订单的投诉状态
+        Setting setting = settingService.get(SettingEnum.ORDER_SETTING.name());
+        OrderSetting orderSetting = JSONUtil.toBean(setting.getSettingValue(), OrderSetting.class);
+        if (orderSetting != null && orderSetting.getCloseComplaint() != null && orderSetting.getCloseComplaint() <= 0) {
+            itemUpdateWrapper.set(OrderItem::getComplainStatus, OrderComplaintStatusEnum.EXPIRED.name());
+        }
+        orderItemService.update(itemUpdateWrapper);
+
+        Map<String, String> memberIdMap = orders.stream().collect(Collectors.toMap(Order::getSn, Order::getMemberId, (a, b) -> a));
+        List<OrderLog> orderLogs = new ArrayList<>(orders.size());
+        for (String orderSn : completeSns) {
+            //发送订单状态改变消息
+            OrderMessage orderMessage = new OrderMessage();
+            orderMessage.setNewStatus(OrderStatusEnum.COMPLETED);
+            orderMessage.setOrderSn(orderSn);
+            this.sendUpdateStatusMessage(orderMessage);
+            orderLogs.add(new OrderLog(orderSn, "-1", UserEnums.SYSTEM.getRole(), "系统操作", "订单[" + orderSn + "]完成"));
+        }
+        orderLogService.saveBatch(orderLogs);
+
+        //发送当前商品购买完成的信息（用于更新商品数据），整批合并为一条消息
+        List<OrderItem> orderItems = orderItemService.list(new LambdaQueryWrapper<OrderItem>()
+                .select(OrderItem::getOrderSn, OrderItem::getGoodsId, OrderItem::getSkuId, OrderItem::getNum)
+                .in(OrderItem::getOrderSn, completeSns));
+        List<GoodsCompleteMessage> goodsCompleteMessageList = new ArrayList<>(orderItems.size());
+        for (OrderItem orderItem : orderItems) {
+            GoodsCompleteMessage goodsCompleteMessage = new GoodsCompleteMessage();
+            goodsCompleteMessage.setGoodsId(orderItem.getGoodsId());
+            goodsCompleteMessage.setSkuId(orderItem.getSkuId());
+            goodsCompleteMessage.setBuyNum(orderItem.getNum());
+            goodsCompleteMessage.setMemberId(memberIdMap.get(orderItem.getOrderSn()));
+            goodsCompleteMessageList.add(goodsCompleteMessage);
+        }
+        if (!goodsCompleteMessageList.isEmpty()) {
+            applicationEventPublisher.publishEvent(new TransactionCommitSendMQEvent("发送商品购买完成消息", rocketmqCustomProperties.getGoodsTopic(),
+                    GoodsTagsEnum.BUY_GOODS_COMPLETE.name(), JSONUtil.toJsonStr(goodsCompleteMessageList)));
+        }
+        return completeSns;
+    }
+
     @Override
     public List<Order> getByTradeSn(String tradeSn) {
         LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
@@ -664,6 +865,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         LambdaUpdateWrapper<OrderItem> orderItemLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
         orderItemLambdaUpdateWrapper.eq(OrderItem::getOrderSn, sn).set(OrderItem::getDeleteFlag, true);
         this.orderItemService.update(orderItemLambdaUpdateWrapper);
+        orderIndexService.refreshAfterCommit(Collections.singletonList(sn));
     }
 
     @Override
@@ -689,10 +891,21 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     public void agglomeratePintuanOrder(String pintuanId, String parentOrderSn) {
         //获取拼团配置
         Pintuan pintuan = pintuanService.getById(pintuanId);
+        //已成团的团队不再处理，团队结束后拒绝新的参团
+        if (!pintuanGroupEngine.close(pintuan, parentOrderSn)) {
+            return;
+        }
         List<Order> list = this.getPintuanOrder(pintuanId, parentOrderSn);
+        //团队结束早于订单处理提交，订单处理回滚后消息重新投递时团队已结束，按订单是否仍为已付款判断是否已处理
+        List<Order> paidOrders = list.stream()
+                .filter(order -> OrderStatusEnum.PAID.name().equals(order.getOrderStatus()))
+                .collect(Collectors.toList());
+        if (paidOrders.isEmpty()) {
+            return;
+        }
         if (Boolean.TRUE.equals(pintuan.getFictitious()) && pintuan.getRequiredNum() > list.size()) {
             //如果开启虚拟成团且当前订单数量不足成团数量，则认为拼团成功
-            this.pintuanOrderSuccess(list);
+            this.pintuanOrderSuccess(paidOrders);
         } else if (Boolean.FALSE.equals(pintuan.getFictitious()) && pintuan.getRequiredNum() > list.size()) {
             //如果未开启虚拟成团且当前订单数量不足成团数量，则认为拼团失败
             this.pintuanOrderFailed(parentOrderSn);
@@ -919,6 +1132,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             order.setOrderStatus(OrderStatusEnum.PARTS_DELIVERED.name());
             this.updateById(order);
         }
+        orderIndexService.refreshAfterCommit(Collections.singletonList(orderSn));
         return order;
     }
 
@@ -927,6 +1141,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         Order order = this.getBySn(orderSn);
         order.setSellerRemark(sellerRemark);
         this.updateById(order);
+        orderIndexService.refreshAfterCommit(Collections.singletonList(orderSn));
         return order;
     }
 
@@ -1025,39 +1240,59 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     /**
      * 检测拼团订单内容
      * 此方法用与订单确认
-     * 判断拼团是否达到人数进行下一步处理
+     * 团队成员存储不随数据库事务回滚，订单确认事务提交后再参团
      *
-     * @param pintuanId     拼团活动ID
-     * @param parentOrderSn 拼团父订单编号
+     * @param order 拼团订单
      */
-    @Transactional(rollbackFor = Exception.class)
-    public void checkPintuanOrder(String pintuanId, String parentOrderSn) {
+    public void checkPintuanOrder(Order order) {
+        applicationEventPublisher.publishEvent(new PintuanOrderJoinEvent("拼团订单参团", order.getSn()));
+    }
+
+    /**
+     * 订单确认事务提交后参团
+     * 参团并判断拼团是否达到人数进行下一步处理，团队已满或已结束的订单取消并退款
+     *
+     * @param event 拼团订单参团事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void onPintuanOrderJoin(PintuanOrderJoinEvent event) {
+        Order order = this.getBySn(event.getOrderSn());
+        if (order == null || !OrderStatusEnum.PAID.name().equals(order.getOrderStatus())) {
+            return;
+        }
         //获取拼团配置
-        Pintuan pintuan = pintuanService.getById(pintuanId);
-        List<Order> list = this.getPintuanOrder(pintuanId, parentOrderSn);
-        int count = list.size();
-        if (count == 1) {
-            //如果为开团订单，则发布一个24小时的延时任务，时间到达后，如果未成团则自动结束（未开启虚拟成团的情况下）
-            PintuanOrderMessage pintuanOrderMessage = new PintuanOrderMessage();
-            //开团结束时间
-            long startTime = DateUtil.offsetHour(new Date(), 24).getTime();
-            if (DateUtil.compare(DateUtil.offsetHour(pintuan.getStartTime(), 24), pintuan.getEndTime()) > 0) {
-                startTime = pintuan.getEndTime().getTime();
+        Pintuan pintuan = pintuanService.getById(order.getPromotionId());
+        String parentOrderSn = PintuanGroupEngine.groupSn(order);
+        if (!parentOrderSn.equals(order.getSn()) && !pintuanGroupEngine.exists(parentOrderSn)) {
+            //团队成员存储中没有该团队（升级前开团或已过期），按已支付订单恢复团队成员
+            for (Order groupOrder : this.getPintuanOrder(order.getPromotionId(), parentOrderSn)) {
+                pintuanGroupEngine.join(pintuan, groupOrder);
             }
-            pintuanOrderMessage.setOrderSn(parentOrderSn);
-            pintuanOrderMessage.setPintuanId(pintuanId);
-            TimeTriggerMsg timeTriggerMsg = new TimeTriggerMsg(TimeExecuteConstant.PROMOTION_EXECUTOR,
-                    startTime,
-                    pintuanOrderMessage,
-                    DelayQueueTools.wrapperUniqueKey(DelayTypeEnums.PINTUAN_ORDER, (pintuanId + parentOrderSn)),
-                    rocketmqCustomProperties.getPromotionTopic());
-
-            this.timeTrigger.addDelay(timeTriggerMsg);
         }
-        //拼团所需人数，小于等于 参团后的人数，则说明成团，所有订单成团
-        if (pintuan.getRequiredNum() <= count) {
-            this.pintuanOrderSuccess(list);
+        PintuanJoinResultEnum result = pintuanGroupEngine.join(pintuan, order);
+        if (PintuanJoinResultEnum.FULL.equals(result) || PintuanJoinResultEnum.CLOSED.equals(result)) {
+            log.info("拼团订单[{}]参团失败：{}", order.getSn(), result.description());
+            this.systemCancel(order.getSn(), "拼团" + result.description() + "，参团失败！", true);
+        }
+    }
+
+    /**
+     * 成团后确认团队中仍为已付款状态的订单
+     * 同一团队的成团事件只处理一次已付款订单，重复处理不会再次确认
+     *
+     * @param event 成团事件
+     */
+    @EventListener
+    @Transactional(rollbackFor = Exception.class)
+    public void onPintuanGroupCompleted(PintuanGroupCompletedEvent event) {
+        if (event.getOrderSns().isEmpty()) {
+            return;
         }
+        List<Order> orders = this.list(new LambdaQueryWrapper<Order>()
+                .in(Order::getSn, event.getOrderSns())
+                .eq(Order::getOrderStatus, OrderStatusEnum.PAID.name()));
+        this.pintuanOrderSuccess(orders);
     }
 
     /**
@@ -1228,128 +1463,47 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     /**
      * 初始化填充订单导出数据
      *
-     * @param orderExportDTOList 导出的订单数据
-     * @return 订单导出列表
+     * @param orderExportDTO 导出的订单数据
+     * @return 订单导出明细
      */
-    private XSSFWorkbook initOrderExportData(List<OrderExportDTO> orderExportDTOList) {
-        List<OrderExportDetailDTO> orderExportDetailDTOList = new ArrayList<>();
-        for (OrderExportDTO orderExportDTO : orderExportDTOList) {
-            OrderExportDetailDTO orderExportDetailDTO = new OrderExportDetailDTO();
-            BeanUtil.copyProperties(orderExportDTO, orderExportDetailDTO);
-            //金额
-            PriceDetailDTO priceDetailDTO = JSONUtil.toBean(orderExportDTO.getPriceDetail(), PriceDetailDTO.class);
-            orderExportDetailDTO.setFreightPrice(priceDetailDTO.getFreightPrice());
-            orderExportDetailDTO.setDiscountPrice(CurrencyUtil.add(priceDetailDTO.getDiscountPrice(), priceDetailDTO.getCouponPrice()));
-            orderExportDetailDTO.setUpdatePrice(priceDetailDTO.getUpdatePrice());
-            orderExportDetailDTO.setStoreMarketingCost(priceDetailDTO.getSiteCouponCommission());
-            orderExportDetailDTO.setSiteMarketingCost(CurrencyUtil.sub(orderExportDetailDTO.getDiscountPrice(), orderExportDetailDTO.getStoreMarketingCost()));
-            //地址
-            if (StrUtil.isNotBlank(orderExportDTO.getConsigneeAddressPath())) {
-                String[] receiveAddress = orderExportDTO.getConsigneeAddressPath().split(",");
-                orderExportDetailDTO.setProvince(receiveAddress[0]);
-                orderExportDetailDTO.setCity(receiveAddress.length > 1 ?receiveAddress[1]:"");
-                orderExportDetailDTO.setDistrict(receiveAddress.length > 2 ? receiveAddress[2] : "");
-                orderExportDetailDTO.setStreet(receiveAddress.length > 3 ? receiveAddress[3] : "");
-            }
-
-            //状态
-            orderExportDetailDTO.setOrderStatus(OrderStatusEnum.valueOf(orderExportDTO.getOrderStatus()).description());
-            orderExportDetailDTO.setPaymentMethod(CharSequenceUtil.isNotBlank(orderExportDTO.getPaymentMethod()) ? PaymentMethodEnum.valueOf(orderExportDTO.getPaymentMethod()).paymentName() : "");
-            orderExportDetailDTO.setClientType(ClientTypeEnum.valueOf(orderExportDTO.getClientType()).value());
-            orderExportDetailDTO.setOrderType(orderExportDTO.getOrderType().equals(OrderTypeEnum.NORMAL.name()) ? "普通订单" : "虚拟订单");
-            orderExportDetailDTO.setAfterSaleStatus(OrderItemAfterSaleStatusEnum.valueOf(orderExportDTO.getAfterSaleStatus()).description());
-
-            //时间
-            orderExportDetailDTO.setCreateTime(DateUtil.formatDateTime(orderExportDTO.getCreateTime()));
-            orderExportDetailDTO.setPaymentTime(DateUtil.formatDateTime(orderExportDTO.getPaymentTime()));
-            orderExportDetailDTO.setLogisticsTime(DateUtil.formatDateTime(orderExportDTO.getLogisticsTime()));
-            orderExportDetailDTO.setCompleteTime(DateUtil.formatDateTime(orderExportDTO.getCompleteTime()));
-            orderExportDetailDTOList.add(orderExportDetailDTO);
+    private OrderExportDetailDTO initOrderExportDetail(OrderExportDTO orderExportDTO) {
+        OrderExportDetailDTO orderExportDetailDTO = new OrderExportDetailDTO();
+        BeanUtil.copyProperties(orderExportDTO, orderExportDetailDTO);
+        //金额
+        PriceDetailDTO priceDetailDTO = JSONUtil.toBean(orderExportDTO.getPriceDetail(), PriceDetailDTO.class);
+        orderExportDetailDTO.setFreightPrice(priceDetailDTO.getFreightPrice());
+        orderExportDetailDTO.setDiscountPrice(CurrencyUtil.add(priceDetailDTO.getDiscountPrice(), priceDetailDTO.getCouponPrice()));
+        orderExportDetailDTO.setUpdatePrice(priceDetailDTO.getUpdatePrice());
+        orderExportDetailDTO.setStoreMarketingCost(priceDetailDTO.getSiteCouponCommission());
+        orderExportDetailDTO.setSiteMarketingCost(CurrencyUtil.sub(orderExportDetailDTO.getDiscountPrice(), orderExportDetailDTO.getStoreMarketingCost()));
+        //地址
+        if (StrUtil.isNotBlank(orderExportDTO.getConsigneeAddressPath())) {
+            String[] receiveAddress = orderExportDTO.getConsigneeAddressPath().split(",");
+            orderExportDetailDTO.setProvince(receiveAddress[0]);
+            orderExportDetailDTO.setCity(receiveAddress.length > 1 ?receiveAddress[1]:"");
+            orderExportDetailDTO.setDistrict(receiveAddress.length > 2 ? receiveAddress[2] : "");
+            orderExportDetailDTO.setStreet(receiveAddress.length > 3 ? receiveAddress[3] : "");
         }
 
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("订单列表");
-
-        // 创建表头
-        Row header = sheet.createRow(0);
-        String[] headers = {"主订单编号", "子订单编号", "选购商品", "商品数量", "商品ID", "商品单价", "订单应付金额",
-                "运费", "优惠总金额", "平台优惠", "商家优惠", "商家改价", "支付方式", "收件人", "收件人手机号",
-                "省", "市", "区", "街道", "详细地址", "买家留言", "订单提交时间", "支付完成时间", "来源",
-                "订单状态", "订单类型", "售后状态", "取消原因", "发货时间", "完成时间", "店铺"};
-
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = header.createCell(i);
-            cell.setCellValue(headers[i]);
-        }
-        // 填充数据
-        for (int i = 0; i < orderExportDetailDTOList.size(); i++) {
-            OrderExportDetailDTO dto = orderExportDetailDTOList.get(i);
-            Row row = sheet.createRow(i + 1);
-            row.createCell(0).setCellValue(dto.getOrderSn());
-            row.createCell(1).setCellValue(dto.getOrderItemSn());
-            row.createCell(2).setCellValue(dto.getGoodsName());
-            row.createCell(3).setCellValue(dto.getNum());
-            row.createCell(4).setCellValue(dto.getGoodsId());
-            row.createCell(5).setCellValue(Objects.nonNull(dto.getUnitPrice())?dto.getUnitPrice():0);
-            row.createCell(6).setCellValue(Objects.nonNull(dto.getFlowPrice())?dto.getFlowPrice():0);
-            row.createCell(7).setCellValue(Objects.nonNull(dto.getFreightPrice())?dto.getFreightPrice():0);
-            row.createCell(8).setCellValue(Objects.nonNull(dto.getDiscountPrice())?dto.getDiscountPrice():0);
-            row.createCell(9).setCellValue(Objects.nonNull(dto.getSiteMarketingCost())?dto.getSiteMarketingCost():0);
-            row.createCell(10).setCellValue(Objects.nonNull(dto.getStoreMarketingCost())?dto.getStoreMarketingCost():0);
-            row.createCell(11).setCellValue(Objects.nonNull(dto.getUpdatePrice())?dto.getUpdatePrice():0);
-            row.createCell(12).setCellValue(dto.getPaymentMethod());
-            row.createCell(13).setCellValue(dto.getConsigneeName());
-            row.createCell(14).setCellValue(dto.getConsigneeMobile());
-            row.createCell(15).setCellValue(dto.getProvince());
-            row.createCell(16).setCellValue(dto.getCity());
-            row.createCell(17).setCellValue(dto.getDistrict());
-            row.createCell(18).setCellValue(dto.getStreet());
-            row.createCell(19).setCellValue(dto.getConsigneeDetail());
-            row.createCell(20).setCellValue(dto.getRemark());
-            row.createCell(21).setCellValue(dto.getCreateTime());
-            row.createCell(22).setCellValue(dto.getPaymentTime());
-            row.createCell(23).setCellValue(dto.getClientType());
-            row.createCell(24).setCellValue(dto.getOrderStatus());
-            row.createCell(25).setCellValue(dto.getOrderType());
-            row.createCell(26).setCellValue(dto.getAfterSaleStatus());
-            row.createCell(27).setCellValue(dto.getCancelReason());
-            row.createCell(28).setCellValue(dto.getLogisticsTime());
-            row.createCell(29).setCellValue(dto.getCompleteTime());
-            row.createCell(30).setCellValue(dto.getStoreName());
-        }
+        //状态
+        orderExportDetailDTO.setOrderStatus(OrderStatusEnum.valueOf(orderExportDTO.getOrderStatus()).description());
+        orderExportDetailDTO.setPaymentMethod(CharSequenceUtil.isNotBlank(orderExportDTO.getPaymentMethod()) ? PaymentMethodEnum.valueOf(orderExportDTO.getPaymentMethod()).paymentName() : "");
+        orderExportDetailDTO.setClientType(ClientTypeEnum.valueOf(orderExportDTO.getClientType()).value());
+        orderExportDetailDTO.setOrderType(orderExportDTO.getOrderType().equals(OrderTypeEnum.NORMAL.name()) ? "普通订单" : "虚拟订单");
+        orderExportDetailDTO.setAfterSaleStatus(OrderItemAfterSaleStatusEnum.valueOf(orderExportDTO.getAfterSaleStatus()).description());
+
+        //时间
+        orderExportDetailDTO.setCreateTime(DateUtil.formatDateTime(orderExportDTO.getCreateTime()));
+        orderExportDetailDTO.setPaymentTime(DateUtil.formatDateTime(orderExportDTO.getPaymentTime()));
+        orderExportDetailDTO.setLogisticsTime(DateUtil.formatDateTime(orderExportDTO.getLogisticsTime()));
+        orderExportDetailDTO.setCompleteTime(DateUtil.formatDateTime(orderExportDTO.getCompleteTime()));
+        return orderExportDetailDTO;
+    }
 
-        //修改列宽
-//        sheet.setColumnWidth(0, 30 * 256);
-//        sheet.setColumnWidth(1, 30 * 256);
-//        sheet.setColumnWidth(2, 30 * 256);
-//        sheet.setColumnWidth(3, 8 * 256);
-//        sheet.setColumnWidth(4, 20 * 256);
-//        sheet.setColumnWidth(5, 10 * 256);
-//        sheet.setColumnWidth(6, 10 * 256);
-//        sheet.setColumnWidth(7, 10 * 256);
-//        sheet.setColumnWidth(8, 10 * 256);
-//        sheet.setColumnWidth(9, 10 * 256);
-//        sheet.setColumnWidth(10, 10 * 256);
-//        sheet.setColumnWidth(11, 10 * 256);
-//        sheet.setColumnWidth(12, 10 * 256);
-//        sheet.setColumnWidth(13, 10 * 256);
-//        sheet.setColumnWidth(14, 16 * 256);
-//        sheet.setColumnWidth(15, 10 * 256);
-//        sheet.setColumnWidth(16, 10 * 256);
-//        sheet.setColumnWidth(17, 10 * 256);
-//        sheet.setColumnWidth(18, 10 * 256);
-//        sheet.setColumnWidth(19, 30 * 256);
-//        sheet.setColumnWidth(20, 20 * 256);
-//        sheet.setColumnWidth(21, 20 * 256);
-//        sheet.setColumnWidth(22, 20 * 256);
-//        sheet.setColumnWidth(23, 10 * 256);
-//        sheet.setColumnWidth(24, 10 * 256);
-//        sheet.setColumnWidth(25, 10 * 256);
-//        sheet.setColumnWidth(26, 10 * 256);
-//        sheet.setColumnWidth(27, 20 * 256);
-//        sheet.setColumnWidth(28, 20 * 256);
-//        sheet.setColumnWidth(29, 20 * 256);
-//        sheet.setColumnWidth(30, 20 * 256);
-        return workbook;
+    /**
+     * 金额为空时导出0
+     */
+    private static Double price(Double price) {
+        return Objects.nonNull(price) ? price : 0D;
     }
 }
\ No newline at end of file
@@ -29,17 +29,21 @@ import cn.lili.modules.store.service.BillService;
 import cn.lili.modules.system.entity.dto.payment.WechatPaymentSetting;
 import cn.lili.mybatis.util.PageUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * 商家订单流水业务层实现
@@ -51,6 +55,11 @@ import java.util.List;
 @Service
 public class StoreFlowServiceImpl extends ServiceImpl<StoreFlowMapper, StoreFlow> implements StoreFlowService {
 
+    /**
+     * 分账每批处理数量
+     */
+    private static final int PROFIT_SHARING_BATCH_SIZE = 500;
+
     /**
      * 订单
      */
@@ -73,6 +82,13 @@ public class StoreFlowServiceImpl extends ServiceImpl<StoreFlowMapper, StoreFlow
     @Autowired
     private DistributionOrderService distributionOrderService;
 
+    /**
+     * 自身代理，用于分批事务
+     */
+    @Autowired
+    @Lazy
+    private StoreFlowService storeFlowService;
+
     /**
      * 店铺订单支付流水
      *
@@ -86,13 +102,14 @@ public class StoreFlowServiceImpl extends ServiceImpl<StoreFlowMapper, StoreFlow
         Order order = orderService.getBySn(orderSn);
 
         //循环子订单记录流水
+        List<StoreFlow> storeFlows = new ArrayList<>(orderItems.size());
         for (OrderItem item : orderItems) {
             StoreFlow storeFlow = new StoreFlow(order, item, FlowTypeEnum.PAY);
             saveProfitSharing(storeFlow);
-
-            //添加付款交易流水
-            this.save(storeFlow);
+            storeFlows.add(storeFlow);
         }
+        //批量添加付款交易流水
+        this.saveBatch(storeFlows);
     }
 
     @Override
@@ -260,6 +277,16 @@ public class StoreFlowServiceImpl extends ServiceImpl<StoreFlowMapper, StoreFlow
         return baseMapper.getStoreFlowRefundDownloadVO(generatorQueryWrapper(storeFlowQueryDTO));
     }
 
+    @Override
+    public List<StoreFlowPayDownloadVO> getStoreFlowPayDownloadVO(StoreFlowQueryDTO storeFlowQueryDTO, String lastId, Integer size) {
+        return baseMapper.getStoreFlowPayDownloadVO(generatorCursorQueryWrapper(storeFlowQueryDTO, lastId, size));
+    }
+
+    @Override
+    public List<StoreFlowRefundDownloadVO> getStoreFlowRefundDownloadVO(StoreFlowQueryDTO storeFlowQueryDTO, String lastId, Integer size) {
+        return baseMapper.getStoreFlowRefundDownloadVO(generatorCursorQueryWrapper(storeFlowQueryDTO, lastId, size));
+    }
+
 
     @Override
     public IPage<StoreFlow> getStoreFlow(String id, String type, PageVO pageVO) {
@@ -280,13 +307,46 @@ public class StoreFlowServiceImpl extends ServiceImpl<StoreFlowMapper, StoreFlow
 
     @Override
     public void updateProfitSharingStatus() {
-        //获取已完成的列表，进行相关的处理
-        List<StoreFlow> storeFlowList = this.baseMapper.completeList();
+        String lastId = null;
+        while (true) {
+            //获取已完成的列表，进行相关的处理
+            List<StoreFlow> storeFlowList = this.waitProfitSharingList(lastId, PROFIT_SHARING_BATCH_SIZE, null, null);
+            if (storeFlowList.isEmpty()) {
+                return;
+            }
+            lastId = storeFlowList.get(storeFlowList.size() - 1).getId();
+            //通过代理调用，保证每批独立事务
+            storeFlowService.completeProfitSharing(storeFlowList);
+            if (storeFlowList.size() < PROFIT_SHARING_BATCH_SIZE) {
+                return;
+            }
+        }
+    }
 
-        for (StoreFlow storeFlow : storeFlowList) {
-            distributionOrderService.completeOrder(storeFlow);
+    @Override
+    public List<StoreFlow> waitProfitSharingList(String lastId, Integer limit, Integer shardIndex, Integer shardTotal) {
+        QueryWrapper<StoreFlow> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("lof.profit_sharing_status", ProfitSharingStatusEnum.WAIT_COMPLETE.name());
+        //订单所有子订单的售后均已过期
+        queryWrapper.notExists("SELECT 1 FROM li_order_item oi WHERE oi.order_sn = lof.order_sn AND oi.after_sale_status <> 'EXPIRED'");
+        queryWrapper.gt(CharSequenceUtil.isNotEmpty(lastId), "lof.id", lastId);
+        if (shardTotal != null && shardTotal > 1) {
+            queryWrapper.apply("MOD(lof.id, {0}) = {1}", shardTotal, shardIndex);
         }
-        this.baseMapper.updateProfitSharingStatus();
+        queryWrapper.orderByAsc("lof.id");
+        queryWrapper.last("LIMIT " + limit);
+        return this.baseMapper.completeList(queryWrapper);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void completeProfitSharing(List<StoreFlow> storeFlows) {
+        if (storeFlows == null || storeFlows.isEmpty()) {
+            return;
+        }
+        distributionOrderService.completeOrders(storeFlows);
+        List<String> orderItemSns = storeFlows.stream().map(StoreFlow::getOrderItemSn).distinct().collect(Collectors.toList());
+        this.baseMapper.updateProfitSharingStatus(orderItemSns);
     }
 
     @Override
@@ -342,6 +402,17 @@ public class StoreFlowServiceImpl extends ServiceImpl<StoreFlowMapper, StoreFlow
     }
 
 
+    /**
+     * 游标分批查询条件，按流水ID升序，不使用 OFFSET
+     */
+    private LambdaQueryWrapper<StoreFlow> generatorCursorQueryWrapper(StoreFlowQueryDTO storeFlowQueryDTO, String lastId, Integer size) {
+        LambdaQueryWrapper<StoreFlow> lambdaQueryWrapper = generatorQueryWrapper(storeFlowQueryDTO);
+        lambdaQueryWrapper.gt(lastId != null, StoreFlow::getId, lastId);
+        lambdaQueryWrapper.orderByAsc(StoreFlow::getId);
+        lambdaQueryWrapper.last("LIMIT " + size);
+        return lambdaQueryWrapper;
+    }
+
     /**
      * 添加分账内容
      *
@@ -0,0 +1,34 @@
+package cn.lili.modules.page.entity.vos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 页面数据快照
+ * 已发布页面的响应体，预先序列化并压缩，前台直接输出
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageDataSnapshotVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 响应体摘要
+     */
+    private String etag;
+
+    /**
+     * 响应体
+     */
+    private byte[] body;
+
+    /**
+     * gzip 压缩后的响应体
+     */
+    private byte[] gzipBody;
+}
@@ -4,6 +4,7 @@ import cn.lili.common.vo.PageVO;
 import cn.lili.modules.page.entity.dos.PageData;
 import cn.lili.modules.page.entity.dto.PageDataDTO;
 import cn.lili.modules.page.entity.vos.PageDataListVO;
+import cn.lili.modules.page.entity.vos.PageDataSnapshotVO;
 import cn.lili.modules.page.entity.vos.PageDataVO;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
@@ -66,6 +67,15 @@ public interface PageDataService extends IService<PageData> {
      */
     PageDataVO getPageData(PageDataDTO pageDataDTO);
 
+    /**
+     * 获取页面快照
+     * 用户前台页面展示，读取缓存，页面发布、修改、删除时失效
+     *
+     * @param pageDataDTO 页面数据DTO
+     * @return 预序列化的页面响应
+     */
+    PageDataSnapshotVO getPageDataSnapshot(PageDataDTO pageDataDTO);
+
     /**
      * 页面分页
      *
@@ -1,8 +1,15 @@
 package cn.lili.modules.page.serviceimpl;
 
 import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.EnumUtil;
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.ZipUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.lili.cache.Cache;
+import cn.lili.cache.CachePrefix;
 import cn.lili.common.enums.ClientTypeEnum;
 import cn.lili.common.enums.ResultCode;
+import cn.lili.common.enums.ResultUtil;
 import cn.lili.common.enums.SwitchEnum;
 import cn.lili.common.exception.ServiceException;
 import cn.lili.common.properties.SystemSettingProperties;
@@ -14,6 +21,7 @@ import cn.lili.modules.page.entity.dos.PageData;
 import cn.lili.modules.page.entity.dto.PageDataDTO;
 import cn.lili.modules.page.entity.enums.PageEnum;
 import cn.lili.modules.page.entity.vos.PageDataListVO;
+import cn.lili.modules.page.entity.vos.PageDataSnapshotVO;
 import cn.lili.modules.page.entity.vos.PageDataVO;
 import cn.lili.modules.page.mapper.PageDataMapper;
 import cn.lili.modules.page.service.PageDataService;
@@ -24,11 +32,18 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 楼层装修管理业务层实现
@@ -36,13 +51,47 @@ import java.util.Objects;
  * @author Bulbasaur
  * @since 2020/12/11 9:15
  */
+@Slf4j
 @Service
 public class PageDataServiceImpl extends ServiceImpl<PageDataMapper, PageData> implements PageDataService {
 
+    /**
+     * 页面快照本地缓存时间，单位毫秒，其他节点的失效最多延迟该时间
+     */
+    private static final long LOCAL_SNAPSHOT_TTL = 5000L;
+
+    /**
+     * 页面快照本地缓存数量上限
+     */
+    private static final long LOCAL_SNAPSHOT_MAX_SIZE = 10000L;
+
+    /**
+     * 页面快照缓存时间，单位秒，正常情况下由页面变更主动失效
+     */
+    private static final Long SNAPSHOT_EXPIRE = 60 * 60 * 24L;
+
+    /**
+     * 不存在的页面缓存时间，单位秒
+     */
+    private static final Long EMPTY_SNAPSHOT_EXPIRE = 60L;
 
     @Autowired
     private SystemSettingProperties systemSettingProperties;
 
+    @Autowired
+    private Cache<PageDataSnapshotVO> cache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 页面快照本地缓存
+     */
+    private final com.github.benmanes.caffeine.cache.Cache<String, PageDataSnapshotVO> localSnapshots = Caffeine.newBuilder()
+            .maximumSize(LOCAL_SNAPSHOT_MAX_SIZE)
+            .expireAfterWrite(LOCAL_SNAPSHOT_TTL, TimeUnit.MILLISECONDS)
+            .build();
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void addStorePageData(String storeId) {
@@ -61,6 +110,9 @@ public class PageDataServiceImpl extends ServiceImpl<PageDataMapper, PageData> i
         mobilePageData.setPageShow(SwitchEnum.OPEN.name());
         mobilePageData.setPageType(PageEnum.STORE.value());
         this.save(mobilePageData);
+
+        this.evictPageData(pageData);
+        this.evictPageData(mobilePageData);
     }
 
     @Override
@@ -86,6 +138,7 @@ public class PageDataServiceImpl extends ServiceImpl<PageDataMapper, PageData> i
             pageData.setPageShow(SwitchEnum.CLOSE.name());
         }
         this.save(pageData);
+        this.evictPageData(pageData);
         return pageData;
     }
 
@@ -121,6 +174,7 @@ public class PageDataServiceImpl extends ServiceImpl<PageDataMapper, PageData> i
         lambdaUpdateWrapper.eq(CharSequenceUtil.equals(UserContext.getCurrentUser().getRole().name(), UserEnums.STORE.name()), PageData::getNum,
                 UserContext.getCurrentUser().getStoreId());
         this.updateById(pageData);
+        this.evictPageData(this.getById(pageData.getId()));
         return pageData;
     }
 
@@ -153,6 +207,7 @@ public class PageDataServiceImpl extends ServiceImpl<PageDataMapper, PageData> i
         wrapper.set(PageData::getPageShow, SwitchEnum.OPEN.name());
         wrapper.eq(PageData::getId, pageData.getId());
         this.update(wrapper);
+        this.evictPageData(pageData);
         return pageData;
     }
 
@@ -164,6 +219,7 @@ public class PageDataServiceImpl extends ServiceImpl<PageDataMapper, PageData> i
             throw new ServiceException(ResultCode.PAGE_NOT_EXIST);
         }
 
+        this.evictPageData(pageData);
         //专题则直接进行删除
         if (pageData.getPageType().equals(PageEnum.SPECIAL.name())) {
             return this.removeById(id);
@@ -204,6 +260,95 @@ public class PageDataServiceImpl extends ServiceImpl<PageDataMapper, PageData> i
         return this.baseMapper.getPageData(queryWrapper);
     }
 
+    @Override
+    public PageDataSnapshotVO getPageDataSnapshot(PageDataDTO pageDataDTO) {
+        //缓存键来自请求参数，不合法的参数不查询也不缓存
+        if (!EnumUtil.contains(PageEnum.class, pageDataDTO.getPageType())
+                || !EnumUtil.contains(ClientTypeEnum.class, pageDataDTO.getPageClientType())
+                || (pageDataDTO.getNum() != null && !NumberUtil.isLong(pageDataDTO.getNum()))) {
+            throw new ServiceException(ResultCode.PAGE_NOT_EXIST);
+        }
+        String key = snapshotKey(pageDataDTO.getPageType(), pageDataDTO.getPageClientType(), pageDataDTO.getNum());
+        PageDataSnapshotVO snapshot = localSnapshots.getIfPresent(key);
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        snapshot = cache.get(key);
+        if (snapshot != null) {
+            localSnapshots.put(key, snapshot);
+            return snapshot;
+        }
+
+        //加载期间页面发生变更时，加载结果可能是旧数据，不写入缓存
+        String version = cache.getString(CachePrefix.PAGE_DATA_VERSION.getPrefix());
+        PageDataVO pageDataVO = this.getPageData(pageDataDTO);
+        snapshot = this.buildSnapshot(pageDataVO);
+        if (!Objects.equals(version, cache.getString(CachePrefix.PAGE_DATA_VERSION.getPrefix()))) {
+            return snapshot;
+        }
+        cache.put(key, snapshot, pageDataVO == null ? EMPTY_SNAPSHOT_EXPIRE : SNAPSHOT_EXPIRE);
+        //写入与失效交错时，失效先递增版本再删除缓存，写入后再次校验版本即可发现
+        if (!Objects.equals(version, cache.getString(CachePrefix.PAGE_DATA_VERSION.getPrefix()))) {
+            cache.remove(key);
+            return snapshot;
+        }
+        localSnapshots.put(key, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * 构建页面快照，响应体与接口直接返回时一致
+     *
+     * @param pageDataVO 页面数据
+     * @return 页面快照
+     */
+    private PageDataSnapshotVO buildSnapshot(PageDataVO pageDataVO) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(ResultUtil.data(pageDataVO));
+            return new PageDataSnapshotVO(SecureUtil.md5().digestHex(body), body, ZipUtil.gzip(body));
+        } catch (JsonProcessingException e) {
+            log.error("页面数据序列化失败", e);
+            throw new ServiceException(ResultCode.ERROR);
+        }
+    }
+
+    /**
+     * 页面变更后失效快照，事务中则在提交后失效，避免读到未提交前的旧数据重新写入缓存
+     *
+     * @param pageData 页面
+     */
+    private void evictPageData(PageData pageData) {
+        if (pageData == null) {
+            return;
+        }
+        String key = snapshotKey(pageData.getPageType(), pageData.getPageClientType(), pageData.getNum());
+        //平台页面查询时可能不带 num
+        String platformKey = snapshotKey(pageData.getPageType(), pageData.getPageClientType(), null);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictSnapshot(key, platformKey);
+                }
+            });
+        } else {
+            evictSnapshot(key, platformKey);
+        }
+    }
+
+    private void evictSnapshot(String... keys) {
+        cache.incr(CachePrefix.PAGE_DATA_VERSION.getPrefix());
+        for (String key : keys) {
+            cache.remove(key);
+            localSnapshots.invalidate(key);
+        }
+    }
+
+    private String snapshotKey(String pageType, String clientType, String num) {
+        return CachePrefix.PAGE_DATA.getPrefix() + pageType + "_" + clientType + "_" + (num == null ? "" : num);
+    }
+
     @Override
     public IPage<PageDataListVO> getPageDataList(PageVO pageVO, PageDataDTO pageDataDTO) {
         QueryWrapper<PageDataListVO> queryWrapper = Wrappers.query();
@@ -0,0 +1,51 @@
+package cn.lili.modules.promotion.entity.dos;
+
+import cn.lili.mybatis.BaseIdEntity;
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.util.Date;
+
+/**
+ * 优惠券活动发券批次
+ * <p>
+ * 每批会员发券完成后与会员优惠券在同一事务中写入，记录该批次覆盖的会员ID区间，
+ * 中断后重新发券时跳过已完成的区间。
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+@TableName("li_coupon_distribution_chunk")
+@ApiModel(value = "优惠券活动发券批次")
+public class CouponDistributionChunk extends BaseIdEntity {
+
+    private static final long serialVersionUID = 1L;
+
+    @ApiModelProperty(value = "优惠券活动ID")
+    private String couponActivityId;
+
+    @ApiModelProperty(value = "批次第一个会员ID")
+    private String firstMemberId;
+
+    @ApiModelProperty(value = "批次最后一个会员ID")
+    private String lastMemberId;
+
+    @ApiModelProperty(value = "发放会员数量")
+    private Integer memberNum;
+
+    @ApiModelProperty(value = "发放优惠券数量")
+    private Integer couponNum;
+
+    @JsonFormat(timezone = "GMT+8", pattern = "yyyy-MM-dd HH:mm:ss")
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @TableField(fill = FieldFill.INSERT)
+    @ApiModelProperty(value = "创建时间", hidden = true)
+    private Date createTime;
+
+}
@@ -0,0 +1,34 @@
+package cn.lili.modules.promotion.entity.enums;
+
+/**
+ * 砍价助力结果枚举
+ */
+public enum KanjiaHelpResultEnum {
+
+    /**
+     * 砍价成功，剩余金额大于0
+     */
+    HELPED("砍价成功"),
+    /**
+     * 砍价成功，剩余金额为0，砍价活动成功，每个砍价活动只返回一次
+     */
+    SUCCESS("砍价完成"),
+    /**
+     * 已参与过此次砍价
+     */
+    DUPLICATE("重复砍价"),
+    /**
+     * 砍价活动已完成或已结束
+     */
+    ENDED("砍价已结束");
+
+    private final String description;
+
+    KanjiaHelpResultEnum(String str) {
+        this.description = str;
+    }
+
+    public String description() {
+        return description;
+    }
+}
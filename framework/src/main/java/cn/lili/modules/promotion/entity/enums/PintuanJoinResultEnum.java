@@ -0,0 +1,42 @@
+package cn.lili.modules.promotion.entity.enums;
+
+/**
+ * 拼团参团结果枚举
+ */
+public enum PintuanJoinResultEnum {
+
+    /**
+     * 开团，团队的第一个成员
+     */
+    OPENED("开团"),
+    /**
+     * 参团，团队未满
+     */
+    JOINED("参团"),
+    /**
+     * 参团后人数达到成团人数，每个团队只返回一次
+     */
+    COMPLETED("成团"),
+    /**
+     * 订单已参团，重复参团
+     */
+    DUPLICATE("重复参团"),
+    /**
+     * 团队人数已满
+     */
+    FULL("团队已满"),
+    /**
+     * 团队已结束
+     */
+    CLOSED("团队已结束");
+
+    private final String description;
+
+    PintuanJoinResultEnum(String str) {
+        this.description = str;
+    }
+
+    public String description() {
+        return description;
+    }
+}
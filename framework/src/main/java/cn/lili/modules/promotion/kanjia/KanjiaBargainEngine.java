@@ -0,0 +1,121 @@
+package cn.lili.modules.promotion.kanjia;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.RandomUtil;
+import cn.lili.common.properties.KanjiaProperties;
+import cn.lili.modules.promotion.entity.dos.KanjiaActivity;
+import cn.lili.modules.promotion.entity.dos.KanjiaActivityGoods;
+import cn.lili.modules.promotion.kanjia.impl.MemoryKanjiaBargainStore;
+import cn.lili.modules.promotion.kanjia.impl.RedisKanjiaBargainStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 砍价引擎
+ * <p>
+ * 砍价活动的剩余金额、状态与已砍价会员保存在实时状态存储中，重复砍价校验、砍价金额计算与剩余金额扣减原子完成，
+ * 并发砍价不会覆盖彼此的砍价金额，所有砍价金额之和等于初始剩余金额。存储中金额单位为分。
+ */
+@Slf4j
+@Component
+public class KanjiaBargainEngine {
+
+    @Autowired
+    private KanjiaProperties kanjiaProperties;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private KanjiaBargainStore bargainStore;
+
+    @PostConstruct
+    public void init() {
+        switch (kanjiaProperties.getBargainStore()) {
+            case "MEMORY":
+                bargainStore = new MemoryKanjiaBargainStore();
+                break;
+            case "REDIS":
+            default:
+                bargainStore = new RedisKanjiaBargainStore(stringRedisTemplate);
+                break;
+        }
+        log.info("砍价实时状态存储：{}", bargainStore.getClass().getSimpleName());
+    }
+
+    /**
+     * 砍一刀
+     *
+     * @param kanjiaActivity      砍价活动
+     * @param kanjiaActivityGoods 砍价商品
+     * @param memberId            砍价会员id
+     * @return 砍价结果
+     */
+    public KanjiaHelpResult help(KanjiaActivity kanjiaActivity, KanjiaActivityGoods kanjiaActivityGoods, String memberId) {
+        long lowest = toCent(kanjiaActivityGoods.getLowestPrice());
+        long highest = Math.max(toCent(kanjiaActivityGoods.getHighestPrice()), lowest);
+        return bargainStore.help(kanjiaActivity.getId(), memberId, toCent(kanjiaActivity.getSurplusPrice()),
+                lowest, highest, this.randomPrice(kanjiaActivityGoods), this.ttl(kanjiaActivityGoods));
+    }
+
+    /**
+     * 结束砍价活动
+     *
+     * @param kanjiaActivityId 砍价活动id
+     */
+    public void end(String kanjiaActivityId) {
+        bargainStore.end(kanjiaActivityId, TimeUnit.HOURS.toMillis(kanjiaProperties.getRetainHours()));
+    }
+
+    /**
+     * 实时剩余金额
+     *
+     * @param kanjiaActivityId 砍价活动id
+     * @return 剩余金额，实时状态存储中没有该砍价活动时为空
+     */
+    public Double surplusPrice(String kanjiaActivityId) {
+        Long surplus = bargainStore.surplusPrice(kanjiaActivityId);
+        return surplus == null ? null : toPrice(surplus);
+    }
+
+    /**
+     * 金额转换为分
+     */
+    public static long toCent(Double price) {
+        return price == null ? 0 : BigDecimal.valueOf(price).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValue();
+    }
+
+    /**
+     * 分转换为金额
+     */
+    public static double toPrice(long cent) {
+        return BigDecimal.valueOf(cent, 2).doubleValue();
+    }
+
+    /**
+     * 随机获取砍一刀价格，实际砍价金额在存储中按剩余金额限制
+     */
+    private long randomPrice(KanjiaActivityGoods kanjiaActivityGoods) {
+        //如果金额相等则直接返回
+        if (kanjiaActivityGoods.getLowestPrice().equals(kanjiaActivityGoods.getHighestPrice())) {
+            return toCent(kanjiaActivityGoods.getLowestPrice());
+        }
+        BigDecimal bigDecimal = RandomUtil.randomBigDecimal(Convert.toBigDecimal(kanjiaActivityGoods.getLowestPrice()),
+                Convert.toBigDecimal(kanjiaActivityGoods.getHighestPrice()));
+        return bigDecimal.setScale(2, RoundingMode.UP).movePointRight(2).longValue();
+    }
+
+    /**
+     * 实时状态保留到砍价商品活动结束后一段时间
+     */
+    private long ttl(KanjiaActivityGoods kanjiaActivityGoods) {
+        long remain = kanjiaActivityGoods.getEndTime() == null ? 0 : kanjiaActivityGoods.getEndTime().getTime() - System.currentTimeMillis();
+        return Math.max(remain, 0) + TimeUnit.HOURS.toMillis(kanjiaProperties.getRetainHours());
+    }
+}
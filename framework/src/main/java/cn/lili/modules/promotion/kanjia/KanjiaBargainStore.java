@@ -0,0 +1,38 @@
+package cn.lili.modules.promotion.kanjia;
+
+/**
+ * 砍价实时状态存储
+ * 保存砍价活动的剩余金额、状态与已砍价会员，砍价时的校验、计算与扣减为原子操作，金额单位为分
+ */
+public interface KanjiaBargainStore {
+
+    /**
+     * 砍一刀，砍价金额限制在 [lowest, highest] 且不超过剩余金额
+     *
+     * @param activityId   砍价活动id
+     * @param memberId     砍价会员id
+     * @param surplusPrice 存储中没有该砍价活动时的初始剩余金额
+     * @param lowest       最低砍价金额
+     * @param highest      最高砍价金额
+     * @param kanjiaPrice  随机砍价金额
+     * @param ttl          实时状态保留时间，单位毫秒
+     * @return 砍价结果
+     */
+    KanjiaHelpResult help(String activityId, String memberId, long surplusPrice, long lowest, long highest, long kanjiaPrice, long ttl);
+
+    /**
+     * 结束砍价活动，之后的砍价返回已结束
+     *
+     * @param activityId 砍价活动id
+     * @param ttl        实时状态保留时间，单位毫秒
+     */
+    void end(String activityId, long ttl);
+
+    /**
+     * 剩余金额
+     *
+     * @param activityId 砍价活动id
+     * @return 剩余金额，存储中没有该砍价活动时为空
+     */
+    Long surplusPrice(String activityId);
+}
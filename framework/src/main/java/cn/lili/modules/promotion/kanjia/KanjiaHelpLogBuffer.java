@@ -0,0 +1,46 @@
+package cn.lili.modules.promotion.kanjia;
+
+import java.util.List;
+
+/**
+ * 砍价记录缓冲
+ * 砍价记录按砍价顺序排队等待入库，从队首读取，入库后再从队首移除，入库失败的记录不会丢失
+ */
+public interface KanjiaHelpLogBuffer {
+
+    /**
+     * 砍价记录放入队尾
+     *
+     * @param kanjiaActivityLog 砍价记录
+     */
+    void push(String kanjiaActivityLog);
+
+    /**
+     * 读取队首的砍价记录，不移除
+     *
+     * @param count 最多读取条数
+     * @return 砍价记录
+     */
+    List<String> peek(int count);
+
+    /**
+     * 移除队首的砍价记录
+     *
+     * @param count 移除条数
+     */
+    void remove(int count);
+
+    /**
+     * 无法入库的砍价记录放入死信，等待人工处理
+     *
+     * @param kanjiaActivityLogs 砍价记录
+     */
+    void park(List<String> kanjiaActivityLogs);
+
+    /**
+     * 待入库数量
+     *
+     * @return 待入库数量
+     */
+    long size();
+}
@@ -0,0 +1,205 @@
+package cn.lili.modules.promotion.kanjia;
+
+import cn.hutool.json.JSONUtil;
+import cn.lili.cache.CachePrefix;
+import cn.lili.common.properties.KanjiaProperties;
+import cn.lili.modules.promotion.entity.dos.KanjiaActivity;
+import cn.lili.modules.promotion.entity.dos.KanjiaActivityLog;
+import cn.lili.modules.promotion.kanjia.impl.MemoryKanjiaHelpLogBuffer;
+import cn.lili.modules.promotion.kanjia.impl.RedisKanjiaHelpLogBuffer;
+import cn.lili.modules.promotion.mapper.KanJiaActivityMapper;
+import cn.lili.modules.promotion.service.KanjiaActivityLogService;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 砍价记录批量入库
+ * <p>
+ * 砍价请求只把砍价记录放入砍价记录缓冲，后台线程按固定间隔批量写入砍价记录，入库后才从缓冲中移除，
+ * 服务重启或宕机不丢失砍价记录。多个节点同时只有一个节点入库。
+ * 整批入库失败时逐条入库：已入库的记录（重复主键）跳过，数据不合法的记录放入死信，数据库不可用时整批保留到下次重试。
+ * 入库后把每个砍价活动本批最小的剩余金额写回砍价活动。剩余金额只减不增，更新条件保证旧值不会覆盖新值。
+ */
+@Slf4j
+@Component
+public class KanjiaHelpLogWriter implements InitializingBean, DisposableBean {
+
+    /**
+     * 停止时等待入库线程结束的最长时间，单位秒
+     */
+    private static final long SHUTDOWN_TIMEOUT = 30L;
+
+    @Autowired
+    private KanjiaActivityLogService kanjiaActivityLogService;
+
+    @Autowired
+    private KanJiaActivityMapper kanJiaActivityMapper;
+
+    @Autowired
+    private KanjiaProperties kanjiaProperties;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedissonClient redisson;
+
+    private KanjiaHelpLogBuffer buffer;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 记录一次砍价
+     *
+     * @param kanjiaActivityLog 砍价记录，id 需已生成，重复入库时按 id 识别
+     */
+    public void add(KanjiaActivityLog kanjiaActivityLog) {
+        buffer.push(JSONUtil.toJsonStr(kanjiaActivityLog));
+    }
+
+    /**
+     * 将缓冲中的砍价记录全部入库，其他节点正在入库时跳过
+     */
+    public void flush() {
+        RLock lock = redisson.getLock(CachePrefix.KANJIA_HELP_LOG_LOCK.getPrefix());
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            int batchSize = kanjiaProperties.getLogFlushBatchSize();
+            List<String> values;
+            while (!(values = buffer.peek(batchSize)).isEmpty()) {
+                List<KanjiaActivityLog> saved = this.save(values);
+                if (saved == null) {
+                    log.error("砍价记录入库失败，待入库{}条", buffer.size());
+                    return;
+                }
+                buffer.remove(values.size());
+                try {
+                    this.updateSurplusPrice(saved);
+                } catch (Exception e) {
+                    //剩余金额由之后的批次修正
+                    log.error("砍价活动剩余金额更新失败", e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 入库一批砍价记录
+     *
+     * @param values 砍价记录
+     * @return 已入库的砍价记录，数据库不可用需要整批重试时为空
+     */
+    private List<KanjiaActivityLog> save(List<String> values) {
+        List<KanjiaActivityLog> batch = new ArrayList<>(values.size());
+        List<String> dead = new ArrayList<>();
+        for (String value : values) {
+            try {
+                batch.add(JSONUtil.toBean(value, KanjiaActivityLog.class));
+            } catch (Exception e) {
+                log.error("砍价记录解析失败：{}", value, e);
+                dead.add(value);
+            }
+        }
+        try {
+            if (!batch.isEmpty()) {
+                kanjiaActivityLogService.saveBatch(batch);
+            }
+        } catch (Exception batchException) {
+            log.warn("砍价记录批量入库失败，逐条入库", batchException);
+            List<KanjiaActivityLog> saved = new ArrayList<>(batch.size());
+            for (KanjiaActivityLog kanjiaActivityLog : batch) {
+                try {
+                    kanjiaActivityLogService.save(kanjiaActivityLog);
+                    saved.add(kanjiaActivityLog);
+                } catch (DuplicateKeyException e) {
+                    //上次入库后未及时移除
+                    saved.add(kanjiaActivityLog);
+                } catch (DataIntegrityViolationException e) {
+                    log.error("砍价记录{}无法入库，放入死信", kanjiaActivityLog.getId(), e);
+                    dead.add(JSONUtil.toJsonStr(kanjiaActivityLog));
+                } catch (Exception e) {
+                    log.error("砍价记录入库异常", e);
+                    return null;
+                }
+            }
+            batch = saved;
+        }
+        if (!dead.isEmpty()) {
+            buffer.park(dead);
+        }
+        return batch;
+    }
+
+    /**
+     * 写回每个砍价活动本批最小的剩余金额
+     */
+    private void updateSurplusPrice(List<KanjiaActivityLog> batch) {
+        Map<String, Double> surplusPrices = new HashMap<>();
+        for (KanjiaActivityLog kanjiaActivityLog : batch) {
+            surplusPrices.merge(kanjiaActivityLog.getKanjiaActivityId(), kanjiaActivityLog.getSurplusPrice(), Math::min);
+        }
+        surplusPrices.forEach((kanjiaActivityId, surplusPrice) -> kanJiaActivityMapper.update(null, new LambdaUpdateWrapper<KanjiaActivity>()
+                .eq(KanjiaActivity::getId, kanjiaActivityId)
+                .gt(KanjiaActivity::getSurplusPrice, surplusPrice)
+                .set(KanjiaActivity::getSurplusPrice, surplusPrice)));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        switch (kanjiaProperties.getBargainStore()) {
+            case "MEMORY":
+                buffer = new MemoryKanjiaHelpLogBuffer();
+                break;
+            case "REDIS":
+            default:
+                buffer = new RedisKanjiaHelpLogBuffer(stringRedisTemplate);
+                break;
+        }
+        long interval = kanjiaProperties.getLogFlushInterval();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("kanjia-log-flush-"));
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                log.error("砍价记录入库异常", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                log.warn("砍价记录入库线程未结束，未入库的砍价记录由其他节点或下次启动后入库");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        flush();
+    }
+}
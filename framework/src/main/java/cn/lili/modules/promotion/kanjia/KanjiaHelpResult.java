@@ -0,0 +1,30 @@
+package cn.lili.modules.promotion.kanjia;
+
+import cn.lili.modules.promotion.entity.enums.KanjiaHelpResultEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 砍价助力结果，金额单位为分
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class KanjiaHelpResult {
+
+    /**
+     * 助力结果
+     */
+    private KanjiaHelpResultEnum result;
+
+    /**
+     * 本次砍价金额，未砍价时为0
+     */
+    private long kanjiaPrice;
+
+    /**
+     * 砍价后的剩余金额
+     */
+    private long surplusPrice;
+}
@@ -0,0 +1,107 @@
+package cn.lili.modules.promotion.kanjia.impl;
+
+import cn.lili.modules.promotion.entity.enums.KanJiaStatusEnum;
+import cn.lili.modules.promotion.entity.enums.KanjiaHelpResultEnum;
+import cn.lili.modules.promotion.kanjia.KanjiaBargainStore;
+import cn.lili.modules.promotion.kanjia.KanjiaHelpResult;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 内存砍价实时状态存储
+ * 语义与 Redis 砍价脚本一致，数据只保存在当前进程，用于单机调试与测试
+ */
+public class MemoryKanjiaBargainStore implements KanjiaBargainStore {
+
+    private final Map<String, Bargain> bargains = new ConcurrentHashMap<>();
+
+    private final LongSupplier clock;
+
+    public MemoryKanjiaBargainStore() {
+        this(System::currentTimeMillis);
+    }
+
+    public MemoryKanjiaBargainStore(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public KanjiaHelpResult help(String activityId, String memberId, long surplusPrice, long lowest, long highest, long kanjiaPrice, long ttl) {
+        Bargain bargain = this.bargain(activityId);
+        synchronized (bargain) {
+            if (bargain.surplus == null) {
+                bargain.surplus = surplusPrice;
+            }
+            if (bargain.helpers.containsKey(memberId)) {
+                return new KanjiaHelpResult(KanjiaHelpResultEnum.DUPLICATE, 0, bargain.surplus);
+            }
+            if (bargain.status != KanJiaStatusEnum.START) {
+                return new KanjiaHelpResult(KanjiaHelpResultEnum.ENDED, 0, bargain.surplus);
+            }
+            long cut = Math.min(Math.max(kanjiaPrice, lowest), highest);
+            cut = Math.min(cut, bargain.surplus);
+            bargain.surplus -= cut;
+            bargain.helpers.put(memberId, cut);
+            bargain.expireAt = clock.getAsLong() + ttl;
+            if (bargain.surplus <= 0) {
+                bargain.status = KanJiaStatusEnum.SUCCESS;
+                return new KanjiaHelpResult(KanjiaHelpResultEnum.SUCCESS, cut, bargain.surplus);
+            }
+            return new KanjiaHelpResult(KanjiaHelpResultEnum.HELPED, cut, bargain.surplus);
+        }
+    }
+
+    @Override
+    public void end(String activityId, long ttl) {
+        Bargain bargain = this.bargain(activityId);
+        synchronized (bargain) {
+            bargain.status = KanJiaStatusEnum.END;
+            bargain.expireAt = clock.getAsLong() + ttl;
+        }
+    }
+
+    @Override
+    public Long surplusPrice(String activityId) {
+        Bargain bargain = bargains.get(activityId);
+        if (bargain == null) {
+            return null;
+        }
+        synchronized (bargain) {
+            return bargain.expireAt <= clock.getAsLong() ? null : bargain.surplus;
+        }
+    }
+
+    /**
+     * 获取砍价活动，已过期的视为不存在
+     */
+    private Bargain bargain(String activityId) {
+        long now = clock.getAsLong();
+        return bargains.compute(activityId, (key, existed) -> existed == null || existed.isExpired(now) ? new Bargain() : existed);
+    }
+
+    private static class Bargain {
+
+        /**
+         * 剩余金额，为空表示新建
+         */
+        private Long surplus;
+
+        private KanJiaStatusEnum status = KanJiaStatusEnum.START;
+
+        /**
+         * 会员id -> 砍价金额
+         */
+        private final Map<String, Long> helpers = new HashMap<>();
+
+        private long expireAt = Long.MAX_VALUE;
+
+        private boolean isExpired(long now) {
+            synchronized (this) {
+                return expireAt <= now;
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package cn.lili.modules.promotion.kanjia.impl;
+
+import cn.lili.modules.promotion.kanjia.KanjiaHelpLogBuffer;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * 内存砍价记录缓冲
+ * 数据只保存在当前进程，进程退出后未入库的记录丢失，用于单机调试与测试
+ */
+public class MemoryKanjiaHelpLogBuffer implements KanjiaHelpLogBuffer {
+
+    private final LinkedList<String> pending = new LinkedList<>();
+
+    private final List<String> dead = new ArrayList<>();
+
+    @Override
+    public synchronized void push(String kanjiaActivityLog) {
+        pending.addLast(kanjiaActivityLog);
+    }
+
+    @Override
+    public synchronized List<String> peek(int count) {
+        return new ArrayList<>(pending.subList(0, Math.min(count, pending.size())));
+    }
+
+    @Override
+    public synchronized void remove(int count) {
+        for (int i = 0; i < count && !pending.isEmpty(); i++) {
+            pending.removeFirst();
+        }
+    }
+
+    @Override
+    public synchronized void park(List<String> kanjiaActivityLogs) {
+        dead.addAll(kanjiaActivityLogs);
+    }
+
+    @Override
+    public synchronized long size() {
+        return pending.size();
+    }
+
+    /**
+     * 死信
+     *
+     * @return 无法入库的砍价记录
+     */
+    public synchronized List<String> getDead() {
+        return new ArrayList<>(dead);
+    }
+}
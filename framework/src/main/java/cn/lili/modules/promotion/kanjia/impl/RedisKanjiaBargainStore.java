@@ -0,0 +1,75 @@
+package cn.lili.modules.promotion.kanjia.impl;
+
+import cn.lili.cache.CachePrefix;
+import cn.lili.modules.promotion.entity.enums.KanjiaHelpResultEnum;
+import cn.lili.modules.promotion.kanjia.KanjiaBargainStore;
+import cn.lili.modules.promotion.kanjia.KanjiaHelpResult;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Redis 砍价实时状态存储
+ * 每个砍价活动一个 hash，_surplus 为剩余金额，_status 为状态，m:会员id 为该会员的砍价金额，砍价与结束通过脚本原子执行
+ */
+public class RedisKanjiaBargainStore implements KanjiaBargainStore {
+
+    /**
+     * 剩余金额字段
+     */
+    private static final String SURPLUS = "_surplus";
+
+    /**
+     * 脚本返回值 -> 砍价结果
+     */
+    private static final KanjiaHelpResultEnum[] RESULTS = {null,
+            KanjiaHelpResultEnum.HELPED, KanjiaHelpResultEnum.SUCCESS, KanjiaHelpResultEnum.DUPLICATE, KanjiaHelpResultEnum.ENDED};
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final DefaultRedisScript<List> helpScript = new DefaultRedisScript<>();
+
+    private final DefaultRedisScript<Long> endScript = new DefaultRedisScript<>();
+
+    public RedisKanjiaBargainStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        helpScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("script/kanjia_help.lua")));
+        helpScript.setResultType(List.class);
+        endScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("script/kanjia_end.lua")));
+        endScript.setResultType(Long.class);
+    }
+
+    @Override
+    public KanjiaHelpResult help(String activityId, String memberId, long surplusPrice, long lowest, long highest, long kanjiaPrice, long ttl) {
+        List<?> result = redisTemplate.execute(helpScript, Collections.singletonList(key(activityId)),
+                memberId, String.valueOf(surplusPrice), String.valueOf(lowest), String.valueOf(highest),
+                String.valueOf(kanjiaPrice), String.valueOf(ttl));
+        if (result == null || result.size() != 3) {
+            throw new IllegalStateException("unexpected kanjia help result " + result);
+        }
+        int code = ((Number) result.get(0)).intValue();
+        if (code < 1 || code >= RESULTS.length) {
+            throw new IllegalStateException("unexpected kanjia help result " + result);
+        }
+        return new KanjiaHelpResult(RESULTS[code], ((Number) result.get(1)).longValue(), ((Number) result.get(2)).longValue());
+    }
+
+    @Override
+    public void end(String activityId, long ttl) {
+        redisTemplate.execute(endScript, Collections.singletonList(key(activityId)), String.valueOf(ttl));
+    }
+
+    @Override
+    public Long surplusPrice(String activityId) {
+        Object surplus = redisTemplate.opsForHash().get(key(activityId), SURPLUS);
+        return surplus == null ? null : Long.valueOf(surplus.toString());
+    }
+
+    private static String key(String activityId) {
+        return CachePrefix.KANJIA_ACTIVITY.getPrefix() + activityId;
+    }
+}
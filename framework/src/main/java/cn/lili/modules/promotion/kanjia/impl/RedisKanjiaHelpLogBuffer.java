@@ -0,0 +1,52 @@
+package cn.lili.modules.promotion.kanjia.impl;
+
+import cn.lili.cache.CachePrefix;
+import cn.lili.modules.promotion.kanjia.KanjiaHelpLogBuffer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Redis 砍价记录缓冲
+ * 待入库记录保存在一个 list 中，服务重启或宕机后由任一节点继续入库，无法入库的记录放入死信 list
+ */
+public class RedisKanjiaHelpLogBuffer implements KanjiaHelpLogBuffer {
+
+    private static final String PENDING = CachePrefix.KANJIA_HELP_LOG.getPrefix() + "pending";
+
+    private static final String DEAD = CachePrefix.KANJIA_HELP_LOG.getPrefix() + "dead";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisKanjiaHelpLogBuffer(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void push(String kanjiaActivityLog) {
+        redisTemplate.opsForList().rightPush(PENDING, kanjiaActivityLog);
+    }
+
+    @Override
+    public List<String> peek(int count) {
+        List<String> kanjiaActivityLogs = redisTemplate.opsForList().range(PENDING, 0, count - 1L);
+        return kanjiaActivityLogs == null ? Collections.emptyList() : kanjiaActivityLogs;
+    }
+
+    @Override
+    public void remove(int count) {
+        redisTemplate.opsForList().trim(PENDING, count, -1);
+    }
+
+    @Override
+    public void park(List<String> kanjiaActivityLogs) {
+        redisTemplate.opsForList().rightPushAll(DEAD, kanjiaActivityLogs);
+    }
+
+    @Override
+    public long size() {
+        Long size = redisTemplate.opsForList().size(PENDING);
+        return size == null ? 0 : size;
+    }
+}
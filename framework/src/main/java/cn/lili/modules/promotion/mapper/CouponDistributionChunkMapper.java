@@ -0,0 +1,12 @@
+package cn.lili.modules.promotion.mapper;
+
+import cn.lili.modules.promotion.entity.dos.CouponDistributionChunk;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+/**
+ * 优惠券活动发券批次数据处理层
+ */
+public interface CouponDistributionChunkMapper extends BaseMapper<CouponDistributionChunk> {
+
+
+}
@@ -2,6 +2,8 @@ package cn.lili.modules.promotion.mapper;
 
 import cn.lili.modules.promotion.entity.dos.Coupon;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 
 /**
  * 优惠券数据处理层
@@ -11,5 +13,14 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  */
 public interface CouponMapper extends BaseMapper<Coupon> {
 
+    /**
+     * 原子增加优惠券已领取数量
+     *
+     * @param couponId   优惠券ID
+     * @param receiveNum 增加数量
+     * @return 影响行数
+     */
+    @Update("UPDATE li_coupon SET received_num = IFNULL(received_num, 0) + #{receiveNum} WHERE id = #{couponId}")
+    int addReceivedNum(@Param("couponId") String couponId, @Param("receiveNum") Integer receiveNum);
 
-}
\ No newline at end of file
+}
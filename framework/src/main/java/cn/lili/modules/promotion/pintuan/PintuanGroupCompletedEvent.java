@@ -0,0 +1,39 @@
+package cn.lili.modules.promotion.pintuan;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * 拼团成团事件，每个团队只发布一次
+ */
+public class PintuanGroupCompletedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 3196583416226358714L;
+
+    /**
+     * 拼团活动id
+     */
+    @Getter
+    private final String pintuanId;
+
+    /**
+     * 开团订单sn
+     */
+    @Getter
+    private final String groupSn;
+
+    /**
+     * 团队成员订单sn
+     */
+    @Getter
+    private final List<String> orderSns;
+
+    public PintuanGroupCompletedEvent(Object source, String pintuanId, String groupSn, List<String> orderSns) {
+        super(source);
+        this.pintuanId = pintuanId;
+        this.groupSn = groupSn;
+        this.orderSns = orderSns;
+    }
+}
@@ -0,0 +1,181 @@
+package cn.lili.modules.promotion.pintuan;
+
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.lili.common.properties.PintuanProperties;
+import cn.lili.common.properties.RocketmqCustomProperties;
+import cn.lili.modules.order.order.entity.dos.Order;
+import cn.lili.modules.promotion.entity.dos.Pintuan;
+import cn.lili.modules.promotion.entity.enums.PintuanJoinResultEnum;
+import cn.lili.modules.promotion.pintuan.impl.MemoryPintuanGroupStore;
+import cn.lili.modules.promotion.pintuan.impl.RedisPintuanGroupStore;
+import cn.lili.trigger.enums.DelayTypeEnums;
+import cn.lili.trigger.interfaces.TimeTrigger;
+import cn.lili.trigger.message.PintuanOrderMessage;
+import cn.lili.trigger.model.TimeExecuteConstant;
+import cn.lili.trigger.model.TimeTriggerMsg;
+import cn.lili.trigger.util.DelayQueueTools;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拼团成团引擎
+ * <p>
+ * 参团人数校验、重复参团校验与成团判定在团队成员存储中原子完成，不再每次参团查询全部团队订单。
+ * 开团时发布拼团结束的延时任务，成团时发布一次 {@link PintuanGroupCompletedEvent}。
+ */
+@Slf4j
+@Component
+public class PintuanGroupEngine {
+
+    @Autowired
+    private PintuanProperties pintuanProperties;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 延时任务
+     */
+    @Autowired
+    private TimeTrigger timeTrigger;
+
+    @Autowired
+    private RocketmqCustomProperties rocketmqCustomProperties;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private PintuanGroupStore groupStore;
+
+    @PostConstruct
+    public void init() {
+        switch (pintuanProperties.getGroupStore()) {
+            case "MEMORY":
+                groupStore = new MemoryPintuanGroupStore();
+                break;
+            case "REDIS":
+            default:
+                groupStore = new RedisPintuanGroupStore(stringRedisTemplate);
+                break;
+        }
+        log.info("拼团团队成员存储：{}", groupStore.getClass().getSimpleName());
+    }
+
+    /**
+     * 已支付的拼团订单参团
+     *
+     * @param pintuan 拼团活动
+     * @param order   拼团订单
+     * @return 参团结果
+     */
+    public PintuanJoinResultEnum join(Pintuan pintuan, Order order) {
+        String groupSn = groupSn(order);
+        PintuanJoinResultEnum result = groupStore.join(groupSn, order.getSn(), order.getMemberId(), pintuan.getRequiredNum(), this.ttl(pintuan));
+        switch (result) {
+            case OPENED:
+                //开团订单，发布一个24小时的延时任务，时间到达后，如果未成团则自动结束（未开启虚拟成团的情况下）
+                this.addCloseDelay(pintuan, groupSn);
+                break;
+            case COMPLETED:
+                this.publishCompleted(pintuan, groupSn, groupStore.members(groupSn));
+                break;
+            case DUPLICATE:
+                //重复参团时团队已满，说明上次成团后的处理可能未完成，再次发布成团事件，成团处理对已确认的订单不重复处理
+                Map<String, String> members = groupStore.members(groupSn);
+                if (members.size() >= pintuan.getRequiredNum()) {
+                    this.publishCompleted(pintuan, groupSn, members);
+                }
+                break;
+            default:
+                break;
+        }
+        return result;
+    }
+
+    private void publishCompleted(Pintuan pintuan, String groupSn, Map<String, String> members) {
+        List<String> orderSns = new ArrayList<>(members.keySet());
+        applicationEventPublisher.publishEvent(new PintuanGroupCompletedEvent("拼团成团", pintuan.getId(), groupSn, orderSns));
+    }
+
+    /**
+     * 结束未成团的团队
+     *
+     * @param pintuan 拼团活动
+     * @param groupSn 开团订单sn
+     * @return 团队是否已结束，团队已成团时返回 false，已结束的团队再次结束时返回 true
+     */
+    public boolean close(Pintuan pintuan, String groupSn) {
+        return groupStore.close(groupSn, this.ttl(pintuan));
+    }
+
+    /**
+     * 团队是否存在
+     *
+     * @param groupSn 开团订单sn
+     * @return 团队成员存储中是否有该团队
+     */
+    public boolean exists(String groupSn) {
+        return !groupStore.members(groupSn).isEmpty();
+    }
+
+    /**
+     * 批量获取团队已参团人数
+     *
+     * @param groupSns 开团订单sn
+     * @return 开团订单sn -> 已参团人数，团队成员存储中没有的团队不返回
+     */
+    public Map<String, Long> groupedNum(Collection<String> groupSns) {
+        Map<String, Long> result = new HashMap<>(groupSns.size() * 2);
+        for (String groupSn : groupSns) {
+            int size = groupStore.members(groupSn).size();
+            if (size > 0) {
+                result.put(groupSn, (long) size);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 拼团订单所属团队
+     *
+     * @param order 拼团订单
+     * @return 开团订单sn
+     */
+    public static String groupSn(Order order) {
+        return CharSequenceUtil.isEmpty(order.getParentOrderSn()) ? order.getSn() : order.getParentOrderSn();
+    }
+
+    /**
+     * 团队保留到拼团活动结束后一段时间，之后的查询回退到订单
+     */
+    private long ttl(Pintuan pintuan) {
+        long remain = pintuan.getEndTime() == null ? 0 : pintuan.getEndTime().getTime() - System.currentTimeMillis();
+        return Math.max(remain, 0) + TimeUnit.HOURS.toMillis(pintuanProperties.getGroupRetainHours());
+    }
+
+    private void addCloseDelay(Pintuan pintuan, String groupSn) {
+        PintuanOrderMessage pintuanOrderMessage = new PintuanOrderMessage();
+        //开团结束时间
+        long startTime = DateUtil.offsetHour(new Date(), 24).getTime();
+        if (DateUtil.compare(DateUtil.offsetHour(pintuan.getStartTime(), 24), pintuan.getEndTime()) > 0) {
+            startTime = pintuan.getEndTime().getTime();
+        }
+        pintuanOrderMessage.setOrderSn(groupSn);
+        pintuanOrderMessage.setPintuanId(pintuan.getId());
+        TimeTriggerMsg timeTriggerMsg = new TimeTriggerMsg(TimeExecuteConstant.PROMOTION_EXECUTOR,
+                startTime,
+                pintuanOrderMessage,
+                DelayQueueTools.wrapperUniqueKey(DelayTypeEnums.PINTUAN_ORDER, (pintuan.getId() + groupSn)),
+                rocketmqCustomProperties.getPromotionTopic());
+
+        this.timeTrigger.addDelay(timeTriggerMsg);
+    }
+}
@@ -0,0 +1,42 @@
+package cn.lili.modules.promotion.pintuan;
+
+import cn.lili.modules.promotion.entity.enums.PintuanJoinResultEnum;
+
+import java.util.Map;
+
+/**
+ * 拼团团队成员存储
+ * 以开团订单sn标识团队，参团、成团判定与结束团队均为原子操作
+ */
+public interface PintuanGroupStore {
+
+    /**
+     * 参团，同一订单重复参团时返回 DUPLICATE，加入后达到成团人数时返回 COMPLETED，每个团队只返回一次
+     *
+     * @param groupSn     开团订单sn
+     * @param orderSn     参团订单sn
+     * @param memberId    会员id
+     * @param requiredNum 成团人数
+     * @param ttl         团队保留时间，单位毫秒
+     * @return 参团结果
+     */
+    PintuanJoinResultEnum join(String groupSn, String orderSn, String memberId, int requiredNum, long ttl);
+
+    /**
+     * 结束未成团的团队，之后的参团返回 CLOSED
+     * 团队已结束时不变并返回 true，上次结束后的订单处理未完成时可以重试
+     *
+     * @param groupSn 开团订单sn
+     * @param ttl     团队保留时间，单位毫秒
+     * @return 团队是否已结束，团队已成团时返回 false
+     */
+    boolean close(String groupSn, long ttl);
+
+    /**
+     * 团队成员
+     *
+     * @param groupSn 开团订单sn
+     * @return 订单sn -> 会员id，团队不存在时为空
+     */
+    Map<String, String> members(String groupSn);
+}
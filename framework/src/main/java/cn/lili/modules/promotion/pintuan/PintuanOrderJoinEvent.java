@@ -0,0 +1,23 @@
+package cn.lili.modules.promotion.pintuan;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 拼团订单参团事件，订单确认事务提交后参团
+ */
+public class PintuanOrderJoinEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = -2404927245263745516L;
+
+    /**
+     * 拼团订单sn
+     */
+    @Getter
+    private final String orderSn;
+
+    public PintuanOrderJoinEvent(Object source, String orderSn) {
+        super(source);
+        this.orderSn = orderSn;
+    }
+}
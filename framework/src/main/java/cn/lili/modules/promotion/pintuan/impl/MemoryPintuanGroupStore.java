@@ -0,0 +1,109 @@
+package cn.lili.modules.promotion.pintuan.impl;
+
+import cn.lili.modules.promotion.entity.enums.PintuanJoinResultEnum;
+import cn.lili.modules.promotion.pintuan.PintuanGroupStore;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 内存拼团团队成员存储
+ * 语义与 Redis 参团脚本一致，数据只保存在当前进程，用于单机调试与测试
+ */
+public class MemoryPintuanGroupStore implements PintuanGroupStore {
+
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+
+    private final LongSupplier clock;
+
+    public MemoryPintuanGroupStore() {
+        this(System::currentTimeMillis);
+    }
+
+    public MemoryPintuanGroupStore(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public PintuanJoinResultEnum join(String groupSn, String orderSn, String memberId, int requiredNum, long ttl) {
+        Group group = this.group(groupSn);
+        synchronized (group) {
+            if (group.members.containsKey(orderSn)) {
+                return PintuanJoinResultEnum.DUPLICATE;
+            }
+            if (group.status == PintuanJoinResultEnum.COMPLETED) {
+                return PintuanJoinResultEnum.FULL;
+            }
+            if (group.status == PintuanJoinResultEnum.CLOSED) {
+                return PintuanJoinResultEnum.CLOSED;
+            }
+            if (group.members.size() >= requiredNum) {
+                return PintuanJoinResultEnum.FULL;
+            }
+            group.members.put(orderSn, memberId);
+            group.expireAt = clock.getAsLong() + ttl;
+            if (group.members.size() >= requiredNum) {
+                group.status = PintuanJoinResultEnum.COMPLETED;
+                return PintuanJoinResultEnum.COMPLETED;
+            }
+            group.status = PintuanJoinResultEnum.JOINED;
+            return group.members.size() == 1 ? PintuanJoinResultEnum.OPENED : PintuanJoinResultEnum.JOINED;
+        }
+    }
+
+    @Override
+    public boolean close(String groupSn, long ttl) {
+        Group group = this.group(groupSn);
+        synchronized (group) {
+            if (group.status == PintuanJoinResultEnum.COMPLETED) {
+                return false;
+            }
+            if (group.status == PintuanJoinResultEnum.CLOSED) {
+                return true;
+            }
+            group.status = PintuanJoinResultEnum.CLOSED;
+            group.expireAt = clock.getAsLong() + ttl;
+            return true;
+        }
+    }
+
+    @Override
+    public Map<String, String> members(String groupSn) {
+        Group group = groups.get(groupSn);
+        if (group == null) {
+            return Collections.emptyMap();
+        }
+        synchronized (group) {
+            return group.expireAt <= clock.getAsLong() ? Collections.emptyMap() : new LinkedHashMap<>(group.members);
+        }
+    }
+
+    /**
+     * 获取团队，已过期的团队视为不存在
+     */
+    private Group group(String groupSn) {
+        long now = clock.getAsLong();
+        return groups.compute(groupSn, (key, existed) -> existed == null || existed.isExpired(now) ? new Group() : existed);
+    }
+
+    private static class Group {
+
+        /**
+         * 团队状态，为空表示新建
+         */
+        private PintuanJoinResultEnum status;
+
+        private final Map<String, String> members = new LinkedHashMap<>();
+
+        private long expireAt = Long.MAX_VALUE;
+
+        private boolean isExpired(long now) {
+            synchronized (this) {
+                return expireAt <= now;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package cn.lili.modules.promotion.pintuan.impl;
+
+import cn.lili.cache.CachePrefix;
+import cn.lili.modules.promotion.entity.enums.PintuanJoinResultEnum;
+import cn.lili.modules.promotion.pintuan.PintuanGroupStore;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Redis 拼团团队成员存储
+ * 每个团队一个 hash，_status 字段为团队状态，其余字段为 订单sn -> 会员id，参团与结束团队通过脚本原子执行
+ */
+public class RedisPintuanGroupStore implements PintuanGroupStore {
+
+    /**
+     * 团队状态字段
+     */
+    private static final String STATUS = "_status";
+
+    /**
+     * 脚本返回值 -> 参团结果
+     */
+    private static final PintuanJoinResultEnum[] RESULTS = {null,
+            PintuanJoinResultEnum.OPENED, PintuanJoinResultEnum.JOINED, PintuanJoinResultEnum.COMPLETED,
+            PintuanJoinResultEnum.DUPLICATE, PintuanJoinResultEnum.FULL, PintuanJoinResultEnum.CLOSED};
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final DefaultRedisScript<Long> joinScript = script("script/pintuan_join.lua");
+
+    private final DefaultRedisScript<Long> closeScript = script("script/pintuan_close.lua");
+
+    public RedisPintuanGroupStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public PintuanJoinResultEnum join(String groupSn, String orderSn, String memberId, int requiredNum, long ttl) {
+        Long result = redisTemplate.execute(joinScript, Collections.singletonList(key(groupSn)),
+                orderSn, memberId, String.valueOf(requiredNum), String.valueOf(ttl));
+        if (result == null || result < 1 || result >= RESULTS.length) {
+            throw new IllegalStateException("unexpected pintuan join result " + result);
+        }
+        return RESULTS[result.intValue()];
+    }
+
+    @Override
+    public boolean close(String groupSn, long ttl) {
+        Long result = redisTemplate.execute(closeScript, Collections.singletonList(key(groupSn)), String.valueOf(ttl));
+        return result != null && result > 0;
+    }
+
+    @Override
+    public Map<String, String> members(String groupSn) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(key(groupSn));
+        Map<String, String> members = new HashMap<>(entries.size());
+        entries.forEach((orderSn, memberId) -> {
+            if (!STATUS.equals(orderSn)) {
+                members.put(orderSn.toString(), memberId.toString());
+            }
+        });
+        return members;
+    }
+
+    private static String key(String groupSn) {
+        return CachePrefix.PINTUAN_GROUP.getPrefix() + groupSn;
+    }
+
+    private static DefaultRedisScript<Long> script(String path) {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+}
@@ -0,0 +1,36 @@
+package cn.lili.modules.promotion.service;
+
+import cn.lili.modules.promotion.entity.dos.Coupon;
+import cn.lili.modules.promotion.entity.dos.CouponActivityItem;
+import cn.lili.modules.promotion.entity.dos.CouponDistributionChunk;
+import com.baomidou.mybatisplus.extension.service.IService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 优惠券活动发券批次业务层
+ */
+public interface CouponDistributionService extends IService<CouponDistributionChunk> {
+
+    /**
+     * 查询优惠券活动已完成的发券批次
+     *
+     * @param couponActivityId 优惠券活动ID
+     * @return 已完成批次，只包含会员ID区间
+     */
+    List<CouponDistributionChunk> listCompleted(String couponActivityId);
+
+    /**
+     * 发放一批会员的优惠券
+     * 会员优惠券、批次记录与优惠券已领取数量在同一事务中写入，批次要么全部发放要么全部未发放
+     *
+     * @param chunk               批次，包含活动ID与会员ID区间
+     * @param memberIds           批次内的会员ID
+     * @param couponActivityItems 活动优惠券列表
+     * @param coupons             活动优惠券，key 为优惠券ID
+     * @return 发放的优惠券数量
+     */
+    int writeChunk(CouponDistributionChunk chunk, List<String> memberIds,
+                   List<CouponActivityItem> couponActivityItems, Map<String, Coupon> coupons);
+}
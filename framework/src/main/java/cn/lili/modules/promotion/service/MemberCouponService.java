@@ -8,6 +8,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -170,4 +171,11 @@ public interface MemberCouponService extends IService<MemberCoupon> {
      */
     long getMemberCouponNum(String memberId, String couponId);
 
+    /**
+     * 清除会员优惠券缓存，在事务中调用时于事务提交后清除
+     *
+     * @param memberIds 会员id列表
+     */
+    void removeMemberCouponCache(Collection<String> memberIds);
+
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package cn.lili.modules.promotion.serviceimpl;
+
+import cn.lili.modules.member.service.MemberService;
+import cn.lili.modules.promotion.entity.dos.Coupon;
+import cn.lili.modules.promotion.entity.dos.CouponActivityItem;
+import cn.lili.modules.promotion.entity.dos.CouponDistributionChunk;
+import cn.lili.modules.promotion.entity.dos.MemberCoupon;
+import cn.lili.modules.promotion.entity.enums.MemberCouponStatusEnum;
+import cn.lili.modules.promotion.mapper.CouponDistributionChunkMapper;
+import cn.lili.modules.promotion.service.CouponDistributionService;
+import cn.lili.modules.promotion.service.CouponService;
+import cn.lili.modules.promotion.service.MemberCouponService;
+import cn.lili.modules.promotion.tools.PromotionTools;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * 优惠券活动发券批次业务层实现
+ */
+@Service
+public class CouponDistributionServiceImpl extends ServiceImpl<CouponDistributionChunkMapper, CouponDistributionChunk> implements CouponDistributionService {
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private MemberCouponService memberCouponService;
+
+    @Autowired
+    private CouponService couponService;
+
+    @Override
+    public List<CouponDistributionChunk> listCompleted(String couponActivityId) {
+        LambdaQueryWrapper<CouponDistributionChunk> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(CouponDistributionChunk::getFirstMemberId, CouponDistributionChunk::getLastMemberId);
+        queryWrapper.eq(CouponDistributionChunk::getCouponActivityId, couponActivityId);
+        return this.list(queryWrapper);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int writeChunk(CouponDistributionChunk chunk, List<String> memberIds,
+                          List<CouponActivityItem> couponActivityItems, Map<String, Coupon> coupons) {
+        //会员ID为空时会查询全部会员，这里直接返回
+        if (memberIds == null || memberIds.isEmpty()) {
+            return 0;
+        }
+        List<Map<String, Object>> members = memberService.listFieldsByMemberIds("id,nick_name", memberIds);
+
+        List<MemberCoupon> memberCoupons = new ArrayList<>();
+        //按优惠券ID排序累加领取数量，并行批次以相同顺序更新优惠券，避免死锁
+        Map<String, Integer> receivedNum = new TreeMap<>();
+        for (CouponActivityItem couponActivityItem : couponActivityItems) {
+            Coupon coupon = coupons.get(couponActivityItem.getCouponId());
+            if (coupon == null || members.isEmpty()) {
+                continue;
+            }
+            for (Map<String, Object> member : members) {
+                for (int i = 0; i < couponActivityItem.getNum(); i++) {
+                    MemberCoupon memberCoupon = new MemberCoupon(coupon);
+                    memberCoupon.setMemberId(member.get("id").toString());
+                    memberCoupon.setMemberName(Objects.toString(member.get("nick_name"), null));
+                    memberCoupon.setMemberCouponStatus(MemberCouponStatusEnum.NEW.name());
+                    memberCoupon.setPlatformFlag(PromotionTools.PLATFORM_ID.equals(coupon.getStoreId()));
+                    memberCoupons.add(memberCoupon);
+                }
+            }
+            receivedNum.merge(coupon.getId(), members.size() * couponActivityItem.getNum(), Integer::sum);
+        }
+
+        //先写批次记录，同一区间被重复发放时在此处因唯一索引失败，不会写入优惠券
+        chunk.setMemberNum(members.size());
+        chunk.setCouponNum(memberCoupons.size());
+        this.save(chunk);
+        if (!memberCoupons.isEmpty()) {
+            memberCouponService.saveBatch(memberCoupons, memberCoupons.size());
+            memberCouponService.removeMemberCouponCache(memberIds);
+        }
+        receivedNum.forEach(couponService::receiveCoupon);
+        return memberCoupons.size();
+    }
+}
@@ -90,12 +90,10 @@ public class CouponServiceImpl extends AbstractPromotionsServiceImpl<CouponMappe
      */
     @Override
     public void receiveCoupon(String couponId, Integer receiveNum) {
-        Coupon coupon = this.getById(couponId);
-        if (coupon == null) {
+        //在数据库中累加，并发领取时不会覆盖
+        if (this.baseMapper.addReceivedNum(couponId, receiveNum) == 0) {
             throw new ServiceException(ResultCode.COUPON_NOT_EXIST);
         }
-        this.update(new LambdaUpdateWrapper<Coupon>().eq(Coupon::getId, coupon.getId()).set(Coupon::getReceivedNum,
-                coupon.getReceivedNum() + receiveNum));
     }
 
     @Override
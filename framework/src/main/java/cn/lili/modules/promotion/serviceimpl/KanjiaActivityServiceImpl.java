@@ -1,14 +1,12 @@
 package cn.lili.modules.promotion.serviceimpl;
 
 
-import cn.hutool.core.convert.Convert;
-import cn.hutool.core.util.RandomUtil;
 import cn.lili.common.enums.ResultCode;
 import cn.lili.common.exception.ServiceException;
 import cn.lili.common.security.AuthUser;
 import cn.lili.common.security.context.UserContext;
 import cn.lili.common.utils.BeanUtil;
-import cn.lili.common.utils.CurrencyUtil;
+import cn.lili.common.utils.SnowFlake;
 import cn.lili.common.vo.PageVO;
 import cn.lili.modules.goods.entity.dos.GoodsSku;
 import cn.lili.modules.goods.service.GoodsSkuService;
@@ -17,12 +15,15 @@ import cn.lili.modules.member.service.MemberService;
 import cn.lili.modules.promotion.entity.dos.KanjiaActivity;
 import cn.lili.modules.promotion.entity.dos.KanjiaActivityGoods;
 import cn.lili.modules.promotion.entity.dos.KanjiaActivityLog;
-import cn.lili.modules.promotion.entity.dto.KanjiaActivityDTO;
 import cn.lili.modules.promotion.entity.dto.search.KanjiaActivityQuery;
 import cn.lili.modules.promotion.entity.dto.search.KanjiaActivitySearchParams;
 import cn.lili.modules.promotion.entity.enums.KanJiaStatusEnum;
+import cn.lili.modules.promotion.entity.enums.KanjiaHelpResultEnum;
 import cn.lili.modules.promotion.entity.enums.PromotionsStatusEnum;
 import cn.lili.modules.promotion.entity.vos.kanjia.KanjiaActivityVO;
+import cn.lili.modules.promotion.kanjia.KanjiaBargainEngine;
+import cn.lili.modules.promotion.kanjia.KanjiaHelpLogWriter;
+import cn.lili.modules.promotion.kanjia.KanjiaHelpResult;
 import cn.lili.modules.promotion.mapper.KanJiaActivityMapper;
 import cn.lili.modules.promotion.service.KanjiaActivityGoodsService;
 import cn.lili.modules.promotion.service.KanjiaActivityLogService;
@@ -37,8 +38,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.Objects;
 
 
@@ -59,6 +58,10 @@ public class KanjiaActivityServiceImpl extends ServiceImpl<KanJiaActivityMapper,
     private MemberService memberService;
     @Autowired
     private GoodsSkuService goodsSkuService;
+    @Autowired
+    private KanjiaBargainEngine kanjiaBargainEngine;
+    @Autowired
+    private KanjiaHelpLogWriter kanjiaHelpLogWriter;
 
     @Override
     public KanjiaActivity getKanjiaActivity(KanjiaActivitySearchParams kanJiaActivitySearchParams) {
@@ -74,6 +77,7 @@ public class KanjiaActivityServiceImpl extends ServiceImpl<KanJiaActivityMapper,
         if (kanjiaActivity == null) {
             return kanjiaActivityVO;
         }
+        this.setSurplusPrice(kanjiaActivity);
         BeanUtil.copyProperties(kanjiaActivity, kanjiaActivityVO);
 
         //判断是否发起了砍价活动,如果发起可参与活动
@@ -134,6 +138,11 @@ public class KanjiaActivityServiceImpl extends ServiceImpl<KanJiaActivityMapper,
             //因为发起砍价就是自己给自己砍一刀，所以要添加砍价记录信息
             if (result) {
                 kanjiaActivityLog = this.helpKanJia(kanJiaActivity.getId());
+                //砍价活动与第一刀在同一事务中，剩余金额直接更新
+                this.update(new LambdaUpdateWrapper<KanjiaActivity>()
+                        .eq(KanjiaActivity::getId, kanJiaActivity.getId())
+                        .gt(KanjiaActivity::getSurplusPrice, kanjiaActivityLog.getSurplusPrice())
+                        .set(KanjiaActivity::getSurplusPrice, kanjiaActivityLog.getSurplusPrice()));
             }
         }
         return kanjiaActivityLog;
@@ -158,65 +167,49 @@ public class KanjiaActivityServiceImpl extends ServiceImpl<KanJiaActivityMapper,
         if (kanJiaActivityGoods == null) {
             throw new ServiceException(ResultCode.PROMOTION_STATUS_END);
         }
-        //判断是否已参与
-        LambdaQueryWrapper<KanjiaActivityLog> lambdaQueryWrapper = new LambdaQueryWrapper<KanjiaActivityLog>()
-                .eq(KanjiaActivityLog::getKanjiaActivityId, kanjiaActivityId)
-                .eq(KanjiaActivityLog::getKanjiaMemberId, member.getId());
-        if (kanjiaActivityLogService.count(lambdaQueryWrapper) > 0) {
+        //判断是否已参与、计算砍价金额并扣减剩余金额
+        KanjiaHelpResult helpResult = kanjiaBargainEngine.help(kanjiaActivity, kanJiaActivityGoods, member.getId());
+        if (KanjiaHelpResultEnum.DUPLICATE.equals(helpResult.getResult())) {
             throw new ServiceException(ResultCode.PROMOTION_LOG_EXIST);
+        } else if (KanjiaHelpResultEnum.ENDED.equals(helpResult.getResult())) {
+            throw new ServiceException(ResultCode.PROMOTION_STATUS_END);
         }
 
         //添加砍价记录
-        KanjiaActivityDTO kanjiaActivityDTO = new KanjiaActivityDTO();
-        kanjiaActivityDTO.setKanjiaActivityGoodsId(kanjiaActivity.getKanjiaActivityGoodsId());
-        kanjiaActivityDTO.setKanjiaActivityId(kanjiaActivityId);
-        //获取砍价金额
-        Double price = this.getKanjiaPrice(kanJiaActivityGoods, kanjiaActivity.getSurplusPrice());
-        kanjiaActivityDTO.setKanjiaPrice(price);
-        //计算剩余金额
-        kanjiaActivityDTO.setSurplusPrice(CurrencyUtil.sub(kanjiaActivity.getSurplusPrice(), price));
-        kanjiaActivityDTO.setKanjiaMemberId(member.getId());
-        kanjiaActivityDTO.setKanjiaMemberName(member.getUsername());
-        kanjiaActivityDTO.setKanjiaMemberFace(member.getFace());
-        KanjiaActivityLog kanjiaActivityLog = kanjiaActivityLogService.addKanJiaActivityLog(kanjiaActivityDTO);
-
-        //如果可砍金额为0的话说明活动成功了
-        if (Double.doubleToLongBits(kanjiaActivityDTO.getSurplusPrice()) == Double.doubleToLongBits(0D)) {
-            kanjiaActivity.setStatus(KanJiaStatusEnum.SUCCESS.name());
+        KanjiaActivityLog kanjiaActivityLog = new KanjiaActivityLog();
+        kanjiaActivityLog.setId(SnowFlake.getIdStr());
+        kanjiaActivityLog.setKanjiaActivityId(kanjiaActivityId);
+        kanjiaActivityLog.setKanjiaPrice(KanjiaBargainEngine.toPrice(helpResult.getKanjiaPrice()));
+        kanjiaActivityLog.setSurplusPrice(KanjiaBargainEngine.toPrice(helpResult.getSurplusPrice()));
+        kanjiaActivityLog.setKanjiaMemberId(member.getId());
+        kanjiaActivityLog.setKanjiaMemberName(member.getUsername());
+        kanjiaActivityLog.setKanjiaMemberFace(member.getFace());
+        kanjiaHelpLogWriter.add(kanjiaActivityLog);
+
+        //如果可砍金额为0的话说明活动成功了，立即更新，下单时按砍价活动状态校验
+        if (KanjiaHelpResultEnum.SUCCESS.equals(helpResult.getResult())) {
+            this.update(new LambdaUpdateWrapper<KanjiaActivity>()
+                    .eq(KanjiaActivity::getId, kanjiaActivityId)
+                    .eq(KanjiaActivity::getStatus, KanJiaStatusEnum.START.name())
+                    .set(KanjiaActivity::getSurplusPrice, kanjiaActivityLog.getSurplusPrice())
+                    .set(KanjiaActivity::getStatus, KanJiaStatusEnum.SUCCESS.name()));
         }
-        kanjiaActivity.setSurplusPrice(kanjiaActivityLog.getSurplusPrice());
-        this.updateById(kanjiaActivity);
         return kanjiaActivityLog;
     }
 
 
     /**
-     * 随机获取砍一刀价格
+     * 实时剩余金额覆盖入库的剩余金额，砍价记录批量入库前入库的剩余金额可能滞后
      *
-     * @param kanjiaActivityGoods 砍价商品信息
-     * @param surplusPrice        剩余可砍金额
-     * @return 砍一刀价格
+     * @param kanjiaActivity 砍价活动
      */
-    private Double getKanjiaPrice(KanjiaActivityGoods kanjiaActivityGoods, Double surplusPrice) {
-
-        //如果剩余砍价金额小于最低砍价金额则返回0
-        if (kanjiaActivityGoods.getLowestPrice() > surplusPrice) {
-            return surplusPrice;
-        }
-
-        //如果金额相等则直接返回
-        if (kanjiaActivityGoods.getLowestPrice().equals(kanjiaActivityGoods.getHighestPrice())) {
-            return kanjiaActivityGoods.getLowestPrice();
-        }
-        //获取随机砍价金额
-        BigDecimal bigDecimal = RandomUtil.randomBigDecimal(Convert.toBigDecimal(kanjiaActivityGoods.getLowestPrice()),
-                Convert.toBigDecimal(kanjiaActivityGoods.getHighestPrice()));
-
-        if(bigDecimal.setScale(2, RoundingMode.UP).doubleValue() > surplusPrice){
-            return surplusPrice;
+    private void setSurplusPrice(KanjiaActivity kanjiaActivity) {
+        if (KanJiaStatusEnum.START.name().equals(kanjiaActivity.getStatus())) {
+            Double surplusPrice = kanjiaBargainEngine.surplusPrice(kanjiaActivity.getId());
+            if (surplusPrice != null) {
+                kanjiaActivity.setSurplusPrice(surplusPrice);
+            }
         }
-        return bigDecimal.setScale(2, RoundingMode.UP).doubleValue();
-
     }
 
 
@@ -234,6 +227,7 @@ public class KanjiaActivityServiceImpl extends ServiceImpl<KanJiaActivityMapper,
      */
     @Override
     public boolean endKanjiaActivity(String kanjiaId) {
+        kanjiaBargainEngine.end(kanjiaId);
         return this.update(new LambdaUpdateWrapper<KanjiaActivity>()
                 .eq(KanjiaActivity::getId, kanjiaId)
                 .set(KanjiaActivity::getStatus, KanJiaStatusEnum.END.name()));
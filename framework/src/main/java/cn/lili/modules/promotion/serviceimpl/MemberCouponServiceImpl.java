@@ -33,8 +33,11 @@ import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * 会员优惠券业务层实现
@@ -46,6 +49,11 @@ import java.util.*;
 @CacheConfig(cacheNames = "{MemberCoupon}")
 public class MemberCouponServiceImpl extends ServiceImpl<MemberCouponMapper, MemberCoupon> implements MemberCouponService {
 
+    /**
+     * 会员优惠券缓存key前缀，与 @CacheConfig 的缓存名称对应
+     */
+    private static final String MEMBER_COUPON_CACHE_PREFIX = "{MemberCoupon}::";
+
     /**
      * 优惠券
      */
@@ -147,7 +155,7 @@ public class MemberCouponServiceImpl extends ServiceImpl<MemberCouponMapper, Mem
     @Cacheable(key = "#memberId")
     public List<MemberCoupon> getMemberCoupons(String memberId) {
         MemberCouponSearchParams searchParams = new MemberCouponSearchParams();
-        searchParams.setMemberId(Objects.requireNonNull(UserContext.getCurrentUser()).getId());
+        searchParams.setMemberId(memberId);
         searchParams.setMemberCouponStatus(MemberCouponStatusEnum.NEW.name());
         searchParams.setPromotionStatus(PromotionsStatusEnum.START.name());
         return this.getMemberCoupons(searchParams);
@@ -294,7 +302,12 @@ public class MemberCouponServiceImpl extends ServiceImpl<MemberCouponMapper, Mem
         updateWrapper.in(MemberCoupon::getId, memberCouponIds);
         updateWrapper.set(MemberCoupon::getMemberCouponStatus, MemberCouponStatusEnum.NEW.name());
         updateWrapper.set(MemberCoupon::getConsumptionTime, null);
-        return this.update(updateWrapper);
+        boolean result = this.update(updateWrapper);
+        //恢复的优惠券需重新出现在会员的可用优惠券中
+        List<MemberCoupon> memberCoupons = this.list(new LambdaQueryWrapper<MemberCoupon>()
+                .select(MemberCoupon::getMemberId).in(MemberCoupon::getId, memberCouponIds));
+        this.removeMemberCouponCache(memberCoupons.stream().map(MemberCoupon::getMemberId).collect(Collectors.toSet()));
+        return result;
     }
 
     @Override
@@ -303,6 +316,7 @@ public class MemberCouponServiceImpl extends ServiceImpl<MemberCouponMapper, Mem
         updateWrapper.in(MemberCoupon::getCouponId, couponId);
         updateWrapper.set(MemberCoupon::getMemberCouponStatus, MemberCouponStatusEnum.CLOSED.name());
         updateWrapper.set(MemberCoupon::getDeleteFlag, true);
+        this.cache.vagueDel("{MemberCoupon}");
         this.update(updateWrapper);
     }
 
@@ -352,6 +366,25 @@ public class MemberCouponServiceImpl extends ServiceImpl<MemberCouponMapper, Mem
         return this.update(updateWrapper);
     }
 
+    @Override
+    public void removeMemberCouponCache(Collection<String> memberIds) {
+        if (memberIds == null || memberIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = memberIds.stream().filter(Objects::nonNull).distinct()
+                .map(memberId -> MEMBER_COUPON_CACHE_PREFIX + memberId).collect(Collectors.toList());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.multiDel(keys);
+                }
+            });
+        } else {
+            cache.multiDel(keys);
+        }
+    }
+
     private void receiverCoupon(String couponId, String memberId, String memberName, Coupon coupon) {
         this.checkCouponLimit(couponId, memberId);
         MemberCoupon memberCoupon = new MemberCoupon(coupon);
@@ -23,6 +23,7 @@ import cn.lili.modules.promotion.entity.vos.PintuanMemberVO;
 import cn.lili.modules.promotion.entity.vos.PintuanShareVO;
 import cn.lili.modules.promotion.entity.vos.PintuanVO;
 import cn.lili.modules.promotion.mapper.PintuanMapper;
+import cn.lili.modules.promotion.pintuan.PintuanGroupEngine;
 import cn.lili.modules.promotion.service.PintuanService;
 import cn.lili.modules.promotion.service.PromotionGoodsService;
 import cn.lili.modules.promotion.tools.PromotionTools;
@@ -34,8 +35,9 @@ import cn.lili.trigger.util.DelayQueueTools;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 拼团业务层实现
@@ -66,6 +68,11 @@ public class PintuanServiceImpl extends AbstractPromotionsServiceImpl<PintuanMap
      */
     @Autowired
     private OrderService orderService;
+    /**
+     * 拼团成团引擎
+     */
+    @Autowired
+    private PintuanGroupEngine pintuanGroupEngine;
 
     /**
      * 延时任务
@@ -100,12 +107,13 @@ public class PintuanServiceImpl extends AbstractPromotionsServiceImpl<PintuanMap
         searchParams.setParentOrderSn("");
         searchParams.setMemberId("");
         List<Order> orders = orderService.queryListByParams(searchParams);
+        Map<String, Member> memberMap = this.memberMap(orders);
+        Map<String, Long> groupedNum = pintuanGroupEngine.groupedNum(orders.stream().map(Order::getSn).collect(Collectors.toList()));
         //遍历订单状态为已支付，为团长的拼团订单
         for (Order order : orders) {
-            Member member = memberService.getById(order.getMemberId());
-            PintuanMemberVO memberVO = new PintuanMemberVO(member);
+            PintuanMemberVO memberVO = new PintuanMemberVO(memberMap.get(order.getMemberId()));
             //获取已参团人数
-            this.setMemberVONum(memberVO, pintuan.getRequiredNum(), order.getSn());
+            this.setMemberVONum(memberVO, pintuan.getRequiredNum(), order, groupedNum.get(order.getSn()));
             memberVO.setOrderSn(order.getSn());
             if (memberVO.getToBeGroupedNum() > 0) {
                 members.add(memberVO);
@@ -214,12 +222,12 @@ public class PintuanServiceImpl extends AbstractPromotionsServiceImpl<PintuanMap
      * @param skuId          商品skuId（用于获取拼团商品信息）
      */
     private void setPintuanOrderInfo(List<Order> orders, PintuanShareVO pintuanShareVO, String skuId) {
+        Map<String, Member> memberMap = this.memberMap(orders);
         for (Order order : orders) {
             if (pintuanShareVO.getPintuanMemberVOS().stream().anyMatch(i -> i.getMemberId().equals(order.getMemberId()))) {
                 continue;
             }
-            Member member = memberService.getById(order.getMemberId());
-            PintuanMemberVO memberVO = new PintuanMemberVO(member);
+            PintuanMemberVO memberVO = new PintuanMemberVO(memberMap.get(order.getMemberId()));
             if (CharSequenceUtil.isEmpty(order.getParentOrderSn())) {
                 memberVO.setOrderSn("");
                 PromotionGoodsSearchParams searchParams = new PromotionGoodsSearchParams();
@@ -233,15 +241,38 @@ public class PintuanServiceImpl extends AbstractPromotionsServiceImpl<PintuanMap
                 pintuanShareVO.setPromotionGoods(promotionGoods);
                 Pintuan pintuanById = this.getById(order.getPromotionId());
                 //获取已参团人数
-                this.setMemberVONum(memberVO, pintuanById.getRequiredNum(), order.getSn());
+                this.setMemberVONum(memberVO, pintuanById.getRequiredNum(), order,
+                        pintuanGroupEngine.groupedNum(Collections.singletonList(order.getSn())).get(order.getSn()));
             }
             pintuanShareVO.getPintuanMemberVOS().add(memberVO);
         }
     }
 
-    private void setMemberVONum(PintuanMemberVO memberVO, Integer requiredNum, String orderSn) {
-        long count = this.orderService.queryCountByPromotion(PromotionTypeEnum.PINTUAN.name(), PayStatusEnum.PAID.name(), orderSn, orderSn);
-        Order order = orderService.getBySn(orderSn);
+    /**
+     * 批量获取订单会员
+     *
+     * @param orders 订单列表
+     * @return 会员id -> 会员
+     */
+    private Map<String, Member> memberMap(List<Order> orders) {
+        Set<String> memberIds = orders.stream().map(Order::getMemberId).collect(Collectors.toSet());
+        if (memberIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return memberService.listByIds(memberIds).stream().collect(Collectors.toMap(Member::getId, Function.identity(), (a, b) -> a));
+    }
+
+    /**
+     * 设置拼团人数
+     *
+     * @param memberVO    拼团会员
+     * @param requiredNum 成团人数
+     * @param order       开团订单
+     * @param groupedNum  团队成员存储中的已参团人数，为空时按订单统计
+     */
+    private void setMemberVONum(PintuanMemberVO memberVO, Integer requiredNum, Order order, Long groupedNum) {
+        long count = groupedNum != null ? groupedNum
+                : this.orderService.queryCountByPromotion(PromotionTypeEnum.PINTUAN.name(), PayStatusEnum.PAID.name(), order.getSn(), order.getSn());
         long toBoGrouped = requiredNum - count;
         if(order.getOrderStatus().equals(OrderStatusEnum.UNDELIVERED.name())){
             toBoGrouped = 0L;
@@ -0,0 +1,212 @@
+package cn.lili.modules.promotion.tools;
+
+import cn.lili.cache.CachePrefix;
+import cn.lili.common.enums.ResultCode;
+import cn.lili.common.exception.ServiceException;
+import cn.lili.common.properties.CouponDistributionProperties;
+import cn.lili.modules.promotion.entity.dos.Coupon;
+import cn.lili.modules.promotion.entity.dos.CouponActivityItem;
+import cn.lili.modules.promotion.entity.dos.CouponDistributionChunk;
+import cn.lili.modules.promotion.service.CouponActivityItemService;
+import cn.lili.modules.promotion.service.CouponDistributionService;
+import cn.lili.modules.promotion.service.CouponService;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 优惠券活动批量发券
+ * <p>
+ * 活动优惠券只查询一次，会员ID排序后按游标切分为固定大小的批次，在有界线程池中并行发放，
+ * 每批一个事务，批次记录与会员优惠券一同提交。发放中断后重新执行时，已完成批次覆盖的会员ID区间被跳过，
+ * 每个会员只会发放一次。同一活动同时只有一个节点发放。
+ */
+@Slf4j
+@Component
+public class CouponDistributor implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private CouponDistributionProperties couponDistributionProperties;
+
+    @Autowired
+    private CouponService couponService;
+
+    @Autowired
+    private CouponActivityItemService couponActivityItemService;
+
+    @Autowired
+    private CouponDistributionService couponDistributionService;
+
+    @Autowired
+    private RedissonClient redisson;
+
+    private ThreadPoolExecutor executor;
+
+    @Override
+    public void afterPropertiesSet() {
+        int threads = couponDistributionProperties.getThreads();
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                new CustomizableThreadFactory("coupon-distribution-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 向指定会员发放优惠券活动的优惠券
+     *
+     * @param couponActivityId 优惠券活动ID
+     * @param memberIds        会员ID
+     * @return 本次发放的优惠券数量，其他节点正在发放时返回 0
+     * @throws ServiceException 有批次发放失败，已完成的批次不回滚，重新执行时继续发放
+     */
+    public long distribute(String couponActivityId, List<String> memberIds) {
+        RLock lock = redisson.getLock(CachePrefix.COUPON_DISTRIBUTION_LOCK.getPrefix() + couponActivityId);
+        if (!lock.tryLock()) {
+            log.info("优惠券活动 {} 正在其他节点发放，本次跳过", couponActivityId);
+            return 0;
+        }
+        try {
+            return this.doDistribute(couponActivityId, memberIds);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long doDistribute(String couponActivityId, List<String> memberIds) {
+        long start = System.currentTimeMillis();
+        //活动优惠券只查询一次，供所有批次使用
+        List<CouponActivityItem> couponActivityItems = couponActivityItemService.getCouponActivityList(couponActivityId);
+        if (couponActivityItems.isEmpty() || memberIds == null || memberIds.isEmpty()) {
+            return 0;
+        }
+        Set<String> couponIds = couponActivityItems.stream().map(CouponActivityItem::getCouponId).collect(Collectors.toSet());
+        Map<String, Coupon> coupons = couponService.listByIds(couponIds).stream()
+                .collect(Collectors.toMap(Coupon::getId, Function.identity()));
+        couponIds.stream().filter(couponId -> !coupons.containsKey(couponId))
+                .forEach(couponId -> log.error("赠送优惠券失败,当前优惠券不存在:" + couponId));
+        if (coupons.isEmpty()) {
+            return 0;
+        }
+
+        //已完成批次的会员ID区间，key 为第一个会员ID，value 为最后一个会员ID
+        TreeMap<String, String> completed = new TreeMap<>();
+        for (CouponDistributionChunk chunk : couponDistributionService.listCompleted(couponActivityId)) {
+            completed.put(chunk.getFirstMemberId(), chunk.getLastMemberId());
+        }
+
+        String[] ids = memberIds.stream().filter(Objects::nonNull).distinct().sorted().toArray(String[]::new);
+        int chunkSize = couponDistributionProperties.getChunkSize();
+        int parallelism = couponDistributionProperties.getThreads();
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicLong issued = new AtomicLong();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        int chunks = 0;
+        int skipped = 0;
+        int cursor = 0;
+        while (cursor < ids.length && failure.get() == null) {
+            //游标落在已完成区间内，跳到区间之后
+            Map.Entry<String, String> done = completed.floorEntry(ids[cursor]);
+            if (done != null && ids[cursor].compareTo(done.getValue()) <= 0) {
+                int next = upperBound(ids, cursor, done.getValue());
+                skipped += next - cursor;
+                cursor = next;
+                continue;
+            }
+            //批次不跨越已完成区间，保证各批次区间互不重叠
+            Map.Entry<String, String> nextDone = completed.higherEntry(ids[cursor]);
+            int end = cursor + 1;
+            while (end < ids.length && end - cursor < chunkSize
+                    && (nextDone == null || ids[end].compareTo(nextDone.getKey()) < 0)) {
+                end++;
+            }
+            CouponDistributionChunk chunk = new CouponDistributionChunk();
+            chunk.setCouponActivityId(couponActivityId);
+            chunk.setFirstMemberId(ids[cursor]);
+            chunk.setLastMemberId(ids[end - 1]);
+            List<String> chunkMemberIds = new ArrayList<>(Arrays.asList(ids).subList(cursor, end));
+            this.submit(permits, () -> {
+                if (failure.get() != null) {
+                    return;
+                }
+                try {
+                    issued.addAndGet(couponDistributionService.writeChunk(chunk, chunkMemberIds, couponActivityItems, coupons));
+                } catch (DuplicateKeyException e) {
+                    log.info("优惠券活动 {} 会员区间 {} - {} 已发放，跳过", couponActivityId, chunk.getFirstMemberId(), chunk.getLastMemberId());
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            chunks++;
+            cursor = end;
+        }
+        this.await(permits, parallelism);
+
+        long cost = Math.max(System.currentTimeMillis() - start, 1);
+        if (failure.get() != null) {
+            log.error("优惠券活动 {} 发券中断，已发放优惠券 {} 张，重新执行时继续发放", couponActivityId, issued.get(), failure.get());
+            throw new ServiceException(ResultCode.COUPON_ACTIVITY_DISTRIBUTE_ERROR);
+        }
+        log.info("优惠券活动 {} 发券完成，会员 {} 人，批次 {}，跳过已发放会员 {} 人，发放优惠券 {} 张，耗时 {} ms，{} 张/秒",
+                couponActivityId, ids.length, chunks, skipped, issued.get(), cost, issued.get() * 1000 / cost);
+        return issued.get();
+    }
+
+    /**
+     * 提交一个批次，执行中的批次达到上限时阻塞等待，线程池满时由提交线程自行执行
+     */
+    private void submit(Semaphore permits, Runnable batch) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(ResultCode.COUPON_ACTIVITY_DISTRIBUTE_ERROR);
+        }
+        executor.execute(() -> {
+            try {
+                batch.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * 等待已提交的批次全部完成
+     */
+    private void await(Semaphore permits, int parallelism) {
+        try {
+            permits.acquire(parallelism);
+            permits.release(parallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(ResultCode.COUPON_ACTIVITY_DISTRIBUTE_ERROR);
+        }
+    }
+
+    /**
+     * 有序数组中第一个大于 value 的位置
+     */
+    private static int upperBound(String[] ids, int from, String value) {
+        int index = Arrays.binarySearch(ids, from, ids.length, value);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+}
@@ -0,0 +1,146 @@
+package cn.lili.modules.search.collector;
+
+import cn.lili.cache.CachePrefix;
+import cn.lili.modules.search.utils.HotWordsSketch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热词收集
+ * <p>
+ * 搜索词先计入本地 Top-K 统计，后台线程定时把增量通过一次 pipeline 写入热词 zset，并裁剪为固定大小。
+ * 热词分数按时间指数衰减：写入时乘以 2^((当前时间-基准时间)/半衰期)，越新的搜索权重越高，
+ * 已有分数无需改写。基准时间在每日热词统计清空 zset 时重置。
+ */
+@Slf4j
+@Component
+public class HotWordsCollector implements InitializingBean, DisposableBean {
+
+    /**
+     * 本地统计的热词数量
+     */
+    private static final int SKETCH_CAPACITY = 1000;
+
+    /**
+     * 热词 zset 保留的热词数量
+     */
+    public static final int MAX_SIZE = 1000;
+
+    /**
+     * 衰减半衰期，6小时
+     */
+    private static final long HALF_LIFE = 6 * 60 * 60 * 1000L;
+
+    /**
+     * 写入间隔，单位毫秒
+     */
+    private static final long FLUSH_INTERVAL = 10 * 1000L;
+
+    @Autowired
+    private RedisTemplate<Object, Object> redisTemplate;
+
+    private final HotWordsSketch sketch = new HotWordsSketch(SKETCH_CAPACITY);
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 记录搜索词
+     *
+     * @param keyword 搜索词
+     */
+    public void collect(String keyword) {
+        sketch.offer(keyword);
+    }
+
+    /**
+     * 直接增加热词分数，按当前衰减权重折算，与搜索产生的分数可比
+     *
+     * @param keyword 热词
+     * @param point   分数
+     */
+    public void incrementScore(String keyword, double point) {
+        redisTemplate.opsForZSet().incrementScore(CachePrefix.HOT_WORD.getPrefix(), keyword, point * this.currentWeight());
+    }
+
+    /**
+     * 当前时间的衰减权重，分数除以该值即为按当前时间折算的热度
+     *
+     * @return 权重
+     */
+    public double currentWeight() {
+        return Math.pow(2, (double) (System.currentTimeMillis() - this.landmark()) / HALF_LIFE);
+    }
+
+    /**
+     * 重置衰减基准时间，热词 zset 清空后调用
+     */
+    public void resetLandmark() {
+        redisTemplate.opsForValue().set(CachePrefix.HOT_WORD_LANDMARK.getPrefix(), System.currentTimeMillis());
+    }
+
+    private long landmark() {
+        String key = CachePrefix.HOT_WORD_LANDMARK.getPrefix();
+        Object landmark = redisTemplate.opsForValue().get(key);
+        if (landmark == null) {
+            redisTemplate.opsForValue().setIfAbsent(key, System.currentTimeMillis());
+            landmark = redisTemplate.opsForValue().get(key);
+        }
+        return landmark == null ? System.currentTimeMillis() : ((Number) landmark).longValue();
+    }
+
+    /**
+     * 将本地增量写入 Redis
+     */
+    public void flush() {
+        Map<String, Long> delta = sketch.drain();
+        if (delta.isEmpty()) {
+            return;
+        }
+        RedisSerializer<Object> keySerializer = (RedisSerializer<Object>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        try {
+            double weight = this.currentWeight();
+            byte[] rawKey = keySerializer.serialize(CachePrefix.HOT_WORD.getPrefix());
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                delta.forEach((word, count) -> connection.zIncrBy(rawKey, count * weight, valueSerializer.serialize(word)));
+                //只保留分数最高的 MAX_SIZE 个热词
+                connection.zRemRange(rawKey, 0, -MAX_SIZE - 1L);
+                return null;
+            });
+        } catch (Exception e) {
+            //增量写回本地，下次重试
+            delta.forEach(sketch::offer);
+            log.error("热词写入失败", e);
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("hot-words-flush-"));
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                log.error("热词刷新异常", e);
+            }
+        }, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+        flush();
+    }
+}
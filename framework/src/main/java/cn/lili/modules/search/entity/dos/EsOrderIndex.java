@@ -0,0 +1,244 @@
+package cn.lili.modules.search.entity.dos;
+
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.json.JSONUtil;
+import cn.lili.elasticsearch.EsSuffix;
+import cn.lili.modules.order.order.entity.dos.Order;
+import cn.lili.modules.order.order.entity.dos.OrderItem;
+import cn.lili.modules.order.order.entity.vo.OrderSimpleVO;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.elasticsearch.index.VersionType;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 订单索引
+ * <p>
+ * 订单列表查询的读模型，订单与子订单合并为一个文档，
+ * 由订单消息事件更新，定时任务与数据库校验修复。
+ */
+@Data
+@Document(indexName = "#{@elasticsearchProperties.indexPrefix}_" + EsSuffix.ORDER_INDEX_NAME, createIndex = false,
+        versionType = VersionType.EXTERNAL_GTE)
+@NoArgsConstructor
+public class EsOrderIndex implements Serializable {
+
+    private static final long serialVersionUID = -2385934756617318214L;
+
+    @Id
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "订单编号")
+    private String sn;
+
+    @Field(type = FieldType.Double)
+    @ApiModelProperty(value = "总价格")
+    private Double flowPrice;
+
+    @Field(type = FieldType.Long)
+    @ApiModelProperty(value = "创建时间")
+    private Long createTime;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "订单状态")
+    private String orderStatus;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "付款状态")
+    private String payStatus;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "支付方式")
+    private String paymentMethod;
+
+    @Field(type = FieldType.Long)
+    @ApiModelProperty(value = "支付时间")
+    private Long paymentTime;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "会员ID")
+    private String memberId;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "会员名称")
+    private String memberName;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "店铺ID")
+    private String storeId;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "店铺名称")
+    private String storeName;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "订单来源")
+    private String clientType;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "订单类型")
+    private String orderType;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "货运状态")
+    private String deliverStatus;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "订单促销类型")
+    private String orderPromotionType;
+
+    @Field(type = FieldType.Keyword, index = false)
+    @ApiModelProperty(value = "卖家订单备注")
+    private String sellerRemark;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "依赖订单编号")
+    private String parentOrderSn;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "促销活动ID")
+    private String promotionId;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "收件人姓名")
+    private String consigneeName;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "收件人手机")
+    private String consigneeMobile;
+
+    @Field(type = FieldType.Boolean)
+    @ApiModelProperty(value = "删除标志")
+    private Boolean deleteFlag;
+
+    @Field(type = FieldType.Object)
+    @ApiModelProperty(value = "子订单")
+    private List<EsOrderItemIndex> items;
+
+    /**
+     * 文档版本，取订单更新时间（未更新过取创建时间），较旧的数据不会覆盖已写入的较新文档
+     */
+    @Version
+    @Field(type = FieldType.Long)
+    @ApiModelProperty(value = "版本")
+    private Long version;
+
+    /**
+     * 文档内容摘要，与数据库构建的摘要不一致时说明索引已过期
+     */
+    @Field(type = FieldType.Keyword, index = false)
+    @ApiModelProperty(value = "内容摘要")
+    private String fingerprint;
+
+    public EsOrderIndex(Order order, List<OrderItem> orderItems) {
+        this.sn = order.getSn();
+        this.flowPrice = order.getFlowPrice();
+        this.createTime = time(order.getCreateTime());
+        this.orderStatus = order.getOrderStatus();
+        this.payStatus = order.getPayStatus();
+        this.paymentMethod = order.getPaymentMethod();
+        this.paymentTime = time(order.getPaymentTime());
+        this.memberId = order.getMemberId();
+        this.memberName = order.getMemberName();
+        this.storeId = order.getStoreId();
+        this.storeName = order.getStoreName();
+        this.clientType = order.getClientType();
+        this.orderType = order.getOrderType();
+        this.deliverStatus = order.getDeliverStatus();
+        this.orderPromotionType = order.getOrderPromotionType();
+        this.sellerRemark = order.getSellerRemark();
+        this.parentOrderSn = order.getParentOrderSn();
+        this.promotionId = order.getPromotionId();
+        this.consigneeName = order.getConsigneeName();
+        this.consigneeMobile = order.getConsigneeMobile();
+        this.deleteFlag = Boolean.TRUE.equals(order.getDeleteFlag());
+        this.items = orderItems.stream().map(EsOrderItemIndex::new).collect(Collectors.toList());
+        this.version = order.getUpdateTime() != null ? time(order.getUpdateTime()) : this.createTime;
+        this.fingerprint = SecureUtil.md5(JSONUtil.toJsonStr(this));
+    }
+
+    /**
+     * 转换为订单列表展示对象，子订单字段按原列表查询的格式拼接
+     *
+     * @return 订单简略信息
+     */
+    public OrderSimpleVO toOrderSimpleVO() {
+        OrderSimpleVO orderSimpleVO = new OrderSimpleVO();
+        orderSimpleVO.setSn(sn);
+        orderSimpleVO.setFlowPrice(flowPrice);
+        orderSimpleVO.setCreateTime(date(createTime));
+        orderSimpleVO.setOrderStatus(orderStatus);
+        orderSimpleVO.setPayStatus(payStatus);
+        orderSimpleVO.setPaymentMethod(paymentMethod);
+        orderSimpleVO.setPaymentTime(date(paymentTime));
+        orderSimpleVO.setMemberId(memberId);
+        orderSimpleVO.setMemberName(memberName);
+        orderSimpleVO.setStoreName(storeName);
+        orderSimpleVO.setStoreId(storeId);
+        orderSimpleVO.setClientType(clientType);
+        orderSimpleVO.setOrderType(orderType);
+        orderSimpleVO.setDeliverStatus(deliverStatus);
+        orderSimpleVO.setOrderPromotionType(orderPromotionType);
+        orderSimpleVO.setSellerRemark(sellerRemark);
+        orderSimpleVO.setGroupGoodsId(this.join(EsOrderItemIndex::getGoodsId));
+        orderSimpleVO.setGroupSkuId(this.join(EsOrderItemIndex::getSkuId));
+        orderSimpleVO.setGroupNum(this.join(EsOrderItemIndex::getNum));
+        orderSimpleVO.setGroupImages(this.join(EsOrderItemIndex::getImage));
+        orderSimpleVO.setGroupName(this.join(EsOrderItemIndex::getGoodsName));
+        orderSimpleVO.setGroupAfterSaleStatus(this.join(EsOrderItemIndex::getAfterSaleStatus));
+        orderSimpleVO.setGroupComplainStatus(this.join(EsOrderItemIndex::getComplainStatus));
+        orderSimpleVO.setGroupCommentStatus(this.join(EsOrderItemIndex::getCommentStatus));
+        orderSimpleVO.setGroupOrderItemsSn(this.join(EsOrderItemIndex::getSn));
+        orderSimpleVO.setGroupGoodsPrice(this.join(EsOrderItemIndex::getGoodsPrice));
+        orderSimpleVO.setGroupIsRefund(this.join(EsOrderItemIndex::getIsRefund));
+        orderSimpleVO.setGroupRefundPrice(this.join(EsOrderItemIndex::getRefundPrice));
+        return orderSimpleVO;
+    }
+
+    /**
+     * 按 GROUP_CONCAT 的规则拼接子订单字段：忽略空值，全部为空时返回null
+     */
+    private String join(Function<EsOrderItemIndex, Object> getter) {
+        if (items == null || items.isEmpty()) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(items.size());
+        for (EsOrderItemIndex item : items) {
+            Object value = getter.apply(item);
+            if (value != null) {
+                values.add(value.toString());
+            }
+        }
+        return values.isEmpty() ? null : String.join(",", values);
+    }
+
+    private static Long time(Date date) {
+        return date == null ? null : date.getTime();
+    }
+
+    private static Date date(Long time) {
+        return time == null ? null : new Date(time);
+    }
+
+    /**
+     * 是否与另一个文档内容一致
+     *
+     * @param other 文档
+     * @return 是否一致
+     */
+    public boolean sameContent(EsOrderIndex other) {
+        return other != null && Objects.equals(fingerprint, other.getFingerprint());
+    }
+}
@@ -0,0 +1,83 @@
+package cn.lili.modules.search.entity.dos;
+
+import cn.lili.modules.order.order.entity.dos.OrderItem;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.io.Serializable;
+
+/**
+ * 订单索引中的子订单
+ */
+@Data
+@NoArgsConstructor
+public class EsOrderItemIndex implements Serializable {
+
+    private static final long serialVersionUID = 3129850271093811460L;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "子订单编号")
+    private String sn;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "商品ID")
+    private String goodsId;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "货品ID")
+    private String skuId;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "商品名称")
+    private String goodsName;
+
+    @Field(type = FieldType.Keyword, index = false)
+    @ApiModelProperty(value = "图片")
+    private String image;
+
+    @Field(type = FieldType.Integer, index = false)
+    @ApiModelProperty(value = "销售量")
+    private Integer num;
+
+    @Field(type = FieldType.Double, index = false)
+    @ApiModelProperty(value = "商品价格")
+    private Double goodsPrice;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "评论状态")
+    private String commentStatus;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "售后状态")
+    private String afterSaleStatus;
+
+    @Field(type = FieldType.Keyword)
+    @ApiModelProperty(value = "投诉状态")
+    private String complainStatus;
+
+    @Field(type = FieldType.Keyword, index = false)
+    @ApiModelProperty(value = "是否退款")
+    private String isRefund;
+
+    @Field(type = FieldType.Double, index = false)
+    @ApiModelProperty(value = "退款金额")
+    private Double refundPrice;
+
+    public EsOrderItemIndex(OrderItem orderItem) {
+        this.sn = orderItem.getSn();
+        this.goodsId = orderItem.getGoodsId();
+        this.skuId = orderItem.getSkuId();
+        this.goodsName = orderItem.getGoodsName();
+        this.image = orderItem.getImage();
+        this.num = orderItem.getNum();
+        this.goodsPrice = orderItem.getGoodsPrice();
+        this.commentStatus = orderItem.getCommentStatus();
+        this.afterSaleStatus = orderItem.getAfterSaleStatus();
+        this.complainStatus = orderItem.getComplainStatus();
+        this.isRefund = orderItem.getIsRefund();
+        this.refundPrice = orderItem.getRefundPrice();
+    }
+}
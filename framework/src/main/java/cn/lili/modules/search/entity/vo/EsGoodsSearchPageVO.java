@@ -0,0 +1,41 @@
+package cn.lili.modules.search.entity.vo;
+
+import cn.lili.modules.search.entity.dos.EsGoodsIndex;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 商品搜索结果缓存
+ */
+@Data
+public class EsGoodsSearchPageVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 商品
+     */
+    private List<EsGoodsIndex> records;
+
+    /**
+     * 总数
+     */
+    private long total;
+
+    /**
+     * 每页数量
+     */
+    private long size;
+
+    /**
+     * 当前页
+     */
+    private long current;
+
+    /**
+     * 总页数
+     */
+    private long pages;
+}
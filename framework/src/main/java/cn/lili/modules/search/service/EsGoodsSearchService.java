@@ -47,6 +47,19 @@ public interface EsGoodsSearchService {
      */
     Page<EsGoodsIndex> searchGoodsByPage(EsGoodsSearchDTO searchDTO, PageVO pageVo);
 
+    /**
+     * 商品索引版本递增
+     * 索引创建、重建以及按条件批量变更后调用，之前缓存的搜索结果不再命中，各节点重新检测索引是否存在。
+     * 单个商品的变更不调用，搜索结果最多延迟缓存时间
+     */
+    void refreshIndexVersion();
+
+    /**
+     * 重新检测商品索引是否存在
+     * 启动及重建索引后调用
+     */
+    void refreshIndexExists();
+
     /**
      * 获取筛选器
      *
@@ -436,7 +436,10 @@ public class EsGoodsIndexServiceImpl extends BaseElasticsearchService implements
             log.info("初始化索引结构 {}", indexName);
             //如果索引不存在，则创建索引
             createIndexRequest(indexName);
+            //通知其他节点重新检测索引是否存在
+            goodsSearchService.refreshIndexVersion();
         }
+        goodsSearchService.refreshIndexExists();
 
     }
 
@@ -553,6 +556,7 @@ public class EsGoodsIndexServiceImpl extends BaseElasticsearchService implements
         this.client.updateByQueryAsync(update, RequestOptions.DEFAULT, new ActionListener<BulkByScrollResponse>() {
             @Override
             public void onResponse(BulkByScrollResponse bulkByScrollResponse) {
+                goodsSearchService.refreshIndexVersion();
                 if (bulkByScrollResponse.getVersionConflicts() > 0) {
                     throw new RetryException("更新商品索引失败，es内容版本冲突");
                 }
@@ -618,6 +622,7 @@ public class EsGoodsIndexServiceImpl extends BaseElasticsearchService implements
 
         try {
             this.client.deleteByQuery(deleteByQueryRequest, RequestOptions.DEFAULT);
+            goodsSearchService.refreshIndexVersion();
         } catch (IOException e) {
             log.error("删除索引出现异常", e);
         }
@@ -682,6 +687,9 @@ public class EsGoodsIndexServiceImpl extends BaseElasticsearchService implements
             }
             //如果索引不存在，则创建索引
             this.createIndexRequest(indexName);
+            //通知其他节点重新检测索引是否存在
+            goodsSearchService.refreshIndexVersion();
+            goodsSearchService.refreshIndexExists();
         }
 
         Map<String, Long> resultMap = (Map<String, Long>) cache.get(CachePrefix.INIT_INDEX_PROCESS.getPrefix());
@@ -700,6 +708,7 @@ public class EsGoodsIndexServiceImpl extends BaseElasticsearchService implements
             }
         }
         cache.put(CachePrefix.INIT_INDEX_PROCESS.getPrefix(), resultMap);
+        goodsSearchService.refreshIndexVersion();
     }
 
     @Override
@@ -909,6 +918,7 @@ public class EsGoodsIndexServiceImpl extends BaseElasticsearchService implements
             }
             goodsIndexRepository.saveAll(all);
         }
+        goodsSearchService.refreshIndexVersion();
     }
 
 
@@ -1049,6 +1059,7 @@ public class EsGoodsIndexServiceImpl extends BaseElasticsearchService implements
         this.client.bulkAsync(bulkRequest, RequestOptions.DEFAULT, new ActionListener<BulkResponse>() {
             @Override
             public void onResponse(BulkResponse bulkItemResponses) {
+                goodsSearchService.refreshIndexVersion();
                 if (bulkItemResponses.hasFailures()) {
                     log.info("批量更新商品索引的促销信息中出现部分异常：{}", bulkItemResponses.buildFailureMessage());
                 } else {
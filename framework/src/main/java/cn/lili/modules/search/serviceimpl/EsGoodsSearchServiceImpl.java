@@ -1,19 +1,25 @@
 package cn.lili.modules.search.serviceimpl;
 
+import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.convert.Convert;
 import cn.hutool.core.text.CharSequenceUtil;
 import cn.hutool.core.util.ArrayUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.json.JSONUtil;
 import cn.lili.cache.Cache;
 import cn.lili.cache.CachePrefix;
 import cn.lili.common.exception.ServiceException;
 import cn.lili.common.vo.PageVO;
+import cn.lili.elasticsearch.config.ElasticsearchProperties;
 import cn.lili.modules.goods.entity.enums.GoodsAuthEnum;
 import cn.lili.modules.goods.entity.enums.GoodsStatusEnum;
+import cn.lili.modules.search.collector.HotWordsCollector;
 import cn.lili.modules.search.entity.dos.EsGoodsIndex;
 import cn.lili.modules.search.entity.dos.EsGoodsRelatedInfo;
 import cn.lili.modules.search.entity.dto.EsGoodsSearchDTO;
 import cn.lili.modules.search.entity.dto.ParamOptions;
 import cn.lili.modules.search.entity.dto.SelectorOptions;
+import cn.lili.modules.search.entity.vo.EsGoodsSearchPageVO;
 import cn.lili.modules.search.service.EsGoodsSearchService;
 import cn.lili.modules.search.utils.SqlFilter;
 import com.alibaba.druid.util.StringUtils;
@@ -82,14 +88,27 @@ public class EsGoodsSearchServiceImpl implements EsGoodsSearchService {
     @Autowired
     private Cache<Object> cache;
 
+    @Autowired
+    private ElasticsearchProperties elasticsearchProperties;
+    /**
+     * 热词收集
+     */
+    @Autowired
+    private HotWordsCollector hotWordsCollector;
+
+    /**
+     * 商品索引是否存在，启动及索引版本变化时检测
+     */
+    private volatile boolean indexExists;
+
+    /**
+     * 上次检测索引是否存在时的索引版本
+     */
+    private volatile String indexExistsVersion;
+
     @Override
     public SearchPage<EsGoodsIndex> searchGoods(EsGoodsSearchDTO searchDTO, PageVO pageVo) {
-
-        //如果搜索词不为空，且明显不是sql注入，那么就将搜索词加入热搜词
-        //PS:线上环境运行很多客户反馈被sql攻击，写在了搜索热词里，这里控制命中关键字就不做热词统计，如果线上比较严格可以调用关键词替换，不过不建议这么做
-        if (CharSequenceUtil.isNotBlank(searchDTO.getKeyword()) && Boolean.FALSE.equals(SqlFilter.hit(searchDTO.getKeyword()))) {
-            cache.incrementScore(CachePrefix.HOT_WORD.getPrefix(), searchDTO.getKeyword());
-        }
+        this.recordHotWord(searchDTO);
         NativeSearchQueryBuilder searchQueryBuilder = createSearchQueryBuilder(searchDTO, pageVo);
 //        searchQueryBuilder.withCollapseField("goodsId.keyword");
         NativeSearchQuery searchQuery = searchQueryBuilder.build();
@@ -107,12 +126,91 @@ public class EsGoodsSearchServiceImpl implements EsGoodsSearchService {
 
     @Override
     public Page<EsGoodsIndex> searchGoodsByPage(EsGoodsSearchDTO searchDTO, PageVO pageVo) {
+        String version = this.getIndexVersion();
         // 判断商品索引是否存在
-        if (!restTemplate.indexOps(EsGoodsIndex.class).exists()) {
+        if (!this.goodsIndexExists(version)) {
             return null;
         }
+        if (!Boolean.TRUE.equals(elasticsearchProperties.getSearchCache())) {
+            return this.toPage(this.searchGoods(searchDTO, pageVo));
+        }
+
+        String cacheKey = CachePrefix.GOODS_SEARCH.getPrefix() + version + "_" + this.searchDigest(searchDTO, pageVo);
+        Object cached = cache.get(cacheKey);
+        if (cached instanceof EsGoodsSearchPageVO) {
+            //命中缓存时热词照常统计
+            this.recordHotWord(searchDTO);
+            return this.toPage((EsGoodsSearchPageVO) cached);
+        }
+
+        Page<EsGoodsIndex> resultPage = this.toPage(this.searchGoods(searchDTO, pageVo));
+        EsGoodsSearchPageVO searchPageVO = new EsGoodsSearchPageVO();
+        searchPageVO.setRecords(resultPage.getRecords());
+        searchPageVO.setTotal(resultPage.getTotal());
+        searchPageVO.setSize(resultPage.getSize());
+        searchPageVO.setCurrent(resultPage.getCurrent());
+        searchPageVO.setPages(resultPage.getPages());
+        cache.put(cacheKey, searchPageVO, elasticsearchProperties.getSearchCacheTime());
+        return resultPage;
+    }
+
+    @Override
+    public void refreshIndexVersion() {
+        cache.incr(CachePrefix.GOODS_INDEX_VERSION.getPrefix());
+    }
+
+    @Override
+    public void refreshIndexExists() {
+        indexExistsVersion = this.getIndexVersion();
+        indexExists = restTemplate.indexOps(EsGoodsIndex.class).exists();
+    }
+
+    /**
+     * 商品索引是否存在
+     * 索引版本变化（其他节点创建、重建索引）后重新检测，存在与不存在均以检测结果为准
+     *
+     * @param version 当前索引版本
+     * @return 是否存在
+     */
+    private boolean goodsIndexExists(String version) {
+        if (!version.equals(indexExistsVersion)) {
+            this.refreshIndexExists();
+        }
+        return indexExists;
+    }
+
+    /**
+     * 获取当前商品索引版本
+     *
+     * @return 索引版本
+     */
+    private String getIndexVersion() {
+        String version = cache.getString(CachePrefix.GOODS_INDEX_VERSION.getPrefix());
+        return version == null ? "0" : version;
+    }
 
-        SearchPage<EsGoodsIndex> esGoodsIndices = this.searchGoods(searchDTO, pageVo);
+    /**
+     * 搜索条件摘要，参数按名称排序并忽略空值，相同条件得到相同摘要
+     *
+     * @param searchDTO 搜索参数
+     * @param pageVo    分页参数
+     * @return 摘要
+     */
+    private String searchDigest(EsGoodsSearchDTO searchDTO, PageVO pageVo) {
+        Map<String, Object> params = new TreeMap<>();
+        BeanUtil.beanToMap(searchDTO, false, true).forEach((key, value) -> {
+            if (value instanceof Map) {
+                value = new TreeMap<>((Map<?, ?>) value);
+            }
+            params.put(key, value);
+        });
+        if (pageVo != null) {
+            BeanUtil.beanToMap(pageVo, false, true).forEach((key, value) -> params.put("page." + key, value));
+        }
+        return SecureUtil.md5(JSONUtil.toJsonStr(params));
+    }
+
+    private Page<EsGoodsIndex> toPage(SearchPage<EsGoodsIndex> esGoodsIndices) {
         Page<EsGoodsIndex> resultPage = new Page<>();
         if (esGoodsIndices != null && !esGoodsIndices.getContent().isEmpty()) {
             List<EsGoodsIndex> collect = esGoodsIndices.getSearchHits().getSearchHits().stream().map(SearchHit::getContent).collect(Collectors.toList());
@@ -125,10 +223,34 @@ public class EsGoodsSearchServiceImpl implements EsGoodsSearchService {
         return resultPage;
     }
 
+    private Page<EsGoodsIndex> toPage(EsGoodsSearchPageVO searchPageVO) {
+        Page<EsGoodsIndex> resultPage = new Page<>();
+        if (searchPageVO.getRecords() != null && !searchPageVO.getRecords().isEmpty()) {
+            resultPage.setRecords(searchPageVO.getRecords());
+            resultPage.setPages(searchPageVO.getPages());
+            resultPage.setCurrent(searchPageVO.getCurrent());
+            resultPage.setSize(searchPageVO.getSize());
+            resultPage.setTotal(searchPageVO.getTotal());
+        }
+        return resultPage;
+    }
+
+    /**
+     * 如果搜索词不为空，且明显不是sql注入，那么就将搜索词加入热搜词
+     * PS:线上环境运行很多客户反馈被sql攻击，写在了搜索热词里，这里控制命中关键字就不做热词统计，如果线上比较严格可以调用关键词替换，不过不建议这么做
+     *
+     * @param searchDTO 搜索参数
+     */
+    private void recordHotWord(EsGoodsSearchDTO searchDTO) {
+        if (CharSequenceUtil.isNotBlank(searchDTO.getKeyword()) && Boolean.FALSE.equals(SqlFilter.hit(searchDTO.getKeyword()))) {
+            hotWordsCollector.collect(searchDTO.getKeyword());
+        }
+    }
+
     @Override
     public EsGoodsRelatedInfo getSelector(EsGoodsSearchDTO goodsSearch, PageVO pageVo) {
         // 判断商品索引是否存在
-        if (!restTemplate.indexOps(EsGoodsIndex.class).exists()) {
+        if (!this.goodsIndexExists(this.getIndexVersion())) {
             return null;
         }
         NativeSearchQueryBuilder builder = createSearchQueryBuilder(goodsSearch, null);
@@ -2,6 +2,7 @@ package cn.lili.modules.search.serviceimpl;
 
 import cn.lili.cache.Cache;
 import cn.lili.cache.CachePrefix;
+import cn.lili.modules.search.collector.HotWordsCollector;
 import cn.lili.modules.search.entity.dos.HotWordsHistory;
 import cn.lili.modules.search.entity.dto.HotWordsDTO;
 import cn.lili.modules.search.mapper.HotWordsHistoryMapper;
@@ -33,6 +34,12 @@ public class HotWordsServiceImpl implements HotWordsService {
     @Autowired
     private Cache<Object> cache;
 
+    /**
+     * 热词收集
+     */
+    @Autowired
+    private HotWordsCollector hotWordsCollector;
+
     @Override
     public List<String> getHotWords(Integer count) {
         if (count == null) {
@@ -63,10 +70,12 @@ public class HotWordsServiceImpl implements HotWordsService {
         if (set == null || set.isEmpty()) {
             return new ArrayList<>();
         }
+        //分数为衰减加权值，折算为当前时间的热度
+        double weight = hotWordsCollector.currentWeight();
         for (ZSetOperations.TypedTuple<Object> defaultTypedTuple : set) {
             try {
                 hotWords.add(new HotWordsHistory(defaultTypedTuple.getValue().toString(),
-                        defaultTypedTuple.getScore().intValue()));
+                        (int) Math.round(defaultTypedTuple.getScore() / weight)));
             } catch (Exception e) {
                 log.error("读取热词错误", e);
             }
@@ -80,7 +89,7 @@ public class HotWordsServiceImpl implements HotWordsService {
 
     @Override
     public void setHotWords(HotWordsDTO hotWords) {
-        cache.incrementScore(CachePrefix.HOT_WORD.getPrefix(), hotWords.getKeywords(), hotWords.getPoint());
+        hotWordsCollector.incrementScore(hotWords.getKeywords(), hotWords.getPoint());
     }
 
     /**
@@ -0,0 +1,141 @@
+package cn.lili.modules.search.utils;
+
+import java.util.*;
+
+/**
+ * 热词 Top-K 统计（Space-Saving 算法）
+ * <p>
+ * 最多保留 capacity 个计数器，内存固定。新词进入且计数器已满时，替换当前计数最小的词，
+ * 新词继承其计数并记为误差，计数为真实值的上界，误差不超过 总数/capacity。
+ */
+public class HotWordsSketch {
+
+    /**
+     * 计数器数量上限
+     */
+    private final int capacity;
+
+    private final Map<String, Counter> counters;
+
+    /**
+     * 按计数升序排列，首个元素为最小计数
+     */
+    private final TreeSet<Counter> ordered = new TreeSet<>(
+            Comparator.comparingLong((Counter c) -> c.count).thenComparingLong(c -> c.sequence));
+
+    private long sequence;
+
+    public HotWordsSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * 记录一次出现
+     *
+     * @param word 词
+     */
+    public void offer(String word) {
+        this.offer(word, 1);
+    }
+
+    /**
+     * 记录出现次数
+     *
+     * @param word   词
+     * @param weight 次数
+     */
+    public synchronized void offer(String word, long weight) {
+        Counter counter = counters.get(word);
+        if (counter != null) {
+            ordered.remove(counter);
+            counter.count += weight;
+            ordered.add(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counter = new Counter(word, weight, 0, sequence++);
+        } else {
+            Counter min = ordered.pollFirst();
+            counters.remove(min.word);
+            counter = new Counter(word, min.count + weight, min.count, sequence++);
+        }
+        counters.put(word, counter);
+        ordered.add(counter);
+    }
+
+    /**
+     * 计数最高的 n 个词，按计数降序
+     *
+     * @param n 数量
+     * @return 词及计数
+     */
+    public synchronized List<Counter> top(int n) {
+        List<Counter> result = new ArrayList<>(Math.min(n, counters.size()));
+        Iterator<Counter> iterator = ordered.descendingIterator();
+        while (iterator.hasNext() && result.size() < n) {
+            result.add(iterator.next().copy());
+        }
+        return result;
+    }
+
+    /**
+     * 取出全部计数并清空
+     *
+     * @return 词及计数
+     */
+    public synchronized Map<String, Long> drain() {
+        Map<String, Long> result = new HashMap<>(counters.size() * 2);
+        counters.forEach((word, counter) -> result.put(word, counter.count));
+        counters.clear();
+        ordered.clear();
+        return result;
+    }
+
+    public synchronized int size() {
+        return counters.size();
+    }
+
+    /**
+     * 计数器
+     */
+    public static class Counter {
+
+        private final String word;
+
+        private long count;
+
+        /**
+         * 替换时继承的计数，真实计数不小于 count - error
+         */
+        private final long error;
+
+        private final long sequence;
+
+        private Counter(String word, long count, long error, long sequence) {
+            this.word = word;
+            this.count = count;
+            this.error = error;
+            this.sequence = sequence;
+        }
+
+        private Counter copy() {
+            return new Counter(word, count, error, sequence);
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+    }
+}
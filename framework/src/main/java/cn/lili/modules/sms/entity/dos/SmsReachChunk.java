@@ -0,0 +1,62 @@
+package cn.lili.modules.sms.entity.dos;
+
+import cn.lili.modules.sms.entity.enums.SmsChunkStatusEnum;
+import cn.lili.mybatis.BaseIdEntity;
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.util.Date;
+
+/**
+ * 短信任务分组
+ * 短信任务的手机号排序去重后按顺序切分为分组，每组一次请求，记录发送状态用于中断后继续发送和失败重发
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+@TableName("li_sms_reach_chunk")
+@ApiModel(value = "短信任务分组")
+public class SmsReachChunk extends BaseIdEntity {
+
+    private static final long serialVersionUID = 1L;
+
+    @ApiModelProperty(value = "短信任务id")
+    private String reachId;
+
+    @ApiModelProperty(value = "分组序号，从 0 开始")
+    private Integer chunkIndex;
+
+    @ApiModelProperty(value = "接收手机号，多个以逗号分隔")
+    private String mobile;
+
+    @ApiModelProperty(value = "分组最后一个手机号，继续切分时从该手机号之后开始")
+    private String lastMobile;
+
+    @ApiModelProperty(value = "手机号数量")
+    private Integer mobileNum;
+
+    /**
+     * @see SmsChunkStatusEnum
+     */
+    @ApiModelProperty(value = "发送状态")
+    private String status;
+
+    @ApiModelProperty(value = "已发送次数")
+    private Integer sendTimes;
+
+    @ApiModelProperty(value = "最后一次失败原因")
+    private String errorMessage;
+
+    @JsonFormat(timezone = "GMT+8", pattern = "yyyy-MM-dd HH:mm:ss")
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @TableField(fill = FieldFill.INSERT)
+    @ApiModelProperty(value = "创建时间", hidden = true)
+    private Date createTime;
+
+}
@@ -14,4 +14,9 @@ import java.util.List;
 public class SmsReachDTO extends SmsReach {
 
     private List<String> mobile;
+
+    /**
+     * 是否只重发未成功的分组，不再切分新的分组
+     */
+    private Boolean retry;
 }
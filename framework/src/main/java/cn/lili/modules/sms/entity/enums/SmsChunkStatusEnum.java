@@ -0,0 +1,24 @@
+package cn.lili.modules.sms.entity.enums;
+
+/**
+ * 短信任务分组状态
+ */
+public enum SmsChunkStatusEnum {
+
+    /**
+     * 待发送
+     */
+    WAIT,
+    /**
+     * 发送中，进程中断时停留在该状态，重新执行时以相同流水号重发
+     */
+    SENDING,
+    /**
+     * 发送成功
+     */
+    SUCCESS,
+    /**
+     * 多次重试后仍发送失败
+     */
+    FAIL
+}
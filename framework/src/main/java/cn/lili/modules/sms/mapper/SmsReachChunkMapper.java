@@ -0,0 +1,11 @@
+package cn.lili.modules.sms.mapper;
+
+import cn.lili.modules.sms.entity.dos.SmsReachChunk;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+/**
+ * 短信任务分组数据处理层
+ */
+public interface SmsReachChunkMapper extends BaseMapper<SmsReachChunk> {
+
+}
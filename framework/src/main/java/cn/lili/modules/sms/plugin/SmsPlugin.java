@@ -39,6 +39,17 @@ public interface SmsPlugin {
      */
     void sendBatchSms(String signName, List<String> mobile, String templateCode);
 
+    /**
+     * 短信分组发送
+     * 一次请求发送一组手机号，不超过通道单次请求的手机号上限，请求失败时抛出异常由调用方重试
+     *
+     * @param signName     签名
+     * @param mobile       接收手机号
+     * @param templateCode 模版code
+     * @param outId        分组流水号，同一分组重发时不变，随请求传给通道，通道不按流水号去重时重发可能重复下发
+     */
+    void sendChunkSms(String signName, List<String> mobile, String templateCode, String outId);
+
 
     /**
      * 申请短信签名
@@ -13,7 +13,7 @@ import com.aliyun.dysmsapi20170525.models.*;
 import com.aliyun.teaopenapi.models.Config;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +29,11 @@ public class AliSmsPlugin implements SmsPlugin {
 
     private SmsSetting smsSetting;
 
+    /**
+     * 短信操作Client，同一插件实例复用
+     */
+    private volatile com.aliyun.dysmsapi20170525.Client client;
+
     public AliSmsPlugin(SmsSetting smsSetting) {
         this.smsSetting = smsSetting;
     }
@@ -59,40 +64,32 @@ public class AliSmsPlugin implements SmsPlugin {
 
     @Override
     public void sendBatchSms(String signName, List<String> mobile, String templateCode) {
-
-        com.aliyun.dysmsapi20170525.Client client = this.createClient();
-
-        List<String> sign = new ArrayList<String>();
-
-        sign.addAll(mobile);
-        sign.replaceAll(e -> signName);
-
         //手机号拆成多个小组进行发送
-        List<List<String>> mobileList = new ArrayList<>();
-
-        //签名名称多个小组
-        List<List<String>> signNameList = new ArrayList<>();
-
-        //循环分组
-        for (int i = 0; i < (mobile.size() / 100 + (mobile.size() % 100 == 0 ? 0 : 1)); i++) {
-            int endPoint = Math.min((100 + (i * 100)), mobile.size());
-            mobileList.add(mobile.subList((i * 100), endPoint));
-            signNameList.add(sign.subList((i * 100), endPoint));
-        }
-
-//       //发送短信
-        for (int i = 0; i < mobileList.size(); i++) {
-            SendBatchSmsRequest sendBatchSmsRequest = new SendBatchSmsRequest()
-                    .setPhoneNumberJson(JSONUtil.toJsonStr(mobileList.get(i)))
-                    .setSignNameJson(JSONUtil.toJsonStr(signNameList.get(i)))
-                    .setTemplateCode(templateCode);
+        for (int i = 0; i < mobile.size(); i += 100) {
             try {
-                client.sendBatchSms(sendBatchSmsRequest);
+                this.sendChunkSms(signName, mobile.subList(i, Math.min(i + 100, mobile.size())), templateCode, null);
             } catch (Exception e) {
                 log.error("批量发送短信错误", e);
             }
         }
+    }
 
+    @Override
+    public void sendChunkSms(String signName, List<String> mobile, String templateCode, String outId) {
+        SendBatchSmsRequest sendBatchSmsRequest = new SendBatchSmsRequest()
+                .setPhoneNumberJson(JSONUtil.toJsonStr(mobile))
+                .setSignNameJson(JSONUtil.toJsonStr(Collections.nCopies(mobile.size(), signName)))
+                .setTemplateCode(templateCode)
+                .setOutId(outId);
+        SendBatchSmsResponse response;
+        try {
+            response = this.createClient().sendBatchSms(sendBatchSmsRequest);
+        } catch (Exception e) {
+            throw new ServiceException(e.getMessage());
+        }
+        if (!("OK").equals(response.getBody().getCode())) {
+            throw new ServiceException(response.getBody().getMessage());
+        }
     }
 
     @Override
@@ -244,6 +241,9 @@ public class AliSmsPlugin implements SmsPlugin {
      * @return Client 短信操作
      */
     public com.aliyun.dysmsapi20170525.Client createClient() {
+        if (client != null) {
+            return client;
+        }
         try {
             if (smsSetting == null) {
                 throw new ServiceException(ResultCode.ALI_SMS_SETTING_ERROR);
@@ -255,7 +255,8 @@ public class AliSmsPlugin implements SmsPlugin {
             config.accessKeySecret = smsSetting.getAccessSecret();
             //访问的域名
             config.endpoint = "dysmsapi.aliyuncs.com";
-            return new com.aliyun.dysmsapi20170525.Client(config);
+            client = new com.aliyun.dysmsapi20170525.Client(config);
+            return client;
         } catch (Exception e) {
             log.error("短信初始化错误", e);
         }
@@ -1,5 +1,6 @@
 package cn.lili.modules.sms.plugin.impl;
 
+import cn.lili.common.exception.ServiceException;
 import cn.lili.modules.sms.entity.dos.SmsSign;
 import cn.lili.modules.sms.entity.dos.SmsTemplate;
 import cn.lili.modules.sms.entity.enums.SmsEnum;
@@ -64,6 +65,15 @@ public class HuaweiSmsPlugin implements SmsPlugin {
         }
     }
 
+    @Override
+    public void sendChunkSms(String signName, List<String> mobile, String templateCode, String outId) {
+        try {
+            this.sendSms(signName, StringUtils.join(mobile, ","), null, templateCode, outId);
+        } catch (Exception e) {
+            throw new ServiceException(e.getMessage());
+        }
+    }
+
     @Override
     public void addSmsSign(SmsSign smsSign) throws Exception {
 
@@ -107,6 +117,11 @@ public class HuaweiSmsPlugin implements SmsPlugin {
 
     // 发送短信
     private void sendSms(String signName, String mobile, String param, String templateCode) throws Exception {
+        this.sendSms(signName, mobile, param, templateCode, null);
+    }
+
+    // 发送短信，extend 为扩展参数，在状态报告中原样返回
+    private void sendSms(String signName, String mobile, String param, String templateCode, String extend) throws Exception {
         //必填,请参考"开发准备"获取如下数据,替换为实际值
         //APP接入地址(在控制台"应用管理"页面获取)+接口访问URI
         String url = "https://smsapi.cn-north-4.myhuaweicloud.com:443/sms/batchSendSms/v1";
@@ -134,7 +149,7 @@ public class HuaweiSmsPlugin implements SmsPlugin {
         String templateParas = param;
 
         //请求Body,不携带签名名称时,signature请填null
-        String body = buildRequestBody(sender, receiver, templateId, templateParas, statusCallBack, signature);
+        String body = buildRequestBody(sender, receiver, templateId, templateParas, statusCallBack, signature, extend);
         if (null == body || body.isEmpty()) {
             System.out.println("body is null.");
             return;
@@ -228,10 +243,11 @@ public class HuaweiSmsPlugin implements SmsPlugin {
      * @param templateParas
      * @param statusCallBack
      * @param signature      | 签名名称,使用国内短信通用模板时填写
+     * @param extend         | 扩展参数,在状态报告中原样返回
      * @return
      */
     static String buildRequestBody(String sender, String receiver, String templateId, String templateParas,
-                                   String statusCallBack, String signature) {
+                                   String statusCallBack, String signature, String extend) {
         if (null == sender || null == receiver || null == templateId || sender.isEmpty() || receiver.isEmpty()
                 || templateId.isEmpty()) {
             System.out.println("buildRequestBody(): sender, receiver or templateId is null.");
@@ -251,6 +267,9 @@ public class HuaweiSmsPlugin implements SmsPlugin {
         if (null != signature && !signature.isEmpty()) {
             map.put("signature", signature);
         }
+        if (null != extend && !extend.isEmpty()) {
+            map.put("extend", extend);
+        }
 
         StringBuilder sb = new StringBuilder();
         String temp = "";
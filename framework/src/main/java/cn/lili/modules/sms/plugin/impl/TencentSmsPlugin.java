@@ -1,6 +1,7 @@
 package cn.lili.modules.sms.plugin.impl;
 
 import cn.hutool.core.convert.Convert;
+import cn.lili.common.exception.ServiceException;
 import cn.lili.modules.sms.entity.dos.SmsSign;
 import cn.lili.modules.sms.entity.dos.SmsTemplate;
 import cn.lili.modules.sms.entity.enums.SmsEnum;
@@ -12,6 +13,7 @@ import com.tencentcloudapi.common.profile.HttpProfile;
 import com.tencentcloudapi.sms.v20210111.SmsClient;
 import com.tencentcloudapi.sms.v20210111.models.SendSmsRequest;
 import com.tencentcloudapi.sms.v20210111.models.SendSmsResponse;
+import com.tencentcloudapi.sms.v20210111.models.SendStatus;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
@@ -178,6 +180,33 @@ public class TencentSmsPlugin implements SmsPlugin {
         }
     }
 
+    @Override
+    public void sendChunkSms(String signName, List<String> mobile, String templateCode, String outId) {
+        SendSmsRequest req = new SendSmsRequest();
+        req.setSmsSdkAppId(smsSetting.getTencentSdkAppId());
+        req.setSignName(smsSetting.getTencentSignName());
+        req.setTemplateId(templateCode);
+        req.setTemplateParamSet(null);
+        //单次请求最多 200 个手机号
+        req.setPhoneNumberSet(Convert.toStrArray(mobile));
+        //分组流水号，回执中原样返回
+        req.setSessionContext(outId == null ? "" : outId);
+        SendSmsResponse res;
+        try {
+            res = getClient().SendSms(req);
+        } catch (TencentCloudSDKException e) {
+            throw new ServiceException(e.getMessage());
+        }
+        //请求成功后单个号码的失败不重发整组，避免组内其他号码重复接收
+        if (res.getSendStatusSet() != null) {
+            for (SendStatus sendStatus : res.getSendStatusSet()) {
+                if (!"Ok".equals(sendStatus.getCode())) {
+                    log.error("短信发送失败，手机号：{}，原因：{}", sendStatus.getPhoneNumber(), sendStatus.getMessage());
+                }
+            }
+        }
+    }
+
     @Override
     public void addSmsSign(SmsSign smsSign) throws Exception {
 
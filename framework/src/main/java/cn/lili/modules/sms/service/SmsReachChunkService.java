@@ -0,0 +1,37 @@
+package cn.lili.modules.sms.service;
+
+import cn.lili.modules.sms.entity.dos.SmsReachChunk;
+import com.baomidou.mybatisplus.extension.service.IService;
+
+import java.util.List;
+
+/**
+ * 短信任务分组业务层
+ */
+public interface SmsReachChunkService extends IService<SmsReachChunk> {
+
+    /**
+     * 查询短信任务最后一个分组
+     *
+     * @param reachId 短信任务id
+     * @return 序号最大的分组，尚未切分时为空
+     */
+    SmsReachChunk lastChunk(String reachId);
+
+    /**
+     * 按序号查询短信任务未发送成功的分组
+     *
+     * @param reachId    短信任务id
+     * @param afterIndex 从该序号之后开始查询
+     * @param limit      查询数量
+     * @return 未发送成功的分组，按序号升序
+     */
+    List<SmsReachChunk> listUnfinished(String reachId, Integer afterIndex, Integer limit);
+
+    /**
+     * 更新分组发送状态、发送次数与失败原因
+     *
+     * @param chunk 分组
+     */
+    void updateStatus(SmsReachChunk chunk);
+}
@@ -21,5 +21,12 @@ public interface SmsReachService extends IService<SmsReach> {
      */
     void addSmsReach(SmsReach smsReach, List<String> mobile);
 
+    /**
+     * 重发短信任务未发送成功的分组
+     *
+     * @param id 短信任务id
+     */
+    void retrySmsReach(String id);
+
 
 }
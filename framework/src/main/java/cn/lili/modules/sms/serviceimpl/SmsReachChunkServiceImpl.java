@@ -0,0 +1,47 @@
+package cn.lili.modules.sms.serviceimpl;
+
+import cn.lili.modules.sms.entity.dos.SmsReachChunk;
+import cn.lili.modules.sms.entity.enums.SmsChunkStatusEnum;
+import cn.lili.modules.sms.mapper.SmsReachChunkMapper;
+import cn.lili.modules.sms.service.SmsReachChunkService;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 短信任务分组业务层实现
+ */
+@Service
+public class SmsReachChunkServiceImpl extends ServiceImpl<SmsReachChunkMapper, SmsReachChunk> implements SmsReachChunkService {
+
+    @Override
+    public SmsReachChunk lastChunk(String reachId) {
+        return this.getOne(new LambdaQueryWrapper<SmsReachChunk>()
+                .select(SmsReachChunk::getId, SmsReachChunk::getChunkIndex, SmsReachChunk::getLastMobile)
+                .eq(SmsReachChunk::getReachId, reachId)
+                .orderByDesc(SmsReachChunk::getChunkIndex)
+                .last("limit 1"), false);
+    }
+
+    @Override
+    public List<SmsReachChunk> listUnfinished(String reachId, Integer afterIndex, Integer limit) {
+        return this.list(new LambdaQueryWrapper<SmsReachChunk>()
+                .eq(SmsReachChunk::getReachId, reachId)
+                .gt(SmsReachChunk::getChunkIndex, afterIndex)
+                .ne(SmsReachChunk::getStatus, SmsChunkStatusEnum.SUCCESS.name())
+                .orderByAsc(SmsReachChunk::getChunkIndex)
+                .last("limit " + limit));
+    }
+
+    @Override
+    public void updateStatus(SmsReachChunk chunk) {
+        this.update(new LambdaUpdateWrapper<SmsReachChunk>()
+                .set(SmsReachChunk::getStatus, chunk.getStatus())
+                .set(SmsReachChunk::getSendTimes, chunk.getSendTimes())
+                .set(SmsReachChunk::getErrorMessage, chunk.getErrorMessage())
+                .eq(SmsReachChunk::getId, chunk.getId()));
+    }
+}
@@ -1,6 +1,8 @@
 package cn.lili.modules.sms.serviceimpl;
 
 import cn.hutool.json.JSONUtil;
+import cn.lili.common.enums.ResultCode;
+import cn.lili.common.exception.ServiceException;
 import cn.lili.common.properties.RocketmqCustomProperties;
 import cn.lili.common.utils.BeanUtil;
 import cn.lili.modules.sms.entity.dos.SmsReach;
@@ -34,13 +36,33 @@ public class SmsReachServiceImpl extends ServiceImpl<SmsReachMapper, SmsReach> i
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void addSmsReach(SmsReach smsReach,List<String> mobile) {
-        String destination = rocketmqCustomProperties.getNoticeSendTopic() + ":" + OtherTagsEnum.SMS.name();
+        //先保存短信任务，消息中携带任务id用于记录发送分组
+        this.save(smsReach);
         SmsReachDTO smsReachDTO = new SmsReachDTO();
         BeanUtil.copyProperties(smsReach,smsReachDTO);
         smsReachDTO.setMobile(mobile);
-        this.save(smsReach);
-        //发送短信批量发送mq消息
-        rocketMQTemplate.asyncSend(destination, JSONUtil.toJsonStr(smsReachDTO), RocketmqSendCallbackBuilder.commonCallback());
+        this.sendSmsReachMessage(smsReachDTO);
+    }
 
+    @Override
+    public void retrySmsReach(String id) {
+        SmsReach smsReach = this.getById(id);
+        if (smsReach == null) {
+            throw new ServiceException(ResultCode.SMS_REACH_NOT_EXIST);
+        }
+        SmsReachDTO smsReachDTO = new SmsReachDTO();
+        BeanUtil.copyProperties(smsReach, smsReachDTO);
+        smsReachDTO.setRetry(true);
+        this.sendSmsReachMessage(smsReachDTO);
+    }
+
+    /**
+     * 发送短信批量发送mq消息
+     *
+     * @param smsReachDTO 短信任务
+     */
+    private void sendSmsReachMessage(SmsReachDTO smsReachDTO) {
+        String destination = rocketmqCustomProperties.getNoticeSendTopic() + ":" + OtherTagsEnum.SMS.name();
+        rocketMQTemplate.asyncSend(destination, JSONUtil.toJsonStr(smsReachDTO), RocketmqSendCallbackBuilder.commonCallback());
     }
 }
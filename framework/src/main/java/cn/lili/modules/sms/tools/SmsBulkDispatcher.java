@@ -0,0 +1,335 @@
+package cn.lili.modules.sms.tools;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.lili.cache.CachePrefix;
+import cn.lili.common.enums.ResultCode;
+import cn.lili.common.exception.ServiceException;
+import cn.lili.common.properties.SmsBulkProperties;
+import cn.lili.modules.member.service.MemberService;
+import cn.lili.modules.message.entity.enums.RangeEnum;
+import cn.lili.modules.sms.entity.dos.SmsReachChunk;
+import cn.lili.modules.sms.entity.dto.SmsReachDTO;
+import cn.lili.modules.sms.entity.enums.SmsChunkStatusEnum;
+import cn.lili.modules.sms.entity.enums.SmsEnum;
+import cn.lili.modules.sms.plugin.SmsPlugin;
+import cn.lili.modules.sms.plugin.SmsPluginFactory;
+import cn.lili.modules.sms.service.SmsReachChunkService;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 短信任务批量发送
+ * <p>
+ * 手机号按升序流式读取并去重，顺序切分为固定大小的分组，分组记录入库后在有界线程池中并行发送，
+ * 每个通道按配置的每秒请求数限流，发送失败的分组间隔递增重发。发送中断后重新执行时，先以相同流水号重发未成功的分组，
+ * 再从最后一个分组的最后一个手机号之后继续切分，发送成功的分组不会再次发送。同一短信任务同时只有一个节点发送。
+ * <p>
+ * 流水号随请求传给通道（阿里云 OutId、腾讯云 SessionContext、华为云 extend），各通道只在回执中原样返回，不据此去重。
+ * 分组已送达而结果未记录时（请求超时、进程中断）重发会重复下发，对不去重的通道为至少送达一次。
+ */
+@Slf4j
+@Component
+public class SmsBulkDispatcher implements InitializingBean, DisposableBean {
+
+    /**
+     * 每次查询未成功分组的数量
+     */
+    private static final int UNFINISHED_PAGE_SIZE = 100;
+
+    /**
+     * 失败原因最大长度
+     */
+    private static final int ERROR_MESSAGE_LENGTH = 255;
+
+    @Autowired
+    private SmsBulkProperties smsBulkProperties;
+
+    @Autowired
+    private SmsReachChunkService smsReachChunkService;
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private SmsPluginFactory smsPluginFactory;
+
+    @Autowired
+    private RedissonClient redisson;
+
+    /**
+     * 各通道限流，所有短信任务共用
+     */
+    private final Map<SmsEnum, SmsRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @Override
+    public void afterPropertiesSet() {
+        int threads = smsBulkProperties.getThreads();
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                new CustomizableThreadFactory("sms-bulk-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 发送短信任务
+     *
+     * @param smsReach 短信任务
+     * @return 本次发送成功的手机号数量，其他节点正在发送时返回 0
+     * @throws ServiceException 有分组未发送成功，已发送成功的分组不再发送，重新执行时继续发送
+     */
+    public long dispatch(SmsReachDTO smsReach) {
+        RLock lock = redisson.getLock(CachePrefix.SMS_REACH_LOCK.getPrefix() + smsReach.getId());
+        if (!lock.tryLock()) {
+            log.info("短信任务 {} 正在其他节点发送，本次跳过", smsReach.getId());
+            return 0;
+        }
+        try {
+            return this.doDispatch(smsReach);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long doDispatch(SmsReachDTO smsReach) {
+        long start = System.currentTimeMillis();
+        String reachId = smsReach.getId();
+        SmsPlugin smsPlugin = smsPluginFactory.smsPlugin();
+        SmsRateLimiter limiter = limiters.computeIfAbsent(smsPlugin.pluginName(),
+                provider -> new SmsRateLimiter(smsBulkProperties.getQps(provider.name())));
+        int parallelism = smsBulkProperties.getThreads();
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicLong sent = new AtomicLong();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Consumer<SmsReachChunk> send = chunk -> this.submit(permits, () -> {
+            if (failure.get() != null) {
+                return;
+            }
+            try {
+                if (this.send(smsPlugin, limiter, smsReach, chunk)) {
+                    sent.addAndGet(chunk.getMobileNum());
+                } else {
+                    failed.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, e);
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+
+        int resent = 0;
+        ChunkSplitter splitter = new ChunkSplitter(reachId, smsReachChunkService.lastChunk(reachId), send, failure);
+        try {
+            //上次中断或发送失败的分组
+            Integer afterIndex = -1;
+            List<SmsReachChunk> unfinished;
+            while (failure.get() == null
+                    && !(unfinished = smsReachChunkService.listUnfinished(reachId, afterIndex, UNFINISHED_PAGE_SIZE)).isEmpty()) {
+                unfinished.forEach(send);
+                resent += unfinished.size();
+                afterIndex = unfinished.get(unfinished.size() - 1).getChunkIndex();
+            }
+            //从最后一个分组之后继续切分
+            if (!Boolean.TRUE.equals(smsReach.getRetry())) {
+                if (RangeEnum.ALL.name().equals(smsReach.getSmsRange())) {
+                    memberService.streamMemberMobile(splitter.getPrevious(), splitter);
+                } else if (smsReach.getMobile() != null) {
+                    smsReach.getMobile().stream().filter(Objects::nonNull).map(String::trim).sorted().forEach(splitter);
+                }
+                splitter.flush();
+            }
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            this.await(permits, parallelism);
+        }
+
+        long cost = Math.max(System.currentTimeMillis() - start, 1);
+        if (failure.get() != null) {
+            log.error("短信任务 {} 发送中断，已发送 {} 个手机号，重新执行时继续发送", reachId, sent.get(), failure.get());
+            throw new ServiceException(ResultCode.SMS_REACH_SEND_ERROR);
+        }
+        if (failed.get() > 0) {
+            log.error("短信任务 {} 有 {} 个分组发送失败，已发送 {} 个手机号，重新执行时继续发送", reachId, failed.get(), sent.get());
+            throw new ServiceException(ResultCode.SMS_REACH_SEND_ERROR);
+        }
+        log.info("短信任务 {} 发送完成，重发分组 {}，新切分分组 {}，发送手机号 {} 个，耗时 {} ms",
+                reachId, resent, splitter.getChunks(), sent.get(), cost);
+        return sent.get();
+    }
+
+    /**
+     * 发送一个分组，每次执行最多发送 maxSendTimes 次
+     *
+     * @return 是否发送成功
+     * @throws InterruptedException 等待限流或重发时线程被中断，分组停留在发送中状态
+     */
+    private boolean send(SmsPlugin smsPlugin, SmsRateLimiter limiter, SmsReachDTO smsReach, SmsReachChunk chunk) throws InterruptedException {
+        List<String> mobiles = Arrays.asList(chunk.getMobile().split(","));
+        int maxSendTimes = smsBulkProperties.getMaxSendTimes();
+        for (int i = 1; i <= maxSendTimes; i++) {
+            //先记录发送中，进程中断后可知该分组可能已发送
+            chunk.setStatus(SmsChunkStatusEnum.SENDING.name());
+            chunk.setSendTimes(chunk.getSendTimes() == null ? 1 : chunk.getSendTimes() + 1);
+            smsReachChunkService.updateStatus(chunk);
+            limiter.acquire();
+            Exception error = null;
+            try {
+                smsPlugin.sendChunkSms(smsReach.getSignName(), mobiles, smsReach.getMessageCode(), chunk.getId());
+            } catch (Exception e) {
+                error = e;
+            }
+            if (error == null) {
+                chunk.setStatus(SmsChunkStatusEnum.SUCCESS.name());
+                chunk.setErrorMessage(null);
+                smsReachChunkService.updateStatus(chunk);
+                return true;
+            }
+            log.warn("短信任务 {} 分组 {} 第 {} 次发送失败", smsReach.getId(), chunk.getChunkIndex(), chunk.getSendTimes(), error);
+            chunk.setErrorMessage(CharSequenceUtil.sub(String.valueOf(error.getMessage()), 0, ERROR_MESSAGE_LENGTH));
+            if (i < maxSendTimes) {
+                TimeUnit.MILLISECONDS.sleep(smsBulkProperties.getRetryInterval() * i);
+            }
+        }
+        chunk.setStatus(SmsChunkStatusEnum.FAIL.name());
+        smsReachChunkService.updateStatus(chunk);
+        return false;
+    }
+
+    /**
+     * 提交一个分组，发送中的分组达到上限时阻塞等待，线程池满时由提交线程自行发送
+     */
+    private void submit(Semaphore permits, Runnable chunk) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(ResultCode.SMS_REACH_SEND_ERROR);
+        }
+        executor.execute(() -> {
+            try {
+                chunk.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * 等待已提交的分组全部完成
+     */
+    private void await(Semaphore permits, int parallelism) {
+        try {
+            permits.acquire(parallelism);
+            permits.release(parallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(ResultCode.SMS_REACH_SEND_ERROR);
+        }
+    }
+
+    /**
+     * 分组切分
+     * 手机号按升序逐个接收，不大于上一个手机号的为重复或已切分过的手机号，直接跳过，满一组后入库并提交发送
+     */
+    private class ChunkSplitter implements Consumer<String> {
+
+        private final String reachId;
+
+        private final Consumer<SmsReachChunk> send;
+
+        private final AtomicReference<Exception> failure;
+
+        private final int chunkSize = smsBulkProperties.getChunkSize();
+
+        private List<String> mobiles = new ArrayList<>();
+
+        /**
+         * 下一个分组序号
+         */
+        private int index;
+
+        /**
+         * 上一个切分的手机号
+         */
+        private String previous;
+
+        /**
+         * 本次切分的分组数量
+         */
+        private int chunks;
+
+        ChunkSplitter(String reachId, SmsReachChunk last, Consumer<SmsReachChunk> send, AtomicReference<Exception> failure) {
+            this.reachId = reachId;
+            this.send = send;
+            this.failure = failure;
+            this.index = last == null ? 0 : last.getChunkIndex() + 1;
+            this.previous = last == null ? "" : last.getLastMobile();
+        }
+
+        @Override
+        public void accept(String mobile) {
+            //已有分组发送异常，停止读取
+            if (failure.get() != null) {
+                throw new ServiceException(ResultCode.SMS_REACH_SEND_ERROR);
+            }
+            if (CharSequenceUtil.isBlank(mobile) || mobile.compareTo(previous) <= 0) {
+                return;
+            }
+            previous = mobile;
+            mobiles.add(mobile);
+            if (mobiles.size() >= chunkSize) {
+                this.flush();
+            }
+        }
+
+        void flush() {
+            if (mobiles.isEmpty()) {
+                return;
+            }
+            SmsReachChunk chunk = new SmsReachChunk();
+            chunk.setReachId(reachId);
+            chunk.setChunkIndex(index);
+            chunk.setMobile(String.join(",", mobiles));
+            chunk.setLastMobile(mobiles.get(mobiles.size() - 1));
+            chunk.setMobileNum(mobiles.size());
+            chunk.setStatus(SmsChunkStatusEnum.WAIT.name());
+            chunk.setSendTimes(0);
+            smsReachChunkService.save(chunk);
+            index++;
+            chunks++;
+            mobiles = new ArrayList<>(chunkSize);
+            send.accept(chunk);
+        }
+
+        String getPrevious() {
+            return previous;
+        }
+
+        int getChunks() {
+            return chunks;
+        }
+    }
+}
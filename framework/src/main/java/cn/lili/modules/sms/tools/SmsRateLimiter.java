@@ -0,0 +1,48 @@
+package cn.lili.modules.sms.tools;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 短信通道限流
+ * <p>
+ * 令牌桶，按每秒请求数匀速生成令牌，桶容量为 1 个令牌，通道空闲后也不会出现突发请求。
+ * 获取令牌时预约下一个令牌的生成时间，并发线程按预约顺序依次等待，任意 1 秒内的请求数不超过 qps + 1。
+ */
+public class SmsRateLimiter {
+
+    /**
+     * 生成一个令牌的间隔，单位纳秒
+     */
+    private final long interval;
+
+    /**
+     * 下一个令牌的生成时间
+     */
+    private long nextFree;
+
+    public SmsRateLimiter(int qps) {
+        this.interval = TimeUnit.SECONDS.toNanos(1) / Math.max(qps, 1);
+        this.nextFree = System.nanoTime();
+    }
+
+    /**
+     * 获取一个令牌，没有令牌时等待
+     *
+     * @throws InterruptedException 等待时线程被中断
+     */
+    public void acquire() throws InterruptedException {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            //桶中已有令牌时立即使用，令牌不累积
+            if (nextFree - now < 0) {
+                nextFree = now;
+            }
+            wait = nextFree - now;
+            nextFree += interval;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
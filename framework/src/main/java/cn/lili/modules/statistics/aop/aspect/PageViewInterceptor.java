@@ -1,7 +1,5 @@
 package cn.lili.modules.statistics.aop.aspect;
 
-import cn.lili.cache.Cache;
-import cn.lili.cache.CachePrefix;
 import cn.lili.common.context.ThreadContextHolder;
 import cn.lili.common.utils.IpUtils;
 import cn.lili.common.utils.SpelUtil;
@@ -9,7 +7,7 @@ import cn.lili.common.vo.ResultMessage;
 import cn.lili.modules.goods.entity.vos.GoodsSkuVO;
 import cn.lili.modules.statistics.aop.PageViewPoint;
 import cn.lili.modules.statistics.aop.enums.PageViewEnum;
-import cn.lili.modules.statistics.util.StatisticsSuffix;
+import cn.lili.modules.statistics.collector.PageViewCollector;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
@@ -34,8 +32,7 @@ import java.util.Map;
 public class PageViewInterceptor {
 
     @Autowired
-    private Cache cache;
-
+    private PageViewCollector pageViewCollector;
 
 
     @AfterReturning(returning = "rvt", pointcut = "@annotation(cn.lili.modules.statistics.aop.PageViewPoint)")
@@ -72,17 +69,8 @@ public class PageViewInterceptor {
         }
         String ip = IpUtils.getIpAddress(ThreadContextHolder.getHttpRequest());
         try {
-            //PV 统计48小时过期 留下一定时间予以统计累计数据库
-            cache.incr(CachePrefix.PV.getPrefix() + StatisticsSuffix.suffix(), 60 * 60 * 48);
-
-            //平台UV统计
-            cache.cumulative(CachePrefix.UV.getPrefix() + StatisticsSuffix.suffix(), ip);
-
-            //PV 统计48小时过期 留下一定时间予以统计累计数据库
-            cache.incr(CachePrefix.STORE_PV.getPrefix() + StatisticsSuffix.suffix(storeId), 60 * 60 * 48);
-
-            //店铺UV 统计，则需要对id去重复，所以如下处理
-            cache.cumulative(CachePrefix.STORE_UV.getPrefix() + StatisticsSuffix.suffix(storeId), ip);
+            //只写本地缓冲，由收集器定时批量写入缓存
+            pageViewCollector.collect(storeId, ip);
         } catch (Exception e) {
             log.error("页面出错", e);
         }
@@ -0,0 +1,163 @@
+package cn.lili.modules.statistics.collector;
+
+import cn.lili.cache.CachePrefix;
+import cn.lili.common.properties.StatisticsProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 在线会员收集
+ * <p>
+ * 会员的已认证请求按分钟写入 HyperLogLog 桶，同一会员在同一分钟内本地只记录一次，
+ * 后台线程定时通过一次 pipeline 批量 PFADD。
+ * 在线人数为最近 N 个分钟桶的合并基数，复杂度与桶数相关，不再扫描 accessToken 缓存。
+ */
+@Slf4j
+@Component
+public class OnlineMemberCollector implements InitializingBean, DisposableBean {
+
+    /**
+     * 写入间隔，单位毫秒
+     */
+    private static final long FLUSH_INTERVAL = 1000L;
+
+    private static final long MINUTE_MILLIS = 60 * 1000L;
+
+    @Autowired
+    private RedisTemplate<Object, Object> redisTemplate;
+
+    @Autowired
+    private StatisticsProperties statisticsProperties;
+
+    /**
+     * 当前分钟已记录的会员，用于本地去重
+     */
+    private final Map<Long, Set<String>> touched = new ConcurrentHashMap<>();
+
+    /**
+     * 待写入缓冲，key 为分钟桶，每次刷新整体替换
+     */
+    private final AtomicReference<Map<Long, Set<String>>> buffer = new AtomicReference<>(new ConcurrentHashMap<>());
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 记录会员活跃
+     *
+     * @param memberId 会员ID
+     */
+    public void touch(String memberId) {
+        if (memberId == null) {
+            return;
+        }
+        long minute = System.currentTimeMillis() / MINUTE_MILLIS;
+        if (touched.computeIfAbsent(minute, k -> ConcurrentHashMap.newKeySet()).add(memberId)) {
+            //写入期间缓冲被刷新替换时，可能错过本次刷新，重新写入新缓冲；PFADD 重复写入不影响结果
+            Map<Long, Set<String>> current;
+            do {
+                current = buffer.get();
+                current.computeIfAbsent(minute, k -> ConcurrentHashMap.newKeySet()).add(memberId);
+            } while (current != buffer.get());
+        }
+    }
+
+    /**
+     * 当前在线人数
+     *
+     * @return 在线判定窗口内活跃的会员数
+     */
+    public long online() {
+        return online(System.currentTimeMillis());
+    }
+
+    /**
+     * 指定时间的在线人数
+     *
+     * @param time 时间戳
+     * @return 该时间之前在线判定窗口内活跃的会员数
+     */
+    public long online(long time) {
+        int window = statisticsProperties.getOnlineWindow();
+        long minute = time / MINUTE_MILLIS;
+        Object[] keys = new Object[window];
+        for (int i = 0; i < window; i++) {
+            keys[i] = bucketKey(minute - i);
+        }
+        Long size = redisTemplate.opsForHyperLogLog().size(keys);
+        return size == null ? 0L : size;
+    }
+
+    /**
+     * 将本地缓冲写入 Redis
+     */
+    public void flush() {
+        long current = System.currentTimeMillis() / MINUTE_MILLIS;
+        //过期分钟的去重集合不再有写入，移除
+        touched.keySet().removeIf(minute -> minute < current);
+
+        Map<Long, Set<String>> delta = buffer.getAndSet(new ConcurrentHashMap<>());
+        if (delta.isEmpty()) {
+            return;
+        }
+        //桶保留一个判定窗口再多一分钟，保证窗口合并时数据完整
+        long expire = (statisticsProperties.getOnlineWindow() + 1) * 60L;
+        RedisSerializer<Object> keySerializer = (RedisSerializer<Object>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                delta.forEach((minute, members) -> {
+                    //替换前取到缓冲的请求可能仍在写入，先取快照
+                    String[] snapshot = members.toArray(new String[0]);
+                    byte[][] values = new byte[snapshot.length][];
+                    for (int i = 0; i < snapshot.length; i++) {
+                        values[i] = valueSerializer.serialize(snapshot[i]);
+                    }
+                    byte[] rawKey = keySerializer.serialize(bucketKey(minute));
+                    connection.pfAdd(rawKey, values);
+                    connection.expire(rawKey, expire);
+                });
+                return null;
+            });
+        } catch (Exception e) {
+            //在线人数为估算值，写入失败直接丢弃
+            log.error("在线会员数据写入失败", e);
+        }
+    }
+
+    private String bucketKey(long minute) {
+        return CachePrefix.ONLINE_MEMBER_BUCKET.getPrefix() + minute;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("online-member-flush-"));
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                log.error("在线会员数据刷新异常", e);
+            }
+        }, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+        flush();
+    }
+}
@@ -0,0 +1,163 @@
+package cn.lili.modules.statistics.collector;
+
+import cn.lili.cache.CachePrefix;
+import cn.lili.common.properties.StatisticsProperties;
+import cn.lili.modules.statistics.util.StatisticsSuffix;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 页面浏览数据收集
+ * <p>
+ * 浏览请求只写本地内存：PV 累加在 LongAdder 中，UV 在本地按 key 去重。
+ * 后台线程按固定间隔把增量通过一次 pipeline 写入 Redis（INCRBY + PFADD），
+ * 缓存 key 与原有统计 key 保持一致，入库任务与查询逻辑无需调整。
+ */
+@Slf4j
+@Component
+public class PageViewCollector implements InitializingBean, DisposableBean {
+
+    /**
+     * PV 缓存过期时间，48小时，留下一定时间予以统计累计数据库
+     */
+    private static final long PV_EXPIRE_SECONDS = 60 * 60 * 48L;
+
+    @Autowired
+    private RedisTemplate<Object, Object> redisTemplate;
+
+    @Autowired
+    private StatisticsProperties statisticsProperties;
+
+    /**
+     * PV 计数，key 为缓存 key
+     */
+    private final Map<String, LongAdder> pvCounters = new ConcurrentHashMap<>();
+
+    /**
+     * UV 本地去重缓冲，每次刷新整体替换
+     */
+    private final AtomicReference<Map<String, Set<String>>> uvBuffer = new AtomicReference<>(new ConcurrentHashMap<>());
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 记录一次页面浏览
+     *
+     * @param storeId 店铺ID，-1 代表平台
+     * @param ip      访问者IP
+     */
+    public void collect(String storeId, String ip) {
+        String platformSuffix = StatisticsSuffix.suffix();
+        String storeSuffix = platformSuffix + "-" + storeId;
+        increment(CachePrefix.PV.getPrefix() + platformSuffix);
+        increment(CachePrefix.STORE_PV.getPrefix() + storeSuffix);
+        if (ip != null) {
+            Map<String, Set<String>> buffer = uvBuffer.get();
+            buffer.computeIfAbsent(CachePrefix.UV.getPrefix() + platformSuffix, k -> ConcurrentHashMap.newKeySet()).add(ip);
+            buffer.computeIfAbsent(CachePrefix.STORE_UV.getPrefix() + storeSuffix, k -> ConcurrentHashMap.newKeySet()).add(ip);
+        }
+    }
+
+    private void increment(String key) {
+        LongAdder adder = pvCounters.get(key);
+        if (adder == null) {
+            adder = pvCounters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    /**
+     * 将本地增量写入 Redis
+     */
+    public void flush() {
+        Map<String, Long> pvDelta = new HashMap<>(pvCounters.size());
+        String today = StatisticsSuffix.suffix();
+        pvCounters.forEach((key, adder) -> {
+            //只减去读到的数量，与写入并发的增量留到下次；JDK8 的 sumThenReset 逐个清零，并发写入会丢失
+            long delta = adder.sum();
+            if (delta > 0) {
+                adder.add(-delta);
+                pvDelta.put(key, delta);
+            } else if (!key.endsWith("_" + today) && !key.contains("_" + today + "-")) {
+                //历史日期的计数器不再有写入，移除
+                pvCounters.remove(key, adder);
+            }
+        });
+        Map<String, Set<String>> uvDelta = uvBuffer.getAndSet(new ConcurrentHashMap<>());
+        if (pvDelta.isEmpty() && uvDelta.isEmpty()) {
+            return;
+        }
+
+        RedisSerializer<Object> keySerializer = (RedisSerializer<Object>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                writePv(connection, keySerializer, pvDelta);
+                writeUv(connection, keySerializer, valueSerializer, uvDelta);
+                return null;
+            });
+        } catch (Exception e) {
+            //PV 增量写回本地，下次重试；UV 为估算值，直接丢弃
+            pvDelta.forEach((key, delta) -> pvCounters.computeIfAbsent(key, k -> new LongAdder()).add(delta));
+            log.error("页面浏览数据写入失败", e);
+        }
+    }
+
+    private void writePv(RedisConnection connection, RedisSerializer<Object> keySerializer, Map<String, Long> pvDelta) {
+        pvDelta.forEach((key, delta) -> {
+            byte[] rawKey = keySerializer.serialize(key);
+            connection.incrBy(rawKey, delta);
+            connection.expire(rawKey, PV_EXPIRE_SECONDS);
+        });
+    }
+
+    private void writeUv(RedisConnection connection, RedisSerializer<Object> keySerializer, RedisSerializer<Object> valueSerializer,
+                         Map<String, Set<String>> uvDelta) {
+        uvDelta.forEach((key, ips) -> {
+            //替换前取到缓冲的浏览请求可能仍在写入，先取快照；回调中抛出异常时已执行的命令仍会提交，PV 重试会重复累加
+            String[] snapshot = ips.toArray(new String[0]);
+            byte[][] values = new byte[snapshot.length][];
+            for (int i = 0; i < snapshot.length; i++) {
+                values[i] = valueSerializer.serialize(snapshot[i]);
+            }
+            connection.pfAdd(keySerializer.serialize(key), values);
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long interval = statisticsProperties.getPageViewFlushInterval();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("page-view-flush-"));
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                log.error("页面浏览数据刷新异常", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+        flush();
+    }
+}
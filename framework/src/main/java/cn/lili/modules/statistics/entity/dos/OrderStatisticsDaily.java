@@ -0,0 +1,82 @@
+package cn.lili.modules.statistics.entity.dos;
+
+import cn.lili.mybatis.BaseIdEntity;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 订单每日统计
+ * <p>
+ * 按 统计日、店铺、支付方式、订单类型、配送方式 汇总，统计日为订单（子订单）创建日期，
+ * 各统计口径与原订单统计查询一致。
+ */
+@Data
+@TableName("li_order_statistics_daily")
+@ApiModel(value = "订单每日统计")
+public class OrderStatisticsDaily extends BaseIdEntity {
+
+    private static final long serialVersionUID = 1L;
+
+    @ApiModelProperty(value = "统计日")
+    @JsonFormat(timezone = "GMT+8", pattern = "yyyy-MM-dd")
+    private Date statDate;
+
+    @ApiModelProperty(value = "店铺ID")
+    private String storeId;
+
+    @ApiModelProperty(value = "支付方式")
+    private String paymentMethod;
+
+    @ApiModelProperty(value = "订单类型")
+    private String orderType;
+
+    @ApiModelProperty(value = "配送方式")
+    private String deliveryMethod;
+
+    @ApiModelProperty(value = "下单数量")
+    private Long orderNum = 0L;
+
+    @ApiModelProperty(value = "已付款订单金额")
+    private Double paidOrderPrice = 0D;
+
+    @ApiModelProperty(value = "有子订单的订单数量")
+    private Long itemOrderNum = 0L;
+
+    @ApiModelProperty(value = "未全部退款的订单数量")
+    private Long payOrderNum = 0L;
+
+    @ApiModelProperty(value = "未全部退款的订单金额，扣除退款")
+    private Double payOrderPrice = 0D;
+
+    @ApiModelProperty(value = "未全部退款的商品金额")
+    private Double goodsPrice = 0D;
+
+    @ApiModelProperty(value = "未全部退款的优惠金额，部分退款按剩余数量计算")
+    private Double discountPrice = 0D;
+
+    @ApiModelProperty(value = "未全部退款的运费")
+    private Double freightPrice = 0D;
+
+    @ApiModelProperty(value = "未全部退款的分销佣金")
+    private Double distributionPrice = 0D;
+
+    @ApiModelProperty(value = "全部退款的订单数量")
+    private Long refundOrderNum = 0L;
+
+    @ApiModelProperty(value = "全部退款的退款金额")
+    private Double refundPrice = 0D;
+
+    /**
+     * 汇总维度
+     *
+     * @return 维度
+     */
+    public String dimension() {
+        return statDate.getTime() + "|" + storeId + "|" + paymentMethod + "|" + orderType + "|" + deliveryMethod;
+    }
+}
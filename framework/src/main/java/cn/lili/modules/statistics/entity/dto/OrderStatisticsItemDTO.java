@@ -0,0 +1,38 @@
+package cn.lili.modules.statistics.entity.dto;
+
+import cn.hutool.json.JSONUtil;
+import cn.lili.modules.order.order.entity.dto.PriceDetailDTO;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 订单统计子订单价格明细
+ */
+@Data
+public class OrderStatisticsItemDTO {
+
+    private String id;
+
+    private Date statDate;
+
+    private String storeId;
+
+    private String paymentMethod;
+
+    private String orderType;
+
+    private String deliveryMethod;
+
+    private String priceDetail;
+
+    private String isRefund;
+
+    private Integer num;
+
+    private Integer returnGoodsNumber;
+
+    public PriceDetailDTO getPriceDetailDTO() {
+        return priceDetail == null ? null : JSONUtil.toBean(priceDetail, PriceDetailDTO.class);
+    }
+}
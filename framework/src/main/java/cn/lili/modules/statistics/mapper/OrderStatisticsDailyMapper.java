@@ -0,0 +1,91 @@
+package cn.lili.modules.statistics.mapper;
+
+import cn.lili.modules.statistics.entity.dos.OrderStatisticsDaily;
+import cn.lili.modules.statistics.entity.dto.OrderStatisticsItemDTO;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 订单每日统计数据处理层
+ */
+public interface OrderStatisticsDailyMapper extends BaseMapper<OrderStatisticsDaily> {
+
+    /**
+     * 按订单汇总：下单数量、已付款订单金额
+     *
+     * @param queryWrapper 查询条件
+     * @return 汇总数据
+     */
+    @Select("SELECT DATE(create_time) AS stat_date,store_id,payment_method,order_type,delivery_method," +
+            "COUNT(0) AS order_num," +
+            "COALESCE(SUM(CASE WHEN pay_status = 'PAID' THEN flow_price END), 0) AS paid_order_price " +
+            "FROM li_order ${ew.customSqlSegment}")
+    List<OrderStatisticsDaily> sumOrder(@Param(Constants.WRAPPER) Wrapper<OrderStatisticsDaily> queryWrapper);
+
+    /**
+     * 按子订单汇总：订单数量、金额、退款
+     *
+     * @param queryWrapper 查询条件
+     * @return 汇总数据
+     */
+    @Select("SELECT DATE(oi.create_time) AS stat_date,o.store_id,o.payment_method,o.order_type,o.delivery_method," +
+            "COUNT(DISTINCT oi.order_sn) AS item_order_num," +
+            "COUNT(DISTINCT CASE WHEN oi.is_refund <> 'ALL_REFUND' THEN oi.order_sn END) AS pay_order_num," +
+            "COALESCE(SUM(CASE WHEN oi.is_refund <> 'ALL_REFUND' THEN oi.flow_price END), 0)" +
+            " - COALESCE(SUM(CASE WHEN oi.is_refund <> 'ALL_REFUND' THEN oi.refund_price END), 0) AS pay_order_price," +
+            "COALESCE(SUM(CASE WHEN oi.is_refund <> 'ALL_REFUND' THEN oi.goods_price END), 0) AS goods_price," +
+            "COUNT(DISTINCT CASE WHEN oi.is_refund = 'ALL_REFUND' THEN oi.order_sn END) AS refund_order_num," +
+            "COALESCE(SUM(CASE WHEN oi.is_refund = 'ALL_REFUND' THEN oi.refund_price END), 0) AS refund_price " +
+            "FROM li_order_item oi INNER JOIN li_order o ON o.sn = oi.order_sn ${ew.customSqlSegment}")
+    List<OrderStatisticsDaily> sumOrderItem(@Param(Constants.WRAPPER) Wrapper<OrderStatisticsDaily> queryWrapper);
+
+    /**
+     * 子订单价格明细，优惠、运费、分销佣金保存在价格明细中，需逐条解析
+     *
+     * @param queryWrapper 查询条件
+     * @return 子订单价格明细
+     */
+    @Select("SELECT oi.id,DATE(oi.create_time) AS stat_date,o.store_id,o.payment_method,o.order_type,o.delivery_method," +
+            "oi.price_detail,oi.is_refund,oi.num,oi.return_goods_number " +
+            "FROM li_order_item oi INNER JOIN li_order o ON o.sn = oi.order_sn ${ew.customSqlSegment}")
+    List<OrderStatisticsItemDTO> listItemPriceDetail(@Param(Constants.WRAPPER) Wrapper<OrderStatisticsItemDTO> queryWrapper);
+
+    /**
+     * 汇总每日统计，不区分店铺时合并各店铺数据
+     *
+     * @param queryWrapper 查询条件
+     * @return 汇总数据
+     */
+    @Select("SELECT stat_date,NULLIF(payment_method,'') AS payment_method,NULLIF(order_type,'') AS order_type," +
+            "NULLIF(delivery_method,'') AS delivery_method," +
+            "SUM(order_num) AS order_num,SUM(paid_order_price) AS paid_order_price," +
+            "SUM(item_order_num) AS item_order_num,SUM(pay_order_num) AS pay_order_num," +
+            "SUM(pay_order_price) AS pay_order_price,SUM(goods_price) AS goods_price," +
+            "SUM(discount_price) AS discount_price,SUM(freight_price) AS freight_price," +
+            "SUM(distribution_price) AS distribution_price,SUM(refund_order_num) AS refund_order_num," +
+            "SUM(refund_price) AS refund_price " +
+            "FROM li_order_statistics_daily ${ew.customSqlSegment}")
+    List<OrderStatisticsDaily> sumDaily(@Param(Constants.WRAPPER) Wrapper<OrderStatisticsDaily> queryWrapper);
+
+    /**
+     * 最早的已汇总日，全部店铺汇总时写入店铺ID为空字符串的标记行
+     *
+     * @return 统计日，未汇总时为空
+     */
+    @Select("SELECT MIN(stat_date) FROM li_order_statistics_daily WHERE store_id = ''")
+    Date minRolledUpDate();
+
+    /**
+     * 最晚的已汇总日
+     *
+     * @return 统计日，未汇总时为空
+     */
+    @Select("SELECT MAX(stat_date) FROM li_order_statistics_daily WHERE store_id = ''")
+    Date maxRolledUpDate();
+}
@@ -0,0 +1,59 @@
+package cn.lili.modules.statistics.service;
+
+import cn.lili.modules.statistics.entity.dos.OrderStatisticsDaily;
+import com.baomidou.mybatisplus.extension.service.IService;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 订单每日统计业务层
+ */
+public interface OrderStatisticsDailyService extends IService<OrderStatisticsDaily> {
+
+    /**
+     * 查询时间范围内的订单统计
+     * 已汇总的整天从每日统计读取，其余时间（通常只有今天）从订单表实时汇总
+     *
+     * @param startTime 开始时间
+     * @param endTime   结束时间
+     * @param storeId   店铺ID，为空时统计全部店铺
+     * @return 订单统计，按统计日、支付方式、订单类型、配送方式汇总
+     */
+    List<OrderStatisticsDaily> query(Date startTime, Date endTime, String storeId);
+
+    /**
+     * 从订单表实时汇总
+     *
+     * @param startTime 开始时间
+     * @param endTime   结束时间
+     * @param storeId   店铺ID，为空时统计全部店铺
+     * @return 订单统计，按统计日、店铺、支付方式、订单类型、配送方式汇总
+     */
+    List<OrderStatisticsDaily> build(Date startTime, Date endTime, String storeId);
+
+    /**
+     * 重新汇总某一天的订单统计
+     * 同一天的汇总按统计日加锁串行执行，全部店铺汇总时同时写入已汇总标记
+     *
+     * @param day     统计日
+     * @param storeId 店铺ID，为空时汇总全部店铺
+     */
+    void rebuild(Date day, String storeId);
+
+    /**
+     * 订单变更后刷新订单创建日的统计
+     * 只刷新已汇总的日期，当天的统计实时查询无需刷新
+     *
+     * @param createTime 订单创建时间
+     * @param storeId    店铺ID
+     */
+    void refresh(Date createTime, String storeId);
+
+    /**
+     * 已汇总的日期范围，由每日统计表中的已汇总标记得出
+     *
+     * @return [开始日, 结束日]，未汇总时为空
+     */
+    Date[] rolledUpRange();
+}
@@ -2,6 +2,9 @@ package cn.lili.modules.statistics.serviceimpl;
 
 import cn.hutool.core.convert.Convert;
 import cn.hutool.core.date.DateTime;
+import cn.lili.cache.Cache;
+import cn.lili.cache.CachePrefix;
+import cn.lili.common.properties.StatisticsProperties;
 import cn.lili.common.security.context.UserContext;
 import cn.lili.common.security.enums.UserEnums;
 import cn.lili.common.utils.BeanUtil;
@@ -24,6 +27,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -98,6 +102,12 @@ public class IndexStatisticsServiceImpl implements IndexStatisticsService {
     @Autowired
     private SeckillStatisticsService seckillStatisticsService;
 
+    @Autowired
+    private Cache<Object> cache;
+
+    @Autowired
+    private StatisticsProperties statisticsProperties;
+
     @Override
     public IndexNoticeVO indexNotice() {
 
@@ -125,28 +135,19 @@ public class IndexStatisticsServiceImpl implements IndexStatisticsService {
 
         //获取总订单数量
         indexStatisticsVO.setOrderNum(orderStatisticsService.orderNum(null));
-        //获取总会员数量
-        indexStatisticsVO.setMemberNum(memberStatisticsService.getMemberCount());
-        //获取总上架商品数量
-        indexStatisticsVO.setGoodsNum(goodsStatisticsService.goodsNum(GoodsStatusEnum.UPPER, GoodsAuthEnum.PASS));
-        //获取总店铺数量
-        indexStatisticsVO.setStoreNum(storeStatisticsService.storeNum());
-
-        //下单统计
-        Map<String, Object> map = storeFlowStatisticsService.getOrderStatisticsPrice();
+        //会员、商品、店铺数量与今日新增为当前状态，不能按天累加汇总，短时缓存
+        Map<String, Object> counts = this.indexCounts();
+        indexStatisticsVO.setMemberNum(Convert.toLong(counts.get("memberNum"), 0L));
+        indexStatisticsVO.setGoodsNum(Convert.toLong(counts.get("goodsNum"), 0L));
+        indexStatisticsVO.setStoreNum(Convert.toLong(counts.get("storeNum"), 0L));
         //今日下单数
-        indexStatisticsVO.setTodayOrderNum(map.get("num") == null ? 0L : Long.parseLong(map.get("num").toString()));
+        indexStatisticsVO.setTodayOrderNum(Convert.toLong(counts.get("todayOrderNum"), 0L));
         //今日下单金额
-        indexStatisticsVO.setTodayOrderPrice(map.get("price") == null ? 0D : Double.parseDouble(map.get("price").toString()));
-
-        //今日新增会员数量
-        indexStatisticsVO.setTodayMemberNum(memberStatisticsService.todayMemberNum());
-        //今日新增商品数量
-        indexStatisticsVO.setTodayGoodsNum(goodsStatisticsService.todayUpperNum());
-        //今日新增店铺数量
-        indexStatisticsVO.setTodayStoreNum(storeStatisticsService.todayStoreNum());
-        //今日新增评论数量
-        indexStatisticsVO.setTodayMemberEvaluation(memberEvaluationStatisticsService.todayMemberEvaluation());
+        indexStatisticsVO.setTodayOrderPrice(Convert.toDouble(counts.get("todayOrderPrice"), 0D));
+        indexStatisticsVO.setTodayMemberNum(Convert.toLong(counts.get("todayMemberNum"), 0L));
+        indexStatisticsVO.setTodayGoodsNum(Convert.toLong(counts.get("todayGoodsNum"), 0L));
+        indexStatisticsVO.setTodayStoreNum(Convert.toLong(counts.get("todayStoreNum"), 0L));
+        indexStatisticsVO.setTodayMemberEvaluation(Convert.toLong(counts.get("todayMemberEvaluation"), 0L));
         //当前在线人数
         indexStatisticsVO.setCurrentNumberPeopleOnline(platformViewService.online());
 
@@ -174,6 +175,43 @@ public class IndexStatisticsServiceImpl implements IndexStatisticsService {
         return indexStatisticsVO;
     }
 
+    /**
+     * 首页会员、商品、店铺数量与今日新增数量
+     * 缓存时间与订单统计当天部分一致，缓存期内首页不再查询会员、商品、店铺表
+     *
+     * @return 数量
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> indexCounts() {
+        Object cached = cache.get(CachePrefix.INDEX_STATISTICS.getPrefix());
+        if (cached instanceof Map) {
+            return (Map<String, Object>) cached;
+        }
+        Map<String, Object> counts = new HashMap<>(16);
+        //获取总会员数量
+        counts.put("memberNum", memberStatisticsService.getMemberCount());
+        //获取总上架商品数量
+        counts.put("goodsNum", goodsStatisticsService.goodsNum(GoodsStatusEnum.UPPER, GoodsAuthEnum.PASS));
+        //获取总店铺数量
+        counts.put("storeNum", storeStatisticsService.storeNum());
+        //今日下单统计
+        Map<String, Object> map = storeFlowStatisticsService.getOrderStatisticsPrice();
+        if (map != null) {
+            counts.put("todayOrderNum", map.get("num"));
+            counts.put("todayOrderPrice", map.get("price"));
+        }
+        //今日新增会员数量
+        counts.put("todayMemberNum", memberStatisticsService.todayMemberNum());
+        //今日新增商品数量
+        counts.put("todayGoodsNum", goodsStatisticsService.todayUpperNum());
+        //今日新增店铺数量
+        counts.put("todayStoreNum", storeStatisticsService.todayStoreNum());
+        //今日新增评论数量
+        counts.put("todayMemberEvaluation", memberEvaluationStatisticsService.todayMemberEvaluation());
+        cache.put(CachePrefix.INDEX_STATISTICS.getPrefix(), counts, statisticsProperties.getTodayCacheSeconds());
+        return counts;
+    }
+
     @Override
     public StoreIndexStatisticsVO storeIndexStatistics() {
 
@@ -0,0 +1,329 @@
+package cn.lili.modules.statistics.serviceimpl;
+
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.lili.cache.Cache;
+import cn.lili.cache.CachePrefix;
+import cn.lili.common.properties.StatisticsProperties;
+import cn.lili.common.utils.CurrencyUtil;
+import cn.lili.modules.order.order.entity.dto.PriceDetailDTO;
+import cn.lili.modules.order.order.entity.enums.RefundStatusEnum;
+import cn.lili.modules.statistics.entity.dos.OrderStatisticsDaily;
+import cn.lili.modules.statistics.entity.dto.OrderStatisticsItemDTO;
+import cn.lili.modules.statistics.mapper.OrderStatisticsDailyMapper;
+import cn.lili.modules.statistics.service.OrderStatisticsDailyService;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * 订单每日统计业务层实现
+ * <p>
+ * 全部店铺汇总某一天时写入店铺ID为空字符串的标记行，已汇总日期由标记行得出，
+ * 与统计数据在同一事务中提交，始终为连续的 [开始日, 结束日]，结束日最晚为昨天。
+ * 查询时已汇总的整天读取每日统计，其余部分实时汇总，通常只剩当天。
+ * <p>
+ * 维度为空的值保存为空字符串，以便唯一索引生效，读取时还原为空。
+ * 同一天的汇总先删除再写入，按统计日加锁，锁在事务结束后释放，避免并发汇总重复写入或用旧数据覆盖新数据。
+ */
+@Slf4j
+@Service
+public class OrderStatisticsDailyServiceImpl extends ServiceImpl<OrderStatisticsDailyMapper, OrderStatisticsDaily> implements OrderStatisticsDailyService {
+
+    /**
+     * 子订单价格明细每批读取数量
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private Cache<Object> cache;
+
+    @Autowired
+    private RedissonClient redisson;
+
+    @Autowired
+    private StatisticsProperties statisticsProperties;
+
+    @Override
+    public List<OrderStatisticsDaily> query(Date startTime, Date endTime, String storeId) {
+        List<OrderStatisticsDaily> result = new ArrayList<>();
+        Date[] range = this.rolledUpRange();
+        if (range != null) {
+            //范围内的第一个和最后一个整天
+            Date first = DateUtil.beginOfDay(startTime);
+            if (first.before(startTime)) {
+                first = DateUtil.offsetDay(first, 1);
+            }
+            Date last = DateUtil.beginOfDay(endTime);
+            if (DateUtil.endOfDay(last).after(endTime)) {
+                last = DateUtil.offsetDay(last, -1);
+            }
+            if (first.before(range[0])) {
+                first = range[0];
+            }
+            if (last.after(range[1])) {
+                last = range[1];
+            }
+            if (!first.after(last)) {
+                QueryWrapper<OrderStatisticsDaily> queryWrapper = new QueryWrapper<>();
+                queryWrapper.between("stat_date", first, last);
+                queryWrapper.eq(CharSequenceUtil.isNotEmpty(storeId), "store_id", storeId);
+                queryWrapper.groupBy("stat_date,payment_method,order_type,delivery_method");
+                result.addAll(this.baseMapper.sumDaily(queryWrapper));
+                if (startTime.before(first)) {
+                    result.addAll(this.fragment(startTime, new Date(first.getTime() - 1), storeId));
+                }
+                Date next = DateUtil.offsetDay(last, 1);
+                if (!endTime.before(next)) {
+                    result.addAll(this.fragment(next, endTime, storeId));
+                }
+                return collapse(result);
+            }
+        }
+        return collapse(this.fragment(startTime, endTime, storeId));
+    }
+
+    @Override
+    public List<OrderStatisticsDaily> build(Date startTime, Date endTime, String storeId) {
+        Map<String, OrderStatisticsDaily> result = new LinkedHashMap<>();
+
+        //订单：下单数量、已付款订单金额
+        QueryWrapper<OrderStatisticsDaily> orderWrapper = new QueryWrapper<>();
+        orderWrapper.between("create_time", startTime, endTime);
+        orderWrapper.eq(CharSequenceUtil.isNotEmpty(storeId), "store_id", storeId);
+        orderWrapper.groupBy("DATE(create_time),store_id,payment_method,order_type,delivery_method");
+        this.baseMapper.sumOrder(orderWrapper).forEach(row -> merge(result, row));
+
+        //子订单：付款、退款
+        QueryWrapper<OrderStatisticsDaily> itemWrapper = new QueryWrapper<>();
+        itemWrapper.between("oi.create_time", startTime, endTime);
+        itemWrapper.eq(CharSequenceUtil.isNotEmpty(storeId), "o.store_id", storeId);
+        itemWrapper.groupBy("DATE(oi.create_time),o.store_id,o.payment_method,o.order_type,o.delivery_method");
+        this.baseMapper.sumOrderItem(itemWrapper).forEach(row -> merge(result, row));
+
+        //子订单价格明细：优惠、运费、分销佣金，按子订单ID游标分批读取
+        String lastId = null;
+        while (true) {
+            QueryWrapper<OrderStatisticsItemDTO> queryWrapper = new QueryWrapper<>();
+            queryWrapper.between("oi.create_time", startTime, endTime);
+            queryWrapper.ne("oi.is_refund", RefundStatusEnum.ALL_REFUND.name());
+            queryWrapper.eq(CharSequenceUtil.isNotEmpty(storeId), "o.store_id", storeId);
+            queryWrapper.gt(lastId != null, "oi.id", lastId);
+            queryWrapper.orderByAsc("oi.id");
+            queryWrapper.last("LIMIT " + BATCH_SIZE);
+            List<OrderStatisticsItemDTO> items = this.baseMapper.listItemPriceDetail(queryWrapper);
+            for (OrderStatisticsItemDTO item : items) {
+                PriceDetailDTO priceDetailDTO = item.getPriceDetailDTO();
+                if (priceDetailDTO == null) {
+                    continue;
+                }
+                OrderStatisticsDaily row = new OrderStatisticsDaily();
+                row.setStatDate(item.getStatDate());
+                row.setStoreId(item.getStoreId());
+                row.setPaymentMethod(item.getPaymentMethod());
+                row.setOrderType(item.getOrderType());
+                row.setDeliveryMethod(item.getDeliveryMethod());
+                row.setDiscountPrice(discountPrice(item, priceDetailDTO));
+                row.setFreightPrice(nullToZero(priceDetailDTO.getFreightPrice()));
+                row.setDistributionPrice(nullToZero(priceDetailDTO.getDistributionCommission()));
+                merge(result, row);
+            }
+            if (items.size() < BATCH_SIZE) {
+                break;
+            }
+            lastId = items.get(items.size() - 1).getId();
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void rebuild(Date day, String storeId) {
+        Date begin = DateUtil.beginOfDay(day);
+        this.lock(begin);
+        LambdaQueryWrapper<OrderStatisticsDaily> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(OrderStatisticsDaily::getStatDate, begin);
+        queryWrapper.eq(CharSequenceUtil.isNotEmpty(storeId), OrderStatisticsDaily::getStoreId, storeId);
+        this.remove(queryWrapper);
+        List<OrderStatisticsDaily> rows = this.build(begin, DateUtil.endOfDay(begin), storeId);
+        rows.forEach(OrderStatisticsDailyServiceImpl::emptyDimension);
+        if (CharSequenceUtil.isEmpty(storeId)) {
+            OrderStatisticsDaily marker = new OrderStatisticsDaily();
+            marker.setStatDate(begin);
+            emptyDimension(marker);
+            if (rows.stream().noneMatch(row -> row.dimension().equals(marker.dimension()))) {
+                rows.add(marker);
+            }
+        }
+        if (!rows.isEmpty()) {
+            this.saveBatch(rows);
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void refresh(Date createTime, String storeId) {
+        if (createTime == null) {
+            return;
+        }
+        Date day = DateUtil.beginOfDay(createTime);
+        //先加锁再读取已汇总范围，读取到的数据不早于前一次汇总
+        this.lock(day);
+        Date[] range = this.rolledUpRange();
+        if (range == null || day.before(range[0]) || day.after(range[1])) {
+            return;
+        }
+        this.rebuild(day, storeId);
+    }
+
+    @Override
+    public Date[] rolledUpRange() {
+        Date from = this.baseMapper.minRolledUpDate();
+        Date to = this.baseMapper.maxRolledUpDate();
+        if (from == null || to == null) {
+            return null;
+        }
+        return new Date[]{DateUtil.beginOfDay(from), DateUtil.beginOfDay(to)};
+    }
+
+    /**
+     * 按统计日加锁，事务结束后释放
+     *
+     * @param day 统计日
+     */
+    private void lock(Date day) {
+        RLock lock = redisson.getLock(CachePrefix.ORDER_STATISTICS_LOCK.getPrefix() + DateUtil.formatDate(day));
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * 按统计日加锁，事务结束后释放
+     *
+     * @param day 统计日
+     */
+    private void lock(Date day) {
+        RLock lock = redisson.getLock(CachePrefix.ORDER_STATISTICS_LOCK.getPrefix() + DateUtil.formatDate(day));
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    @Override
+    public void markRolledUp(Date day) {
+        Date begin = DateUtil.beginOfDay(day);
+        String value = DateUtil.formatDate(begin);
+        Date[] range = this.rolledUpRange();
+        if (range == null) {
+            cache.put(CachePrefix.ORDER_STATISTICS_ROLLUP.getPrefix() + ROLLUP_FROM, value);
+            cache.put(CachePrefix.ORDER_STATISTICS_ROLLUP.getPrefix() + ROLLUP_TO, value);
+        } else if (begin.getTime() == DateUtil.offsetDay(range[1], 1).getTime()) {
+            cache.put(CachePrefix.ORDER_STATISTICS_ROLLUP.getPrefix() + ROLLUP_TO, value);
+        } else if (begin.getTime() == DateUtil.offsetDay(range[0], -1).getTime()) {
+            cache.put(CachePrefix.ORDER_STATISTICS_ROLLUP.getPrefix() + ROLLUP_FROM, value);
+        }
+    }
+
+    /**
+     * 空维度保存为空字符串，唯一索引中 NULL 互不相等
+     */
+    private static void emptyDimension(OrderStatisticsDaily row) {
+        row.setStoreId(CharSequenceUtil.nullToEmpty(row.getStoreId()));
+        row.setPaymentMethod(CharSequenceUtil.nullToEmpty(row.getPaymentMethod()));
+        row.setOrderType(CharSequenceUtil.nullToEmpty(row.getOrderType()));
+        row.setDeliveryMethod(CharSequenceUtil.nullToEmpty(row.getDeliveryMethod()));
+    }
+
+    /**
+     * 实时汇总未汇总的部分（当天，或回填完成前的历史），短时缓存，避免首页等高频查询反复扫描订单表
+     */
+    @SuppressWarnings("unchecked")
+    private List<OrderStatisticsDaily> fragment(Date startTime, Date endTime, String storeId) {
+        String cacheKey = CachePrefix.ORDER_STATISTICS_TODAY.getPrefix() + startTime.getTime() + "_" + endTime.getTime()
+                + "_" + CharSequenceUtil.nullToEmpty(storeId);
+        Object cached = cache.get(cacheKey);
+        if (cached instanceof List) {
+            return (List<OrderStatisticsDaily>) cached;
+        }
+        List<OrderStatisticsDaily> rows = this.build(startTime, endTime, storeId);
+        cache.put(cacheKey, rows, statisticsProperties.getTodayCacheSeconds());
+        return rows;
+    }
+
+    /**
+     * 合并不同店铺的数据，按 统计日、支付方式、订单类型、配送方式 汇总
+     */
+    private static List<OrderStatisticsDaily> collapse(List<OrderStatisticsDaily> rows) {
+        Map<String, OrderStatisticsDaily> result = new LinkedHashMap<>();
+        for (OrderStatisticsDaily row : rows) {
+            row.setStoreId(null);
+            merge(result, row);
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    /**
+     * 按维度合并统计数据
+     */
+    private static void merge(Map<String, OrderStatisticsDaily> result, OrderStatisticsDaily row) {
+        OrderStatisticsDaily existed = result.putIfAbsent(row.dimension(), row);
+        if (existed == null) {
+            return;
+        }
+        existed.setOrderNum(existed.getOrderNum() + row.getOrderNum());
+        existed.setPaidOrderPrice(CurrencyUtil.add(existed.getPaidOrderPrice(), row.getPaidOrderPrice()));
+        existed.setItemOrderNum(existed.getItemOrderNum() + row.getItemOrderNum());
+        existed.setPayOrderNum(existed.getPayOrderNum() + row.getPayOrderNum());
+        existed.setPayOrderPrice(CurrencyUtil.add(existed.getPayOrderPrice(), row.getPayOrderPrice()));
+        existed.setGoodsPrice(CurrencyUtil.add(existed.getGoodsPrice(), row.getGoodsPrice()));
+        existed.setDiscountPrice(CurrencyUtil.add(existed.getDiscountPrice(), row.getDiscountPrice()));
+        existed.setFreightPrice(CurrencyUtil.add(existed.getFreightPrice(), row.getFreightPrice()));
+        existed.setDistributionPrice(CurrencyUtil.add(existed.getDistributionPrice(), row.getDistributionPrice()));
+        existed.setRefundOrderNum(existed.getRefundOrderNum() + row.getRefundOrderNum());
+        existed.setRefundPrice(CurrencyUtil.add(existed.getRefundPrice(), row.getRefundPrice()));
+    }
+
+    /**
+     * 子订单优惠金额，未退款计算全部优惠金额，部分退款按剩余数量比例计算
+     */
+    private static Double discountPrice(OrderStatisticsItemDTO item, PriceDetailDTO priceDetailDTO) {
+        Double discountPrice = CurrencyUtil.add(nullToZero(priceDetailDTO.getDiscountPrice()), nullToZero(priceDetailDTO.getCouponPrice()));
+        if (RefundStatusEnum.NO_REFUND.name().equals(item.getIsRefund())) {
+            return discountPrice;
+        }
+        Integer totalNum = item.getNum();
+        Integer returnNum = item.getReturnGoodsNumber();
+        if (totalNum == null || totalNum <= 0 || returnNum == null || returnNum < 0) {
+            return discountPrice;
+        }
+        int remainingNum = totalNum - returnNum;
+        if (remainingNum <= 0) {
+            return 0D;
+        }
+        Double ratio = CurrencyUtil.div(remainingNum, totalNum.doubleValue(), 4);
+        return CurrencyUtil.mul(discountPrice, ratio);
+    }
+
+    private static Double nullToZero(Double value) {
+        return value == null ? 0D : value;
+    }
+}
@@ -1,6 +1,8 @@
 package cn.lili.modules.statistics.serviceimpl;
 
+import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.text.CharSequenceUtil;
+import cn.lili.common.security.AuthUser;
 import cn.lili.common.security.context.UserContext;
 import cn.lili.common.security.enums.UserEnums;
 import cn.lili.common.utils.CurrencyUtil;
@@ -8,19 +10,16 @@ import cn.lili.common.utils.StringUtils;
 import cn.lili.common.vo.PageVO;
 import cn.lili.modules.order.cart.entity.enums.DeliveryMethodEnum;
 import cn.lili.modules.order.order.entity.dos.Order;
-import cn.lili.modules.order.order.entity.dos.OrderItem;
-import cn.lili.modules.order.order.entity.dto.PriceDetailDTO;
 import cn.lili.modules.order.order.entity.enums.FlowTypeEnum;
 import cn.lili.modules.order.order.entity.enums.OrderTypeEnum;
-import cn.lili.modules.order.order.entity.enums.PayStatusEnum;
-import cn.lili.modules.order.order.entity.enums.RefundStatusEnum;
 import cn.lili.modules.order.order.entity.vo.OrderSimpleVO;
-import cn.lili.modules.order.order.service.OrderItemService;
 import cn.lili.modules.payment.entity.enums.PaymentMethodEnum;
+import cn.lili.modules.statistics.entity.dos.OrderStatisticsDaily;
 import cn.lili.modules.statistics.entity.dto.StatisticsQueryParam;
 import cn.lili.modules.statistics.entity.vo.OrderOverviewVO;
 import cn.lili.modules.statistics.entity.vo.OrderStatisticsDataVO;
 import cn.lili.modules.statistics.mapper.OrderStatisticsMapper;
+import cn.lili.modules.statistics.service.OrderStatisticsDailyService;
 import cn.lili.modules.statistics.service.OrderStatisticsService;
 import cn.lili.modules.statistics.service.PlatformViewService;
 import cn.lili.modules.statistics.service.StoreFlowStatisticsService;
@@ -35,6 +34,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * 订单统计业务层实现
@@ -55,8 +56,9 @@ public class OrderStatisticsServiceImpl extends ServiceImpl<OrderStatisticsMappe
 
     @Autowired
     private StoreFlowStatisticsService storeFlowStatisticsService;
+
     @Autowired
-    private OrderItemService orderItemService;
+    private OrderStatisticsDailyService orderStatisticsDailyService;
 
     @Override
     public OrderOverviewVO overview(StatisticsQueryParam statisticsQueryParam) {
@@ -108,19 +110,22 @@ public class OrderStatisticsServiceImpl extends ServiceImpl<OrderStatisticsMappe
 
     @Override
     public long orderNum(String orderStatus) {
+        AuthUser currentUser = Objects.requireNonNull(UserContext.getCurrentUser());
+        String storeId = UserEnums.STORE.equals(currentUser.getRole()) ? currentUser.getStoreId() : null;
+        //全部订单数量从每日统计汇总，订单状态是当前状态，仍查询订单表
+        if (CharSequenceUtil.isEmpty(orderStatus)) {
+            return this.sum(new Date[]{new Date(0), DateUtil.endOfDay(new Date())}, storeId, null, OrderStatisticsDaily::getOrderNum);
+        }
         LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(CharSequenceUtil.isNotEmpty(orderStatus), Order::getOrderStatus, orderStatus);
-        queryWrapper.eq(CharSequenceUtil.equals(Objects.requireNonNull(UserContext.getCurrentUser()).getRole().name(), UserEnums.STORE.name()),
-                Order::getStoreId, UserContext.getCurrentUser().getStoreId());
+        queryWrapper.eq(Order::getOrderStatus, orderStatus);
+        queryWrapper.eq(storeId != null, Order::getStoreId, storeId);
         return this.count(queryWrapper);
     }
 
     @Override
     public long orderNum(String paymentMethod, Date[] dates) {
-        LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(CharSequenceUtil.isNotEmpty(paymentMethod), Order::getPaymentMethod, paymentMethod);
-        queryWrapper.between(Order::getCreateTime, dates[0], dates[1]);
-        return this.count(queryWrapper);
+        return this.sum(dates, null, row -> CharSequenceUtil.isEmpty(paymentMethod) || paymentMethod.equals(row.getPaymentMethod()),
+                OrderStatisticsDaily::getOrderNum);
     }
 
 
@@ -130,195 +135,113 @@ public class OrderStatisticsServiceImpl extends ServiceImpl<OrderStatisticsMappe
         if (dates == null || dates.length < 2) {
             return 0.0;
         }
-        
-        // 构建查询条件：按时间范围过滤，排除全部退款的订单项
-        LambdaQueryWrapper<OrderItem> queryWrapper = new LambdaQueryWrapper<OrderItem>()
-                .ne(OrderItem::getIsRefund, RefundStatusEnum.ALL_REFUND.name())
-                .between(OrderItem::getCreateTime, dates[0], dates[1]);
-        
-        List<OrderItem> orderItems = orderItemService.list(queryWrapper);
-        
-        if (orderItems.isEmpty()) {
-            return 0.0;
-        }
-        
-        Double totalDiscountPrice = 0.0;
-        
-        for (OrderItem orderItem : orderItems) {
-            PriceDetailDTO priceDetailDTO = orderItem.getPriceDetailDTO();
-            if (priceDetailDTO == null) {
-                continue;
-            }
-            
-            Double itemDiscountPrice = calculateItemDiscountPrice(priceDetailDTO);
-            
-            if (RefundStatusEnum.NO_REFUND.name().equals(orderItem.getIsRefund())) {
-                // 未退款：计算全部优惠金额
-                totalDiscountPrice = CurrencyUtil.add(totalDiscountPrice, itemDiscountPrice);
-            } else {
-                // 部分退款：按比例计算剩余优惠金额
-                Double remainingDiscountPrice = calculateRemainingDiscountPrice(
-                        itemDiscountPrice, orderItem.getNum(), orderItem.getReturnGoodsNumber());
-                totalDiscountPrice = CurrencyUtil.add(totalDiscountPrice, remainingDiscountPrice);
-            }
-        }
-        
-        return totalDiscountPrice;
+        return this.sumPrice(dates, null, OrderStatisticsDaily::getDiscountPrice);
     }
 
     @Override
     public long getPayOrderNum(Date[] dates) {
-
-        LambdaQueryWrapper<OrderItem> orderItemLambdaQueryWrapper=new LambdaQueryWrapper<>();
-
-        orderItemLambdaQueryWrapper.between(OrderItem::getCreateTime,dates[0], dates[1]);
-        orderItemLambdaQueryWrapper.ne(OrderItem::getIsRefund,RefundStatusEnum.ALL_REFUND.name());
-
-        return this.baseMapper.getPayOrderNum(orderItemLambdaQueryWrapper);
+        return this.sum(dates, null, null, OrderStatisticsDaily::getPayOrderNum);
     }
 
     @Override
     public Double getPayOrderPrice(Date[] dates, PaymentMethodEnum paymentMethodEnum, DeliveryMethodEnum deliveryMethodEnum) {
-
-        //查看付款金额
-        QueryWrapper queryWrapper = Wrappers.query();
-
-        queryWrapper.between("oi.create_time", dates[0], dates[1]);
-        queryWrapper.ne("oi.is_refund", RefundStatusEnum.ALL_REFUND.name());
-
-        if(Objects.nonNull(paymentMethodEnum)){
-            queryWrapper.eq("o.payment_method",paymentMethodEnum.name());
-        }
-        if(Objects.nonNull(deliveryMethodEnum)){
-            if(DeliveryMethodEnum.VIRTUAL.equals(deliveryMethodEnum)){
-                queryWrapper.eq("o.order_type", OrderTypeEnum.VIRTUAL.name());
-            }else{
-                queryWrapper.eq("o.delivery_method",deliveryMethodEnum.name());
+        return this.sumPrice(dates, row -> {
+            if (Objects.nonNull(paymentMethodEnum) && !paymentMethodEnum.name().equals(row.getPaymentMethod())) {
+                return false;
             }
-
-        }
-        return this.baseMapper.getPayOrderPrice(queryWrapper);
-
+            if (Objects.isNull(deliveryMethodEnum)) {
+                return true;
+            }
+            if (DeliveryMethodEnum.VIRTUAL.equals(deliveryMethodEnum)) {
+                return OrderTypeEnum.VIRTUAL.name().equals(row.getOrderType());
+            }
+            return deliveryMethodEnum.name().equals(row.getDeliveryMethod());
+        }, OrderStatisticsDaily::getPayOrderPrice);
     }
 
     @Override
     public Double getGoodsPrice(Date[] dates) {
-        LambdaQueryWrapper<OrderItem> orderItemLambdaQueryWrapper=new LambdaQueryWrapper<>();
-
-        orderItemLambdaQueryWrapper.between(OrderItem::getCreateTime,dates[0], dates[1]);
-        orderItemLambdaQueryWrapper.ne(OrderItem::getIsRefund,RefundStatusEnum.ALL_REFUND.name());
-
-        return this.baseMapper.getGoodsPrice(orderItemLambdaQueryWrapper);
+        return this.sumPrice(dates, null, OrderStatisticsDaily::getGoodsPrice);
     }
 
     @Override
     public Double getFreight(Date[] dates) {
-
-        LambdaQueryWrapper<OrderItem> orderItemLambdaQueryWrapper=new LambdaQueryWrapper<>();
-
-        orderItemLambdaQueryWrapper.between(OrderItem::getCreateTime,dates[0], dates[1]);
-        orderItemLambdaQueryWrapper.ne(OrderItem::getIsRefund,RefundStatusEnum.ALL_REFUND.name());
-
-        List<OrderItem> orderItems=orderItemService.list(orderItemLambdaQueryWrapper);
-        Double freight=0D;
-        for (OrderItem orderItem:orderItems){
-            PriceDetailDTO priceDetailDTO=orderItem.getPriceDetailDTO();
-            freight=CurrencyUtil.add(freight,priceDetailDTO.getFreightPrice());
-        }
-        return freight;
+        return this.sumPrice(dates, null, OrderStatisticsDaily::getFreightPrice);
     }
 
     @Override
     public Double getDistribution(Date[] dates) {
-        LambdaQueryWrapper<OrderItem> orderItemLambdaQueryWrapper=new LambdaQueryWrapper<>();
-
-        orderItemLambdaQueryWrapper.between(OrderItem::getCreateTime,dates[0], dates[1]);
-        orderItemLambdaQueryWrapper.ne(OrderItem::getIsRefund,RefundStatusEnum.ALL_REFUND.name());
-
-        List<OrderItem> orderItems=orderItemService.list(orderItemLambdaQueryWrapper);
-        Double distributionCommission=0D;
-        for (OrderItem orderItem:orderItems){
-            PriceDetailDTO priceDetailDTO=orderItem.getPriceDetailDTO();
-            distributionCommission=CurrencyUtil.add(distributionCommission,priceDetailDTO.getDistributionCommission());
-        }
-        return distributionCommission;
+        return this.sumPrice(dates, null, OrderStatisticsDaily::getDistributionPrice);
     }
 
     @Override
     public Long getRefundNum(Date[] dates) {
-        LambdaQueryWrapper<OrderItem> orderItemLambdaQueryWrapper=new LambdaQueryWrapper<>();
-
-        orderItemLambdaQueryWrapper.between(OrderItem::getCreateTime,dates[0], dates[1]);
-        orderItemLambdaQueryWrapper.eq(OrderItem::getIsRefund,RefundStatusEnum.ALL_REFUND.name());
-
-        return this.baseMapper.getPayOrderNum(orderItemLambdaQueryWrapper);
+        return this.sum(dates, null, null, OrderStatisticsDaily::getRefundOrderNum);
     }
 
     @Override
     public Double getRefundPrice(Date[] dates) {
-
-        QueryWrapper queryWrapper = Wrappers.query();
-
-        queryWrapper.between("oi.create_time", dates[0], dates[1]);
-        queryWrapper.eq("oi.is_refund", RefundStatusEnum.ALL_REFUND.name());
-
-
-        return this.baseMapper.getRefundPrice(queryWrapper);
+        return this.sumPrice(dates, null, OrderStatisticsDaily::getRefundPrice);
     }
 
     @Override
     public Double getRefundRate(Date[] dates) {
-
-        QueryWrapper queryWrapper = Wrappers.query();
-
-        queryWrapper.between("create_time", dates[0], dates[1]);
-
-
-        Long orderNum= this.baseMapper.getPayOrderNum(queryWrapper);
-        return CurrencyUtil.mul(CurrencyUtil.div(this.getRefundNum(dates),orderNum),100);
+        long orderNum = this.sum(dates, null, null, OrderStatisticsDaily::getItemOrderNum);
+        return CurrencyUtil.mul(CurrencyUtil.div(this.getRefundNum(dates), orderNum), 100);
     }
 
     /**
-     * 计算订单项的优惠金额
+     * 汇总数量
+     *
+     * @param dates   时间范围
+     * @param storeId 店铺ID
+     * @param filter  过滤条件，为空时不过滤
+     * @param value   统计项
+     * @return 数量
      */
-    private Double calculateItemDiscountPrice(PriceDetailDTO priceDetailDTO) {
-        Double discountPrice = priceDetailDTO.getDiscountPrice() != null ? priceDetailDTO.getDiscountPrice() : 0.0;
-        Double couponPrice = priceDetailDTO.getCouponPrice() != null ? priceDetailDTO.getCouponPrice() : 0.0;
-        return CurrencyUtil.add(discountPrice, couponPrice);
+    private long sum(Date[] dates, String storeId, Predicate<OrderStatisticsDaily> filter, Function<OrderStatisticsDaily, Long> value) {
+        long total = 0;
+        for (OrderStatisticsDaily row : orderStatisticsDailyService.query(dates[0], dates[1], storeId)) {
+            if (filter == null || filter.test(row)) {
+                total += value.apply(row);
+            }
+        }
+        return total;
     }
 
     /**
-     * 计算部分退款后的剩余优惠金额
+     * 汇总金额
+     *
+     * @param dates  时间范围
+     * @param filter 过滤条件，为空时不过滤
+     * @param value  统计项
+     * @return 金额
      */
-    private Double calculateRemainingDiscountPrice(Double totalDiscountPrice, Integer totalNum, Integer returnNum) {
-        if (totalNum == null || totalNum <= 0 || returnNum == null || returnNum < 0) {
-            return totalDiscountPrice;
-        }
-        
-        Integer remainingNum = totalNum - returnNum;
-        if (remainingNum <= 0) {
-            return 0.0;
+    private Double sumPrice(Date[] dates, Predicate<OrderStatisticsDaily> filter, Function<OrderStatisticsDaily, Double> value) {
+        Double total = 0D;
+        for (OrderStatisticsDaily row : orderStatisticsDailyService.query(dates[0], dates[1], null)) {
+            if (filter == null || filter.test(row)) {
+                total = CurrencyUtil.add(total, value.apply(row));
+            }
         }
-        
-        // 按剩余数量比例计算优惠金额
-        Double ratio = CurrencyUtil.div(remainingNum.doubleValue(), totalNum.doubleValue(), 4);
-        return CurrencyUtil.mul(totalDiscountPrice, ratio);
+        return total;
     }
 
 
     @Override
     public List<OrderStatisticsDataVO> statisticsChart(StatisticsQueryParam statisticsQueryParam) {
         Date[] dates = StatisticsDateUtil.getDateArray(statisticsQueryParam);
-        QueryWrapper queryWrapper = new QueryWrapper();
-        //已支付
-        queryWrapper.eq("pay_status", PayStatusEnum.PAID.name());
-        //选择商家判定
-        queryWrapper.eq(StringUtils.isNotEmpty(statisticsQueryParam.getStoreId()), "store_id", statisticsQueryParam.getStoreId());
-//      查询时间区间
-        queryWrapper.between("create_time", dates[0], dates[1]);
-//       格式化时间
-        queryWrapper.groupBy("DATE_FORMAT(create_time,'%Y-%m-%d')");
-        List<OrderStatisticsDataVO> orderStatisticsDataVOS = this.baseMapper.getOrderStatisticsData(queryWrapper);
+        //已支付订单金额按天汇总
+        Map<Long, OrderStatisticsDataVO> dailyPrice = new HashMap<>(32);
+        for (OrderStatisticsDaily row : orderStatisticsDailyService.query(dates[0], dates[1], statisticsQueryParam.getStoreId())) {
+            OrderStatisticsDataVO item = dailyPrice.computeIfAbsent(row.getStatDate().getTime(), time -> {
+                OrderStatisticsDataVO orderStatisticsDataVO = new OrderStatisticsDataVO();
+                orderStatisticsDataVO.setPrice(0d);
+                orderStatisticsDataVO.setCreateTime(new Date(time));
+                return orderStatisticsDataVO;
+            });
+            item.setPrice(CurrencyUtil.add(item.getPrice(), row.getPaidOrderPrice()));
+        }
         Calendar calendar = Calendar.getInstance();
         calendar.setTime(dates[0]);
 
@@ -326,13 +249,8 @@ public class OrderStatisticsServiceImpl extends ServiceImpl<OrderStatisticsMappe
         //时间判定，将数据填充好
         //如果当前的时间，在结束时间之前
         while (calendar.getTime().before(dates[1])) {
-            OrderStatisticsDataVO item = null;
             //判定是否已经有这一天的数据
-            for (OrderStatisticsDataVO orderStatisticsDataVO : orderStatisticsDataVOS) {
-                if (orderStatisticsDataVO.getCreateTime().equals(calendar.getTime())) {
-                    item = orderStatisticsDataVO;
-                }
-            }
+            OrderStatisticsDataVO item = dailyPrice.get(calendar.getTimeInMillis());
             //如果数据不存在，则进行数据填充
             if (item == null) {
                 item = new OrderStatisticsDataVO();
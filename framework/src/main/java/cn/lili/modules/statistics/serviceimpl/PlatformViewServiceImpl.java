@@ -6,9 +6,9 @@ import cn.lili.common.enums.ClientTypeEnum;
 import cn.lili.common.enums.ResultCode;
 import cn.lili.common.exception.ServiceException;
 import cn.lili.common.properties.StatisticsProperties;
-import cn.lili.common.security.enums.UserEnums;
 import cn.lili.common.utils.CurrencyUtil;
 import cn.lili.modules.member.entity.vo.MemberDistributionVO;
+import cn.lili.modules.statistics.collector.OnlineMemberCollector;
 import cn.lili.modules.statistics.entity.dos.PlatformViewData;
 import cn.lili.modules.statistics.entity.dto.StatisticsQueryParam;
 import cn.lili.modules.statistics.entity.enums.SearchTypeEnum;
@@ -58,6 +58,11 @@ public class PlatformViewServiceImpl extends ServiceImpl<PlatformViewMapper, Pla
      */
     @Autowired
     private Cache cache;
+    /**
+     * 在线会员
+     */
+    @Autowired
+    private OnlineMemberCollector onlineMemberCollector;
 
     @Override
     public Long online() {
@@ -66,8 +71,8 @@ public class PlatformViewServiceImpl extends ServiceImpl<PlatformViewMapper, Pla
         if (null != object) {
             return (Long) object;
         }
-        //这里统计的是有效的accessToken ，如果需要数据精确，需要调整accessToken的有效时间，开发人员建议2小时误差较为合适
-        Long num = Long.valueOf(cache.keys(CachePrefix.ACCESS_TOKEN.getPrefix(UserEnums.MEMBER) + "*").size());
+        //统计在线判定窗口内有过请求的会员，由分钟桶合并得出
+        Long num = onlineMemberCollector.online();
         cache.put(CachePrefix.ONLINE_NUM.getPrefix(), num, statisticsProperties.getCurrentOnlineUpdate().longValue());
         return num;
     }
@@ -0,0 +1,58 @@
+package cn.lili.modules.store.entity.dto;
+
+import cn.lili.modules.store.entity.vos.FreightTemplateVO;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 店铺运费规则索引
+ * <p>
+ * 店铺全部运费模板编译后的结果，按模板ID、地区ID查找计费规则，
+ * 保存在店铺运费模板缓存中，运费模板修改时失效。编译后只读，不应修改。
+ */
+@Data
+public class FreightRuleIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 店铺ID
+     */
+    private String storeId;
+
+    /**
+     * 运费模板ID -> 编译后的运费模板
+     */
+    private Map<String, FreightTemplateRule> templates;
+
+    /**
+     * 编译店铺运费模板
+     *
+     * @param storeId          店铺ID
+     * @param freightTemplates 店铺运费模板
+     * @return 运费规则索引
+     */
+    public static FreightRuleIndex compile(String storeId, List<FreightTemplateVO> freightTemplates) {
+        FreightRuleIndex index = new FreightRuleIndex();
+        index.setStoreId(storeId);
+        index.setTemplates(new HashMap<>(Math.max(freightTemplates.size() * 2, 4)));
+        for (FreightTemplateVO freightTemplate : freightTemplates) {
+            index.getTemplates().put(freightTemplate.getId(), FreightTemplateRule.compile(freightTemplate));
+        }
+        return index;
+    }
+
+    /**
+     * 获取编译后的运费模板
+     *
+     * @param freightTemplateId 运费模板ID
+     * @return 编译后的运费模板，不属于该店铺时为空
+     */
+    public FreightTemplateRule template(String freightTemplateId) {
+        return templates == null ? null : templates.get(freightTemplateId);
+    }
+}
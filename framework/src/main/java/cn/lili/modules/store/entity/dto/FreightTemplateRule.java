@@ -0,0 +1,101 @@
+package cn.lili.modules.store.entity.dto;
+
+import cn.lili.modules.store.entity.dos.FreightTemplateChild;
+import cn.lili.modules.store.entity.enums.FreightTemplateEnum;
+import cn.lili.modules.store.entity.vos.FreightTemplateVO;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的运费模板
+ * <p>
+ * 子模板的地区ID展开为 地区ID -> 计费规则 的映射，按地区匹配规则为一次哈希查找。
+ * 同一地区出现在多个子模板中时，以排在前面的子模板为准，与逐个子模板匹配的结果一致。
+ * 编译后只读，不应修改。
+ */
+@Data
+public class FreightTemplateRule implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 运费模板ID
+     */
+    private String id;
+
+    /**
+     * 计价方式
+     *
+     * @see FreightTemplateEnum
+     */
+    private String pricingMethod;
+
+    /**
+     * 是否计算运费，模板包邮或没有子模板时不计算
+     */
+    private Boolean charged;
+
+    /**
+     * 计费规则，不含地区信息
+     */
+    private List<FreightTemplateChildDTO> rules;
+
+    /**
+     * 地区ID -> 计费规则下标
+     */
+    private Map<String, Integer> areaRules;
+
+    /**
+     * 编译运费模板
+     *
+     * @param freightTemplate 运费模板
+     * @return 编译后的运费模板
+     */
+    public static FreightTemplateRule compile(FreightTemplateVO freightTemplate) {
+        FreightTemplateRule rule = new FreightTemplateRule();
+        rule.setId(freightTemplate.getId());
+        rule.setPricingMethod(freightTemplate.getPricingMethod());
+        rule.setRules(new ArrayList<>());
+        rule.setAreaRules(new HashMap<>());
+        List<FreightTemplateChild> children = freightTemplate.getFreightTemplateChildList();
+        rule.setCharged(children != null && !children.isEmpty()
+                && !FreightTemplateEnum.FREE.name().equals(freightTemplate.getPricingMethod()));
+        if (!rule.getCharged()) {
+            return rule;
+        }
+        for (FreightTemplateChild child : children) {
+            FreightTemplateChildDTO childDTO = new FreightTemplateChildDTO(child);
+            childDTO.setPricingMethod(freightTemplate.getPricingMethod());
+            childDTO.setArea(null);
+            childDTO.setAreaId(null);
+            int index = rule.getRules().size();
+            rule.getRules().add(childDTO);
+            if (child.getAreaId() == null) {
+                continue;
+            }
+            for (String areaId : child.getAreaId().split(",")) {
+                areaId = areaId.trim();
+                if (!areaId.isEmpty()) {
+                    rule.getAreaRules().putIfAbsent(areaId, index);
+                }
+            }
+        }
+        return rule;
+    }
+
+    /**
+     * 匹配地区的计费规则
+     *
+     * @param areaId 地区ID
+     * @return 计费规则，不支持配送时为空
+     */
+    public FreightTemplateChildDTO match(String areaId) {
+        Integer index = areaRules == null ? null : areaRules.get(areaId);
+        return index == null ? null : rules.get(index);
+    }
+}
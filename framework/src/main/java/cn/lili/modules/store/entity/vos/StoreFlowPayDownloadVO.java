@@ -19,6 +19,9 @@ import java.util.Date;
 @Data
 public class StoreFlowPayDownloadVO {
 
+    @ApiModelProperty(value = "流水ID，分批导出游标")
+    private String id;
+
     @CreatedDate
     @JsonFormat(timezone = "GMT+8", pattern = "yyyy-MM-dd HH:mm:ss")
     @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
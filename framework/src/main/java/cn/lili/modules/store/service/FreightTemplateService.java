@@ -2,6 +2,7 @@ package cn.lili.modules.store.service;
 
 import cn.lili.common.vo.PageVO;
 import cn.lili.modules.store.entity.dos.FreightTemplate;
+import cn.lili.modules.store.entity.dto.FreightRuleIndex;
 import cn.lili.modules.store.entity.vos.FreightTemplateVO;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
@@ -36,6 +37,15 @@ public interface FreightTemplateService extends IService<FreightTemplate> {
      */
     List<FreightTemplateVO> getFreightTemplateList(String storeId);
 
+    /**
+     * 获取店铺运费规则索引
+     * 店铺运费模板编译后的结果，按模板ID、地区ID直接查找计费规则
+     *
+     * @param storeId 店铺ID
+     * @return 运费规则索引
+     */
+    FreightRuleIndex getFreightRuleIndex(String storeId);
+
     /**
      * 获取运费模板详细信息
      *
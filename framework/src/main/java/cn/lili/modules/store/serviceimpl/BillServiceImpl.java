@@ -2,11 +2,12 @@ package cn.lili.modules.store.serviceimpl;
 
 import cn.hutool.core.date.DateTime;
 import cn.hutool.core.date.DateUtil;
-import cn.hutool.core.io.IoUtil;
-import cn.hutool.poi.excel.ExcelUtil;
-import cn.hutool.poi.excel.ExcelWriter;
 import cn.lili.common.enums.ResultCode;
+import cn.lili.common.excel.ExcelColumn;
+import cn.lili.common.excel.KeysetReader;
+import cn.lili.common.excel.StreamingExcelWriter;
 import cn.lili.common.exception.ServiceException;
+import cn.lili.common.properties.ExportProperties;
 import cn.lili.common.security.context.UserContext;
 import cn.lili.common.security.enums.UserEnums;
 import cn.lili.common.utils.CurrencyUtil;
@@ -35,13 +36,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
-import java.net.URLEncoder;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 结算单业务层实现
@@ -52,6 +50,70 @@ import java.util.Map;
 @Service
 public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements BillService {
 
+    /**
+     * 结算单导出列
+     */
+    private static final List<ExcelColumn<Bill>> BILL_COLUMNS = Arrays.asList(
+            ExcelColumn.of("创建时间", 15, bill -> DateUtil.format(bill.getCreateTime(), "yyyy-MM-dd")),
+            ExcelColumn.of("账单号", 30, Bill::getSn),
+            ExcelColumn.of("结算开始时间", 15, bill -> DateUtil.format(bill.getStartTime(), "yyyy-MM-dd")),
+            ExcelColumn.of("结算结束时间", 15, bill -> DateUtil.format(bill.getEndTime(), "yyyy-MM-dd")),
+            ExcelColumn.of("账单状态", bill -> BillStatusEnum.valueOf(bill.getBillStatus()).description()),
+            ExcelColumn.of("店铺名称", 15, Bill::getStoreName),
+            ExcelColumn.of("平台付款时间", 15, bill -> DateUtil.format(bill.getPayTime(), "yyyy-MM-dd")),
+            ExcelColumn.of("银行开户名", 15, Bill::getBankAccountName),
+            ExcelColumn.of("银行账号", 15, Bill::getBankAccountNumber),
+            ExcelColumn.of("开户行", 15, Bill::getBankName),
+            ExcelColumn.of("联行号", Bill::getBankCode),
+            ExcelColumn.of("订单金额", Bill::getOrderPrice),
+            ExcelColumn.of("退单金额", Bill::getRefundPrice),
+            ExcelColumn.of("平台收取服务费", 15, Bill::getCommissionPrice),
+            ExcelColumn.of("退单退回平台服务费", 25, Bill::getRefundCommissionPrice),
+            ExcelColumn.of("分销佣金", Bill::getDistributionCommission),
+            ExcelColumn.of("退单退还分销佣金", 20, Bill::getDistributionRefundCommission),
+            ExcelColumn.of("平台优惠券补贴", 15, Bill::getSiteCouponCommission),
+            ExcelColumn.of("退单退回平台优惠券补贴", 25, Bill::getSiteCouponRefundCommission),
+            ExcelColumn.of("积分商品补贴", 15, Bill::getPointSettlementPrice),
+            ExcelColumn.of("退单退回积分商品补贴", 25, Bill::getPointRefundSettlementPrice),
+            ExcelColumn.of("砍价商品补贴", 15, Bill::getKanjiaSettlementPrice),
+            ExcelColumn.of("退单退回砍价补贴", 25, Bill::getKanjiaRefundSettlementPrice),
+            ExcelColumn.of("最终结算金额", 15, Bill::getBillPrice));
+
+    /**
+     * 入账流水导出列
+     */
+    private static final List<ExcelColumn<StoreFlowPayDownloadVO>> PAY_FLOW_COLUMNS = Arrays.asList(
+            ExcelColumn.of("入账时间", 20, StoreFlowPayDownloadVO::getCreateTime),
+            ExcelColumn.of("订单编号", 35, StoreFlowPayDownloadVO::getOrderSn),
+            ExcelColumn.of("店铺名称", 20, StoreFlowPayDownloadVO::getStoreName),
+            ExcelColumn.of("商品名称", 70, StoreFlowPayDownloadVO::getGoodsName),
+            ExcelColumn.of("销售量", StoreFlowPayDownloadVO::getNum),
+            ExcelColumn.of("订单金额", StoreFlowPayDownloadVO::getFinalPrice),
+            ExcelColumn.of("平台分佣", StoreFlowPayDownloadVO::getCommissionPrice),
+            ExcelColumn.of("平台优惠券", 12, StoreFlowPayDownloadVO::getSiteCouponPrice),
+            ExcelColumn.of("分销金额", StoreFlowPayDownloadVO::getDistributionRebate),
+            ExcelColumn.of("积分结算金额", 12, StoreFlowPayDownloadVO::getPointSettlementPrice),
+            ExcelColumn.of("砍价结算金额", 12, StoreFlowPayDownloadVO::getKanjiaSettlementPrice),
+            ExcelColumn.of("应结金额", 20, StoreFlowPayDownloadVO::getBillPrice));
+
+    /**
+     * 退款流水导出列
+     */
+    private static final List<ExcelColumn<StoreFlowRefundDownloadVO>> REFUND_FLOW_COLUMNS = Arrays.asList(
+            ExcelColumn.of("入账时间", 20, StoreFlowRefundDownloadVO::getCreateTime),
+            ExcelColumn.of("订单编号", 35, StoreFlowRefundDownloadVO::getOrderSn),
+            ExcelColumn.of("售后单号", 35, StoreFlowRefundDownloadVO::getRefundSn),
+            ExcelColumn.of("店铺名称", 20, StoreFlowRefundDownloadVO::getStoreName),
+            ExcelColumn.of("商品名称", 70, StoreFlowRefundDownloadVO::getGoodsName),
+            ExcelColumn.of("退款量", StoreFlowRefundDownloadVO::getNum),
+            ExcelColumn.of("退款金额", StoreFlowRefundDownloadVO::getFinalPrice),
+            ExcelColumn.of("平台分佣", StoreFlowRefundDownloadVO::getCommissionPrice),
+            ExcelColumn.of("平台优惠券", 12, StoreFlowRefundDownloadVO::getSiteCouponPrice),
+            ExcelColumn.of("分销金额", StoreFlowRefundDownloadVO::getDistributionRebate),
+            ExcelColumn.of("积分结算金额", 12, StoreFlowRefundDownloadVO::getPointSettlementPrice),
+            ExcelColumn.of("砍价结算金额", 12, StoreFlowRefundDownloadVO::getKanjiaSettlementPrice),
+            ExcelColumn.of("结算金额", 20, StoreFlowRefundDownloadVO::getBillPrice));
+
     /**
      * 店铺详情
      */
@@ -63,6 +125,9 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements Bi
     @Autowired
     private StoreFlowService storeFlowService;
 
+    @Autowired
+    private ExportProperties exportProperties;
+
     @Override
     public void createBill(String storeId, Date startTime, DateTime endTime) {
 
@@ -235,130 +300,27 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements Bi
 
     @Override
     public void download(HttpServletResponse response, String id) {
-
-
         Bill bill = this.getById(id);
-        //创建Excel工作薄对象
-        ExcelWriter writer = ExcelUtil.getWriterWithSheet("店铺结算单");
-        writer.setSheet("店铺结算单");
-        Map<String, Object> map = new LinkedHashMap<>();
-        map.put("创建时间", DateUtil.format(bill.getCreateTime(), "yyyy-MM-dd"));
-        writer.setColumnWidth(0, 15);
-        map.put("账单号", bill.getSn());
-        writer.setColumnWidth(1, 30);
-        map.put("结算开始时间", DateUtil.format(bill.getStartTime(), "yyyy-MM-dd"));
-        writer.setColumnWidth(2, 15);
-        map.put("结算结束时间", DateUtil.format(bill.getEndTime(), "yyyy-MM-dd"));
-        writer.setColumnWidth(3, 15);
-        map.put("账单状态", BillStatusEnum.valueOf(bill.getBillStatus()).description());
-        map.put("店铺名称", bill.getStoreName());
-        writer.setColumnWidth(5, 15);
-        map.put("平台付款时间", DateUtil.format(bill.getPayTime(), "yyyy-MM-dd"));
-        writer.setColumnWidth(6, 15);
-        map.put("银行开户名", bill.getBankAccountName());
-        writer.setColumnWidth(7, 15);
-        map.put("银行账号", bill.getBankAccountNumber());
-        writer.setColumnWidth(8, 15);
-        map.put("开户行", bill.getBankName());
-        writer.setColumnWidth(9, 15);
-        map.put("联行号", bill.getBankCode());
-        map.put("订单金额", bill.getOrderPrice());
-        map.put("退单金额", bill.getRefundPrice());
-        map.put("平台收取服务费", bill.getCommissionPrice());
-        writer.setColumnWidth(13, 15);
-        map.put("退单退回平台服务费", bill.getRefundCommissionPrice());
-        writer.setColumnWidth(14, 25);
-        map.put("分销佣金", bill.getDistributionCommission());
-        map.put("退单退还分销佣金", bill.getDistributionRefundCommission());
-        writer.setColumnWidth(16, 20);
-        map.put("平台优惠券补贴", bill.getSiteCouponCommission());
-        writer.setColumnWidth(17, 15);
-        map.put("退单退回平台优惠券补贴", bill.getSiteCouponRefundCommission());
-        writer.setColumnWidth(18, 25);
-        map.put("积分商品补贴", bill.getSiteCouponCommission());
-        writer.setColumnWidth(19, 15);
-        map.put("积分商品补贴", bill.getPointSettlementPrice());
-        writer.setColumnWidth(20, 15);
-        map.put("退单退回积分商品补贴", bill.getPointRefundSettlementPrice());
-        writer.setColumnWidth(21, 25);
-        map.put("砍价商品补贴", bill.getKanjiaSettlementPrice());
-        writer.setColumnWidth(22, 15);
-        map.put("退单退回砍价补贴", bill.getKanjiaRefundSettlementPrice());
-        writer.setColumnWidth(23, 25);
-        map.put("最终结算金额", bill.getBillPrice());
-        writer.setColumnWidth(24, 15);
-        writer.writeRow(map, true);
-
-
-        writer.setSheet("入账订单");
-        writer.addHeaderAlias("createTime", "入账时间");
-        writer.setColumnWidth(0, 20);
-        writer.addHeaderAlias("orderSn", "订单编号");
-        writer.setColumnWidth(1, 35);
-        writer.addHeaderAlias("storeName", "店铺名称");
-        writer.setColumnWidth(2, 20);
-        writer.addHeaderAlias("goodsName", "商品名称");
-        writer.setColumnWidth(3, 70);
-        writer.addHeaderAlias("num", "销售量");
-        writer.addHeaderAlias("finalPrice", "订单金额");
-        writer.addHeaderAlias("commissionPrice", "平台分佣");
-        writer.addHeaderAlias("siteCouponPrice", "平台优惠券");
-        writer.setColumnWidth(7, 12);
-        writer.addHeaderAlias("distributionRebate", "分销金额");
-        writer.addHeaderAlias("pointSettlementPrice", "积分结算金额");
-        writer.setColumnWidth(9, 12);
-        writer.addHeaderAlias("kanjiaSettlementPrice", "砍价结算金额");
-        writer.setColumnWidth(10, 12);
-        writer.addHeaderAlias("billPrice", "应结金额");
-        writer.setColumnWidth(11, 20);
-
-        List<StoreFlowPayDownloadVO> storeFlowList = storeFlowService.getStoreFlowPayDownloadVO(StoreFlowQueryDTO.builder().type(FlowTypeEnum.PAY.name()).bill(bill).build());
-        writer.write(storeFlowList, true);
-
-        writer.setSheet("退款订单");
-        writer.addHeaderAlias("createTime", "入账时间");
-        writer.setColumnWidth(0, 20);
-        writer.addHeaderAlias("orderSn", "订单编号");
-        writer.setColumnWidth(1, 35);
-        writer.addHeaderAlias("refundSn", "售后单号");
-        writer.setColumnWidth(2, 35);
-        writer.addHeaderAlias("storeName", "店铺名称");
-        writer.setColumnWidth(3, 20);
-        writer.addHeaderAlias("goodsName", "商品名称");
-        writer.setColumnWidth(4, 70);
-        writer.addHeaderAlias("num", "退款量");
-        writer.addHeaderAlias("finalPrice", "退款金额");
-        writer.addHeaderAlias("commissionPrice", "平台分佣");
-        writer.addHeaderAlias("siteCouponPrice", "平台优惠券");
-        writer.setColumnWidth(8, 12);
-        writer.addHeaderAlias("distributionRebate", "分销金额");
-        writer.addHeaderAlias("pointSettlementPrice", "积分结算金额");
-        writer.setColumnWidth(10, 12);
-        writer.addHeaderAlias("kanjiaSettlementPrice", "砍价结算金额");
-        writer.setColumnWidth(11, 12);
-        writer.addHeaderAlias("billPrice", "结算金额");
-        writer.setColumnWidth(12, 20);
-
-        List<StoreFlowRefundDownloadVO> storeFlowRefundDownloadVOList = storeFlowService.getStoreFlowRefundDownloadVO(StoreFlowQueryDTO.builder().type(FlowTypeEnum.REFUND.name()).bill(bill).build());
-        writer.write(storeFlowRefundDownloadVOList, true);
-
-        ServletOutputStream out = null;
-        try {
-            writer.setOnlyAlias(true);
-
-            //设置公共属性，列表名称
-            response.setContentType("application/vnd.ms-excel;charset=utf-8");
-            response.setHeader("Content-Disposition", URLEncoder.encode("店铺结算单详情", "UTF8") + ".xls");
-            out = response.getOutputStream();
-            writer.flush(out, true);
+        try (StreamingExcelWriter writer = new StreamingExcelWriter()) {
+            writer.createSheet("店铺结算单", BILL_COLUMNS).write(bill);
+
+            //入账、退款流水按流水ID分批写入
+            StoreFlowQueryDTO payQuery = StoreFlowQueryDTO.builder().type(FlowTypeEnum.PAY.name()).bill(bill).build();
+            StreamingExcelWriter.SheetWriter<StoreFlowPayDownloadVO> payWriter = writer.createSheet("入账订单", PAY_FLOW_COLUMNS);
+            KeysetReader.read(exportProperties.getChunkSize(),
+                    (StoreFlowPayDownloadVO last, Integer size) -> storeFlowService.getStoreFlowPayDownloadVO(payQuery, last == null ? null : last.getId(), size),
+                    payWriter::writeAll);
+
+            StoreFlowQueryDTO refundQuery = StoreFlowQueryDTO.builder().type(FlowTypeEnum.REFUND.name()).bill(bill).build();
+            StreamingExcelWriter.SheetWriter<StoreFlowRefundDownloadVO> refundWriter = writer.createSheet("退款订单", REFUND_FLOW_COLUMNS);
+            KeysetReader.read(exportProperties.getChunkSize(),
+                    (StoreFlowRefundDownloadVO last, Integer size) -> storeFlowService.getStoreFlowRefundDownloadVO(refundQuery, last == null ? null : last.getId(), size),
+                    refundWriter::writeAll);
+
+            writer.write(response, "店铺结算单详情");
         } catch (Exception e) {
             log.error("下载列表错误", e);
-        } finally {
-            writer.close();
-            IoUtil.close(out);
         }
-
-
     }
 
 }
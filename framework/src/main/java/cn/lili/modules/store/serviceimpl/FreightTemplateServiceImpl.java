@@ -10,6 +10,7 @@ import cn.lili.common.utils.BeanUtil;
 import cn.lili.common.vo.PageVO;
 import cn.lili.modules.store.entity.dos.FreightTemplate;
 import cn.lili.modules.store.entity.dos.FreightTemplateChild;
+import cn.lili.modules.store.entity.dto.FreightRuleIndex;
 import cn.lili.modules.store.entity.vos.FreightTemplateVO;
 import cn.lili.modules.store.mapper.FreightTemplateMapper;
 import cn.lili.modules.store.service.FreightTemplateChildService;
@@ -76,6 +77,17 @@ public class FreightTemplateServiceImpl extends ServiceImpl<FreightTemplateMappe
 
     }
 
+    @Override
+    public FreightRuleIndex getFreightRuleIndex(String storeId) {
+        FreightRuleIndex freightRuleIndex = (FreightRuleIndex) cache.get(ruleIndexKey(storeId));
+        if (freightRuleIndex != null) {
+            return freightRuleIndex;
+        }
+        freightRuleIndex = FreightRuleIndex.compile(storeId, this.getFreightTemplateList(storeId));
+        cache.put(ruleIndexKey(storeId), freightRuleIndex);
+        return freightRuleIndex;
+    }
+
     @Override
     public IPage<FreightTemplate> getFreightTemplate(PageVO pageVo) {
         LambdaQueryWrapper<FreightTemplate> lambdaQueryWrapper = Wrappers.lambdaQuery();
@@ -122,7 +134,7 @@ public class FreightTemplateServiceImpl extends ServiceImpl<FreightTemplateMappe
         }
 
         //更新缓存
-        cache.remove(CachePrefix.SHIP_TEMPLATE.getPrefix() + tokenUser.getStoreId());
+        this.removeCache(tokenUser.getStoreId());
         return freightTemplateVO;
     }
 
@@ -150,7 +162,7 @@ public class FreightTemplateServiceImpl extends ServiceImpl<FreightTemplateMappe
         //添加模板子内容
         freightTemplateChildService.addFreightTemplateChild(list);
         //更新缓存
-        cache.remove(CachePrefix.SHIP_TEMPLATE.getPrefix() + tokenUser.getStoreId());
+        this.removeCache(tokenUser.getStoreId());
         return null;
     }
 
@@ -165,9 +177,29 @@ public class FreightTemplateServiceImpl extends ServiceImpl<FreightTemplateMappe
         lambdaQueryWrapper.eq(FreightTemplate::getId, id);
         //如果删除成功则删除运费模板子项
         if (this.remove(lambdaQueryWrapper)) {
-            cache.remove(CachePrefix.SHIP_TEMPLATE.getPrefix() + tokenUser.getStoreId());
+            this.removeCache(tokenUser.getStoreId());
             return freightTemplateChildService.removeFreightTemplate(id);
         }
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * 删除店铺运费模板缓存与运费规则索引
+     *
+     * @param storeId 店铺ID
+     */
+    private void removeCache(String storeId) {
+        cache.remove(CachePrefix.SHIP_TEMPLATE.getPrefix() + storeId);
+        cache.remove(ruleIndexKey(storeId));
+    }
+
+    /**
+     * 运费规则索引缓存key，与运费模板列表共用 SHIP_TEMPLATE 前缀
+     *
+     * @param storeId 店铺ID
+     * @return 缓存key
+     */
+    private String ruleIndexKey(String storeId) {
+        return CachePrefix.SHIP_TEMPLATE.getPrefix() + "RULE_" + storeId;
+    }
+}
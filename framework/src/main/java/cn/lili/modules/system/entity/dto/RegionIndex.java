@@ -0,0 +1,240 @@
+package cn.lili.modules.system.entity.dto;
+
+import cn.lili.modules.system.entity.dos.Region;
+import cn.lili.modules.system.entity.vo.RegionVO;
+
+import java.util.*;
+
+/**
+ * 行政地区索引
+ * <p>
+ * 全部行政地区编译后的只读索引，按地区ID、上级ID、城市代码与名称、名称查找地区，
+ * 各地区的上级地区ID与名称路径、省市树在编译时生成。地区修改后重新编译并整体替换，编译后不应修改。
+ * 同名地区按编译时传入的顺序取第一个。
+ */
+public class RegionIndex {
+
+    private static final String PROVINCE = "province";
+
+    private static final String CITY = "city";
+
+    /**
+     * 索引版本
+     */
+    private final String version;
+
+    /**
+     * 地区ID -> 地区
+     */
+    private final Map<String, Region> regions;
+
+    /**
+     * 上级ID -> 按排序值升序的下级地区
+     */
+    private final Map<String, List<Region>> children;
+
+    /**
+     * 城市代码、名称 -> 地区
+     */
+    private final Map<String, Region> cityCodeNames;
+
+    /**
+     * 名称 -> 地区
+     */
+    private final Map<String, Region> names;
+
+    /**
+     * 地区ID -> 上级地区ID与自身ID，逗号分隔
+     */
+    private final Map<String, String> idPaths;
+
+    /**
+     * 地区ID -> 上级地区名称与自身名称，逗号分隔
+     */
+    private final Map<String, String> namePaths;
+
+    /**
+     * 省市树
+     */
+    private final List<RegionVO> allCity;
+
+    private RegionIndex(String version, int size) {
+        this.version = version;
+        int capacity = Math.max(size * 4 / 3 + 1, 16);
+        this.regions = new HashMap<>(capacity);
+        this.children = new HashMap<>(capacity);
+        this.cityCodeNames = new HashMap<>(capacity);
+        this.names = new HashMap<>(capacity);
+        this.idPaths = new HashMap<>(capacity);
+        this.namePaths = new HashMap<>(capacity);
+        this.allCity = new ArrayList<>();
+    }
+
+    /**
+     * 编译行政地区
+     *
+     * @param regions 全部行政地区
+     * @param version 索引版本
+     * @return 地区索引
+     */
+    public static RegionIndex compile(List<Region> regions, String version) {
+        RegionIndex index = new RegionIndex(version, regions.size());
+        for (Region region : regions) {
+            index.regions.putIfAbsent(region.getId(), region);
+            index.children.computeIfAbsent(region.getParentId(), k -> new ArrayList<>()).add(region);
+            if (region.getCityCode() != null && region.getName() != null) {
+                index.cityCodeNames.putIfAbsent(cityCodeName(region.getCityCode(), region.getName()), region);
+            }
+            if (region.getName() != null) {
+                index.names.putIfAbsent(region.getName(), region);
+            }
+        }
+        Comparator<Region> orderNum = Comparator.comparing(Region::getOrderNum, Comparator.nullsLast(Comparator.naturalOrder()));
+        for (Map.Entry<String, List<Region>> entry : index.children.entrySet()) {
+            entry.getValue().sort(orderNum);
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        for (Region region : index.regions.values()) {
+            index.path(region);
+        }
+        index.tree(regions, orderNum);
+        return index;
+    }
+
+    /**
+     * 生成地区的上级地区ID与名称路径
+     * 路径前两项为空与根节点 0，不属于地区，不存在的上级地区跳过
+     */
+    private void path(Region region) {
+        StringBuilder ids = new StringBuilder();
+        StringBuilder regionNames = new StringBuilder();
+        String[] path = region.getPath() == null ? new String[0] : region.getPath().split(",");
+        for (int i = 2; i < path.length; i++) {
+            Region parent = regions.get(path[i]);
+            if (parent != null) {
+                ids.append(path[i]).append(",");
+                regionNames.append(parent.getName()).append(",");
+            }
+        }
+        idPaths.put(region.getId(), ids.append(region.getId()).toString());
+        namePaths.put(region.getId(), regionNames.append(region.getName()).toString());
+    }
+
+    /**
+     * 生成省市树，省份按排序值升序，城市为省份的下级城市
+     */
+    private void tree(List<Region> all, Comparator<Region> orderNum) {
+        List<Region> provinces = new ArrayList<>();
+        for (Region region : all) {
+            if (PROVINCE.equals(region.getLevel()) && regions.get(region.getId()) == region) {
+                provinces.add(region);
+            }
+        }
+        provinces.sort(orderNum);
+        for (Region province : provinces) {
+            RegionVO provinceVO = new RegionVO(province);
+            for (Region city : this.children(province.getId())) {
+                if (CITY.equals(city.getLevel())) {
+                    provinceVO.getChildren().add(new RegionVO(city));
+                }
+            }
+            provinceVO.setChildren(Collections.unmodifiableList(provinceVO.getChildren()));
+            allCity.add(provinceVO);
+        }
+    }
+
+    private static String cityCodeName(String cityCode, String name) {
+        return cityCode + "\u0001" + name;
+    }
+
+    /**
+     * 索引版本
+     *
+     * @return 版本，未设置时为空
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * 地区数量
+     *
+     * @return 地区数量
+     */
+    public int size() {
+        return regions.size();
+    }
+
+    /**
+     * 获取地区
+     *
+     * @param id 地区ID
+     * @return 地区
+     */
+    public Region get(String id) {
+        return regions.get(id);
+    }
+
+    /**
+     * 获取下级地区
+     *
+     * @param parentId 上级ID
+     * @return 按排序值升序的下级地区，只读
+     */
+    public List<Region> children(String parentId) {
+        return children.getOrDefault(parentId, Collections.emptyList());
+    }
+
+    /**
+     * 按城市代码与名称获取地区
+     *
+     * @param cityCode 城市代码
+     * @param name     名称
+     * @return 地区
+     */
+    public Region getByCityCodeAndName(String cityCode, String name) {
+        if (cityCode == null || name == null) {
+            return null;
+        }
+        return cityCodeNames.get(cityCodeName(cityCode, name));
+    }
+
+    /**
+     * 按名称获取地区
+     *
+     * @param name 名称
+     * @return 地区
+     */
+    public Region getByName(String name) {
+        return name == null ? null : names.get(name);
+    }
+
+    /**
+     * 获取上级地区ID与自身ID
+     *
+     * @param id 地区ID
+     * @return 逗号分隔的地区ID
+     */
+    public String idPath(String id) {
+        return idPaths.get(id);
+    }
+
+    /**
+     * 获取上级地区名称与自身名称
+     *
+     * @param id 地区ID
+     * @return 逗号分隔的地区名称
+     */
+    public String namePath(String id) {
+        return namePaths.get(id);
+    }
+
+    /**
+     * 获取省市树
+     *
+     * @return 省市树，只读
+     */
+    public List<RegionVO> getAllCity() {
+        return Collections.unmodifiableList(allCity);
+    }
+}
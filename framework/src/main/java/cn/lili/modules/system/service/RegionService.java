@@ -3,9 +3,6 @@ package cn.lili.modules.system.service;
 import cn.lili.modules.system.entity.dos.Region;
 import cn.lili.modules.system.entity.vo.RegionVO;
 import com.baomidou.mybatisplus.extension.service.IService;
-import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 
 import java.util.List;
 import java.util.Map;
@@ -16,7 +13,6 @@ import java.util.Map;
  * @author Chopper
  * @since 2020/12/2 14:14
  */
-@CacheConfig(cacheNames = "{regions}")
 public interface RegionService extends IService<Region> {
 
 
@@ -26,7 +22,6 @@ public interface RegionService extends IService<Region> {
      * @param region 地区
      * @return
      */
-    @CacheEvict(allEntries = true)
     @Override
     boolean updateById(Region region);
     /**
@@ -35,19 +30,16 @@ public interface RegionService extends IService<Region> {
      * @param region 地区
      * @return
      */
-    @CacheEvict(allEntries = true)
     @Override
     boolean save(Region region);
 
 
-    @CacheEvict(allEntries = true)
     boolean removeByIds(List<String> idList);
     /**
      * 同步行政数据
      *
      * @param url
      */
-    @CacheEvict
     void synchronizationData(String url);
 
     /**
@@ -56,7 +48,6 @@ public interface RegionService extends IService<Region> {
      * @param id 地区ID
      * @return 地区列表
      */
-    @Cacheable(key = "#id")
     List<Region> getItem(String id);
 
     /**
@@ -81,6 +72,5 @@ public interface RegionService extends IService<Region> {
      *
      * @return
      */
-    @Cacheable(key = "'ALL_CITY'")
     List<RegionVO> getAllCity();
 }
\ No newline at end of file
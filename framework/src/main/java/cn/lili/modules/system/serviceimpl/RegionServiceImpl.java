@@ -1,10 +1,13 @@
 package cn.lili.modules.system.serviceimpl;
 
 import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.IdUtil;
 import cn.lili.cache.Cache;
+import cn.lili.cache.CachePrefix;
 import cn.lili.common.utils.HttpClientUtils;
 import cn.lili.common.utils.SnowFlake;
 import cn.lili.modules.system.entity.dos.Region;
+import cn.lili.modules.system.entity.dto.RegionIndex;
 import cn.lili.modules.system.entity.vo.RegionVO;
 import cn.lili.modules.system.mapper.RegionMapper;
 import cn.lili.modules.system.service.RegionService;
@@ -13,10 +16,11 @@ import com.alibaba.fastjson.JSONObject;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import org.apache.commons.lang3.ArrayUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.*;
 
@@ -34,25 +38,46 @@ public class RegionServiceImpl extends ServiceImpl<RegionMapper, Region> impleme
      */
     private final String syncUrl = "https://restapi.amap.com/v3/config/district?subdistrict=4&key=e456d77800e2084a326f7b777278f89d";
 
+    /**
+     * 检查地区索引版本的间隔，单位毫秒
+     */
+    private static final long INDEX_CHECK_INTERVAL = 5000L;
+
     @Autowired
     private Cache cache;
 
+    /**
+     * 本地地区索引，地区修改后整体替换
+     */
+    private volatile RegionIndex regionIndex;
+
+    /**
+     * 下次检查地区索引版本的时间
+     */
+    private volatile long nextIndexCheck;
+
 
     @Override
     @Transactional
     public boolean updateById(Region region) {
-        return super.updateById(region);
+        boolean result = super.updateById(region);
+        this.refreshIndex();
+        return result;
     }
 
     @Transactional
     @Override
     public boolean save(Region region) {
-        return super.save(region);
+        boolean result = super.save(region);
+        this.refreshIndex();
+        return result;
     }
 
     @Override
     public boolean removeByIds(List<String> idList) {
-        return super.removeByIds(idList);
+        boolean result = super.removeByIds(idList);
+        this.refreshIndex();
+        return result;
     }
 
     @Override
@@ -73,8 +98,8 @@ public class RegionServiceImpl extends ServiceImpl<RegionMapper, Region> impleme
                 int endPoint = Math.min((100 + (i * 100)), regions.size());
                 this.saveBatch(regions.subList(i * 100, endPoint));
             }
-            //删除缓存
-            cache.vagueDel("{regions}");
+            //同步完成后重建索引，同步过程中仍使用原索引
+            this.refreshIndex();
         } catch (Exception e) {
             log.error("同步行政数据错误", e);
         }
@@ -88,57 +113,28 @@ public class RegionServiceImpl extends ServiceImpl<RegionMapper, Region> impleme
      */
     @Override
     public String getItemByLastName(String lastName) {
-        StringBuilder sql = new StringBuilder();
-        LambdaQueryWrapper<Region> lambdaQueryWrapper = new LambdaQueryWrapper<>();
-        lambdaQueryWrapper.eq(Region::getName, lastName);
-        Region region = this.getOne(lambdaQueryWrapper, false);
+        Region region = this.regionIndex().getByName(lastName);
         if (region != null) {
-            sql.append(region.getPath()).append(",").append(region.getId());
-            return sql.toString().replace(",0,", "");
+            return (region.getPath() + "," + region.getId()).replace(",0,", "");
         }
         return null;
     }
 
     @Override
     public List<Region> getItem(String id) {
-        LambdaQueryWrapper<Region> lambdaQueryWrapper = new LambdaQueryWrapper<>();
-        lambdaQueryWrapper.eq(Region::getParentId, id);
-        List<Region> regions = this.list(lambdaQueryWrapper);
-        regions.sort(Comparator.comparing(Region::getOrderNum));
-        return regions;
+        return this.regionIndex().children(id);
     }
 
     @Override
     public Map<String, Object> getRegion(String cityCode, String townName) {
+        RegionIndex index = this.regionIndex();
         //获取地址信息
-        Region region = this.getOne(new QueryWrapper<Region>()
-                .eq("city_code", cityCode)
-                .eq("name", townName), false);
+        Region region = index.getByCityCodeAndName(cityCode, townName);
         if (region != null) {
-            //获取它的层级关系
-            String path = region.getPath();
-            String[] result = path.split(",");
-            //因为有无用数据 所以先删除前两个
-            result = ArrayUtils.remove(result, 0);
-            result = ArrayUtils.remove(result, 0);
-            //地址id
-            StringBuilder regionIds = new StringBuilder();
-            //地址名称
-            StringBuilder regionNames = new StringBuilder();
-            //循环构建新的数据
-            for (String regionId : result) {
-                Region reg = this.baseMapper.selectById(regionId);
-                if (reg != null) {
-                    regionIds.append(regionId).append(",");
-                    regionNames.append(reg.getName()).append(",");
-                }
-            }
-            regionIds.append(region.getId());
-            regionNames.append(region.getName());
-            //构建返回数据
+            //构建返回数据，层级关系在索引编译时生成
             Map<String, Object> obj = new HashMap<>(2);
-            obj.put("id", regionIds.toString());
-            obj.put("name", regionNames.toString());
+            obj.put("id", index.idPath(region.getId()));
+            obj.put("name", index.namePath(region.getId()));
             return obj;
         }
         return Collections.emptyMap();
@@ -146,23 +142,71 @@ public class RegionServiceImpl extends ServiceImpl<RegionMapper, Region> impleme
 
     @Override
     public List<RegionVO> getAllCity() {
-        LambdaQueryWrapper<Region> lambdaQueryWrapper = new LambdaQueryWrapper<>();
-        //查询所有省市
-        lambdaQueryWrapper.in(Region::getLevel, "city", "province");
-        return regionTree(this.list(lambdaQueryWrapper));
+        return this.regionIndex().getAllCity();
     }
 
-    private List<RegionVO> regionTree(List<Region> regions) {
-        List<RegionVO> regionVOS = new ArrayList<>();
-        regions.stream().filter(region -> ("province").equals(region.getLevel())).forEach(item -> regionVOS.add(new RegionVO(item)));
-        regions.stream().filter(region -> ("city").equals(region.getLevel())).forEach(item -> {
-            for (RegionVO region : regionVOS) {
-                if (region.getId().equals(item.getParentId())) {
-                    region.getChildren().add(new RegionVO(item));
-                }
+    /**
+     * 获取本地地区索引
+     * 每隔一段时间检查缓存中的索引版本，其他节点修改地区后版本变化，重新加载
+     *
+     * @return 地区索引
+     */
+    private RegionIndex regionIndex() {
+        RegionIndex index = this.regionIndex;
+        if (index != null && System.currentTimeMillis() < nextIndexCheck) {
+            return index;
+        }
+        synchronized (this) {
+            index = this.regionIndex;
+            if (index != null && System.currentTimeMillis() < nextIndexCheck) {
+                return index;
             }
-        });
-        return regionVOS;
+            Object version = cache.get(CachePrefix.REGION_INDEX_VERSION.getPrefix());
+            if (index == null || !Objects.equals(index.getVersion(), version)) {
+                return this.rebuildIndex(version == null ? null : version.toString());
+            }
+            nextIndexCheck = System.currentTimeMillis() + INDEX_CHECK_INTERVAL;
+            return index;
+        }
+    }
+
+    /**
+     * 地区修改后更新索引版本并重建本地索引，其他节点在下次检查版本时重新加载，事务中则在提交后执行
+     */
+    private void refreshIndex() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doRefreshIndex();
+                }
+            });
+            return;
+        }
+        this.doRefreshIndex();
+    }
+
+    /**
+     * 更新索引版本并重建本地索引
+     * 提交后回调中事务同步仍处于激活状态，不能再调用 refreshIndex 注册新的回调
+     */
+    private void doRefreshIndex() {
+        String version = IdUtil.fastSimpleUUID();
+        cache.put(CachePrefix.REGION_INDEX_VERSION.getPrefix(), version);
+        this.rebuildIndex(version);
+    }
+
+    /**
+     * 加载全部地区，编译后替换本地索引
+     *
+     * @param version 索引版本
+     * @return 地区索引
+     */
+    private synchronized RegionIndex rebuildIndex(String version) {
+        RegionIndex index = RegionIndex.compile(this.list(new LambdaQueryWrapper<Region>().orderByAsc(Region::getId)), version);
+        this.regionIndex = index;
+        this.nextIndexCheck = System.currentTimeMillis() + INDEX_CHECK_INTERVAL;
+        return index;
     }
 
     /**
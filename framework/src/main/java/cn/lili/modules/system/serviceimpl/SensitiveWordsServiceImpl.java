@@ -2,6 +2,8 @@ package cn.lili.modules.system.serviceimpl;
 
 import cn.lili.cache.Cache;
 import cn.lili.cache.CachePrefix;
+import cn.lili.common.properties.SystemSettingProperties;
+import cn.lili.common.sensitive.SensitiveWordsFilter;
 import cn.lili.modules.system.entity.dos.SensitiveWords;
 import cn.lili.modules.system.mapper.SensitiveWordsMapper;
 import cn.lili.modules.system.service.SensitiveWordsService;
@@ -23,6 +25,9 @@ public class SensitiveWordsServiceImpl extends ServiceImpl<SensitiveWordsMapper,
     @Autowired
     private Cache<List<String>> cache;
 
+    @Autowired
+    private SystemSettingProperties systemSettingProperties;
+
     @Override
     public void resetCache() {
         List<SensitiveWords> sensitiveWordsList = this.list();
@@ -32,5 +37,7 @@ public class SensitiveWordsServiceImpl extends ServiceImpl<SensitiveWordsMapper,
         }
         List<String> sensitiveWords = sensitiveWordsList.stream().map(SensitiveWords::getSensitiveWord).collect(Collectors.toList());
         cache.put(CachePrefix.SENSITIVE.getPrefix(), sensitiveWords);
+        //当前节点立即生效，其他节点由定时任务重新加载
+        SensitiveWordsFilter.init(sensitiveWords, systemSettingProperties.getSensitiveNoiseChars());
     }
 }
\ No newline at end of file
@@ -39,7 +39,7 @@ public class MyMetaObjectHandler implements MetaObjectHandler {
         if (metaObject.hasGetter("id")) {
             //如果已经配置id，则不再写入
             if (metaObject.getValue("id") == null) {
-                this.setFieldValByName("id", String.valueOf(SnowFlake.getId()), metaObject);
+                this.setFieldValByName("id", String.valueOf(SnowFlake.getBufferedId()), metaObject);
             }
         }
     }
@@ -15,7 +15,11 @@ public enum OrderTagsEnum {
     /**
      * 订单状态改变
      */
-    STATUS_CHANGE("订单状态改变");
+    STATUS_CHANGE("订单状态改变"),
+    /**
+     * 订单事件重放
+     */
+    EVENT_REPLAY("订单事件重放");
 
 
     private final String description;
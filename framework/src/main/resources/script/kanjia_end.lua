@@ -0,0 +1,5 @@
+-- 结束砍价活动，之后的砍价返回已结束
+-- KEYS[1] 砍价活动，ARGV[1] 保留时间（毫秒）
+redis.call('hset', KEYS[1], '_status', 'END')
+redis.call('pexpire', KEYS[1], ARGV[1])
+return 1
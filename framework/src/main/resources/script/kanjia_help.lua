@@ -0,0 +1,40 @@
+-- 砍价：校验是否已砍过、活动是否进行中，将砍价金额限制在 [最低, 最高] 且不超过剩余金额后扣减
+-- KEYS[1] 砍价活动，hash 中 _surplus 为剩余金额（分），_status 为状态，m:会员id 为该会员砍价金额（分）
+-- ARGV[1] 会员id，ARGV[2] 初始剩余金额（分），ARGV[3] 最低砍价金额（分），ARGV[4] 最高砍价金额（分），
+-- ARGV[5] 随机砍价金额（分），ARGV[6] 保留时间（毫秒）
+-- 返回 {结果, 砍价金额, 剩余金额}，结果 1 砍价，2 砍价完成，3 重复砍价，4 已结束
+local surplus = redis.call('hget', KEYS[1], '_surplus')
+if not surplus then
+    surplus = ARGV[2]
+    redis.call('hset', KEYS[1], '_surplus', surplus)
+    redis.call('hsetnx', KEYS[1], '_status', 'START')
+end
+surplus = tonumber(surplus)
+local member = 'm:' .. ARGV[1]
+if redis.call('hexists', KEYS[1], member) == 1 then
+    return {3, 0, surplus}
+end
+if redis.call('hget', KEYS[1], '_status') ~= 'START' then
+    return {4, 0, surplus}
+end
+local lowest = tonumber(ARGV[3])
+local highest = tonumber(ARGV[4])
+local cut = tonumber(ARGV[5])
+if cut < lowest then
+    cut = lowest
+end
+if cut > highest then
+    cut = highest
+end
+if cut > surplus then
+    cut = surplus
+end
+surplus = surplus - cut
+redis.call('hset', KEYS[1], member, cut)
+redis.call('hset', KEYS[1], '_surplus', surplus)
+redis.call('pexpire', KEYS[1], ARGV[6])
+if surplus <= 0 then
+    redis.call('hset', KEYS[1], '_status', 'SUCCESS')
+    return {2, cut, surplus}
+end
+return {1, cut, surplus}
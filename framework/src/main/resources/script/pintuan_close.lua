@@ -0,0 +1,13 @@
+-- 结束未成团的团队，已成团或已结束的团队不变
+-- KEYS[1] 团队，ARGV[1] 保留时间（毫秒）
+-- 返回 0 团队已成团，1 结束团队，2 团队已结束
+local status = redis.call('hget', KEYS[1], '_status')
+if status == 'COMPLETED' then
+    return 0
+end
+if status == 'CLOSED' then
+    return 2
+end
+redis.call('hset', KEYS[1], '_status', 'CLOSED')
+redis.call('pexpire', KEYS[1], ARGV[1])
+return 1
@@ -0,0 +1,35 @@
+-- 参团：校验订单是否已参团、团队是否已结束或已满，加入后达到成团人数则标记成团
+-- KEYS[1] 团队，hash 中 _status 为团队状态，其余字段为 订单sn -> 会员id
+-- ARGV[1] 订单sn，ARGV[2] 会员id，ARGV[3] 成团人数，ARGV[4] 保留时间（毫秒）
+-- 返回 1 开团，2 参团，3 成团，4 重复参团，5 团队已满，6 团队已结束
+local status = redis.call('hget', KEYS[1], '_status')
+if redis.call('hexists', KEYS[1], ARGV[1]) == 1 then
+    return 4
+end
+if status == 'COMPLETED' then
+    return 5
+end
+if status and status ~= 'OPEN' then
+    return 6
+end
+local size = redis.call('hlen', KEYS[1])
+if status then
+    size = size - 1
+end
+local required = tonumber(ARGV[3])
+if size >= required then
+    return 5
+end
+redis.call('hset', KEYS[1], ARGV[1], ARGV[2])
+size = size + 1
+if size >= required then
+    redis.call('hset', KEYS[1], '_status', 'COMPLETED')
+    redis.call('pexpire', KEYS[1], ARGV[4])
+    return 3
+end
+redis.call('hset', KEYS[1], '_status', 'OPEN')
+redis.call('pexpire', KEYS[1], ARGV[4])
+if size == 1 then
+    return 1
+end
+return 2
@@ -0,0 +1,9 @@
+-- 占用空闲的机器ID，记录本次租约的截止时间，返回占用前记录的截止时间；已被占用返回 -1
+if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+    local previous = tonumber(redis.call('get', KEYS[2]) or '0')
+    if tonumber(ARGV[3]) > previous then
+        redis.call('set', KEYS[2], ARGV[3])
+    end
+    return previous
+end
+return -1
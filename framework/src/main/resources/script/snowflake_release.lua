@@ -0,0 +1,5 @@
+-- 只释放自己持有的租约
+if redis.call('get', KEYS[1]) == ARGV[1] then
+    return redis.call('del', KEYS[1])
+end
+return 0
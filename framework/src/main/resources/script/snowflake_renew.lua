@@ -0,0 +1,8 @@
+-- 租约仍由自己持有时续期并延长截止时间，已过期或被其他节点占用则续期失败
+if redis.call('get', KEYS[1]) == ARGV[1] then
+    if tonumber(ARGV[3]) > tonumber(redis.call('get', KEYS[2]) or '0') then
+        redis.call('set', KEYS[2], ARGV[3])
+    end
+    return redis.call('pexpire', KEYS[1], ARGV[2])
+end
+return 0
@@ -0,0 +1,49 @@
+package cn.lili.controller.order;
+
+import cn.lili.common.enums.ResultUtil;
+import cn.lili.common.vo.PageVO;
+import cn.lili.common.vo.ResultMessage;
+import cn.lili.common.vo.SearchVO;
+import cn.lili.modules.order.order.entity.dos.OrderEventRecord;
+import cn.lili.modules.order.order.service.OrderEventRecordService;
+import cn.lili.mybatis.util.PageUtil;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 管理端,订单事件执行记录接口
+ */
+@RestController
+@Api(tags = "管理端,订单事件执行记录接口")
+@RequestMapping("/manager/order/orderEventRecord")
+public class OrderEventRecordManagerController {
+
+    @Autowired
+    private OrderEventRecordService orderEventRecordService;
+
+    @GetMapping(value = "/get/{id}")
+    @ApiOperation(value = "通过id获取")
+    public ResultMessage<OrderEventRecord> get(@PathVariable String id) {
+        return ResultUtil.data(orderEventRecordService.getById(id));
+    }
+
+    @GetMapping(value = "/getByPage")
+    @ApiOperation(value = "分页获取，按执行状态查询死信")
+    public ResultMessage<IPage<OrderEventRecord>> getByPage(OrderEventRecord entity,
+                                                            SearchVO searchVo,
+                                                            PageVO page) {
+        return ResultUtil.data(orderEventRecordService.page(PageUtil.initPage(page), PageUtil.initWrapper(entity, searchVo)));
+    }
+
+    @ApiOperation(value = "重新执行进入死信的事件处理")
+    @ApiImplicitParam(name = "id", value = "执行记录id", required = true, dataType = "String", paramType = "path")
+    @PutMapping(value = "/{id}/replay")
+    public ResultMessage<Object> replay(@PathVariable String id) {
+        orderEventRecordService.replay(id);
+        return ResultUtil.success();
+    }
+}
@@ -6,6 +6,9 @@ import cn.lili.common.aop.annotation.PreventDuplicateSubmissions;
 import cn.lili.common.context.ThreadContextHolder;
 import cn.lili.common.enums.ResultCode;
 import cn.lili.common.enums.ResultUtil;
+import cn.lili.common.excel.ExcelExportJob;
+import cn.lili.common.excel.ExcelExportJobManager;
+import cn.lili.common.security.context.UserContext;
 import cn.lili.common.vo.ResultMessage;
 import cn.lili.modules.member.entity.dto.MemberAddressDTO;
 import cn.lili.modules.order.order.entity.dos.Order;
@@ -26,6 +29,7 @@ import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * 管理端,订单API
@@ -43,6 +47,9 @@ public class OrderManagerController {
      */
     @Autowired
     private OrderService orderService;
+
+    @Autowired
+    private ExcelExportJobManager excelExportJobManager;
     /**
      * 订单价格
      */
@@ -69,6 +76,20 @@ public class OrderManagerController {
         orderService.queryExportOrder(response,orderSearchParams);
     }
 
+    @PreventDuplicateSubmissions
+    @ApiOperation(value = "提交异步导出订单任务")
+    @PostMapping("/exportOrderJob")
+    public ResultMessage<ExcelExportJob> submitExportOrder(OrderSearchParams orderSearchParams) {
+        return ResultUtil.data(orderService.submitExportOrder(orderSearchParams));
+    }
+
+    @ApiOperation(value = "查询异步导出订单任务")
+    @ApiImplicitParam(name = "id", value = "任务ID", required = true, dataType = "String", paramType = "path")
+    @GetMapping("/exportOrderJob/{id}")
+    public ResultMessage<ExcelExportJob> getExportOrderJob(@PathVariable String id) {
+        return ResultUtil.data(excelExportJobManager.get(id, Objects.requireNonNull(UserContext.getCurrentUser()).getId()));
+    }
+
 
     @ApiOperation(value = "订单明细")
     @ApiImplicitParam(name = "orderSn", value = "订单编号", required = true, dataType = "String", paramType = "path")
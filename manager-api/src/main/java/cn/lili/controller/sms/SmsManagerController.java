@@ -48,4 +48,12 @@ public class SmsManagerController {
         return ResultUtil.data(smsReachService.getById(id));
     }
 
+    @ApiOperation(value = "重发短信任务未发送成功的分组")
+    @ApiImplicitParam(name = "id", value = "短信任务id", required = true, dataType = "String", paramType = "path")
+    @PutMapping("/{id}/retry")
+    public ResultMessage<Object> retrySmsReach(@PathVariable String id) {
+        smsReachService.retrySmsReach(id);
+        return ResultUtil.success();
+    }
+
 }
@@ -0,0 +1,199 @@
+package cn.lili.test.cache;
+
+import cn.lili.cache.config.redis.FastJsonRedisSerializer;
+import cn.lili.cache.config.redis.KryoRedisValueCodec;
+import cn.lili.cache.config.redis.VersionedRedisSerializer;
+import cn.lili.common.excel.ExcelExportJob;
+import cn.lili.modules.goods.entity.dos.GoodsSku;
+import cn.lili.modules.order.cart.entity.dto.TradeDTO;
+import cn.lili.modules.order.cart.entity.enums.CartTypeEnum;
+import cn.lili.modules.order.cart.entity.vo.CartSkuVO;
+import cn.lili.modules.order.cart.entity.vo.CartVO;
+import cn.lili.modules.order.order.entity.dto.PriceDetailDTO;
+import cn.lili.modules.search.entity.dos.EsGoodsIndex;
+import cn.lili.modules.statistics.entity.dos.OrderStatisticsDaily;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Output;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.util.*;
+
+/**
+ * 缓存序列化测试
+ * 校验缓存对象经二进制编码后内容不变，以及与历史 JSON 数据互相兼容
+ */
+class RedisSerializerTest {
+
+    private final KryoRedisValueCodec kryo = new KryoRedisValueCodec();
+
+    private final VersionedRedisSerializer binary = new VersionedRedisSerializer(kryo, 1024);
+
+    private final VersionedRedisSerializer json = new VersionedRedisSerializer(null, 1024, kryo);
+
+    private final FastJsonRedisSerializer<Object> legacy = new FastJsonRedisSerializer<>(Object.class);
+
+    @BeforeAll
+    static void accept() {
+        ParserConfig.getGlobalInstance().addAccept("cn.lili.");
+        ParserConfig.getGlobalInstance().addAccept("cn.hutool.json.");
+    }
+
+    @Test
+    void testCachedObjects() {
+        List<Object> values = new ArrayList<>();
+        values.add(trade(3));
+        values.add(sku("1001"));
+        values.add(esGoodsIndex());
+        values.add(exportJob());
+        values.add(rollup());
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("total", 100L);
+        progress.put("processed", 20L);
+        values.add(progress);
+        values.add(new ArrayList<>(Arrays.asList("苹果", "华为")));
+        values.add(new Date(1710000000000L));
+        values.add(CartTypeEnum.BUY_NOW);
+
+        for (Object value : values) {
+            byte[] bytes = binary.serialize(value);
+            Assertions.assertTrue(bytes[0] >= 1 && bytes[0] <= 7, value.getClass().getName());
+            Object result = binary.deserialize(bytes);
+            Assertions.assertEquals(value.getClass(), result.getClass());
+            Assertions.assertEquals(JSON.toJSONString(value), JSON.toJSONString(result));
+        }
+    }
+
+    @Test
+    void testJdkCollections() {
+        List<String> list = Arrays.asList("苹果", "华为");
+        Assertions.assertEquals(list, binary.deserialize(binary.serialize(list)));
+        Assertions.assertEquals(list, binary.deserialize(binary.serialize(Collections.unmodifiableList(list))));
+        Assertions.assertEquals(Collections.emptyList(), binary.deserialize(binary.serialize(Collections.emptyList())));
+        Map<String, String> map = Collections.singletonMap("k", "v");
+        Assertions.assertEquals(map, binary.deserialize(binary.serialize(map)));
+    }
+
+    @Test
+    void testPlainValuesKeepJson() {
+        //计数、库存等数值会被 INCR 与 Lua 脚本直接读取，需保持 JSON 文本
+        for (Object value : new Object[]{"token", 10, 10L, true}) {
+            Assertions.assertArrayEquals(legacy.serialize(value), binary.serialize(value));
+            Assertions.assertEquals(value, binary.deserialize(binary.serialize(value)));
+        }
+        Assertions.assertEquals(0, binary.serialize(null).length);
+        Assertions.assertNull(binary.deserialize(new byte[0]));
+        Assertions.assertEquals(11, binary.deserialize("11".getBytes()));
+    }
+
+    @Test
+    void testMigration() {
+        TradeDTO trade = trade(2);
+        //切换前写入的 JSON 数据，切换后可以读取
+        Object fromJson = binary.deserialize(legacy.serialize(trade));
+        Assertions.assertEquals(JSON.toJSONString(trade), JSON.toJSONString(fromJson));
+        //JSON 写入模式与原序列化格式一致
+        Assertions.assertArrayEquals(legacy.serialize(trade), json.serialize(trade));
+        //回退到 JSON 写入后，二进制数据仍可读取
+        Object fromBinary = json.deserialize(binary.serialize(trade));
+        Assertions.assertEquals(JSON.toJSONString(trade), JSON.toJSONString(fromBinary));
+    }
+
+    @Test
+    void testCompression() {
+        TradeDTO trade = trade(50);
+        byte[] bytes = binary.serialize(trade);
+        Assertions.assertEquals(KryoRedisValueCodec.ID | 0x04, bytes[0]);
+        Assertions.assertTrue(bytes.length < legacy.serialize(trade).length / 2);
+        Assertions.assertEquals(JSON.toJSONString(trade), JSON.toJSONString(binary.deserialize(bytes)));
+
+        byte[] uncompressed = new VersionedRedisSerializer(kryo, Integer.MAX_VALUE).serialize(trade);
+        Assertions.assertEquals(KryoRedisValueCodec.ID, uncompressed[0]);
+        Assertions.assertTrue(bytes.length < uncompressed.length);
+    }
+
+    @Test
+    void testDisallowedClass() {
+        //白名单外的类名在读取时直接拒绝，不创建实例
+        Kryo plain = new Kryo();
+        plain.setRegistrationRequired(false);
+        Output output = new Output(64, -1);
+        plain.writeClassAndObject(output, new Point(1, 2));
+        byte[] body = output.toBytes();
+        Assertions.assertThrows(KryoException.class, () -> kryo.decode(body, 0, body.length));
+        //写入白名单外的类时改为 JSON
+        byte[] bytes = binary.serialize(new Point(1, 2));
+        Assertions.assertEquals('{', bytes[0]);
+    }
+
+    private TradeDTO trade(int skuNum) {
+        TradeDTO trade = new TradeDTO(CartTypeEnum.CART);
+        trade.setSn("T" + skuNum);
+        trade.setMemberId("M1");
+        trade.setMemberName("member");
+        for (int i = 0; i < skuNum; i++) {
+            CartSkuVO cartSku = new CartSkuVO(sku(String.valueOf(1000 + i)));
+            cartSku.setNum(i + 1);
+            cartSku.setDeliveryMethod("LOGISTICS");
+            trade.getSkuList().add(cartSku);
+        }
+        CartVO cart = new CartVO(trade.getSkuList().get(0));
+        cart.setSkuList(trade.getSkuList());
+        cart.setChecked(true);
+        trade.getCartList().add(cart);
+        PriceDetailDTO priceDetail = new PriceDetailDTO();
+        priceDetail.setGoodsPrice(99.9D * skuNum);
+        trade.setPriceDetailDTO(priceDetail);
+        return trade;
+    }
+
+    private GoodsSku sku(String id) {
+        GoodsSku sku = new GoodsSku();
+        sku.setId(id);
+        sku.setGoodsId("G" + id);
+        sku.setGoodsName("测试商品" + id);
+        sku.setSimpleSpecs("颜色:红色 尺码:XL");
+        sku.setPrice(99.9D);
+        sku.setQuantity(100);
+        sku.setStoreId("S1");
+        sku.setStoreName("测试店铺");
+        sku.setCategoryPath("1,2,3");
+        sku.setThumbnail("https://lili.cn/" + id + ".png");
+        sku.setCreateTime(new Date(1710000000000L));
+        return sku;
+    }
+
+    private EsGoodsIndex esGoodsIndex() {
+        EsGoodsIndex index = new EsGoodsIndex(sku("2001"), new Date(1710000000000L));
+        index.setPromotionMapJson("{}");
+        return index;
+    }
+
+    private ExcelExportJob exportJob() {
+        ExcelExportJob job = new ExcelExportJob();
+        job.setId("J1");
+        job.setName("订单导出");
+        job.setStatus("FINISHED");
+        job.setRows(1000L);
+        job.setCreateTime(new Date(1710000000000L));
+        return job;
+    }
+
+    private List<OrderStatisticsDaily> rollup() {
+        List<OrderStatisticsDaily> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            OrderStatisticsDaily row = new OrderStatisticsDaily();
+            row.setStatDate(new Date(1710000000000L + i * 86400000L));
+            row.setStoreId("S" + i);
+            row.setOrderNum((long) i);
+            row.setPaidOrderPrice(10.5D * i);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,224 @@
+package cn.lili.test.elasticsearch;
+
+import cn.lili.cache.Cache;
+import cn.lili.common.vo.PageVO;
+import cn.lili.elasticsearch.config.ElasticsearchProperties;
+import cn.lili.modules.search.collector.HotWordsCollector;
+import cn.lili.modules.search.entity.dos.EsGoodsIndex;
+import cn.lili.modules.search.entity.dto.EsGoodsSearchDTO;
+import cn.lili.modules.search.serviceimpl.EsGoodsSearchServiceImpl;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 商品搜索结果缓存测试
+ * ES 与 Redis 均为模拟实现，ES 每次查询固定耗时，对比缓存开启与关闭时的命中率与延迟；
+ * 索引版本变化后各节点重新检测索引是否存在
+ **/
+class EsGoodsSearchCacheTest {
+
+    /**
+     * 模拟 ES 单次查询耗时(毫秒)
+     */
+    private static final long ES_LATENCY = 2;
+
+    /**
+     * 搜索条件组合数
+     */
+    private static final int QUERY_COUNT = 200;
+
+    /**
+     * 请求数
+     */
+    private static final int REQUEST_COUNT = 5000;
+
+    private EsGoodsSearchServiceImpl searchService;
+
+    private ElasticsearchProperties elasticsearchProperties;
+
+    private final AtomicInteger esCalls = new AtomicInteger();
+
+    private final AtomicInteger existsCalls = new AtomicInteger();
+
+    private final AtomicBoolean indexPresent = new AtomicBoolean(true);
+
+    private final Map<Object, Object> redis = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void init() {
+        searchService = new EsGoodsSearchServiceImpl();
+        elasticsearchProperties = new ElasticsearchProperties();
+        elasticsearchProperties.setSearchCache(true);
+        elasticsearchProperties.setSearchCacheTime(300L);
+        ReflectionTestUtils.setField(searchService, "elasticsearchProperties", elasticsearchProperties);
+        ReflectionTestUtils.setField(searchService, "cache", mockCache());
+        ReflectionTestUtils.setField(searchService, "restTemplate", mockElasticsearch());
+        ReflectionTestUtils.setField(searchService, "hotWordsCollector", mock(HotWordsCollector.class));
+        searchService.refreshIndexExists();
+    }
+
+    @Test
+    void testHitRatioAndLatency() {
+        long[] off = this.run(false);
+        int offCalls = esCalls.getAndSet(0);
+        long[] on = this.run(true);
+        int onCalls = esCalls.get();
+
+        double hitRatio = 1 - (double) onCalls / REQUEST_COUNT;
+        System.out.printf("缓存关闭 ES调用:%d p50:%.3fms p99:%.3fms%n", offCalls, percentile(off, 50), percentile(off, 99));
+        System.out.printf("缓存开启 ES调用:%d 命中率:%.2f%% p50:%.3fms p99:%.3fms%n", onCalls, hitRatio * 100, percentile(on, 50), percentile(on, 99));
+
+        Assertions.assertEquals(REQUEST_COUNT, offCalls);
+        Assertions.assertTrue(onCalls <= QUERY_COUNT);
+        Assertions.assertTrue(hitRatio > 0.9);
+        Assertions.assertTrue(percentile(on, 50) < percentile(off, 50));
+    }
+
+    @Test
+    void testVersionInvalidate() {
+        EsGoodsSearchDTO searchDTO = searchDTO(1);
+        PageVO pageVO = new PageVO();
+        Page<EsGoodsIndex> first = searchService.searchGoodsByPage(searchDTO, pageVO);
+        searchService.searchGoodsByPage(searchDTO, pageVO);
+        Assertions.assertEquals(1, esCalls.get());
+        Assertions.assertEquals(1, first.getRecords().size());
+
+        //索引变更后不再命中旧缓存
+        searchService.refreshIndexVersion();
+        searchService.searchGoodsByPage(searchDTO, pageVO);
+        Assertions.assertEquals(2, esCalls.get());
+    }
+
+    @Test
+    void testIndexExistsRecheck() {
+        EsGoodsSearchDTO searchDTO = searchDTO(1);
+        PageVO pageVO = new PageVO();
+        Assertions.assertNotNull(searchService.searchGoodsByPage(searchDTO, pageVO));
+        int checked = existsCalls.get();
+
+        //其他节点删除并重建索引期间，版本变化后本节点重新检测
+        indexPresent.set(false);
+        searchService.refreshIndexVersion();
+        Assertions.assertNull(searchService.searchGoodsByPage(searchDTO, pageVO));
+        Assertions.assertNull(searchService.searchGoodsByPage(searchDTO, pageVO));
+        Assertions.assertEquals(checked + 1, existsCalls.get());
+
+        indexPresent.set(true);
+        searchService.refreshIndexVersion();
+        Assertions.assertNotNull(searchService.searchGoodsByPage(searchDTO, pageVO));
+        //版本不变时不再检测
+        searchService.searchGoodsByPage(searchDTO(2), pageVO);
+        Assertions.assertEquals(checked + 2, existsCalls.get());
+    }
+
+    @Test
+    void testCanonicalKey() {
+        PageVO pageVO = new PageVO();
+        EsGoodsSearchDTO a = searchDTO(3);
+        a.getNotShowCol().put("b", Collections.singletonList("1"));
+        a.getNotShowCol().put("a", Collections.singletonList("2"));
+        EsGoodsSearchDTO b = searchDTO(3);
+        b.getNotShowCol().put("a", Collections.singletonList("2"));
+        b.getNotShowCol().put("b", Collections.singletonList("1"));
+        searchService.searchGoodsByPage(a, pageVO);
+        searchService.searchGoodsByPage(b, pageVO);
+        Assertions.assertEquals(1, esCalls.get());
+    }
+
+    private long[] run(boolean cacheEnabled) {
+        elasticsearchProperties.setSearchCache(cacheEnabled);
+        Random random = new Random(7);
+        double[] cumulative = zipf(QUERY_COUNT, 1.1);
+        long[] latency = new long[REQUEST_COUNT];
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            index = index < 0 ? -index - 1 : index;
+            PageVO pageVO = new PageVO();
+            pageVO.setPageNumber(index % 3 + 1);
+            long start = System.nanoTime();
+            searchService.searchGoodsByPage(searchDTO(index), pageVO);
+            latency[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latency);
+        return latency;
+    }
+
+    private static double percentile(long[] sortedLatency, int percentile) {
+        int index = Math.min(sortedLatency.length - 1, sortedLatency.length * percentile / 100);
+        return sortedLatency[index] / 1_000_000.0;
+    }
+
+    private static double[] zipf(int n, double s) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, s);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static EsGoodsSearchDTO searchDTO(int index) {
+        EsGoodsSearchDTO searchDTO = new EsGoodsSearchDTO();
+        searchDTO.setCategoryId(String.valueOf(index % 20));
+        searchDTO.setKeyword(index % 2 == 0 ? "keyword" + index : null);
+        return searchDTO;
+    }
+
+    private Cache<Object> mockCache() {
+        Cache<Object> cache = mock(Cache.class);
+        when(cache.get(any())).thenAnswer(invocation -> redis.get(invocation.getArgument(0)));
+        when(cache.getString(any())).thenAnswer(invocation -> {
+            Object value = redis.get(invocation.getArgument(0));
+            return value == null ? null : value.toString();
+        });
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(cache).put(any(), any(), anyLong());
+        when(cache.incr(anyString())).thenAnswer(invocation ->
+                (Long) redis.merge(invocation.getArgument(0), 1L, (a, b) -> (Long) a + (Long) b) - 1);
+        return cache;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ElasticsearchOperations mockElasticsearch() {
+        ElasticsearchOperations restTemplate = mock(ElasticsearchOperations.class);
+        IndexOperations indexOperations = mock(IndexOperations.class);
+        when(indexOperations.exists()).thenAnswer(invocation -> {
+            existsCalls.incrementAndGet();
+            return indexPresent.get();
+        });
+        when(restTemplate.indexOps(EsGoodsIndex.class)).thenReturn(indexOperations);
+        EsGoodsIndex goodsIndex = new EsGoodsIndex();
+        goodsIndex.setId(UUID.randomUUID().toString());
+        SearchHit<EsGoodsIndex> searchHit = mock(SearchHit.class);
+        when(searchHit.getContent()).thenReturn(goodsIndex);
+        SearchHits<EsGoodsIndex> searchHits = mock(SearchHits.class);
+        when(searchHits.getSearchHits()).thenReturn(Collections.singletonList(searchHit));
+        when(searchHits.getTotalHits()).thenReturn(1L);
+        when(restTemplate.search(any(Query.class), eq(EsGoodsIndex.class))).thenAnswer(invocation -> {
+            esCalls.incrementAndGet();
+            Thread.sleep(ES_LATENCY);
+            return searchHits;
+        });
+        return restTemplate;
+    }
+}
@@ -0,0 +1,91 @@
+package cn.lili.test.elasticsearch;
+
+import cn.lili.modules.search.utils.HotWordsSketch;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 热词 Top-K 统计测试
+ * 使用固定种子的 Zipf 分布搜索词流，对比统计结果与精确计数的 Top-K 召回率
+ **/
+class HotWordsSketchTest {
+
+    /**
+     * 不同搜索词数量
+     */
+    private static final int WORD_COUNT = 5000;
+
+    /**
+     * 搜索次数
+     */
+    private static final int SEARCH_COUNT = 200000;
+
+    private static final int TOP_K = 50;
+
+    @Test
+    void testTopKRecall() {
+        HotWordsSketch sketch = new HotWordsSketch(TOP_K * 10);
+        Map<String, Long> exact = new HashMap<>();
+        double[] cumulative = zipf(WORD_COUNT, 1.1);
+        Random random = new Random(20240312L);
+        for (int i = 0; i < SEARCH_COUNT; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            String word = "word" + (index < 0 ? -index - 1 : index);
+            sketch.offer(word);
+            exact.merge(word, 1L, Long::sum);
+        }
+
+        Set<String> exactTop = exact.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(TOP_K)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        List<HotWordsSketch.Counter> top = sketch.top(TOP_K);
+
+        long hit = top.stream().filter(counter -> exactTop.contains(counter.getWord())).count();
+        double recall = (double) hit / TOP_K;
+        System.out.printf("Top-%d 召回率:%.2f%% 计数器数量:%d%n", TOP_K, recall * 100, sketch.size());
+        Assertions.assertTrue(recall >= 0.9);
+
+        //计数为真实值的上界，减去误差为下界
+        for (HotWordsSketch.Counter counter : top) {
+            long real = exact.get(counter.getWord());
+            Assertions.assertTrue(counter.getCount() >= real);
+            Assertions.assertTrue(counter.getCount() - counter.getError() <= real);
+        }
+        Assertions.assertEquals(TOP_K * 10, sketch.size());
+    }
+
+    @Test
+    void testDrain() {
+        HotWordsSketch sketch = new HotWordsSketch(3);
+        sketch.offer("a", 5);
+        sketch.offer("b", 2);
+        sketch.offer("c");
+        sketch.offer("d");
+        Map<String, Long> drained = sketch.drain();
+
+        //d 替换计数最小的 c，继承其计数
+        Assertions.assertEquals(3, drained.size());
+        Assertions.assertEquals(5L, drained.get("a"));
+        Assertions.assertEquals(2L, drained.get("d"));
+        Assertions.assertFalse(drained.containsKey("c"));
+        Assertions.assertEquals(0, sketch.size());
+    }
+
+    private static double[] zipf(int n, double s) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, s);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+}
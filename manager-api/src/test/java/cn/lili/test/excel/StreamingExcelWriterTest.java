@@ -0,0 +1,97 @@
+package cn.lili.test.excel;
+
+import cn.lili.common.excel.ExcelColumn;
+import cn.lili.common.excel.KeysetReader;
+import cn.lili.common.excel.StreamingExcelWriter;
+import cn.lili.modules.order.order.entity.dto.OrderExportDetailDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipFile;
+
+/**
+ * 流式导出测试
+ * 在最大堆 256M 的子进程中导出 100 万行，校验导出不受堆内存限制
+ */
+class StreamingExcelWriterTest {
+
+    private static final int ROWS = 1000000;
+
+    private static final List<ExcelColumn<OrderExportDetailDTO>> COLUMNS = Arrays.asList(
+            ExcelColumn.of("主订单编号", OrderExportDetailDTO::getOrderSn),
+            ExcelColumn.of("子订单编号", OrderExportDetailDTO::getOrderItemSn),
+            ExcelColumn.of("选购商品", OrderExportDetailDTO::getGoodsName),
+            ExcelColumn.of("商品数量", OrderExportDetailDTO::getNum),
+            ExcelColumn.of("订单应付金额", OrderExportDetailDTO::getFlowPrice),
+            ExcelColumn.of("收件人", OrderExportDetailDTO::getConsigneeName),
+            ExcelColumn.of("详细地址", OrderExportDetailDTO::getConsigneeDetail),
+            ExcelColumn.of("订单提交时间", OrderExportDetailDTO::getCreateTime),
+            ExcelColumn.of("店铺", OrderExportDetailDTO::getStoreName));
+
+    @Test
+    void testExportUnderHeapLimit() throws Exception {
+        File file = File.createTempFile("streaming-export", ".xlsx");
+        try {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            Process process = new ProcessBuilder(java, "-Xmx256m", "-cp", System.getProperty("java.class.path"),
+                    StreamingExcelWriterTest.class.getName(), file.getAbsolutePath(), String.valueOf(ROWS))
+                    .inheritIO()
+                    .start();
+            Assertions.assertTrue(process.waitFor(10, TimeUnit.MINUTES), "导出超时");
+            Assertions.assertEquals(0, process.exitValue());
+            try (ZipFile zipFile = new ZipFile(file)) {
+                Assertions.assertNotNull(zipFile.getEntry("xl/worksheets/sheet1.xml"));
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    /**
+     * 子进程入口，按批生成模拟订单并导出
+     *
+     * @param args 导出文件、导出行数
+     */
+    public static void main(String[] args) throws Exception {
+        int rows = Integer.parseInt(args[1]);
+        try (StreamingExcelWriter writer = new StreamingExcelWriter();
+             OutputStream outputStream = new FileOutputStream(args[0])) {
+            StreamingExcelWriter.SheetWriter<OrderExportDetailDTO> sheetWriter = writer.createSheet("订单列表", COLUMNS);
+            long read = KeysetReader.read(1000, (OrderExportDetailDTO last, Integer size) -> {
+                int from = last == null ? 0 : Integer.parseInt(last.getOrderSn().substring(1));
+                List<OrderExportDetailDTO> chunk = new ArrayList<>(size);
+                for (int i = from + 1; i <= Math.min(from + size, rows); i++) {
+                    chunk.add(order(i));
+                }
+                return chunk;
+            }, sheetWriter::writeAll);
+            writer.write(outputStream);
+            if (read != rows || sheetWriter.getRowCount() != rows) {
+                System.exit(1);
+            }
+        }
+    }
+
+    private static OrderExportDetailDTO order(int index) {
+        OrderExportDetailDTO order = new OrderExportDetailDTO();
+        order.setOrderSn("O" + index);
+        order.setOrderItemSn("OI" + index);
+        order.setGoodsName("测试商品" + (index % 1000));
+        order.setNum(index % 5 + 1);
+        order.setFlowPrice(index % 10000 / 100D);
+        order.setConsigneeName("收件人" + (index % 100));
+        order.setConsigneeDetail("测试地址" + index + "号");
+        order.setCreateTime("2024-03-12 10:00:00");
+        order.setStoreName("测试店铺" + (index % 50));
+        return order;
+    }
+}
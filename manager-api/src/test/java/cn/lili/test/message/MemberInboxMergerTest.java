@@ -0,0 +1,89 @@
+package cn.lili.test.message;
+
+import cn.lili.modules.message.entity.dos.MemberMessage;
+import cn.lili.modules.message.entity.enums.MessageStatusEnum;
+import cn.lili.modules.message.entity.vos.MemberMessageInboxVO;
+import cn.lili.modules.message.util.MemberInboxMerger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 会员收件箱合并测试
+ * 游标翻页合并指定会员消息与全员消息，结果与全量排序一致
+ */
+class MemberInboxMergerTest {
+
+    private static final MessageStatusEnum[] STATUSES = MessageStatusEnum.values();
+
+    private static final long BASE_TIME = 1710000000000L;
+
+    @Test
+    void testRandomizedPaging() {
+        for (int round = 0; round < 200; round++) {
+            long seed = 20240312L + round;
+            Random random = new Random(seed);
+            List<MemberMessage> directs = messages(random, "1", random.nextInt(60));
+            List<MemberMessage> broadcasts = messages(random, "2", random.nextInt(60));
+            String status = random.nextInt(3) == 0 ? STATUSES[random.nextInt(STATUSES.length)].name() : null;
+            Predicate<MemberMessage> filter = item -> status == null || status.equals(item.getStatus());
+
+            List<MemberMessage> expected = new ArrayList<>(directs);
+            expected.addAll(broadcasts);
+            expected = expected.stream().filter(filter).sorted(MemberInboxMerger.NEWEST_FIRST).collect(Collectors.toList());
+
+            int pageSize = 1 + random.nextInt(15);
+            List<MemberMessage> actual = this.readAll(directs, broadcasts, filter, pageSize);
+            Assertions.assertEquals(ids(expected), ids(actual), "seed " + seed);
+        }
+    }
+
+    /**
+     * 按游标逐页读取收件箱，每页从两个来源各取游标之后的 pageSize + 1 条
+     */
+    private List<MemberMessage> readAll(List<MemberMessage> directs, List<MemberMessage> broadcasts, Predicate<MemberMessage> filter, int pageSize) {
+        List<MemberMessage> sortedDirects = directs.stream().filter(filter).sorted(MemberInboxMerger.NEWEST_FIRST).collect(Collectors.toList());
+        List<MemberMessage> sortedBroadcasts = broadcasts.stream().filter(filter).sorted(MemberInboxMerger.NEWEST_FIRST).collect(Collectors.toList());
+        List<MemberMessage> result = new ArrayList<>();
+        String cursor = null;
+        do {
+            MemberInboxMerger.Position position = MemberInboxMerger.parse(cursor);
+            MemberMessageInboxVO page = MemberInboxMerger.merge(after(sortedDirects, position, pageSize + 1),
+                    after(sortedBroadcasts, position, pageSize + 1), pageSize);
+            Assertions.assertTrue(page.getRecords().size() <= pageSize);
+            result.addAll(page.getRecords());
+            cursor = page.getCursor();
+        } while (cursor != null);
+        return result;
+    }
+
+    private static List<MemberMessage> after(List<MemberMessage> sorted, MemberInboxMerger.Position position, int limit) {
+        return sorted.stream().filter(item -> position == null || position.precedes(item)).limit(limit).collect(Collectors.toList());
+    }
+
+    private static List<MemberMessage> messages(Random random, String idPrefix, int num) {
+        List<MemberMessage> messages = new ArrayList<>();
+        for (int i = 0; i < num; i++) {
+            //发送时间集中在少数几个值，覆盖同一时间多条消息的情况
+            messages.add(message(idPrefix + String.format("%018d", random.nextInt(1_000_000)), BASE_TIME + random.nextInt(20) * 1000L,
+                    STATUSES[random.nextInt(STATUSES.length)].name()));
+        }
+        return messages.stream().collect(Collectors.collectingAndThen(
+                Collectors.toMap(MemberMessage::getId, item -> item, (a, b) -> a, LinkedHashMap::new), map -> new ArrayList<>(map.values())));
+    }
+
+    private static MemberMessage message(String id, long createTime, String status) {
+        MemberMessage memberMessage = new MemberMessage();
+        memberMessage.setId(id);
+        memberMessage.setCreateTime(new Date(createTime));
+        memberMessage.setStatus(status);
+        return memberMessage;
+    }
+
+    private static List<String> ids(List<MemberMessage> messages) {
+        return messages.stream().map(MemberMessage::getId).collect(Collectors.toList());
+    }
+}
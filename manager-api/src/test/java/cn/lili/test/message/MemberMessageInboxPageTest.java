@@ -0,0 +1,115 @@
+package cn.lili.test.message;
+
+import cn.lili.common.vo.PageVO;
+import cn.lili.modules.message.entity.dos.MemberMessage;
+import cn.lili.modules.message.entity.vos.MemberMessageQueryVO;
+import cn.lili.modules.message.mapper.MemberMessageMapper;
+import cn.lili.modules.message.mapper.MessageMapper;
+import cn.lili.modules.message.serviceimpl.MemberMessageServiceImpl;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 会员收件箱按页码分页测试
+ * 合并指定会员消息与全员消息后按页截取，总数为两类消息之和；旧版本逐个会员写入的全员消息不重复出现
+ */
+class MemberMessageInboxPageTest {
+
+    private static final long BASE_TIME = 1710000000000L;
+
+    private MemberMessageServiceImpl memberMessageService;
+
+    private MemberMessageMapper memberMessageMapper;
+
+    private MessageMapper messageMapper;
+
+    private List<MemberMessage> directs;
+
+    private List<MemberMessage> broadcasts;
+
+    @BeforeEach
+    void setUp() {
+        memberMessageService = new MemberMessageServiceImpl();
+        memberMessageMapper = Mockito.mock(MemberMessageMapper.class);
+        messageMapper = Mockito.mock(MessageMapper.class);
+        ReflectionTestUtils.setField(memberMessageService, "baseMapper", memberMessageMapper);
+        ReflectionTestUtils.setField(memberMessageService, "messageMapper", messageMapper);
+
+        //时间交错的两类消息，按发送时间倒序
+        directs = new ArrayList<>();
+        broadcasts = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            MemberMessage message = new MemberMessage();
+            message.setId(String.valueOf(1000 + i));
+            message.setCreateTime(new Date(BASE_TIME + i * 1000L));
+            (i % 3 == 0 ? broadcasts : directs).add(0, message);
+        }
+        Mockito.when(memberMessageMapper.selectCount(Mockito.any())).thenReturn((long) directs.size());
+        Mockito.when(memberMessageMapper.selectList(Mockito.any())).thenAnswer(i -> new ArrayList<>(directs));
+        Mockito.when(messageMapper.countMemberBroadcasts(Mockito.eq("1"), Mockito.any())).thenReturn((long) broadcasts.size());
+        Mockito.when(messageMapper.selectMemberBroadcasts(Mockito.eq("1"), Mockito.any())).thenAnswer(i -> new ArrayList<>(broadcasts));
+    }
+
+    @Test
+    void testPages() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 24; i >= 0; i--) {
+            expected.add(String.valueOf(1000 + i));
+        }
+        List<String> actual = new ArrayList<>();
+        for (int pageNumber = 1; pageNumber <= 3; pageNumber++) {
+            IPage<MemberMessage> page = memberMessageService.getInboxPage(query(), pageVO(pageNumber, 10));
+            Assertions.assertEquals(25, page.getTotal());
+            actual.addAll(page.getRecords().stream().map(MemberMessage::getId).collect(Collectors.toList()));
+        }
+        Assertions.assertEquals(expected, actual);
+        //全员消息填充会员与消息id
+        MemberMessage broadcast = memberMessageService.getInboxPage(query(), pageVO(1, 1)).getRecords().get(0);
+        Assertions.assertEquals("1", broadcast.getMemberId());
+        Assertions.assertEquals("1024", broadcast.getMessageId());
+    }
+
+    @Test
+    void testPageBeyondTotal() {
+        IPage<MemberMessage> page = memberMessageService.getInboxPage(query(), pageVO(4, 10));
+        Assertions.assertEquals(25, page.getTotal());
+        Assertions.assertTrue(page.getRecords().isEmpty());
+        Mockito.verify(memberMessageMapper, Mockito.never()).selectList(Mockito.any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLegacyCopiesExcluded() {
+        memberMessageService.unreadNum("1");
+        memberMessageService.getInbox(query(), null, 10);
+        ArgumentCaptor<Wrapper<MemberMessage>> captor = ArgumentCaptor.forClass(Wrapper.class);
+        Mockito.verify(messageMapper).countMemberBroadcasts(Mockito.eq("1"), captor.capture());
+        Mockito.verify(messageMapper).selectMemberBroadcasts(Mockito.eq("1"), captor.capture());
+        for (Wrapper<MemberMessage> wrapper : captor.getAllValues()) {
+            Assertions.assertTrue(wrapper.getSqlSegment().contains("NOT EXISTS (SELECT 1 FROM li_member_message mm WHERE mm.member_id ="),
+                    wrapper.getSqlSegment());
+        }
+    }
+
+    private static MemberMessageQueryVO query() {
+        MemberMessageQueryVO memberMessageQueryVO = new MemberMessageQueryVO();
+        memberMessageQueryVO.setMemberId("1");
+        return memberMessageQueryVO;
+    }
+
+    private static PageVO pageVO(int pageNumber, int pageSize) {
+        PageVO pageVO = new PageVO();
+        pageVO.setPageNumber(pageNumber);
+        pageVO.setPageSize(pageSize);
+        return pageVO;
+    }
+}
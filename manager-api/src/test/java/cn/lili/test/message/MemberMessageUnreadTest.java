@@ -0,0 +1,194 @@
+package cn.lili.test.message;
+
+import cn.hutool.core.date.DateUtil;
+import cn.lili.common.vo.PageVO;
+import cn.lili.modules.member.entity.dos.Member;
+import cn.lili.modules.member.mapper.MemberMapper;
+import cn.lili.modules.message.entity.dos.MemberMessage;
+import cn.lili.modules.message.entity.dos.MemberMessageState;
+import cn.lili.modules.message.entity.dos.Message;
+import cn.lili.modules.message.entity.enums.MessageSendClient;
+import cn.lili.modules.message.entity.enums.MessageStatusEnum;
+import cn.lili.modules.message.entity.enums.RangeEnum;
+import cn.lili.modules.message.entity.vos.MemberMessageInboxVO;
+import cn.lili.modules.message.entity.vos.MemberMessageQueryVO;
+import cn.lili.modules.message.mapper.MemberMessageStateMapper;
+import cn.lili.modules.message.mapper.MessageMapper;
+import cn.lili.modules.message.service.MemberMessageService;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 会员未读消息数量测试
+ * 生成会员、全员消息与会员状态，校验未读数量与收件箱只包含注册后发送、未被会员状态或旧版本会员消息覆盖的全员消息，测试数据回滚
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@Transactional
+class MemberMessageUnreadTest {
+
+    /**
+     * 远晚于现有数据的时间，避免已有的全员消息计入
+     */
+    private static final Date REGISTER_TIME = DateUtil.parseDateTime("2099-01-01 10:00:00");
+
+    @Autowired
+    private MemberMessageService memberMessageService;
+
+    @Autowired
+    private MemberMapper memberMapper;
+
+    @Autowired
+    private MessageMapper messageMapper;
+
+    @Autowired
+    private MemberMessageStateMapper memberMessageStateMapper;
+
+    private String memberId;
+
+    private String laterMemberId;
+
+    private final Map<String, String> broadcasts = new HashMap<>();
+
+    private final Map<String, String> directs = new HashMap<>();
+
+    @BeforeEach
+    void init() {
+        memberId = this.member("UNREAD_TEST_M1", REGISTER_TIME);
+        laterMemberId = this.member("UNREAD_TEST_M2", DateUtil.offsetHour(REGISTER_TIME, 4 * 24 + 1));
+
+        //注册前发送、发送给店铺、发送给指定会员的消息都不是会员的全员消息
+        this.broadcast("BEFORE", -1, RangeEnum.ALL, MessageSendClient.MEMBER);
+        this.broadcast("STORE", 2, RangeEnum.ALL, MessageSendClient.STORE);
+        this.broadcast("APPOINT", 2, RangeEnum.APPOINT, MessageSendClient.MEMBER);
+        for (int day = 1; day <= 6; day++) {
+            this.broadcast("B" + day, day, RangeEnum.ALL, MessageSendClient.MEMBER);
+        }
+        //B1 已读，B2 放入回收站，B3 为旧版本逐个会员写入的会员消息
+        this.state(memberId, "B1", MessageStatusEnum.ALREADY_READY);
+        this.state(memberId, "B2", MessageStatusEnum.ALREADY_REMOVE);
+        this.direct("B3_COPY", broadcasts.get("B3"), MessageStatusEnum.ALREADY_READY, 3);
+        this.direct("D1", null, MessageStatusEnum.UN_READY, 2);
+        this.direct("D2", null, MessageStatusEnum.ALREADY_READY, 5);
+    }
+
+    @Test
+    void testUnreadNum() {
+        //指定会员消息 D1，全员消息 B4、B5、B6
+        Assertions.assertEquals(4, memberMessageService.unreadNum(memberId));
+        //晚注册的会员只能看到 B5、B6
+        Assertions.assertEquals(2, memberMessageService.unreadNum(laterMemberId));
+
+        Assertions.assertTrue(memberMessageService.editStatus(memberId, MessageStatusEnum.ALREADY_READY.name(), broadcasts.get("B4")));
+        Assertions.assertEquals(3, memberMessageService.unreadNum(memberId));
+        //再次修改状态只更新会员状态
+        Assertions.assertTrue(memberMessageService.editStatus(memberId, MessageStatusEnum.ALREADY_REMOVE.name(), broadcasts.get("B4")));
+        Assertions.assertEquals(3, memberMessageService.unreadNum(memberId));
+        Assertions.assertEquals(2, memberMessageService.unreadNum(laterMemberId));
+        //发送给店铺的消息不能由会员修改状态
+        Assertions.assertFalse(memberMessageService.editStatus(memberId, MessageStatusEnum.ALREADY_READY.name(), broadcasts.get("STORE")));
+
+        Assertions.assertEquals(Arrays.asList("B6", "B5", "D1"), this.inbox(memberId, MessageStatusEnum.UN_READY));
+        Assertions.assertEquals(Arrays.asList("B4", "B2"), this.inbox(memberId, MessageStatusEnum.ALREADY_REMOVE));
+    }
+
+    @Test
+    void testInbox() {
+        List<String> expected = Arrays.asList("B6", "D2", "B5", "B4", "B3_COPY", "D1", "B2", "B1");
+        Assertions.assertEquals(expected, this.inbox(memberId, null));
+
+        MemberMessageQueryVO query = new MemberMessageQueryVO();
+        query.setMemberId(memberId);
+        PageVO pageVO = new PageVO();
+        pageVO.setPageNumber(2);
+        pageVO.setPageSize(3);
+        IPage<MemberMessage> page = memberMessageService.getInboxPage(query, pageVO);
+        Assertions.assertEquals(expected.size(), page.getTotal());
+        Assertions.assertEquals(expected.subList(3, 6), this.names(page.getRecords()));
+    }
+
+    /**
+     * 按游标逐页读取会员收件箱
+     */
+    private List<String> inbox(String memberId, MessageStatusEnum status) {
+        MemberMessageQueryVO query = new MemberMessageQueryVO();
+        query.setMemberId(memberId);
+        query.setStatus(status == null ? null : status.name());
+        List<MemberMessage> records = new ArrayList<>();
+        String cursor = null;
+        do {
+            MemberMessageInboxVO page = memberMessageService.getInbox(query, cursor, 2);
+            records.addAll(page.getRecords());
+            cursor = page.getCursor();
+        } while (cursor != null);
+        return this.names(records);
+    }
+
+    private List<String> names(List<MemberMessage> records) {
+        Map<String, String> names = new HashMap<>();
+        broadcasts.forEach((name, id) -> names.put(id, name));
+        directs.forEach((name, id) -> names.put(id, name));
+        return records.stream().map(item -> names.getOrDefault(item.getId(), item.getId())).collect(Collectors.toList());
+    }
+
+    private String member(String username, Date registerTime) {
+        Member member = new Member();
+        member.setUsername(username);
+        member.setPassword(username);
+        member.setNickName(username);
+        member.setMobile(username);
+        member.setDisabled(false);
+        member.setHaveStore(false);
+        member.setPoint(0L);
+        member.setTotalPoint(0L);
+        member.setExperience(0L);
+        memberMapper.insert(member);
+        memberMapper.update(null, new LambdaUpdateWrapper<Member>().set(Member::getCreateTime, registerTime)
+                .eq(Member::getId, member.getId()));
+        return member.getId();
+    }
+
+    private void broadcast(String name, int day, RangeEnum range, MessageSendClient client) {
+        Message message = new Message();
+        message.setTitle(name);
+        message.setContent(name);
+        message.setMessageRange(range.name());
+        message.setMessageClient(client.name().toLowerCase());
+        messageMapper.insert(message);
+        messageMapper.update(null, new LambdaUpdateWrapper<Message>().set(Message::getCreateTime, DateUtil.offsetDay(REGISTER_TIME, day))
+                .eq(Message::getId, message.getId()));
+        broadcasts.put(name, message.getId());
+    }
+
+    private void state(String memberId, String name, MessageStatusEnum status) {
+        MemberMessageState state = new MemberMessageState();
+        state.setMemberId(memberId);
+        state.setMessageId(broadcasts.get(name));
+        state.setStatus(status.name());
+        memberMessageStateMapper.insert(state);
+    }
+
+    private void direct(String name, String messageId, MessageStatusEnum status, int day) {
+        MemberMessage memberMessage = new MemberMessage();
+        memberMessage.setMemberId(memberId);
+        memberMessage.setTitle(name);
+        memberMessage.setContent(name);
+        memberMessage.setMessageId(messageId);
+        memberMessage.setStatus(status.name());
+        memberMessageService.save(memberMessage);
+        memberMessageService.update(new LambdaUpdateWrapper<MemberMessage>().set(MemberMessage::getCreateTime, DateUtil.offsetHour(REGISTER_TIME, day * 24 + 1))
+                .eq(MemberMessage::getId, memberMessage.getId()));
+        directs.put(name, memberMessage.getId());
+    }
+}
@@ -0,0 +1,204 @@
+package cn.lili.test.order;
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.lili.modules.goods.entity.dos.GoodsSku;
+import cn.lili.modules.order.cart.entity.dto.TradeDTO;
+import cn.lili.modules.order.cart.entity.enums.CartTypeEnum;
+import cn.lili.modules.order.cart.entity.vo.CartSkuVO;
+import cn.lili.modules.order.cart.render.impl.CouponRender;
+import cn.lili.modules.order.cart.render.util.CouponEligibilityIndex;
+import cn.lili.modules.order.order.entity.dto.PriceDetailDTO;
+import cn.lili.modules.promotion.entity.dos.MemberCoupon;
+import cn.lili.modules.promotion.entity.enums.PromotionsScopeTypeEnum;
+import cn.lili.modules.promotion.entity.vos.MemberCouponVO;
+import cn.lili.modules.promotion.service.MemberCouponService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 优惠券渲染测试
+ * 随机生成购物车与会员优惠券，校验按适用范围索引过滤的商品与原逐个商品过滤的结果一致，
+ * 渲染后的可用、不可用优惠券与原逻辑一致
+ */
+class CouponRenderTest {
+
+    private static final String[] STORES = {"S1", "S2", "S3", "S4"};
+
+    private static final PromotionsScopeTypeEnum[] SCOPES = PromotionsScopeTypeEnum.values();
+
+    private static final int ROUNDS = 300;
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @Test
+    void testRandomizedFilter() {
+        for (int round = 0; round < ROUNDS; round++) {
+            long seed = 20240312L + round;
+            Random random = new Random(seed);
+            List<CartSkuVO> skus = skus(random);
+            CouponEligibilityIndex index = new CouponEligibilityIndex(skus);
+            for (int i = 0; i < 100; i++) {
+                MemberCoupon memberCoupon = coupon(random, i);
+                Assertions.assertEquals(ids(legacyFilter(skus, memberCoupon)), ids(index.filter(memberCoupon)),
+                        "seed " + seed + " coupon " + memberCoupon);
+            }
+        }
+    }
+
+    @Test
+    void testRandomizedRender() {
+        for (int round = 0; round < ROUNDS; round++) {
+            long seed = 20240312L + round;
+            Random random = new Random(seed);
+            TradeDTO tradeDTO = new TradeDTO(CartTypeEnum.CART);
+            tradeDTO.setMemberId("M1");
+            tradeDTO.getSkuList().addAll(skus(random));
+            List<MemberCoupon> memberCoupons = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(60); i++) {
+                memberCoupons.add(coupon(random, i));
+            }
+
+            MemberCouponService memberCouponService = mock(MemberCouponService.class);
+            when(memberCouponService.getMemberCoupons("M1")).thenReturn(memberCoupons);
+            CouponRender couponRender = new CouponRender();
+            ReflectionTestUtils.setField(couponRender, "memberCouponService", memberCouponService);
+            couponRender.render(tradeDTO);
+
+            List<String> canUse = new ArrayList<>();
+            List<String> cantUse = new ArrayList<>();
+            Date now = new Date();
+            for (MemberCoupon memberCoupon : memberCoupons) {
+                if (!memberCoupon.getStartTime().before(now) || !memberCoupon.getEndTime().after(now)) {
+                    continue;
+                }
+                List<CartSkuVO> filterSku = legacyFilter(tradeDTO.getCheckedSkuList(), memberCoupon);
+                PriceDetailDTO totalPrice = new PriceDetailDTO();
+                totalPrice.accumulationPriceDTO(filterSku.stream().map(CartSkuVO::getPriceDetailDTO).collect(Collectors.toList()));
+                if (!filterSku.isEmpty() && totalPrice.getGoodsPrice() >= memberCoupon.getConsumeThreshold()) {
+                    canUse.add(memberCoupon.getId());
+                } else {
+                    cantUse.add(memberCoupon.getId());
+                }
+            }
+            String message = "seed " + seed;
+            Assertions.assertEquals(canUse, tradeDTO.getCanUseCoupons().stream().map(MemberCoupon::getId).collect(Collectors.toList()), message);
+            Assertions.assertEquals(cantUse, tradeDTO.getCantUseCoupons().stream().map(MemberCouponVO::getId).collect(Collectors.toList()), message);
+        }
+    }
+
+    private static List<String> ids(List<CartSkuVO> skus) {
+        return skus.stream().map(item -> item.getGoodsSku().getId()).collect(Collectors.toList());
+    }
+
+    /**
+     * 随机购物车商品：分布在多个店铺，平台分类与店铺分类随机，部分未选中
+     */
+    private static List<CartSkuVO> skus(Random random) {
+        List<CartSkuVO> skus = new ArrayList<>();
+        int skuNum = random.nextInt(30);
+        for (int i = 0; i < skuNum; i++) {
+            GoodsSku sku = new GoodsSku();
+            sku.setId(String.format("SKU%04d", i));
+            sku.setStoreId(STORES[random.nextInt(STORES.length - 1)]);
+            sku.setPrice(1 + random.nextInt(20000) / 100D);
+            sku.setCategoryPath(String.format("C%03d,C%03d,C%03d", random.nextInt(3), 10 + random.nextInt(5), 100 + random.nextInt(20)));
+            int storeCategories = random.nextInt(4);
+            List<String> storeCategoryPath = new ArrayList<>();
+            for (int c = 0; c < storeCategories; c++) {
+                storeCategoryPath.add(String.format("SC%03d", random.nextInt(15)));
+            }
+            sku.setStoreCategoryPath(random.nextInt(10) == 0 ? null : String.join(",", storeCategoryPath));
+            CartSkuVO cartSkuVO = new CartSkuVO(sku);
+            cartSkuVO.setNum(1 + random.nextInt(3));
+            cartSkuVO.setChecked(random.nextInt(6) != 0);
+            cartSkuVO.getPriceDetailDTO().setGoodsPrice(sku.getPrice() * cartSkuVO.getNum());
+            skus.add(cartSkuVO);
+        }
+        return skus;
+    }
+
+    /**
+     * 随机会员优惠券：平台或店铺券，范围ID部分命中购物车商品，部分未开始或已过期
+     */
+    private static MemberCoupon coupon(Random random, int index) {
+        MemberCoupon memberCoupon = new MemberCoupon();
+        memberCoupon.setId("MC" + index);
+        memberCoupon.setCouponId("C" + index);
+        boolean platform = random.nextInt(4) == 0;
+        memberCoupon.setPlatformFlag(platform);
+        memberCoupon.setStoreId(platform ? "0" : STORES[random.nextInt(STORES.length)]);
+        PromotionsScopeTypeEnum scope = SCOPES[random.nextInt(SCOPES.length)];
+        memberCoupon.setScopeType(scope.name());
+        List<String> scopeIds = new ArrayList<>();
+        int scopeNum = random.nextInt(8);
+        for (int i = 0; i < scopeNum; i++) {
+            switch (scope) {
+                case PORTION_GOODS:
+                    scopeIds.add(String.format("SKU%04d", random.nextInt(40)));
+                    break;
+                case PORTION_GOODS_CATEGORY:
+                    scopeIds.add(String.format("C%03d", 100 + random.nextInt(25)));
+                    break;
+                case PORTION_SHOP_CATEGORY:
+                    scopeIds.add(String.format("SC%03d", random.nextInt(20)));
+                    break;
+                default:
+                    break;
+            }
+        }
+        memberCoupon.setScopeId(scopeIds.isEmpty() && random.nextBoolean() ? null : String.join(",", scopeIds));
+        memberCoupon.setConsumeThreshold((double) random.nextInt(300));
+        int time = random.nextInt(10);
+        memberCoupon.setStartTime(new Date(System.currentTimeMillis() + (time == 0 ? DAY : -DAY)));
+        memberCoupon.setEndTime(new Date(System.currentTimeMillis() + (time == 1 ? -DAY / 2 : DAY)));
+        return memberCoupon;
+    }
+
+    /**
+     * 原过滤逻辑：按店铺过滤后逐个商品匹配优惠券范围ID
+     */
+    private static List<CartSkuVO> legacyFilter(List<CartSkuVO> cartSkuVOS, MemberCoupon memberCoupon) {
+        List<CartSkuVO> filterSku;
+        if (Boolean.TRUE.equals(memberCoupon.getPlatformFlag())) {
+            filterSku = cartSkuVOS;
+        } else {
+            filterSku = cartSkuVOS.stream().filter(cartSkuVO -> cartSkuVO.getStoreId().equals(memberCoupon.getStoreId())).collect(Collectors.toList());
+        }
+        if (filterSku == null || filterSku.isEmpty()) {
+            return Collections.emptyList();
+        }
+        //范围ID为空的部分范围优惠券不适用任何商品
+        String scopeId = memberCoupon.getScopeId() == null ? "" : memberCoupon.getScopeId();
+        switch (PromotionsScopeTypeEnum.valueOf(memberCoupon.getScopeType())) {
+            case ALL:
+                return filterSku;
+            case PORTION_GOODS:
+                return filterSku.stream().filter(cartSkuVO -> scopeId.contains(cartSkuVO.getGoodsSku().getId())).collect(Collectors.toList());
+            case PORTION_SHOP_CATEGORY:
+                return filterSku.stream().filter(cartSkuVO -> {
+                    if (CharSequenceUtil.isNotEmpty(cartSkuVO.getGoodsSku().getStoreCategoryPath())) {
+                        for (String category : cartSkuVO.getGoodsSku().getStoreCategoryPath().split(",")) {
+                            if (scopeId.contains(category)) {
+                                return true;
+                            }
+                        }
+                    }
+                    return false;
+                }).collect(Collectors.toList());
+            case PORTION_GOODS_CATEGORY:
+                return filterSku.stream().filter(cartSkuVO -> {
+                    String[] categoryPath = cartSkuVO.getGoodsSku().getCategoryPath().split(",");
+                    return scopeId.contains(categoryPath[categoryPath.length - 1]);
+                }).collect(Collectors.toList());
+            default:
+                return Collections.emptyList();
+        }
+    }
+}
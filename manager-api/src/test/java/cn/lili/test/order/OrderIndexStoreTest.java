@@ -0,0 +1,154 @@
+package cn.lili.test.order;
+
+import cn.lili.common.security.AuthUser;
+import cn.lili.common.security.enums.UserEnums;
+import cn.lili.modules.order.order.entity.dos.Order;
+import cn.lili.modules.order.order.entity.dos.OrderItem;
+import cn.lili.modules.order.order.entity.dto.OrderSearchParams;
+import cn.lili.modules.order.order.entity.enums.OrderStatusEnum;
+import cn.lili.modules.order.order.entity.enums.OrderTagEnum;
+import cn.lili.modules.order.order.entity.vo.OrderSimpleVO;
+import cn.lili.modules.order.order.index.OrderIndexQuery;
+import cn.lili.modules.order.order.index.impl.MemoryOrderIndexStore;
+import cn.lili.modules.search.entity.dos.EsOrderIndex;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 订单查询索引测试
+ * 使用内存索引校验查询条件与原订单列表查询一致
+ */
+class OrderIndexStoreTest {
+
+    private MemoryOrderIndexStore store;
+
+    @BeforeEach
+    void init() {
+        store = new MemoryOrderIndexStore();
+        List<EsOrderIndex> indexes = new ArrayList<>();
+        indexes.add(index("O1", "S1", "M1", OrderStatusEnum.UNPAID, 10D, 1000L, "苹果手机", "UNFINISHED"));
+        indexes.add(index("O2", "S1", "M2", OrderStatusEnum.COMPLETED, 99D, 2000L, "华为手机", "FINISHED"));
+        indexes.add(index("O3", "S2", "M1", OrderStatusEnum.COMPLETED, 500D, 3000L, "苹果电脑", "UNFINISHED"));
+        indexes.add(index("O4", "S2", "M2", OrderStatusEnum.CANCELLED, 20D, 4000L, "数据线", "UNFINISHED"));
+        store.save(indexes);
+    }
+
+    @Test
+    void testKeywordsAndGoodsName() {
+        OrderSearchParams params = new OrderSearchParams();
+        params.setKeywords("苹果");
+        Assertions.assertEquals(Arrays.asList("O3", "O1"), search(params, null));
+
+        params = new OrderSearchParams();
+        params.setGoodsName("手机");
+        params.setCommentStatus("FINISHED");
+        Assertions.assertEquals(Collections.singletonList("O2"), search(params, null));
+    }
+
+    @Test
+    void testUserScope() {
+        AuthUser store1 = AuthUser.builder().id("U1").storeId("S1").role(UserEnums.STORE).build();
+        OrderSearchParams params = new OrderSearchParams();
+        //店铺只能查询自己的订单，传入的店铺ID不生效
+        params.setStoreId("S2");
+        Assertions.assertEquals(Arrays.asList("O2", "O1"), search(params, store1));
+
+        AuthUser member = AuthUser.builder().id("M1").role(UserEnums.MEMBER).build();
+        Assertions.assertEquals(Arrays.asList("O3", "O1"), search(new OrderSearchParams(), member));
+        //传入的会员ID与 SQL 一致为包含匹配
+        params = new OrderSearchParams();
+        params.setMemberId("2");
+        Assertions.assertEquals(Arrays.asList("O4", "O2"), search(params, member));
+        params.setMemberId("M");
+        Assertions.assertEquals(Arrays.asList("O4", "O3", "O2", "O1"), search(params, null));
+        params.setMemberId("m");
+        Assertions.assertTrue(search(params, null).isEmpty());
+
+        AuthUser manager = AuthUser.builder().id("A1").role(UserEnums.MANAGER).build();
+        params = new OrderSearchParams();
+        params.setStoreId("S2");
+        Assertions.assertEquals(Arrays.asList("O4", "O3"), search(params, manager));
+    }
+
+    @Test
+    void testTagAndPrice() {
+        OrderSearchParams params = new OrderSearchParams();
+        params.setTag(OrderTagEnum.COMPLETE.name());
+        params.setFlowPrice("50_100");
+        Assertions.assertEquals(Collections.singletonList("O2"), search(params, null));
+
+        params = new OrderSearchParams();
+        params.setFlowPrice("100");
+        Assertions.assertEquals(Collections.singletonList("O3"), search(params, null));
+    }
+
+    @Test
+    void testPageAndCount() {
+        IPage<EsOrderIndex> page = store.search(OrderIndexQuery.of(new OrderSearchParams(), null), 2, 3);
+        Assertions.assertEquals(4, page.getTotal());
+        Assertions.assertEquals(1, page.getRecords().size());
+        Assertions.assertEquals("O1", page.getRecords().get(0).getSn());
+
+        Map<String, Long> count = store.countByStatus(OrderIndexQuery.of(new OrderSearchParams(), null));
+        Assertions.assertEquals(2L, count.get(OrderStatusEnum.COMPLETED.name()));
+        Assertions.assertEquals(1L, count.get(OrderStatusEnum.UNPAID.name()));
+    }
+
+    @Test
+    void testOrderSimpleVO() {
+        OrderSimpleVO orderSimpleVO = store.get(Collections.singletonList("O1")).get("O1").toOrderSimpleVO();
+        Assertions.assertEquals(1, orderSimpleVO.getOrderItems().size());
+        Assertions.assertEquals("苹果手机", orderSimpleVO.getOrderItems().get(0).getName());
+        Assertions.assertEquals("O1_1", orderSimpleVO.getOrderItems().get(0).getSn());
+    }
+
+    @Test
+    void testFingerprint() {
+        EsOrderIndex indexed = store.get(Collections.singletonList("O1")).get("O1");
+        Assertions.assertTrue(index("O1", "S1", "M1", OrderStatusEnum.UNPAID, 10D, 1000L, "苹果手机", "UNFINISHED").sameContent(indexed));
+        Assertions.assertFalse(index("O1", "S1", "M1", OrderStatusEnum.PAID, 10D, 1000L, "苹果手机", "UNFINISHED").sameContent(indexed));
+    }
+
+    @Test
+    void testStaleVersionIgnored() {
+        EsOrderIndex paid = index("O1", "S1", "M1", OrderStatusEnum.PAID, 10D, 1000L, "苹果手机", "UNFINISHED");
+        paid.setVersion(5000L);
+        store.save(Collections.singletonList(paid));
+        //较早读取的未付款数据晚于已付款数据写入
+        EsOrderIndex unpaid = index("O1", "S1", "M1", OrderStatusEnum.UNPAID, 10D, 1000L, "苹果手机", "UNFINISHED");
+        unpaid.setVersion(4000L);
+        store.save(Collections.singletonList(unpaid));
+        Assertions.assertEquals(OrderStatusEnum.PAID.name(), store.get(Collections.singletonList("O1")).get("O1").getOrderStatus());
+    }
+
+    private List<String> search(OrderSearchParams params, AuthUser currentUser) {
+        return store.search(OrderIndexQuery.of(params, currentUser), 1, 10).getRecords().stream()
+                .map(EsOrderIndex::getSn).collect(Collectors.toList());
+    }
+
+    private static EsOrderIndex index(String sn, String storeId, String memberId, OrderStatusEnum status, Double flowPrice,
+                                      Long createTime, String goodsName, String commentStatus) {
+        Order order = new Order();
+        order.setSn(sn);
+        order.setStoreId(storeId);
+        order.setStoreName("店铺" + storeId);
+        order.setMemberId(memberId);
+        order.setOrderStatus(status.name());
+        order.setFlowPrice(flowPrice);
+        order.setCreateTime(new Date(createTime));
+        order.setDeleteFlag(false);
+        OrderItem orderItem = new OrderItem();
+        orderItem.setSn(sn + "_1");
+        orderItem.setOrderSn(sn);
+        orderItem.setGoodsId("G" + sn);
+        orderItem.setGoodsName(goodsName);
+        orderItem.setNum(1);
+        orderItem.setCommentStatus(commentStatus);
+        return new EsOrderIndex(order, Collections.singletonList(orderItem));
+    }
+}
@@ -0,0 +1,305 @@
+package cn.lili.test.order;
+
+import cn.lili.cache.config.redis.KryoRedisValueCodec;
+import cn.lili.cache.config.redis.VersionedRedisSerializer;
+import cn.lili.common.utils.CurrencyUtil;
+import cn.lili.modules.goods.entity.dos.GoodsSku;
+import cn.lili.modules.member.entity.dos.MemberAddress;
+import cn.lili.modules.order.cart.entity.dto.TradeDTO;
+import cn.lili.modules.order.cart.entity.enums.CartTypeEnum;
+import cn.lili.modules.order.cart.entity.enums.DeliveryMethodEnum;
+import cn.lili.modules.order.cart.entity.vo.CartSkuVO;
+import cn.lili.modules.order.cart.entity.vo.CartVO;
+import cn.lili.modules.order.cart.render.impl.SkuFreightRender;
+import cn.lili.modules.store.entity.dos.FreightTemplateChild;
+import cn.lili.modules.store.entity.dto.FreightRuleIndex;
+import cn.lili.modules.store.entity.dto.FreightTemplateChildDTO;
+import cn.lili.modules.store.entity.enums.FreightTemplateEnum;
+import cn.lili.modules.store.entity.vos.FreightTemplateVO;
+import cn.lili.modules.store.service.FreightTemplateService;
+import com.alibaba.fastjson.parser.ParserConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 运费计算测试
+ * 随机生成运费模板与购物车，校验按运费规则索引计算的运费与原逐个模板匹配的计算结果一致，
+ * 运费规则索引经缓存序列化后结果不变
+ */
+class SkuFreightRenderTest {
+
+    private static final String[] STORES = {"S1", "S2", "S3"};
+
+    private static final int ROUNDS = 500;
+
+    private final VersionedRedisSerializer json = new VersionedRedisSerializer(null, 1024);
+
+    private final VersionedRedisSerializer binary = new VersionedRedisSerializer(new KryoRedisValueCodec(), 1024);
+
+    @BeforeAll
+    static void accept() {
+        ParserConfig.getGlobalInstance().addAccept("cn.lili.");
+    }
+
+    @Test
+    void testRandomizedCarts() {
+        for (int round = 0; round < ROUNDS; round++) {
+            long seed = 20240312L + round;
+            Random random = new Random(seed);
+            Map<String, List<FreightTemplateVO>> storeTemplates = templates(random);
+            Map<String, FreightTemplateVO> templates = storeTemplates.values().stream().flatMap(List::stream)
+                    .collect(Collectors.toMap(FreightTemplateVO::getId, Function.identity()));
+            long cartSeed = random.nextLong();
+            VersionedRedisSerializer serializer = round % 2 == 0 ? json : binary;
+
+            FreightTemplateService freightTemplateService = mock(FreightTemplateService.class);
+            when(freightTemplateService.getFreightRuleIndex(anyString())).thenAnswer(invocation -> {
+                String storeId = invocation.getArgument(0);
+                FreightRuleIndex index = FreightRuleIndex.compile(storeId, storeTemplates.getOrDefault(storeId, new ArrayList<>()));
+                //与缓存中取出的索引一致
+                return serializer.deserialize(serializer.serialize(index));
+            });
+            when(freightTemplateService.getFreightTemplate(anyString())).thenAnswer(invocation ->
+                    templates.getOrDefault(invocation.<String>getArgument(0), new FreightTemplateVO()));
+            SkuFreightRender render = new SkuFreightRender();
+            ReflectionTestUtils.setField(render, "freightTemplateService", freightTemplateService);
+
+            TradeDTO expected = trade(new Random(cartSeed), storeTemplates);
+            TradeDTO actual = trade(new Random(cartSeed), storeTemplates);
+            legacyRender(expected, id -> templates.getOrDefault(id, new FreightTemplateVO()));
+            render.render(actual);
+
+            String message = "seed " + seed;
+            double expectedTotal = 0;
+            double actualTotal = 0;
+            for (int i = 0; i < expected.getSkuList().size(); i++) {
+                Double expectedFreight = expected.getSkuList().get(i).getPriceDetailDTO().getFreightPrice();
+                Double actualFreight = actual.getSkuList().get(i).getPriceDetailDTO().getFreightPrice();
+                Assertions.assertEquals(expectedFreight, actualFreight, message);
+                expectedTotal = CurrencyUtil.add(expectedTotal, expectedFreight);
+                actualTotal = CurrencyUtil.add(actualTotal, actualFreight);
+            }
+            Assertions.assertEquals(expectedTotal, actualTotal, message);
+            Assertions.assertEquals(notSupported(expected), notSupported(actual), message);
+        }
+    }
+
+    @Test
+    void testFirstMatchingChildWins() {
+        FreightTemplateVO template = template("T1", FreightTemplateEnum.NUM.name());
+        template.getFreightTemplateChildList().add(child("320000,320100", 1D, 10D, 1D, 2D));
+        template.getFreightTemplateChildList().add(child("320100,330100", 1D, 20D, 1D, 2D));
+        FreightRuleIndex index = FreightRuleIndex.compile("S1", Collections.singletonList(template));
+        FreightTemplateChildDTO rule = index.template("T1").match("320100");
+        Assertions.assertEquals(10D, rule.getFirstPrice());
+        Assertions.assertEquals(FreightTemplateEnum.NUM.name(), rule.getPricingMethod());
+        Assertions.assertEquals(20D, index.template("T1").match("330100").getFirstPrice());
+        Assertions.assertNull(index.template("T1").match("340100"));
+        Assertions.assertNull(index.template("T2"));
+    }
+
+    private static List<String> notSupported(TradeDTO tradeDTO) {
+        if (tradeDTO.getNotSupportFreight() == null) {
+            return Collections.emptyList();
+        }
+        return tradeDTO.getNotSupportFreight().stream().map(item -> item.getGoodsSku().getId()).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * 随机运费模板：按件、按重量、包邮，部分模板没有子模板，子模板覆盖随机的城市
+     */
+    private static Map<String, List<FreightTemplateVO>> templates(Random random) {
+        Map<String, List<FreightTemplateVO>> storeTemplates = new HashMap<>();
+        for (String storeId : STORES) {
+            List<FreightTemplateVO> list = new ArrayList<>();
+            int count = random.nextInt(4);
+            for (int t = 0; t < count; t++) {
+                int method = random.nextInt(10);
+                FreightTemplateVO template = template(storeId + "_T" + t, method < 1 ? FreightTemplateEnum.FREE.name()
+                        : method < 6 ? FreightTemplateEnum.NUM.name() : FreightTemplateEnum.WEIGHT.name());
+                template.setStoreId(storeId);
+                int children = random.nextInt(10) < 1 ? 0 : 1 + random.nextInt(4);
+                for (int c = 0; c < children; c++) {
+                    List<String> areaIds = new ArrayList<>();
+                    for (int city = 0; city < 20; city++) {
+                        if (random.nextInt(3) == 0) {
+                            areaIds.add(city(city));
+                        }
+                    }
+                    if (random.nextBoolean()) {
+                        areaIds.add(0, "320000");
+                    }
+                    template.getFreightTemplateChildList().add(child(String.join(",", areaIds),
+                            (double) (1 + random.nextInt(3)), random.nextInt(2000) / 100D,
+                            (double) random.nextInt(3), random.nextInt(500) / 100D));
+                }
+                if (children == 0) {
+                    template.setFreightTemplateChildList(random.nextBoolean() ? null : new ArrayList<>());
+                }
+                list.add(template);
+            }
+            storeTemplates.put(storeId, list);
+        }
+        return storeTemplates;
+    }
+
+    /**
+     * 随机购物车：商品模板大多属于所在店铺，部分为空、不存在或属于其他店铺，部分包邮或未选中
+     */
+    private static TradeDTO trade(Random random, Map<String, List<FreightTemplateVO>> storeTemplates) {
+        TradeDTO tradeDTO = new TradeDTO(CartTypeEnum.CART);
+        MemberAddress memberAddress = new MemberAddress();
+        String city = random.nextInt(10) == 0 ? "990100" : city(random.nextInt(20));
+        memberAddress.setConsigneeAddressIdPath(city.substring(0, 2) + "0000," + city + "," + city.substring(0, 4) + "06");
+        tradeDTO.setMemberAddress(memberAddress);
+
+        int skuNum = 1 + random.nextInt(12);
+        for (int i = 0; i < skuNum; i++) {
+            String storeId = STORES[random.nextInt(STORES.length)];
+            GoodsSku sku = new GoodsSku();
+            sku.setId("SKU" + i);
+            sku.setStoreId(storeId);
+            sku.setPrice(100D);
+            sku.setWeight((1 + random.nextInt(300)) / 100D);
+            int templateType = random.nextInt(20);
+            List<FreightTemplateVO> own = storeTemplates.get(storeId);
+            if (templateType == 0) {
+                sku.setFreightTemplateId(null);
+            } else if (templateType == 1) {
+                sku.setFreightTemplateId("MISSING");
+            } else if (templateType <= 3) {
+                List<FreightTemplateVO> other = storeTemplates.get(STORES[random.nextInt(STORES.length)]);
+                sku.setFreightTemplateId(other.isEmpty() ? null : other.get(random.nextInt(other.size())).getId());
+            } else {
+                sku.setFreightTemplateId(own.isEmpty() ? null : own.get(random.nextInt(own.size())).getId());
+            }
+            CartSkuVO cartSkuVO = new CartSkuVO(sku);
+            cartSkuVO.setNum(1 + random.nextInt(5));
+            cartSkuVO.setChecked(random.nextInt(8) != 0);
+            cartSkuVO.setIsFreeFreight(random.nextInt(10) == 0);
+            cartSkuVO.setDeliveryMethod(DeliveryMethodEnum.LOGISTICS.name());
+            tradeDTO.getSkuList().add(cartSkuVO);
+        }
+        tradeDTO.getCartList().add(new CartVO(tradeDTO.getSkuList().get(0)));
+        return tradeDTO;
+    }
+
+    private static String city(int index) {
+        return String.valueOf(310100 + index * 10000);
+    }
+
+    private static FreightTemplateVO template(String id, String pricingMethod) {
+        FreightTemplateVO template = new FreightTemplateVO();
+        template.setId(id);
+        template.setPricingMethod(pricingMethod);
+        template.setFreightTemplateChildList(new ArrayList<>());
+        return template;
+    }
+
+    private static FreightTemplateChild child(String areaId, Double firstCompany, Double firstPrice, Double continuedCompany, Double continuedPrice) {
+        FreightTemplateChild child = new FreightTemplateChild();
+        child.setAreaId(areaId);
+        child.setFirstCompany(firstCompany);
+        child.setFirstPrice(firstPrice);
+        child.setContinuedCompany(continuedCompany);
+        child.setContinuedPrice(continuedPrice);
+        return child;
+    }
+
+    /**
+     * 原运费计算：每个模板分组查询模板，逐个子模板匹配城市
+     */
+    private static void legacyRender(TradeDTO tradeDTO, Function<String, FreightTemplateVO> freightTemplates) {
+        List<CartSkuVO> cartSkuVOS = tradeDTO.getCheckedSkuList();
+        MemberAddress memberAddress = tradeDTO.getMemberAddress();
+        Map<String, List<String>> freightGroups = new HashMap<>();
+        for (CartSkuVO cartSkuVO : cartSkuVOS) {
+            String freightTemplateId = cartSkuVO.getGoodsSku().getFreightTemplateId();
+            if (Boolean.TRUE.equals(cartSkuVO.getIsFreeFreight()) || freightTemplateId == null) {
+                continue;
+            }
+            freightGroups.computeIfAbsent(freightTemplateId, k -> new ArrayList<>()).add(cartSkuVO.getGoodsSku().getId());
+        }
+        for (Map.Entry<String, List<String>> freightTemplateGroup : freightGroups.entrySet()) {
+            List<String> skuIds = freightTemplateGroup.getValue();
+            List<CartSkuVO> currentCartSkus = cartSkuVOS.stream().filter(item -> skuIds.contains(item.getGoodsSku().getId())).collect(Collectors.toList());
+            FreightTemplateVO freightTemplate = freightTemplates.apply(freightTemplateGroup.getKey());
+            if (freightTemplate != null
+                    && freightTemplate.getFreightTemplateChildList() != null
+                    && !freightTemplate.getFreightTemplateChildList().isEmpty()) {
+                if (freightTemplate.getPricingMethod().equals(FreightTemplateEnum.FREE.name())) {
+                    continue;
+                }
+                FreightTemplateChild freightTemplateChild = null;
+                String addressId = memberAddress.getConsigneeAddressIdPath().split(",")[1];
+                for (FreightTemplateChild templateChild : freightTemplate.getFreightTemplateChildList()) {
+                    if (templateChild.getAreaId().contains(addressId)) {
+                        freightTemplateChild = templateChild;
+                        break;
+                    }
+                }
+                if (freightTemplateChild == null) {
+                    if (tradeDTO.getNotSupportFreight() == null) {
+                        tradeDTO.setNotSupportFreight(new ArrayList<>());
+                    }
+                    tradeDTO.getNotSupportFreight().addAll(currentCartSkus);
+                    continue;
+                }
+                FreightTemplateChildDTO freightTemplateChildDTO = new FreightTemplateChildDTO(freightTemplateChild);
+                freightTemplateChildDTO.setPricingMethod(freightTemplate.getPricingMethod());
+                Double count = currentCartSkus.stream().mapToDouble(item ->
+                        freightTemplateChildDTO.getPricingMethod().equals(FreightTemplateEnum.NUM.name()) ?
+                                item.getNum().doubleValue() :
+                                CurrencyUtil.mul(item.getNum(), item.getGoodsSku().getWeight())
+                ).sum();
+                Double countFreight = legacyCountFreight(count, freightTemplateChildDTO);
+                legacyResetFreightPrice(FreightTemplateEnum.valueOf(freightTemplateChildDTO.getPricingMethod()), count, countFreight, currentCartSkus);
+            }
+        }
+    }
+
+    private static void legacyResetFreightPrice(FreightTemplateEnum freightTemplateEnum, Double count, Double countFreight, List<CartSkuVO> cartSkuVOS) {
+        Double surplusFreightPrice = countFreight;
+        int index = 1;
+        for (CartSkuVO cartSkuVO : cartSkuVOS) {
+            if (index == cartSkuVOS.size()) {
+                cartSkuVO.getPriceDetailDTO().setFreightPrice(surplusFreightPrice);
+                break;
+            }
+            Double freightPrice = freightTemplateEnum == FreightTemplateEnum.NUM ?
+                    CurrencyUtil.mul(countFreight, CurrencyUtil.div(cartSkuVO.getNum(), count)) :
+                    CurrencyUtil.mul(countFreight,
+                            CurrencyUtil.div(CurrencyUtil.mul(cartSkuVO.getNum(), cartSkuVO.getGoodsSku().getWeight()), count));
+            surplusFreightPrice = CurrencyUtil.sub(surplusFreightPrice, freightPrice);
+            cartSkuVO.getPriceDetailDTO().setFreightPrice(freightPrice);
+            index++;
+        }
+    }
+
+    private static Double legacyCountFreight(Double count, FreightTemplateChildDTO template) {
+        try {
+            Double finalFreight = template.getFirstPrice();
+            if (template.getFirstCompany() >= count) {
+                return finalFreight;
+            }
+            if (template.getContinuedCompany() == 0 || template.getContinuedPrice() == 0) {
+                return finalFreight;
+            }
+            Double continuedCount = count - template.getFirstCompany();
+            return CurrencyUtil.add(finalFreight,
+                    CurrencyUtil.mul(Math.ceil(continuedCount / template.getContinuedCompany()), template.getContinuedPrice()));
+        } catch (Exception e) {
+            return 0D;
+        }
+    }
+}
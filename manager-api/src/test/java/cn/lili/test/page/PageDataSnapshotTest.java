@@ -0,0 +1,268 @@
+package cn.lili.test.page;
+
+import cn.hutool.core.util.ZipUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.lili.cache.Cache;
+import cn.lili.common.enums.ClientTypeEnum;
+import cn.lili.common.enums.ResultUtil;
+import cn.lili.common.enums.SwitchEnum;
+import cn.lili.common.exception.ServiceException;
+import cn.lili.common.properties.SystemSettingProperties;
+import cn.lili.common.security.AuthUser;
+import cn.lili.common.security.enums.SecurityEnum;
+import cn.lili.common.security.enums.UserEnums;
+import cn.lili.common.security.token.SecretKeyUtil;
+import cn.lili.modules.page.entity.dos.PageData;
+import cn.lili.modules.page.entity.dto.PageDataDTO;
+import cn.lili.modules.page.entity.enums.PageEnum;
+import cn.lili.modules.page.entity.vos.PageDataSnapshotVO;
+import cn.lili.modules.page.entity.vos.PageDataVO;
+import cn.lili.modules.page.mapper.PageDataMapper;
+import cn.lili.modules.page.serviceimpl.PageDataServiceImpl;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import io.jsonwebtoken.Jwts;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 页面快照测试
+ * 快照与接口原响应体一致并预先压缩，摘要作为 ETag；页面发布后在事务提交时失效，提交前仍读取旧快照；
+ * 不合法的参数不缓存，不存在的页面短时缓存，加载期间页面变更时不回写旧快照
+ */
+class PageDataSnapshotTest {
+
+    private static final String INDEX_KEY = "{PAGE_DATA}_INDEX_PC_";
+
+    private PageDataServiceImpl pageDataService;
+
+    private PageDataMapper pageDataMapper;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 模拟 Redis 缓存
+     */
+    private final Map<Object, PageDataSnapshotVO> cached = new ConcurrentHashMap<>();
+
+    private final Map<Object, Long> expires = new ConcurrentHashMap<>();
+
+    /**
+     * 模拟 Redis 中的页面数据版本
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 查询已发布页面的次数
+     */
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private volatile String published = "{\"list\":[1]}";
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), PageData.class);
+        pageDataMapper = Mockito.mock(PageDataMapper.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doAnswer(i -> {
+            loads.incrementAndGet();
+            PageDataVO pageDataVO = new PageDataVO();
+            pageDataVO.setPageData(published);
+            return pageDataVO;
+        }).when(pageDataMapper).getPageData(Mockito.any());
+        PageData closed = new PageData();
+        closed.setId("2");
+        closed.setPageType(PageEnum.INDEX.name());
+        closed.setPageClientType(ClientTypeEnum.PC.value());
+        closed.setPageShow(SwitchEnum.CLOSE.name());
+        Mockito.doReturn(Collections.singletonList(closed)).when(pageDataMapper).selectList(Mockito.any());
+        Mockito.doReturn(1).when(pageDataMapper).update(Mockito.any(), Mockito.any());
+        Mockito.doReturn(1).when(pageDataMapper).insert(Mockito.any(PageData.class));
+
+        Cache<PageDataSnapshotVO> cache = Mockito.mock(Cache.class);
+        Mockito.when(cache.get(Mockito.any())).thenAnswer(i -> cached.get(i.getArgument(0)));
+        Mockito.doAnswer(i -> {
+            expires.put(i.getArgument(0), i.getArgument(2));
+            return cached.put(i.getArgument(0), i.getArgument(1));
+        }).when(cache).put(Mockito.any(), Mockito.any(), Mockito.anyLong());
+        Mockito.when(cache.remove(Mockito.any())).thenAnswer(i -> cached.remove(i.getArgument(0)) != null);
+        Mockito.when(cache.incr(Mockito.anyString())).thenAnswer(i -> version.getAndIncrement());
+        Mockito.when(cache.getString(Mockito.anyString())).thenAnswer(i -> String.valueOf(version.get()));
+
+        pageDataService = new PageDataServiceImpl();
+        ReflectionTestUtils.setField(pageDataService, "baseMapper", pageDataMapper);
+        ReflectionTestUtils.setField(pageDataService, "cache", cache);
+        ReflectionTestUtils.setField(pageDataService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(pageDataService, "systemSettingProperties", new SystemSettingProperties());
+        login(AuthUser.builder().id("1").username("admin").role(UserEnums.MANAGER).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testSnapshotContent() throws Exception {
+        PageDataSnapshotVO snapshot = pageDataService.getPageDataSnapshot(index());
+        PageDataVO pageDataVO = new PageDataVO();
+        pageDataVO.setPageData(published);
+        byte[] expected = objectMapper.writeValueAsBytes(ResultUtil.data(pageDataVO));
+        Assertions.assertArrayEquals(expected, snapshot.getBody());
+        Assertions.assertArrayEquals(expected, ZipUtil.unGzip(snapshot.getGzipBody()));
+        Assertions.assertEquals(SecureUtil.md5().digestHex(expected), snapshot.getEtag());
+
+        //本地与 Redis 均已缓存，不再查询数据库
+        Assertions.assertSame(snapshot, pageDataService.getPageDataSnapshot(index()));
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertTrue(cached.containsKey(INDEX_KEY));
+    }
+
+    @Test
+    void testEvictAfterPublishCommitted() {
+        String before = pageDataService.getPageDataSnapshot(index()).getEtag();
+
+        TransactionSynchronizationManager.initSynchronization();
+        published = "{\"list\":[2]}";
+        pageDataService.releasePageData("2");
+        //提交前仍读取旧快照
+        Assertions.assertEquals(before, pageDataService.getPageDataSnapshot(index()).getEtag());
+        Assertions.assertEquals(1, loads.get());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        Assertions.assertFalse(cached.containsKey(INDEX_KEY));
+        PageDataSnapshotVO after = pageDataService.getPageDataSnapshot(index());
+        Assertions.assertEquals(2, loads.get());
+        Assertions.assertNotEquals(before, after.getEtag());
+        Assertions.assertTrue(new String(after.getBody()).contains("[2]"));
+    }
+
+    @Test
+    void testRollbackKeepsSnapshot() {
+        String before = pageDataService.getPageDataSnapshot(index()).getEtag();
+        TransactionSynchronizationManager.initSynchronization();
+        pageDataService.releasePageData("2");
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        Assertions.assertTrue(cached.containsKey(INDEX_KEY));
+        Assertions.assertEquals(before, pageDataService.getPageDataSnapshot(index()).getEtag());
+    }
+
+    @Test
+    void testEvictWithoutTransaction() {
+        PageDataDTO store = new PageDataDTO(PageEnum.STORE.name());
+        store.setPageClientType(ClientTypeEnum.PC.value());
+        store.setNum("100");
+        pageDataService.getPageDataSnapshot(store);
+        Assertions.assertTrue(cached.containsKey("{PAGE_DATA}_STORE_PC_100"));
+
+        pageDataService.addStorePageData("100");
+        Assertions.assertFalse(cached.containsKey("{PAGE_DATA}_STORE_PC_100"));
+        pageDataService.getPageDataSnapshot(store);
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testInvalidKeyRejected() {
+        PageDataDTO unknownType = new PageDataDTO("RANDOM");
+        unknownType.setPageClientType(ClientTypeEnum.PC.value());
+        Assertions.assertThrows(ServiceException.class, () -> pageDataService.getPageDataSnapshot(unknownType));
+
+        PageDataDTO unknownClient = new PageDataDTO(PageEnum.INDEX.name());
+        unknownClient.setPageClientType("RANDOM");
+        Assertions.assertThrows(ServiceException.class, () -> pageDataService.getPageDataSnapshot(unknownClient));
+
+        PageDataDTO invalidNum = new PageDataDTO(PageEnum.STORE.name());
+        invalidNum.setPageClientType(ClientTypeEnum.PC.value());
+        invalidNum.setNum("abc");
+        Assertions.assertThrows(ServiceException.class, () -> pageDataService.getPageDataSnapshot(invalidNum));
+
+        Assertions.assertEquals(0, loads.get());
+        Assertions.assertTrue(cached.isEmpty());
+    }
+
+    @Test
+    void testMissingPageShortExpire() {
+        Mockito.doAnswer(i -> {
+            loads.incrementAndGet();
+            return null;
+        }).when(pageDataMapper).getPageData(Mockito.any());
+        PageDataDTO special = new PageDataDTO(PageEnum.SPECIAL.name());
+        special.setPageClientType(ClientTypeEnum.PC.value());
+        special.setNum("404");
+        pageDataService.getPageDataSnapshot(special);
+        Assertions.assertEquals(60L, expires.get("{PAGE_DATA}_SPECIAL_PC_404"));
+
+        pageDataService.getPageDataSnapshot(index());
+        Assertions.assertEquals(60L * 60 * 24, expires.get(INDEX_KEY));
+    }
+
+    @Test
+    void testEvictDuringLoadNotWrittenBack() {
+        //加载期间页面发布并失效
+        Mockito.doAnswer(i -> {
+            loads.incrementAndGet();
+            PageDataVO pageDataVO = new PageDataVO();
+            pageDataVO.setPageData(published);
+            if (loads.get() == 1) {
+                published = "{\"list\":[2]}";
+                pageDataService.releasePageData("2");
+            }
+            return pageDataVO;
+        }).when(pageDataMapper).getPageData(Mockito.any());
+
+        PageDataSnapshotVO stale = pageDataService.getPageDataSnapshot(index());
+        Assertions.assertTrue(new String(stale.getBody()).contains("[1]"));
+        Assertions.assertFalse(cached.containsKey(INDEX_KEY));
+
+        //下次读取到变更后的页面
+        PageDataSnapshotVO fresh = pageDataService.getPageDataSnapshot(index());
+        Assertions.assertTrue(new String(fresh.getBody()).contains("[2]"));
+        Assertions.assertTrue(cached.containsKey(INDEX_KEY));
+        Assertions.assertSame(fresh, pageDataService.getPageDataSnapshot(index()));
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    private static PageDataDTO index() {
+        PageDataDTO pageDataDTO = new PageDataDTO(PageEnum.INDEX.name());
+        pageDataDTO.setPageClientType(ClientTypeEnum.PC.value());
+        return pageDataDTO;
+    }
+
+    private static void login(AuthUser authUser) {
+        String token = Jwts.builder()
+                .claim(SecurityEnum.USER_CONTEXT.getValue(), new Gson().toJson(authUser))
+                .setSubject(authUser.getUsername())
+                .signWith(SecretKeyUtil.generalKey())
+                .compact();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(SecurityEnum.HEADER_TOKEN.getValue(), token);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+}
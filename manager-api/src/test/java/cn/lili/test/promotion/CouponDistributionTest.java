@@ -0,0 +1,235 @@
+package cn.lili.test.promotion;
+
+import cn.hutool.core.date.DateUtil;
+import cn.lili.common.exception.ServiceException;
+import cn.lili.common.properties.CouponDistributionProperties;
+import cn.lili.modules.member.entity.dos.Member;
+import cn.lili.modules.member.service.MemberService;
+import cn.lili.modules.promotion.entity.dos.Coupon;
+import cn.lili.modules.promotion.entity.dos.CouponActivityItem;
+import cn.lili.modules.promotion.entity.dos.CouponDistributionChunk;
+import cn.lili.modules.promotion.entity.dos.MemberCoupon;
+import cn.lili.modules.promotion.entity.enums.CouponGetEnum;
+import cn.lili.modules.promotion.entity.enums.CouponRangeDayEnum;
+import cn.lili.modules.promotion.entity.enums.CouponTypeEnum;
+import cn.lili.modules.promotion.entity.enums.PromotionsScopeTypeEnum;
+import cn.lili.modules.promotion.service.CouponActivityItemService;
+import cn.lili.modules.promotion.service.CouponDistributionService;
+import cn.lili.modules.promotion.service.CouponService;
+import cn.lili.modules.promotion.service.MemberCouponService;
+import cn.lili.modules.promotion.tools.CouponDistributor;
+import cn.lili.modules.promotion.tools.PromotionTools;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 优惠券活动批量发券测试
+ * 生成 50 万会员，发放过程中模拟进程崩溃，重新发放后校验每个会员恰好发放一次，测试数据在结束后删除
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class CouponDistributionTest {
+
+    private static final String PREFIX = "COUPON_DIST_TEST_";
+
+    private static final String ACTIVITY_ID = PREFIX + "ACTIVITY";
+
+    private static final String COUPON_ID = PREFIX + "COUPON";
+
+    private static final int MEMBERS = 500000;
+
+    /**
+     * 每个会员发放数量
+     */
+    private static final int NUM = 2;
+
+    /**
+     * 第几个批次开始崩溃
+     */
+    private static final int CRASH_AFTER = 300;
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private CouponService couponService;
+
+    @Autowired
+    private CouponActivityItemService couponActivityItemService;
+
+    @Autowired
+    private MemberCouponService memberCouponService;
+
+    @Autowired
+    private CouponDistributionService couponDistributionService;
+
+    @Autowired
+    private CouponDistributor couponDistributor;
+
+    @Autowired
+    private CouponDistributionProperties couponDistributionProperties;
+
+    @Autowired
+    private RedissonClient redisson;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private List<String> memberIds;
+
+    @BeforeEach
+    void init() {
+        this.clean();
+        memberIds = new ArrayList<>(MEMBERS);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            Member member = new Member();
+            member.setId(PREFIX + String.format("%07d", i));
+            member.setUsername(member.getId());
+            member.setNickName("会员" + i);
+            member.setPassword("");
+            member.setDisabled(true);
+            member.setPoint(0L);
+            member.setTotalPoint(0L);
+            member.setExperience(0L);
+            member.setDeleteFlag(false);
+            members.add(member);
+            memberIds.add(member.getId());
+            if (members.size() == 5000) {
+                memberService.saveBatch(members, members.size());
+                members.clear();
+            }
+        }
+
+        Coupon coupon = new Coupon();
+        coupon.setId(COUPON_ID);
+        coupon.setCouponName("批量发券测试");
+        coupon.setPromotionName("5元券");
+        coupon.setCouponType(CouponTypeEnum.PRICE.name());
+        coupon.setPrice(5D);
+        coupon.setConsumeThreshold(0D);
+        coupon.setGetType(CouponGetEnum.ACTIVITY.name());
+        coupon.setStoreId(PromotionTools.PLATFORM_ID);
+        coupon.setStoreName(PromotionTools.PLATFORM_NAME);
+        coupon.setScopeType(PromotionsScopeTypeEnum.ALL.name());
+        coupon.setRangeDayType(CouponRangeDayEnum.FIXEDTIME.name());
+        coupon.setStartTime(DateUtil.date());
+        coupon.setEndTime(DateUtil.offsetDay(DateUtil.date(), 30));
+        coupon.setPublishNum(0);
+        coupon.setCouponLimitNum(0);
+        coupon.setReceivedNum(0);
+        coupon.setUsedNum(0);
+        couponService.save(coupon);
+
+        CouponActivityItem couponActivityItem = new CouponActivityItem();
+        couponActivityItem.setActivityId(ACTIVITY_ID);
+        couponActivityItem.setCouponId(COUPON_ID);
+        couponActivityItem.setNum(NUM);
+        couponActivityItemService.save(couponActivityItem);
+    }
+
+    @AfterEach
+    void clean() {
+        memberCouponService.remove(new LambdaQueryWrapper<MemberCoupon>().eq(MemberCoupon::getCouponId, COUPON_ID));
+        couponDistributionService.remove(new LambdaQueryWrapper<CouponDistributionChunk>().eq(CouponDistributionChunk::getCouponActivityId, ACTIVITY_ID));
+        couponActivityItemService.remove(new LambdaQueryWrapper<CouponActivityItem>().eq(CouponActivityItem::getActivityId, ACTIVITY_ID));
+        couponService.removeById(COUPON_ID);
+        memberService.remove(new LambdaQueryWrapper<Member>().likeRight(Member::getId, PREFIX));
+    }
+
+    @Test
+    void testResumeAfterCrash() {
+        //模拟崩溃：从第 CRASH_AFTER 个批次起，批次写入后在提交前抛出异常，整批回滚
+        AtomicInteger writes = new AtomicInteger();
+        CouponDistributionService crashing = mock(CouponDistributionService.class, invocation -> {
+            if (!"writeChunk".equals(invocation.getMethod().getName()) || writes.incrementAndGet() < CRASH_AFTER) {
+                return this.invoke(invocation.getMethod(), invocation.getArguments());
+            }
+            return transactionTemplate.execute(status -> {
+                this.invoke(invocation.getMethod(), invocation.getArguments());
+                throw new IllegalStateException("simulated crash");
+            });
+        });
+        CouponDistributor crashingDistributor = new CouponDistributor();
+        ReflectionTestUtils.setField(crashingDistributor, "couponDistributionProperties", couponDistributionProperties);
+        ReflectionTestUtils.setField(crashingDistributor, "couponService", couponService);
+        ReflectionTestUtils.setField(crashingDistributor, "couponActivityItemService", couponActivityItemService);
+        ReflectionTestUtils.setField(crashingDistributor, "couponDistributionService", crashing);
+        ReflectionTestUtils.setField(crashingDistributor, "redisson", redisson);
+        crashingDistributor.afterPropertiesSet();
+        try {
+            Assertions.assertThrows(ServiceException.class, () -> crashingDistributor.distribute(ACTIVITY_ID, memberIds));
+        } finally {
+            crashingDistributor.destroy();
+        }
+
+        //崩溃后：已提交的批次完整，未提交的批次没有残留
+        int committedMembers = this.sumChunkMembers();
+        Assertions.assertTrue(committedMembers > 0 && committedMembers < MEMBERS);
+        Assertions.assertEquals((long) committedMembers * NUM, this.countMemberCoupons());
+        Assertions.assertEquals(committedMembers * NUM, couponService.getById(COUPON_ID).getReceivedNum().intValue());
+
+        //重新发放：跳过已完成的批次，只发放剩余会员
+        long start = System.currentTimeMillis();
+        long issued = couponDistributor.distribute(ACTIVITY_ID, memberIds);
+        System.out.printf("crash after %d members, resumed %d coupons in %d ms%n", committedMembers, issued, System.currentTimeMillis() - start);
+        Assertions.assertEquals((long) (MEMBERS - committedMembers) * NUM, issued);
+        this.assertExactlyOnce();
+
+        //再次执行不会重复发放
+        Assertions.assertEquals(0, couponDistributor.distribute(ACTIVITY_ID, memberIds));
+        this.assertExactlyOnce();
+    }
+
+    private void assertExactlyOnce() {
+        Assertions.assertEquals(MEMBERS, this.sumChunkMembers());
+        Assertions.assertEquals((long) MEMBERS * NUM, this.countMemberCoupons());
+        Assertions.assertEquals(MEMBERS * NUM, couponService.getById(COUPON_ID).getReceivedNum().intValue());
+        List<Map<String, Object>> distinct = memberCouponService.listMaps(new QueryWrapper<MemberCoupon>()
+                .select("count(distinct member_id) AS num").eq("coupon_id", COUPON_ID));
+        Assertions.assertEquals(MEMBERS, ((Number) distinct.get(0).get("num")).intValue());
+        List<Map<String, Object>> repeated = memberCouponService.listMaps(new QueryWrapper<MemberCoupon>()
+                .select("member_id").eq("coupon_id", COUPON_ID).groupBy("member_id").having("count(*) <> {0}", NUM));
+        Assertions.assertTrue(repeated.isEmpty());
+    }
+
+    private long countMemberCoupons() {
+        return memberCouponService.count(new LambdaQueryWrapper<MemberCoupon>().eq(MemberCoupon::getCouponId, COUPON_ID));
+    }
+
+    private int sumChunkMembers() {
+        return couponDistributionService.list(new LambdaQueryWrapper<CouponDistributionChunk>()
+                        .eq(CouponDistributionChunk::getCouponActivityId, ACTIVITY_ID))
+                .stream().mapToInt(CouponDistributionChunk::getMemberNum).sum();
+    }
+
+    private Object invoke(Method method, Object[] arguments) {
+        try {
+            return method.invoke(couponDistributionService, arguments);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package cn.lili.test.promotion;
+
+import cn.lili.common.properties.KanjiaProperties;
+import cn.lili.modules.promotion.entity.dos.KanjiaActivity;
+import cn.lili.modules.promotion.entity.dos.KanjiaActivityGoods;
+import cn.lili.modules.promotion.entity.enums.KanjiaHelpResultEnum;
+import cn.lili.modules.promotion.kanjia.KanjiaBargainEngine;
+import cn.lili.modules.promotion.kanjia.KanjiaHelpResult;
+import cn.lili.modules.promotion.kanjia.impl.MemoryKanjiaBargainStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 砍价引擎测试
+ * 并发砍价，校验所有砍价金额之和恰好等于初始剩余金额、每刀金额在最低与最高砍价金额之间、只完成一次
+ */
+class KanjiaBargainEngineTest {
+
+    private static final int HELPERS = 1000;
+
+    private static final int ROUNDS = 20;
+
+    private KanjiaBargainEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        KanjiaProperties kanjiaProperties = new KanjiaProperties();
+        kanjiaProperties.setBargainStore("memory");
+        engine = new KanjiaBargainEngine();
+        ReflectionTestUtils.setField(engine, "kanjiaProperties", kanjiaProperties);
+        engine.init();
+        Assertions.assertTrue(ReflectionTestUtils.getField(engine, "bargainStore") instanceof MemoryKanjiaBargainStore);
+    }
+
+    @Test
+    void testConcurrentHelp() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                Random random = new Random(20240312L + round);
+                KanjiaActivity kanjiaActivity = activity("K" + round, 50 + random.nextInt(20000) / 100D);
+                KanjiaActivityGoods goods = goods(0.01 + random.nextInt(100) / 100D, 1 + random.nextInt(500) / 100D);
+                long lowest = KanjiaBargainEngine.toCent(goods.getLowestPrice());
+                long highest = KanjiaBargainEngine.toCent(goods.getHighestPrice());
+
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<KanjiaHelpResult>> futures = new ArrayList<>();
+                for (int i = 0; i < HELPERS; i++) {
+                    String memberId = "M" + i;
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return engine.help(kanjiaActivity, goods, memberId);
+                    }));
+                }
+                start.countDown();
+
+                long sum = 0;
+                int success = 0;
+                int ended = 0;
+                for (Future<KanjiaHelpResult> future : futures) {
+                    KanjiaHelpResult result = future.get(30, TimeUnit.SECONDS);
+                    String message = "round " + round + " " + result;
+                    switch (result.getResult()) {
+                        case HELPED:
+                            Assertions.assertTrue(result.getKanjiaPrice() >= lowest && result.getKanjiaPrice() <= highest, message);
+                            Assertions.assertTrue(result.getSurplusPrice() > 0, message);
+                            break;
+                        case SUCCESS:
+                            Assertions.assertTrue(result.getKanjiaPrice() > 0 && result.getKanjiaPrice() <= highest, message);
+                            Assertions.assertEquals(0, result.getSurplusPrice(), message);
+                            success++;
+                            break;
+                        case ENDED:
+                            Assertions.assertEquals(0, result.getKanjiaPrice(), message);
+                            ended++;
+                            break;
+                        default:
+                            Assertions.fail(message);
+                    }
+                    sum += result.getKanjiaPrice();
+                }
+                Assertions.assertEquals(KanjiaBargainEngine.toCent(kanjiaActivity.getSurplusPrice()), sum, "round " + round);
+                Assertions.assertEquals(1, success, "round " + round);
+                Assertions.assertTrue(ended > 0, "round " + round);
+                Assertions.assertEquals(0D, engine.surplusPrice(kanjiaActivity.getId()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testDuplicateAndEnd() {
+        KanjiaActivity kanjiaActivity = activity("K1", 100D);
+        KanjiaActivityGoods goods = goods(1D, 1D);
+        Assertions.assertEquals(KanjiaHelpResultEnum.HELPED, engine.help(kanjiaActivity, goods, "M1").getResult());
+        KanjiaHelpResult duplicate = engine.help(kanjiaActivity, goods, "M1");
+        Assertions.assertEquals(KanjiaHelpResultEnum.DUPLICATE, duplicate.getResult());
+        Assertions.assertEquals(9900, duplicate.getSurplusPrice());
+
+        //入库的剩余金额滞后时不会重新初始化
+        kanjiaActivity.setSurplusPrice(100D);
+        Assertions.assertEquals(9800, engine.help(kanjiaActivity, goods, "M2").getSurplusPrice());
+        Assertions.assertEquals(98D, engine.surplusPrice("K1"));
+
+        engine.end("K1");
+        Assertions.assertEquals(KanjiaHelpResultEnum.ENDED, engine.help(kanjiaActivity, goods, "M3").getResult());
+        engine.end("K2");
+        Assertions.assertEquals(KanjiaHelpResultEnum.ENDED, engine.help(activity("K2", 100D), goods, "M1").getResult());
+    }
+
+    @Test
+    void testSurplusBelowLowest() {
+        KanjiaActivity kanjiaActivity = activity("K1", 0.3D);
+        KanjiaHelpResult result = engine.help(kanjiaActivity, goods(0.5D, 2D), "M1");
+        Assertions.assertEquals(KanjiaHelpResultEnum.SUCCESS, result.getResult());
+        Assertions.assertEquals(30, result.getKanjiaPrice());
+    }
+
+    private static KanjiaActivity activity(String id, Double surplusPrice) {
+        KanjiaActivity kanjiaActivity = new KanjiaActivity();
+        kanjiaActivity.setId(id);
+        kanjiaActivity.setSurplusPrice(surplusPrice);
+        return kanjiaActivity;
+    }
+
+    private static KanjiaActivityGoods goods(Double lowestPrice, Double highestPrice) {
+        KanjiaActivityGoods goods = new KanjiaActivityGoods();
+        goods.setLowestPrice(lowestPrice);
+        goods.setHighestPrice(Math.max(lowestPrice, highestPrice));
+        goods.setEndTime(new Date(System.currentTimeMillis() + 3_600_000));
+        return goods;
+    }
+}
@@ -0,0 +1,184 @@
+package cn.lili.test.promotion;
+
+import cn.lili.common.properties.KanjiaProperties;
+import cn.lili.modules.promotion.entity.dos.KanjiaActivityLog;
+import cn.lili.modules.promotion.kanjia.KanjiaHelpLogWriter;
+import cn.lili.modules.promotion.kanjia.impl.MemoryKanjiaHelpLogBuffer;
+import cn.lili.modules.promotion.mapper.KanJiaActivityMapper;
+import cn.lili.modules.promotion.service.KanjiaActivityLogService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 砍价记录批量入库测试
+ * 按批入库后才移除缓冲，数据库不可用时保留重试，单条不合法的记录放入死信不阻塞其他记录，停止时等待入库线程结束后再入库
+ */
+class KanjiaHelpLogWriterTest {
+
+    private KanjiaHelpLogWriter writer;
+
+    private KanjiaProperties kanjiaProperties;
+
+    private KanjiaActivityLogService kanjiaActivityLogService;
+
+    /**
+     * 已入库的砍价记录id
+     */
+    private final Set<String> saved = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        kanjiaProperties = new KanjiaProperties();
+        kanjiaProperties.setBargainStore("memory");
+        kanjiaProperties.setLogFlushBatchSize(3);
+        kanjiaProperties.setLogFlushInterval(3_600_000L);
+        kanjiaActivityLogService = Mockito.mock(KanjiaActivityLogService.class);
+        RedissonClient redisson = Mockito.mock(RedissonClient.class);
+        RLock lock = Mockito.mock(RLock.class);
+        Mockito.when(redisson.getLock(Mockito.anyString())).thenReturn(lock);
+        Mockito.when(lock.tryLock()).thenReturn(true);
+
+        writer = new KanjiaHelpLogWriter();
+        ReflectionTestUtils.setField(writer, "kanjiaProperties", kanjiaProperties);
+        ReflectionTestUtils.setField(writer, "kanjiaActivityLogService", kanjiaActivityLogService);
+        ReflectionTestUtils.setField(writer, "kanJiaActivityMapper", Mockito.mock(KanJiaActivityMapper.class));
+        ReflectionTestUtils.setField(writer, "redisson", redisson);
+        writer.afterPropertiesSet();
+        Assertions.assertTrue(buffer() instanceof MemoryKanjiaHelpLogBuffer);
+    }
+
+    @Test
+    void testFlushInBatches() {
+        List<Integer> batchSizes = new ArrayList<>();
+        Mockito.when(kanjiaActivityLogService.saveBatch(Mockito.anyCollection())).thenAnswer(i -> {
+            Collection<KanjiaActivityLog> batch = i.getArgument(0);
+            batchSizes.add(batch.size());
+            batch.forEach(item -> saved.add(item.getId()));
+            return true;
+        });
+        for (int i = 0; i < 7; i++) {
+            writer.add(log(String.valueOf(i)));
+        }
+        writer.flush();
+        Assertions.assertEquals(Arrays.asList(3, 3, 1), batchSizes);
+        Assertions.assertEquals(7, saved.size());
+        Assertions.assertEquals(0, buffer().size());
+        writer.destroy();
+    }
+
+    @Test
+    void testRetryWhenDatabaseDown() {
+        Mockito.when(kanjiaActivityLogService.saveBatch(Mockito.anyCollection())).thenThrow(new QueryTimeoutException("down"));
+        Mockito.when(kanjiaActivityLogService.save(Mockito.any())).thenThrow(new QueryTimeoutException("down"));
+        for (int i = 0; i < 5; i++) {
+            writer.add(log(String.valueOf(i)));
+        }
+        writer.flush();
+        //整批保留，不进入死信
+        Assertions.assertEquals(5, buffer().size());
+        Assertions.assertTrue(buffer().getDead().isEmpty());
+
+        Mockito.reset(kanjiaActivityLogService);
+        Mockito.when(kanjiaActivityLogService.saveBatch(Mockito.anyCollection())).thenAnswer(i -> {
+            Collection<KanjiaActivityLog> batch = i.getArgument(0);
+            batch.forEach(item -> saved.add(item.getId()));
+            return true;
+        });
+        writer.flush();
+        Assertions.assertEquals(5, saved.size());
+        Assertions.assertEquals(0, buffer().size());
+        writer.destroy();
+    }
+
+    @Test
+    void testPoisonRecordParked() {
+        //上次已入库未移除的记录与不合法的记录导致整批失败
+        saved.add("0");
+        Mockito.when(kanjiaActivityLogService.saveBatch(Mockito.anyCollection())).thenAnswer(i -> {
+            Collection<KanjiaActivityLog> batch = i.getArgument(0);
+            for (KanjiaActivityLog item : batch) {
+                if (saved.contains(item.getId()) || item.getKanjiaActivityId() == null) {
+                    throw new DuplicateKeyException("batch");
+                }
+            }
+            batch.forEach(item -> saved.add(item.getId()));
+            return true;
+        });
+        Mockito.when(kanjiaActivityLogService.save(Mockito.any())).thenAnswer(i -> {
+            KanjiaActivityLog item = i.getArgument(0);
+            if (saved.contains(item.getId())) {
+                throw new DuplicateKeyException(item.getId());
+            }
+            if (item.getKanjiaActivityId() == null) {
+                throw new DataIntegrityViolationException(item.getId());
+            }
+            saved.add(item.getId());
+            return true;
+        });
+        for (int i = 0; i < 7; i++) {
+            KanjiaActivityLog kanjiaActivityLog = log(String.valueOf(i));
+            if (i == 1) {
+                kanjiaActivityLog.setKanjiaActivityId(null);
+            }
+            writer.add(kanjiaActivityLog);
+        }
+        writer.flush();
+        Assertions.assertEquals(0, buffer().size());
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("0", "2", "3", "4", "5", "6")), saved);
+        Assertions.assertEquals(1, buffer().getDead().size());
+        Assertions.assertTrue(buffer().getDead().get(0).contains("\"1\""));
+        writer.destroy();
+    }
+
+    @Test
+    void testDestroyWaitsForRunningFlush() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Mockito.when(kanjiaActivityLogService.saveBatch(Mockito.anyCollection())).thenAnswer(i -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            Collection<KanjiaActivityLog> batch = i.getArgument(0);
+            batch.forEach(item -> saved.add(item.getId()));
+            running.decrementAndGet();
+            return true;
+        });
+        writer.destroy();
+        kanjiaProperties.setLogFlushInterval(1L);
+        writer.afterPropertiesSet();
+        for (int i = 0; i < 60; i++) {
+            writer.add(log(String.valueOf(i)));
+        }
+        Thread.sleep(30);
+        writer.destroy();
+        //停止时的入库与后台入库不会同时执行
+        Assertions.assertEquals(1, maxRunning.get());
+        Assertions.assertEquals(60, saved.size());
+        Assertions.assertEquals(0, buffer().size());
+    }
+
+    private MemoryKanjiaHelpLogBuffer buffer() {
+        return (MemoryKanjiaHelpLogBuffer) ReflectionTestUtils.getField(writer, "buffer");
+    }
+
+    private static KanjiaActivityLog log(String id) {
+        KanjiaActivityLog kanjiaActivityLog = new KanjiaActivityLog();
+        kanjiaActivityLog.setId(id);
+        kanjiaActivityLog.setKanjiaActivityId("K1");
+        kanjiaActivityLog.setKanjiaMemberId("M" + id);
+        kanjiaActivityLog.setKanjiaPrice(1D);
+        kanjiaActivityLog.setSurplusPrice(100D - Integer.parseInt(id));
+        return kanjiaActivityLog;
+    }
+}
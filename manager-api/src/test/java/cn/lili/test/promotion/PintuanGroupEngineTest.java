@@ -0,0 +1,157 @@
+package cn.lili.test.promotion;
+
+import cn.lili.common.properties.PintuanProperties;
+import cn.lili.common.properties.RocketmqCustomProperties;
+import cn.lili.modules.order.order.entity.dos.Order;
+import cn.lili.modules.promotion.entity.dos.Pintuan;
+import cn.lili.modules.promotion.entity.enums.PintuanJoinResultEnum;
+import cn.lili.modules.promotion.pintuan.PintuanGroupCompletedEvent;
+import cn.lili.modules.promotion.pintuan.PintuanGroupEngine;
+import cn.lili.modules.promotion.pintuan.impl.MemoryPintuanGroupStore;
+import cn.lili.trigger.interfaces.TimeTrigger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 拼团成团引擎测试
+ * 并发参团，校验团队人数恰好为成团人数、每个团队只成团一次、超出人数与重复参团被拒绝
+ */
+class PintuanGroupEngineTest {
+
+    private static final int JOINS = 1000;
+
+    private static final int GROUPS = 20;
+
+    private static final int REQUIRED_NUM = 3;
+
+    private PintuanGroupEngine engine;
+
+    private TimeTrigger timeTrigger;
+
+    private final List<PintuanGroupCompletedEvent> events = Collections.synchronizedList(new ArrayList<>());
+
+    private Pintuan pintuan;
+
+    @BeforeEach
+    void setUp() {
+        PintuanProperties pintuanProperties = new PintuanProperties();
+        pintuanProperties.setGroupStore("memory");
+        timeTrigger = mock(TimeTrigger.class);
+        ApplicationEventPublisher publisher = event -> events.add((PintuanGroupCompletedEvent) event);
+
+        engine = new PintuanGroupEngine();
+        ReflectionTestUtils.setField(engine, "pintuanProperties", pintuanProperties);
+        ReflectionTestUtils.setField(engine, "timeTrigger", timeTrigger);
+        ReflectionTestUtils.setField(engine, "rocketmqCustomProperties", new RocketmqCustomProperties());
+        ReflectionTestUtils.setField(engine, "applicationEventPublisher", publisher);
+        engine.init();
+        Assertions.assertTrue(ReflectionTestUtils.getField(engine, "groupStore") instanceof MemoryPintuanGroupStore);
+
+        pintuan = new Pintuan();
+        pintuan.setId("P1");
+        pintuan.setRequiredNum(REQUIRED_NUM);
+        pintuan.setStartTime(new Date(System.currentTimeMillis() - 60_000));
+        pintuan.setEndTime(new Date(System.currentTimeMillis() + 3_600_000));
+    }
+
+    @Test
+    void testConcurrentJoin() throws Exception {
+        List<Order> orders = new ArrayList<>();
+        //开团订单先于参团订单支付
+        for (int g = 0; g < GROUPS; g++) {
+            Order leader = order("G" + g, null);
+            Assertions.assertEquals(PintuanJoinResultEnum.OPENED, engine.join(pintuan, leader));
+        }
+        for (int i = 0; i < JOINS; i++) {
+            orders.add(order("O" + i, "G" + (i % GROUPS)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PintuanJoinResultEnum>> futures = new ArrayList<>();
+        for (Order order : orders) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return engine.join(pintuan, order);
+            }));
+        }
+        start.countDown();
+        Map<PintuanJoinResultEnum, Integer> results = new EnumMap<>(PintuanJoinResultEnum.class);
+        for (Future<PintuanJoinResultEnum> future : futures) {
+            results.merge(future.get(30, TimeUnit.SECONDS), 1, Integer::sum);
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(GROUPS, results.get(PintuanJoinResultEnum.COMPLETED).intValue());
+        Assertions.assertEquals(GROUPS * (REQUIRED_NUM - 2), results.get(PintuanJoinResultEnum.JOINED).intValue());
+        Assertions.assertEquals(JOINS - GROUPS * (REQUIRED_NUM - 1), results.get(PintuanJoinResultEnum.FULL).intValue());
+
+        Map<String, Long> groupedNum = engine.groupedNum(groupSns());
+        Assertions.assertEquals(GROUPS, groupedNum.size());
+        groupedNum.values().forEach(num -> Assertions.assertEquals(REQUIRED_NUM, num.intValue()));
+
+        //每个团队只发布一次成团事件，成员包含开团订单
+        Assertions.assertEquals(GROUPS, events.size());
+        Set<String> completedGroups = new HashSet<>();
+        for (PintuanGroupCompletedEvent event : events) {
+            Assertions.assertTrue(completedGroups.add(event.getGroupSn()));
+            Assertions.assertEquals(REQUIRED_NUM, event.getOrderSns().size());
+            Assertions.assertTrue(event.getOrderSns().contains(event.getGroupSn()));
+        }
+        //只有开团时发布延时任务
+        verify(timeTrigger, times(GROUPS)).addDelay(any());
+
+        //重复参团与成团后的结束不改变团队，已满团队重复参团时再次发布成团事件，成员不变
+        Assertions.assertEquals(PintuanJoinResultEnum.DUPLICATE, engine.join(pintuan, order("G0", null)));
+        Assertions.assertFalse(engine.close(pintuan, "G0"));
+        Assertions.assertEquals(GROUPS + 1, events.size());
+        PintuanGroupCompletedEvent republished = events.get(GROUPS);
+        Assertions.assertEquals("G0", republished.getGroupSn());
+        Assertions.assertEquals(new HashSet<>(events.stream().filter(event -> "G0".equals(event.getGroupSn())).findFirst()
+                .orElseThrow(IllegalStateException::new).getOrderSns()), new HashSet<>(republished.getOrderSns()));
+    }
+
+    @Test
+    void testDuplicateBeforeCompleted() {
+        Assertions.assertEquals(PintuanJoinResultEnum.OPENED, engine.join(pintuan, order("G1", null)));
+        Assertions.assertEquals(PintuanJoinResultEnum.JOINED, engine.join(pintuan, order("O1", "G1")));
+        Assertions.assertEquals(PintuanJoinResultEnum.DUPLICATE, engine.join(pintuan, order("O1", "G1")));
+        Assertions.assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void testClosedGroup() {
+        Assertions.assertEquals(PintuanJoinResultEnum.OPENED, engine.join(pintuan, order("G1", null)));
+        Assertions.assertTrue(engine.close(pintuan, "G1"));
+        //已结束的团队再次结束不变，上次结束后未完成的订单处理可以重试
+        Assertions.assertTrue(engine.close(pintuan, "G1"));
+        Assertions.assertEquals(PintuanJoinResultEnum.CLOSED, engine.join(pintuan, order("O1", "G1")));
+        Assertions.assertEquals(1L, engine.groupedNum(Collections.singletonList("G1")).get("G1").longValue());
+        Assertions.assertTrue(events.isEmpty());
+    }
+
+    private static List<String> groupSns() {
+        List<String> groupSns = new ArrayList<>();
+        for (int g = 0; g < GROUPS; g++) {
+            groupSns.add("G" + g);
+        }
+        return groupSns;
+    }
+
+    private static Order order(String sn, String parentOrderSn) {
+        Order order = new Order();
+        order.setSn(sn);
+        order.setParentOrderSn(parentOrderSn);
+        order.setMemberId("M" + sn);
+        return order;
+    }
+}
@@ -0,0 +1,144 @@
+package cn.lili.test.promotion;
+
+import cn.hutool.core.util.IdUtil;
+import cn.lili.cache.CachePrefix;
+import cn.lili.modules.promotion.entity.enums.PintuanJoinResultEnum;
+import cn.lili.modules.promotion.pintuan.impl.RedisPintuanGroupStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 拼团参团与结束团队脚本测试
+ * 在配置的 Redis 上执行 pintuan_join.lua 与 pintuan_close.lua，Redis 不可用时跳过
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class PintuanGroupScriptTest {
+
+    private static final int REQUIRED_NUM = 3;
+
+    private static final long TTL = 60_000L;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private RedisPintuanGroupStore store;
+
+    private final List<String> groupSns = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Assumptions.assumeTrue(this.redisAvailable(), "Redis 不可用");
+        store = new RedisPintuanGroupStore(stringRedisTemplate);
+    }
+
+    @AfterEach
+    void clean() {
+        if (!groupSns.isEmpty()) {
+            List<String> keys = new ArrayList<>();
+            groupSns.forEach(groupSn -> keys.add(CachePrefix.PINTUAN_GROUP.getPrefix() + groupSn));
+            stringRedisTemplate.delete(keys);
+        }
+    }
+
+    @Test
+    void testJoin() {
+        String groupSn = this.groupSn();
+        Assertions.assertEquals(PintuanJoinResultEnum.OPENED, store.join(groupSn, groupSn, "M0", REQUIRED_NUM, TTL));
+        Assertions.assertEquals(PintuanJoinResultEnum.JOINED, store.join(groupSn, "O1", "M1", REQUIRED_NUM, TTL));
+        Assertions.assertEquals(PintuanJoinResultEnum.DUPLICATE, store.join(groupSn, "O1", "M1", REQUIRED_NUM, TTL));
+        Assertions.assertEquals(PintuanJoinResultEnum.COMPLETED, store.join(groupSn, "O2", "M2", REQUIRED_NUM, TTL));
+        Assertions.assertEquals(PintuanJoinResultEnum.FULL, store.join(groupSn, "O3", "M3", REQUIRED_NUM, TTL));
+        //成团后的重复参团仍识别为重复
+        Assertions.assertEquals(PintuanJoinResultEnum.DUPLICATE, store.join(groupSn, "O2", "M2", REQUIRED_NUM, TTL));
+
+        Map<String, String> members = store.members(groupSn);
+        Assertions.assertEquals(REQUIRED_NUM, members.size());
+        Assertions.assertEquals("M1", members.get("O1"));
+        Assertions.assertFalse(members.containsKey("O3"));
+
+        //已成团的团队不能结束
+        Assertions.assertFalse(store.close(groupSn, TTL));
+        Long expire = stringRedisTemplate.getExpire(CachePrefix.PINTUAN_GROUP.getPrefix() + groupSn, TimeUnit.MILLISECONDS);
+        Assertions.assertNotNull(expire);
+        Assertions.assertTrue(expire > 0 && expire <= TTL);
+    }
+
+    @Test
+    void testClose() {
+        String groupSn = this.groupSn();
+        Assertions.assertEquals(PintuanJoinResultEnum.OPENED, store.join(groupSn, groupSn, "M0", REQUIRED_NUM, TTL));
+        Assertions.assertTrue(store.close(groupSn, TTL));
+        //再次结束不改变团队，上次结束后未完成的订单处理可以重试
+        Assertions.assertTrue(store.close(groupSn, TTL));
+        Assertions.assertEquals(PintuanJoinResultEnum.CLOSED, store.join(groupSn, "O1", "M1", REQUIRED_NUM, TTL));
+        Assertions.assertEquals(PintuanJoinResultEnum.DUPLICATE, store.join(groupSn, groupSn, "M0", REQUIRED_NUM, TTL));
+        Assertions.assertEquals(Collections.singletonMap(groupSn, "M0"), store.members(groupSn));
+
+        //不存在的团队结束后拒绝参团
+        String emptyGroupSn = this.groupSn();
+        Assertions.assertTrue(store.close(emptyGroupSn, TTL));
+        Assertions.assertEquals(PintuanJoinResultEnum.CLOSED, store.join(emptyGroupSn, emptyGroupSn, "M0", REQUIRED_NUM, TTL));
+        Assertions.assertTrue(store.members(emptyGroupSn).isEmpty());
+    }
+
+    @Test
+    void testConcurrentJoinAndClose() throws Exception {
+        String groupSn = this.groupSn();
+        int joins = 50;
+        Assertions.assertEquals(PintuanJoinResultEnum.OPENED, store.join(groupSn, groupSn, "M0", joins + 1, TTL));
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PintuanJoinResultEnum>> futures = new ArrayList<>();
+        for (int i = 0; i < joins; i++) {
+            String orderSn = "O" + i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return store.join(groupSn, orderSn, "M" + orderSn, joins + 1, TTL);
+            }));
+        }
+        Future<Boolean> closed = executor.submit(() -> {
+            start.await();
+            return store.close(groupSn, TTL);
+        });
+        start.countDown();
+        Map<PintuanJoinResultEnum, Integer> results = new EnumMap<>(PintuanJoinResultEnum.class);
+        for (Future<PintuanJoinResultEnum> future : futures) {
+            results.merge(future.get(30, TimeUnit.SECONDS), 1, Integer::sum);
+        }
+        executor.shutdown();
+
+        //结束与参团互斥：结束前加入的订单都在团队中，结束后的参团都被拒绝
+        int joined = results.getOrDefault(PintuanJoinResultEnum.JOINED, 0);
+        int completed = results.getOrDefault(PintuanJoinResultEnum.COMPLETED, 0);
+        Assertions.assertEquals(joins, joined + completed + results.getOrDefault(PintuanJoinResultEnum.CLOSED, 0));
+        Assertions.assertEquals(joined + completed + 1, store.members(groupSn).size());
+        Assertions.assertEquals(completed == 0, closed.get(30, TimeUnit.SECONDS));
+    }
+
+    private String groupSn() {
+        String groupSn = "PINTUAN_SCRIPT_TEST_" + IdUtil.simpleUUID();
+        groupSns.add(groupSn);
+        return groupSn;
+    }
+
+    private boolean redisAvailable() {
+        try {
+            return "PONG".equals(stringRedisTemplate.execute(connection -> connection.ping(), true));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
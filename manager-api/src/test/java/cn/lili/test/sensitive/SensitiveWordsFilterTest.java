@@ -0,0 +1,263 @@
+package cn.lili.test.sensitive;
+
+import cn.lili.benchmark.legacy.LegacySensitiveWordsFilter;
+import cn.lili.common.sensitive.SensitiveWordsAutomaton;
+import cn.lili.common.sensitive.SensitiveWordsFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 敏感词过滤测试
+ * 随机文本与原过滤器结果一致、与逐词暴力匹配结果一致；干扰字符、全角与大小写、重叠与嵌套的词、空词库；
+ * 并发过滤时替换词库，每次过滤只使用替换前或替换后的一个词库
+ */
+class SensitiveWordsFilterTest {
+
+    private static final String NOISE = SensitiveWordsFilter.DEFAULT_NOISE_CHARS;
+
+    @AfterEach
+    void tearDown() {
+        SensitiveWordsFilter.init(Collections.emptyList(), NOISE);
+    }
+
+    @Test
+    void testSameAsLegacy() {
+        for (int round = 0; round < 200; round++) {
+            long seed = 20240312L + round;
+            Random random = new Random(seed);
+            //每组词使用互不相同的字符，组内的词共享前缀，原过滤器按最长前缀匹配后跳过，与自动机替换的范围一致
+            List<String> words = new ArrayList<>();
+            char next = '一';
+            int families = 1 + random.nextInt(30);
+            for (int f = 0; f < families; f++) {
+                StringBuilder word = new StringBuilder();
+                int length = 2 + random.nextInt(3);
+                for (int i = 0; i < length; i++) {
+                    word.append(next++);
+                }
+                words.add(word.toString());
+                for (int e = random.nextInt(3); e > 0; e--) {
+                    word.append(next++);
+                    words.add(word.toString());
+                }
+            }
+            Collections.shuffle(words, random);
+
+            StringBuilder text = new StringBuilder();
+            int parts = random.nextInt(40);
+            for (int p = 0; p < parts; p++) {
+                String word = words.get(random.nextInt(words.size()));
+                switch (random.nextInt(3)) {
+                    case 0:
+                        text.append(word);
+                        break;
+                    case 1:
+                        //不完整的词
+                        text.append(word, 0, 1 + random.nextInt(word.length() - 1));
+                        break;
+                    default:
+                        text.append((char) ('退' + random.nextInt(50)));
+                        break;
+                }
+            }
+
+            LegacySensitiveWordsFilter.init(words);
+            SensitiveWordsAutomaton automaton = SensitiveWordsAutomaton.build(words, NOISE);
+            String sentence = text.toString();
+            String expected = LegacySensitiveWordsFilter.filter(sentence);
+            Assertions.assertEquals(expected, automaton.filter(sentence, '*'), "seed " + seed);
+            Assertions.assertEquals(!expected.equals(sentence), automaton.contains(sentence), "seed " + seed);
+        }
+    }
+
+    @Test
+    void testSameAsBruteForce() {
+        //字符集小，词之间大量重叠、嵌套，文本夹杂干扰字符、全角与大写字符
+        String wordChars = "abc色情电影";
+        String textChars = "abcABＡｂｃ色情电影 *-，　";
+        for (int round = 0; round < 500; round++) {
+            long seed = 20240312L + round;
+            Random random = new Random(seed);
+            List<String> words = new ArrayList<>();
+            for (int w = random.nextInt(8); w > 0; w--) {
+                words.add(randomString(random, wordChars, 1 + random.nextInt(5)));
+            }
+            String text = randomString(random, textChars, random.nextInt(60));
+
+            SensitiveWordsAutomaton automaton = SensitiveWordsAutomaton.build(words, NOISE);
+            String expected = bruteForce(words, text);
+            Assertions.assertEquals(expected, automaton.filter(text, '*'), "seed " + seed + " words " + words + " text " + text);
+            Assertions.assertEquals(!expected.equals(text), automaton.contains(text), "seed " + seed);
+        }
+    }
+
+    @Test
+    void testNoiseAndFullWidth() {
+        SensitiveWordsFilter.init(Arrays.asList("色情", "abc"), NOISE);
+        Assertions.assertEquals("看***片", SensitiveWordsFilter.filter("看色 情片"));
+        Assertions.assertEquals("看***片", SensitiveWordsFilter.filter("看色*情片"));
+        Assertions.assertEquals("看****片", SensitiveWordsFilter.filter("看色，　情片"));
+        Assertions.assertEquals("x***y", SensitiveWordsFilter.filter("xＡＢＣy"));
+        Assertions.assertEquals("x*****y", SensitiveWordsFilter.filter("xA-b.Cy"));
+        //干扰字符只在词中间时替换，词前后的干扰字符保留
+        Assertions.assertEquals(" ** ", SensitiveWordsFilter.filter(" 色情 "));
+        Assertions.assertTrue(SensitiveWordsFilter.contains("a b c"));
+        Assertions.assertFalse(SensitiveWordsFilter.contains("ab色"));
+        //词库中的干扰字符与全角字符同样归一
+        SensitiveWordsFilter.init(Collections.singletonList("色 情"), NOISE);
+        Assertions.assertEquals("**", SensitiveWordsFilter.filter("色情"));
+        SensitiveWordsFilter.init(Collections.singletonList("ＸＹＺ"), NOISE);
+        Assertions.assertEquals("***", SensitiveWordsFilter.filter("xyz"));
+    }
+
+    @Test
+    void testOverlappingAndNestedWords() {
+        SensitiveWordsAutomaton automaton = SensitiveWordsAutomaton.build(Arrays.asList("色情", "色情电影", "情电", "abc", "cde", "bcd"), NOISE);
+        Assertions.assertEquals("****", automaton.filter("色情电影", '*'));
+        Assertions.assertEquals("***视", automaton.filter("色情电视", '*'));
+        Assertions.assertEquals("我**", automaton.filter("我情电", '*'));
+        Assertions.assertEquals("*****f", automaton.filter("abcdef", '*'));
+        Assertions.assertEquals("x***d", automaton.filter("xbcdd", '*'));
+        Assertions.assertEquals("******", automaton.filter("色情色情电影", '*'));
+        //自身重叠
+        automaton = SensitiveWordsAutomaton.build(Collections.singletonList("哈哈哈"), NOISE);
+        Assertions.assertEquals("嘿*****嘿", automaton.filter("嘿哈哈哈哈哈嘿", '*'));
+        Assertions.assertEquals("嘿哈哈嘿", automaton.filter("嘿哈哈嘿", '*'));
+    }
+
+    @Test
+    void testEmptyDictionary() {
+        String text = "色情电影";
+        Assertions.assertSame(text, SensitiveWordsAutomaton.EMPTY.filter(text, '*'));
+        Assertions.assertFalse(SensitiveWordsAutomaton.EMPTY.contains(text));
+
+        //长度不足的词与两个字母或数字组成的词不加入
+        SensitiveWordsAutomaton automaton = SensitiveWordsAutomaton.build(Arrays.asList(null, "", " ", "色", "ab", "12", " - "), NOISE);
+        Assertions.assertTrue(automaton.getWords().isEmpty());
+        Assertions.assertSame(text, automaton.filter(text, '*'));
+        Assertions.assertNull(automaton.filter(null, '*'));
+        Assertions.assertEquals("", automaton.filter("", '*'));
+        Assertions.assertFalse(automaton.contains(null));
+
+        SensitiveWordsFilter.init(Collections.emptyList(), NOISE);
+        Assertions.assertSame(text, SensitiveWordsFilter.filter(text));
+        Assertions.assertFalse(SensitiveWordsFilter.contains(text));
+    }
+
+    @Test
+    void testPutAndRemove() {
+        SensitiveWordsFilter.init(Collections.singletonList("色情"), NOISE);
+        Assertions.assertTrue(SensitiveWordsFilter.put("赌博"));
+        Assertions.assertFalse(SensitiveWordsFilter.put("赌博"));
+        Assertions.assertFalse(SensitiveWordsFilter.put("x"));
+        Assertions.assertEquals("****", SensitiveWordsFilter.filter("色情赌博"));
+        SensitiveWordsFilter.remove(" 色情 ");
+        Assertions.assertEquals("色情**", SensitiveWordsFilter.filter("色情赌博"));
+        //增删词保留干扰字符
+        Assertions.assertEquals("色情***", SensitiveWordsFilter.filter("色情赌 博"));
+    }
+
+    @Test
+    void testSwapDictionaryWhileFiltering() throws Exception {
+        List<String> first = Arrays.asList("色情", "赌博");
+        List<String> second = Arrays.asList("毒品", "枪支");
+        String text = "色情赌博毒品枪支";
+        Set<String> expected = new HashSet<>(Arrays.asList(
+                SensitiveWordsAutomaton.build(first, NOISE).filter(text, '*'),
+                SensitiveWordsAutomaton.build(second, NOISE).filter(text, '*')));
+        SensitiveWordsFilter.init(first, NOISE);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int t = 0; t < 7; t++) {
+                readers.add(executor.submit(() -> {
+                    int filtered = 0;
+                    while (running.get() || filtered == 0) {
+                        String result = SensitiveWordsFilter.filter(text);
+                        if (!expected.contains(result)) {
+                            throw new IllegalStateException(result);
+                        }
+                        Assertions.assertTrue(SensitiveWordsFilter.contains(text));
+                        filtered++;
+                    }
+                    return filtered;
+                }));
+            }
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    SensitiveWordsFilter.init(i % 2 == 0 ? second : first, NOISE);
+                }
+            });
+            writer.get(60, TimeUnit.SECONDS);
+            running.set(false);
+            for (Future<Integer> reader : readers) {
+                Assertions.assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+            }
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+        //最后一次替换为第一个词库
+        Assertions.assertEquals("****毒品枪支", SensitiveWordsFilter.filter(text));
+    }
+
+    /**
+     * 逐词暴力匹配：去除干扰字符并归一后查找每个词的全部出现位置，替换原文中从词首到词尾的字符
+     */
+    private static String bruteForce(List<String> words, String text) {
+        List<String> keys = new ArrayList<>();
+        for (String word : words) {
+            StringBuilder key = new StringBuilder();
+            for (char c : word.trim().toCharArray()) {
+                c = normalize(c);
+                if (NOISE.indexOf(c) < 0) {
+                    key.append(c);
+                }
+            }
+            if (key.length() < 2 || (key.length() == 2 && key.toString().matches("\\w\\w"))) {
+                continue;
+            }
+            keys.add(key.toString());
+        }
+        StringBuilder effective = new StringBuilder();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < text.length(); i++) {
+            char c = normalize(text.charAt(i));
+            if (NOISE.indexOf(c) < 0) {
+                effective.append(c);
+                positions.add(i);
+            }
+        }
+        char[] result = text.toCharArray();
+        for (String key : keys) {
+            for (int start = effective.indexOf(key); start >= 0; start = effective.indexOf(key, start + 1)) {
+                Arrays.fill(result, positions.get(start), positions.get(start + key.length() - 1) + 1, '*');
+            }
+        }
+        return new String(result);
+    }
+
+    private static char normalize(char c) {
+        if (c == '　') {
+            c = ' ';
+        } else if (c >= '！' && c <= '～') {
+            c = (char) (c - 0xFEE0);
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static String randomString(Random random, String chars, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return builder.toString();
+    }
+}
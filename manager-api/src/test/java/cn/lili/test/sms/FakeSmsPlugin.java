@@ -0,0 +1,183 @@
+package cn.lili.test.sms;
+
+import cn.lili.common.exception.ServiceException;
+import cn.lili.modules.sms.entity.dos.SmsSign;
+import cn.lili.modules.sms.entity.dos.SmsTemplate;
+import cn.lili.modules.sms.entity.enums.SmsEnum;
+import cn.lili.modules.sms.plugin.SmsPlugin;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地短信通道
+ * 模拟按分组流水号去重的通道（实际通道不去重，见 SmsBulkDispatcher），记录每个手机号的下发次数与每次请求的时间，可模拟请求失败与进程崩溃
+ */
+public class FakeSmsPlugin implements SmsPlugin {
+
+    /**
+     * 手机号 -> 下发次数
+     */
+    private final Map<String, AtomicInteger> deliveries = new ConcurrentHashMap<>();
+
+    /**
+     * 已下发的分组流水号
+     */
+    private final Set<String> outIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 每次请求的时间，单位纳秒
+     */
+    private final List<Long> requestTimes = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    private final AtomicInteger duplicates = new AtomicInteger();
+
+    private final Random random = new Random(20240312L);
+
+    /**
+     * 进程是否已崩溃，与测试中的分组存储共用
+     */
+    private final AtomicBoolean crashed;
+
+    /**
+     * 请求失败的概率
+     */
+    private volatile double failRate;
+
+    /**
+     * 下发第几个分组后崩溃，分组已下发但发送结果来不及记录
+     */
+    private volatile int crashAfter = -1;
+
+    /**
+     * 每次请求耗时，单位毫秒
+     */
+    private volatile long latency;
+
+    public FakeSmsPlugin(AtomicBoolean crashed) {
+        this.crashed = crashed;
+    }
+
+    @Override
+    public SmsEnum pluginName() {
+        return SmsEnum.ALI;
+    }
+
+    @Override
+    public void sendChunkSms(String signName, List<String> mobile, String templateCode, String outId) {
+        if (crashed.get()) {
+            throw new IllegalStateException("进程已崩溃");
+        }
+        requestTimes.add(System.nanoTime());
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            if (latency > 0) {
+                TimeUnit.MILLISECONDS.sleep(latency);
+            }
+            if (failRate > 0 && this.nextDouble() < failRate) {
+                throw new ServiceException("通道繁忙");
+            }
+            if (!outIds.add(outId)) {
+                duplicates.incrementAndGet();
+                return;
+            }
+            for (String item : mobile) {
+                deliveries.computeIfAbsent(item, k -> new AtomicInteger()).incrementAndGet();
+            }
+            if (accepted.incrementAndGet() == crashAfter) {
+                crashed.set(true);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private synchronized double nextDouble() {
+        return random.nextDouble();
+    }
+
+    public Map<String, AtomicInteger> getDeliveries() {
+        return deliveries;
+    }
+
+    public List<Long> getRequestTimes() {
+        return requestTimes;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    public int getDuplicates() {
+        return duplicates.get();
+    }
+
+    public void setFailRate(double failRate) {
+        this.failRate = failRate;
+    }
+
+    public void setCrashAfter(int crashAfter) {
+        this.crashAfter = crashAfter;
+    }
+
+    public void setLatency(long latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public void sendSmsCode(String signName, String mobile, Map<String, String> param, String templateCode) {
+        this.sendChunkSms(signName, Collections.singletonList(mobile), templateCode, UUID.randomUUID().toString());
+    }
+
+    @Override
+    public void sendBatchSms(String signName, List<String> mobile, String templateCode) {
+        this.sendChunkSms(signName, mobile, templateCode, UUID.randomUUID().toString());
+    }
+
+    @Override
+    public void addSmsSign(SmsSign smsSign) {
+    }
+
+    @Override
+    public void deleteSmsSign(String signName) {
+    }
+
+    @Override
+    public Map<String, Object> querySmsSign(String signName) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public void modifySmsSign(SmsSign smsSign) {
+    }
+
+    @Override
+    public void modifySmsTemplate(SmsTemplate smsTemplate) {
+    }
+
+    @Override
+    public Map<String, Object> querySmsTemplate(String templateCode) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public String addSmsTemplate(SmsTemplate smsTemplate) {
+        return null;
+    }
+
+    @Override
+    public void deleteSmsTemplate(String templateCode) {
+    }
+}
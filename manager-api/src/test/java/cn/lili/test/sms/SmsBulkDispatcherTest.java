@@ -0,0 +1,261 @@
+package cn.lili.test.sms;
+
+import cn.lili.common.exception.ServiceException;
+import cn.lili.common.properties.SmsBulkProperties;
+import cn.lili.modules.member.service.MemberService;
+import cn.lili.modules.message.entity.enums.RangeEnum;
+import cn.lili.modules.sms.entity.dos.SmsReachChunk;
+import cn.lili.modules.sms.entity.dto.SmsReachDTO;
+import cn.lili.modules.sms.entity.enums.SmsChunkStatusEnum;
+import cn.lili.modules.sms.plugin.SmsPluginFactory;
+import cn.lili.modules.sms.service.SmsReachChunkService;
+import cn.lili.modules.sms.tools.SmsBulkDispatcher;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 短信批量发送测试
+ * 使用本地短信通道，发送过程中模拟进程崩溃，重新执行后校验每个手机号恰好下发一次；
+ * 校验通道每秒请求数不超过限流、同时发送的分组不超过线程数、手机号去重
+ */
+class SmsBulkDispatcherTest {
+
+    private static final String REACH_ID = "R1";
+
+    /**
+     * 进程是否已崩溃，崩溃后分组存储与短信通道都不可用
+     */
+    private final AtomicBoolean crashed = new AtomicBoolean();
+
+    /**
+     * 分组存储，保存分组副本，与数据库一样只有写入成功的状态可见
+     */
+    private final Map<String, SmsReachChunk> chunks = new ConcurrentHashMap<>();
+
+    private final AtomicLong chunkId = new AtomicLong();
+
+    private final TreeSet<String> members = new TreeSet<>();
+
+    private FakeSmsPlugin smsPlugin;
+
+    private SmsReachChunkService smsReachChunkService;
+
+    private MemberService memberService;
+
+    @BeforeEach
+    void setUp() {
+        smsPlugin = new FakeSmsPlugin(crashed);
+
+        smsReachChunkService = mock(SmsReachChunkService.class);
+        when(smsReachChunkService.save(any(SmsReachChunk.class))).thenAnswer(invocation -> {
+            this.checkCrashed();
+            SmsReachChunk chunk = invocation.getArgument(0);
+            chunk.setId(String.valueOf(chunkId.incrementAndGet()));
+            chunks.put(chunk.getId(), copy(chunk));
+            return true;
+        });
+        doAnswer(invocation -> {
+            this.checkCrashed();
+            SmsReachChunk chunk = invocation.getArgument(0);
+            SmsReachChunk stored = chunks.get(chunk.getId());
+            stored.setStatus(chunk.getStatus());
+            stored.setSendTimes(chunk.getSendTimes());
+            stored.setErrorMessage(chunk.getErrorMessage());
+            return null;
+        }).when(smsReachChunkService).updateStatus(any(SmsReachChunk.class));
+        when(smsReachChunkService.lastChunk(REACH_ID)).thenAnswer(invocation -> chunks.values().stream()
+                .max(Comparator.comparing(SmsReachChunk::getChunkIndex)).map(SmsBulkDispatcherTest::copy).orElse(null));
+        when(smsReachChunkService.listUnfinished(eq(REACH_ID), anyInt(), anyInt())).thenAnswer(invocation -> {
+            int afterIndex = invocation.getArgument(1);
+            int limit = invocation.getArgument(2);
+            return chunks.values().stream()
+                    .filter(chunk -> chunk.getChunkIndex() > afterIndex && !SmsChunkStatusEnum.SUCCESS.name().equals(chunk.getStatus()))
+                    .sorted(Comparator.comparing(SmsReachChunk::getChunkIndex))
+                    .limit(limit).map(SmsBulkDispatcherTest::copy).collect(Collectors.toList());
+        });
+
+        //与 select distinct mobile ... where mobile > #{after} order by mobile 一致
+        memberService = mock(MemberService.class);
+        doAnswer(invocation -> {
+            String after = invocation.getArgument(0);
+            Consumer<String> consumer = invocation.getArgument(1);
+            members.tailSet(after == null ? "" : after, false).forEach(consumer);
+            return null;
+        }).when(memberService).streamMemberMobile(any(), any());
+    }
+
+    @Test
+    void testCrashAndResume() {
+        Random random = new Random(20240312L);
+        for (int i = 0; i < 30000; i++) {
+            members.add("1" + (3000000000L + random.nextInt(25000)));
+        }
+        SmsBulkProperties properties = properties(100, 8, 5000);
+        smsPlugin.setFailRate(0.05);
+        smsPlugin.setCrashAfter(80);
+
+        SmsBulkDispatcher first = this.dispatcher(properties);
+        try {
+            Assertions.assertThrows(ServiceException.class, () -> first.dispatch(reach(RangeEnum.ALL, null)));
+        } finally {
+            first.destroy();
+        }
+        Assertions.assertTrue(crashed.get());
+        Assertions.assertTrue(chunks.values().stream().anyMatch(chunk -> !SmsChunkStatusEnum.SUCCESS.name().equals(chunk.getStatus())));
+
+        //进程恢复，消息重新投递后继续发送，偶发失败的分组由下一次投递重发
+        crashed.set(false);
+        smsPlugin.setCrashAfter(-1);
+        SmsBulkDispatcher second = this.dispatcher(properties);
+        try {
+            boolean finished = false;
+            for (int i = 0; i < 5 && !finished; i++) {
+                try {
+                    second.dispatch(reach(RangeEnum.ALL, null));
+                    finished = true;
+                } catch (ServiceException e) {
+                    Assertions.assertFalse(crashed.get());
+                }
+            }
+            Assertions.assertTrue(finished);
+        } finally {
+            second.destroy();
+        }
+
+        //崩溃时已下发但未记录结果的分组以相同流水号重发，通道去重
+        Assertions.assertTrue(smsPlugin.getDuplicates() > 0);
+        this.assertDeliveredOnce(members);
+        List<SmsReachChunk> sorted = chunks.values().stream().sorted(Comparator.comparing(SmsReachChunk::getChunkIndex)).collect(Collectors.toList());
+        Assertions.assertEquals((members.size() + 99) / 100, sorted.size());
+        String previous = "";
+        for (int i = 0; i < sorted.size(); i++) {
+            SmsReachChunk chunk = sorted.get(i);
+            Assertions.assertEquals(i, chunk.getChunkIndex());
+            Assertions.assertEquals(SmsChunkStatusEnum.SUCCESS.name(), chunk.getStatus());
+            Assertions.assertTrue(chunk.getMobile().split(",")[0].compareTo(previous) > 0);
+            previous = chunk.getLastMobile();
+        }
+    }
+
+    @Test
+    void testRateLimitAndDedup() throws Exception {
+        int qps = 100;
+        int threads = 8;
+        Random random = new Random(20240312L);
+        List<String> mobile = new ArrayList<>();
+        Set<String> expected = new TreeSet<>();
+        for (int i = 0; i < 10000; i++) {
+            String item = "1" + (5000000000L + i);
+            expected.add(item);
+            mobile.add(item);
+            //重复、带空格、空白手机号
+            if (random.nextInt(5) == 0) {
+                mobile.add(" " + item + " ");
+            }
+            if (random.nextInt(50) == 0) {
+                mobile.add(" ");
+            }
+        }
+        Collections.shuffle(mobile, random);
+        smsPlugin.setLatency(20);
+
+        SmsBulkDispatcher dispatcher = this.dispatcher(properties(50, threads, qps));
+        try {
+            Assertions.assertEquals(expected.size(), dispatcher.dispatch(reach(RangeEnum.APPOINT, mobile)));
+        } finally {
+            dispatcher.destroy();
+        }
+
+        this.assertDeliveredOnce(expected);
+        Assertions.assertTrue(smsPlugin.getMaxInFlight() <= threads);
+        List<Long> times = new ArrayList<>(smsPlugin.getRequestTimes());
+        Collections.sort(times);
+        Assertions.assertEquals(expected.size() / 50, times.size());
+        long second = TimeUnit.SECONDS.toNanos(1);
+        for (int i = 0, j = 0; i < times.size(); i++) {
+            while (j < times.size() && times.get(j) - times.get(i) < second) {
+                j++;
+            }
+            Assertions.assertTrue(j - i <= qps + 3, "1 秒内请求 " + (j - i) + " 次");
+        }
+        long elapsed = times.get(times.size() - 1) - times.get(0);
+        Assertions.assertTrue(elapsed >= second * (times.size() - 1) / qps * 95 / 100, "耗时 " + elapsed);
+    }
+
+    private void assertDeliveredOnce(Collection<String> expected) {
+        Assertions.assertEquals(new TreeSet<>(expected), new TreeSet<>(smsPlugin.getDeliveries().keySet()));
+        smsPlugin.getDeliveries().forEach((item, times) -> Assertions.assertEquals(1, times.get(), item));
+    }
+
+    private void checkCrashed() {
+        if (crashed.get()) {
+            throw new IllegalStateException("进程已崩溃");
+        }
+    }
+
+    private SmsBulkDispatcher dispatcher(SmsBulkProperties properties) {
+        SmsPluginFactory smsPluginFactory = mock(SmsPluginFactory.class);
+        when(smsPluginFactory.smsPlugin()).thenReturn(smsPlugin);
+        RLock lock = mock(RLock.class);
+        when(lock.tryLock()).thenReturn(true);
+        RedissonClient redisson = mock(RedissonClient.class);
+        when(redisson.getLock(anyString())).thenReturn(lock);
+
+        SmsBulkDispatcher dispatcher = new SmsBulkDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "smsBulkProperties", properties);
+        ReflectionTestUtils.setField(dispatcher, "smsReachChunkService", smsReachChunkService);
+        ReflectionTestUtils.setField(dispatcher, "memberService", memberService);
+        ReflectionTestUtils.setField(dispatcher, "smsPluginFactory", smsPluginFactory);
+        ReflectionTestUtils.setField(dispatcher, "redisson", redisson);
+        dispatcher.afterPropertiesSet();
+        return dispatcher;
+    }
+
+    private static SmsReachChunk copy(SmsReachChunk chunk) {
+        SmsReachChunk copy = new SmsReachChunk();
+        copy.setId(chunk.getId());
+        copy.setReachId(chunk.getReachId());
+        copy.setChunkIndex(chunk.getChunkIndex());
+        copy.setMobile(chunk.getMobile());
+        copy.setLastMobile(chunk.getLastMobile());
+        copy.setMobileNum(chunk.getMobileNum());
+        copy.setStatus(chunk.getStatus());
+        copy.setSendTimes(chunk.getSendTimes());
+        copy.setErrorMessage(chunk.getErrorMessage());
+        return copy;
+    }
+
+    private static SmsBulkProperties properties(int chunkSize, int threads, int qps) {
+        SmsBulkProperties properties = new SmsBulkProperties();
+        properties.setChunkSize(chunkSize);
+        properties.setThreads(threads);
+        properties.setQps(Collections.singletonMap("ALI", qps));
+        properties.setRetryInterval(1L);
+        return properties;
+    }
+
+    private static SmsReachDTO reach(RangeEnum range, List<String> mobile) {
+        SmsReachDTO smsReach = new SmsReachDTO();
+        smsReach.setId(REACH_ID);
+        smsReach.setSignName("测试签名");
+        smsReach.setMessageCode("SMS_TEST");
+        smsReach.setSmsRange(range.name());
+        smsReach.setMobile(mobile);
+        return smsReach;
+    }
+}
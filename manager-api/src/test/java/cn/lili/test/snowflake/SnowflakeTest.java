@@ -0,0 +1,179 @@
+package cn.lili.test.snowflake;
+
+import cn.lili.common.snowflake.SnowflakeIdGenerator;
+import cn.lili.common.snowflake.WorkerIdRegistry;
+import cn.lili.common.snowflake.impl.MemoryWorkerIdLeaseStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 雪花ID测试
+ * 使用内存租约模拟 Redis，校验多节点机器ID不冲突、租约过期与时钟回拨
+ */
+class SnowflakeTest {
+
+    private static final int NODES = 64;
+
+    @Test
+    void testConcurrentNodes() throws Exception {
+        MemoryWorkerIdLeaseStore leaseStore = new MemoryWorkerIdLeaseStore();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        List<WorkerIdRegistry> registries = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            WorkerIdRegistry registry = new WorkerIdRegistry(leaseStore, 60000L);
+            registries.add(registry);
+            futures.add(executor.submit(() -> {
+                ready.await();
+                int slot = registry.claim();
+                SnowflakeIdGenerator generator = new SnowflakeIdGenerator(WorkerIdRegistry.workerId(slot), WorkerIdRegistry.dataCenterId(slot), 5L);
+                long[] ids = new long[2000];
+                for (int j = 0; j < ids.length; j += 20) {
+                    System.arraycopy(generator.nextIds(20), 0, ids, j, 20);
+                }
+                return ids;
+            }));
+        }
+        ready.countDown();
+        Set<Long> ids = new HashSet<>();
+        for (Future<long[]> future : futures) {
+            for (long id : future.get(30, TimeUnit.SECONDS)) {
+                Assertions.assertTrue(ids.add(id), "duplicated id " + id);
+            }
+        }
+        executor.shutdown();
+
+        Set<Integer> slots = new HashSet<>();
+        registries.forEach(registry -> slots.add(registry.getSlot()));
+        Assertions.assertEquals(NODES, slots.size());
+        registries.forEach(registry -> Assertions.assertTrue(registry.renew()));
+
+        //释放后可以被其他节点占用
+        registries.forEach(WorkerIdRegistry::release);
+        for (int i = 0; i < WorkerIdRegistry.MAX_SLOTS; i++) {
+            new WorkerIdRegistry(leaseStore, 60000L).claim();
+        }
+        Assertions.assertThrows(IllegalStateException.class, () -> new WorkerIdRegistry(leaseStore, 60000L).claim());
+    }
+
+    @Test
+    void testLeaseExpired() {
+        AtomicLong clock = new AtomicLong(1000L);
+        MemoryWorkerIdLeaseStore leaseStore = new MemoryWorkerIdLeaseStore(clock::get);
+        WorkerIdRegistry first = new WorkerIdRegistry(leaseStore, 100L, clock::get);
+        int slot = first.claim();
+        Assertions.assertEquals(1100L, first.getDeadline());
+        Assertions.assertEquals(-1L, leaseStore.claim(slot, "other", 100L, 1100L));
+
+        clock.addAndGet(50L);
+        Assertions.assertTrue(first.renew());
+        Assertions.assertEquals(1150L, first.getDeadline());
+        clock.addAndGet(120L);
+        Assertions.assertTrue(first.isExpired());
+        //超过有效期未续期，其他节点可以占用，并得到原节点的截止时间；原节点续期失败
+        Assertions.assertEquals(1150L, leaseStore.claim(slot, "other", 100L, 1270L));
+        Assertions.assertFalse(first.renew());
+        //释放不影响其他节点的租约
+        first.release();
+        Assertions.assertEquals(-1L, leaseStore.claim(slot, "third", 100L, 1270L));
+    }
+
+    @Test
+    void testLeaseDeadline() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 2, 5L, clock::get);
+        generator.leaseUntil(clock.get() + 100L);
+        generator.nextId();
+        //租约未续期，超过截止时间后停止生成
+        clock.addAndGet(101L);
+        Assertions.assertThrows(IllegalStateException.class, generator::nextId);
+        generator.leaseUntil(clock.get() + 100L);
+        generator.nextId();
+    }
+
+    @Test
+    void testTakeoverAfterRelease() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        MemoryWorkerIdLeaseStore leaseStore = new MemoryWorkerIdLeaseStore(clock::get);
+        WorkerIdRegistry first = new WorkerIdRegistry(leaseStore, 60000L, clock::get);
+        int slot = first.claim();
+        SnowflakeIdGenerator previous = new SnowflakeIdGenerator(WorkerIdRegistry.workerId(slot), WorkerIdRegistry.dataCenterId(slot), 5L, clock::get);
+        previous.startAfter(first.getStartAfter());
+        previous.leaseUntil(first.getDeadline());
+        previous.nextId();
+        first.release();
+
+        //释放后立即被时钟慢 30 秒的节点占用，从原节点的截止时间之后开始分配
+        AtomicLong behind = new AtomicLong(clock.get() - 30000L);
+        long startAfter = leaseStore.claim(slot, "second", 60000L, behind.get() + 60000L);
+        Assertions.assertEquals(first.getDeadline(), startAfter);
+        SnowflakeIdGenerator next = new SnowflakeIdGenerator(WorkerIdRegistry.workerId(slot), WorkerIdRegistry.dataCenterId(slot), 5L, behind::get);
+        next.startAfter(startAfter);
+
+        //原节点截止时间前生成的ID均早于接替节点的ID
+        clock.set(first.getDeadline());
+        long last = previous.nextId();
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            long id = next.nextId();
+            Assertions.assertTrue(id > last);
+            Assertions.assertTrue(ids.add(id));
+        }
+    }
+
+    @Test
+    void testClockRollback() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 2, 5L, clock::get);
+        long previous = generator.nextId();
+
+        //大幅回拨：沿用上次时间戳并借用后续毫秒，不抛出异常，ID保持递增
+        clock.addAndGet(-10000L);
+        for (int i = 0; i < 20000; i++) {
+            long id = generator.nextId();
+            Assertions.assertTrue(id > previous);
+            previous = id;
+        }
+        Assertions.assertTrue(generator.getBorrowed() > 0);
+
+        //时钟追上后恢复使用系统时间
+        clock.addAndGet(20000L);
+        long id = generator.nextId();
+        Assertions.assertTrue(id > previous);
+        Assertions.assertEquals(clock.get() - SnowflakeIdGenerator.EPOCH, id >>> 22);
+    }
+
+    @Test
+    void testSmallClockRollbackWaits() {
+        long start = System.currentTimeMillis();
+        AtomicLong calls = new AtomicLong();
+        //回拨 3 毫秒，之后每次读取前进 1 毫秒
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 2, 5L,
+                () -> calls.getAndIncrement() == 0 ? start : start - 3 + calls.get());
+        long first = generator.nextId();
+        long second = generator.nextId();
+        Assertions.assertTrue(second > first);
+        Assertions.assertEquals(0, generator.getBorrowed());
+    }
+
+    @Test
+    void testSequenceExhausted() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        AtomicLong reads = new AtomicLong();
+        //同一毫秒内序列号用完后，时钟前进才继续分配
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, 0, 5L,
+                () -> reads.incrementAndGet() > 5000 ? clock.get() + 1 : clock.get());
+        Set<Long> ids = new HashSet<>();
+        while (ids.size() < 5000) {
+            for (long id : generator.nextIds(32)) {
+                Assertions.assertTrue(ids.add(id));
+            }
+        }
+        Assertions.assertEquals(0, generator.getBorrowed());
+    }
+}
@@ -0,0 +1,208 @@
+package cn.lili.test.statistics;
+
+import cn.lili.cache.CachePrefix;
+import cn.lili.common.properties.StatisticsProperties;
+import cn.lili.modules.statistics.collector.OnlineMemberCollector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.HyperLogLogOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在线会员收集测试
+ * 同一会员同一分钟只写入一次；在线人数为判定窗口内分钟桶的合并去重数；分钟桶按窗口设置过期；
+ * 并发访问与刷新交错时不漏记会员
+ */
+class OnlineMemberCollectorTest {
+
+    private static final long MINUTE_MILLIS = 60 * 1000L;
+
+    private OnlineMemberCollector collector;
+
+    private StatisticsProperties statisticsProperties;
+
+    /**
+     * 模拟 Redis 中的分钟桶，HyperLogLog 以集合代替
+     */
+    private final Map<String, Set<String>> buckets = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> expires = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pfAdds = new AtomicInteger();
+
+    private final AtomicBoolean redisDown = new AtomicBoolean(false);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisConnection connection = Mockito.mock(RedisConnection.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "pfAdd":
+                    Set<String> members = buckets.computeIfAbsent(string((byte[]) args[0]), k -> ConcurrentHashMap.newKeySet());
+                    //可变参数已展开
+                    for (int i = 1; i < args.length; i++) {
+                        members.add(string((byte[]) args[i]));
+                        pfAdds.incrementAndGet();
+                    }
+                    return null;
+                case "expire":
+                    expires.put(string((byte[]) args[0]), (Long) args[1]);
+                    return null;
+                default:
+                    return null;
+            }
+        });
+        HyperLogLogOperations<Object, Object> hyperLogLog = Mockito.mock(HyperLogLogOperations.class, invocation -> {
+            if (!"size".equals(invocation.getMethod().getName())) {
+                return null;
+            }
+            Set<String> union = new HashSet<>();
+            for (Object key : invocation.getArguments()) {
+                union.addAll(buckets.getOrDefault((String) key, Collections.emptySet()));
+            }
+            return (long) union.size();
+        });
+        RedisTemplate<Object, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+        Mockito.doReturn(RedisSerializer.string()).when(redisTemplate).getKeySerializer();
+        Mockito.doReturn(RedisSerializer.string()).when(redisTemplate).getValueSerializer();
+        Mockito.doReturn(hyperLogLog).when(redisTemplate).opsForHyperLogLog();
+        Mockito.doAnswer(i -> {
+            if (redisDown.get()) {
+                throw new RedisConnectionFailureException("down");
+            }
+            ((RedisCallback<Object>) i.getArgument(0)).doInRedis(connection);
+            return Collections.emptyList();
+        }).when(redisTemplate).executePipelined(Mockito.any(RedisCallback.class));
+
+        statisticsProperties = new StatisticsProperties();
+        statisticsProperties.setOnlineWindow(15);
+        collector = new OnlineMemberCollector();
+        ReflectionTestUtils.setField(collector, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(collector, "statisticsProperties", statisticsProperties);
+    }
+
+    @Test
+    void testDeduplicatePerMinute() throws Exception {
+        //避免跨分钟
+        long second = System.currentTimeMillis() % MINUTE_MILLIS;
+        if (second > MINUTE_MILLIS - 3000) {
+            Thread.sleep(MINUTE_MILLIS - second + 100);
+        }
+        for (int i = 0; i < 100; i++) {
+            collector.touch("1");
+            collector.touch(String.valueOf(i % 3));
+        }
+        collector.touch(null);
+        collector.flush();
+        //同一分钟每个会员只写入一次
+        Assertions.assertEquals(3, pfAdds.get());
+        Assertions.assertEquals(3L, collector.online());
+        //分钟桶保留一个判定窗口再多一分钟
+        Assertions.assertEquals(16 * 60L, expires.values().iterator().next());
+
+        //本分钟已写入的会员再次访问不再写入
+        collector.touch("1");
+        collector.flush();
+        Assertions.assertEquals(3, pfAdds.get());
+    }
+
+    @Test
+    void testOnlineWindow() {
+        long now = System.currentTimeMillis();
+        long minute = now / MINUTE_MILLIS;
+        //最近 20 分钟每分钟一个新会员，另有一个会员每分钟都活跃
+        for (int i = 0; i < 20; i++) {
+            Set<String> members = ConcurrentHashMap.newKeySet();
+            members.add("M" + i);
+            members.add("ACTIVE");
+            buckets.put(CachePrefix.ONLINE_MEMBER_BUCKET.getPrefix() + (minute - i), members);
+        }
+        //窗口内 15 个分钟桶，活跃会员只计一次
+        Assertions.assertEquals(16L, collector.online(now));
+        statisticsProperties.setOnlineWindow(5);
+        Assertions.assertEquals(6L, collector.online(now));
+        //历史时间点只统计该时间之前的窗口
+        Assertions.assertEquals(6L, collector.online(now - 10 * MINUTE_MILLIS));
+        Assertions.assertEquals(0L, collector.online(now - 60 * MINUTE_MILLIS));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExpiredMinutesRemovedAndFailureDropped() {
+        Map<Long, Set<String>> touched = (Map<Long, Set<String>>) ReflectionTestUtils.getField(collector, "touched");
+        long minute = System.currentTimeMillis() / MINUTE_MILLIS;
+        touched.put(minute - 2, ConcurrentHashMap.newKeySet());
+        collector.flush();
+        Assertions.assertFalse(touched.containsKey(minute - 2));
+        //没有新的会员访问时不写入
+        Assertions.assertTrue(buckets.isEmpty());
+
+        redisDown.set(true);
+        collector.touch("1");
+        collector.flush();
+        redisDown.set(false);
+        collector.flush();
+        //在线人数为估算值，写入失败直接丢弃
+        Assertions.assertEquals(0L, collector.online());
+    }
+
+    @Test
+    void testConcurrentTouchAndFlush() throws Exception {
+        int threads = 8;
+        int members = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean touching = new AtomicBoolean(true);
+        try {
+            List<Future<?>> touchers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                touchers.add(executor.submit(() -> {
+                    for (int i = 0; i < members; i++) {
+                        collector.touch(thread + "-" + i);
+                    }
+                }));
+            }
+            //刷新与访问并发进行
+            Future<?> flusher = executor.submit(() -> {
+                while (touching.get()) {
+                    collector.flush();
+                }
+            });
+            for (Future<?> future : touchers) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            touching.set(false);
+            flusher.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        collector.flush();
+        Assertions.assertEquals((long) threads * members, collector.online());
+    }
+
+    @Test
+    void testDestroyFlushes() {
+        collector.afterPropertiesSet();
+        collector.touch("1");
+        collector.destroy();
+        Assertions.assertEquals(1L, collector.online());
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,219 @@
+package cn.lili.test.statistics;
+
+import cn.hutool.core.date.DateUtil;
+import cn.lili.common.utils.CurrencyUtil;
+import cn.lili.modules.order.cart.entity.enums.DeliveryMethodEnum;
+import cn.lili.modules.order.order.entity.dos.Order;
+import cn.lili.modules.order.order.entity.dos.OrderItem;
+import cn.lili.modules.order.order.entity.dto.PriceDetailDTO;
+import cn.lili.modules.order.order.entity.enums.OrderTypeEnum;
+import cn.lili.modules.order.order.entity.enums.PayStatusEnum;
+import cn.lili.modules.order.order.entity.enums.RefundStatusEnum;
+import cn.lili.modules.order.order.service.OrderItemService;
+import cn.lili.modules.order.order.service.OrderService;
+import cn.lili.modules.payment.entity.enums.PaymentMethodEnum;
+import cn.lili.modules.statistics.entity.dos.OrderStatisticsDaily;
+import cn.lili.modules.statistics.mapper.OrderStatisticsDailyMapper;
+import cn.lili.modules.statistics.mapper.OrderStatisticsMapper;
+import cn.lili.modules.statistics.service.OrderStatisticsDailyService;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 订单每日统计测试
+ * 生成订单数据，校验每日统计与原订单统计查询结果一致，测试数据回滚
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@Transactional
+class OrderStatisticsRollupTest {
+
+    private static final int DAYS = 3;
+
+    private static final String[] STORES = {"ROLLUP_TEST_S1", "ROLLUP_TEST_S2"};
+
+    private static final String[] REFUND_STATUS = {RefundStatusEnum.NO_REFUND.name(), RefundStatusEnum.PART_REFUND.name(),
+            RefundStatusEnum.ALL_REFUND.name(), RefundStatusEnum.REFUNDING.name()};
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderItemService orderItemService;
+
+    @Autowired
+    private OrderStatisticsMapper orderStatisticsMapper;
+
+    @Autowired
+    private OrderStatisticsDailyMapper orderStatisticsDailyMapper;
+
+    @Autowired
+    private OrderStatisticsDailyService orderStatisticsDailyService;
+
+    private Date firstDay;
+
+    @BeforeEach
+    void init() {
+        firstDay = DateUtil.parseDate("2001-03-01");
+        Random random = new Random(20010301L);
+        PaymentMethodEnum[] paymentMethods = {PaymentMethodEnum.WECHAT, PaymentMethodEnum.ALIPAY, PaymentMethodEnum.WALLET};
+        DeliveryMethodEnum[] deliveryMethods = {DeliveryMethodEnum.LOGISTICS, DeliveryMethodEnum.SELF_PICK_UP, DeliveryMethodEnum.VIRTUAL};
+        for (int d = 0; d < DAYS; d++) {
+            Date createTime = DateUtil.offsetHour(DateUtil.offsetDay(firstDay, d), 10);
+            List<Order> orders = new ArrayList<>();
+            List<OrderItem> orderItems = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                DeliveryMethodEnum deliveryMethod = deliveryMethods[random.nextInt(deliveryMethods.length)];
+                Order order = new Order();
+                order.setSn("ROLLUP_TEST_" + d + "_" + i);
+                order.setTradeSn(order.getSn());
+                order.setStoreId(STORES[random.nextInt(STORES.length)]);
+                order.setMemberId("ROLLUP_TEST_M");
+                order.setPaymentMethod(paymentMethods[random.nextInt(paymentMethods.length)].name());
+                order.setDeliveryMethod(deliveryMethod.name());
+                order.setOrderType(DeliveryMethodEnum.VIRTUAL.equals(deliveryMethod) ? OrderTypeEnum.VIRTUAL.name() : OrderTypeEnum.NORMAL.name());
+                order.setPayStatus(random.nextInt(4) == 0 ? PayStatusEnum.UNPAID.name() : PayStatusEnum.PAID.name());
+                order.setFlowPrice(0D);
+                int itemCount = random.nextInt(3);
+                for (int j = 0; j < itemCount; j++) {
+                    OrderItem orderItem = this.orderItem(order.getSn() + "_" + j, order.getSn(), random);
+                    order.setFlowPrice(CurrencyUtil.add(order.getFlowPrice(), orderItem.getFlowPrice()));
+                    orderItems.add(orderItem);
+                }
+                orders.add(order);
+            }
+            orderService.saveBatch(orders);
+            orderItemService.saveBatch(orderItems);
+            //创建时间插入时自动填充，保存后修改为测试日期
+            orderService.update(new LambdaUpdateWrapper<Order>().set(Order::getCreateTime, createTime)
+                    .likeRight(Order::getSn, "ROLLUP_TEST_" + d + "_"));
+            orderItemService.update(new LambdaUpdateWrapper<OrderItem>().set(OrderItem::getCreateTime, createTime)
+                    .likeRight(OrderItem::getOrderSn, "ROLLUP_TEST_" + d + "_"));
+        }
+    }
+
+    @Test
+    void testBuild() {
+        Date[] dates = {firstDay, DateUtil.endOfDay(DateUtil.offsetDay(firstDay, DAYS - 1))};
+        this.assertSame(dates, orderStatisticsDailyService.build(dates[0], dates[1], null));
+    }
+
+    @Test
+    void testRebuild() {
+        for (int d = 0; d < DAYS; d++) {
+            orderStatisticsDailyService.rebuild(DateUtil.offsetDay(firstDay, d), null);
+        }
+        //重复汇总不产生重复数据
+        orderStatisticsDailyService.rebuild(firstDay, STORES[0]);
+        //已汇总范围由全部店铺汇总写入的标记行得出
+        Date[] range = orderStatisticsDailyService.rolledUpRange();
+        Assertions.assertNotNull(range);
+        Assertions.assertFalse(range[0].after(firstDay));
+        Assertions.assertFalse(range[1].before(DateUtil.offsetDay(firstDay, DAYS - 1)));
+        Date[] dates = {firstDay, DateUtil.endOfDay(DateUtil.offsetDay(firstDay, DAYS - 1))};
+        QueryWrapper<OrderStatisticsDaily> queryWrapper = new QueryWrapper<>();
+        queryWrapper.between("stat_date", dates[0], DateUtil.offsetDay(firstDay, DAYS - 1));
+        queryWrapper.groupBy("stat_date,payment_method,order_type,delivery_method");
+        this.assertSame(dates, orderStatisticsDailyMapper.sumDaily(queryWrapper));
+    }
+
+    /**
+     * 与原订单统计查询对比
+     */
+    private void assertSame(Date[] dates, List<OrderStatisticsDaily> rows) {
+        QueryWrapper<Order> orderWrapper = new QueryWrapper<>();
+        orderWrapper.between("create_time", dates[0], dates[1]);
+        Assertions.assertEquals(orderService.count(orderWrapper), sum(rows, OrderStatisticsDaily::getOrderNum));
+
+        LambdaQueryWrapper<OrderItem> payWrapper = new LambdaQueryWrapper<>();
+        payWrapper.between(OrderItem::getCreateTime, dates[0], dates[1]);
+        payWrapper.ne(OrderItem::getIsRefund, RefundStatusEnum.ALL_REFUND.name());
+        Assertions.assertEquals(orderStatisticsMapper.getPayOrderNum(payWrapper), sum(rows, OrderStatisticsDaily::getPayOrderNum));
+        Assertions.assertEquals(orderStatisticsMapper.getGoodsPrice(payWrapper), sumPrice(rows, OrderStatisticsDaily::getGoodsPrice), 0.001);
+
+        LambdaQueryWrapper<OrderItem> refundWrapper = new LambdaQueryWrapper<>();
+        refundWrapper.between(OrderItem::getCreateTime, dates[0], dates[1]);
+        refundWrapper.eq(OrderItem::getIsRefund, RefundStatusEnum.ALL_REFUND.name());
+        Assertions.assertEquals(orderStatisticsMapper.getPayOrderNum(refundWrapper), sum(rows, OrderStatisticsDaily::getRefundOrderNum));
+
+        QueryWrapper<OrderItem> refundPriceWrapper = new QueryWrapper<>();
+        refundPriceWrapper.between("oi.create_time", dates[0], dates[1]);
+        refundPriceWrapper.eq("oi.is_refund", RefundStatusEnum.ALL_REFUND.name());
+        Assertions.assertEquals(orderStatisticsMapper.getRefundPrice(refundPriceWrapper), sumPrice(rows, OrderStatisticsDaily::getRefundPrice), 0.001);
+
+        for (PaymentMethodEnum paymentMethod : PaymentMethodEnum.values()) {
+            QueryWrapper<OrderItem> priceWrapper = new QueryWrapper<>();
+            priceWrapper.between("oi.create_time", dates[0], dates[1]);
+            priceWrapper.ne("oi.is_refund", RefundStatusEnum.ALL_REFUND.name());
+            priceWrapper.eq("o.payment_method", paymentMethod.name());
+            Double expected = orderStatisticsMapper.getPayOrderPrice(priceWrapper);
+            Double actual = sumPrice(rows, row -> paymentMethod.name().equals(row.getPaymentMethod()) ? row.getPayOrderPrice() : 0D);
+            Assertions.assertEquals(expected, actual, 0.001, paymentMethod.name());
+        }
+
+        //原统计逐条解析子订单价格明细
+        Double discount = 0D;
+        Double freight = 0D;
+        Double distribution = 0D;
+        for (OrderItem orderItem : orderItemService.list(payWrapper)) {
+            PriceDetailDTO priceDetailDTO = orderItem.getPriceDetailDTO();
+            Double itemDiscount = CurrencyUtil.add(priceDetailDTO.getDiscountPrice(), priceDetailDTO.getCouponPrice());
+            if (!RefundStatusEnum.NO_REFUND.name().equals(orderItem.getIsRefund())) {
+                double ratio = CurrencyUtil.div(orderItem.getNum() - orderItem.getReturnGoodsNumber(), orderItem.getNum(), 4);
+                itemDiscount = CurrencyUtil.mul(itemDiscount, ratio);
+            }
+            discount = CurrencyUtil.add(discount, itemDiscount);
+            freight = CurrencyUtil.add(freight, priceDetailDTO.getFreightPrice());
+            distribution = CurrencyUtil.add(distribution, priceDetailDTO.getDistributionCommission());
+        }
+        Assertions.assertEquals(discount, sumPrice(rows, OrderStatisticsDaily::getDiscountPrice), 0.001);
+        Assertions.assertEquals(freight, sumPrice(rows, OrderStatisticsDaily::getFreightPrice), 0.001);
+        Assertions.assertEquals(distribution, sumPrice(rows, OrderStatisticsDaily::getDistributionPrice), 0.001);
+    }
+
+    private OrderItem orderItem(String sn, String orderSn, Random random) {
+        int num = 1 + random.nextInt(4);
+        String isRefund = REFUND_STATUS[random.nextInt(REFUND_STATUS.length)];
+        PriceDetailDTO priceDetailDTO = new PriceDetailDTO();
+        priceDetailDTO.setGoodsPrice(CurrencyUtil.mul(num, 10 + random.nextInt(90)));
+        priceDetailDTO.setFreightPrice((double) random.nextInt(10));
+        priceDetailDTO.setDiscountPrice((double) random.nextInt(5));
+        priceDetailDTO.setCouponPrice((double) random.nextInt(5));
+        priceDetailDTO.setDistributionCommission(CurrencyUtil.mul(random.nextInt(300), 0.01));
+        OrderItem orderItem = new OrderItem();
+        orderItem.setSn(sn);
+        orderItem.setOrderSn(orderSn);
+        orderItem.setNum(num);
+        orderItem.setPriceDetailDTO(priceDetailDTO);
+        orderItem.setGoodsPrice(priceDetailDTO.getGoodsPrice());
+        orderItem.setFlowPrice(CurrencyUtil.add(priceDetailDTO.getGoodsPrice(), priceDetailDTO.getFreightPrice()));
+        orderItem.setIsRefund(isRefund);
+        orderItem.setReturnGoodsNumber(RefundStatusEnum.ALL_REFUND.name().equals(isRefund) ? num : random.nextInt(num));
+        orderItem.setRefundPrice(RefundStatusEnum.NO_REFUND.name().equals(isRefund) ? 0D : CurrencyUtil.mul(orderItem.getReturnGoodsNumber(), 10));
+        return orderItem;
+    }
+
+    private static long sum(List<OrderStatisticsDaily> rows, Function<OrderStatisticsDaily, Long> value) {
+        return rows.stream().mapToLong(value::apply).sum();
+    }
+
+    private static Double sumPrice(List<OrderStatisticsDaily> rows, Function<OrderStatisticsDaily, Double> value) {
+        Double total = 0D;
+        for (OrderStatisticsDaily row : rows) {
+            total = CurrencyUtil.add(total, value.apply(row));
+        }
+        return total;
+    }
+}
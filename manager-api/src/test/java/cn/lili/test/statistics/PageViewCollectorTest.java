@@ -0,0 +1,197 @@
+package cn.lili.test.statistics;
+
+import cn.lili.cache.CachePrefix;
+import cn.lili.common.properties.StatisticsProperties;
+import cn.lili.modules.statistics.collector.PageViewCollector;
+import cn.lili.modules.statistics.util.StatisticsSuffix;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 页面浏览数据收集测试
+ * 并发浏览与刷新交错时 PV 不丢不重，UV 按 IP 去重；Redis 不可用时 PV 保留到下次刷新；停止时写入剩余数据
+ */
+class PageViewCollectorTest {
+
+    private PageViewCollector collector;
+
+    /**
+     * 模拟 Redis 中的 PV 计数
+     */
+    private final Map<String, Long> pv = new ConcurrentHashMap<>();
+
+    /**
+     * 模拟 Redis 中的 UV 集合
+     */
+    private final Map<String, Set<String>> uv = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean redisDown = new AtomicBoolean(false);
+
+    private final AtomicInteger pipelines = new AtomicInteger();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisConnection connection = Mockito.mock(RedisConnection.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "incrBy":
+                    pv.merge(string((byte[]) args[0]), (Long) args[1], Long::sum);
+                    return null;
+                case "pfAdd":
+                    Set<String> ips = uv.computeIfAbsent(string((byte[]) args[0]), k -> ConcurrentHashMap.newKeySet());
+                    //可变参数已展开
+                    for (int i = 1; i < args.length; i++) {
+                        ips.add(string((byte[]) args[i]));
+                    }
+                    return null;
+                default:
+                    return null;
+            }
+        });
+        RedisTemplate<Object, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+        Mockito.doReturn(RedisSerializer.string()).when(redisTemplate).getKeySerializer();
+        Mockito.doReturn(RedisSerializer.string()).when(redisTemplate).getValueSerializer();
+        Mockito.doAnswer(i -> {
+            if (redisDown.get()) {
+                throw new RedisConnectionFailureException("down");
+            }
+            pipelines.incrementAndGet();
+            ((RedisCallback<Object>) i.getArgument(0)).doInRedis(connection);
+            return Collections.emptyList();
+        }).when(redisTemplate).executePipelined(Mockito.any(RedisCallback.class));
+
+        StatisticsProperties statisticsProperties = new StatisticsProperties();
+        statisticsProperties.setPageViewFlushInterval(3_600_000L);
+        collector = new PageViewCollector();
+        ReflectionTestUtils.setField(collector, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(collector, "statisticsProperties", statisticsProperties);
+    }
+
+    @Test
+    void testConcurrentCollectAndFlush() throws Exception {
+        int threads = 8;
+        int views = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean collecting = new AtomicBoolean(true);
+        try {
+            List<Future<?>> collectors = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                collectors.add(executor.submit(() -> {
+                    for (int i = 0; i < views; i++) {
+                        collector.collect(String.valueOf(i % 2), "10.0." + thread + "." + (i % 50));
+                    }
+                }));
+            }
+            //刷新与浏览并发进行
+            Future<?> flusher = executor.submit(() -> {
+                while (collecting.get()) {
+                    collector.flush();
+                }
+            });
+            for (Future<?> future : collectors) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            collecting.set(false);
+            flusher.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        collector.flush();
+
+        String suffix = StatisticsSuffix.suffix();
+        Assertions.assertEquals((long) threads * views, pv.get(CachePrefix.PV.getPrefix() + suffix));
+        Assertions.assertEquals((long) threads * views / 2, pv.get(CachePrefix.STORE_PV.getPrefix() + suffix + "-0"));
+        Assertions.assertEquals((long) threads * views / 2, pv.get(CachePrefix.STORE_PV.getPrefix() + suffix + "-1"));
+        //UV 为估算值，刷新交错时可能漏记，但不会多记
+        Assertions.assertTrue(uv.get(CachePrefix.UV.getPrefix() + suffix).size() <= threads * 50);
+
+        //没有新的浏览时不访问 Redis
+        int before = pipelines.get();
+        collector.flush();
+        Assertions.assertEquals(before, pipelines.get());
+    }
+
+    @Test
+    void testUniqueVisitors() {
+        for (int i = 0; i < 100; i++) {
+            collector.collect("-1", "10.0.0." + (i % 7));
+        }
+        collector.collect("5", "10.0.0.1");
+        collector.collect("5", null);
+        collector.flush();
+
+        String suffix = StatisticsSuffix.suffix();
+        Assertions.assertEquals(102L, pv.get(CachePrefix.PV.getPrefix() + suffix));
+        Assertions.assertEquals(100L, pv.get(CachePrefix.STORE_PV.getPrefix() + suffix + "--1"));
+        Assertions.assertEquals(2L, pv.get(CachePrefix.STORE_PV.getPrefix() + suffix + "-5"));
+        Assertions.assertEquals(7, uv.get(CachePrefix.UV.getPrefix() + suffix).size());
+        Assertions.assertEquals(1, uv.get(CachePrefix.STORE_UV.getPrefix() + suffix + "-5").size());
+        //一次刷新只使用一次 pipeline
+        Assertions.assertEquals(1, pipelines.get());
+    }
+
+    @Test
+    void testRetryWhenRedisDown() {
+        for (int i = 0; i < 10; i++) {
+            collector.collect("1", "10.0.0." + i);
+        }
+        redisDown.set(true);
+        collector.flush();
+        Assertions.assertTrue(pv.isEmpty());
+
+        collector.collect("1", "10.0.0.100");
+        redisDown.set(false);
+        collector.flush();
+        String suffix = StatisticsSuffix.suffix();
+        Assertions.assertEquals(11L, pv.get(CachePrefix.PV.getPrefix() + suffix));
+        Assertions.assertEquals(11L, pv.get(CachePrefix.STORE_PV.getPrefix() + suffix + "-1"));
+        //失败时 UV 丢弃
+        Assertions.assertEquals(1, uv.get(CachePrefix.UV.getPrefix() + suffix).size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStaleCountersRemoved() {
+        Map<String, ?> counters = (Map<String, ?>) ReflectionTestUtils.getField(collector, "pvCounters");
+        String stale = CachePrefix.PV.getPrefix() + "2000-1-1";
+        collector.collect("1", "10.0.0.1");
+        //模拟跨天前的计数器
+        ReflectionTestUtils.invokeMethod(collector, "increment", stale);
+        collector.flush();
+        Assertions.assertEquals(1L, pv.get(stale));
+        Assertions.assertTrue(counters.containsKey(stale));
+
+        collector.flush();
+        Assertions.assertFalse(counters.containsKey(stale));
+        //当天的计数器保留
+        Assertions.assertTrue(counters.containsKey(CachePrefix.PV.getPrefix() + StatisticsSuffix.suffix()));
+    }
+
+    @Test
+    void testDestroyFlushes() {
+        collector.afterPropertiesSet();
+        collector.collect("1", "10.0.0.1");
+        collector.destroy();
+        Assertions.assertEquals(1L, pv.get(CachePrefix.PV.getPrefix() + StatisticsSuffix.suffix()));
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,311 @@
+package cn.lili.test.system;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.lili.cache.Cache;
+import cn.lili.cache.CachePrefix;
+import cn.lili.common.utils.SnowFlake;
+import cn.lili.modules.system.entity.dos.Region;
+import cn.lili.modules.system.entity.dto.RegionIndex;
+import cn.lili.modules.system.entity.vo.RegionVO;
+import cn.lili.modules.system.mapper.RegionMapper;
+import cn.lili.modules.system.service.RegionService;
+import cn.lili.modules.system.serviceimpl.RegionServiceImpl;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 行政地区索引测试
+ * 使用地区同步数据快照，校验索引的下级地区、地区路径、省市树与原逐条查询的结果一致，
+ * 地区修改后本节点重建索引，其他节点在索引版本变化后重新加载，经过事务代理修改时在提交后重建
+ */
+class RegionIndexTest {
+
+    private static List<Region> regions;
+
+    @BeforeAll
+    static void setup() {
+        SnowFlake.initialize(1, 1);
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Region.class);
+        String json = IoUtil.read(RegionIndexTest.class.getResourceAsStream("/region/district.json"), StandardCharsets.UTF_8);
+        regions = ReflectionTestUtils.invokeMethod(new RegionServiceImpl(), "initData", json);
+    }
+
+    @Test
+    void testSnapshot() {
+        //与加载索引时相同，按地区ID排序，同名地区取先同步的地区
+        List<Region> sorted = new ArrayList<>(regions);
+        Collections.shuffle(sorted, new Random(20240312L));
+        sorted.sort(Comparator.comparing(Region::getId));
+        RegionIndex index = RegionIndex.compile(sorted, "v1");
+        Assertions.assertEquals(regions.size(), index.size());
+
+        Set<String> parentIds = regions.stream().map(Region::getParentId).collect(Collectors.toSet());
+        parentIds.add("-1");
+        for (String parentId : parentIds) {
+            Assertions.assertEquals(ids(legacyItem(parentId)), ids(index.children(parentId)), parentId);
+        }
+        for (Region region : regions) {
+            Region byName = legacyByName(region.getName());
+            Assertions.assertEquals(legacyItemByLastName(byName), (index.getByName(region.getName()).getPath() + ","
+                    + index.getByName(region.getName()).getId()).replace(",0,", ""), region.getName());
+            if (region.getCityCode() != null) {
+                Region byCityCode = legacyByCityCodeAndName(region.getCityCode(), region.getName());
+                Region indexed = index.getByCityCodeAndName(region.getCityCode(), region.getName());
+                Assertions.assertEquals(legacyRegion(byCityCode), regionPath(index, indexed), region.getName());
+            }
+        }
+        Assertions.assertNull(index.getByName("不存在"));
+        Assertions.assertNull(index.getByCityCodeAndName("020", "不存在"));
+        Assertions.assertNull(index.getByCityCodeAndName(null, "朝阳区"));
+
+        //同名地区按城市代码区分
+        Assertions.assertEquals("北京市,北京城区,朝阳区", index.namePath(index.getByCityCodeAndName("010", "朝阳区").getId()));
+        Assertions.assertEquals("吉林省,长春市,朝阳区", index.namePath(index.getByCityCodeAndName("0431", "朝阳区").getId()));
+
+        List<RegionVO> allCity = index.getAllCity();
+        List<RegionVO> legacy = legacyAllCity();
+        Assertions.assertEquals(ids(legacy), ids(allCity));
+        for (int i = 0; i < legacy.size(); i++) {
+            Assertions.assertEquals(ids(legacy.get(i).getChildren()), ids(allCity.get(i).getChildren()));
+        }
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> index.children("0").add(new Region()));
+    }
+
+    @Test
+    void testRebuild() {
+        RegionMapper regionMapper = mock(RegionMapper.class);
+        List<Region> table = new ArrayList<>(regions);
+        when(regionMapper.selectList(any())).thenAnswer(invocation -> new ArrayList<>(table));
+        when(regionMapper.updateById(any(Region.class))).thenReturn(1);
+
+        Map<Object, Object> store = new HashMap<>();
+        Cache<Object> cache = mock(Cache.class);
+        when(cache.get(any())).thenAnswer(invocation -> store.get(invocation.getArgument(0)));
+        doAnswer(invocation -> store.put(invocation.getArgument(0), invocation.getArgument(1))).when(cache).put(any(), any());
+
+        RegionServiceImpl writer = service(regionMapper, cache);
+        RegionServiceImpl reader = service(regionMapper, cache);
+        Region province = regions.stream().filter(region -> "浙江省".equals(region.getName())).findFirst().orElseThrow(IllegalStateException::new);
+        Assertions.assertEquals(2, reader.getItem(province.getId()).size());
+        Assertions.assertEquals(2, writer.getItem(province.getId()).size());
+        verify(regionMapper, times(2)).selectList(any());
+
+        //重复读取不查询数据库
+        for (int i = 0; i < 100; i++) {
+            reader.getAllCity();
+            reader.getItem(province.getId());
+        }
+        verify(regionMapper, times(2)).selectList(any());
+
+        //修改地区，修改节点立即重建
+        Region renamed = table.stream().filter(region -> "宁波市".equals(region.getName())).findFirst().orElseThrow(IllegalStateException::new);
+        Region update = new Region();
+        update.setId(renamed.getId());
+        update.setName("宁波");
+        update.setParentId(renamed.getParentId());
+        update.setPath(renamed.getPath());
+        update.setLevel(renamed.getLevel());
+        update.setCityCode(renamed.getCityCode());
+        update.setOrderNum(renamed.getOrderNum());
+        table.set(table.indexOf(renamed), update);
+        writer.updateById(update);
+        Assertions.assertNotNull(writer.getItemByLastName("宁波"));
+
+        //其他节点在检查版本后重新加载
+        Assertions.assertNull(reader.getItemByLastName("宁波"));
+        ReflectionTestUtils.setField(reader, "nextIndexCheck", 0L);
+        Assertions.assertEquals(writer.getItemByLastName("宁波"), reader.getItemByLastName("宁波"));
+        Assertions.assertEquals("浙江省,宁波", reader.getRegion("0574", "宁波").get("name"));
+        verify(regionMapper, times(4)).selectList(any());
+    }
+
+    @Test
+    void testTransactionalRefresh() {
+        RegionMapper regionMapper = mock(RegionMapper.class);
+        List<Region> table = new ArrayList<>(regions);
+        when(regionMapper.selectList(any())).thenAnswer(invocation -> new ArrayList<>(table));
+        when(regionMapper.updateById(any(Region.class))).thenReturn(1);
+        when(regionMapper.insert(any(Region.class))).thenReturn(1);
+        Map<Object, Object> store = new HashMap<>();
+        Cache<Object> cache = mock(Cache.class);
+        when(cache.get(any())).thenAnswer(invocation -> store.get(invocation.getArgument(0)));
+        doAnswer(invocation -> store.put(invocation.getArgument(0), invocation.getArgument(1))).when(cache).put(any(), any());
+
+        //经过事务代理调用，索引在事务提交后重建
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(RegionMapper.class, () -> regionMapper);
+            context.registerBean(Cache.class, () -> cache);
+            context.register(TransactionConfig.class);
+            context.refresh();
+            RegionService regionService = context.getBean(RegionService.class);
+            Assertions.assertTrue(AopUtils.isAopProxy(regionService));
+            Assertions.assertNull(regionService.getItemByLastName("宁波"));
+
+            Region renamed = table.stream().filter(region -> "宁波市".equals(region.getName())).findFirst().orElseThrow(IllegalStateException::new);
+            Region update = new Region();
+            BeanUtil.copyProperties(renamed, update);
+            update.setName("宁波");
+            table.set(table.indexOf(renamed), update);
+            regionService.updateById(update);
+            Object version = store.get(CachePrefix.REGION_INDEX_VERSION.getPrefix());
+            Assertions.assertNotNull(version);
+            Assertions.assertNotNull(regionService.getItemByLastName("宁波"));
+            InOrder inOrder = inOrder(regionMapper, cache);
+            inOrder.verify(regionMapper).updateById(update);
+            inOrder.verify(cache).put(eq(CachePrefix.REGION_INDEX_VERSION.getPrefix()), any());
+
+            Region street = new Region();
+            BeanUtil.copyProperties(update, street);
+            street.setId(String.valueOf(SnowFlake.getId()));
+            street.setName("新建街道");
+            table.add(street);
+            regionService.save(street);
+            Assertions.assertNotEquals(version, store.get(CachePrefix.REGION_INDEX_VERSION.getPrefix()));
+            Assertions.assertNotNull(regionService.getItemByLastName("新建街道"));
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement(proxyTargetClass = true)
+    static class TransactionConfig {
+
+        @Bean
+        public PlatformTransactionManager transactionManager() {
+            return new NoopTransactionManager();
+        }
+
+        @Bean
+        public RegionServiceImpl regionService() {
+            return new RegionServiceImpl();
+        }
+    }
+
+    /**
+     * 不连接数据库的事务管理器，只触发事务同步回调
+     */
+    static class NoopTransactionManager extends AbstractPlatformTransactionManager {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    private static RegionServiceImpl service(RegionMapper regionMapper, Cache<Object> cache) {
+        RegionServiceImpl service = new RegionServiceImpl();
+        ReflectionTestUtils.setField(service, "baseMapper", regionMapper);
+        ReflectionTestUtils.setField(service, "cache", cache);
+        return service;
+    }
+
+    private static List<String> ids(List<? extends Region> regions) {
+        return regions.stream().map(Region::getId).collect(Collectors.toList());
+    }
+
+    private static Map<String, Object> regionPath(RegionIndex index, Region region) {
+        Map<String, Object> obj = new HashMap<>(2);
+        obj.put("id", index.idPath(region.getId()));
+        obj.put("name", index.namePath(region.getId()));
+        return obj;
+    }
+
+    /**
+     * 原下级地区查询：按上级ID查询后按排序值排序
+     */
+    private static List<Region> legacyItem(String parentId) {
+        List<Region> result = regions.stream().filter(region -> parentId.equals(region.getParentId())).collect(Collectors.toList());
+        result.sort(Comparator.comparing(Region::getOrderNum));
+        return result;
+    }
+
+    private static Region legacyByName(String name) {
+        return regions.stream().filter(region -> name.equals(region.getName())).findFirst().orElse(null);
+    }
+
+    private static Region legacyByCityCodeAndName(String cityCode, String name) {
+        return regions.stream().filter(region -> cityCode.equals(region.getCityCode()) && name.equals(region.getName())).findFirst().orElse(null);
+    }
+
+    private static String legacyItemByLastName(Region region) {
+        return (region.getPath() + "," + region.getId()).replace(",0,", "");
+    }
+
+    /**
+     * 原地址查询：去掉路径前两项后逐个查询上级地区
+     */
+    private static Map<String, Object> legacyRegion(Region region) {
+        String[] result = region.getPath().split(",");
+        StringBuilder regionIds = new StringBuilder();
+        StringBuilder regionNames = new StringBuilder();
+        for (int i = 2; i < result.length; i++) {
+            String regionId = result[i];
+            Region reg = regions.stream().filter(item -> regionId.equals(item.getId())).findFirst().orElse(null);
+            if (reg != null) {
+                regionIds.append(regionId).append(",");
+                regionNames.append(reg.getName()).append(",");
+            }
+        }
+        regionIds.append(region.getId());
+        regionNames.append(region.getName());
+        Map<String, Object> obj = new HashMap<>(2);
+        obj.put("id", regionIds.toString());
+        obj.put("name", regionNames.toString());
+        return obj;
+    }
+
+    /**
+     * 原省市树：省份逐个匹配城市，按排序值排序后比较
+     */
+    private static List<RegionVO> legacyAllCity() {
+        List<RegionVO> regionVOS = new ArrayList<>();
+        regions.stream().filter(region -> "province".equals(region.getLevel())).forEach(item -> regionVOS.add(new RegionVO(item)));
+        regions.stream().filter(region -> "city".equals(region.getLevel())).forEach(item -> {
+            for (RegionVO region : regionVOS) {
+                if (region.getId().equals(item.getParentId())) {
+                    region.getChildren().add(new RegionVO(item));
+                }
+            }
+        });
+        regionVOS.sort(Comparator.comparing(Region::getOrderNum));
+        regionVOS.forEach(region -> region.getChildren().sort(Comparator.comparing(Region::getOrderNum)));
+        return regionVOS;
+    }
+}
@@ -5,6 +5,8 @@ import cn.hutool.core.util.NumberUtil;
 import cn.lili.common.aop.annotation.PreventDuplicateSubmissions;
 import cn.lili.common.context.ThreadContextHolder;
 import cn.lili.common.enums.ResultCode;
+import cn.lili.common.excel.ExcelExportJob;
+import cn.lili.common.excel.ExcelExportJobManager;
 import cn.lili.common.enums.ResultUtil;
 import cn.lili.common.security.OperationalJudgment;
 import cn.lili.common.security.context.UserContext;
@@ -55,6 +57,9 @@ public class OrderStoreController {
      */
     @Autowired
     private OrderService orderService;
+
+    @Autowired
+    private ExcelExportJobManager excelExportJobManager;
     /**
      * 订单价格
      */
@@ -217,6 +222,20 @@ public class OrderStoreController {
         orderService.queryExportOrder(response,orderSearchParams);
     }
 
+    @PreventDuplicateSubmissions
+    @ApiOperation(value = "提交异步导出订单任务")
+    @PostMapping("/exportOrderJob")
+    public ResultMessage<ExcelExportJob> submitExportOrder(OrderSearchParams orderSearchParams) {
+        return ResultUtil.data(orderService.submitExportOrder(orderSearchParams));
+    }
+
+    @ApiOperation(value = "查询异步导出订单任务")
+    @ApiImplicitParam(name = "id", value = "任务ID", required = true, dataType = "String", paramType = "path")
+    @GetMapping("/exportOrderJob/{id}")
+    public ResultMessage<ExcelExportJob> getExportOrderJob(@PathVariable String id) {
+        return ResultUtil.data(excelExportJobManager.get(id, Objects.requireNonNull(UserContext.getCurrentUser()).getId()));
+    }
+
     @PreventDuplicateSubmissions
     @ApiOperation(value = "创建电子面单")
     @PostMapping(value = "/{orderSn}/createElectronicsFaceSheet")